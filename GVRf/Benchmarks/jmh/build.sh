@@ -0,0 +1,87 @@
+#! /usr/bin/env bash
+
+# Builds and runs the framework's JMH benchmarks on a desktop JVM.
+#
+# The benchmarks in src/ compile against the framework's own sources, with
+# the thin stand-ins in stubs/ taking the place of android.* and of the few
+# framework classes that need native code. javac only pulls in the framework
+# classes the benchmarks actually reach.
+#
+# The benchmarks only time the code; the checks that it does what it should
+# run separately, with 'build.sh check'.
+#
+# JMH itself is not checked in: point JMH_CLASSPATH at jmh-core,
+# jmh-generator-annprocess, jopt-simple and commons-math3, or let this script
+# fetch them into lib/ with Maven.
+
+JMH_VERSION=1.37
+OUT=out
+LIB=lib
+
+function usage() {
+	echo "build.sh [target] [JMH options]"
+	echo
+	echo "Target may be one of clean, build, check, or run.  Defaults to run."
+	echo "check sets up each benchmark that has a correctness check, and"
+	echo "runs it; it fails if any check does."
+	echo "run passes any further options to JMH; the default is"
+	echo "'-prof gc', which adds allocation rate per operation."
+	exit
+}
+
+function classpath() {
+	if [ -n "$JMH_CLASSPATH" ]; then
+		echo "$JMH_CLASSPATH"
+		return
+	fi
+	if [ ! -f $LIB/jmh-core-$JMH_VERSION.jar ]; then
+		mvn -q dependency:copy -DoutputDirectory=$LIB \
+			-Dartifact=org.openjdk.jmh:jmh-core:$JMH_VERSION >&2
+		mvn -q dependency:copy -DoutputDirectory=$LIB \
+			-Dartifact=org.openjdk.jmh:jmh-generator-annprocess:$JMH_VERSION >&2
+		mvn -q dependency:copy -DoutputDirectory=$LIB \
+			-Dartifact=net.sf.jopt-simple:jopt-simple:5.0.4 >&2
+		mvn -q dependency:copy -DoutputDirectory=$LIB \
+			-Dartifact=org.apache.commons:commons-math3:3.6.1 >&2
+	fi
+	echo "$LIB/*"
+}
+
+function build() {
+	rm -rf $OUT
+	mkdir -p $OUT
+	# The framework targets Java 7, which a current JDK warns about; the
+	# framework classes javac pulls in need no annotation processing
+	javac -encoding UTF-8 -source 1.7 -target 1.7 -Xlint:-options \
+		-implicit:class -cp "$(classpath)" -d $OUT \
+		-sourcepath stubs:../../Framework/src \
+		$(find src -name "*.java") || exit 1
+}
+
+function run() {
+	build
+	if [ $# -eq 0 ]; then
+		set -- -prof gc
+	fi
+	java -cp "$OUT:$(classpath)" org.openjdk.jmh.Main "$@"
+}
+
+function check() {
+	build
+	java -cp "$OUT:$(classpath)" org.gearvrf.BenchmarkChecks
+}
+
+function clean() {
+	rm -rf $OUT $LIB
+}
+
+cd "$(dirname "$0")"
+
+case $1 in
+	"" ) run ;;
+	"clean" ) clean ;;
+	"build" ) build ;;
+	"check" ) check ;;
+	"run" ) shift; run "$@" ;;
+	* ) usage ;;
+esac
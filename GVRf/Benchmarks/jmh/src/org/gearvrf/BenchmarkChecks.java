@@ -0,0 +1,139 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.gearvrf.debug.ConsoleLayoutBenchmark;
+import org.gearvrf.scene_objects.TextAtlasBenchmark;
+import org.gearvrf.utility.RecycleBinBenchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Runs the correctness checks of the benchmarks that have them, outside JMH.
+ * 
+ * <p>
+ * A {@link Checked} benchmark's fixture is also what its check needs: this
+ * sets each one up as a trial would, once for every combination of its
+ * {@link Param} values, and calls {@link Checked#check()}. The benchmarks
+ * themselves only time the code. {@code build.sh check} runs this; it prints
+ * each check's result, and exits with 1 if any of them failed.
+ */
+public final class BenchmarkChecks {
+
+    /** A benchmark whose fixture, once set up, can check the code it times */
+    public interface Checked {
+        /**
+         * @return {@code null} if the code did what it should, or else what
+         *         went wrong
+         */
+        String check();
+    }
+
+    private static final Class<?>[] CHECKED = { ConsoleLayoutBenchmark.class,
+            MeshOptimizerBenchmark.class, MeshSimplifierBenchmark.class,
+            QualityControllerBenchmark.class, RecycleBinBenchmark.class,
+            RotationSensorBenchmark.class, StaticBatchBenchmark.class,
+            TextAtlasBenchmark.class };
+
+    public static void main(String[] args) throws Exception {
+        int failures = 0;
+        for (Class<?> benchmark : CHECKED) {
+            List<Field> params = new ArrayList<Field>();
+            for (Field field : benchmark.getFields()) {
+                if (field.getAnnotation(Param.class) != null) {
+                    params.add(field);
+                }
+            }
+            failures += check(benchmark, params, new String[params.size()], 0);
+        }
+
+        System.out.printf("\n%d failed\n", failures);
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    /**
+     * Check {@code benchmark} with each combination of the values of
+     * {@code params}, from {@code index} on.
+     * 
+     * @return The number of combinations that failed
+     */
+    private static int check(Class<?> benchmark, List<Field> params,
+            String[] values, int index) throws Exception {
+        if (index < params.size()) {
+            int failures = 0;
+            for (String value : params.get(index).getAnnotation(Param.class)
+                    .value()) {
+                values[index] = value;
+                failures += check(benchmark, params, values, index + 1);
+            }
+            return failures;
+        }
+
+        Checked checked = (Checked) benchmark.getConstructor().newInstance();
+        StringBuilder name = new StringBuilder(benchmark.getSimpleName());
+        for (int param = 0; param < params.size(); ++param) {
+            Field field = params.get(param);
+            field.set(checked, parse(field.getType(), values[param]));
+            name.append(param == 0 ? " " : ", ").append(field.getName())
+                    .append('=').append(values[param]);
+        }
+
+        String failure;
+        try {
+            for (Method method : benchmark.getMethods()) {
+                Setup setup = method.getAnnotation(Setup.class);
+                if (setup != null && setup.value() == Level.Trial) {
+                    method.invoke(checked);
+                }
+            }
+            failure = checked.check();
+        } catch (InvocationTargetException e) {
+            failure = String.valueOf(e.getCause());
+        } catch (RuntimeException e) {
+            failure = String.valueOf(e);
+        }
+
+        System.out.printf("%s: %s\n", name,
+                failure == null ? "ok" : "FAILED: " + failure);
+        return failure == null ? 0 : 1;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Object parse(Class<?> type, String value) {
+        if (type == int.class) {
+            return Integer.valueOf(value);
+        } else if (type == long.class) {
+            return Long.valueOf(value);
+        } else if (type == float.class) {
+            return Float.valueOf(value);
+        } else if (type == double.class) {
+            return Double.valueOf(value);
+        } else if (type == boolean.class) {
+            return Boolean.valueOf(value);
+        } else if (type.isEnum()) {
+            return Enum.valueOf((Class<Enum>) type, value);
+        } else {
+            return value;
+        }
+    }
+}
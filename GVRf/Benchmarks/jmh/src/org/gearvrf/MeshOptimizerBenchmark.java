@@ -0,0 +1,235 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gearvrf;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * {@link GVRMeshOptimizer}'s passes, on a UV sphere of segments by segments
+ * quads: with its triangles row by row, as a generator emits them, or
+ * shuffled, as the worst case for the cache. {@code missesBefore} and
+ * {@code missesAfter} return the simulated cache misses.
+ * 
+ * <p>
+ * {@link #check()} optimizes the sphere through {@link GVRMeshOptimizer}
+ * twice: with the defaults, which must leave the vertices alone, and
+ * renumbering the vertices and reducing overdraw. Either way it checks that
+ * the mesh still has the same triangles, corners in the same winding order,
+ * and the same texture coordinates at each position, and that the ACMR went
+ * down; and fails if not.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MeshOptimizerBenchmark implements BenchmarkChecks.Checked {
+
+    @Param({ "32", "128" })
+    public int segments;
+
+    @Param({ "true", "false" })
+    public boolean shuffled;
+
+    private float[] mPositions;
+    private char[] mTriangles;
+    private char[] mOptimized;
+    private int mVertexCount;
+
+    @Setup
+    public void setup() {
+        mVertexCount = (segments + 1) * (segments + 1);
+        mPositions = new float[3 * mVertexCount];
+        for (int ring = 0; ring <= segments; ++ring) {
+            double phi = Math.PI * ring / segments;
+            for (int slice = 0; slice <= segments; ++slice) {
+                double theta = 2 * Math.PI * slice / segments;
+                int vertex = 3 * (ring * (segments + 1) + slice);
+                mPositions[vertex] = (float) (Math.sin(phi) * Math.cos(theta));
+                mPositions[vertex + 1] = (float) Math.cos(phi);
+                mPositions[vertex + 2] = (float) (Math.sin(phi) * Math.sin(theta));
+            }
+        }
+
+        mTriangles = new char[6 * segments * segments];
+        int corner = 0;
+        for (int ring = 0; ring < segments; ++ring) {
+            for (int slice = 0; slice < segments; ++slice) {
+                char a = (char) (ring * (segments + 1) + slice);
+                char b = (char) (a + segments + 1);
+                mTriangles[corner++] = a;
+                mTriangles[corner++] = b;
+                mTriangles[corner++] = (char) (a + 1);
+                mTriangles[corner++] = b;
+                mTriangles[corner++] = (char) (b + 1);
+                mTriangles[corner++] = (char) (a + 1);
+            }
+        }
+
+        if (shuffled) {
+            Random random = new Random(1);
+            for (int triangle = mTriangles.length / 3 - 1; triangle > 0; --triangle) {
+                int other = random.nextInt(triangle + 1);
+                for (int index = 0; index < 3; ++index) {
+                    char swap = mTriangles[3 * triangle + index];
+                    mTriangles[3 * triangle + index] = mTriangles[3 * other
+                            + index];
+                    mTriangles[3 * other + index] = swap;
+                }
+            }
+        }
+
+        MeshOptimizer optimizer = new MeshOptimizer(mTriangles, mVertexCount,
+                GVRMeshOptimizer.DEFAULT_CACHE_SIZE);
+        optimizer.reorderTriangles();
+        mOptimized = optimizer.getTriangles();
+    }
+
+    @Override
+    public String check() {
+        String failure = checkOptimize(false);
+        if (failure == null) {
+            failure = checkOptimize(true);
+        }
+        return failure;
+    }
+
+    /**
+     * Optimize a copy of the sphere, with texture coordinates, and compare
+     * it with the original.
+     * 
+     * @param everything
+     *            Renumber the vertices and reduce overdraw, instead of taking
+     *            the defaults
+     * @return What went wrong, or {@code null}
+     */
+    private String checkOptimize(boolean everything) {
+        float[] texCoords = new float[2 * mVertexCount];
+        for (int vertex = 0; vertex < mVertexCount; ++vertex) {
+            texCoords[2 * vertex] = vertex % (segments + 1);
+            texCoords[2 * vertex + 1] = vertex / (segments + 1);
+        }
+        GVRMesh mesh = new GVRMesh(null);
+        mesh.setVertices(mPositions.clone());
+        mesh.setTexCoords(texCoords.clone());
+        mesh.setTriangles(mTriangles.clone());
+
+        GVRMeshOptimizer.Report report = everything ? GVRMeshOptimizer
+                .optimize(mesh, GVRMeshOptimizer.DEFAULT_CACHE_SIZE, true,
+                        true) : GVRMeshOptimizer.optimize(mesh);
+        System.out.printf("\nGVRMeshOptimizer, %s: %s\n",
+                everything ? "everything" : "defaults", report);
+
+        int[] remap = report.getVertexRemap();
+        if (everything != (remap != null)) {
+            return everything ? "The vertices weren't renumbered"
+                    : "optimize(GVRMesh) renumbered the vertices";
+        }
+        // The old index of each new vertex
+        int[] old = new int[mVertexCount];
+        for (int vertex = 0; vertex < mVertexCount; ++vertex) {
+            old[everything ? remap[vertex] : vertex] = vertex;
+        }
+        for (int vertex = 0; vertex < mVertexCount; ++vertex) {
+            int from = old[vertex];
+            if (mesh.getVertices()[3 * vertex] != mPositions[3 * from]
+                    || mesh.getVertices()[3 * vertex + 2] != mPositions[3 * from + 2]
+                    || mesh.getTexCoords()[2 * vertex] != texCoords[2 * from]
+                    || mesh.getTexCoords()[2 * vertex + 1] != texCoords[2 * from + 1]) {
+                return "Vertex " + from + " lost its attributes";
+            }
+        }
+
+        char[] optimized = mesh.getTriangles();
+        for (int corner = 0; corner < optimized.length; ++corner) {
+            optimized[corner] = (char) old[optimized[corner]];
+        }
+        if (!Arrays.equals(canonical(mTriangles), canonical(optimized))) {
+            return "The triangles changed";
+        }
+        if (!(report.getACMRAfter() < report.getACMRBefore())) {
+            return "The ACMR didn't go down: " + report;
+        }
+        return null;
+    }
+
+    /**
+     * Each triangle as one number, rotated to start at its lowest vertex so
+     * the winding is kept; sorted.
+     */
+    private static long[] canonical(char[] triangles) {
+        long[] keys = new long[triangles.length / 3];
+        for (int triangle = 0; triangle < keys.length; ++triangle) {
+            int a = triangles[3 * triangle], b = triangles[3 * triangle + 1];
+            int c = triangles[3 * triangle + 2];
+            while (a > b || a > c) {
+                int first = a;
+                a = b;
+                b = c;
+                c = first;
+            }
+            keys[triangle] = ((long) a << 32) | (b << 16) | c;
+        }
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    @Benchmark
+    public char[] reorderTriangles() {
+        MeshOptimizer optimizer = new MeshOptimizer(mTriangles, mVertexCount,
+                GVRMeshOptimizer.DEFAULT_CACHE_SIZE);
+        optimizer.reorderTriangles();
+        return optimizer.getTriangles();
+    }
+
+    @Benchmark
+    public char[] reorderTrianglesAndReduceOverdraw() {
+        MeshOptimizer optimizer = new MeshOptimizer(mTriangles, mVertexCount,
+                GVRMeshOptimizer.DEFAULT_CACHE_SIZE);
+        optimizer.reorderTriangles();
+        optimizer.reduceOverdraw(mPositions);
+        return optimizer.getTriangles();
+    }
+
+    @Benchmark
+    public float[] reorderVertices() {
+        MeshOptimizer optimizer = new MeshOptimizer(mOptimized, mVertexCount,
+                GVRMeshOptimizer.DEFAULT_CACHE_SIZE);
+        return MeshOptimizer.remap(mPositions, 3, optimizer.reorderVertices());
+    }
+
+    @Benchmark
+    public int missesBefore() {
+        return MeshOptimizer.countCacheMisses(mTriangles, mVertexCount,
+                GVRMeshOptimizer.DEFAULT_CACHE_SIZE);
+    }
+
+    @Benchmark
+    public int missesAfter() {
+        return MeshOptimizer.countCacheMisses(mOptimized, mVertexCount,
+                GVRMeshOptimizer.DEFAULT_CACHE_SIZE);
+    }
+}
@@ -0,0 +1,274 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gearvrf;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * {@link MeshSimplifier} on a dome: the top three quarters of a unit UV
+ * sphere of {@code segments} slices, with normals and texture coordinates.
+ * It has a UV seam where the slices wrap around, texture seams at the pole,
+ * and an open border at the bottom. {@code simplify} takes it to a quarter of
+ * its triangles.
+ * 
+ * <p>
+ * {@link #check()} simplifies it to a half, a quarter, a tenth and 3% of its
+ * triangles, each level continuing from the last, and fails unless every
+ * level:
+ * <ul>
+ * <li>has the target number of triangles, give or take the two one collapse
+ * removes, and an error no smaller than the level before</li>
+ * <li>is still closed, apart from the original border: welded by position,
+ * every edge has one triangle on each side, running opposite ways, or is on
+ * the border ring</li>
+ * <li>has every seam vertex where it started, with its own texture
+ * coordinates</li>
+ * <li>has every triangle facing out, and finite, unit normals</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MeshSimplifierBenchmark implements BenchmarkChecks.Checked {
+
+    @Param({ "48", "96" })
+    public int segments;
+
+    private static final double[] FRACTIONS = { 0.5, 0.25, 0.1, 0.03 };
+
+    private float[] mVertices;
+    private float[] mNormals;
+    private float[] mTexCoords;
+    private char[] mTriangles;
+    private float mBorderY;
+    private double mBorderRadius;
+
+    @Setup
+    public void setup() {
+        int rings = segments * 3 / 4;
+        int columns = segments + 1;
+        int vertexCount = (rings + 1) * columns;
+        mVertices = new float[vertexCount * 3];
+        mNormals = new float[vertexCount * 3];
+        mTexCoords = new float[vertexCount * 2];
+        for (int ring = 0; ring <= rings; ++ring) {
+            double phi = Math.PI * ring / segments;
+            for (int slice = 0; slice <= segments; ++slice) {
+                // The last column repeats the first position exactly, and
+                // adding 0 turns -0 at the pole into 0
+                double theta = 2 * Math.PI * (slice % segments) / segments;
+                int vertex = ring * columns + slice;
+                float x = (float) (Math.sin(phi) * Math.cos(theta)) + 0f;
+                float y = (float) Math.cos(phi) + 0f;
+                float z = (float) (Math.sin(phi) * Math.sin(theta)) + 0f;
+                mVertices[vertex * 3] = mNormals[vertex * 3] = x;
+                mVertices[vertex * 3 + 1] = mNormals[vertex * 3 + 1] = y;
+                mVertices[vertex * 3 + 2] = mNormals[vertex * 3 + 2] = z;
+                mTexCoords[vertex * 2] = (float) slice / segments;
+                mTexCoords[vertex * 2 + 1] = (float) ring / rings;
+            }
+        }
+        mBorderY = mVertices[rings * columns * 3 + 1];
+        mBorderRadius = mVertices[rings * columns * 3];
+
+        // Outward facing; the triangles at the pole are degenerate, and
+        // the simplifier drops them
+        mTriangles = new char[rings * segments * 6];
+        int corner = 0;
+        for (int ring = 0; ring < rings; ++ring) {
+            for (int slice = 0; slice < segments; ++slice) {
+                char a = (char) (ring * columns + slice);
+                char b = (char) (a + columns);
+                mTriangles[corner++] = a;
+                mTriangles[corner++] = (char) (a + 1);
+                mTriangles[corner++] = b;
+                mTriangles[corner++] = b;
+                mTriangles[corner++] = (char) (a + 1);
+                mTriangles[corner++] = (char) (b + 1);
+            }
+        }
+    }
+
+    @Override
+    public String check() {
+        MeshSimplifier simplifier = new MeshSimplifier(mVertices, mNormals,
+                mTexCoords, mTriangles);
+        int triangles = simplifier.getTriangleCount();
+        String failure = checkLevel(simplifier.getLevel());
+        if (failure != null) {
+            return "The dome itself: " + failure;
+        }
+
+        float error = 0;
+        for (double fraction : FRACTIONS) {
+            int target = (int) (triangles * fraction);
+            MeshSimplifier.Level level = simplifier.simplify(target);
+            System.out.printf(
+                    "\nMeshSimplifier, %d triangles to %d: %d, error %.5f\n",
+                    triangles, target, level.getTriangleCount(), level.error);
+
+            if (level.getTriangleCount() > target
+                    || level.getTriangleCount() < target - 2) {
+                return "Simplifying to " + target + " triangles left "
+                        + level.getTriangleCount();
+            }
+            if (level.error < error) {
+                return "The error went down to " + level.error;
+            }
+            error = level.error;
+            failure = checkLevel(level);
+            if (failure != null) {
+                return target + " triangles: " + failure;
+            }
+        }
+        return null;
+    }
+
+    private String checkLevel(MeshSimplifier.Level level) {
+        // Weld by position, and count each directed edge
+        Map<String, Integer> welded = new HashMap<String, Integer>();
+        int vertexCount = level.vertices.length / 3;
+        int[] position = new int[vertexCount];
+        for (int vertex = 0; vertex < vertexCount; ++vertex) {
+            String key = level.vertices[vertex * 3] + " "
+                    + level.vertices[vertex * 3 + 1] + " "
+                    + level.vertices[vertex * 3 + 2];
+            Integer index = welded.get(key);
+            if (index == null) {
+                index = welded.size();
+                welded.put(key, index);
+            }
+            position[vertex] = index;
+        }
+        Map<Long, Integer> edges = new HashMap<Long, Integer>();
+        for (int corner = 0; corner < level.triangles.length; ++corner) {
+            int first = corner - corner % 3;
+            long from = position[level.triangles[corner]];
+            long to = position[level.triangles[first + (corner + 1) % 3]];
+            if (from == to) {
+                return "triangle " + corner / 3 + " is degenerate";
+            }
+            Long edge = (from << 32) | to;
+            Integer count = edges.get(edge);
+            edges.put(edge, count == null ? 1 : count + 1);
+        }
+        for (Map.Entry<Long, Integer> entry : edges.entrySet()) {
+            long edge = entry.getKey();
+            Integer opposite = edges.get((edge << 32) | (edge >>> 32));
+            if (entry.getValue() != 1 || (opposite != null && opposite != 1)) {
+                return "an edge has more than one triangle on a side";
+            }
+            if (opposite == null) {
+                // An open edge: both ends must be on the border ring, give
+                // or take the level's error
+                for (int vertex = 0; vertex < vertexCount; ++vertex) {
+                    int index = position[vertex];
+                    if ((index == (int) (edge >>> 32) || index == (int) edge)
+                            && distanceToBorder(level.vertices, vertex) > Math
+                                    .max(level.error, 1e-5)) {
+                        return "there is a crack at vertex "
+                                + Arrays.toString(Arrays.copyOfRange(
+                                        level.vertices, vertex * 3,
+                                        vertex * 3 + 3));
+                    }
+                }
+            }
+        }
+
+        for (int vertex = 0; vertex < vertexCount; ++vertex) {
+            float u = level.texCoords[vertex * 2];
+            if ((u == 0 || u == 1) && isOnSeam(level.vertices, vertex) == false) {
+                return "seam vertex moved to "
+                        + Arrays.toString(Arrays.copyOfRange(level.vertices,
+                                vertex * 3, vertex * 3 + 3));
+            }
+            double nx = level.normals[vertex * 3];
+            double ny = level.normals[vertex * 3 + 1];
+            double nz = level.normals[vertex * 3 + 2];
+            double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if (Math.abs(length - 1) > 1e-4) {
+                return "a normal has length " + length;
+            }
+        }
+
+        for (int corner = 0; corner < level.triangles.length; corner += 3) {
+            float[] v = level.vertices;
+            int a = level.triangles[corner] * 3;
+            int b = level.triangles[corner + 1] * 3;
+            int c = level.triangles[corner + 2] * 3;
+            double ux = v[b] - v[a], uy = v[b + 1] - v[a + 1], uz = v[b + 2]
+                    - v[a + 2];
+            double wx = v[c] - v[a], wy = v[c + 1] - v[a + 1], wz = v[c + 2]
+                    - v[a + 2];
+            double nx = uy * wz - uz * wy;
+            double ny = uz * wx - ux * wz;
+            double nz = ux * wy - uy * wx;
+            // The dome is convex: outward means away from its center. A
+            // sliver between three seam vertices can stand edge on, and
+            // only has to not face in
+            double cx = v[a] + v[b] + v[c], cy = v[a + 1] + v[b + 1]
+                    + v[c + 1], cz = v[a + 2] + v[b + 2] + v[c + 2];
+            double cosine = (nx * cx + ny * cy + nz * cz)
+                    / Math.sqrt((nx * nx + ny * ny + nz * nz)
+                            * (cx * cx + cy * cy + cz * cz));
+            if (cosine < -1e-3) {
+                return "triangle " + corner / 3 + " faces in";
+            }
+        }
+        return null;
+    }
+
+    /** Distance from the vertex to the circle the border vertices are on */
+    private double distanceToBorder(float[] vertices, int vertex) {
+        double x = vertices[vertex * 3], z = vertices[vertex * 3 + 2];
+        double dy = vertices[vertex * 3 + 1] - mBorderY;
+        double dr = Math.sqrt(x * x + z * z) - mBorderRadius;
+        return Math.sqrt(dy * dy + dr * dr);
+    }
+
+    /** Is the vertex exactly where one of the original seam vertices was? */
+    private boolean isOnSeam(float[] vertices, int vertex) {
+        int columns = segments + 1;
+        for (int original = 0; original < mVertices.length / 3; original += columns) {
+            if (vertices[vertex * 3] == mVertices[original * 3]
+                    && vertices[vertex * 3 + 1] == mVertices[original * 3 + 1]
+                    && vertices[vertex * 3 + 2] == mVertices[original * 3 + 2]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public MeshSimplifier.Level simplify() {
+        MeshSimplifier simplifier = new MeshSimplifier(mVertices, mNormals,
+                mTexCoords, mTriangles);
+        return simplifier.simplify(simplifier.getTriangleCount() / 4);
+    }
+}
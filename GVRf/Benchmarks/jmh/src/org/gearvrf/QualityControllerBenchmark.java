@@ -0,0 +1,179 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gearvrf;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The {@link QualityController} control loop, against a simulated scene: a
+ * minute of 60 Hz frames whose CPU time depends on the level the controller
+ * picks, with noise and an occasional garbage collection pause. A frame over
+ * budget misses vsync, and the next one starts a whole interval late.
+ * 
+ * Setup runs the minute through the controller. {@link #check()} prints how
+ * it went, and fails if the controller misbehaved for the scene:
+ * <ul>
+ * <li>{@code LIGHT}, well inside the budget, must never change level</li>
+ * <li>{@code HEAVY} must step down to the first level that fits within two
+ * seconds, and stay there</li>
+ * <li>{@code EDGE} fits at one level, and is over budget at the next one up:
+ * the controller must not keep flipping between the two</li>
+ * <li>{@code SPIKE} is light, but heavy for two seconds: the controller must
+ * step down during the spike, and be back at full quality 15 seconds
+ * later</li>
+ * </ul>
+ * The benchmark itself is the per-frame cost of the controller, replaying the
+ * same minute.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class QualityControllerBenchmark implements BenchmarkChecks.Checked {
+
+    public enum Scene {
+        LIGHT, HEAVY, EDGE, SPIKE
+    }
+
+    @Param({ "LIGHT", "HEAVY", "EDGE", "SPIKE" })
+    public Scene scene;
+
+    private static final long BUDGET = 1000000000L / 60;
+    private static final int FRAMES = 60 * 60;
+    /** The simulated scene's cost at each level; post effects are dear */
+    private static final float[] COST = { 1.0f, 0.97f, 0.85f, 0.55f, 0.45f,
+            0.38f };
+
+    private long[] mIntervals;
+    private long[] mCpuTimes;
+    /** What the setup run did: the level after each frame, and so on */
+    private int[] mLevels;
+    private int mChanges;
+    private int mMissed;
+    private int mUpgradeHold;
+    private QualityController mController;
+    private int mNext;
+
+    @Setup
+    public void setup() {
+        mIntervals = new long[FRAMES];
+        mCpuTimes = new long[FRAMES];
+        mLevels = new int[FRAMES];
+        QualityController controller = new QualityController(BUDGET);
+        Random random = new Random(1);
+
+        mMissed = 0;
+        long late = 0;
+        for (int frame = 0; frame < FRAMES; ++frame) {
+            double load = load(scene, frame) * COST[controller.getLevel()]
+                    * (1 + 0.08 * random.nextGaussian());
+            if (frame % 300 == 299) {
+                load += 1.5; // garbage collection
+            }
+            long cpu = (long) (Math.max(load, 0.05) * BUDGET);
+            // The frame after an overrun starts at the next vsync
+            long interval = BUDGET + late;
+            late = cpu > BUDGET ? (cpu / BUDGET) * BUDGET : 0;
+            if (late > 0) {
+                ++mMissed;
+            }
+            mIntervals[frame] = interval;
+            mCpuTimes[frame] = cpu;
+            controller.onFrame(interval, cpu, -1);
+            mLevels[frame] = controller.getLevel();
+        }
+        mChanges = controller.getChanges();
+        mUpgradeHold = controller.getUpgradeHold();
+
+        mController = new QualityController(BUDGET);
+    }
+
+    @Override
+    public String check() {
+        System.out.printf("\n%s: %d level changes, %d missed frames, "
+                + "ends at level %d, upgrade hold %d frames\n", scene,
+                mChanges, mMissed, mLevels[FRAMES - 1], mUpgradeHold);
+        return checkRun(scene, mLevels, mChanges);
+    }
+
+    @Benchmark
+    public boolean onFrame() {
+        int frame = mNext;
+        mNext = (frame + 1) % FRAMES;
+        return mController.onFrame(mIntervals[frame], mCpuTimes[frame], -1);
+    }
+
+    /** The scene's load at full quality, as a fraction of the budget */
+    private static double load(Scene scene, int frame) {
+        switch (scene) {
+        case LIGHT:
+            return 0.45;
+        case HEAVY:
+            // 1.19 at level 2; 0.77 at level 3
+            return 1.4;
+        case EDGE:
+            // 0.95 at level 2; 0.62 at level 3
+            return 1.12;
+        default:
+            return frame >= 600 && frame < 720 ? 2.0 : 0.45;
+        }
+    }
+
+    /** @return Why the run failed, or {@code null} */
+    private static String checkRun(Scene scene, int[] levels, int changes) {
+        switch (scene) {
+        case LIGHT:
+            return changes == 0 ? null : "changed level";
+        case HEAVY: {
+            for (int frame = 120; frame < FRAMES; ++frame) {
+                if (levels[frame] != 3) {
+                    return "at level " + levels[frame] + " after "
+                            + frame + " frames";
+                }
+            }
+            return null;
+        }
+        case EDGE:
+            // Without the growing hold, it changes level over 30 times
+            return changes <= 10 ? null : "kept changing level";
+        default: {
+            int worst = 0;
+            for (int frame = 600; frame < 720; ++frame) {
+                worst = Math.max(worst, levels[frame]);
+            }
+            if (worst < 2) {
+                return "did not step down for the spike";
+            }
+            for (int frame = 720 + 15 * 60; frame < FRAMES; ++frame) {
+                if (levels[frame] != 0) {
+                    return "not back to full quality after the spike";
+                }
+            }
+            return null;
+        }
+        }
+    }
+}
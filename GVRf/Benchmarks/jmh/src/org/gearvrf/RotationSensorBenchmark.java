@@ -0,0 +1,259 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gearvrf;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import android.hardware.SensorEvent;
+
+/**
+ * The internal rotation sensor path: a recorded second of 1000 Hz rotation
+ * vector events, through {@link GVRInternalSensorListener}'s coordinate
+ * correction and into a {@link RotationSensorQueue}, and out again on the
+ * consumer side. {@code frame} replays one 60 Hz frame's worth of events and
+ * takes the latest; {@code handoff} runs a sensor thread and a GL thread
+ * against each other.
+ * 
+ * Neither side should allocate: run with {@code -prof gc} to see the
+ * allocation rate, and the trial fails outright if replaying the whole
+ * recording allocates anything.
+ * 
+ * <p>
+ * {@link #check()} checks what a full queue does, and fails if it is wrong. Offering more samples than it holds must drop the oldest ones, so
+ * the consumer gets the newest, in order. And with a sensor thread
+ * overrunning a small queue, every sample the GL thread takes must be one
+ * that was offered, in full, newer than the one before.
+ */
+@State(Scope.Group)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RotationSensorBenchmark implements BenchmarkChecks.Checked {
+
+    private static final int RATE = 1000; // Hz
+    private static final int EVENTS_PER_FRAME = RATE / 60;
+
+    private SensorEvent[] mRecording;
+    private RotationSensorQueue mQueue;
+    private GVRInternalSensorListener mListener;
+    private final RotationSensorQueue.Sample mSample = new RotationSensorQueue.Sample();
+    private int mNext;
+    private boolean mHandoff;
+
+    @Setup
+    public void setup() {
+        mRecording = record();
+        mQueue = new RotationSensorQueue(64);
+        mListener = new GVRInternalSensorListener(new RotationSensor(
+                new RotationSensorListener() {
+                    @Override
+                    public void onRotationSensor(long timeStamp, float w,
+                            float x, float y, float z, float gyroX,
+                            float gyroY, float gyroZ) {
+                        mQueue.offer(timeStamp, w, x, y, z, gyroX, gyroY,
+                                gyroZ);
+                    }
+                }));
+    }
+
+    @Override
+    public String check() {
+        String failure = checkOverflow();
+        if (failure == null) {
+            failure = checkOverrun();
+        }
+        return failure;
+    }
+
+    @Benchmark
+    @Group("frame")
+    public float frame() {
+        for (int index = 0; index < EVENTS_PER_FRAME; ++index) {
+            sensor();
+        }
+        mQueue.pollLatest(mSample);
+        return mSample.w;
+    }
+
+    @Benchmark
+    @Group("handoff")
+    public void sensor() {
+        mListener.onSensorChanged(mRecording[mNext]);
+        mNext = (mNext + 1) % mRecording.length;
+    }
+
+    @Benchmark
+    @Group("handoff")
+    public float gl() {
+        mHandoff = true;
+        mQueue.pollLatest(mSample);
+        return mSample.w;
+    }
+
+    @TearDown(Level.Trial)
+    public void checkAllocation() {
+        // Only meaningful single threaded
+        if (mHandoff) {
+            return;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        long id = Thread.currentThread().getId();
+        long overhead = -threads.getThreadAllocatedBytes(id);
+        overhead += threads.getThreadAllocatedBytes(id);
+
+        long before = threads.getThreadAllocatedBytes(id);
+        for (int frame = 0; frame < mRecording.length / EVENTS_PER_FRAME; ++frame) {
+            frame();
+        }
+        long allocated = threads.getThreadAllocatedBytes(id) - before
+                - overhead;
+        if (allocated > 0) {
+            throw new IllegalStateException("Replaying "
+                    + mRecording.length + " sensor events allocated "
+                    + allocated + " bytes");
+        }
+    }
+
+    /** Every value of a test sample follows from its time stamp */
+    private static boolean offer(RotationSensorQueue queue, long timeStamp) {
+        float value = timeStamp;
+        return queue.offer(timeStamp, value, value + 1, value + 2, value + 3,
+                value + 4, value + 5, value + 6);
+    }
+
+    private static boolean isWhole(RotationSensorQueue.Sample sample) {
+        float value = sample.timeStamp;
+        return sample.w == value && sample.x == value + 1
+                && sample.y == value + 2 && sample.z == value + 3
+                && sample.gyroX == value + 4 && sample.gyroY == value + 5
+                && sample.gyroZ == value + 6;
+    }
+
+    /** Offer 100 samples to a queue of 8, single threaded */
+    private static String checkOverflow() {
+        RotationSensorQueue queue = new RotationSensorQueue(8);
+        RotationSensorQueue.Sample sample = new RotationSensorQueue.Sample();
+        for (long timeStamp = 1; timeStamp <= 100; ++timeStamp) {
+            if (offer(queue, timeStamp) != (timeStamp <= 8)) {
+                return "offer() said sample " + timeStamp
+                        + (timeStamp <= 8 ? " dropped one" : " had room");
+            }
+        }
+        if (queue.size() != 8 || queue.dropped() != 92) {
+            return "A full queue holds " + queue.size() + " samples, and "
+                    + queue.dropped() + " were dropped, not 8 and 92";
+        }
+        for (long timeStamp = 93; timeStamp <= 96; ++timeStamp) {
+            if (!queue.poll(sample) || sample.timeStamp != timeStamp
+                    || !isWhole(sample)) {
+                return "poll() took sample " + sample.timeStamp
+                        + " instead of " + timeStamp;
+            }
+        }
+        if (!queue.pollLatest(sample) || sample.timeStamp != 100
+                || !isWhole(sample) || queue.size() != 0) {
+            return "pollLatest() took sample " + sample.timeStamp
+                    + " instead of 100";
+        }
+        System.out.printf("\nRotationSensorQueue: 100 samples into 8 kept"
+                + " the newest; %d dropped\n", queue.dropped());
+        return null;
+    }
+
+    /** A sensor thread offering as fast as it can to a queue of 4 */
+    private static String checkOverrun() {
+        final RotationSensorQueue queue = new RotationSensorQueue(4);
+        final long samples = 2000000;
+        Thread sensor = new Thread() {
+            @Override
+            public void run() {
+                for (long timeStamp = 1; timeStamp <= samples; ++timeStamp) {
+                    offer(queue, timeStamp);
+                    // Bursts of 16, so the consumer gets a look in
+                    if (timeStamp % 16 == 0) {
+                        long until = System.nanoTime() + 1000;
+                        while (System.nanoTime() < until) {
+                        }
+                    }
+                }
+            }
+        };
+        sensor.start();
+
+        RotationSensorQueue.Sample sample = new RotationSensorQueue.Sample();
+        long last = 0;
+        long taken = 0;
+        boolean latest = false;
+        while (last < samples) {
+            // Alternate between the two ways of taking samples
+            latest = !latest;
+            if (!(latest ? queue.pollLatest(sample) : queue.poll(sample))) {
+                Thread.yield();
+                continue;
+            }
+            ++taken;
+            if (sample.timeStamp <= last || sample.timeStamp > samples
+                    || !isWhole(sample)) {
+                return "After sample " + last + ", took a torn or stale "
+                        + "sample " + sample.timeStamp;
+            }
+            last = sample.timeStamp;
+        }
+        try {
+            sensor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.printf("RotationSensorQueue: %d samples overran a queue"
+                + " of 4; took %d, dropped %d\n", samples, taken,
+                queue.dropped());
+        return null;
+    }
+
+    /** A second of a head turning left and right, and nodding */
+    private static SensorEvent[] record() {
+        SensorEvent[] events = new SensorEvent[RATE];
+        for (int index = 0; index < RATE; ++index) {
+            double t = (double) index / RATE;
+            double yaw = 0.8 * Math.sin(2 * Math.PI * t);
+            double pitch = 0.3 * Math.sin(4 * Math.PI * t);
+            // Yaw about Z, then pitch about X: the device's rotation vector
+            double cy = Math.cos(yaw / 2), sy = Math.sin(yaw / 2);
+            double cp = Math.cos(pitch / 2), sp = Math.sin(pitch / 2);
+            SensorEvent event = new SensorEvent(5);
+            event.values[0] = (float) (cy * sp);
+            event.values[1] = (float) (sy * sp);
+            event.values[2] = (float) (sy * cp);
+            event.values[3] = (float) (cy * cp);
+            event.timestamp = index * (1000000000L / RATE);
+            events[index] = event;
+        }
+        return events;
+    }
+}
@@ -0,0 +1,287 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gearvrf;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * {@link StaticBatchBuilder} merging {@code meshes} cubes - 24 vertices with
+ * flat normals and texture coordinates - each under its own rotation,
+ * non-uniform scale and translation. Every third cube is mirrored.
+ * 
+ * <p>
+ * {@link #check()} merges them once and checks the result, and fails if it
+ * is wrong:
+ * <ul>
+ * <li>Every cube is in a chunk, in order, and no chunk has more vertices
+ * than 16-bit indices can address, or indices past its vertices</li>
+ * <li>Each position is the cube's, through its matrix</li>
+ * <li>Each texture coordinate is the cube's</li>
+ * <li>Each triangle still faces the way its corners' normals point, and the
+ * normals are unit length - so both the normal transform and the winding
+ * under mirroring are right</li>
+ * <li>A mesh with a vec4 vector, like a vertex color, is not usable, and
+ * {@link StaticBatchBuilder#add(StaticBatchBuilder.MeshData, float[])} refuses
+ * it</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StaticBatchBenchmark implements BenchmarkChecks.Checked {
+
+    @Param({ "100", "5000" })
+    public int meshes;
+
+    private static final int CUBE_VERTICES = 24;
+
+    private StaticBatchBuilder.MeshData mCube;
+    private float[][] mMatrices;
+
+    @Setup
+    public void setup() {
+        mCube = new StaticBatchBuilder.MeshData(newCube());
+
+        Random random = new Random(1);
+        mMatrices = new float[meshes][];
+        for (int mesh = 0; mesh < meshes; ++mesh) {
+            mMatrices[mesh] = randomMatrix(random, mesh % 3 == 2);
+        }
+    }
+
+    @Override
+    public String check() {
+        String failure = checkAttributes();
+        if (failure == null) {
+            failure = checkMerge(build());
+        }
+        return failure;
+    }
+
+    /** A unit cube, four vertices per face so each face has its own normal */
+    private static GVRMesh newCube() {
+        float[] vertices = new float[CUBE_VERTICES * 3];
+        float[] normals = new float[CUBE_VERTICES * 3];
+        float[] texCoords = new float[CUBE_VERTICES * 2];
+        char[] triangles = new char[36];
+        for (int face = 0; face < 6; ++face) {
+            int axis = face / 2;
+            float sign = face % 2 == 0 ? 1 : -1;
+            // u, v and the normal make a right-handed basis
+            int u = (axis + (sign > 0 ? 1 : 2)) % 3;
+            int v = (axis + (sign > 0 ? 2 : 1)) % 3;
+            for (int corner = 0; corner < 4; ++corner) {
+                int vertex = face * 4 + corner;
+                float cu = corner == 1 || corner == 2 ? 0.5f : -0.5f;
+                float cv = corner >= 2 ? 0.5f : -0.5f;
+                vertices[vertex * 3 + axis] = sign * 0.5f;
+                vertices[vertex * 3 + u] = cu;
+                vertices[vertex * 3 + v] = cv;
+                normals[vertex * 3 + axis] = sign;
+                texCoords[vertex * 2] = cu + 0.5f + face;
+                texCoords[vertex * 2 + 1] = cv + 0.5f;
+            }
+            char first = (char) (face * 4);
+            char[] quad = { 0, 1, 2, 0, 2, 3 };
+            for (int index = 0; index < 6; ++index) {
+                triangles[face * 6 + index] = (char) (first + quad[index]);
+            }
+        }
+
+        GVRMesh mesh = new GVRMesh(null);
+        mesh.setVertices(vertices);
+        mesh.setNormals(normals);
+        mesh.setTexCoords(texCoords);
+        mesh.setTriangles(triangles);
+        return mesh;
+    }
+
+    /** Rotation about a random axis, then scale, then translation */
+    private static float[] randomMatrix(Random random, boolean mirrored) {
+        double x = random.nextGaussian(), y = random.nextGaussian();
+        double z = random.nextGaussian();
+        double length = Math.sqrt(x * x + y * y + z * z);
+        x /= length;
+        y /= length;
+        z /= length;
+        double angle = random.nextDouble() * 2 * Math.PI;
+        double c = Math.cos(angle), s = Math.sin(angle), t = 1 - c;
+        double[][] rotation = {
+                { t * x * x + c, t * x * y - s * z, t * x * z + s * y },
+                { t * x * y + s * z, t * y * y + c, t * y * z - s * x },
+                { t * x * z - s * y, t * y * z + s * x, t * z * z + c } };
+        double[] scale = { 0.5 + random.nextDouble() * 3,
+                0.5 + random.nextDouble() * 3, 0.5 + random.nextDouble() * 3 };
+        if (mirrored) {
+            scale[0] = -scale[0];
+        }
+
+        float[] matrix = new float[16];
+        for (int row = 0; row < 3; ++row) {
+            for (int column = 0; column < 3; ++column) {
+                matrix[column * 4 + row] = (float) (rotation[row][column] * scale[column]);
+            }
+            matrix[12 + row] = (float) (random.nextDouble() * 200 - 100);
+        }
+        matrix[15] = 1;
+        return matrix;
+    }
+
+    /** Merge everything, then compare each cube in the chunks with its own */
+    private String checkMerge(List<StaticBatchBuilder.Chunk> chunks) {
+        int perChunk = StaticBatchBuilder.MAX_VERTICES / CUBE_VERTICES;
+        int expectedChunks = (meshes + perChunk - 1) / perChunk;
+        System.out.printf("\nStaticBatchBuilder: %d cubes in %d chunks\n",
+                meshes, chunks.size());
+        if (chunks.size() != expectedChunks) {
+            return "Expected " + expectedChunks + " chunks, got "
+                    + chunks.size();
+        }
+
+        int mesh = 0;
+        for (StaticBatchBuilder.Chunk chunk : chunks) {
+            int vertexCount = chunk.vertices.length / 3;
+            if (vertexCount > StaticBatchBuilder.MAX_VERTICES
+                    || vertexCount != chunk.meshCount * CUBE_VERTICES
+                    || chunk.normals.length != vertexCount * 3
+                    || chunk.texCoords.length != vertexCount * 2
+                    || chunk.triangles.length != chunk.meshCount * 36) {
+                return "A chunk of " + chunk.meshCount
+                        + " cubes has the wrong sizes";
+            }
+            for (char index : chunk.triangles) {
+                if (index >= vertexCount) {
+                    return "Index " + (int) index + " is past the chunk's "
+                            + vertexCount + " vertices";
+                }
+            }
+
+            for (int inChunk = 0; inChunk < chunk.meshCount; ++inChunk, ++mesh) {
+                String failure = checkCube(chunk, inChunk, mMatrices[mesh]);
+                if (failure != null) {
+                    return "Cube " + mesh + ": " + failure;
+                }
+            }
+        }
+        if (mesh != meshes) {
+            return "The chunks have " + mesh + " cubes, not " + meshes;
+        }
+        return null;
+    }
+
+    private String checkCube(StaticBatchBuilder.Chunk chunk, int inChunk,
+            float[] m) {
+        int base = inChunk * CUBE_VERTICES;
+        for (int vertex = 0; vertex < CUBE_VERTICES; ++vertex) {
+            for (int row = 0; row < 3; ++row) {
+                double expected = m[12 + row];
+                for (int column = 0; column < 3; ++column) {
+                    expected += (double) m[column * 4 + row]
+                            * mCube.vertices[vertex * 3 + column];
+                }
+                if (Math.abs(chunk.vertices[(base + vertex) * 3 + row]
+                        - expected) > 1e-4) {
+                    return "vertex " + vertex + " isn't where its matrix puts it";
+                }
+            }
+            if (chunk.texCoords[(base + vertex) * 2] != mCube.texCoords[vertex * 2]
+                    || chunk.texCoords[(base + vertex) * 2 + 1] != mCube.texCoords[vertex * 2 + 1]) {
+                return "vertex " + vertex + " lost its texture coordinates";
+            }
+        }
+
+        for (int corner = 0; corner < 36; corner += 3) {
+            int first = inChunk * 36 + corner;
+            int a = chunk.triangles[first], b = chunk.triangles[first + 1];
+            int c = chunk.triangles[first + 2];
+            if (a < base || b < base || c < base || a >= base + CUBE_VERTICES
+                    || b >= base + CUBE_VERTICES || c >= base + CUBE_VERTICES) {
+                return "triangle " + corner / 3 + " uses another cube's vertices";
+            }
+            double[] face = faceNormal(chunk.vertices, a, b, c);
+            for (int vertex : new int[] { a, b, c }) {
+                double nx = chunk.normals[vertex * 3];
+                double ny = chunk.normals[vertex * 3 + 1];
+                double nz = chunk.normals[vertex * 3 + 2];
+                double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+                if (Math.abs(length - 1) > 1e-4) {
+                    return "vertex " + (vertex - base)
+                            + " has a normal of length " + length;
+                }
+                if (face[0] * nx + face[1] * ny + face[2] * nz < 0.999) {
+                    return "triangle " + corner / 3
+                            + " doesn't face the way its normals point";
+                }
+            }
+        }
+        return null;
+    }
+
+    /** Unit normal of the triangle, by its winding */
+    private static double[] faceNormal(float[] vertices, int a, int b, int c) {
+        double[] ab = new double[3], ac = new double[3];
+        for (int axis = 0; axis < 3; ++axis) {
+            ab[axis] = vertices[b * 3 + axis] - vertices[a * 3 + axis];
+            ac[axis] = vertices[c * 3 + axis] - vertices[a * 3 + axis];
+        }
+        double x = ab[1] * ac[2] - ab[2] * ac[1];
+        double y = ab[2] * ac[0] - ab[0] * ac[2];
+        double z = ab[0] * ac[1] - ab[1] * ac[0];
+        double length = Math.sqrt(x * x + y * y + z * z);
+        return new double[] { x / length, y / length, z / length };
+    }
+
+    /** A cube with a color per vertex must not be merged */
+    private String checkAttributes() {
+        if (mCube.isUsable() == false) {
+            return "A plain cube isn't usable";
+        }
+        GVRMesh colored = newCube();
+        colored.setVec4Vector("a_color", new float[CUBE_VERTICES * 4]);
+        StaticBatchBuilder.MeshData data = new StaticBatchBuilder.MeshData(
+                colored);
+        if (data.isUsable()) {
+            return "A cube with vertex colors is usable";
+        }
+        try {
+            new StaticBatchBuilder(true, true).add(data, mMatrices[0]);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return "A cube with vertex colors was merged";
+    }
+
+    @Benchmark
+    public List<StaticBatchBuilder.Chunk> build() {
+        StaticBatchBuilder builder = new StaticBatchBuilder(true, true);
+        for (float[] matrix : mMatrices) {
+            builder.add(mCube, matrix);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,80 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.animation;
+
+import java.util.concurrent.TimeUnit;
+
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRSceneObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * One frame of {@link GVRAnimationEngine}, with a number of endless
+ * ping-pong position and scale animations running: the interpolation and
+ * repeat-mode arithmetic, and the engine's own per-frame bookkeeping. The
+ * transforms are stand-ins, so no time goes to JNI.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AnimationEngineBenchmark {
+
+    @Param({ "10", "1000" })
+    public int animations;
+
+    private GVRContext mContext;
+    private final GVRInterpolator mInterpolator = GVRAccelerateDecelerateInterpolator
+            .getInstance();
+    private float mRatio;
+
+    @Setup
+    public void setup() {
+        mContext = new GVRContext();
+        // Not the singleton, so each trial starts with only its own
+        // animations
+        GVRAnimationEngine engine = new GVRAnimationEngine(mContext);
+        for (int index = 0; index < animations; ++index) {
+            GVRSceneObject sceneObject = new GVRSceneObject(mContext);
+            GVRAnimation animation = (index & 1) == 0 //
+            ? new GVRPositionAnimation(sceneObject, 1.5f, index, 1, -2)
+                    : new GVRScaleAnimation(sceneObject, 0.75f, 2);
+            animation.setRepeatMode(GVRRepeatMode.PINGPONG)
+                    .setRepeatCount(-1).setInterpolator(mInterpolator)
+                    .start(engine);
+        }
+    }
+
+    @Benchmark
+    public void frame() {
+        mContext.drawFrame(1f / 60);
+    }
+
+    @Benchmark
+    public float interpolator() {
+        mRatio += 1f / 1024;
+        if (mRatio > 1) {
+            mRatio -= 1;
+        }
+        return mInterpolator.mapRatio(mRatio);
+    }
+}
@@ -0,0 +1,137 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.asynchronous;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+import org.gearvrf.asynchronous.GVRCompressedTextureLoader.Reader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compressed texture header handling, for each container format: parsing a
+ * header with its own loader; sniffing a stream against every registered
+ * loader; and the whole {@code load()} path, which reads the stream, sniffs,
+ * and parses. The files are synthetic 256x256 images.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CompressedTextureBenchmark {
+
+    public enum Format {
+        KTX, PKM, ASTC
+    }
+
+    @Param({ "KTX", "PKM", "ASTC" })
+    public Format format;
+
+    private static final int SIZE = 256;
+    // One byte per texel: the ETC2 RGBA and ASTC 4x4 rate
+    private static final int IMAGE_SIZE = SIZE * SIZE;
+
+    private byte[] mFile;
+    private GVRCompressedTextureLoader mLoader;
+
+    @Setup
+    public void setup() {
+        switch (format) {
+        case KTX:
+            mFile = ktx();
+            mLoader = new KTX();
+            break;
+        case PKM:
+            mFile = pkm();
+            mLoader = new EricssonTextureCompression2();
+            break;
+        default:
+            mFile = astc();
+            mLoader = new AdaptiveScalableTextureCompression();
+            break;
+        }
+    }
+
+    @Benchmark
+    public CompressedTexture parse() {
+        return mLoader.parse(mFile, new Reader(mFile));
+    }
+
+    @Benchmark
+    public GVRCompressedTextureLoader sniff() throws IOException {
+        return CompressedTexture.sniff(new ByteArrayInputStream(mFile));
+    }
+
+    @Benchmark
+    public CompressedTexture load() throws IOException {
+        return CompressedTexture.load(new ByteArrayInputStream(mFile), -1,
+                false);
+    }
+
+    private static byte[] ktx() {
+        ByteBuffer buffer = ByteBuffer.allocate(64 + 4 + IMAGE_SIZE).order(
+                ByteOrder.LITTLE_ENDIAN);
+        buffer.put(new byte[] { (byte) 0xAB, 'K', 'T', 'X', ' ', '1', '1',
+                (byte) 0xBB, '\r', '\n', 0x1A, '\n' });
+        buffer.putInt(0x04030201); // endianness
+        buffer.putInt(0); // glType
+        buffer.putInt(1); // glTypeSize
+        buffer.putInt(0); // glFormat
+        buffer.putInt(0x9278); // GL_COMPRESSED_RGBA8_ETC2_EAC
+        buffer.putInt(0x1908); // GL_RGBA
+        buffer.putInt(SIZE); // pixelWidth
+        buffer.putInt(SIZE); // pixelHeight
+        buffer.putInt(0); // pixelDepth
+        buffer.putInt(0); // numberOfArrayElements
+        buffer.putInt(1); // numberOfFaces
+        buffer.putInt(1); // numberOfMipmapLevels
+        buffer.putInt(0); // bytesOfKeyValueData
+        buffer.putInt(IMAGE_SIZE);
+        return buffer.array();
+    }
+
+    private static byte[] pkm() {
+        ByteBuffer buffer = ByteBuffer.allocate(16 + IMAGE_SIZE).order(
+                ByteOrder.BIG_ENDIAN);
+        buffer.put(new byte[] { 'P', 'K', 'M', ' ', '2', '0', 0 });
+        buffer.put((byte) 0x03); // RGBA8_ETC2_EAC
+        buffer.putShort((short) SIZE); // padded width
+        buffer.putShort((short) SIZE); // padded height
+        buffer.putShort((short) SIZE); // width
+        buffer.putShort((short) SIZE); // height
+        return buffer.array();
+    }
+
+    private static byte[] astc() {
+        ByteBuffer buffer = ByteBuffer.allocate(16 + IMAGE_SIZE).order(
+                ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0x5CA1AB13); // magic
+        buffer.put(new byte[] { 4, 4, 1 }); // block dimensions
+        buffer.put(new byte[] { 0, 1, 0 }); // x size: 256
+        buffer.put(new byte[] { 0, 1, 0 }); // y size: 256
+        buffer.put(new byte[] { 1, 0, 0 }); // z size: 1
+        return buffer.array();
+    }
+}
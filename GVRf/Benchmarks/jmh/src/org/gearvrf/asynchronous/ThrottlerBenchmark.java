@@ -0,0 +1,131 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.asynchronous;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.gearvrf.GVRAndroidResource;
+import org.gearvrf.GVRAndroidResource.CancelableCallback;
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRHybridObject;
+import org.gearvrf.asynchronous.Throttler.AsyncLoader;
+import org.gearvrf.asynchronous.Throttler.AsyncLoaderFactory;
+import org.gearvrf.asynchronous.Throttler.GlConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A batch of asynchronous loads through the {@link Throttler}, with a loader
+ * that does no work: what's left is request bookkeeping, duplicate
+ * coalescing, thread limiting, and the hop back to the (stand-in) GL thread,
+ * which the benchmark thread pumps until every callback has run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ThrottlerBenchmark {
+
+    @Param({ "64" })
+    public int batchSize;
+
+    /** How many requests in a batch ask for the same resource */
+    @Param({ "1", "8" })
+    public int duplicates;
+
+    private GVRContext mContext;
+
+    @Setup
+    public void setup() {
+        mContext = new GVRContext();
+        Throttler.registerDatatype(Resource.class, new NullLoaderFactory());
+    }
+
+    @Benchmark
+    public void loadBatch() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(batchSize);
+        Callback callback = new Callback(done);
+        for (int index = 0; index < batchSize; ++index) {
+            GVRAndroidResource request = new GVRAndroidResource(mContext,
+                    index / duplicates + 1);
+            Throttler.registerCallback(mContext, Resource.class, callback,
+                    request, GVRContext.DEFAULT_PRIORITY);
+        }
+        while (done.getCount() > 0) {
+            mContext.drawFrame(0);
+            Thread.yield();
+        }
+    }
+
+    static final class Resource extends GVRHybridObject {
+        Resource(GVRContext gvrContext) {
+            super(gvrContext, 0);
+        }
+    }
+
+    private static final class NullLoaderFactory extends
+            AsyncLoaderFactory<Resource, Resource> {
+        private static final GlConverter<Resource, Resource> sConverter = new GlConverter<Resource, Resource>() {
+            @Override
+            public Resource convert(GVRContext gvrContext, Resource input) {
+                return input;
+            }
+        };
+
+        @Override
+        AsyncLoader<Resource, Resource> threadProc(
+                final GVRContext gvrContext, GVRAndroidResource request,
+                CancelableCallback<GVRHybridObject> callback, int priority) {
+            return new AsyncLoader<Resource, Resource>(gvrContext, sConverter,
+                    request, callback) {
+                @Override
+                protected Resource loadResource() {
+                    return new Resource(gvrContext);
+                }
+            };
+        }
+    }
+
+    private static final class Callback implements
+            CancelableCallback<Resource> {
+        private final CountDownLatch mDone;
+
+        Callback(CountDownLatch done) {
+            mDone = done;
+        }
+
+        @Override
+        public void loaded(Resource resource, GVRAndroidResource androidResource) {
+            mDone.countDown();
+        }
+
+        @Override
+        public void failed(Throwable t, GVRAndroidResource androidResource) {
+            mDone.countDown();
+        }
+
+        @Override
+        public boolean stillWanted(GVRAndroidResource androidResource) {
+            return true;
+        }
+    }
+}
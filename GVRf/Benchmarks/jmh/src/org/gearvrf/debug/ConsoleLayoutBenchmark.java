@@ -0,0 +1,191 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gearvrf.debug;
+
+import java.util.concurrent.TimeUnit;
+
+import org.gearvrf.BenchmarkChecks;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The {@link GVRConsole}'s row bookkeeping, for the two ways consoles get
+ * used: a log that scrolls a line at a time, and a stats display that clears
+ * and rewrites a few lines every frame, most of them unchanged. Each
+ * operation writes, then collects the dirty rows as upload runs; the result
+ * is the number of rows a frame would upload, where drawing the whole
+ * console would upload {@code rows}.
+ * 
+ * <p>
+ * {@link #check()} checks that a full console is drawn in one run, that a
+ * scroll or a rewrite of the same lines only dirties the rows that changed,
+ * and that invalidating or resizing the layout dirties every row, empty or
+ * not, and keeps the newest lines; and fails if not.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConsoleLayoutBenchmark implements BenchmarkChecks.Checked {
+
+    @Param({ "16", "64" })
+    public int rows;
+
+    private ConsoleLayout mLayout;
+    private int[] mBands;
+    private final String[] mLines = new String[256];
+    private int mNext;
+
+    @Setup
+    public void setup() {
+        mLayout = new ConsoleLayout(rows);
+        mBands = new int[rows + 1];
+        for (int index = 0; index < mLines.length; ++index) {
+            mLines[index] = "Line " + index;
+        }
+
+        // Start with a full console, all drawn
+        for (int index = 0; index < rows; ++index) {
+            mLayout.write(mLines[index % mLines.length]);
+        }
+        mLayout.collectDirtyBands(mBands);
+    }
+
+    @Benchmark
+    public int scroll() {
+        mLayout.write(mLines[mNext++ % mLines.length]);
+        return uploadedRows();
+    }
+
+    @Benchmark
+    public int stats() {
+        mLayout.clear();
+        mLayout.write("Draw Calls: 120");
+        mLayout.write("Triangles: 48000");
+        // Only the frame time changes
+        mLayout.write(mLines[mNext++ % mLines.length]);
+        return uploadedRows();
+    }
+
+    /**
+     * A console of {@code rows} rows through a scroll, a stats frame, an
+     * invalidate, and a resize to half as many rows and back.
+     * 
+     * @return What went wrong, or {@code null}
+     */
+    @Override
+    public String check() {
+        ConsoleLayout layout = new ConsoleLayout(rows);
+        int[] bands = new int[rows + 1];
+        for (int index = 0; index < rows; ++index) {
+            layout.write("Line " + index);
+        }
+        String failure = expect(layout, bands, "full", 0, rows);
+        if (failure != null) {
+            return failure;
+        }
+
+        // The newest line replaces the oldest, in row 0, which the shader
+        // now shows last
+        if (layout.write("Line " + rows) != 0 || layout.topRow() != 1) {
+            return "Scrolled into the wrong row";
+        }
+        failure = expect(layout, bands, "scroll", 0, 1);
+        if (failure != null) {
+            return failure;
+        }
+
+        // Clear and rewrite: only the one line that changed is uploaded,
+        // though every row was touched
+        layout.clear();
+        layout.write("Draw Calls: 120");
+        layout.write("Frame: 16 ms");
+        expect(layout, bands, "stats", -1, -1);
+        layout.clear();
+        layout.write("Draw Calls: 120");
+        layout.write("Frame: 17 ms");
+        failure = expect(layout, bands, "stats", 1, 1);
+        if (failure != null) {
+            return failure;
+        }
+
+        layout.invalidate();
+        failure = expect(layout, bands, "invalidate", 0, rows);
+        if (failure != null) {
+            return failure;
+        }
+
+        for (int index = 0; index < rows; ++index) {
+            layout.write("Line " + index);
+        }
+        expect(layout, bands, "refill", -1, -1);
+        int half = Math.max(1, rows / 2);
+        layout.resize(half);
+        failure = expect(layout, bands, "resize", 0, half);
+        if (failure == null && layout.topRow() != 0) {
+            failure = "resize left the ring scrolled";
+        }
+        for (int row = 0; failure == null && row < half; ++row) {
+            String line = "Line " + (rows - half + row);
+            if (!line.equals(layout.line(row))) {
+                failure = String.format("resize put %s in row %d, not %s",
+                        layout.line(row), row, line);
+            }
+        }
+        if (failure == null) {
+            // Back to full size: the empty rows need clearing too
+            layout.resize(rows);
+            failure = expect(layout, bands, "growing", 0, rows);
+        }
+        System.out.printf("\nConsoleLayout: %d rows %s\n", rows,
+                failure == null ? "checked" : "FAILED");
+        return failure;
+    }
+
+    /**
+     * Collect the dirty rows, which should be a single run, unless
+     * {@code first} is -1
+     */
+    private static String expect(ConsoleLayout layout, int[] bands,
+            String what, int first, int count) {
+        int runs = layout.collectDirtyBands(bands);
+        if (first < 0) {
+            return null;
+        }
+        if (runs == 1 && bands[0] == first && bands[1] == count) {
+            return null;
+        }
+        return String.format(
+                "After %s: %d runs, the first %d rows from row %d; not %d from %d",
+                what, runs, runs > 0 ? bands[1] : 0, runs > 0 ? bands[0] : 0,
+                count, first);
+    }
+
+    private int uploadedRows() {
+        int uploaded = 0;
+        int bands = mLayout.collectDirtyBands(mBands);
+        for (int band = 0; band < bands; ++band) {
+            uploaded += mBands[band * 2 + 1];
+        }
+        return uploaded;
+    }
+}
@@ -0,0 +1,94 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.periodic;
+
+import java.util.concurrent.TimeUnit;
+
+import org.gearvrf.GVRContext;
+import org.gearvrf.periodic.GVRPeriodicEngine.PeriodicEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * {@link GVRPeriodicEngine}: scheduling and canceling one event with many
+ * others pending, and the per-frame cost when every pending event is due,
+ * and when none are.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PeriodicEngineBenchmark {
+
+    @Param({ "100", "10000" })
+    public int pendingEvents;
+
+    private GVRContext mEveryFrameContext;
+    private GVRContext mIdleContext;
+    private GVRPeriodicEngine mIdleEngine;
+    private int mRuns;
+
+    private final Runnable mTask = new Runnable() {
+        @Override
+        public void run() {
+            ++mRuns;
+        }
+    };
+
+    @Setup
+    public void setup() {
+        // Separate engines, rather than the singleton, so each benchmark
+        // only sees its own events
+        mEveryFrameContext = new GVRContext();
+        GVRPeriodicEngine everyFrame = new GVRPeriodicEngine(
+                mEveryFrameContext) {
+        };
+        for (int index = 0; index < pendingEvents; ++index) {
+            everyFrame.runEveryFrames(mTask, 1, 1);
+        }
+
+        mIdleContext = new GVRContext();
+        mIdleEngine = new GVRPeriodicEngine(mIdleContext) {
+        };
+        for (int index = 0; index < pendingEvents; ++index) {
+            // Far enough out to never come due during a run
+            mIdleEngine.runAfter(mTask, 3600 + index);
+        }
+    }
+
+    @Benchmark
+    public void scheduleAndCancel() {
+        PeriodicEvent event = mIdleEngine.runAfter(mTask, 60);
+        event.cancel();
+    }
+
+    @Benchmark
+    public int frameAllDue() {
+        mEveryFrameContext.drawFrame(1f / 60);
+        return mRuns;
+    }
+
+    @Benchmark
+    public int frameNoneDue() {
+        mIdleContext.drawFrame(1f / 60);
+        return mRuns;
+    }
+}
@@ -0,0 +1,361 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gearvrf.scene_objects;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.gearvrf.BenchmarkChecks;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The bookkeeping behind {@link GVRTextSurfacePool}: packing a set of text
+ * views of assorted sizes into atlas pages, and one frame's worth of working
+ * out what to redraw after a few of them change. The drawing itself needs a
+ * real canvas, so it isn't measured here.
+ * 
+ * <p>
+ * {@link #check()} checks that slots never overlap or leave their page's
+ * texture, that each texture is the smallest power of two that holds its
+ * slots, that freed slots are reused and an emptied page is released, and
+ * that a page's dirty views are locked as one rectangle; and fails if not.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TextAtlasBenchmark implements BenchmarkChecks.Checked {
+
+    private static final int PAGE_SIZE = 2048;
+    private static final int PADDING = 2;
+
+    @Param({ "16", "256" })
+    public int views;
+
+    /** How many views change each frame */
+    @Param({ "1", "8" })
+    public int changes;
+
+    private int[] mWidths, mHeights;
+    private TextAtlas mAtlas;
+    private final List<TextAtlas.Slot> mSlots = new ArrayList<TextAtlas.Slot>();
+    private final List<TextAtlas.Slot> mRedraw = new ArrayList<TextAtlas.Slot>();
+    private final int[] mBounds = new int[4];
+    private final Random mRandom = new Random(46);
+
+    @Setup
+    public void setup() {
+        mWidths = new int[views];
+        mHeights = new int[views];
+        for (int index = 0; index < views; ++index) {
+            // Labels, mostly: a wide range of widths, a narrow one of heights
+            mWidths[index] = 64 + mRandom.nextInt(448);
+            mHeights[index] = 32 + 16 * mRandom.nextInt(4);
+        }
+
+        mAtlas = pack();
+        for (int page = 0; page < mAtlas.pageCount(); ++page) {
+            mSlots.addAll(mAtlas.slots(page));
+            mAtlas.collectDirtyBounds(page, mBounds);
+        }
+    }
+
+    @Override
+    public String check() {
+        String failure = checkSlots();
+        if (failure == null) {
+            failure = checkChurn();
+        }
+        if (failure == null) {
+            failure = checkDirtyBounds();
+        }
+        return failure;
+    }
+
+    @Benchmark
+    public TextAtlas pack() {
+        TextAtlas atlas = new TextAtlas(PAGE_SIZE, PAGE_SIZE, PADDING);
+        for (int index = 0; index < views; ++index) {
+            atlas.allocate(mWidths[index], mHeights[index]);
+        }
+        return atlas;
+    }
+
+    @Benchmark
+    public int frame() {
+        for (int index = 0; index < changes; ++index) {
+            mSlots.get(mRandom.nextInt(mSlots.size())).dirty = true;
+        }
+        int redrawn = 0;
+        for (int page = 0; page < mAtlas.pageCount(); ++page) {
+            if (mAtlas.collectDirtyBounds(page, mBounds)) {
+                mAtlas.collectSlots(page, mBounds[0], mBounds[1],
+                        mBounds[2], mBounds[3], mRedraw);
+                redrawn += mRedraw.size();
+            }
+        }
+        return redrawn;
+    }
+
+    /**
+     * Every slot, padding included, inside its page's texture and clear of
+     * every other; and each texture the smallest power of two (or the page
+     * size) that holds its slots.
+     * 
+     * @param exact
+     *            Whether the textures should be no bigger than their slots
+     *            need: they only grow, so after slots are freed they can be
+     * @return What went wrong, or {@code null}
+     */
+    private static String checkPacking(TextAtlas atlas, boolean exact) {
+        for (int page = 0; page < atlas.pageCount(); ++page) {
+            List<TextAtlas.Slot> slots = atlas.slots(page);
+            int width = atlas.pageWidth(page), height = atlas.pageHeight(page);
+            if (slots.isEmpty()) {
+                if (width != 0 || height != 0) {
+                    return String.format("Empty page %d is %d x %d", page,
+                            width, height);
+                }
+                continue;
+            }
+
+            int right = 0, bottom = 0;
+            for (int i = 0; i < slots.size(); ++i) {
+                TextAtlas.Slot a = slots.get(i);
+                if (a.page != page || a.x < PADDING || a.y < PADDING
+                        || a.x + a.width + PADDING > width
+                        || a.y + a.height + PADDING > height) {
+                    return String.format(
+                            "Slot %d x %d at %d, %d is off its %d x %d page",
+                            a.width, a.height, a.x, a.y, width, height);
+                }
+                right = Math.max(right, a.x + a.width + PADDING);
+                bottom = Math.max(bottom, a.y + a.height + PADDING);
+                for (int j = i + 1; j < slots.size(); ++j) {
+                    TextAtlas.Slot b = slots.get(j);
+                    if (b.intersects(a.x - 2 * PADDING, a.y - 2 * PADDING,
+                            a.x + a.width + 2 * PADDING, a.y + a.height + 2
+                                    * PADDING)) {
+                        return String.format(
+                                "Slots at %d, %d and %d, %d overlap", a.x,
+                                a.y, b.x, b.y);
+                    }
+                }
+            }
+            if (exact
+                    && (width != textureSize(right) || height != textureSize(bottom))) {
+                return String.format(
+                        "Page %d is %d x %d, to hold slots out to %d x %d",
+                        page, width, height, right, bottom);
+            }
+        }
+        return null;
+    }
+
+    private static int textureSize(int extent) {
+        if (extent > PAGE_SIZE) {
+            return extent; // A page of its own
+        }
+        int size = TextAtlas.MIN_PAGE_SIZE;
+        while (size < extent) {
+            size *= 2;
+        }
+        return Math.min(size, PAGE_SIZE);
+    }
+
+    /**
+     * Slots placed, freed, and placed again by hand: the holes they leave are
+     * taken, merged holes hold a wider view, and the last slot off a page
+     * releases it.
+     * 
+     * @return What went wrong, or {@code null}
+     */
+    private static String checkSlots() {
+        TextAtlas atlas = new TextAtlas(PAGE_SIZE, PAGE_SIZE, PADDING);
+        // A shelf 24 high of 104 wide slots at x = 2, 106, 210; then one
+        // 204 high below it
+        TextAtlas.Slot a = atlas.allocate(100, 20);
+        TextAtlas.Slot b = atlas.allocate(100, 20);
+        TextAtlas.Slot c = atlas.allocate(100, 20);
+        TextAtlas.Slot big = atlas.allocate(500, 200);
+        if (b.x != 106 || c.x != 210 || big.y != 26) {
+            return String.format("Slots at %d and %d, and big one at y = %d",
+                    b.x, c.x, big.y);
+        }
+        if (atlas.pageWidth(0) != 512 || atlas.pageHeight(0) != 256) {
+            return String.format("The page is %d x %d, not 512 x 256",
+                    atlas.pageWidth(0), atlas.pageHeight(0));
+        }
+
+        atlas.free(b);
+        atlas.free(b);
+        TextAtlas.Slot again = atlas.allocate(96, 20);
+        if (again.page != 0 || again.x != 106 || again.y != 2) {
+            return String.format("A freed slot's room wasn't reused: %d, %d",
+                    again.x, again.y);
+        }
+        // Only 4 pixels of the hole are left: a narrow view goes on the end
+        TextAtlas.Slot narrow = atlas.allocate(30, 20);
+        if (narrow.x != 314) {
+            return "A view went into a hole too narrow for it, at x = "
+                    + narrow.x;
+        }
+
+        // Freeing a, what's left of b's hole, and the slot in it leaves a
+        // hole 208 wide, from 0: room for a view of 204
+        atlas.free(a);
+        atlas.free(again);
+        TextAtlas.Slot wide = atlas.allocate(204, 20);
+        if (wide.x != 2 || wide.y != 2) {
+            return String.format(
+                    "Neighbouring holes weren't merged: %d, %d", wide.x,
+                    wide.y);
+        }
+
+        String failure = checkPacking(atlas, false);
+        if (failure != null) {
+            return failure;
+        }
+
+        boolean emptied = atlas.free(wide) | atlas.free(c)
+                | atlas.free(narrow);
+        if (emptied || !atlas.free(big)) {
+            return "The page should be emptied by its last slot, not before";
+        }
+        if (atlas.pageWidth(0) != 0 || atlas.pageHeight(0) != 0) {
+            return "An empty page still has a texture";
+        }
+        TextAtlas.Slot fresh = atlas.allocate(100, 20);
+        if (atlas.pageCount() != 1 || fresh.page != 0 || fresh.x != 2
+                || fresh.y != 2 || atlas.pageWidth(0) != 128
+                || atlas.pageHeight(0) != 64) {
+            return String.format(
+                    "An empty page wasn't reused from scratch: %d pages, %d x %d",
+                    atlas.pageCount(), atlas.pageWidth(0),
+                    atlas.pageHeight(0));
+        }
+
+        TextAtlas.Slot huge = atlas.allocate(3000, 100);
+        if (huge.page != 1 || atlas.pageWidth(1) != 3004
+                || atlas.pageHeight(1) != 104 || !atlas.free(huge)) {
+            return "A view bigger than a page didn't get a page of its own";
+        }
+        return null;
+    }
+
+    /**
+     * Labels packed, then half of them freed and put back again, over and
+     * over: the pages mustn't fill up with holes.
+     * 
+     * @return What went wrong, or {@code null}
+     */
+    private String checkChurn() {
+        TextAtlas atlas = pack();
+        String failure = checkPacking(atlas, true);
+        if (failure != null) {
+            return failure;
+        }
+        int pages = atlas.pageCount();
+        long area = 0, pageArea = 0;
+        for (int page = 0; page < pages; ++page) {
+            for (TextAtlas.Slot slot : atlas.slots(page)) {
+                area += (long) slot.width * slot.height;
+            }
+            pageArea += (long) atlas.pageWidth(page) * atlas.pageHeight(page);
+        }
+
+        Random random = new Random(460);
+        List<TextAtlas.Slot> live = new ArrayList<TextAtlas.Slot>();
+        for (int page = 0; page < pages; ++page) {
+            live.addAll(atlas.slots(page));
+        }
+        for (int round = 0; round < 20; ++round) {
+            List<int[]> freed = new ArrayList<int[]>();
+            for (int index = live.size() / 2; index > 0; --index) {
+                TextAtlas.Slot slot = live.remove(random.nextInt(live.size()));
+                atlas.free(slot);
+                freed.add(new int[] { slot.width, slot.height });
+            }
+            for (int[] size : freed) {
+                live.add(atlas.allocate(size[0], size[1]));
+            }
+        }
+
+        failure = checkPacking(atlas, false);
+        System.out.printf(
+                "\nTextAtlas: %d views on %d pages, %.0f%% of the textures used; %d pages after churn\n",
+                views, pages, 100.0 * area / pageArea, atlas.pageCount());
+        if (failure != null) {
+            return failure;
+        }
+        return atlas.pageCount() <= pages + 1 ? null : String.format(
+                "%d pages after churn, from %d", atlas.pageCount(), pages);
+    }
+
+    /**
+     * @return What went wrong, or {@code null}
+     */
+    private static String checkDirtyBounds() {
+        TextAtlas atlas = new TextAtlas(PAGE_SIZE, PAGE_SIZE, PADDING);
+        TextAtlas.Slot a = atlas.allocate(100, 20);
+        TextAtlas.Slot b = atlas.allocate(100, 20);
+        TextAtlas.Slot c = atlas.allocate(100, 20);
+        TextAtlas.Slot big = atlas.allocate(500, 200);
+        int[] bounds = new int[4];
+        atlas.collectDirtyBounds(0, bounds);
+
+        a.dirty = true;
+        String failure = expect(atlas, bounds, 0, 0, 104, 24);
+        if (failure == null) {
+            a.dirty = b.dirty = true;
+            failure = expect(atlas, bounds, 0, 0, 208, 24);
+        }
+        if (failure == null) {
+            // However far apart, one lock
+            a.dirty = c.dirty = big.dirty = true;
+            failure = expect(atlas, bounds, 0, 0, 504, 228);
+        }
+        if (failure == null && atlas.collectDirtyBounds(0, bounds)) {
+            failure = "Dirty flags weren't cleared";
+        }
+        return failure;
+    }
+
+    private static String expect(TextAtlas atlas, int[] bounds,
+            int... expected) {
+        if (!atlas.collectDirtyBounds(0, bounds)) {
+            return "Nothing was dirty";
+        }
+        for (int side = 0; side < 4; ++side) {
+            if (bounds[side] != expected[side]) {
+                return String.format(
+                        "Expected dirty bounds [%d, %d, %d, %d], got [%d, %d, %d, %d]",
+                        expected[0], expected[1], expected[2], expected[3],
+                        bounds[0], bounds[1], bounds[2], bounds[3]);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,204 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.utility;
+
+import java.util.concurrent.TimeUnit;
+
+import org.gearvrf.BenchmarkChecks;
+import org.gearvrf.utility.ConcurrentRecycleBin.Strength;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * A get/put round trip through each kind of recycle bin, in steady state: the
+ * bin always has an item to hand back, so any allocation reported per
+ * operation is the bin's own overhead. Runs with one thread and with four, to
+ * show contention.
+ *
+ * <p>
+ * {@link #check()} checks, with hard bins, that {@link ArrayRecycleBin} hands
+ * back long enough arrays from the right size class, and that
+ * {@link ConcurrentRecycleBin} keeps to its magazine limit and recovers the
+ * magazines of threads that have died; and fails if not.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RecycleBinBenchmark implements BenchmarkChecks.Checked {
+
+    @Param({ "HARD", "SOFT", "WEAK" })
+    public Strength strength;
+
+    private RecycleBin<float[]> mSynchronized;
+    private ConcurrentRecycleBin<float[]> mConcurrent;
+    private ArrayRecycleBin<float[]> mArrays;
+
+    @Setup
+    public void setup() {
+        switch (strength) {
+        case HARD:
+            mSynchronized = RecycleBin.<float[]> hard().synchronize();
+            break;
+        case SOFT:
+            mSynchronized = RecycleBin.<float[]> soft().synchronize();
+            break;
+        default:
+            mSynchronized = RecycleBin.<float[]> weak().synchronize();
+            break;
+        }
+        mConcurrent = new ConcurrentRecycleBin<float[]>(strength,
+                ConcurrentRecycleBin.DEFAULT_MAGAZINE_SIZE,
+                ConcurrentRecycleBin.DEFAULT_MAX_MAGAZINES);
+        mArrays = new ArrayRecycleBin<float[]>(strength, 16, 8,
+                ConcurrentRecycleBin.DEFAULT_MAGAZINE_SIZE,
+                ConcurrentRecycleBin.DEFAULT_MAX_MAGAZINES);
+    }
+
+    @Override
+    public String check() {
+        String failure = checkArrayBin();
+        if (failure == null) {
+            failure = checkMagazineLimit();
+        }
+        return failure;
+    }
+
+    /** Each thread recycles its own array, so steady state never allocates */
+    @State(Scope.Thread)
+    public static class Item {
+        float[] array = new float[100];
+    }
+
+    @Benchmark
+    @Threads(1)
+    public float[] synchronizedBin(Item item) {
+        return roundTrip(mSynchronized, item);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public float[] synchronizedBinContended(Item item) {
+        return roundTrip(mSynchronized, item);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public float[] concurrentBin(Item item) {
+        return roundTrip(mConcurrent, item);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public float[] concurrentBinContended(Item item) {
+        return roundTrip(mConcurrent, item);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public float[] arrayBin(Item item) {
+        float[] array = mArrays.get(item.array.length);
+        if (array == null) {
+            array = item.array;
+        }
+        mArrays.put(array);
+        return array;
+    }
+
+    /** @return Why the size classes are wrong, or {@code null} */
+    private static String checkArrayBin() {
+        // Classes [16, 32), [32, 64) and [64, 128)
+        ArrayRecycleBin<float[]> bin = new ArrayRecycleBin<float[]>(
+                Strength.HARD, 16, 3, 4, 4);
+        int[] lengths = { 8, 16, 31, 33, 64, 100, 127, 128, 1000 };
+        for (int length : lengths) {
+            bin.put(new float[length]);
+        }
+
+        // Each request against the length it should get, -1 for none: the
+        // last array put into the smallest class that is all long enough
+        int[][] requests = { { 1, 31 }, { 16, 16 }, { 17, 33 }, { 40, 127 },
+                { 64, 100 }, { 65, -1 }, { 128, -1 }, { 33, 64 },
+                { 20, -1 } };
+        for (int[] request : requests) {
+            float[] array = bin.get(request[0]);
+            int length = array == null ? -1 : array.length;
+            if (length != request[1]) {
+                return String.format(
+                        "get(%d) returned length %d, not %d", request[0],
+                        length, request[1]);
+            }
+            if (array != null
+                    && (array.length < request[0] || array.length >= Math
+                            .max(request[0], 16) * 4)) {
+                return String.format("get(%d) returned length %d",
+                        request[0], array.length);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Threads that each put an item and die, one at a time, into a bin of two
+     * one-item magazines: only two items can be kept, and the bin has to take
+     * them back from the dead threads to hand them out again.
+     *
+     * @return What went wrong, or {@code null}
+     */
+    private static String checkMagazineLimit() {
+        final ConcurrentRecycleBin<Object> bin = new ConcurrentRecycleBin<Object>(
+                Strength.HARD, 1, 2);
+        for (int thread = 0; thread < 6; ++thread) {
+            Thread putter = new Thread() {
+                @Override
+                public void run() {
+                    bin.put(new Object());
+                }
+            };
+            putter.start();
+            try {
+                putter.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return "Interrupted";
+            }
+        }
+
+        int items = 0;
+        while (bin.get() != null) {
+            ++items;
+        }
+        System.out.printf("\nConcurrentRecycleBin: %d of %d items kept\n",
+                items, 6);
+        return items == 2 ? null : "Kept " + items
+                + " items in two one-item magazines, not 2";
+    }
+
+    private static float[] roundTrip(RecycleBin<float[]> bin, Item item) {
+        float[] array = bin.get();
+        if (array == null) {
+            array = item.array;
+        }
+        bin.put(array);
+        return array;
+    }
+}
@@ -0,0 +1,93 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.utility;
+
+import java.util.concurrent.TimeUnit;
+
+import org.gearvrf.GVRAndroidResource;
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRHybridObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * {@link ResourceCache} lookups, keyed by real {@link GVRAndroidResource}s
+ * (over stand-in raw resources), so {@code hashCode()} and {@code equals()}
+ * are the ones the app pays for.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResourceCacheBenchmark {
+
+    @Param({ "16", "1024" })
+    public int cacheSize;
+
+    private GVRContext mContext;
+    private ResourceCache<Resource> mCache;
+    private GVRAndroidResource[] mHits;
+    private GVRAndroidResource[] mMisses;
+    // Strong references, so the cache's weak ones stay put
+    private Resource[] mResources;
+    private int mNext;
+
+    @Setup
+    public void setup() {
+        mContext = new GVRContext();
+        mCache = new ResourceCache<Resource>();
+        mHits = new GVRAndroidResource[cacheSize];
+        mMisses = new GVRAndroidResource[cacheSize];
+        mResources = new Resource[cacheSize];
+        for (int index = 0; index < cacheSize; ++index) {
+            mResources[index] = new Resource(mContext, index);
+            mHits[index] = new GVRAndroidResource(mContext, index + 1);
+            mMisses[index] = new GVRAndroidResource(mContext, cacheSize
+                    + index + 1);
+            mCache.put(mHits[index], mResources[index]);
+        }
+    }
+
+    @Benchmark
+    public Resource hit() {
+        mNext = (mNext + 1) % cacheSize;
+        return mCache.get(mHits[mNext]);
+    }
+
+    @Benchmark
+    public Resource miss() {
+        mNext = (mNext + 1) % cacheSize;
+        return mCache.get(mMisses[mNext]);
+    }
+
+    @Benchmark
+    public Resource put() {
+        mNext = (mNext + 1) % cacheSize;
+        mCache.put(mHits[mNext], mResources[mNext]);
+        return mResources[mNext];
+    }
+
+    static final class Resource extends GVRHybridObject {
+        Resource(GVRContext gvrContext, long ptr) {
+            super(gvrContext, ptr);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.utility;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.gearvrf.utility.Threads.Cancelable;
+import org.gearvrf.utility.Threads.LifoThreadPolicyProvider;
+import org.gearvrf.utility.Threads.ThreadLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Scheduling overhead of {@link ThreadLimiter}: a batch of empty thread procs
+ * is spawned, and each invocation waits for the whole batch to run. Reports
+ * batches per second, and the latency distribution of a batch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ThreadLimiterBenchmark {
+
+    @Param({ "1", "3" })
+    public int maxThreads;
+
+    @Param({ "1", "64" })
+    public int batchSize;
+
+    private ThreadLimiter<Cancelable> mLimiter;
+
+    @Setup
+    public void setup() {
+        mLimiter = new ThreadLimiter<Cancelable>(maxThreads,
+                new LifoThreadPolicyProvider());
+    }
+
+    @Benchmark
+    public void spawnBatch() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(batchSize);
+        for (int index = 0; index < batchSize; ++index) {
+            mLimiter.spawn(new CountDown(done));
+        }
+        done.await();
+    }
+
+    private static final class CountDown implements Cancelable {
+        private final CountDownLatch mDone;
+
+        CountDown(CountDownLatch done) {
+            mDone = done;
+        }
+
+        @Override
+        public void run() {
+            mDone.countDown();
+        }
+
+        @Override
+        public boolean stillWanted() {
+            return true;
+        }
+    }
+}
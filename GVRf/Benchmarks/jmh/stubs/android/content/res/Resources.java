@@ -0,0 +1,42 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.content.res;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import android.util.TypedValue;
+
+/**
+ * Desktop stand-in: every raw resource exists, and is a small, empty stream
+ * named after its id.
+ */
+public class Resources {
+    private static final byte[] EMPTY = new byte[0];
+
+    private final AssetManager mAssets = new AssetManager();
+
+    public AssetManager getAssets() {
+        return mAssets;
+    }
+
+    public InputStream openRawResource(int id) {
+        return new ByteArrayInputStream(EMPTY);
+    }
+
+    public void getValue(int id, TypedValue outValue, boolean resolveRefs) {
+        outValue.string = "res/raw/" + id;
+    }
+}
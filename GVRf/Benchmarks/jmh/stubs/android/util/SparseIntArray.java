@@ -0,0 +1,52 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.util;
+
+/** Desktop stand-in */
+public class SparseIntArray {
+    private final SparseArray<Integer> mArray;
+
+    public SparseIntArray() {
+        this(10);
+    }
+
+    public SparseIntArray(int initialCapacity) {
+        mArray = new SparseArray<Integer>(initialCapacity);
+    }
+
+    public int size() {
+        return mArray.size();
+    }
+
+    public int indexOfKey(int key) {
+        return mArray.indexOfKey(key);
+    }
+
+    public int keyAt(int index) {
+        return mArray.keyAt(index);
+    }
+
+    public int valueAt(int index) {
+        return mArray.valueAt(index);
+    }
+
+    public int get(int key) {
+        return mArray.get(key, 0);
+    }
+
+    public void put(int key, int value) {
+        mArray.put(key, value);
+    }
+}
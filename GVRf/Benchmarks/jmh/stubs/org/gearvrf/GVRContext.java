@@ -0,0 +1,70 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import android.content.Context;
+
+/**
+ * Desktop stand-in for {@code GVRContext}: just the GL-thread queue and the
+ * draw-frame listeners. Nothing drives frames on its own; benchmarks call
+ * {@link #drawFrame(float)}, which does what the real render loop does before
+ * it renders.
+ */
+public class GVRContext {
+    public static final int RESERVED_PRIORITIES = 1024;
+    public static final int LOWEST_PRIORITY = Integer.MIN_VALUE
+            + RESERVED_PRIORITIES;
+    public static final int HIGHEST_PRIORITY = Integer.MAX_VALUE;
+    public static final int DEFAULT_PRIORITY = 0;
+
+    private final Context mContext = new Context();
+    private final ConcurrentLinkedQueue<Runnable> mRunnables = new ConcurrentLinkedQueue<Runnable>();
+    private final List<GVRDrawFrameListener> mFrameListeners = new CopyOnWriteArrayList<GVRDrawFrameListener>();
+
+    public Context getContext() {
+        return mContext;
+    }
+
+    public void runOnGlThread(Runnable runnable) {
+        mRunnables.add(runnable);
+    }
+
+    public void registerDrawFrameListener(GVRDrawFrameListener frameListener) {
+        mFrameListeners.add(frameListener);
+    }
+
+    public void unregisterDrawFrameListener(GVRDrawFrameListener frameListener) {
+        mFrameListeners.remove(frameListener);
+    }
+
+    public synchronized static void addResetOnRestartHandler(Runnable handler) {
+    }
+
+    /** Run the queued GL-thread runnables, then the draw-frame listeners */
+    public void drawFrame(float frameTime) {
+        Runnable runnable;
+        while ((runnable = mRunnables.poll()) != null) {
+            runnable.run();
+        }
+        for (GVRDrawFrameListener frameListener : mFrameListeners) {
+            frameListener.onDrawFrame(frameTime);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gearvrf;
+
+/**
+ * Desktop stand-in for {@code GVRHybridObject}: no native object, and no
+ * reference tracking.
+ */
+public abstract class GVRHybridObject {
+    private final GVRContext mGVRContext;
+    private final long mNativePointer;
+
+    protected GVRHybridObject(GVRContext gvrContext, long nativePointer) {
+        mGVRContext = gvrContext;
+        mNativePointer = nativePointer;
+    }
+
+    public GVRContext getGVRContext() {
+        return mGVRContext;
+    }
+
+    public long getNative() {
+        return mNativePointer;
+    }
+}
@@ -0,0 +1,104 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gearvrf;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Desktop stand-in for {@code GVRMesh}: plain arrays, for the
+ * {@link GVRMeshOptimizer} entry point and {@link StaticBatchBuilder} to
+ * compile against
+ */
+public class GVRMesh extends GVRHybridObject {
+    private float[] mVertices = new float[0];
+    private float[] mNormals = new float[0];
+    private float[] mTexCoords = new float[0];
+    private char[] mTriangles = new char[0];
+    private final Map<String, float[]> mAttributeVectors =
+            new HashMap<String, float[]>();
+
+    public GVRMesh(GVRContext gvrContext) {
+        super(gvrContext, 0);
+    }
+
+    public float[] getVertices() {
+        return mVertices;
+    }
+
+    public void setVertices(float[] vertices) {
+        mVertices = vertices;
+    }
+
+    public float[] getNormals() {
+        return mNormals;
+    }
+
+    public void setNormals(float[] normals) {
+        mNormals = normals;
+    }
+
+    public float[] getTexCoords() {
+        return mTexCoords;
+    }
+
+    public void setTexCoords(float[] texCoords) {
+        mTexCoords = texCoords;
+    }
+
+    public char[] getTriangles() {
+        return mTriangles;
+    }
+
+    public void setTriangles(char[] triangles) {
+        mTriangles = triangles;
+    }
+
+    public float[] getFloatVector(String key) {
+        return mAttributeVectors.get(key);
+    }
+
+    public void setFloatVector(String key, float[] floatVector) {
+        mAttributeVectors.put(key, floatVector);
+    }
+
+    public float[] getVec2Vector(String key) {
+        return mAttributeVectors.get(key);
+    }
+
+    public void setVec2Vector(String key, float[] vec2Vector) {
+        mAttributeVectors.put(key, vec2Vector);
+    }
+
+    public float[] getVec3Vector(String key) {
+        return mAttributeVectors.get(key);
+    }
+
+    public void setVec3Vector(String key, float[] vec3Vector) {
+        mAttributeVectors.put(key, vec3Vector);
+    }
+
+    public float[] getVec4Vector(String key) {
+        return mAttributeVectors.get(key);
+    }
+
+    public void setVec4Vector(String key, float[] vec4Vector) {
+        mAttributeVectors.put(key, vec4Vector);
+    }
+
+    boolean hasAttributeVectors() {
+        return mAttributeVectors.isEmpty() == false;
+    }
+}
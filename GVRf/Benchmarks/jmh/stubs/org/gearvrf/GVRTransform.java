@@ -0,0 +1,88 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gearvrf;
+
+/**
+ * Desktop stand-in for {@code GVRTransform}: position, rotation, and scale in
+ * plain Java fields, so animations cost what their own arithmetic costs.
+ */
+public class GVRTransform extends GVRHybridObject {
+    private float mPositionX, mPositionY, mPositionZ;
+    private float mRotationW = 1, mRotationX, mRotationY, mRotationZ;
+    private float mScaleX = 1, mScaleY = 1, mScaleZ = 1;
+
+    public GVRTransform(GVRContext gvrContext) {
+        super(gvrContext, 0);
+    }
+
+    public float getPositionX() {
+        return mPositionX;
+    }
+
+    public float getPositionY() {
+        return mPositionY;
+    }
+
+    public float getPositionZ() {
+        return mPositionZ;
+    }
+
+    public void setPosition(float x, float y, float z) {
+        mPositionX = x;
+        mPositionY = y;
+        mPositionZ = z;
+    }
+
+    public float getRotationW() {
+        return mRotationW;
+    }
+
+    public float getRotationX() {
+        return mRotationX;
+    }
+
+    public float getRotationY() {
+        return mRotationY;
+    }
+
+    public float getRotationZ() {
+        return mRotationZ;
+    }
+
+    public void setRotation(float w, float x, float y, float z) {
+        mRotationW = w;
+        mRotationX = x;
+        mRotationY = y;
+        mRotationZ = z;
+    }
+
+    public float getScaleX() {
+        return mScaleX;
+    }
+
+    public float getScaleY() {
+        return mScaleY;
+    }
+
+    public float getScaleZ() {
+        return mScaleZ;
+    }
+
+    public void setScale(float x, float y, float z) {
+        mScaleX = x;
+        mScaleY = y;
+        mScaleZ = z;
+    }
+}
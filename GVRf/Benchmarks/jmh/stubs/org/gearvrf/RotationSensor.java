@@ -0,0 +1,32 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gearvrf;
+
+/**
+ * Desktop stand-in for {@code RotationSensor}: passes internal sensor
+ * readings straight to its listener.
+ */
+class RotationSensor {
+    private final RotationSensorListener mListener;
+
+    RotationSensor(RotationSensorListener listener) {
+        mListener = listener;
+    }
+
+    void onInternalRotationSensor(long timeStamp, float w, float x, float y,
+            float z, float gyroX, float gyroY, float gyroZ) {
+        mListener.onRotationSensor(timeStamp, w, x, y, z, gyroX, gyroY, gyroZ);
+    }
+}
@@ -0,0 +1,50 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gearvrf.asynchronous;
+
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRTexture;
+import org.gearvrf.GVRTextureParameters;
+
+/**
+ * Desktop stand-in for {@code GVRCompressedTexture}: nothing is uploaded, so
+ * benchmarks stop at the parsed {@link CompressedTexture}.
+ */
+public class GVRCompressedTexture extends GVRTexture {
+    static final int GL_TARGET = 0x0DE1; // GL_TEXTURE_2D
+
+    GVRCompressedTexture(GVRContext gvrContext, int target, int levels,
+            int quality) {
+        super(gvrContext, 0);
+    }
+
+    GVRCompressedTexture(GVRContext gvrContext, int internalFormat, int width,
+            int height, int imageSize, byte[] data, int dataOffset, int levels,
+            int quality) {
+        super(gvrContext, 0);
+    }
+
+    GVRCompressedTexture(GVRContext gvrContext, int internalFormat, int width,
+            int height, int imageSize, byte[] data, int dataOffset, int levels,
+            int quality, GVRTextureParameters textureParameters) {
+        super(gvrContext, 0);
+    }
+
+    protected void rebind() {
+    }
+
+    protected void unbind() {
+    }
+}
@@ -0,0 +1,2459 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/***************************************************************************
+ * Times the renderer's CPU paths on a synthetic scene, on the host. Each
+ * benchmark runs a number of frames over every object in the scene, and
+ * reports the mean time per object and the heap allocations per frame.
+ * Flattening the scene graph is timed again on a 50000-object graph.
+ *
+ * Then it checks each optimized path against a simple reference, and fails
+ * on any difference: the flattened scene list against a recursive walk, the
+ * per-frame transform update against the lazy model matrices, collision
+ * pairs against every-pair tests, packed instances against a separate
+ * cull, and the CPU occlusion buffer on boxes around a wall. It round-trips
+ * the shared mesh through each vertex layout, and fails if any attribute
+ * comes back further off than its format's rounding allows. It draws a few
+ * post effect chains, and fails if one takes other than its expected number
+ * of passes, and checks the shader caches.
+ * Last of all, it replays rotation sensor traces through each head pose
+ * predictor, and reports how far off the predictions are; and records a
+ * trace through each kind of camera rig, and fails unless replaying it
+ * puts the head in the same pose, frame for frame.
+ ***************************************************************************/
+
+#include <algorithm>
+#include <atomic>
+#include <chrono>
+#include <cmath>
+#include <cstdio>
+#include <cstdlib>
+#include <memory>
+#include <new>
+#include <random>
+#include <string>
+#include <vector>
+
+#include <stdlib.h>
+#include <unistd.h>
+
+#include "glm/glm.hpp"
+#include "glm/gtc/matrix_transform.hpp"
+#include "glm/gtc/type_ptr.hpp"
+
+#include "engine/renderer/occlusion_buffer.h"
+#include "engine/renderer/renderer.h"
+#include "gl/gl_program_binary_cache.h"
+#include "objects/collision_world.h"
+#include "objects/head_pose_predictor.h"
+#include "objects/instance_buffer.h"
+#include "objects/material.h"
+#include "objects/mesh.h"
+#include "objects/mesh_eye_pointee.h"
+#include "objects/post_effect_data.h"
+#include "objects/render_pass.h"
+#include "objects/rotation_sensor_data.h"
+#include "objects/scene.h"
+#include "objects/scene_object.h"
+#include "objects/sensor_trace.h"
+#include "objects/vertex_layout.h"
+#include "objects/components/camera_rig.h"
+#include "objects/components/perspective_camera.h"
+#include "objects/components/render_data.h"
+#include "objects/components/transform.h"
+#include "objects/textures/render_texture.h"
+#include "shaders/post_effect_shader_manager.h"
+#include "shaders/shader_manager.h"
+
+namespace host {
+// Counted by host_stubs.cpp
+extern long draw_calls;
+extern GLuint watched_framebuffer;
+extern long watched_draw_calls;
+}
+
+namespace {
+std::atomic<long> allocations(0);
+std::atomic<long> allocated_bytes(0);
+
+void* counted_alloc(std::size_t size) {
+    allocations.fetch_add(1, std::memory_order_relaxed);
+    allocated_bytes.fetch_add(size, std::memory_order_relaxed);
+    void* p = std::malloc(size == 0 ? 1 : size);
+    if (p == 0) {
+        throw std::bad_alloc();
+    }
+    return p;
+}
+}
+
+// Every allocation in the process goes through here, so a benchmark can
+// tell how many its frames made
+void* operator new(std::size_t size) {
+    return counted_alloc(size);
+}
+
+void* operator new[](std::size_t size) {
+    return counted_alloc(size);
+}
+
+void operator delete(void* p) noexcept {
+    std::free(p);
+}
+
+void operator delete[](void* p) noexcept {
+    std::free(p);
+}
+
+namespace gvr {
+
+class RendererBenchmark {
+public:
+    static void build_frustum(float frustum[6][4], float mvp_matrix[16]) {
+        Renderer::build_frustum(frustum, mvp_matrix);
+    }
+
+    static bool is_cube_in_frustum(float frustum[6][4],
+            const BoundingVolume& bounding_volume) {
+        return Renderer::is_cube_in_frustum(frustum, bounding_volume);
+    }
+};
+
+namespace {
+
+// The graph size flattening is timed on, besides the --objects scene
+const int LARGE_SCENE_OBJECTS = 50000;
+
+#ifndef GOLDEN_DIR
+#define GOLDEN_DIR "golden"
+#endif
+
+struct Options {
+    int objects = 10000;
+    int depth = 4;
+    int frames = 100;
+    int segments = 8;
+    unsigned int seed = 1;
+    std::string trace;
+    std::string golden = GOLDEN_DIR;
+    bool write_golden = false;
+};
+
+/*
+ * A synthetic scene: a tree of objects, depth levels deep, all sharing one
+ * mesh and material, scattered around a camera at the origin. One in four
+ * is transparent, so sorting has camera distances to compare.
+ */
+class SyntheticScene {
+public:
+    static constexpr const char* COLOR_KEY = "a_color";
+    static const GLuint COLOR_LOCATION = 3;
+
+    explicit SyntheticScene(const Options& options) :
+            material_(Material::TEXTURE_SHADER), random_(options.seed), levels_(
+                    0) {
+        buildMesh(options.segments);
+
+        int branching = branchingFactor(options.objects, options.depth);
+        std::vector<SceneObject*> level;
+        int roots = options.depth <= 1 ?
+                options.objects : std::min(options.objects, branching);
+        for (int index = 0; index < roots; ++index) {
+            SceneObject* scene_object = newSceneObject(50.0f);
+            scene_.addSceneObject(scene_object);
+            level.push_back(scene_object);
+        }
+        levels_ = 1;
+
+        // Each level fills up before the next one starts; children sit
+        // near their parents
+        while (objects_.size() < options.objects && levels_ < options.depth) {
+            std::vector<SceneObject*> next;
+            for (auto it = level.begin();
+                    it != level.end() && objects_.size() < options.objects;
+                    ++it) {
+                for (int child = 0;
+                        child < branching
+                                && objects_.size() < options.objects;
+                        ++child) {
+                    SceneObject* scene_object = newSceneObject(4.0f);
+                    (*it)->addChildObject(*it, scene_object);
+                    next.push_back(scene_object);
+                }
+            }
+            level.swap(next);
+            ++levels_;
+        }
+
+        camera_object_.attachTransform(&camera_object_, &camera_transform_);
+        camera_object_.attachCamera(&camera_object_, &camera_);
+        scene_.set_frustum_culling(true);
+    }
+
+    Scene* scene() {
+        return &scene_;
+    }
+
+    Camera* camera() {
+        return &camera_;
+    }
+
+    Mesh* mesh() {
+        return &mesh_;
+    }
+
+    const std::vector<SceneObject*>& objects() const {
+        return raw_objects_;
+    }
+
+    int size() const {
+        return raw_objects_.size();
+    }
+
+    int levels() const {
+        return levels_;
+    }
+
+    int triangles() const {
+        return mesh_.triangles().size() / 3;
+    }
+
+private:
+    static int branchingFactor(int objects, int depth) {
+        if (depth <= 1) {
+            return objects;
+        }
+        // The smallest fan-out that fits every object within depth levels
+        for (int branching = 2;; ++branching) {
+            double total = 0;
+            double level = 1;
+            for (int d = 0; d < depth; ++d) {
+                level *= branching;
+                total += level;
+            }
+            if (total >= objects) {
+                return branching;
+            }
+        }
+    }
+
+    SceneObject* newSceneObject(float spread) {
+        std::uniform_real_distribution<float> unit(-1.0f, 1.0f);
+        std::uniform_real_distribution<float> chance(0.0f, 1.0f);
+
+        SceneObject* scene_object = new SceneObject();
+        Transform* transform = new Transform();
+        scene_object->attachTransform(scene_object, transform);
+        transform->set_position(unit(random_) * spread,
+                unit(random_) * spread, unit(random_) * spread);
+        glm::vec3 axis(unit(random_), unit(random_), unit(random_));
+        if (glm::length(axis) < 0.01f) {
+            axis = glm::vec3(0.0f, 1.0f, 0.0f);
+        }
+        transform->set_rotation(
+                glm::angleAxis(unit(random_) * 180.0f, glm::normalize(axis)));
+
+        RenderData* render_data = new RenderData();
+        RenderPass* render_pass = new RenderPass();
+        render_pass->set_material(&material_);
+        render_data->add_pass(render_pass);
+        render_data->set_mesh(&mesh_);
+        if (chance(random_) < 0.25f) {
+            render_data->set_rendering_order(RenderData::Transparent);
+        }
+        scene_object->attachRenderData(scene_object, render_data);
+
+        objects_.push_back(std::unique_ptr<SceneObject>(scene_object));
+        transforms_.push_back(std::unique_ptr<Transform>(transform));
+        render_datas_.push_back(std::unique_ptr<RenderData>(render_data));
+        render_passes_.push_back(std::unique_ptr<RenderPass>(render_pass));
+        raw_objects_.push_back(scene_object);
+        return scene_object;
+    }
+
+    void buildMesh(int segments) {
+        // A UV sphere of radius one, with a color per vertex
+        std::vector<glm::vec3> vertices;
+        std::vector<glm::vec2> tex_coords;
+        std::vector<glm::vec4> colors;
+        std::vector<unsigned short> triangles;
+        for (int ring = 0; ring <= segments; ++ring) {
+            float phi = M_PI * ring / segments;
+            for (int slice = 0; slice <= segments; ++slice) {
+                float theta = 2.0f * M_PI * slice / segments;
+                vertices.push_back(
+                        glm::vec3(sin(phi) * cos(theta), cos(phi),
+                                sin(phi) * sin(theta)));
+                // Mapped by height, so v is rarely a round number
+                tex_coords.push_back(
+                        glm::vec2(float(slice) / segments,
+                                0.5f - 0.5f * cos(phi)));
+                colors.push_back(
+                        glm::vec4(tex_coords.back(), 1.0f - phi / M_PI,
+                                1.0f));
+            }
+        }
+        for (int ring = 0; ring < segments; ++ring) {
+            for (int slice = 0; slice < segments; ++slice) {
+                unsigned short a = ring * (segments + 1) + slice;
+                unsigned short b = a + segments + 1;
+                triangles.push_back(a);
+                triangles.push_back(b);
+                triangles.push_back(a + 1);
+                triangles.push_back(b);
+                triangles.push_back(b + 1);
+                triangles.push_back(a + 1);
+            }
+        }
+        // On a unit sphere, the normals are the positions
+        mesh_.set_normals(vertices);
+        mesh_.set_vertices(std::move(vertices));
+        mesh_.set_tex_coords(std::move(tex_coords));
+        mesh_.setVec4Vector(COLOR_KEY, colors);
+        mesh_.setVertexAttribLocV4(COLOR_LOCATION, COLOR_KEY);
+        mesh_.set_triangles(std::move(triangles));
+    }
+
+    Scene scene_;
+    Mesh mesh_;
+    Material material_;
+    SceneObject camera_object_;
+    Transform camera_transform_;
+    PerspectiveCamera camera_;
+    std::mt19937 random_;
+    std::vector<std::unique_ptr<SceneObject>> objects_;
+    std::vector<std::unique_ptr<Transform>> transforms_;
+    std::vector<std::unique_ptr<RenderData>> render_datas_;
+    std::vector<std::unique_ptr<RenderPass>> render_passes_;
+    std::vector<SceneObject*> raw_objects_;
+    int levels_;
+};
+
+/*
+ * One benchmark: frame() does one frame's worth of work over the scene.
+ * setUp() runs before every frame, outside the timing, for work that only
+ * puts the scene in the state frame() should start from.
+ */
+class Benchmark {
+public:
+    explicit Benchmark(const char* name) :
+            name_(name) {
+    }
+
+    virtual ~Benchmark() {
+    }
+
+    const char* name() const {
+        return name_;
+    }
+
+    virtual void setUp() {
+    }
+
+    virtual void frame() = 0;
+
+private:
+    const char* name_;
+};
+
+void run(Benchmark& benchmark, int frames, int objects) {
+    typedef std::chrono::steady_clock Clock;
+
+    // Warm up caches, and let lazily built state settle
+    for (int frame = 0; frame < std::max(frames / 10, 1); ++frame) {
+        benchmark.setUp();
+        benchmark.frame();
+    }
+
+    Clock::duration elapsed = Clock::duration::zero();
+    long frame_allocations = 0;
+    long frame_bytes = 0;
+    for (int frame = 0; frame < frames; ++frame) {
+        benchmark.setUp();
+
+        long allocations_before = allocations.load();
+        long bytes_before = allocated_bytes.load();
+        Clock::time_point start = Clock::now();
+        benchmark.frame();
+        elapsed += Clock::now() - start;
+        frame_allocations += allocations.load() - allocations_before;
+        frame_bytes += allocated_bytes.load() - bytes_before;
+    }
+
+    double ns = std::chrono::duration_cast<std::chrono::nanoseconds>(elapsed)
+            .count();
+    printf("%-44s %12.2f %14.1f %14.0f\n", benchmark.name(),
+            ns / frames / objects, double(frame_allocations) / frames,
+            double(frame_bytes) / frames);
+}
+
+class FlattenScene: public Benchmark {
+public:
+    FlattenScene(SyntheticScene& scene) :
+            Benchmark("Scene::getWholeSceneObjects (rebuild)"), scene_(
+                    scene) {
+    }
+
+    void setUp() {
+        // What adding or removing any object in the scene does
+        scene_.scene()->invalidateHierarchy();
+    }
+
+    void frame() {
+        scene_.scene()->getWholeSceneObjects();
+    }
+
+private:
+    SyntheticScene& scene_;
+};
+
+/*
+ * What Scene::getWholeSceneObjects() did before the list was cached: copy
+ * the roots, then every object's children, on every call
+ */
+class FlattenSceneCopy: public Benchmark {
+public:
+    FlattenSceneCopy(SyntheticScene& scene) :
+            Benchmark("Scene graph copy, as before caching"), scene_(scene) {
+    }
+
+    void frame() {
+        std::vector<SceneObject*> scene_objects(
+                scene_.scene()->scene_objects());
+        for (int i = 0; i < scene_objects.size(); ++i) {
+            std::vector<SceneObject*> children(scene_objects[i]->children());
+            for (auto it = children.begin(); it != children.end(); ++it) {
+                scene_objects.push_back(*it);
+            }
+        }
+    }
+
+private:
+    SyntheticScene& scene_;
+};
+
+class FlattenSceneCached: public Benchmark {
+public:
+    FlattenSceneCached(SyntheticScene& scene) :
+            Benchmark("Scene::getWholeSceneObjects (cached)"), scene_(scene) {
+    }
+
+    void frame() {
+        scene_.scene()->getWholeSceneObjects();
+    }
+
+private:
+    SyntheticScene& scene_;
+};
+
+class InvalidateTransforms: public Benchmark {
+public:
+    InvalidateTransforms(SyntheticScene& scene) :
+            Benchmark("Transform::invalidate"), scene_(scene) {
+    }
+
+    void setUp() {
+        scene_.scene()->updateTransforms(scene_.scene()->getWholeSceneObjects());
+    }
+
+    void frame() {
+        const std::vector<SceneObject*>& objects = scene_.objects();
+        for (auto it = objects.begin(); it != objects.end(); ++it) {
+            (*it)->transform()->invalidate(false);
+        }
+    }
+
+private:
+    SyntheticScene& scene_;
+};
+
+class LazyModelMatrices: public Benchmark {
+public:
+    LazyModelMatrices(SyntheticScene& scene) :
+            Benchmark("Transform::getModelMatrix (all dirty)"), scene_(
+                    scene), sum_(0) {
+    }
+
+    void setUp() {
+        invalidateAll(scene_);
+    }
+
+    void frame() {
+        const std::vector<SceneObject*>& objects = scene_.objects();
+        for (auto it = objects.begin(); it != objects.end(); ++it) {
+            sum_ += (*it)->transform()->getModelMatrix()[3][0];
+        }
+    }
+
+    static void invalidateAll(SyntheticScene& scene) {
+        const std::vector<SceneObject*>& objects = scene.objects();
+        for (auto it = objects.begin(); it != objects.end(); ++it) {
+            (*it)->transform()->invalidate(false);
+        }
+    }
+
+private:
+    SyntheticScene& scene_;
+    float sum_;
+};
+
+class CachedModelMatrices: public Benchmark {
+public:
+    CachedModelMatrices(SyntheticScene& scene) :
+            Benchmark("Transform::getModelMatrix (all valid)"), scene_(
+                    scene), sum_(0) {
+    }
+
+    void frame() {
+        const std::vector<SceneObject*>& objects = scene_.objects();
+        for (auto it = objects.begin(); it != objects.end(); ++it) {
+            sum_ += (*it)->transform()->getModelMatrix()[3][0];
+        }
+    }
+
+private:
+    SyntheticScene& scene_;
+    float sum_;
+};
+
+class UpdateTransforms: public Benchmark {
+public:
+    // Moves every moved-th object before each frame; 0 moves none
+    UpdateTransforms(SyntheticScene& scene, int moved, const char* name) :
+            Benchmark(name), scene_(scene), moved_(moved) {
+    }
+
+    void setUp() {
+        const std::vector<SceneObject*>& objects = scene_.objects();
+        for (int i = 0; moved_ > 0 && i < objects.size(); i += moved_) {
+            objects[i]->transform()->invalidate(false);
+        }
+    }
+
+    void frame() {
+        scene_.scene()->updateTransforms(scene_.scene()->getWholeSceneObjects());
+    }
+
+private:
+    SyntheticScene& scene_;
+    int moved_;
+};
+
+class Cull: public Benchmark {
+public:
+    Cull(SyntheticScene& scene, bool moving) :
+            Benchmark(moving ? "Renderer::cull (all moved)" :
+                    "Renderer::cull (static)"), scene_(scene), moving_(moving) {
+    }
+
+    void setUp() {
+        if (moving_) {
+            LazyModelMatrices::invalidateAll(scene_);
+        }
+    }
+
+    void frame() {
+        Renderer::cull(scene_.scene(), scene_.camera(), 0);
+    }
+
+private:
+    SyntheticScene& scene_;
+    bool moving_;
+};
+
+/*
+ * The per-object matrices culling works from, computed once so the
+ * benchmarks below only time the call they are named for.
+ */
+class CullInputs {
+public:
+    CullInputs(SyntheticScene& scene) {
+        glm::mat4 vp_matrix = scene.camera()->getProjectionMatrix()
+                * scene.camera()->getViewMatrix();
+        const std::vector<SceneObject*>& objects = scene.objects();
+        for (auto it = objects.begin(); it != objects.end(); ++it) {
+            glm::mat4 model_matrix = (*it)->transform()->getModelMatrix();
+            model_matrices.push_back(model_matrix);
+            mvp_matrices.push_back(vp_matrix * model_matrix);
+            render_datas.push_back((*it)->render_data());
+        }
+    }
+
+    std::vector<glm::mat4> model_matrices;
+    std::vector<glm::mat4> mvp_matrices;
+    std::vector<RenderData*> render_datas;
+};
+
+class BuildFrustum: public Benchmark {
+public:
+    BuildFrustum(CullInputs& inputs) :
+            Benchmark("Renderer::build_frustum"), inputs_(inputs), sum_(0) {
+    }
+
+    void frame() {
+        float frustum[6][4];
+        for (auto it = inputs_.mvp_matrices.begin();
+                it != inputs_.mvp_matrices.end(); ++it) {
+            RendererBenchmark::build_frustum(frustum,
+                    glm::value_ptr(*it));
+            sum_ += frustum[5][3];
+        }
+    }
+
+private:
+    CullInputs& inputs_;
+    float sum_;
+};
+
+class CubeInFrustum: public Benchmark {
+public:
+    CubeInFrustum(SyntheticScene& scene, CullInputs& inputs) :
+            Benchmark("Renderer::is_cube_in_frustum"), scene_(scene), inputs_(
+                    inputs), inside_(0) {
+        frustums_.resize(inputs.mvp_matrices.size());
+        for (int index = 0; index < frustums_.size(); ++index) {
+            RendererBenchmark::build_frustum(frustums_[index].planes,
+                    glm::value_ptr(inputs.mvp_matrices[index]));
+        }
+    }
+
+    void frame() {
+        const BoundingVolume& bounding_volume =
+                scene_.mesh()->getBoundingVolume();
+        for (auto it = frustums_.begin(); it != frustums_.end(); ++it) {
+            inside_ += RendererBenchmark::is_cube_in_frustum(it->planes,
+                    bounding_volume);
+        }
+    }
+
+private:
+    struct Frustum {
+        float planes[6][4];
+    };
+
+    SyntheticScene& scene_;
+    CullInputs& inputs_;
+    std::vector<Frustum> frustums_;
+    int inside_;
+};
+
+class MeshBoundingVolume: public Benchmark {
+public:
+    MeshBoundingVolume(SyntheticScene& scene) :
+            Benchmark("Mesh::getBoundingVolume"), scene_(scene), sum_(0) {
+    }
+
+    void frame() {
+        const std::vector<SceneObject*>& objects = scene_.objects();
+        for (auto it = objects.begin(); it != objects.end(); ++it) {
+            sum_ += (*it)->render_data()->mesh()->getBoundingVolume().radius();
+        }
+    }
+
+private:
+    SyntheticScene& scene_;
+    float sum_;
+};
+
+class TransformedBoundingBox: public Benchmark {
+public:
+    TransformedBoundingBox(SyntheticScene& scene, CullInputs& inputs) :
+            Benchmark("Mesh::getTransformedBoundingBoxInfo"), scene_(scene), inputs_(
+                    inputs), sum_(0) {
+    }
+
+    void frame() {
+        float box[6];
+        for (auto it = inputs_.model_matrices.begin();
+                it != inputs_.model_matrices.end(); ++it) {
+            scene_.mesh()->getTransformedBoundingBoxInfo(&*it, box);
+            sum_ += box[0];
+        }
+    }
+
+private:
+    SyntheticScene& scene_;
+    CullInputs& inputs_;
+    float sum_;
+};
+
+class IsPointed: public Benchmark {
+public:
+    IsPointed(SyntheticScene& scene, CullInputs& inputs) :
+            Benchmark("MeshEyePointee::isPointed"), eye_pointee_(
+                    scene.mesh()), inputs_(inputs), hits_(0) {
+        // The camera sits at the origin, so the view matrix is identity
+        // and the model-view matrix is the model matrix
+    }
+
+    void frame() {
+        for (auto it = inputs_.model_matrices.begin();
+                it != inputs_.model_matrices.end(); ++it) {
+            hits_ += eye_pointee_.isPointed(*it).pointed();
+        }
+    }
+
+private:
+    MeshEyePointee eye_pointee_;
+    CullInputs& inputs_;
+    int hits_;
+};
+
+class SortRenderData: public Benchmark {
+public:
+    SortRenderData(CullInputs& inputs, unsigned int seed) :
+            Benchmark("std::sort by compareRenderData"), inputs_(inputs), random_(
+                    seed) {
+        std::uniform_real_distribution<float> distance(1.0f, 10000.0f);
+        for (auto it = inputs.render_datas.begin();
+                it != inputs.render_datas.end(); ++it) {
+            (*it)->set_camera_distance(distance(random_));
+        }
+        sorted_.reserve(inputs.render_datas.size());
+    }
+
+    void setUp() {
+        sorted_.assign(inputs_.render_datas.begin(),
+                inputs_.render_datas.end());
+        std::shuffle(sorted_.begin(), sorted_.end(), random_);
+    }
+
+    void frame() {
+        std::sort(sorted_.begin(), sorted_.end(), compareRenderData);
+    }
+
+private:
+    CullInputs& inputs_;
+    std::mt19937 random_;
+    std::vector<RenderData*> sorted_;
+};
+
+/*
+ * The shared mesh's attributes, as Mesh::generateVAO() declares them for a
+ * layout.
+ */
+void declareAttributes(Mesh& mesh, const VertexLayout& layout,
+        VertexPacker& packer) {
+    static const VertexPacker::Storage normal_storage[] = {
+            VertexPacker::FLOAT, VertexPacker::INT_2_10_10_10,
+            VertexPacker::SNORM8 };
+    packer.add(GLProgram::POSITION_ATTRIBUTE_LOCATION, &mesh.vertices()[0].x,
+            3, mesh.vertices().size(), VertexPacker::FLOAT);
+    packer.add(GLProgram::NORMAL_ATTRIBUTE_LOCATION, &mesh.normals()[0].x, 3,
+            mesh.normals().size(), normal_storage[layout.normal_format]);
+    packer.add(GLProgram::TEXCOORD_ATTRIBUT_LOCATION, &mesh.tex_coords()[0].x,
+            2, mesh.tex_coords().size(),
+            layout.tex_coord_format == VertexLayout::TEX_COORD_HALF_FLOAT ?
+                    VertexPacker::HALF_FLOAT : VertexPacker::FLOAT);
+    const std::vector<glm::vec4>& colors = mesh.getVec4Vector(
+            SyntheticScene::COLOR_KEY);
+    packer.add(SyntheticScene::COLOR_LOCATION, &colors[0].x, 4, colors.size(),
+            layout.color_key.empty() ?
+                    VertexPacker::FLOAT : VertexPacker::UNORM8);
+}
+
+/*
+ * Packing the shared mesh into one compact, interleaved buffer: what
+ * Mesh::generateVAO() does before it uploads. Reported per vertex.
+ */
+class PackVertices: public Benchmark {
+public:
+    PackVertices(SyntheticScene& scene, const VertexLayout& layout) :
+            Benchmark("VertexPacker::pack (compact, ns/vertex)"), mesh_(
+                    *scene.mesh()), layout_(layout), size_(0) {
+    }
+
+    void frame() {
+        VertexPacker packer(layout_.interleaved);
+        declareAttributes(mesh_, layout_, packer);
+        packer.pack();
+        size_ += packer.size();
+    }
+
+private:
+    Mesh& mesh_;
+    VertexLayout layout_;
+    size_t size_;
+};
+
+/*
+ * The first few hundred objects, some of them moving: what a game's
+ * collision pass looks like. The world is kept across frames, as an app
+ * would keep it.
+ */
+class CollisionObjects {
+public:
+    static const int COUNT = 400;
+
+    CollisionObjects(SyntheticScene& scene, unsigned int seed) :
+            objects_(scene.objects().begin(),
+                    scene.objects().begin()
+                            + std::min<size_t>(COUNT, scene.size())), random_(
+                    seed) {
+        for (auto it = objects_.begin(); it != objects_.end(); ++it) {
+            world_.addSceneObject(*it);
+        }
+    }
+
+    const std::vector<SceneObject*>& objects() const {
+        return objects_;
+    }
+
+    CollisionWorld& world() {
+        return world_;
+    }
+
+    // A nudge each for one object in twenty, and any children they have
+    void move() {
+        std::uniform_int_distribution<int> pick(0, objects_.size() - 1);
+        std::uniform_real_distribution<float> unit(-0.5f, 0.5f);
+        for (int i = 0; i < objects_.size() / 20 + 1; ++i) {
+            Transform* transform = objects_[pick(random_)]->transform();
+            transform->set_position(transform->position_x() + unit(random_),
+                    transform->position_y() + unit(random_),
+                    transform->position_z() + unit(random_));
+        }
+    }
+
+private:
+    std::vector<SceneObject*> objects_;
+    CollisionWorld world_;
+    std::mt19937 random_;
+};
+
+/*
+ * Every overlapping pair, from CollisionWorld's sweep, or from
+ * SceneObject::isColliding() on every pair
+ */
+class OverlappingPairs: public Benchmark {
+public:
+    OverlappingPairs(CollisionObjects& objects, bool sweep) :
+            Benchmark(sweep ?
+                    "CollisionWorld::findOverlappingPairs" :
+                    "SceneObject::isColliding (every pair)"), objects_(
+                    objects), sweep_(sweep), found_(0) {
+    }
+
+    void setUp() {
+        objects_.move();
+    }
+
+    void frame() {
+        if (sweep_) {
+            objects_.world().findOverlappingPairs(pairs_);
+            found_ += pairs_.size() / 2;
+            return;
+        }
+        const std::vector<SceneObject*>& objects = objects_.objects();
+        for (size_t i = 0; i < objects.size(); ++i) {
+            for (size_t j = i + 1; j < objects.size(); ++j) {
+                if (objects[i]->isColliding(objects[j])) {
+                    ++found_;
+                }
+            }
+        }
+    }
+
+private:
+    CollisionObjects& objects_;
+    bool sweep_;
+    std::vector<int> pairs_;
+    long found_;
+};
+
+/*
+ * The model matrix getModelMatrix() would give, worked out from the local
+ * matrices up the parent chain with the same operations.
+ */
+glm::mat4 referenceModelMatrix(SceneObject* scene_object) {
+    glm::mat4 local = scene_object->transform()->getLocalMatrix();
+    if (scene_object->parent() == nullptr) {
+        return local;
+    }
+    return referenceModelMatrix(scene_object->parent()) * local;
+}
+
+/*
+ * Moves a few objects at a time and runs Scene::updateTransforms(), then
+ * compares every world matrix - in the scene's array and in each transform
+ * - bit for bit against the lazy path's. Also after a structural change,
+ * and after another scene took the dirty roots. Returns false on any
+ * difference.
+ */
+bool checkTransformUpdates(SyntheticScene& scene, unsigned int seed) {
+    const std::vector<SceneObject*>& objects = scene.objects();
+    std::mt19937 random(seed);
+    std::uniform_int_distribution<int> pick(0, objects.size() - 1);
+    std::uniform_real_distribution<float> unit(-1.0f, 1.0f);
+    Scene other;
+    SceneObject extra;
+    Transform extra_transform;
+    extra.attachTransform(&extra, &extra_transform);
+
+    enum Step {
+        MOVE, ADD_CHILD, REMOVE_CHILD, OTHER_SCENE
+    };
+    struct Case {
+        const char* name;
+        Step step;
+        int moved;
+    };
+    const Case cases[] = {
+            { "nothing moved", MOVE, 0 },
+            { "one object moved", MOVE, 1 },
+            { "50 objects moved", MOVE, 50 },
+            { "child added, 5 moved", ADD_CHILD, 5 },
+            { "child removed, 5 moved", REMOVE_CHILD, 5 },
+            { "other scene updated, 5 moved", OTHER_SCENE, 5 } };
+
+    Scene* target = scene.scene();
+    SceneObject* parent = objects[pick(random)];
+    SceneObject* shared = objects[pick(random)];
+    other.addSceneObject(shared);
+    target->updateTransforms(target->getWholeSceneObjects());
+
+    bool ok = true;
+    printf("\n%-40s %10s %12s\n", "transform updates", "objects",
+            "mismatches");
+    for (const Case* it = cases; it != cases + sizeof(cases) / sizeof(*cases);
+            ++it) {
+        if (it->step == ADD_CHILD) {
+            parent->addChildObject(parent, &extra);
+        } else if (it->step == REMOVE_CHILD) {
+            parent->removeChildObject(&extra);
+        }
+        for (int i = 0; i < it->moved; ++i) {
+            objects[pick(random)]->transform()->set_position(unit(random),
+                    unit(random), unit(random));
+        }
+        if (it->step == OTHER_SCENE) {
+            // Takes the roots, and validates what it holds
+            other.updateTransforms(other.getWholeSceneObjects());
+        }
+
+        std::shared_ptr<const std::vector<SceneObject*>> snapshot =
+                target->getWholeSceneObjects();
+        target->updateTransforms(snapshot);
+        const std::vector<glm::mat4>& world_matrices =
+                target->world_matrices();
+        int mismatches = world_matrices.size() == snapshot->size() ? 0 : 1;
+        for (int i = 0; mismatches == 0 && i < snapshot->size(); ++i) {
+            SceneObject* scene_object = (*snapshot)[i];
+            glm::mat4 expected = referenceModelMatrix(scene_object);
+            if (memcmp(&world_matrices[i], &expected, sizeof(expected)) != 0
+                    || !scene_object->transform()->isModelMatrixValid()) {
+                ++mismatches;
+                continue;
+            }
+            glm::mat4 cached = scene_object->transform()->getModelMatrix();
+            if (memcmp(&cached, &expected, sizeof(expected)) != 0) {
+                ++mismatches;
+            }
+        }
+
+        ok = ok && mismatches == 0;
+        printf("%-40s %10zu %12d%s\n", it->name, snapshot->size(), mismatches,
+                mismatches == 0 ? "" : "  UNEXPECTED");
+    }
+    other.removeSceneObject(shared);
+    return ok;
+}
+
+void flattenReference(SceneObject* scene_object,
+        std::vector<SceneObject*>& out) {
+    out.push_back(scene_object);
+    const std::vector<SceneObject*>& children = scene_object->children();
+    for (auto it = children.begin(); it != children.end(); ++it) {
+        flattenReference(*it, out);
+    }
+}
+
+/*
+ * Compares scene's flattened list with a recursive depth-first walk, and
+ * checks that before, taken ahead of the last step, is unchanged; and that
+ * the list was rebuilt if, and only if, the step changed the scene's graph.
+ * Returns the number of differences.
+ */
+int flatteningMismatches(Scene* scene,
+        const std::shared_ptr<const std::vector<SceneObject*>>& before,
+        const std::vector<SceneObject*>& before_copy, bool changed) {
+    long allocations_before = allocations.load();
+    std::shared_ptr<const std::vector<SceneObject*>> after =
+            scene->getWholeSceneObjects();
+    bool allocated = allocations.load() != allocations_before;
+    std::vector<SceneObject*> expected;
+    const std::vector<SceneObject*>& roots = scene->scene_objects();
+    for (auto root = roots.begin(); root != roots.end(); ++root) {
+        flattenReference(*root, expected);
+    }
+
+    int mismatches = after->size() == expected.size() ? 0 : 1;
+    for (int i = 0; mismatches == 0 && i < expected.size(); ++i) {
+        if ((*after)[i] != expected[i]) {
+            ++mismatches;
+        }
+    }
+    // The old snapshot must not change under its holder
+    if (*before != before_copy) {
+        ++mismatches;
+    }
+    // Only a change to this scene may rebuild the list
+    bool cached = after == before && !allocated;
+    if (cached == changed) {
+        ++mismatches;
+    }
+    return mismatches;
+}
+
+/*
+ * Changes the structure of two scenes' graphs a step at a time, and checks
+ * both scenes' flattened lists after each step. A change to one scene must
+ * leave the other's list cached, unless the changed object is in both.
+ * Returns false on any difference.
+ */
+bool checkSceneFlattening(SyntheticScene& scene, unsigned int seed) {
+    const std::vector<SceneObject*>& objects = scene.objects();
+    std::mt19937 random(seed);
+    std::uniform_int_distribution<int> pick(0, objects.size() - 1);
+    Scene* target = scene.scene();
+    SceneObject extra_child;
+    SceneObject extra_grandchild;
+    SceneObject extra_root;
+    SceneObject other_root;
+    SceneObject other_child;
+    SceneObject shared_child;
+    Transform extra_transforms[6];
+    extra_child.attachTransform(&extra_child, &extra_transforms[0]);
+    extra_grandchild.attachTransform(&extra_grandchild, &extra_transforms[1]);
+    extra_root.attachTransform(&extra_root, &extra_transforms[2]);
+    other_root.attachTransform(&other_root, &extra_transforms[3]);
+    other_child.attachTransform(&other_child, &extra_transforms[4]);
+    shared_child.attachTransform(&shared_child, &extra_transforms[5]);
+    extra_child.addChildObject(&extra_child, &extra_grandchild);
+    Scene other;
+    other.addSceneObject(&other_root);
+    SceneObject* shared = objects[pick(random)];
+
+    enum Step {
+        NOTHING,
+        ADD_CHILD,
+        MOVE_CHILD,
+        REMOVE_CHILD,
+        ADD_ROOT,
+        CHANGE_OTHER,
+        SHARE_OBJECT,
+        CHANGE_SHARED,
+        REMOVE_ROOT
+    };
+    struct Case {
+        const char* name;
+        Step step;
+        bool target_changes;
+        bool other_changes;
+    };
+    const Case cases[] = {
+            { "unchanged", NOTHING, false, false },
+            { "subtree added", ADD_CHILD, true, false },
+            { "subtree moved", MOVE_CHILD, true, false },
+            { "subtree removed", REMOVE_CHILD, true, false },
+            { "root added", ADD_ROOT, true, false },
+            { "other scene changed", CHANGE_OTHER, false, true },
+            { "object added to other scene", SHARE_OBJECT, false, true },
+            { "shared object changed", CHANGE_SHARED, true, true },
+            { "root removed", REMOVE_ROOT, true, false } };
+
+    bool ok = true;
+    SceneObject* parent = nullptr;
+    printf("\n%-40s %10s %12s\n", "scene flattening", "objects",
+            "mismatches");
+    for (const Case* it = cases; it != cases + sizeof(cases) / sizeof(*cases);
+            ++it) {
+        std::shared_ptr<const std::vector<SceneObject*>> target_before =
+                target->getWholeSceneObjects();
+        std::vector<SceneObject*> target_copy(*target_before);
+        std::shared_ptr<const std::vector<SceneObject*>> other_before =
+                other.getWholeSceneObjects();
+        std::vector<SceneObject*> other_copy(*other_before);
+
+        switch (it->step) {
+        case ADD_CHILD:
+            parent = objects[pick(random)];
+            parent->addChildObject(parent, &extra_child);
+            break;
+        case MOVE_CHILD:
+            parent->removeChildObject(&extra_child);
+            parent = objects[pick(random)];
+            parent->addChildObject(parent, &extra_child);
+            break;
+        case REMOVE_CHILD:
+            parent->removeChildObject(&extra_child);
+            break;
+        case ADD_ROOT:
+            target->addSceneObject(&extra_root);
+            break;
+        case CHANGE_OTHER:
+            other_root.addChildObject(&other_root, &other_child);
+            break;
+        case SHARE_OBJECT:
+            // A child in the target scene, and a root in the other
+            other.addSceneObject(shared);
+            break;
+        case CHANGE_SHARED:
+            shared->addChildObject(shared, &shared_child);
+            break;
+        case REMOVE_ROOT:
+            target->removeSceneObject(&extra_root);
+            break;
+        default:
+            break;
+        }
+
+        int mismatches = flatteningMismatches(target, target_before,
+                target_copy, it->target_changes)
+                + flatteningMismatches(&other, other_before, other_copy,
+                        it->other_changes);
+        ok = ok && mismatches == 0;
+        printf("%-40s %10zu %12d%s\n", it->name,
+                target->getWholeSceneObjects()->size(), mismatches,
+                mismatches == 0 ? "" : "  UNEXPECTED");
+    }
+    shared->removeChildObject(&shared_child);
+    other.removeSceneObject(shared);
+    other.removeSceneObject(&other_root);
+    return ok;
+}
+
+/*
+ * Moves, removes and re-adds objects, frame after frame, and compares
+ * CollisionWorld's pairs - and its overlaps for a few objects - with
+ * isColliding() on every pair. Returns false on any difference.
+ */
+bool checkCollisionWorld(CollisionObjects& objects, unsigned int seed) {
+    CollisionWorld& world = objects.world();
+    const std::vector<SceneObject*>& all = objects.objects();
+    // The ids are the objects' indices until some are removed and re-added
+    std::vector<SceneObject*> by_id(all);
+    std::mt19937 random(seed);
+    std::uniform_int_distribution<int> pick(0, all.size() - 1);
+
+    bool ok = true;
+    std::vector<int> pairs, overlaps;
+    std::vector<int> removed;
+    printf("\n%-40s %10s %10s %12s\n", "collision world", "objects", "pairs",
+            "mismatches");
+    for (int frame = 0; frame < 12; ++frame) {
+        const char* name = "objects moved";
+        if (frame % 4 == 1) {
+            name = "objects moved, some removed";
+            for (int i = 0; i < 20; ++i) {
+                int id = pick(random);
+                if (by_id[id]) {
+                    world.removeSceneObject(id);
+                    removed.push_back(id);
+                    by_id[id] = nullptr;
+                }
+            }
+        } else if (frame % 4 == 3) {
+            name = "objects moved, removed re-added";
+            // Each takes a freed id, not necessarily its old one
+            while (!removed.empty()) {
+                SceneObject* scene_object = all[removed.back()];
+                removed.pop_back();
+                int id = world.addSceneObject(scene_object);
+                if (id >= by_id.size() || by_id[id]) {
+                    printf("id %d was still in use  UNEXPECTED\n", id);
+                    return false;
+                }
+                by_id[id] = scene_object;
+            }
+        }
+        objects.move();
+
+        std::vector<std::pair<int, int>> expected;
+        for (int a = 0; a < by_id.size(); ++a) {
+            for (int b = a + 1; by_id[a] && b < by_id.size(); ++b) {
+                if (by_id[b] && by_id[a]->isColliding(by_id[b])) {
+                    expected.push_back(std::make_pair(a, b));
+                }
+            }
+        }
+        world.findOverlappingPairs(pairs);
+        std::vector<std::pair<int, int>> found;
+        for (size_t i = 0; i + 1 < pairs.size(); i += 2) {
+            found.push_back(std::make_pair(pairs[i], pairs[i + 1]));
+        }
+        std::sort(found.begin(), found.end());
+        int mismatches = found.size() + expected.size();
+        for (size_t i = 0, j = 0; i < found.size() && j < expected.size();) {
+            if (found[i] == expected[j]) {
+                mismatches -= 2;
+                ++i;
+                ++j;
+            } else if (found[i] < expected[j]) {
+                ++i;
+            } else {
+                ++j;
+            }
+        }
+
+        // The objects in the first few pairs, asked about one at a time
+        for (size_t i = 0; i < expected.size() && i < 5; ++i) {
+            int id = expected[i].first;
+            world.findOverlaps(id, overlaps);
+            std::sort(overlaps.begin(), overlaps.end());
+            std::vector<int> reference;
+            for (int other = 0; other < by_id.size(); ++other) {
+                if (other != id && by_id[other]
+                        && by_id[id]->isColliding(by_id[other])) {
+                    reference.push_back(other);
+                }
+            }
+            if (overlaps != reference) {
+                ++mismatches;
+            }
+        }
+
+        int live = by_id.size() - std::count(by_id.begin(), by_id.end(),
+                static_cast<SceneObject*>(nullptr));
+        ok = ok && mismatches == 0;
+        printf("%-40s %10d %10zu %12d%s\n", name, live, expected.size(),
+                mismatches, mismatches == 0 ? "" : "  UNEXPECTED");
+    }
+    return ok;
+}
+
+/*
+ * Culls a 10 x 10 x 10 grid of instances, some scaled, against the scene
+ * camera, and compares the packed array with a cull done separately in
+ * world space: the same instances, in their original order, each with its
+ * world matrix and its own color. Instances within rounding of a plane may
+ * go either way. Returns false on any difference.
+ */
+bool checkInstanceBuffer(SyntheticScene& scene) {
+    const int SIDE = 10;
+    std::vector<float> data;
+    for (int i = 0; i < SIDE * SIDE * SIDE; ++i) {
+        glm::vec3 position(i % SIDE, i / SIDE % SIDE, i / (SIDE * SIDE));
+        glm::mat4 local = glm::translate(glm::mat4(),
+                (position - 4.5f) * 6.0f);
+        local = glm::scale(local, glm::vec3(1.0f + (i % 3)));
+        const float* matrix = glm::value_ptr(local);
+        data.insert(data.end(), matrix, matrix + 16);
+        // Colors that say which instance they came from
+        data.push_back(i);
+        data.push_back(i % 7);
+        data.push_back(0.5f);
+        data.push_back(1.0f);
+    }
+
+    const BoundingVolume& bounding_volume = scene.mesh()->getBoundingVolume();
+    glm::mat4 vp_matrix = scene.camera()->getProjectionMatrix()
+            * scene.camera()->getViewMatrix();
+    float world_frustum[6][4];
+    RendererBenchmark::build_frustum(world_frustum,
+            glm::value_ptr(vp_matrix));
+
+    struct Case {
+        const char* name;
+        glm::vec3 position;
+        bool cull;
+        int count;
+    };
+    const Case cases[] = {
+            { "no frustum", glm::vec3(0.0f, 0.0f, -40.0f), false, 1000 },
+            { "grid ahead, partly in view", glm::vec3(0.0f, 0.0f, -40.0f),
+                    true, 1000 },
+            { "grid off to one side", glm::vec3(50.0f, 0.0f, -40.0f), true,
+                    1000 },
+            { "grid behind the camera", glm::vec3(0.0f, 0.0f, 100.0f), true,
+                    1000 },
+            { "after set_instances(50)", glm::vec3(0.0f, 0.0f, -40.0f), true,
+                    50 } };
+
+    InstanceBuffer buffer;
+    bool ok = true;
+    printf("\n%-40s %10s %10s %12s\n", "instance culling", "instances",
+            "visible", "mismatches");
+    for (const Case* it = cases; it != cases + sizeof(cases) / sizeof(*cases);
+            ++it) {
+        buffer.set_instances(data.data(), it->count);
+        glm::mat4 model_matrix = glm::rotate(
+                glm::translate(glm::mat4(), it->position), 0.3f,
+                glm::vec3(0.0f, 1.0f, 0.0f));
+        glm::mat4 mvp_matrix = vp_matrix * model_matrix;
+        float frustum[6][4];
+        RendererBenchmark::build_frustum(frustum, glm::value_ptr(mvp_matrix));
+        int visible = buffer.cull(it->cull ? frustum : nullptr, model_matrix,
+                bounding_volume);
+
+        int mismatches = visible == buffer.visible_count() ? 0 : 1;
+        const float* packed = buffer.visible_data();
+        int next = 0;
+        for (int i = 0; i < it->count; ++i) {
+            const float* instance = &data[i * InstanceBuffer::FLOATS_PER_INSTANCE];
+            glm::mat4 local = glm::make_mat4(instance);
+            glm::mat4 world = model_matrix * local;
+            bool inside = true, borderline = false;
+            if (it->cull) {
+                glm::vec4 center = world
+                        * glm::vec4(bounding_volume.center(), 1.0f);
+                float radius = bounding_volume.radius()
+                        * glm::length(glm::vec3(local[0]));
+                for (int p = 0; p < 6; ++p) {
+                    float distance = world_frustum[p][0] * center.x
+                            + world_frustum[p][1] * center.y
+                            + world_frustum[p][2] * center.z
+                            + world_frustum[p][3] + radius;
+                    inside = inside && distance >= 0.0f;
+                    borderline = borderline || fabs(distance) < 1e-3f;
+                }
+            }
+            bool packed_here = next < visible
+                    && packed[next * InstanceBuffer::FLOATS_PER_INSTANCE
+                            + InstanceBuffer::MATRIX_FLOATS] == i;
+            if (!packed_here) {
+                mismatches += inside && !borderline;
+                continue;
+            }
+            mismatches += !inside && !borderline;
+            const float* entry = packed
+                    + next * InstanceBuffer::FLOATS_PER_INSTANCE;
+            const float* expected = glm::value_ptr(world);
+            for (int k = 0; k < InstanceBuffer::MATRIX_FLOATS; ++k) {
+                if (fabs(entry[k] - expected[k]) > 1e-4f) {
+                    ++mismatches;
+                    break;
+                }
+            }
+            if (memcmp(entry + InstanceBuffer::MATRIX_FLOATS,
+                    instance + InstanceBuffer::MATRIX_FLOATS,
+                    sizeof(float) * InstanceBuffer::COLOR_FLOATS) != 0) {
+                ++mismatches;
+            }
+            ++next;
+        }
+        // Anything packed that wasn't matched, in order, to an instance
+        mismatches += visible - next;
+
+        bool expected_some = it->position.z < 0.0f;
+        ok = ok && mismatches == 0 && (visible > 0) == expected_some
+                && (it->cull || visible == it->count);
+        printf("%-40s %10d %10d %12d%s\n", it->name, it->count, visible,
+                mismatches,
+                mismatches == 0 && (visible > 0) == expected_some ?
+                        "" : "  UNEXPECTED");
+    }
+    return ok;
+}
+
+/*
+ * The x or y, at depth z in front of the camera, that projects onto pixel
+ * coordinate pixel of a size-pixel wide occlusion buffer under a 90 degree
+ * field of view
+ */
+float atPixel(float pixel, int size, float z) {
+    return (pixel / size * 2.0f - 1.0f) * z;
+}
+
+BoundingVolume box(const glm::vec3& lo, const glm::vec3& hi) {
+    BoundingVolume volume;
+    volume.expand(lo);
+    volume.expand(hi);
+    return volume;
+}
+
+/*
+ * A wall scene in an OcclusionBuffer: a wall facing the camera, and a floor
+ * running from behind the camera into the distance, as occluders. Checks
+ * that the wall only fills pixels one of its triangles covers entirely,
+ * then tests boxes around them. Returns false if any box comes out other than expected.
+ */
+bool checkOcclusionBuffer() {
+    const int SIZE = 128;
+    const float WALL_Z = 10.0f;
+    // The wall's edges fall part way across pixels, the left one in the
+    // first of four pixels isVisible() tests together
+    const float LEFT = 32.3f, RIGHT = 96.3f, BOTTOM = 40.6f, TOP = 90.4f;
+    glm::mat4 vp_matrix = glm::frustum(-1.0f, 1.0f, -1.0f, 1.0f, 1.0f,
+            100.0f);
+
+    std::vector<glm::vec3> wall;
+    wall.push_back(glm::vec3(atPixel(LEFT, SIZE, WALL_Z),
+            atPixel(BOTTOM, SIZE, WALL_Z), -WALL_Z));
+    wall.push_back(glm::vec3(atPixel(RIGHT, SIZE, WALL_Z),
+            atPixel(BOTTOM, SIZE, WALL_Z), -WALL_Z));
+    wall.push_back(glm::vec3(atPixel(RIGHT, SIZE, WALL_Z),
+            atPixel(TOP, SIZE, WALL_Z), -WALL_Z));
+    wall.push_back(glm::vec3(atPixel(LEFT, SIZE, WALL_Z),
+            atPixel(TOP, SIZE, WALL_Z), -WALL_Z));
+    std::vector<glm::vec3> floor;
+    floor.push_back(glm::vec3(-50.0f, -1.0f, 10.0f));
+    floor.push_back(glm::vec3(50.0f, -1.0f, 10.0f));
+    floor.push_back(glm::vec3(50.0f, -1.0f, -50.0f));
+    floor.push_back(glm::vec3(-50.0f, -1.0f, -50.0f));
+    const unsigned short QUAD[] = { 0, 1, 2, 0, 2, 3 };
+    std::vector<unsigned short> quad(QUAD, QUAD + 6);
+
+    OcclusionBuffer buffer(SIZE, SIZE);
+    buffer.addOccluder(vp_matrix, wall, quad);
+    buffer.rasterize();
+
+    // Every pixel entirely inside one of the wall's two triangles, and no
+    // other, is filled: so the pixels along the diagonal between them are
+    // not
+    int filled = 0, wrong = 0;
+    for (int y = 0; y < SIZE; ++y) {
+        for (int x = 0; x < SIZE; ++x) {
+            bool inside = x >= LEFT && x + 1 <= RIGHT && y >= BOTTOM
+                    && y + 1 <= TOP;
+            int above = 0;
+            for (int corner = 0; corner < 4; ++corner) {
+                double cx = x + (corner & 1), cy = y + (corner >> 1);
+                if ((cx - LEFT) * (TOP - BOTTOM)
+                        < (cy - BOTTOM) * (RIGHT - LEFT)) {
+                    ++above;
+                }
+            }
+            inside = inside && (above == 0 || above == 4);
+            bool is_filled = buffer.depth(x, y) < 1.0f;
+            filled += is_filled;
+            wrong += is_filled != inside;
+        }
+    }
+    bool ok = wrong == 0;
+    printf("\n%-40s %10s %12s\n", "occlusion: wall pixels", "filled",
+            "wrong");
+    printf("%-40s %10d %12d%s\n", "entirely inside one triangle", filled,
+            wrong, ok ? "" : "  UNEXPECTED");
+
+    buffer.clear();
+    buffer.addOccluder(vp_matrix, wall, quad);
+    buffer.addOccluder(vp_matrix, floor, quad);
+    buffer.rasterize();
+
+    // A box facing the camera, whose left edge projects onto pixel left
+    struct Case {
+        const char* name;
+        BoundingVolume volume;
+        bool visible;
+    };
+    const float BEHIND = 20.0f;
+    const Case cases[] = {
+            { "behind the wall", box(
+                    glm::vec3(atPixel(40.0f, SIZE, BEHIND),
+                            atPixel(75.0f, SIZE, BEHIND), -BEHIND - 2.0f),
+                    glm::vec3(atPixel(50.0f, SIZE, BEHIND),
+                            atPixel(85.0f, SIZE, BEHIND), -BEHIND)), false },
+            { "behind the wall's inner edge", box(glm::vec3(-2.0f, 0.0f,
+                    -22.0f), glm::vec3(2.0f, 2.0f, -20.0f)), true },
+            { "in front of the wall", box(glm::vec3(-1.0f, 0.0f, -6.0f),
+                    glm::vec3(1.0f, 1.0f, -5.0f)), true },
+            { "beside the wall", box(glm::vec3(12.0f, 0.0f, -22.0f),
+                    glm::vec3(14.0f, 2.0f, -20.0f)), true },
+            { "behind, past the wall's left edge", box(
+                    glm::vec3(atPixel(LEFT - 0.15f, SIZE, BEHIND), 0.0f,
+                            -BEHIND - 0.01f),
+                    glm::vec3(atPixel(48.0f, SIZE, BEHIND), 2.0f, -BEHIND)),
+                    true },
+            { "crossing the wall", box(glm::vec3(-1.0f, 0.0f, -12.0f),
+                    glm::vec3(1.0f, 1.0f, -8.0f)), true },
+            { "behind the camera", box(glm::vec3(-1.0f, -1.0f, 2.0f),
+                    glm::vec3(1.0f, 1.0f, 4.0f)), true },
+            { "under the floor, beside the wall", box(
+                    glm::vec3(12.0f, -8.0f, -14.0f),
+                    glm::vec3(16.0f, -6.0f, -12.0f)), false },
+            { "on the floor, beside the wall", box(
+                    glm::vec3(12.0f, -1.0f, -22.0f),
+                    glm::vec3(16.0f, 0.0f, -20.0f)), true } };
+
+    printf("%-40s %10s %12s\n", "occlusion: box", "expected", "visible");
+    for (const Case* it = cases; it != cases + sizeof(cases) / sizeof(*cases);
+            ++it) {
+        bool visible = buffer.isVisible(vp_matrix, it->volume);
+        ok = ok && visible == it->visible;
+        printf("%-40s %10s %12s%s\n", it->name, it->visible ? "yes" : "no",
+                visible ? "yes" : "no",
+                visible == it->visible ? "" : "  UNEXPECTED");
+    }
+    return ok;
+}
+
+/*
+ * Packs the shared mesh in each layout, unpacks it again, and checks that
+ * every attribute came back within its format's rounding error. Prints the
+ * bytes each layout uploads; returns false if any attribute is off.
+ */
+bool checkVertexLayouts(SyntheticScene& scene) {
+    struct Case {
+        const char* name;
+        bool interleaved;
+        VertexLayout::NormalFormat normal_format;
+        VertexLayout::TexCoordFormat tex_coord_format;
+        bool byte_colors;
+    };
+    static const Case cases[] = {
+            { "float, a buffer per attribute", false,
+                    VertexLayout::NORMAL_FLOAT, VertexLayout::TEX_COORD_FLOAT,
+                    false },
+            { "float, interleaved", true, VertexLayout::NORMAL_FLOAT,
+                    VertexLayout::TEX_COORD_FLOAT, false },
+            { "10:10:10:2, half, unorm8, interleaved", true,
+                    VertexLayout::NORMAL_INT_2_10_10_10,
+                    VertexLayout::TEX_COORD_HALF_FLOAT, true },
+            { "snorm8, half, unorm8, interleaved", true,
+                    VertexLayout::NORMAL_SNORM8,
+                    VertexLayout::TEX_COORD_HALF_FLOAT, true },
+            { "10:10:10:2, half, unorm8, planar", false,
+                    VertexLayout::NORMAL_INT_2_10_10_10,
+                    VertexLayout::TEX_COORD_HALF_FLOAT, true } };
+    // Half the step of each format; half floats step by 2^-11 just below
+    // one, and texture coordinates are in [0, 1]
+    static const float normal_bounds[] = { 0.0f, 0.5f / 511, 0.5f / 127 };
+    static const float tex_coord_bounds[] = { 0.0f, 1.0f / 4096 };
+    const float color_bounds[] = { 0.0f, 0.5f / 255 };
+    // Slack for the float arithmetic in the conversions
+    const float slack = 1e-6f;
+
+    Mesh& mesh = *scene.mesh();
+    bool ok = true;
+    printf("\n%-40s %10s %12s %12s %12s\n", "vertex layout", "bytes",
+            "normal err", "uv err", "color err");
+    for (const Case* it = cases; it != cases + sizeof(cases) / sizeof(*cases);
+            ++it) {
+        VertexLayout layout;
+        layout.interleaved = it->interleaved;
+        layout.normal_format = it->normal_format;
+        layout.tex_coord_format = it->tex_coord_format;
+        if (it->byte_colors) {
+            layout.color_key = SyntheticScene::COLOR_KEY;
+        }
+        mesh.set_vertex_layout(layout);
+
+        VertexPacker packer(layout.interleaved);
+        declareAttributes(mesh, layout, packer);
+        packer.pack();
+
+        float errors[4] = { 0.0f, 0.0f, 0.0f, 0.0f };
+        for (int attribute = 0; attribute < 4; ++attribute) {
+            const VertexPacker::Source& source = packer.sources()[attribute];
+            for (size_t element = 0; element < source.count; ++element) {
+                float value[4];
+                packer.unpack(attribute, element, value);
+                const float* original = source.data
+                        + element * source.components;
+                for (int component = 0; component < source.components;
+                        ++component) {
+                    errors[attribute] = std::max(errors[attribute],
+                            std::abs(value[component] - original[component]));
+                }
+            }
+        }
+
+        float bounds[4] = { 0.0f, normal_bounds[layout.normal_format],
+                tex_coord_bounds[layout.tex_coord_format],
+                color_bounds[it->byte_colors] };
+        bool within = true;
+        for (int attribute = 0; attribute < 4; ++attribute) {
+            within = within && errors[attribute] <= bounds[attribute] + slack;
+        }
+        ok = ok && within;
+        printf("%-40s %10zu %12.6f %12.6f %12.6f%s\n", it->name,
+                mesh.getVertexDataSize(), errors[1], errors[2], errors[3],
+                within ? "" : "  OUT OF BOUNDS");
+    }
+    mesh.set_vertex_layout(VertexLayout());
+    return ok;
+}
+
+const char QUAD_VERTEX_SHADER[] = "attribute vec4 a_position;\n"
+        "attribute vec4 a_tex_coord;\n"
+        "varying vec2 v_tex_coord;\n"
+        "void main() {\n"
+        "  v_tex_coord = a_tex_coord.xy;\n"
+        "  gl_Position = a_position;\n"
+        "}\n";
+
+// Reads its own pixel: fuses anywhere
+const char TINT_SHADER[] = "precision mediump float;\n"
+        "uniform sampler2D u_texture;\n"
+        "uniform vec3 u_tint;\n"
+        "varying vec2 v_tex_coord;\n"
+        "void main() {\n"
+        "  vec4 color = texture2D(u_texture, v_tex_coord);\n"
+        "  gl_FragColor = vec4(color.rgb * u_tint, color.a);\n"
+        "}\n";
+
+// Reads its neighbours: starts a pass
+const char BLUR_SHADER[] = "precision mediump float;\n"
+        "uniform sampler2D u_texture;\n"
+        "uniform vec2 u_step;\n"
+        "varying vec2 v_tex_coord;\n"
+        "void main() {\n"
+        "  vec4 sum = vec4(0.0);\n"
+        "  for (int i = -2; i <= 2; ++i) {\n"
+        "    sum += texture2D(u_texture, v_tex_coord + float(i) * u_step);\n"
+        "  }\n"
+        "  gl_FragColor = sum / 5.0;\n"
+        "}\n";
+
+// Discards: always a pass of its own
+const char MASK_SHADER[] = "precision mediump float;\n"
+        "uniform sampler2D u_texture;\n"
+        "varying vec2 v_tex_coord;\n"
+        "void main() {\n"
+        "  vec4 color = texture2D(u_texture, v_tex_coord);\n"
+        "  if (color.a < 0.5) discard;\n"
+        "  gl_FragColor = color;\n"
+        "}\n";
+
+/*
+ * Compares source with the golden file name in options.golden, or writes
+ * it there with --write-golden. Returns whether they match.
+ */
+bool matchesGolden(const Options& options, const std::string& name,
+        const std::string& source) {
+    std::string path = options.golden + "/" + name;
+    if (options.write_golden) {
+        FILE* file = fopen(path.c_str(), "w");
+        bool written = file != 0
+                && fwrite(source.data(), 1, source.size(), file)
+                        == source.size();
+        return file != 0 && fclose(file) == 0 && written;
+    }
+    FILE* file = fopen(path.c_str(), "r");
+    if (file == 0) {
+        return false;
+    }
+    std::string golden;
+    char buffer[4096];
+    size_t read;
+    while ((read = fread(buffer, 1, sizeof(buffer), file)) > 0) {
+        golden.append(buffer, read);
+    }
+    fclose(file);
+    return golden == source;
+}
+
+/*
+ * Draws post effect chains through Renderer::renderCamera(), counting the
+ * passes: one draw call each, with the scene culled to nothing. Prints the
+ * effects and passes in each chain; returns false if any chain takes other
+ * than the passes expected of it, a fused shader lacks a stage or differs
+ * from its golden source, or a pass draws into texture A, which has to keep
+ * the scene for screenshots. With the scene's post effects off, only the
+ * effects marked as overlays may run. A change to the generated GLSL shows
+ * up as a golden diff to review; --write-golden rewrites the golden sources.
+ */
+bool checkPostEffects(SyntheticScene& scene, const Options& options) {
+    enum Effect {
+        BLEND, FLIP, TINT, BLUR, MASK
+    };
+    // The last "overlays" effects of a case are overlays; a case with the
+    // scene's post effects off has no golden sources
+    struct Case {
+        const char* name;
+        const char* golden;
+        std::vector<Effect> effects;
+        int passes;
+        bool enabled;
+        int overlays;
+    };
+    const Case cases[] = {
+            { "blend, flip, tint", "blend_flip_tint", { BLEND, FLIP, TINT }, 1,
+                    true, 0 },
+            { "tint, blur, blend, flip", "tint_blur_blend_flip", { TINT, BLUR,
+                    BLEND, FLIP }, 2, true, 0 },
+            { "blend, mask, tint, tint", "blend_mask_tint_tint", { BLEND, MASK,
+                    TINT, TINT }, 3, true, 0 },
+            { "blur, blur", "blur_blur", { BLUR, BLUR }, 2, true, 0 },
+            { "blend, tint; effects off", nullptr, { BLEND, TINT }, 0, false,
+                    0 },
+            { "blend, blur, overlay; effects off", nullptr, { BLEND, BLUR,
+                    MASK }, 1, false, 1 } };
+
+    PostEffectShaderManager manager;
+    int tint = manager.addCustomPostEffectShader(QUAD_VERTEX_SHADER,
+            TINT_SHADER);
+    manager.getCustomPostEffectShader(tint)->addVec3Key("u_tint", "tint");
+    int blur = manager.addCustomPostEffectShader(QUAD_VERTEX_SHADER,
+            BLUR_SHADER);
+    manager.getCustomPostEffectShader(blur)->addVec2Key("u_step", "step");
+    int mask = manager.addCustomPostEffectShader(QUAD_VERTEX_SHADER,
+            MASK_SHADER);
+    const int shader_types[] = { PostEffectData::COLOR_BLEND_SHADER,
+            PostEffectData::HORIZONTAL_FLIP_SHADER, tint, blur, mask };
+
+    RenderTexture texture_a(256, 256);
+    RenderTexture texture_b(256, 256);
+    RenderTexture texture_c(256, 256);
+    Scene empty;
+    Camera* camera = scene.camera();
+    Renderer::cull(&empty, camera, 0);
+
+    bool ok = matchesGolden(options, "fused.vsh",
+            PostEffectCompiler::vertexShader());
+    printf("\n%-40s %10s %12s %12s %12s\n", "post effects", "effects",
+            "passes", "scene kept", "golden");
+    for (const Case* it = cases; it != cases + sizeof(cases) / sizeof(*cases);
+            ++it) {
+        std::vector<std::unique_ptr<PostEffectData> > effects;
+        for (auto effect = it->effects.begin(); effect != it->effects.end();
+                ++effect) {
+            PostEffectData* data = new PostEffectData(
+                    static_cast<PostEffectData::ShaderType>(shader_types[*effect]));
+            data->setVec3("tint", glm::vec3(1.0f, 0.5f, 0.25f));
+            data->setVec2("step", glm::vec2(1.0f / 256, 0.0f));
+            data->set_overlay(
+                    it->effects.end() - effect <= it->overlays);
+            camera->addPostEffect(data);
+            effects.push_back(std::unique_ptr<PostEffectData>(data));
+        }
+
+        empty.set_post_effects_enabled(it->enabled);
+        long draw_calls = host::draw_calls;
+        host::watched_framebuffer = texture_a.getFrameBufferId();
+        host::watched_draw_calls = 0;
+        Renderer::renderCamera(&empty, camera, 0, 0, 0, 256, 256, 0, &manager,
+                &texture_a, &texture_b, &texture_c);
+        int passes = host::draw_calls - draw_calls;
+        bool scene_kept = host::watched_draw_calls == 0;
+        host::watched_framebuffer = 0;
+
+        // Every stage of a fused pass has its function in the shader, and
+        // the shader is the one checked in
+        const std::vector<PostEffectPass>& plan = manager.getPostEffectPlan(
+                camera->post_effect_data())->passes();
+        bool complete = true;
+        bool golden = true;
+        for (size_t pass = 0; it->golden && pass < plan.size(); ++pass) {
+            FusedPostEffectShader* shader = plan[pass].shader;
+            if (shader == 0) {
+                continue;
+            }
+            for (int stage = 0; stage < plan[pass].count; ++stage) {
+                complete = complete
+                        && shader->fragment_shader().find(
+                                PostEffectCompiler::prefix(stage) + "main(")
+                                != std::string::npos;
+            }
+            golden = golden
+                    && matchesGolden(options,
+                            std::string(it->golden) + ".pass"
+                                    + std::to_string(pass) + ".fsh",
+                            shader->fragment_shader());
+        }
+
+        bool expected = passes == it->passes && complete && scene_kept
+                && golden;
+        ok = ok && expected;
+        printf("%-40s %10zu %12d %12s %12s%s\n", it->name,
+                it->effects.size(), passes, scene_kept ? "yes" : "no",
+                !it->golden ? "-" : golden ? "same" : "differs",
+                expected ? "" : "  UNEXPECTED");
+
+        for (auto effect = effects.begin(); effect != effects.end(); ++effect) {
+            camera->removePostEffect(effect->get());
+        }
+    }
+    return ok;
+}
+
+/*
+ * Shader prewarming on the synthetic scene, whose objects all share one
+ * texture shader material; then the program binary cache's keys, file
+ * format and invalidation, in a scratch directory: the host has no driver
+ * to hand out binaries, so the entries are made up. Returns false if any
+ * case comes out other than expected.
+ */
+bool checkShaderCaches(SyntheticScene& scene) {
+    typedef GLProgramBinaryCache Cache;
+    struct Case {
+        const char* name;
+        bool result;
+        bool expected;
+    };
+    std::vector<Case> cases;
+
+    ShaderManager shader_manager;
+    cases.push_back( { "prewarm builds the scene's shader",
+            shader_manager.prewarm(scene.scene()) == 1, true });
+    cases.push_back( { "prewarm builds it again",
+            shader_manager.prewarm(scene.scene()) != 0, false });
+
+    // Keys
+    const char* vertex[] = { "void main() {", " gl_Position = vec4(0.0); }" };
+    const char* vertex_joined[] = {
+            "void main() { gl_Position = vec4(0.0); }" };
+    const char* fragment[] = { "void main() {", " gl_FragColor = vec4(1.0); }" };
+    const char* fragment_joined[] = {
+            "void main() { gl_FragColor = vec4(1.0); }" };
+    const char* fragment_changed[] = {
+            "void main() { gl_FragColor = vec4(0.5); }" };
+    const char* moved_vertex[] = { "void main() {" };
+    const char* moved_fragment[] = {
+            " gl_Position = vec4(0.0); }void main() { gl_FragColor = vec4(1.0); }" };
+    const GLint lengths[] = { -1, -1 };
+    uint64_t key = Cache::key(1, vertex_joined, 0, fragment_joined, 0);
+    cases.push_back( { "key ignores how a source is split", key
+            == Cache::key(2, vertex, lengths, fragment, lengths), true });
+    cases.push_back( { "key follows the source", key
+            == Cache::key(1, vertex_joined, 0, fragment_changed, 0), false });
+    cases.push_back( { "key keeps the stages apart", key
+            == Cache::key(1, moved_vertex, 0, moved_fragment, 0), false });
+
+    // File format
+    Cache::Entry entry;
+    entry.key = key;
+    entry.driver = "vendor\nrenderer\n3.0 build 1\n";
+    entry.format = 0x8D64;
+    for (int i = 0; i < 4096; ++i) {
+        entry.binary.push_back(static_cast<char>(i * 31));
+    }
+    std::vector<char> data;
+    Cache::encode(entry, data);
+    Cache::Entry decoded;
+    bool round_trip = Cache::decode(data, key, entry.driver, decoded)
+            && decoded.format == entry.format
+            && decoded.binary == entry.binary;
+    cases.push_back( { "decode what was encoded", round_trip, true });
+    cases.push_back( { "decode for another driver", Cache::decode(data, key,
+            "vendor\nrenderer\n3.0 build 2\n", decoded), false });
+    cases.push_back( { "decode for another key", Cache::decode(data, key + 1,
+            entry.driver, decoded), false });
+    std::vector<char> damaged(data);
+    damaged[damaged.size() / 2] ^= 1;
+    cases.push_back( { "decode a damaged binary", Cache::decode(damaged, key,
+            entry.driver, decoded), false });
+    damaged = data;
+    damaged[8] += 1;
+    cases.push_back( { "decode another version", Cache::decode(damaged, key,
+            entry.driver, decoded), false });
+    damaged.assign(data.begin(), data.begin() + data.size() - 1);
+    cases.push_back( { "decode a truncated file", Cache::decode(damaged, key,
+            entry.driver, decoded), false });
+
+    // Files
+    char directory[] = "/tmp/gvrf_bench_programs_XXXXXX";
+    if (mkdtemp(directory) == 0) {
+        printf("\ncannot create a scratch directory\n");
+        return false;
+    }
+    Cache& cache = Cache::instance();
+    std::string previous(cache.directory());
+    cache.setDirectory(directory);
+    std::string path(std::string(directory) + "/" + Cache::fileName(key));
+
+    bool written = cache.write(entry);
+    cases.push_back( { "read what was written", written
+            && cache.read(key, entry.driver, decoded)
+            && decoded.binary == entry.binary, true });
+    cases.push_back( { "read after a driver update", cache.read(key,
+            "vendor\nrenderer\n3.0 build 2\n", decoded), false });
+    cases.push_back( { "stale file kept", access(path.c_str(), F_OK) == 0,
+            false });
+
+    cache.write(entry);
+    if (truncate(path.c_str(), data.size() / 2) != 0) {
+        printf("\ncannot truncate %s\n", path.c_str());
+    }
+    cases.push_back( { "read a truncated file", cache.read(key, entry.driver,
+            decoded), false });
+    cases.push_back( { "damaged file kept", access(path.c_str(), F_OK) == 0,
+            false });
+
+    cache.setDirectory(previous);
+    rmdir(directory);
+
+    bool ok = true;
+    printf("\n%-40s %10s %12s\n", "shader caches", "expected",
+            "result");
+    for (auto it = cases.begin(); it != cases.end(); ++it) {
+        bool expected = it->result == it->expected;
+        ok = ok && expected;
+        printf("%-40s %10s %12s%s\n", it->name, it->expected ? "yes" : "no",
+                it->result ? "yes" : "no", expected ? "" : "  UNEXPECTED");
+    }
+    return ok;
+}
+
+/*
+ * A rotation sensor trace: either one a camera rig recorded (see
+ * sensor_trace.h), or text, one sample per line, "time_ns w x y z gyro_x
+ * gyro_y gyro_z", with blank lines and lines starting with # skipped.
+ */
+struct SensorSample {
+    long long time_stamp;
+    glm::quat rotation;
+    glm::vec3 gyro;
+};
+
+bool readTrace(const std::string& path, std::vector<SensorSample>& trace) {
+    SensorTraceReader reader;
+    if (reader.open(path)) {
+        SensorTraceRecord record;
+        while (reader.next(record)) {
+            if (record.type == SensorTraceRecord::SAMPLE) {
+                SensorSample sample = { record.time, record.rotation,
+                        record.gyro };
+                trace.push_back(sample);
+            }
+        }
+        return trace.size() > 1;
+    }
+
+    FILE* file = fopen(path.c_str(), "r");
+    if (file == 0) {
+        return false;
+    }
+    char line[256];
+    while (fgets(line, sizeof(line), file) != 0) {
+        SensorSample sample;
+        if (line[0] == '#' || sscanf(line, "%lld %f %f %f %f %f %f %f",
+                &sample.time_stamp, &sample.rotation.w, &sample.rotation.x,
+                &sample.rotation.y, &sample.rotation.z, &sample.gyro.x,
+                &sample.gyro.y, &sample.gyro.z) != 8) {
+            continue;
+        }
+        trace.push_back(sample);
+    }
+    fclose(file);
+    return trace.size() > 1;
+}
+
+/*
+ * Twenty seconds of a head at 1000 Hz: slow looking around, with a quick
+ * 40 degree turn every two seconds, and some nodding. The gyro reads the
+ * body-frame angular velocity, with noise; without_gyro leaves it at 0, as
+ * the phone's own rotation vector sensor does.
+ */
+std::vector<SensorSample> syntheticTrace(unsigned int seed, bool with_gyro) {
+    const int RATE = 1000;
+    const float DURATION = 20.0f;
+    std::mt19937 random(seed);
+    std::normal_distribution<float> noise(0.0f, 0.02f);
+
+    struct Head {
+        static glm::quat at(float t) {
+            float yaw = 0.4f * sinf(0.7f * t) + 0.15f * sinf(2.3f * t + 1.0f);
+            // Minimum jerk turns, 300 ms long, alternating direction
+            float turns = floorf(t / 2.0f);
+            float s = (t - turns * 2.0f) / 0.3f;
+            float step = s >= 1.0f ? 1.0f :
+                    s * s * s * (10.0f - 15.0f * s + 6.0f * s * s);
+            float direction = fmodf(turns, 2.0f) == 0.0f ? 1.0f : -1.0f;
+            yaw += 0.7f * direction * (step - 0.5f);
+            float pitch = 0.2f * sinf(1.3f * t) + 0.05f * sinf(5.0f * t);
+            return HeadPosePredictor::axisAngle(glm::vec3(0.0f, 1.0f, 0.0f),
+                    yaw) * HeadPosePredictor::axisAngle(
+                    glm::vec3(1.0f, 0.0f, 0.0f), pitch);
+        }
+    };
+
+    std::vector<SensorSample> trace;
+    for (int index = 0; index < DURATION * RATE; ++index) {
+        float t = static_cast<float>(index) / RATE;
+        SensorSample sample;
+        sample.time_stamp = 1000000000LL + index * (1000000000LL / RATE);
+        sample.rotation = Head::at(t);
+        if (with_gyro) {
+            const float dt = 1e-4f;
+            glm::quat delta = glm::conjugate(sample.rotation)
+                    * Head::at(t + dt);
+            glm::vec3 axis(delta.x, delta.y, delta.z);
+            sample.gyro = axis * (2.0f / dt);
+            sample.gyro += glm::vec3(noise(random), noise(random),
+                    noise(random));
+        }
+        trace.push_back(sample);
+    }
+    return trace;
+}
+
+// The trace's orientation at a time, between its two nearest samples
+glm::quat traceRotationAt(const std::vector<SensorSample>& trace,
+        long long time_stamp, size_t& index) {
+    while (index + 1 < trace.size()
+            && trace[index + 1].time_stamp <= time_stamp) {
+        ++index;
+    }
+    if (index + 1 >= trace.size()) {
+        return trace.back().rotation;
+    }
+    const SensorSample& a = trace[index];
+    const SensorSample& b = trace[index + 1];
+    float f = static_cast<float>(time_stamp - a.time_stamp)
+            / (b.time_stamp - a.time_stamp);
+    return glm::mix(a.rotation, b.rotation, f);
+}
+
+/*
+ * Replays a trace the way the camera rig sees it: once a 60 Hz frame, the
+ * newest sample, predicted horizon seconds ahead. The error is the angle
+ * between the prediction and where the trace actually is by then.
+ */
+void replayTrace(const std::vector<SensorSample>& trace,
+        HeadPosePredictor::PredictionType type, float horizon, float& mean,
+        float& p99) {
+    HeadPosePredictor predictor;
+    predictor.set_prediction_type(type);
+    RotationSensorData data;
+    std::vector<float> errors;
+
+    const long long FRAME = 1000000000LL / 60;
+    long long end = trace.back().time_stamp
+            - static_cast<long long>(horizon * 1e9f);
+    size_t newest = 0, truth = 0;
+    for (long long frame = trace.front().time_stamp; frame < end; frame +=
+            FRAME) {
+        while (newest + 1 < trace.size()
+                && trace[newest + 1].time_stamp <= frame) {
+            ++newest;
+        }
+        const SensorSample& sample = trace[newest];
+        data.update(sample.time_stamp, sample.rotation.w, sample.rotation.x,
+                sample.rotation.y, sample.rotation.z, sample.gyro.x,
+                sample.gyro.y, sample.gyro.z);
+        glm::quat predicted = predictor.predict(data, horizon);
+        glm::quat actual = traceRotationAt(trace,
+                sample.time_stamp + static_cast<long long>(horizon * 1e9f),
+                truth);
+        errors.push_back(
+                glm::degrees(HeadPosePredictor::angleBetween(predicted,
+                        actual)));
+    }
+
+    double sum = 0.0;
+    for (auto it = errors.begin(); it != errors.end(); ++it) {
+        sum += *it;
+    }
+    mean = errors.empty() ? 0.0f : sum / errors.size();
+    std::sort(errors.begin(), errors.end());
+    p99 = errors.empty() ? 0.0f : errors[errors.size() * 99 / 100];
+}
+
+/*
+ * Head pose prediction error, in degrees, for each predictor and a few
+ * horizons, over the synthetic traces and the recorded one, if any. Returns
+ * false if constant velocity prediction isn't better than none on a
+ * synthetic trace: that is the latency it exists to hide.
+ */
+bool checkHeadPosePrediction(const Options& options) {
+    struct Trace {
+        std::string name;
+        std::vector<SensorSample> samples;
+        bool synthetic;
+    };
+    std::vector<Trace> traces;
+    traces.push_back( { "synthetic, gyro", syntheticTrace(options.seed,
+            true), true });
+    traces.push_back( { "synthetic, no gyro", syntheticTrace(options.seed,
+            false), true });
+    if (!options.trace.empty()) {
+        Trace recorded = { options.trace, std::vector<SensorSample>(), false };
+        if (!readTrace(options.trace, recorded.samples)) {
+            printf("\ncannot read a trace from %s\n", options.trace.c_str());
+            return false;
+        }
+        traces.push_back(recorded);
+    }
+
+    const char* names[] = { "none", "constant velocity",
+            "damped acceleration" };
+    const float horizons[] = { 0.02f, 0.035f, 0.05f };
+    bool ok = true;
+    printf("\n%-40s %8s %12s %12s\n", "head pose prediction", "horizon",
+            "mean deg", "p99 deg");
+    for (auto it = traces.begin(); it != traces.end(); ++it) {
+        for (int h = 0; h < 3; ++h) {
+            float none_mean = 0.0f;
+            for (int type = HeadPosePredictor::NONE;
+                    type <= HeadPosePredictor::DAMPED_ACCELERATION; ++type) {
+                float mean, p99;
+                replayTrace(it->samples,
+                        static_cast<HeadPosePredictor::PredictionType>(type),
+                        horizons[h], mean, p99);
+                bool worse = false;
+                if (type == HeadPosePredictor::NONE) {
+                    none_mean = mean;
+                } else if (type == HeadPosePredictor::CONSTANT_VELOCITY
+                        && it->synthetic) {
+                    worse = mean >= none_mean;
+                    ok = ok && !worse;
+                }
+                std::string name(it->name + ": " + names[type]);
+                printf("%-40s %6.0fms %12.3f %12.3f%s\n", name.c_str(),
+                        horizons[h] * 1000.0f, mean, p99,
+                        worse ? "  UNEXPECTED" : "");
+            }
+        }
+    }
+    return ok;
+}
+
+/*
+ * A camera rig on its own, with the head object it turns. It predicts with
+ * damped acceleration, whose state carries over from sample to sample.
+ */
+struct TracedRig {
+    SceneObject owner;
+    Transform owner_transform;
+    SceneObject head;
+    Transform head_transform;
+    CameraRig rig;
+
+    explicit TracedRig(CameraRig::CameraRigType type) {
+        owner.attachTransform(&owner, &owner_transform);
+        head.attachTransform(&head, &head_transform);
+        owner.addChildObject(&owner, &head);
+        owner.attachCameraRig(&owner, &rig);
+        rig.set_camera_rig_type(type);
+        rig.setVec3("pivot", glm::vec3(0.0f, 0.0f, -2.0f));
+        rig.setFloat("distance", 2.0f);
+        rig.predictor().set_prediction_type(
+                HeadPosePredictor::DAMPED_ACCELERATION);
+    }
+};
+
+struct HeadPose {
+    glm::quat rotation;
+    glm::vec3 position;
+
+    bool operator==(const HeadPose& other) const {
+        return rotation == other.rotation && position == other.position;
+    }
+};
+
+/*
+ * Drives a camera rig with a trace the way the sensor and the render loop
+ * do, recording to path: every sample as it arrives, two predictions a
+ * 60 Hz frame, one for each eye, and a yaw reset a second in. The rig has
+ * predicted a sample of its own before the recording starts, so the replay
+ * only matches if the predictor is reset when the first recorded frame is
+ * predicted. Returns
+ * the head pose after each recorded prediction.
+ */
+std::vector<HeadPose> recordTrace(const std::vector<SensorSample>& trace,
+        CameraRig::CameraRigType type, const std::string& path) {
+    TracedRig live(type);
+    std::vector<HeadPose> poses;
+    // A sample 10 ms before the trace, turning the other way
+    const SensorSample& first = trace.front();
+    long long before = first.time_stamp - 10000000LL;
+    live.rig.setRotationSensorData(before, first.rotation.w, first.rotation.x,
+            first.rotation.y, first.rotation.z, -first.gyro.x - 1.0f,
+            -first.gyro.y, -first.gyro.z);
+    live.rig.predict(4.0f / 60.0f, live.rig.rotation_sensor_data(), before);
+    if (!live.rig.startRecording(path)) {
+        return poses;
+    }
+
+    const long long FRAME = 1000000000LL / 60;
+    size_t next = 0;
+    for (long long frame = trace.front().time_stamp; frame
+            < trace.back().time_stamp; frame += FRAME) {
+        for (; next < trace.size() && trace[next].time_stamp <= frame;
+                ++next) {
+            const SensorSample& sample = trace[next];
+            live.rig.setRotationSensorData(sample.time_stamp,
+                    sample.rotation.w, sample.rotation.x, sample.rotation.y,
+                    sample.rotation.z, sample.gyro.x, sample.gyro.y,
+                    sample.gyro.z);
+        }
+        if (poses.size() == 120) {
+            live.rig.resetYaw();
+        }
+        const float display_times[] = { 4.0f / 60.0f, 3.5f / 60.0f };
+        for (int eye = 0; eye < 2; ++eye) {
+            live.rig.predict(display_times[eye],
+                    live.rig.rotation_sensor_data(),
+                    frame + eye * FRAME / 2);
+            HeadPose pose = { live.head_transform.rotation(),
+                    live.head_transform.position() };
+            poses.push_back(pose);
+        }
+    }
+    live.rig.stopRecording();
+    return poses;
+}
+
+// The head pose after each frame of the trace at path
+std::vector<HeadPose> replayTrace(const std::string& path,
+        CameraRig::CameraRigType type) {
+    TracedRig replayed(type);
+    std::vector<HeadPose> poses;
+    SensorTraceReader reader;
+    if (!reader.open(path)) {
+        return poses;
+    }
+    SensorTraceReplay replay(reader);
+    while (replay.step(replayed.rig)) {
+        HeadPose pose = { replayed.head_transform.rotation(),
+                replayed.head_transform.position() };
+        poses.push_back(pose);
+    }
+    return poses;
+}
+
+long fileSize(const std::string& path) {
+    FILE* file = fopen(path.c_str(), "rb");
+    if (file == 0) {
+        return -1;
+    }
+    fseek(file, 0, SEEK_END);
+    long size = ftell(file);
+    fclose(file);
+    return size;
+}
+
+std::string temporaryFile() {
+    char path[] = "/tmp/gvrf_traceXXXXXX";
+    int fd = mkstemp(path);
+    if (fd < 0) {
+        return std::string();
+    }
+    close(fd);
+    return path;
+}
+
+/*
+ * Records the synthetic trace through a camera rig of each type, replays
+ * the recording into a new rig, and fails unless the replay puts the head
+ * in exactly the pose the live rig had, frame for frame. Also fails if a
+ * file that isn't a trace is taken for one, or if a truncated trace
+ * replays anything but the frames before the cut.
+ */
+bool checkSensorTraces(const Options& options) {
+    std::vector<SensorSample> trace = syntheticTrace(options.seed, true);
+    // Two seconds are plenty
+    trace.resize(std::min<size_t>(trace.size(), 2000));
+    std::string path = temporaryFile();
+    if (path.empty()) {
+        printf("\ncannot create a temporary file\n");
+        return false;
+    }
+
+    const CameraRig::CameraRigType types[] = { CameraRig::FREE,
+            CameraRig::YAW_ONLY, CameraRig::ROLL_FREEZE,
+            CameraRig::ORBIT_PIVOT };
+    const char* names[] = { "free", "yaw only", "roll freeze",
+            "orbit pivot" };
+    bool ok = true;
+    printf("\n%-40s %8s %12s %12s\n", "sensor trace replay", "eyes",
+            "bytes/frame", "mismatches");
+    for (int index = 0; index < 4; ++index) {
+        std::vector<HeadPose> live = recordTrace(trace, types[index], path);
+        std::vector<HeadPose> replayed = replayTrace(path, types[index]);
+        int mismatches = live.size() == replayed.size() ? 0 : 1;
+        for (size_t frame = 0; mismatches == 0 && frame < live.size();
+                ++frame) {
+            if (!(live[frame] == replayed[frame])) {
+                ++mismatches;
+            }
+        }
+        ok = ok && !live.empty() && mismatches == 0;
+        printf("%-40s %8d %12.1f %12d%s\n", names[index],
+                static_cast<int>(replayed.size()),
+                live.empty() ? 0.0f : fileSize(path) * 2.0f / live.size(),
+                mismatches, mismatches != 0 ? "  UNEXPECTED" : "");
+    }
+
+    // Cut the last recording off in the middle of a record
+    std::vector<HeadPose> whole = replayTrace(path,
+            CameraRig::ORBIT_PIVOT);
+    long size = fileSize(path);
+    bool truncated = size > 0 && truncate(path.c_str(), size / 2 + 3) == 0;
+    std::vector<HeadPose> cut = replayTrace(path, CameraRig::ORBIT_PIVOT);
+    truncated = truncated && !cut.empty() && cut.size() < whole.size()
+            && std::equal(cut.begin(), cut.end(), whole.begin());
+    printf("%-40s %8d%s\n", "truncated, half", static_cast<int>(cut.size()),
+            truncated ? "" : "  UNEXPECTED");
+
+    FILE* file = fopen(path.c_str(), "w");
+    bool rejected = false;
+    if (file != 0) {
+        fputs("# not a binary trace\n", file);
+        fclose(file);
+        SensorTraceReader reader;
+        rejected = !reader.open(path);
+    }
+    printf("%-40s %8s%s\n", "not a trace", rejected ? "rejected" : "read",
+            rejected ? "" : "  UNEXPECTED");
+    unlink(path.c_str());
+
+    return ok && truncated && rejected;
+}
+
+void usage(const char* program) {
+    printf("usage: %s [options]\n"
+            "\n"
+            "  --objects N    objects in the scene (10000)\n"
+            "  --depth D      levels in the scene graph; 1 is flat (4)\n"
+            "  --frames F     timed frames per benchmark (100)\n"
+            "  --segments S   the shared sphere mesh is S by S quads (8)\n"
+            "  --seed N       for the scene layout and sensor noise (1)\n"
+            "  --trace FILE   also replay a recorded rotation sensor trace,"
+            " text or binary\n"
+            "  --golden DIR   the fused post effect shaders' golden sources"
+            " (golden/)\n"
+            "  --write-golden rewrite the golden sources instead of checking"
+            " them\n"
+            "\n"
+            "For example, --objects 50000 --depth 8 for a large, deep"
+            " scene.\n", program);
+}
+
+bool parse(int argc, char** argv, Options& options) {
+    for (int index = 1; index < argc; ++index) {
+        std::string option(argv[index]);
+        if (option == "--write-golden") {
+            options.write_golden = true;
+            continue;
+        }
+        if (index + 1 >= argc) {
+            return false;
+        }
+        if (option == "--trace") {
+            options.trace = argv[++index];
+            continue;
+        }
+        if (option == "--golden") {
+            options.golden = argv[++index];
+            continue;
+        }
+        int value = atoi(argv[++index]);
+        if (value <= 0) {
+            return false;
+        }
+        if (option == "--objects") {
+            options.objects = value;
+        } else if (option == "--depth") {
+            options.depth = value;
+        } else if (option == "--frames") {
+            options.frames = value;
+        } else if (option == "--segments") {
+            options.segments = value;
+        } else if (option == "--seed") {
+            options.seed = value;
+        } else {
+            return false;
+        }
+    }
+    // Vertex indices are 16 bits
+    return (options.segments + 1) * (options.segments + 1) <= 65536;
+}
+
+}
+}
+
+int main(int argc, char** argv) {
+    using namespace gvr;
+
+    Options options;
+    if (!parse(argc, argv, options)) {
+        usage(argv[0]);
+        return 1;
+    }
+
+    SyntheticScene scene(options);
+    int objects = scene.size();
+    printf("%d objects, %d levels, %d triangles per mesh, %d frames\n\n",
+            objects, scene.levels(), scene.triangles(), options.frames);
+    printf("%-44s %12s %14s %14s\n", "benchmark", "ns/object", "allocs/frame",
+            "bytes/frame");
+
+    FlattenSceneCopy flatten_copy(scene);
+    run(flatten_copy, options.frames, objects);
+    FlattenScene flatten(scene);
+    run(flatten, options.frames, objects);
+    FlattenSceneCached flatten_cached(scene);
+    run(flatten_cached, options.frames, objects);
+
+    InvalidateTransforms invalidate(scene);
+    run(invalidate, options.frames, objects);
+    LazyModelMatrices lazy_matrices(scene);
+    run(lazy_matrices, options.frames, objects);
+    CachedModelMatrices cached_matrices(scene);
+    run(cached_matrices, options.frames, objects);
+    UpdateTransforms update_all(scene, 1,
+            "Scene::updateTransforms (all dirty)");
+    run(update_all, options.frames, objects);
+    UpdateTransforms update_some(scene, 100,
+            "Scene::updateTransforms (1% dirty)");
+    run(update_some, options.frames, objects);
+    UpdateTransforms update_none(scene, 0,
+            "Scene::updateTransforms (none dirty)");
+    run(update_none, options.frames, objects);
+
+    Cull cull_static(scene, false);
+    run(cull_static, options.frames, objects);
+    Cull cull_moving(scene, true);
+    run(cull_moving, options.frames, objects);
+
+    CullInputs inputs(scene);
+    BuildFrustum build_frustum(inputs);
+    run(build_frustum, options.frames, objects);
+    CubeInFrustum cube_in_frustum(scene, inputs);
+    run(cube_in_frustum, options.frames, objects);
+    MeshBoundingVolume bounding_volume(scene);
+    run(bounding_volume, options.frames, objects);
+    TransformedBoundingBox transformed_box(scene, inputs);
+    run(transformed_box, options.frames, objects);
+    IsPointed is_pointed(scene, inputs);
+    run(is_pointed, options.frames, objects);
+    SortRenderData sort(inputs, options.seed);
+    run(sort, options.frames, objects);
+
+    VertexLayout compact;
+    compact.interleaved = true;
+    compact.normal_format = VertexLayout::NORMAL_INT_2_10_10_10;
+    compact.tex_coord_format = VertexLayout::TEX_COORD_HALF_FLOAT;
+    compact.color_key = SyntheticScene::COLOR_KEY;
+    PackVertices pack(scene, compact);
+    run(pack, options.frames, scene.mesh()->vertices().size());
+
+    CollisionObjects collision_objects(scene, options.seed);
+    OverlappingPairs sweep(collision_objects, true);
+    run(sweep, options.frames, collision_objects.objects().size());
+    OverlappingPairs every_pair(collision_objects, false);
+    run(every_pair, options.frames, collision_objects.objects().size());
+
+    // Flattening again on a 50000-object graph, whatever --objects says
+    {
+        Options large_options(options);
+        large_options.objects = LARGE_SCENE_OBJECTS;
+        SyntheticScene large(large_options);
+        printf("\n%d objects, %d levels\n", large.size(), large.levels());
+        FlattenSceneCopy large_copy(large);
+        run(large_copy, options.frames, large.size());
+        FlattenScene large_flatten(large);
+        run(large_flatten, options.frames, large.size());
+        FlattenSceneCached large_cached(large);
+        run(large_cached, options.frames, large.size());
+    }
+
+    bool flattening = checkSceneFlattening(scene, options.seed);
+    bool transforms = checkTransformUpdates(scene, options.seed);
+    bool collisions = checkCollisionWorld(collision_objects, options.seed);
+    bool instances = checkInstanceBuffer(scene);
+    bool occlusion = checkOcclusionBuffer();
+    bool layouts = checkVertexLayouts(scene);
+    bool post_effects = checkPostEffects(scene, options);
+    bool shader_caches = checkShaderCaches(scene);
+    bool prediction = checkHeadPosePrediction(options);
+    bool traces = checkSensorTraces(options);
+    return flattening && transforms && collisions && instances && occlusion
+            && layouts && post_effects && shader_caches && prediction
+            && traces ? 0 : 1;
+}
@@ -0,0 +1,40 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* Host stand-in for <EGL/egl.h>: the types, and eglGetProcAddress(). */
+
+#ifndef __egl_h_
+#define __egl_h_
+
+#include <stdint.h>
+
+typedef int32_t EGLint;
+typedef unsigned int EGLBoolean;
+typedef void* EGLConfig;
+typedef void* EGLContext;
+typedef void* EGLDisplay;
+typedef void* EGLSurface;
+
+#ifdef __cplusplus
+extern "C" {
+#endif
+
+void (*eglGetProcAddress(const char* procname))();
+
+#ifdef __cplusplus
+}
+#endif
+
+#endif
@@ -0,0 +1,37 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* Host stand-in for <GLES2/gl2ext.h>: the extensions the framework uses. */
+
+#ifndef __gl2ext_h_
+#define __gl2ext_h_
+
+#include "GLES3/gl3.h"
+
+#define GL_TEXTURE_MAX_ANISOTROPY_EXT 0x84FE
+#define GL_MAX_TEXTURE_MAX_ANISOTROPY_EXT 0x84FF
+#define GL_TEXTURE_EXTERNAL_OES 0x8D65
+
+typedef void (GL_APIENTRYP PFNGLRENDERBUFFERSTORAGEMULTISAMPLEIMG)(
+        GLenum target, GLsizei samples, GLenum internalformat, GLsizei width,
+        GLsizei height);
+typedef void (GL_APIENTRYP PFNGLFRAMEBUFFERTEXTURE2DMULTISAMPLEIMG)(
+        GLenum target, GLenum attachment, GLenum textarget, GLuint texture,
+        GLint level, GLsizei samples);
+typedef void (GL_APIENTRYP PFNGLSTARTTILINGQCOMPROC)(GLuint x, GLuint y,
+        GLuint width, GLuint height, GLbitfield preserveMask);
+typedef void (GL_APIENTRYP PFNGLENDTILINGQCOMPROC)(GLbitfield preserveMask);
+
+#endif
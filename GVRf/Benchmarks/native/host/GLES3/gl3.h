@@ -0,0 +1,275 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/***************************************************************************
+ * Host stand-in for <GLES3/gl3.h>: the types, and only the constants and
+ * entry points the framework sources use. The entry points are no-ops,
+ * defined in host_stubs.cpp.
+ ***************************************************************************/
+
+#ifndef __gl3_h_
+#define __gl3_h_
+
+#include <stddef.h>
+#include <stdint.h>
+
+#define GL_APIENTRY
+#define GL_APIENTRYP GL_APIENTRY*
+
+typedef void GLvoid;
+typedef char GLchar;
+typedef unsigned int GLenum;
+typedef unsigned char GLboolean;
+typedef unsigned int GLbitfield;
+typedef signed char GLbyte;
+typedef short GLshort;
+typedef int GLint;
+typedef int GLsizei;
+typedef unsigned char GLubyte;
+typedef unsigned short GLushort;
+typedef unsigned int GLuint;
+typedef float GLfloat;
+typedef float GLclampf;
+typedef int32_t GLfixed;
+typedef intptr_t GLintptr;
+typedef intptr_t GLsizeiptr;
+typedef int64_t GLint64;
+typedef uint64_t GLuint64;
+
+#define GL_ES_VERSION_2_0 1
+#define GL_ES_VERSION_3_0 1
+
+#define GL_FALSE 0
+#define GL_TRUE 1
+#define GL_NO_ERROR 0
+#define GL_ZERO 0
+#define GL_ONE 1
+
+#define GL_DEPTH_BUFFER_BIT 0x00000100
+#define GL_COLOR_BUFFER_BIT 0x00004000
+#define GL_MAP_READ_BIT 0x0001
+
+#define GL_POINTS 0x0000
+#define GL_LINES 0x0001
+#define GL_LINE_LOOP 0x0002
+#define GL_LINE_STRIP 0x0003
+#define GL_TRIANGLES 0x0004
+#define GL_TRIANGLE_STRIP 0x0005
+#define GL_TRIANGLE_FAN 0x0006
+
+#define GL_LEQUAL 0x0203
+#define GL_SRC_ALPHA 0x0302
+#define GL_ONE_MINUS_SRC_ALPHA 0x0303
+#define GL_FRONT 0x0404
+#define GL_BACK 0x0405
+#define GL_CW 0x0900
+#define GL_CCW 0x0901
+#define GL_CULL_FACE 0x0B44
+#define GL_DEPTH_TEST 0x0B71
+#define GL_VIEWPORT 0x0BA2
+#define GL_BLEND 0x0BE2
+#define GL_SCISSOR_BOX 0x0C10
+#define GL_UNPACK_ALIGNMENT 0x0CF5
+#define GL_PACK_ALIGNMENT 0x0D05
+#define GL_TEXTURE_2D 0x0DE1
+#define GL_BYTE 0x1400
+#define GL_UNSIGNED_BYTE 0x1401
+#define GL_UNSIGNED_SHORT 0x1403
+#define GL_UNSIGNED_INT 0x1405
+#define GL_FLOAT 0x1406
+#define GL_HALF_FLOAT 0x140B
+#define GL_RGB 0x1907
+#define GL_RGBA 0x1908
+#define GL_LUMINANCE 0x1909
+#define GL_VENDOR 0x1F00
+#define GL_RENDERER 0x1F01
+#define GL_VERSION 0x1F02
+#define GL_NEAREST 0x2600
+#define GL_LINEAR 0x2601
+#define GL_TEXTURE_MAG_FILTER 0x2800
+#define GL_TEXTURE_MIN_FILTER 0x2801
+#define GL_TEXTURE_WRAP_S 0x2802
+#define GL_TEXTURE_WRAP_T 0x2803
+#define GL_REPEAT 0x2901
+#define GL_FUNC_ADD 0x8006
+#define GL_POLYGON_OFFSET_FILL 0x8037
+#define GL_CLAMP_TO_EDGE 0x812F
+#define GL_DEPTH_COMPONENT16 0x81A5
+#define GL_RG 0x8227
+#define GL_RG32F 0x8230
+#define GL_PROGRAM_BINARY_RETRIEVABLE_HINT 0x8257
+#define GL_TEXTURE0 0x84C0
+#define GL_TEXTURE1 0x84C1
+#define GL_TEXTURE2 0x84C2
+#define GL_TEXTURE3 0x84C3
+#define GL_TEXTURE4 0x84C4
+#define GL_TEXTURE5 0x84C5
+#define GL_TEXTURE6 0x84C6
+#define GL_TEXTURE7 0x84C7
+#define GL_TEXTURE8 0x84C8
+#define GL_TEXTURE9 0x84C9
+#define GL_TEXTURE10 0x84CA
+#define GL_TEXTURE_CUBE_MAP 0x8513
+#define GL_TEXTURE_CUBE_MAP_POSITIVE_X 0x8515
+#define GL_PROGRAM_BINARY_LENGTH 0x8741
+#define GL_NUM_PROGRAM_BINARY_FORMATS 0x87FE
+#define GL_QUERY_RESULT 0x8866
+#define GL_QUERY_RESULT_AVAILABLE 0x8867
+#define GL_ARRAY_BUFFER 0x8892
+#define GL_ELEMENT_ARRAY_BUFFER 0x8893
+#define GL_STREAM_DRAW 0x88E0
+#define GL_STATIC_DRAW 0x88E4
+#define GL_DYNAMIC_DRAW 0x88E8
+#define GL_DYNAMIC_READ 0x88E9
+#define GL_PIXEL_PACK_BUFFER 0x88EB
+#define GL_FRAGMENT_SHADER 0x8B30
+#define GL_VERTEX_SHADER 0x8B31
+#define GL_COMPILE_STATUS 0x8B81
+#define GL_LINK_STATUS 0x8B82
+#define GL_INFO_LOG_LENGTH 0x8B84
+#define GL_ANY_SAMPLES_PASSED 0x8C2F
+#define GL_FRAMEBUFFER_BINDING 0x8CA6
+#define GL_DRAW_FRAMEBUFFER_BINDING 0x8CA6
+#define GL_READ_FRAMEBUFFER 0x8CA8
+#define GL_DRAW_FRAMEBUFFER 0x8CA9
+#define GL_COLOR_ATTACHMENT0 0x8CE0
+#define GL_DEPTH_ATTACHMENT 0x8D00
+#define GL_FRAMEBUFFER 0x8D40
+#define GL_RENDERBUFFER 0x8D41
+#define GL_INT_2_10_10_10_REV 0x8D9F
+
+#ifdef __cplusplus
+extern "C" {
+#endif
+
+void glActiveTexture(GLenum texture);
+void glAttachShader(GLuint program, GLuint shader);
+void glBeginQuery(GLenum target, GLuint id);
+void glBindAttribLocation(GLuint program, GLuint index, const GLchar* name);
+void glBindBuffer(GLenum target, GLuint buffer);
+void glBindFramebuffer(GLenum target, GLuint framebuffer);
+void glBindRenderbuffer(GLenum target, GLuint renderbuffer);
+void glBindTexture(GLenum target, GLuint texture);
+void glBindVertexArray(GLuint array);
+void glBlendEquation(GLenum mode);
+void glBlendFunc(GLenum sfactor, GLenum dfactor);
+void glBufferData(GLenum target, GLsizeiptr size, const void* data,
+        GLenum usage);
+void glBufferSubData(GLenum target, GLintptr offset, GLsizeiptr size,
+        const void* data);
+void glClear(GLbitfield mask);
+void glClearColor(GLfloat red, GLfloat green, GLfloat blue, GLfloat alpha);
+void glColorMask(GLboolean red, GLboolean green, GLboolean blue,
+        GLboolean alpha);
+void glCompileShader(GLuint shader);
+void glCompressedTexImage2D(GLenum target, GLint level, GLenum internalformat,
+        GLsizei width, GLsizei height, GLint border, GLsizei imageSize,
+        const void* data);
+GLuint glCreateProgram(void);
+GLuint glCreateShader(GLenum type);
+void glCullFace(GLenum mode);
+void glDeleteBuffers(GLsizei n, const GLuint* buffers);
+void glDeleteFramebuffers(GLsizei n, const GLuint* framebuffers);
+void glDeleteProgram(GLuint program);
+void glDeleteQueries(GLsizei n, const GLuint* ids);
+void glDeleteRenderbuffers(GLsizei n, const GLuint* renderbuffers);
+void glDeleteShader(GLuint shader);
+void glDeleteTextures(GLsizei n, const GLuint* textures);
+void glDeleteVertexArrays(GLsizei n, const GLuint* arrays);
+void glDepthFunc(GLenum func);
+void glDisable(GLenum cap);
+void glDisableVertexAttribArray(GLuint index);
+void glDrawElements(GLenum mode, GLsizei count, GLenum type,
+        const void* indices);
+void glDrawElementsInstanced(GLenum mode, GLsizei count, GLenum type,
+        const void* indices, GLsizei instancecount);
+void glEnable(GLenum cap);
+void glEnableVertexAttribArray(GLuint index);
+void glEndQuery(GLenum target);
+void glFramebufferRenderbuffer(GLenum target, GLenum attachment,
+        GLenum renderbuffertarget, GLuint renderbuffer);
+void glFramebufferTexture2D(GLenum target, GLenum attachment,
+        GLenum textarget, GLuint texture, GLint level);
+void glFrontFace(GLenum mode);
+void glGenBuffers(GLsizei n, GLuint* buffers);
+void glGenFramebuffers(GLsizei n, GLuint* framebuffers);
+void glGenQueries(GLsizei n, GLuint* ids);
+void glGenRenderbuffers(GLsizei n, GLuint* renderbuffers);
+void glGenTextures(GLsizei n, GLuint* textures);
+void glGenVertexArrays(GLsizei n, GLuint* arrays);
+void glGenerateMipmap(GLenum target);
+GLint glGetAttribLocation(GLuint program, const GLchar* name);
+GLenum glGetError(void);
+void glGetFloatv(GLenum pname, GLfloat* data);
+void glGetIntegerv(GLenum pname, GLint* data);
+void glGetProgramBinary(GLuint program, GLsizei bufSize, GLsizei* length,
+        GLenum* binaryFormat, void* binary);
+void glGetProgramInfoLog(GLuint program, GLsizei bufSize, GLsizei* length,
+        GLchar* infoLog);
+void glGetProgramiv(GLuint program, GLenum pname, GLint* params);
+void glGetQueryObjectuiv(GLuint id, GLenum pname, GLuint* params);
+void glGetShaderInfoLog(GLuint shader, GLsizei bufSize, GLsizei* length,
+        GLchar* infoLog);
+void glGetShaderiv(GLuint shader, GLenum pname, GLint* params);
+const GLubyte* glGetString(GLenum name);
+GLint glGetUniformLocation(GLuint program, const GLchar* name);
+GLboolean glIsEnabled(GLenum cap);
+void glLinkProgram(GLuint program);
+void* glMapBufferRange(GLenum target, GLintptr offset, GLsizeiptr length,
+        GLbitfield access);
+void glPixelStorei(GLenum pname, GLint param);
+void glPolygonOffset(GLfloat factor, GLfloat units);
+void glProgramBinary(GLuint program, GLenum binaryFormat, const void* binary,
+        GLsizei length);
+void glProgramParameteri(GLuint program, GLenum pname, GLint value);
+void glReadBuffer(GLenum src);
+void glReadPixels(GLint x, GLint y, GLsizei width, GLsizei height,
+        GLenum format, GLenum type, void* pixels);
+void glRenderbufferStorage(GLenum target, GLenum internalformat,
+        GLsizei width, GLsizei height);
+void glRenderbufferStorageMultisample(GLenum target, GLsizei samples,
+        GLenum internalformat, GLsizei width, GLsizei height);
+void glScissor(GLint x, GLint y, GLsizei width, GLsizei height);
+void glShaderSource(GLuint shader, GLsizei count,
+        const GLchar* const * string, const GLint* length);
+void glTexImage2D(GLenum target, GLint level, GLint internalformat,
+        GLsizei width, GLsizei height, GLint border, GLenum format,
+        GLenum type, const void* pixels);
+void glTexParameterf(GLenum target, GLenum pname, GLfloat param);
+void glTexParameteri(GLenum target, GLenum pname, GLint param);
+void glTexSubImage2D(GLenum target, GLint level, GLint xoffset,
+        GLint yoffset, GLsizei width, GLsizei height, GLenum format,
+        GLenum type, const void* pixels);
+void glUniform1f(GLint location, GLfloat v0);
+void glUniform1i(GLint location, GLint v0);
+void glUniform2f(GLint location, GLfloat v0, GLfloat v1);
+void glUniform3f(GLint location, GLfloat v0, GLfloat v1, GLfloat v2);
+void glUniform4f(GLint location, GLfloat v0, GLfloat v1, GLfloat v2,
+        GLfloat v3);
+void glUniformMatrix4fv(GLint location, GLsizei count, GLboolean transpose,
+        const GLfloat* value);
+GLboolean glUnmapBuffer(GLenum target);
+void glUseProgram(GLuint program);
+void glVertexAttrib4fv(GLuint index, const GLfloat* v);
+void glVertexAttribDivisor(GLuint index, GLuint divisor);
+void glVertexAttribPointer(GLuint index, GLint size, GLenum type,
+        GLboolean normalized, GLsizei stride, const void* pointer);
+void glViewport(GLint x, GLint y, GLsizei width, GLsizei height);
+
+#ifdef __cplusplus
+}
+#endif
+
+#endif
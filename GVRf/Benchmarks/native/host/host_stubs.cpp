@@ -0,0 +1,304 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/***************************************************************************
+ * No-op definitions of the GL, EGL, log and bitmap entry points declared by
+ * the host stand-in headers. Queries report zero, object names count up
+ * from one, and nothing is ever drawn; draw calls are only counted, in
+ * total and into one framebuffer a check can watch.
+ ***************************************************************************/
+
+#include "GLES3/gl3.h"
+#include "EGL/egl.h"
+#include "android/bitmap.h"
+#include "android/log.h"
+
+namespace host {
+long draw_calls = 0;
+GLuint watched_framebuffer = 0;
+long watched_draw_calls = 0;
+}
+
+namespace {
+GLuint next_name = 1;
+GLuint draw_framebuffer = 0;
+
+void count_draw() {
+    ++host::draw_calls;
+    if (host::watched_framebuffer != 0
+            && draw_framebuffer == host::watched_framebuffer) {
+        ++host::watched_draw_calls;
+    }
+}
+
+void gen_names(GLsizei n, GLuint* names) {
+    for (GLsizei i = 0; i < n; ++i) {
+        names[i] = next_name++;
+    }
+}
+
+void no_extension() {
+}
+}
+
+extern "C" {
+
+void glActiveTexture(GLenum) {
+}
+void glAttachShader(GLuint, GLuint) {
+}
+void glBeginQuery(GLenum, GLuint) {
+}
+void glBindAttribLocation(GLuint, GLuint, const GLchar*) {
+}
+void glBindBuffer(GLenum, GLuint) {
+}
+void glBindFramebuffer(GLenum target, GLuint framebuffer) {
+    if (target == GL_FRAMEBUFFER || target == GL_DRAW_FRAMEBUFFER) {
+        draw_framebuffer = framebuffer;
+    }
+}
+void glBindRenderbuffer(GLenum, GLuint) {
+}
+void glBindTexture(GLenum, GLuint) {
+}
+void glBindVertexArray(GLuint) {
+}
+void glBlendEquation(GLenum) {
+}
+void glBlendFunc(GLenum, GLenum) {
+}
+void glBufferData(GLenum, GLsizeiptr, const void*, GLenum) {
+}
+void glBufferSubData(GLenum, GLintptr, GLsizeiptr, const void*) {
+}
+void glClear(GLbitfield) {
+}
+void glClearColor(GLfloat, GLfloat, GLfloat, GLfloat) {
+}
+void glColorMask(GLboolean, GLboolean, GLboolean, GLboolean) {
+}
+void glCompileShader(GLuint) {
+}
+void glCompressedTexImage2D(GLenum, GLint, GLenum, GLsizei, GLsizei, GLint,
+        GLsizei, const void*) {
+}
+GLuint glCreateProgram(void) {
+    return next_name++;
+}
+GLuint glCreateShader(GLenum) {
+    return next_name++;
+}
+void glCullFace(GLenum) {
+}
+void glDeleteBuffers(GLsizei, const GLuint*) {
+}
+void glDeleteFramebuffers(GLsizei, const GLuint*) {
+}
+void glDeleteProgram(GLuint) {
+}
+void glDeleteQueries(GLsizei, const GLuint*) {
+}
+void glDeleteRenderbuffers(GLsizei, const GLuint*) {
+}
+void glDeleteShader(GLuint) {
+}
+void glDeleteTextures(GLsizei, const GLuint*) {
+}
+void glDeleteVertexArrays(GLsizei, const GLuint*) {
+}
+void glDepthFunc(GLenum) {
+}
+void glDisable(GLenum) {
+}
+void glDisableVertexAttribArray(GLuint) {
+}
+void glDrawElements(GLenum, GLsizei, GLenum, const void*) {
+    count_draw();
+}
+void glDrawElementsInstanced(GLenum, GLsizei, GLenum, const void*, GLsizei) {
+    count_draw();
+}
+void glEnable(GLenum) {
+}
+void glEnableVertexAttribArray(GLuint) {
+}
+void glEndQuery(GLenum) {
+}
+void glFramebufferRenderbuffer(GLenum, GLenum, GLenum, GLuint) {
+}
+void glFramebufferTexture2D(GLenum, GLenum, GLenum, GLuint, GLint) {
+}
+void glFrontFace(GLenum) {
+}
+void glGenBuffers(GLsizei n, GLuint* buffers) {
+    gen_names(n, buffers);
+}
+void glGenFramebuffers(GLsizei n, GLuint* framebuffers) {
+    gen_names(n, framebuffers);
+}
+void glGenQueries(GLsizei n, GLuint* ids) {
+    gen_names(n, ids);
+}
+void glGenRenderbuffers(GLsizei n, GLuint* renderbuffers) {
+    gen_names(n, renderbuffers);
+}
+void glGenTextures(GLsizei n, GLuint* textures) {
+    gen_names(n, textures);
+}
+void glGenVertexArrays(GLsizei n, GLuint* arrays) {
+    gen_names(n, arrays);
+}
+void glGenerateMipmap(GLenum) {
+}
+GLint glGetAttribLocation(GLuint, const GLchar*) {
+    return 0;
+}
+GLenum glGetError(void) {
+    return GL_NO_ERROR;
+}
+void glGetFloatv(GLenum, GLfloat* data) {
+    *data = 0;
+}
+void glGetIntegerv(GLenum pname, GLint* data) {
+    switch (pname) {
+    case GL_VIEWPORT:
+    case GL_SCISSOR_BOX:
+        data[0] = data[1] = data[2] = data[3] = 0;
+        break;
+    default:
+        *data = 0;
+        break;
+    }
+}
+void glGetProgramBinary(GLuint, GLsizei, GLsizei* length, GLenum*, void*) {
+    if (length != 0) {
+        *length = 0;
+    }
+}
+void glGetProgramInfoLog(GLuint, GLsizei, GLsizei* length, GLchar* infoLog) {
+    if (length != 0) {
+        *length = 0;
+    }
+    infoLog[0] = 0;
+}
+void glGetProgramiv(GLuint, GLenum pname, GLint* params) {
+    *params = pname == GL_LINK_STATUS ? GL_TRUE : 0;
+}
+void glGetQueryObjectuiv(GLuint, GLenum, GLuint* params) {
+    *params = 0;
+}
+const GLubyte* glGetString(GLenum) {
+    return reinterpret_cast<const GLubyte*>("host");
+}
+void glGetShaderInfoLog(GLuint, GLsizei, GLsizei* length, GLchar* infoLog) {
+    if (length != 0) {
+        *length = 0;
+    }
+    infoLog[0] = 0;
+}
+void glGetShaderiv(GLuint, GLenum pname, GLint* params) {
+    *params = pname == GL_COMPILE_STATUS ? GL_TRUE : 0;
+}
+GLint glGetUniformLocation(GLuint, const GLchar*) {
+    return 0;
+}
+GLboolean glIsEnabled(GLenum) {
+    return GL_FALSE;
+}
+void glLinkProgram(GLuint) {
+}
+void* glMapBufferRange(GLenum, GLintptr, GLsizeiptr, GLbitfield) {
+    return 0;
+}
+void glPixelStorei(GLenum, GLint) {
+}
+void glPolygonOffset(GLfloat, GLfloat) {
+}
+void glProgramBinary(GLuint, GLenum, const void*, GLsizei) {
+}
+void glProgramParameteri(GLuint, GLenum, GLint) {
+}
+void glReadBuffer(GLenum) {
+}
+void glReadPixels(GLint, GLint, GLsizei, GLsizei, GLenum, GLenum, void*) {
+}
+void glRenderbufferStorage(GLenum, GLenum, GLsizei, GLsizei) {
+}
+void glRenderbufferStorageMultisample(GLenum, GLsizei, GLenum, GLsizei,
+        GLsizei) {
+}
+void glScissor(GLint, GLint, GLsizei, GLsizei) {
+}
+void glShaderSource(GLuint, GLsizei, const GLchar* const *, const GLint*) {
+}
+void glTexImage2D(GLenum, GLint, GLint, GLsizei, GLsizei, GLint, GLenum,
+        GLenum, const void*) {
+}
+void glTexParameterf(GLenum, GLenum, GLfloat) {
+}
+void glTexParameteri(GLenum, GLenum, GLint) {
+}
+void glTexSubImage2D(GLenum, GLint, GLint, GLint, GLsizei, GLsizei, GLenum,
+        GLenum, const void*) {
+}
+void glUniform1f(GLint, GLfloat) {
+}
+void glUniform1i(GLint, GLint) {
+}
+void glUniform2f(GLint, GLfloat, GLfloat) {
+}
+void glUniform3f(GLint, GLfloat, GLfloat, GLfloat) {
+}
+void glUniform4f(GLint, GLfloat, GLfloat, GLfloat, GLfloat) {
+}
+void glUniformMatrix4fv(GLint, GLsizei, GLboolean, const GLfloat*) {
+}
+GLboolean glUnmapBuffer(GLenum) {
+    return GL_TRUE;
+}
+void glUseProgram(GLuint) {
+}
+void glVertexAttrib4fv(GLuint, const GLfloat*) {
+}
+void glVertexAttribDivisor(GLuint, GLuint) {
+}
+void glVertexAttribPointer(GLuint, GLint, GLenum, GLboolean, GLsizei,
+        const void*) {
+}
+void glViewport(GLint, GLint, GLsizei, GLsizei) {
+}
+
+void (*eglGetProcAddress(const char*))() {
+    // Callers cast this to the extension's own signature; every argument
+    // is ignored
+    return no_extension;
+}
+
+int __android_log_print(int, const char*, const char*, ...) {
+    return 0;
+}
+
+int AndroidBitmap_getInfo(JNIEnv*, jobject, AndroidBitmapInfo*) {
+    return ANDROID_BITMAP_RESULT_BAD_PARAMETER;
+}
+int AndroidBitmap_lockPixels(JNIEnv*, jobject, void**) {
+    return ANDROID_BITMAP_RESULT_BAD_PARAMETER;
+}
+int AndroidBitmap_unlockPixels(JNIEnv*, jobject) {
+    return ANDROID_BITMAP_RESULT_BAD_PARAMETER;
+}
+
+}
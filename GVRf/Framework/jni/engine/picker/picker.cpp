@@ -41,9 +41,10 @@ Picker::~Picker() {
 
 std::vector<EyePointeeHolder*> Picker::pickScene(Scene* scene, float ox,
         float oy, float oz, float dx, float dy, float dz) {
-    std::vector<SceneObject*> scene_objects = scene->getWholeSceneObjects();
+    std::shared_ptr<const std::vector<SceneObject*>> scene_objects =
+            scene->getWholeSceneObjects();
     std::vector<EyePointeeHolder*> eye_pointee_holders;
-    for (auto it = scene_objects.begin(); it != scene_objects.end(); ++it) {
+    for (auto it = scene_objects->begin(); it != scene_objects->end(); ++it) {
         EyePointeeHolder* eye_pointee_holder = (*it)->eye_pointee_holder();
         if (eye_pointee_holder != 0 && eye_pointee_holder->enable()) {
             eye_pointee_holders.push_back(eye_pointee_holder);
@@ -0,0 +1,400 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/***************************************************************************
+ * A small CPU depth buffer for occlusion culling in the same frame.
+ ***************************************************************************/
+
+#include "occlusion_buffer.h"
+
+#include <algorithm>
+#include <cmath>
+
+#if defined(__ARM_NEON__) || defined(__ARM_NEON)
+#include <arm_neon.h>
+#define OCCLUSION_NEON 1
+#elif defined(__SSE2__)
+#include <emmintrin.h>
+#define OCCLUSION_SSE2 1
+#endif
+
+namespace gvr {
+
+namespace {
+
+// Points closer than this, in clip-space w, count as behind the camera
+const float MIN_W = 1e-5f;
+
+/*
+ * Four pixels' worth of floats, and the few operations the inner loops need
+ */
+#if OCCLUSION_NEON
+typedef float32x4_t Quad;
+inline Quad quad(float value) { return vdupq_n_f32(value); }
+inline Quad quad(float a, float b, float c, float d) {
+    float values[4] = { a, b, c, d };
+    return vld1q_f32(values);
+}
+inline Quad load(const float* p) { return vld1q_f32(p); }
+inline void store(float* p, Quad q) { vst1q_f32(p, q); }
+inline Quad add(Quad a, Quad b) { return vaddq_f32(a, b); }
+inline Quad mul(Quad a, Quad b) { return vmulq_f32(a, b); }
+// min(depth, z) where all three edges are >= 0; depth elsewhere
+inline Quad depthTest(Quad depth, Quad z, Quad e0, Quad e1, Quad e2) {
+    Quad zero = vdupq_n_f32(0.0f);
+    uint32x4_t inside = vandq_u32(vandq_u32(vcgeq_f32(e0, zero),
+            vcgeq_f32(e1, zero)), vcgeq_f32(e2, zero));
+    return vbslq_f32(inside, vminq_f32(depth, z), depth);
+}
+// Is any lane of a >= b?
+inline bool anyGreaterEqual(Quad a, Quad b) {
+    uint32x4_t ge = vcgeq_f32(a, b);
+    uint32x2_t folded = vorr_u32(vget_low_u32(ge), vget_high_u32(ge));
+    return (vget_lane_u32(folded, 0) | vget_lane_u32(folded, 1)) != 0;
+}
+#elif OCCLUSION_SSE2
+typedef __m128 Quad;
+inline Quad quad(float value) { return _mm_set1_ps(value); }
+inline Quad quad(float a, float b, float c, float d) {
+    return _mm_setr_ps(a, b, c, d);
+}
+inline Quad load(const float* p) { return _mm_loadu_ps(p); }
+inline void store(float* p, Quad q) { _mm_storeu_ps(p, q); }
+inline Quad add(Quad a, Quad b) { return _mm_add_ps(a, b); }
+inline Quad mul(Quad a, Quad b) { return _mm_mul_ps(a, b); }
+inline Quad depthTest(Quad depth, Quad z, Quad e0, Quad e1, Quad e2) {
+    Quad zero = _mm_setzero_ps();
+    Quad inside = _mm_and_ps(_mm_and_ps(_mm_cmpge_ps(e0, zero),
+            _mm_cmpge_ps(e1, zero)), _mm_cmpge_ps(e2, zero));
+    return _mm_or_ps(_mm_and_ps(inside, _mm_min_ps(depth, z)),
+            _mm_andnot_ps(inside, depth));
+}
+inline bool anyGreaterEqual(Quad a, Quad b) {
+    return _mm_movemask_ps(_mm_cmpge_ps(a, b)) != 0;
+}
+#else
+struct Quad {
+    float v[4];
+};
+inline Quad quad(float value) {
+    Quad q = { { value, value, value, value } };
+    return q;
+}
+inline Quad quad(float a, float b, float c, float d) {
+    Quad q = { { a, b, c, d } };
+    return q;
+}
+inline Quad load(const float* p) { return quad(p[0], p[1], p[2], p[3]); }
+inline void store(float* p, Quad q) {
+    for (int i = 0; i < 4; ++i) p[i] = q.v[i];
+}
+inline Quad add(Quad a, Quad b) {
+    for (int i = 0; i < 4; ++i) a.v[i] += b.v[i];
+    return a;
+}
+inline Quad mul(Quad a, Quad b) {
+    for (int i = 0; i < 4; ++i) a.v[i] *= b.v[i];
+    return a;
+}
+inline Quad depthTest(Quad depth, Quad z, Quad e0, Quad e1, Quad e2) {
+    for (int i = 0; i < 4; ++i) {
+        if (e0.v[i] >= 0 && e1.v[i] >= 0 && e2.v[i] >= 0) {
+            depth.v[i] = std::min(depth.v[i], z.v[i]);
+        }
+    }
+    return depth;
+}
+inline bool anyGreaterEqual(Quad a, Quad b) {
+    for (int i = 0; i < 4; ++i) {
+        if (a.v[i] >= b.v[i]) return true;
+    }
+    return false;
+}
+#endif
+
+/*
+ * Edge function of a -> b: A * x + B * y + C, positive on the inside of a
+ * counter-clockwise triangle
+ */
+struct Edge {
+    float a, b, c;
+
+    Edge(float ax, float ay, float bx, float by) :
+            a(ay - by), b(bx - ax), c(ax * by - ay * bx) {
+    }
+
+    float at(float x, float y) const {
+        return a * x + b * y + c;
+    }
+};
+
+}
+
+OcclusionBuffer::OcclusionBuffer(int width, int height) :
+        tiles_x_((width + TILE_SIZE - 1) / TILE_SIZE), tiles_y_(
+                (height + TILE_SIZE - 1) / TILE_SIZE) {
+    width_ = tiles_x_ * TILE_SIZE;
+    height_ = tiles_y_ * TILE_SIZE;
+    depth_.resize(width_ * height_);
+    bins_.resize(tile_count());
+    clear();
+}
+
+void OcclusionBuffer::clear() {
+    std::fill(depth_.begin(), depth_.end(), 1.0f);
+    triangles_.clear();
+    for (auto it = bins_.begin(); it != bins_.end(); ++it) {
+        it->clear();
+    }
+}
+
+void OcclusionBuffer::addOccluder(const glm::mat4& mvp_matrix,
+        const std::vector<glm::vec3>& vertices,
+        const std::vector<unsigned short>& triangles) {
+    projected_.resize(vertices.size());
+    for (int i = 0; i < vertices.size(); ++i) {
+        projected_[i] = mvp_matrix * glm::vec4(vertices[i], 1.0f);
+    }
+
+    for (int index = 0; index + 2 < triangles.size(); index += 3) {
+        glm::vec4 clip[3];
+        bool usable = true;
+        int behind = 0;
+        for (int corner = 0; corner < 3; ++corner) {
+            unsigned short vertex = triangles[index + corner];
+            if (vertex >= projected_.size()) {
+                usable = false;
+                break;
+            }
+            clip[corner] = projected_[vertex];
+            if (clip[corner].z < -clip[corner].w) {
+                ++behind;
+            }
+        }
+        if (!usable || behind == 3) {
+            continue;
+        }
+        if (behind == 0) {
+            binTriangle(clip[0], clip[1], clip[2]);
+            continue;
+        }
+
+        // Clip to the near plane, z = -w: what is left is a triangle or a
+        // quad, in the same winding
+        glm::vec4 polygon[4];
+        int count = 0;
+        for (int corner = 0; corner < 3; ++corner) {
+            const glm::vec4& a = clip[corner];
+            const glm::vec4& b = clip[(corner + 1) % 3];
+            float distance_a = a.z + a.w;
+            float distance_b = b.z + b.w;
+            if (distance_a >= 0) {
+                polygon[count++] = a;
+            }
+            if ((distance_a >= 0) != (distance_b >= 0)) {
+                float t = distance_a / (distance_a - distance_b);
+                polygon[count++] = a + (b - a) * t;
+            }
+        }
+        for (int corner = 2; corner < count; ++corner) {
+            binTriangle(polygon[0], polygon[corner - 1], polygon[corner]);
+        }
+    }
+}
+
+void OcclusionBuffer::binTriangle(const glm::vec4& a, const glm::vec4& b,
+        const glm::vec4& c) {
+    const glm::vec4* clip[3] = { &a, &b, &c };
+    ScreenTriangle triangle;
+    for (int corner = 0; corner < 3; ++corner) {
+        // Only a degenerate projection puts the near plane at or behind
+        // the eye; skipping an occluder triangle is always safe
+        if (clip[corner]->w < MIN_W) {
+            return;
+        }
+        float inverse_w = 1.0f / clip[corner]->w;
+        triangle.x[corner] = (clip[corner]->x * inverse_w * 0.5f + 0.5f)
+                * width_;
+        triangle.y[corner] = (clip[corner]->y * inverse_w * 0.5f + 0.5f)
+                * height_;
+        triangle.z[corner] = clip[corner]->z * inverse_w * 0.5f + 0.5f;
+    }
+
+    // Make every triangle counter-clockwise, so both sides occlude
+    float area = (triangle.x[1] - triangle.x[0])
+            * (triangle.y[2] - triangle.y[0])
+            - (triangle.x[2] - triangle.x[0])
+                    * (triangle.y[1] - triangle.y[0]);
+    if (area == 0.0f) {
+        return;
+    }
+    if (area < 0.0f) {
+        std::swap(triangle.x[1], triangle.x[2]);
+        std::swap(triangle.y[1], triangle.y[2]);
+        std::swap(triangle.z[1], triangle.z[2]);
+    }
+
+    float min_x = std::min(triangle.x[0],
+            std::min(triangle.x[1], triangle.x[2]));
+    float max_x = std::max(triangle.x[0],
+            std::max(triangle.x[1], triangle.x[2]));
+    float min_y = std::min(triangle.y[0],
+            std::min(triangle.y[1], triangle.y[2]));
+    float max_y = std::max(triangle.y[0],
+            std::max(triangle.y[1], triangle.y[2]));
+    if (max_x < 0 || max_y < 0 || min_x >= width_ || min_y >= height_) {
+        return;
+    }
+
+    int first_tile_x = std::max(0, static_cast<int>(min_x) / TILE_SIZE);
+    int last_tile_x = std::min(tiles_x_ - 1,
+            static_cast<int>(max_x) / TILE_SIZE);
+    int first_tile_y = std::max(0, static_cast<int>(min_y) / TILE_SIZE);
+    int last_tile_y = std::min(tiles_y_ - 1,
+            static_cast<int>(max_y) / TILE_SIZE);
+
+    int triangle_index = triangles_.size();
+    triangles_.push_back(triangle);
+    for (int tile_y = first_tile_y; tile_y <= last_tile_y; ++tile_y) {
+        for (int tile_x = first_tile_x; tile_x <= last_tile_x; ++tile_x) {
+            bins_[tile_y * tiles_x_ + tile_x].push_back(triangle_index);
+        }
+    }
+}
+
+void OcclusionBuffer::rasterizeTiles(int first, int last) {
+    last = std::min(last, tile_count());
+    for (int tile = first; tile < last; ++tile) {
+        const std::vector<int>& bin = bins_[tile];
+        for (auto it = bin.begin(); it != bin.end(); ++it) {
+            rasterizeTriangle(triangles_[*it], tile % tiles_x_,
+                    tile / tiles_x_);
+        }
+    }
+}
+
+void OcclusionBuffer::rasterizeTriangle(const ScreenTriangle& t, int tile_x,
+        int tile_y) {
+    Edge e0(t.x[1], t.y[1], t.x[2], t.y[2]);
+    Edge e1(t.x[2], t.y[2], t.x[0], t.y[0]);
+    Edge e2(t.x[0], t.y[0], t.x[1], t.y[1]);
+    float area = e0.at(t.x[0], t.y[0]);
+
+    // Depth is a plane in screen space: interpolate it with the
+    // barycentric weights e / area
+    float z_a = (e0.a * t.z[0] + e1.a * t.z[1] + e2.a * t.z[2]) / area;
+    float z_b = (e0.b * t.z[0] + e1.b * t.z[1] + e2.b * t.z[2]) / area;
+    float z_c = (e0.c * t.z[0] + e1.c * t.z[1] + e2.c * t.z[2]) / area;
+
+    // A pixel only counts as covered if all of it is inside: each edge is
+    // tested at the pixel's corner furthest outside it, which is its center
+    // pulled in by half a pixel in x and in y. Depth is likewise taken at
+    // the corner furthest away.
+    e0.c -= 0.5f * (std::fabs(e0.a) + std::fabs(e0.b));
+    e1.c -= 0.5f * (std::fabs(e1.a) + std::fabs(e1.b));
+    e2.c -= 0.5f * (std::fabs(e2.a) + std::fabs(e2.b));
+    z_c += 0.5f * (std::fabs(z_a) + std::fabs(z_b));
+
+    // The triangle's bounds, inside the tile; x on a four-pixel boundary
+    int tile_left = tile_x * TILE_SIZE;
+    int tile_top = tile_y * TILE_SIZE;
+    int min_x = std::max(tile_left, static_cast<int>(std::floor(
+            std::min(t.x[0], std::min(t.x[1], t.x[2])))));
+    int max_x = std::min(tile_left + TILE_SIZE - 1, static_cast<int>(std::ceil(
+            std::max(t.x[0], std::max(t.x[1], t.x[2])))));
+    int min_y = std::max(tile_top, static_cast<int>(std::floor(
+            std::min(t.y[0], std::min(t.y[1], t.y[2])))));
+    int max_y = std::min(tile_top + TILE_SIZE - 1, static_cast<int>(std::ceil(
+            std::max(t.y[0], std::max(t.y[1], t.y[2])))));
+    min_x &= ~3;
+    if (min_x > max_x || min_y > max_y) {
+        return;
+    }
+
+    // Step along pixel centers, four pixels at a time
+    const Quad offsets = quad(0.5f, 1.5f, 2.5f, 3.5f);
+    const Quad e0_step = quad(e0.a * 4), e1_step = quad(e1.a * 4),
+            e2_step = quad(e2.a * 4), z_step = quad(z_a * 4);
+    const Quad e0_a = quad(e0.a), e1_a = quad(e1.a), e2_a = quad(e2.a),
+            z_a4 = quad(z_a);
+
+    for (int y = min_y; y <= max_y; ++y) {
+        float sample_y = y + 0.5f;
+        Quad x = add(quad(static_cast<float>(min_x)), offsets);
+        Quad w0 = add(mul(e0_a, x), quad(e0.b * sample_y + e0.c));
+        Quad w1 = add(mul(e1_a, x), quad(e1.b * sample_y + e1.c));
+        Quad w2 = add(mul(e2_a, x), quad(e2.b * sample_y + e2.c));
+        Quad z = add(mul(z_a4, x), quad(z_b * sample_y + z_c));
+
+        float* row = &depth_[y * width_];
+        for (int px = min_x; px <= max_x; px += 4) {
+            store(row + px, depthTest(load(row + px), z, w0, w1, w2));
+            w0 = add(w0, e0_step);
+            w1 = add(w1, e1_step);
+            w2 = add(w2, e2_step);
+            z = add(z, z_step);
+        }
+    }
+}
+
+bool OcclusionBuffer::isVisible(const glm::mat4& mvp_matrix,
+        const BoundingVolume& bounding_volume) const {
+    const glm::vec3& lo = bounding_volume.min_corner();
+    const glm::vec3& hi = bounding_volume.max_corner();
+
+    float min_x = width_, max_x = 0, min_y = height_, max_y = 0;
+    float min_z = 1.0f;
+    for (int corner = 0; corner < 8; ++corner) {
+        glm::vec4 clip = mvp_matrix
+                * glm::vec4(corner & 1 ? hi.x : lo.x, corner & 2 ? hi.y : lo.y,
+                        corner & 4 ? hi.z : lo.z, 1.0f);
+        if (clip.w < MIN_W || clip.z < -clip.w) {
+            return true; // reaches behind the near plane
+        }
+        float inverse_w = 1.0f / clip.w;
+        float x = (clip.x * inverse_w * 0.5f + 0.5f) * width_;
+        float y = (clip.y * inverse_w * 0.5f + 0.5f) * height_;
+        min_x = std::min(min_x, x);
+        max_x = std::max(max_x, x);
+        min_y = std::min(min_y, y);
+        max_y = std::max(max_y, y);
+        min_z = std::min(min_z, clip.z * inverse_w * 0.5f + 0.5f);
+    }
+
+    // Every pixel the box touches; rounding outwards only makes it more
+    // likely to find a gap
+    int left = std::max(0, static_cast<int>(std::floor(min_x)));
+    int right = std::min(width_ - 1, static_cast<int>(std::ceil(max_x)));
+    int top = std::max(0, static_cast<int>(std::floor(min_y)));
+    int bottom = std::min(height_ - 1, static_cast<int>(std::ceil(max_y)));
+    if (left > right || top > bottom) {
+        return true; // off screen: leave it to the frustum test
+    }
+
+    // Visible if the box's nearest point is in front of any pixel's depth
+    left &= ~3;
+    const Quad nearest = quad(min_z);
+    for (int y = top; y <= bottom; ++y) {
+        const float* row = &depth_[y * width_];
+        for (int x = left; x <= right; x += 4) {
+            if (anyGreaterEqual(load(row + x), nearest)) {
+                return true;
+            }
+        }
+    }
+    return false;
+}
+
+}
@@ -0,0 +1,136 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/***************************************************************************
+ * A small CPU depth buffer for occlusion culling in the same frame.
+ *
+ * Occluder meshes are projected, binned into screen tiles, and rasterized
+ * tile by tile; then each candidate's bounding box is projected, and tested
+ * against the depth in the screen rectangle it covers. Everything errs on
+ * the side of "visible": only pixels a triangle covers entirely are filled,
+ * with its farthest depth across the pixel, and boxes that cross the near
+ * plane always pass. So the pixels along an edge that two of an occluder's
+ * triangles share stay empty, and what is behind them is not culled.
+ *
+ * No GL is involved, so this runs - and can be tested - on any CPU. Inner
+ * loops work on four pixels at a time, with NEON or SSE2 when available.
+ ***************************************************************************/
+
+#ifndef OCCLUSION_BUFFER_H_
+#define OCCLUSION_BUFFER_H_
+
+#include <vector>
+
+#include "glm/glm.hpp"
+
+#include "objects/bounding_volume.h"
+
+namespace gvr {
+
+class OcclusionBuffer {
+public:
+    static const int TILE_SIZE = 32;
+
+    /*
+     * width and height are rounded up to whole tiles.
+     */
+    OcclusionBuffer(int width = 128, int height = 128);
+
+    int width() const {
+        return width_;
+    }
+
+    int height() const {
+        return height_;
+    }
+
+    int tile_count() const {
+        return tiles_x_ * tiles_y_;
+    }
+
+    /*
+     * Start a new frame: no occluders, everything at the far plane.
+     */
+    void clear();
+
+    /*
+     * Project an occluder's triangles with mvp_matrix, and bin them into
+     * tiles. Triangles that reach behind the near plane are clipped to it.
+     * Call rasterize() once every occluder has been added.
+     */
+    void addOccluder(const glm::mat4& mvp_matrix,
+            const std::vector<glm::vec3>& vertices,
+            const std::vector<unsigned short>& triangles);
+
+    /*
+     * Rasterize every tile.
+     */
+    void rasterize() {
+        rasterizeTiles(0, tile_count());
+    }
+
+    /*
+     * Rasterize tiles [first, last). Tiles don't share any state, so
+     * separate ranges can run on separate threads.
+     */
+    void rasterizeTiles(int first, int last);
+
+    /*
+     * Could any part of the bounding box, in model space, be in front of
+     * the occluders?
+     */
+    bool isVisible(const glm::mat4& mvp_matrix,
+            const BoundingVolume& bounding_volume) const;
+
+    /*
+     * Depth at a pixel, from 0 (near) to 1 (far).
+     */
+    float depth(int x, int y) const {
+        return depth_[y * width_ + x];
+    }
+
+private:
+    OcclusionBuffer(const OcclusionBuffer& occlusion_buffer);
+    OcclusionBuffer(OcclusionBuffer&& occlusion_buffer);
+    OcclusionBuffer& operator=(const OcclusionBuffer& occlusion_buffer);
+    OcclusionBuffer& operator=(OcclusionBuffer&& occlusion_buffer);
+
+    // A projected triangle: pixel coordinates and depth per corner
+    struct ScreenTriangle {
+        float x[3];
+        float y[3];
+        float z[3];
+    };
+
+    // Project a triangle that is in front of the near plane, in clip space
+    void binTriangle(const glm::vec4& a, const glm::vec4& b,
+            const glm::vec4& c);
+    void rasterizeTriangle(const ScreenTriangle& triangle, int tile_x,
+            int tile_y);
+
+private:
+    int width_;
+    int height_;
+    int tiles_x_;
+    int tiles_y_;
+    std::vector<float> depth_;
+    std::vector<ScreenTriangle> triangles_;
+    std::vector<std::vector<int>> bins_;
+    std::vector<glm::vec4> projected_;
+};
+
+}
+
+#endif
@@ -19,9 +19,14 @@
 
 #include "renderer.h"
 
+#include <algorithm>
+
 #include "glm/gtc/matrix_inverse.hpp"
+#include "glm/gtc/type_ptr.hpp"
 
 #include "eglextension/tiledrendering/tiled_rendering_enhancer.h"
+#include "engine/renderer/occlusion_buffer.h"
+#include "objects/instance_buffer.h"
 #include "objects/material.h"
 #include "objects/post_effect_data.h"
 #include "objects/scene.h"
@@ -58,6 +63,7 @@ int Renderer::getNumberTriangles() {
 }
 
 static std::vector<RenderData*> render_data_vector;
+static OcclusionBuffer occlusion_buffer;
 
 void Renderer::cull(Scene *scene, Camera *camera, ShaderManager* shader_manager) {
     glm::mat4 view_matrix = camera->getViewMatrix();
@@ -65,13 +71,21 @@ void Renderer::cull(Scene *scene, Camera *camera, ShaderManager* shader_manager)
     glm::mat4 vp_matrix = glm::mat4(projection_matrix * view_matrix);
 
     render_data_vector.clear();
-    std::vector<SceneObject*> scene_objects = scene->getWholeSceneObjects();
+    std::shared_ptr<const std::vector<SceneObject*>> scene_objects =
+            scene->getWholeSceneObjects();
+
+    // compute every dirty model matrix up front, parents first; culling
+    // reads them from the scene's contiguous copy
+    scene->updateTransforms(scene_objects);
 
     // do occlusion culling, if enabled
-    occlusion_cull(scene, scene_objects);
+    occlusion_cull(scene, *scene_objects);
+
+    // draw the occluders into the CPU depth buffer, if enabled
+    rasterize_occluders(scene, *scene_objects, vp_matrix);
 
     // do frustum culling, if enabled
-    frustum_cull(scene, camera, scene_objects, render_data_vector,
+    frustum_cull(scene, camera, *scene_objects, render_data_vector,
             vp_matrix, shader_manager);
 
     // do sorting based on render order
@@ -85,7 +99,8 @@ void Renderer::renderCamera(Scene* scene, Camera* camera, int framebufferId,
         ShaderManager* shader_manager,
         PostEffectShaderManager* post_effect_shader_manager,
         RenderTexture* post_effect_render_texture_a,
-        RenderTexture* post_effect_render_texture_b) {
+        RenderTexture* post_effect_render_texture_b,
+        RenderTexture* post_effect_render_texture_c) {
 
     numberDrawCalls = 0;
     numberTriangles = 0;
@@ -94,7 +109,15 @@ void Renderer::renderCamera(Scene* scene, Camera* camera, int framebufferId,
     glm::mat4 projection_matrix = camera->getProjectionMatrix();
     glm::mat4 vp_matrix = glm::mat4(projection_matrix * view_matrix);
 
+    // With the scene's post effects off, only overlays still run
     std::vector<PostEffectData*> post_effects = camera->post_effect_data();
+    if (!scene->get_post_effects_enabled()) {
+        post_effects.erase(
+                std::remove_if(post_effects.begin(), post_effects.end(),
+                        [](PostEffectData* post_effect) {
+                            return !post_effect->overlay();
+                        }), post_effects.end());
+    }
 
     glEnable (GL_DEPTH_TEST);
     glDepthFunc (GL_LEQUAL);
@@ -143,32 +166,37 @@ void Renderer::renderCamera(Scene* scene, Camera* camera, int framebufferId,
         glDisable(GL_DEPTH_TEST);
         glDisable(GL_CULL_FACE);
 
-        for (int i = 0; i < post_effects.size() - 1; ++i) {
-            if (i % 2 == 0) {
-                texture_render_texture = post_effect_render_texture_a;
-                target_render_texture = post_effect_render_texture_b;
+        // Runs of per-pixel effects share a pass: only the last pass draws
+        // to the screen, and the others ping-pong between textures B and C.
+        // Texture A keeps the scene, which screenshots read back.
+        const std::vector<PostEffectPass>& passes =
+                post_effect_shader_manager->getPostEffectPlan(post_effects)->passes();
+        for (int i = 0; i < passes.size(); ++i) {
+            if (i == passes.size() - 1) {
+                target_render_texture = 0;
+                glBindFramebuffer(GL_FRAMEBUFFER, framebufferId);
+                glViewport(viewportX, viewportY, viewportWidth, viewportHeight);
             } else {
-                texture_render_texture = post_effect_render_texture_b;
-                target_render_texture = post_effect_render_texture_a;
+                target_render_texture =
+                        texture_render_texture == post_effect_render_texture_b ?
+                                post_effect_render_texture_c :
+                                post_effect_render_texture_b;
+                glBindFramebuffer(GL_FRAMEBUFFER,
+                        target_render_texture->getFrameBufferId());
+                glViewport(0, 0, target_render_texture->width(),
+                        target_render_texture->height());
             }
-            glBindFramebuffer(GL_FRAMEBUFFER, framebufferId);
-            glViewport(viewportX, viewportY, viewportWidth, viewportHeight);
 
             glClear(GL_DEPTH_BUFFER_BIT | GL_COLOR_BUFFER_BIT);
-            renderPostEffectData(camera, texture_render_texture,
-                    post_effects[i], post_effect_shader_manager);
+            renderPostEffectPass(camera, texture_render_texture, post_effects,
+                    passes[i], post_effect_shader_manager);
+            texture_render_texture = target_render_texture;
         }
-
-        glBindFramebuffer(GL_FRAMEBUFFER, framebufferId);
-        glViewport(viewportX, viewportY, viewportWidth, viewportHeight);
-        glClear(GL_DEPTH_BUFFER_BIT | GL_COLOR_BUFFER_BIT);
-        renderPostEffectData(camera, texture_render_texture,
-                post_effects.back(), post_effect_shader_manager);
     }
 }
 
 void Renderer::occlusion_cull(Scene* scene,
-        std::vector<SceneObject*> scene_objects) {
+        const std::vector<SceneObject*>& scene_objects) {
 #if _GVRF_USE_GLES3_
     if (!scene->get_occlusion_culling()) {
         return;
@@ -206,12 +234,39 @@ void Renderer::occlusion_cull(Scene* scene,
 #endif
 }
 
+void Renderer::rasterize_occluders(Scene* scene,
+        const std::vector<SceneObject*>& scene_objects,
+        const glm::mat4& vp_matrix) {
+    if (!scene->get_software_occlusion_culling()) {
+        return;
+    }
+
+    const std::vector<glm::mat4>& world_matrices = scene->world_matrices();
+    occlusion_buffer.clear();
+    for (int i = 0; i < scene_objects.size(); ++i) {
+        RenderData* render_data = scene_objects[i]->render_data();
+        if (render_data == 0 || !render_data->occluder()
+                || render_data->mesh() == 0
+                || render_data->draw_mode() != GL_TRIANGLES) {
+            continue;
+        }
+        Mesh* mesh = render_data->mesh();
+        occlusion_buffer.addOccluder(
+                vp_matrix * world_matrices[i],
+                mesh->vertices(), mesh->triangles());
+    }
+    occlusion_buffer.rasterize();
+}
+
 void Renderer::frustum_cull(Scene* scene, Camera *camera,
-        std::vector<SceneObject*> scene_objects,
+        const std::vector<SceneObject*>& scene_objects,
         std::vector<RenderData*>& render_data_vector, glm::mat4 vp_matrix,
         ShaderManager* shader_manager) {
-    for (auto it = scene_objects.begin(); it != scene_objects.end(); ++it) {
-        SceneObject *scene_object = (*it);
+    // Distances are squared
+    float lod_bias = scene->get_lod_bias() * scene->get_lod_bias();
+    const std::vector<glm::mat4>& world_matrices = scene->world_matrices();
+    for (int i = 0; i < scene_objects.size(); ++i) {
+        SceneObject *scene_object = scene_objects[i];
         RenderData* render_data = scene_object->render_data();
         if (render_data == 0 || render_data->pass(0)->material() == 0) {
             continue;
@@ -220,6 +275,12 @@ void Renderer::frustum_cull(Scene* scene, Camera *camera,
         // Check for frustum culling flag
         if (!scene->get_frustum_culling()) {
             //No occlusion or frustum tests enabled
+            if (render_data->instanced() && render_data->mesh() != NULL) {
+                // Still need to pack every instance into world space
+                render_data->instance_buffer()->cull(nullptr,
+                        world_matrices[i],
+                        render_data->mesh()->getBoundingVolume());
+            }
             render_data_vector.push_back(render_data);
             continue;
         }
@@ -232,8 +293,7 @@ void Renderer::frustum_cull(Scene* scene, Camera *camera,
 
         const BoundingVolume& bounding_volume = currentMesh->getBoundingVolume();
 
-        glm::mat4 model_matrix_tmp(
-                render_data->owner_object()->transform()->getModelMatrix());
+        const glm::mat4& model_matrix_tmp(world_matrices[i]);
         glm::mat4 mvp_matrix_tmp(vp_matrix * model_matrix_tmp);
 
         // Frustum
@@ -248,8 +308,16 @@ void Renderer::frustum_cull(Scene* scene, Camera *camera,
         // Build the frustum
         build_frustum(frustum, mvp_matrix_array);
 
-        // Check for being inside or outside frustum
-        bool is_inside = is_cube_in_frustum(frustum, bounding_volume);
+        // Check for being inside or outside frustum. An instanced object is
+        // inside if any of its instances is; the frustum is in the owner's
+        // model space, so the same planes test every instance.
+        bool is_inside;
+        if (render_data->instanced()) {
+            is_inside = render_data->instance_buffer()->cull(frustum,
+                    model_matrix_tmp, bounding_volume) > 0;
+        } else {
+            is_inside = is_cube_in_frustum(frustum, bounding_volume);
+        }
 
         // Only push those scene objects that are inside of the frustum
         if (!is_inside) {
@@ -272,11 +340,20 @@ void Renderer::frustum_cull(Scene* scene, Camera *camera,
         render_data->set_camera_distance(distance);
 
         // Check if this is the correct LOD level
-        if (!scene_object->inLODRange(distance)) {
+        if (!scene_object->inLODRange(distance * lod_bias)) {
             // not in range, don't add it to the list
             continue;
         }
 
+        // Hidden behind the occluders in the CPU depth buffer? A set of
+        // instances has no single box to test
+        if (scene->get_software_occlusion_culling()
+                && !render_data->occluder() && !render_data->instanced()
+                && !occlusion_buffer.isVisible(mvp_matrix_tmp,
+                        bounding_volume)) {
+            continue;
+        }
+
         scene_object->set_in_frustum();
         bool visible = scene_object->visible();
 
@@ -286,8 +363,10 @@ void Renderer::frustum_cull(Scene* scene, Camera *camera,
             render_data_vector.push_back(render_data);
         }
 
+        // One bounding box query can't stand for a set of instances
         if (render_data->pass(0)->material() == 0
-                || !scene->get_occlusion_culling()) {
+                || !scene->get_occlusion_culling()
+                || render_data->instanced()) {
             continue;
         }
 
@@ -468,7 +547,8 @@ void Renderer::renderCamera(Scene* scene, Camera* camera,
         ShaderManager* shader_manager,
         PostEffectShaderManager* post_effect_shader_manager,
         RenderTexture* post_effect_render_texture_a,
-        RenderTexture* post_effect_render_texture_b) {
+        RenderTexture* post_effect_render_texture_b,
+        RenderTexture* post_effect_render_texture_c) {
     GLint curFBO;
     GLint viewport[4];
     glGetIntegerv(GL_FRAMEBUFFER_BINDING, &curFBO);
@@ -476,19 +556,21 @@ void Renderer::renderCamera(Scene* scene, Camera* camera,
 
     renderCamera(scene, camera, curFBO, viewport[0], viewport[1], viewport[2],
             viewport[3], shader_manager, post_effect_shader_manager,
-            post_effect_render_texture_a, post_effect_render_texture_b);
+            post_effect_render_texture_a, post_effect_render_texture_b,
+            post_effect_render_texture_c);
 }
 
 void Renderer::renderCamera(Scene* scene, Camera* camera,
         RenderTexture* render_texture, ShaderManager* shader_manager,
         PostEffectShaderManager* post_effect_shader_manager,
         RenderTexture* post_effect_render_texture_a,
-        RenderTexture* post_effect_render_texture_b) {
+        RenderTexture* post_effect_render_texture_b,
+        RenderTexture* post_effect_render_texture_c) {
 
     renderCamera(scene, camera, render_texture->getFrameBufferId(), 0, 0,
             render_texture->width(), render_texture->height(), shader_manager,
             post_effect_shader_manager, post_effect_render_texture_a,
-            post_effect_render_texture_b);
+            post_effect_render_texture_b, post_effect_render_texture_c);
 
 }
 
@@ -497,11 +579,13 @@ void Renderer::renderCamera(Scene* scene, Camera* camera, int viewportX,
         ShaderManager* shader_manager,
         PostEffectShaderManager* post_effect_shader_manager,
         RenderTexture* post_effect_render_texture_a,
-        RenderTexture* post_effect_render_texture_b) {
+        RenderTexture* post_effect_render_texture_b,
+        RenderTexture* post_effect_render_texture_c) {
 
     renderCamera(scene, camera, 0, viewportX, viewportY, viewportWidth,
             viewportHeight, shader_manager, post_effect_shader_manager,
-            post_effect_render_texture_a, post_effect_render_texture_b);
+            post_effect_render_texture_a, post_effect_render_texture_b,
+            post_effect_render_texture_c);
 }
 
 void Renderer::renderRenderData(RenderData* render_data,
@@ -523,86 +607,52 @@ void Renderer::renderRenderData(RenderData* render_data,
         if (render_data->mesh() != 0) {
             for (int curr_pass = 0; curr_pass < render_data->pass_count();
                     ++curr_pass) {
-                numberTriangles += render_data->mesh()->getNumTriangles();
                 numberDrawCalls++;
 
                 set_face_culling(render_data->pass(curr_pass)->cull_face());
                 Material* curr_material =
                         render_data->pass(curr_pass)->material();
 
-                if (curr_material != nullptr) {
-                    glm::mat4 model_matrix(
-                            render_data->owner_object()->transform()->getModelMatrix());
-                    glm::mat4 mv_matrix(view_matrix * model_matrix);
-                    glm::mat4 mvp_matrix(projection_matrix * mv_matrix);
-                    try {
-                        bool right = render_mask
-                                & RenderData::RenderMaskBit::Right;
-                        switch (curr_material->shader_type()) {
-                        case Material::ShaderType::UNLIT_HORIZONTAL_STEREO_SHADER:
-                            shader_manager->getUnlitHorizontalStereoShader()->render(
-                                    mvp_matrix, render_data, curr_material,
-                                    right);
-                            break;
-                        case Material::ShaderType::UNLIT_VERTICAL_STEREO_SHADER:
-                            shader_manager->getUnlitVerticalStereoShader()->render(
-                                    mvp_matrix, render_data, curr_material,
-                                    right);
-                            break;
-                        case Material::ShaderType::OES_SHADER:
-                            shader_manager->getOESShader()->render(mvp_matrix,
-                                    render_data, curr_material);
-                            break;
-                        case Material::ShaderType::OES_HORIZONTAL_STEREO_SHADER:
-                            shader_manager->getOESHorizontalStereoShader()->render(
-                                    mvp_matrix, render_data, curr_material,
-                                    right);
-                            break;
-                        case Material::ShaderType::OES_VERTICAL_STEREO_SHADER:
-                            shader_manager->getOESVerticalStereoShader()->render(
-                                    mvp_matrix, render_data, curr_material,
-                                    right);
-                            break;
-                        case Material::ShaderType::CUBEMAP_SHADER:
-                            shader_manager->getCubemapShader()->render(
-                                    model_matrix, mvp_matrix, render_data,
-                                    curr_material);
-                            break;
-                        case Material::ShaderType::CUBEMAP_REFLECTION_SHADER:
-                            shader_manager->getCubemapReflectionShader()->render(
-                                    mv_matrix, glm::inverseTranspose(mv_matrix),
-                                    glm::inverse(view_matrix), mvp_matrix,
+                if (curr_material == nullptr) {
+                    continue;
+                }
+                if (render_data->instanced()) {
+                    InstanceBuffer* instances = render_data->instance_buffer();
+                    if (ShaderManager::drawsInstanced(render_data,
+                            curr_material)) {
+                        // One draw call for every visible instance
+                        numberTriangles += render_data->mesh()->getNumTriangles()
+                                * instances->visible_count();
+                        try {
+                            shader_manager->getInstancedShader()->render(
+                                    projection_matrix * view_matrix,
                                     render_data, curr_material);
-                            break;
-                        case Material::ShaderType::TEXTURE_SHADER:
-                            shader_manager->getTextureShader()->render(
-                                    mv_matrix, glm::inverseTranspose(mv_matrix),
-                                    mvp_matrix, render_data, curr_material);
-                            break;
-                        case Material::ShaderType::EXTERNAL_RENDERER_SHADER:
-                            shader_manager->getExternalRendererShader()->render(
-                                    mv_matrix, glm::inverseTranspose(mv_matrix),
-                                    mvp_matrix, render_data);
-                            break;
-                        case Material::ShaderType::ASSIMP_SHADER:
-                            shader_manager->getAssimpShader()->render(
-                                    mv_matrix, glm::inverseTranspose(mv_matrix),
-                                    mvp_matrix, render_data, curr_material);
-                            break;
-                        default:
-                            shader_manager->getCustomShader(
-                                    curr_material->shader_type())->render(
-                                    mvp_matrix, render_data, curr_material,
-                                    right);
-                            break;
+                        } catch (std::string error) {
+                            LOGE(
+                                    "Error detected in Renderer::renderRenderData; name : %s, error : %s", render_data->owner_object()->name().c_str(), error.c_str());
                         }
-                    } catch (std::string error) {
-                        LOGE(
-                                "Error detected in Renderer::renderRenderData; name : %s, error : %s", render_data->owner_object()->name().c_str(), error.c_str());
-                        shader_manager->getErrorShader()->render(mvp_matrix,
-                                render_data);
+                        continue;
                     }
+
+                    // Any other shader draws the visible instances one by
+                    // one, without their colors
+                    numberDrawCalls += instances->visible_count() - 1;
+                    const float* instance = instances->visible_data();
+                    for (int i = 0; i < instances->visible_count(); ++i) {
+                        numberTriangles += render_data->mesh()->getNumTriangles();
+                        renderMaterial(render_data, curr_material,
+                                glm::make_mat4(instance), view_matrix,
+                                projection_matrix, render_mask, shader_manager);
+                        instance += InstanceBuffer::FLOATS_PER_INSTANCE;
+                    }
+                    continue;
                 }
+
+                numberTriangles += render_data->mesh()->getNumTriangles();
+                renderMaterial(render_data, curr_material,
+                        render_data->owner_object()->transform()->getModelMatrix(),
+                        view_matrix, projection_matrix, render_mask,
+                        shader_manager);
             }
         }
 
@@ -626,6 +676,70 @@ void Renderer::renderRenderData(RenderData* render_data,
     }
 }
 
+void Renderer::renderMaterial(RenderData* render_data, Material* curr_material,
+        const glm::mat4& model_matrix, const glm::mat4& view_matrix,
+        const glm::mat4& projection_matrix, int render_mask,
+        ShaderManager* shader_manager) {
+    glm::mat4 mv_matrix(view_matrix * model_matrix);
+    glm::mat4 mvp_matrix(projection_matrix * mv_matrix);
+    try {
+        bool right = render_mask & RenderData::RenderMaskBit::Right;
+        switch (curr_material->shader_type()) {
+        case Material::ShaderType::UNLIT_HORIZONTAL_STEREO_SHADER:
+            shader_manager->getUnlitHorizontalStereoShader()->render(mvp_matrix,
+                    render_data, curr_material, right);
+            break;
+        case Material::ShaderType::UNLIT_VERTICAL_STEREO_SHADER:
+            shader_manager->getUnlitVerticalStereoShader()->render(mvp_matrix,
+                    render_data, curr_material, right);
+            break;
+        case Material::ShaderType::OES_SHADER:
+            shader_manager->getOESShader()->render(mvp_matrix, render_data,
+                    curr_material);
+            break;
+        case Material::ShaderType::OES_HORIZONTAL_STEREO_SHADER:
+            shader_manager->getOESHorizontalStereoShader()->render(mvp_matrix,
+                    render_data, curr_material, right);
+            break;
+        case Material::ShaderType::OES_VERTICAL_STEREO_SHADER:
+            shader_manager->getOESVerticalStereoShader()->render(mvp_matrix,
+                    render_data, curr_material, right);
+            break;
+        case Material::ShaderType::CUBEMAP_SHADER:
+            shader_manager->getCubemapShader()->render(model_matrix,
+                    mvp_matrix, render_data, curr_material);
+            break;
+        case Material::ShaderType::CUBEMAP_REFLECTION_SHADER:
+            shader_manager->getCubemapReflectionShader()->render(mv_matrix,
+                    glm::inverseTranspose(mv_matrix), glm::inverse(view_matrix),
+                    mvp_matrix, render_data, curr_material);
+            break;
+        case Material::ShaderType::TEXTURE_SHADER:
+            shader_manager->getTextureShader()->render(mv_matrix,
+                    glm::inverseTranspose(mv_matrix), mvp_matrix, render_data,
+                    curr_material);
+            break;
+        case Material::ShaderType::EXTERNAL_RENDERER_SHADER:
+            shader_manager->getExternalRendererShader()->render(mv_matrix,
+                    glm::inverseTranspose(mv_matrix), mvp_matrix, render_data);
+            break;
+        case Material::ShaderType::ASSIMP_SHADER:
+            shader_manager->getAssimpShader()->render(mv_matrix,
+                    glm::inverseTranspose(mv_matrix), mvp_matrix, render_data,
+                    curr_material);
+            break;
+        default:
+            shader_manager->getCustomShader(curr_material->shader_type())->render(
+                    mvp_matrix, render_data, curr_material, right);
+            break;
+        }
+    } catch (std::string error) {
+        LOGE(
+                "Error detected in Renderer::renderRenderData; name : %s, error : %s", render_data->owner_object()->name().c_str(), error.c_str());
+        shader_manager->getErrorShader()->render(mvp_matrix, render_data);
+    }
+}
+
 void Renderer::renderPostEffectData(Camera* camera,
         RenderTexture* render_texture, PostEffectData* post_effect_data,
         PostEffectShaderManager* post_effect_shader_manager) {
@@ -660,6 +774,27 @@ void Renderer::renderPostEffectData(Camera* camera,
     }
 }
 
+void Renderer::renderPostEffectPass(Camera* camera,
+        RenderTexture* render_texture,
+        const std::vector<PostEffectData*>& post_effects,
+        const PostEffectPass& pass,
+        PostEffectShaderManager* post_effect_shader_manager) {
+    if (pass.shader == 0) {
+        renderPostEffectData(camera, render_texture, post_effects[pass.first],
+                post_effect_shader_manager);
+        return;
+    }
+    try {
+        pass.shader->render(camera, render_texture, &post_effects[pass.first],
+                post_effect_shader_manager->quad_vertices(),
+                post_effect_shader_manager->quad_uvs(),
+                post_effect_shader_manager->quad_triangles());
+    } catch (std::string error) {
+        LOGE(
+                "Error detected in Renderer::renderPostEffectPass; error : %s", error.c_str());
+    }
+}
+
 void Renderer::set_face_culling(int cull_face) {
     switch (cull_face) {
     case RenderData::CullFront:
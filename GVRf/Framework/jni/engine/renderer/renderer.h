@@ -41,15 +41,20 @@
 
 namespace gvr {
 class Camera;
+class Material;
 class Scene;
 class SceneObject;
 class PostEffectData;
+struct PostEffectPass;
 class PostEffectShaderManager;
 class RenderData;
 class RenderTexture;
 class ShaderManager;
 
 class Renderer {
+    // The host micro-benchmarks time the culling helpers on their own
+    friend class RendererBenchmark;
+
 private:
     Renderer();
 
@@ -59,26 +64,30 @@ public:
             ShaderManager* shader_manager,
             PostEffectShaderManager* post_effect_shader_manager,
             RenderTexture* post_effect_render_texture_a,
-            RenderTexture* post_effect_render_texture_b);
+            RenderTexture* post_effect_render_texture_b,
+            RenderTexture* post_effect_render_texture_c);
 
     static void renderCamera(Scene* scene, Camera* camera,
             RenderTexture* render_texture, ShaderManager* shader_manager,
             PostEffectShaderManager* post_effect_shader_manager,
             RenderTexture* post_effect_render_texture_a,
-            RenderTexture* post_effect_render_texture_b);
+            RenderTexture* post_effect_render_texture_b,
+            RenderTexture* post_effect_render_texture_c);
 
     static void renderCamera(Scene* scene, Camera* camera, int viewportX,
             int viewportY, int viewportWidth, int viewportHeight,
             ShaderManager* shader_manager,
             PostEffectShaderManager* post_effect_shader_manager,
             RenderTexture* post_effect_render_texture_a,
-            RenderTexture* post_effect_render_texture_b);
+            RenderTexture* post_effect_render_texture_b,
+            RenderTexture* post_effect_render_texture_c);
 
     static void renderCamera(Scene* scene, Camera* camera,
             ShaderManager* shader_manager,
             PostEffectShaderManager* post_effect_shader_manager,
             RenderTexture* post_effect_render_texture_a,
-            RenderTexture* post_effect_render_texture_b);
+            RenderTexture* post_effect_render_texture_b,
+            RenderTexture* post_effect_render_texture_c);
 
     static void cull(Scene *scene, Camera *camera, ShaderManager* shader_manager);
 
@@ -91,14 +100,26 @@ private:
     static void renderRenderData(RenderData* render_data,
             const glm::mat4& view_matrix, const glm::mat4& projection_matrix,
             int render_mask, ShaderManager* shader_manager);
+    static void renderMaterial(RenderData* render_data, Material* material,
+            const glm::mat4& model_matrix, const glm::mat4& view_matrix,
+            const glm::mat4& projection_matrix, int render_mask,
+            ShaderManager* shader_manager);
     static void renderPostEffectData(Camera* camera,
             RenderTexture* render_texture, PostEffectData* post_effect_data,
             PostEffectShaderManager* post_effect_shader_manager);
+    static void renderPostEffectPass(Camera* camera,
+            RenderTexture* render_texture,
+            const std::vector<PostEffectData*>& post_effects,
+            const PostEffectPass& pass,
+            PostEffectShaderManager* post_effect_shader_manager);
 
     static void occlusion_cull(Scene* scene,
-            std::vector<SceneObject*> scene_objects);
+            const std::vector<SceneObject*>& scene_objects);
+    static void rasterize_occluders(Scene* scene,
+            const std::vector<SceneObject*>& scene_objects,
+            const glm::mat4& vp_matrix);
     static void frustum_cull(Scene* scene, Camera *camera,
-            std::vector<SceneObject*> scene_objects,
+            const std::vector<SceneObject*>& scene_objects,
             std::vector<RenderData*>& render_data_vector, glm::mat4 vp_matrix,
             ShaderManager* shader_manager);
     static void build_frustum(float frustum[6][4], float mvp_matrix[16]);
@@ -20,11 +20,14 @@
 #ifndef GL_PROGRAM_H_
 #define GL_PROGRAM_H_
 
+#include <cstring>
+
 #ifndef GL_ES_VERSION_3_0
 #include "GLES3/gl3.h"
 #endif
 
 #include "engine/memory/gl_delete.h"
+#include "gl/gl_program_binary_cache.h"
 
 #include "util/gvr_log.h"
 
@@ -98,6 +101,20 @@ public:
             const GLint* pVertexSourceStringLengths,
             const char** pFragmentSourceStrings,
             const GLint* pFragmentSourceStringLengths) {
+        // A binary saved by an earlier run skips the compiler
+        GLProgramBinaryCache& cache = GLProgramBinaryCache::instance();
+        bool cached = cache.enabled();
+        uint64_t key = 0;
+        if (cached) {
+            key = GLProgramBinaryCache::key(strLength, pVertexSourceStrings,
+                    pVertexSourceStringLengths, pFragmentSourceStrings,
+                    pFragmentSourceStringLengths);
+            GLuint program = cache.load(key);
+            if (program) {
+                return program;
+            }
+        }
+
         GLuint vertexShader = loadShader(GL_VERTEX_SHADER, strLength,
                 pVertexSourceStrings, pVertexSourceStringLengths);
         if (!vertexShader) {
@@ -117,6 +134,10 @@ public:
             glAttachShader(program, pixelShader);
             checkGlError("glAttachShader");
             bindCommonAttributes(program);
+            if (cached) {
+                glProgramParameteri(program,
+                        GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GL_TRUE);
+            }
             glLinkProgram(program);
             GLint linkStatus = GL_FALSE;
             glGetProgramiv(program, GL_LINK_STATUS, &linkStatus);
@@ -133,6 +154,8 @@ public:
                 }
                 gl_delete.queueProgram(program);
                 program = 0;
+            } else if (cached) {
+                cache.store(key, program);
             }
         }
         return program;
@@ -0,0 +1,329 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/***************************************************************************
+ * Linked GL programs, kept on disk between runs.
+ ***************************************************************************/
+
+#include "gl_program_binary_cache.h"
+
+#include <errno.h>
+#include <stdio.h>
+#include <string.h>
+#include <sys/stat.h>
+
+#include "engine/memory/gl_delete.h"
+#include "util/gvr_log.h"
+
+#ifndef GL_PROGRAM_BINARY_LENGTH
+#define GL_PROGRAM_BINARY_LENGTH 0x8741
+#endif
+#ifndef GL_NUM_PROGRAM_BINARY_FORMATS
+#define GL_NUM_PROGRAM_BINARY_FORMATS 0x87FE
+#endif
+
+namespace gvr {
+
+namespace {
+
+const char MAGIC[8] = { 'G', 'V', 'R', 'P', 'B', 'I', 'N', 0 };
+
+// magic, version, format, key, driver length, binary length, checksum
+const size_t FIXED_SIZE = sizeof(MAGIC) + 4 + 4 + 8 + 4 + 4 + 8;
+
+const uint64_t FNV_OFFSET = 14695981039346656037ULL;
+const uint64_t FNV_PRIME = 1099511628211ULL;
+
+uint64_t fnv(uint64_t hash, const char* bytes, size_t length) {
+    for (size_t i = 0; i < length; ++i) {
+        hash ^= static_cast<unsigned char>(bytes[i]);
+        hash *= FNV_PRIME;
+    }
+    return hash;
+}
+
+uint64_t hashSources(uint64_t hash, int count, const char** sources,
+        const GLint* lengths) {
+    for (int i = 0; i < count; ++i) {
+        // As for glShaderSource(): no length, or a negative one, means the
+        // string is null-terminated
+        size_t length =
+                lengths != nullptr && lengths[i] >= 0 ?
+                        lengths[i] : strlen(sources[i]);
+        hash = fnv(hash, sources[i], length);
+    }
+    // A source never holds a null, so this keeps the boundary between the
+    // stages in the hash
+    const char separator = 0;
+    return fnv(hash, &separator, 1);
+}
+
+template<class T>
+void append(std::vector<char>& data, T value) {
+    const char* bytes = reinterpret_cast<const char*>(&value);
+    data.insert(data.end(), bytes, bytes + sizeof(T));
+}
+
+template<class T>
+T extract(const std::vector<char>& data, size_t& offset) {
+    T value;
+    memcpy(&value, &data[offset], sizeof(T));
+    offset += sizeof(T);
+    return value;
+}
+
+}
+
+GLProgramBinaryCache& GLProgramBinaryCache::instance() {
+    static GLProgramBinaryCache cache;
+    return cache;
+}
+
+GLProgramBinaryCache::GLProgramBinaryCache() :
+        directory_(), queried_(false), supported_(false), driver_() {
+    pthread_mutex_init(&mutex_, 0);
+}
+
+GLProgramBinaryCache::~GLProgramBinaryCache() {
+    pthread_mutex_destroy(&mutex_);
+}
+
+void GLProgramBinaryCache::setDirectory(const std::string& directory) {
+    if (!directory.empty() && mkdir(directory.c_str(), 0700) != 0
+            && errno != EEXIST) {
+        LOGW("GLProgramBinaryCache: cannot create %s", directory.c_str());
+    }
+    pthread_mutex_lock(&mutex_);
+    directory_ = directory;
+    pthread_mutex_unlock(&mutex_);
+}
+
+std::string GLProgramBinaryCache::directory() {
+    pthread_mutex_lock(&mutex_);
+    std::string directory(directory_);
+    pthread_mutex_unlock(&mutex_);
+    return directory;
+}
+
+void GLProgramBinaryCache::queryDriver() {
+    if (queried_) {
+        return;
+    }
+    queried_ = true;
+
+    GLint formats = 0;
+    glGetIntegerv(GL_NUM_PROGRAM_BINARY_FORMATS, &formats);
+    supported_ = formats > 0;
+
+    const GLenum names[] = { GL_VENDOR, GL_RENDERER, GL_VERSION };
+    for (size_t i = 0; i < sizeof(names) / sizeof(names[0]); ++i) {
+        const GLubyte* value = glGetString(names[i]);
+        if (value != nullptr) {
+            driver_ += reinterpret_cast<const char*>(value);
+        }
+        driver_ += '\n';
+    }
+}
+
+bool GLProgramBinaryCache::enabled() {
+    queryDriver();
+    return supported_ && !directory().empty();
+}
+
+GLuint GLProgramBinaryCache::load(uint64_t key) {
+    queryDriver();
+    Entry entry;
+    if (!read(key, driver_, entry)) {
+        return 0;
+    }
+
+    GLuint program = glCreateProgram();
+    if (program) {
+        glProgramBinary(program, entry.format, &entry.binary[0],
+                entry.binary.size());
+        GLint linkStatus = GL_FALSE;
+        glGetProgramiv(program, GL_LINK_STATUS, &linkStatus);
+        if (linkStatus != GL_TRUE) {
+            // The driver may reject a binary for reasons of its own, even
+            // with the same version string
+            LOGW("GLProgramBinaryCache: binary %s rejected",
+                    fileName(key).c_str());
+            gl_delete.queueProgram(program);
+            program = 0;
+            remove(key);
+        }
+    }
+    return program;
+}
+
+void GLProgramBinaryCache::store(uint64_t key, GLuint program) {
+    queryDriver();
+    GLint length = 0;
+    glGetProgramiv(program, GL_PROGRAM_BINARY_LENGTH, &length);
+    if (length <= 0) {
+        return;
+    }
+
+    Entry entry;
+    entry.key = key;
+    entry.driver = driver_;
+    entry.binary.resize(length);
+    GLsizei written = 0;
+    GLenum format = 0;
+    glGetProgramBinary(program, length, &written, &format, &entry.binary[0]);
+    if (written <= 0) {
+        return;
+    }
+    entry.binary.resize(written);
+    entry.format = format;
+    write(entry);
+}
+
+uint64_t GLProgramBinaryCache::key(int count, const char** vertex_sources,
+        const GLint* vertex_lengths, const char** fragment_sources,
+        const GLint* fragment_lengths) {
+    uint64_t hash = hashSources(FNV_OFFSET, count, vertex_sources,
+            vertex_lengths);
+    return hashSources(hash, count, fragment_sources, fragment_lengths);
+}
+
+std::string GLProgramBinaryCache::fileName(uint64_t key) {
+    char name[32];
+    snprintf(name, sizeof(name), "%016llx.bin",
+            static_cast<unsigned long long>(key));
+    return name;
+}
+
+void GLProgramBinaryCache::encode(const Entry& entry,
+        std::vector<char>& data) {
+    data.clear();
+    data.reserve(FIXED_SIZE + entry.driver.size() + entry.binary.size());
+    data.insert(data.end(), MAGIC, MAGIC + sizeof(MAGIC));
+    append<uint32_t>(data, FILE_VERSION);
+    append<uint32_t>(data, entry.format);
+    append<uint64_t>(data, entry.key);
+    append<uint32_t>(data, entry.driver.size());
+    data.insert(data.end(), entry.driver.begin(), entry.driver.end());
+    append<uint32_t>(data, entry.binary.size());
+    data.insert(data.end(), entry.binary.begin(), entry.binary.end());
+    append<uint64_t>(data, fnv(FNV_OFFSET, &data[0], data.size()));
+}
+
+bool GLProgramBinaryCache::decode(const std::vector<char>& data,
+        uint64_t key, const std::string& driver, Entry& entry) {
+    if (data.size() < FIXED_SIZE
+            || memcmp(&data[0], MAGIC, sizeof(MAGIC)) != 0) {
+        return false;
+    }
+    size_t offset = sizeof(MAGIC);
+    if (extract<uint32_t>(data, offset) != FILE_VERSION) {
+        return false;
+    }
+    uint32_t format = extract<uint32_t>(data, offset);
+    if (extract<uint64_t>(data, offset) != key) {
+        return false;
+    }
+
+    // Every length is checked against what is left before it is used
+    size_t driver_length = extract<uint32_t>(data, offset);
+    if (driver_length > data.size() - FIXED_SIZE
+            || driver.compare(0, std::string::npos, &data[offset],
+                    driver_length) != 0) {
+        return false;
+    }
+    offset += driver_length;
+    size_t binary_length = extract<uint32_t>(data, offset);
+    if (binary_length == 0
+            || binary_length != data.size() - FIXED_SIZE - driver_length) {
+        return false;
+    }
+    size_t binary_offset = offset;
+    offset += binary_length;
+    if (extract<uint64_t>(data, offset) != fnv(FNV_OFFSET, &data[0],
+            data.size() - sizeof(uint64_t))) {
+        return false;
+    }
+
+    entry.key = key;
+    entry.driver = driver;
+    entry.format = format;
+    entry.binary.assign(data.begin() + binary_offset,
+            data.begin() + binary_offset + binary_length);
+    return true;
+}
+
+bool GLProgramBinaryCache::read(uint64_t key, const std::string& driver,
+        Entry& entry) {
+    std::string directory(this->directory());
+    if (directory.empty()) {
+        return false;
+    }
+    std::string path(directory + "/" + fileName(key));
+    FILE* file = fopen(path.c_str(), "rb");
+    if (file == nullptr) {
+        return false;
+    }
+
+    std::vector<char> data;
+    bool ok = fseek(file, 0, SEEK_END) == 0;
+    long size = ok ? ftell(file) : -1;
+    if (size > 0 && fseek(file, 0, SEEK_SET) == 0) {
+        data.resize(size);
+        ok = fread(&data[0], 1, size, file) == static_cast<size_t>(size);
+    }
+    fclose(file);
+
+    if (!ok || !decode(data, key, driver, entry)) {
+        // Stale, or damaged: compile from source, and replace it
+        ::remove(path.c_str());
+        return false;
+    }
+    return true;
+}
+
+bool GLProgramBinaryCache::write(const Entry& entry) {
+    std::string directory(this->directory());
+    if (directory.empty()) {
+        return false;
+    }
+    std::vector<char> data;
+    encode(entry, data);
+
+    // Written to the side and renamed into place, so a reader never sees
+    // half a file
+    std::string path(directory + "/" + fileName(entry.key));
+    std::string temporary(path + ".tmp");
+    FILE* file = fopen(temporary.c_str(), "wb");
+    if (file == nullptr) {
+        return false;
+    }
+    bool ok = fwrite(&data[0], 1, data.size(), file) == data.size();
+    ok = fclose(file) == 0 && ok;
+    if (!ok || rename(temporary.c_str(), path.c_str()) != 0) {
+        LOGW("GLProgramBinaryCache: cannot write %s", path.c_str());
+        ::remove(temporary.c_str());
+        return false;
+    }
+    return true;
+}
+
+void GLProgramBinaryCache::remove(uint64_t key) {
+    std::string directory(this->directory());
+    if (!directory.empty()) {
+        ::remove((directory + "/" + fileName(key)).c_str());
+    }
+}
+
+}
@@ -0,0 +1,128 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/***************************************************************************
+ * Linked GL programs, kept on disk between runs.
+ ***************************************************************************/
+
+#ifndef GL_PROGRAM_BINARY_CACHE_H_
+#define GL_PROGRAM_BINARY_CACHE_H_
+
+#include <stdint.h>
+#include <pthread.h>
+#include <string>
+#include <vector>
+
+#ifndef GL_ES_VERSION_3_0
+#include "GLES3/gl3.h"
+#endif
+
+namespace gvr {
+
+/*
+ * Compiling and linking the stock shaders takes a good part of a second on
+ * a first frame. GLProgram asks the driver for each program it links, with
+ * glGetProgramBinary(), and saves it here; the next run hands the binary
+ * back with glProgramBinary() and skips the compiler altogether.
+ *
+ * A program is filed under a hash of its vertex and fragment sources. The
+ * file also records the driver - GL_VENDOR, GL_RENDERER and GL_VERSION - the
+ * binary came from, and a checksum. A file that fails any check, or that the
+ * driver turns down, is deleted, and the program compiled from source and
+ * saved again: so a driver update quietly rebuilds the cache.
+ *
+ * The file format code does not touch GL, and can be exercised without a
+ * GPU. load(), store() and enabled() must run on the GL thread.
+ */
+class GLProgramBinaryCache {
+public:
+    struct Entry {
+        uint64_t key;
+        std::string driver;
+        uint32_t format;
+        std::vector<char> binary;
+    };
+
+    // Bump when the file layout, or the way GLProgram links, changes
+    static const uint32_t FILE_VERSION = 1;
+
+    static GLProgramBinaryCache& instance();
+
+    /*
+     * Where to keep the binaries, created if need be. An empty string, the
+     * default, turns the cache off. May be called from any thread.
+     */
+    void setDirectory(const std::string& directory);
+    std::string directory();
+
+    /*
+     * Whether a directory is set and the driver supports at least one
+     * program binary format.
+     */
+    bool enabled();
+
+    /*
+     * A linked program, from the binary saved under key; or 0 if there is
+     * none, or it is no longer valid.
+     */
+    GLuint load(uint64_t key);
+
+    /*
+     * Save program, linked with GL_PROGRAM_BINARY_RETRIEVABLE_HINT, under
+     * key.
+     */
+    void store(uint64_t key, GLuint program);
+
+    static uint64_t key(int count, const char** vertex_sources,
+            const GLint* vertex_lengths, const char** fragment_sources,
+            const GLint* fragment_lengths);
+    static std::string fileName(uint64_t key);
+
+    static void encode(const Entry& entry, std::vector<char>& data);
+    /*
+     * Fills in entry from data, if data is a well-formed entry of this
+     * version, for key, from driver.
+     */
+    static bool decode(const std::vector<char>& data, uint64_t key,
+            const std::string& driver, Entry& entry);
+
+    /*
+     * The file for key, if it decodes; a file that does not is deleted.
+     */
+    bool read(uint64_t key, const std::string& driver, Entry& entry);
+    bool write(const Entry& entry);
+    void remove(uint64_t key);
+
+private:
+    GLProgramBinaryCache();
+    ~GLProgramBinaryCache();
+
+    GLProgramBinaryCache(const GLProgramBinaryCache& cache);
+    GLProgramBinaryCache(GLProgramBinaryCache&& cache);
+    GLProgramBinaryCache& operator=(const GLProgramBinaryCache& cache);
+    GLProgramBinaryCache& operator=(GLProgramBinaryCache&& cache);
+
+    // The driver is queried once, on the GL thread
+    void queryDriver();
+
+    pthread_mutex_t mutex_;
+    std::string directory_;
+    bool queried_;
+    bool supported_;
+    std::string driver_;
+};
+
+}
+#endif
@@ -24,7 +24,8 @@ void Java_org_gearvrf_NativeMonoscopicRenderer_renderCamera(JNIEnv * env,
         jint viewportY, jint viewportWidth, jint viewportHeight,
         jlong jshader_manager, jlong jpost_effect_shader_manager,
         jlong jpost_effect_render_texture_a,
-        jlong jpost_effect_render_texture_b);
+        jlong jpost_effect_render_texture_b,
+        jlong jpost_effect_render_texture_c);
 
 void Java_org_gearvrf_NativeMonoscopicRenderer_cull(JNIEnv * env,
         jobject obj, jlong jscene, jlong jcamera, jlong shader_manager);
@@ -35,7 +36,8 @@ void Java_org_gearvrf_NativeMonoscopicRenderer_renderCamera(JNIEnv * env,
         jint viewportY, jint viewportWidth, jint viewportHeight,
         jlong jshader_manager, jlong jpost_effect_shader_manager,
         jlong jpost_effect_render_texture_a,
-        jlong jpost_effect_render_texture_b) {
+        jlong jpost_effect_render_texture_b,
+        jlong jpost_effect_render_texture_c) {
     Scene* scene = reinterpret_cast<Scene*>(jscene);
     Camera* camera = reinterpret_cast<Camera*>(jcamera);
     ShaderManager* shader_manager = reinterpret_cast<ShaderManager*>(jshader_manager);
@@ -45,10 +47,13 @@ void Java_org_gearvrf_NativeMonoscopicRenderer_renderCamera(JNIEnv * env,
             reinterpret_cast<RenderTexture*>(jpost_effect_render_texture_a);
     RenderTexture* post_effect_render_texture_b =
             reinterpret_cast<RenderTexture*>(jpost_effect_render_texture_b);
+    RenderTexture* post_effect_render_texture_c =
+            reinterpret_cast<RenderTexture*>(jpost_effect_render_texture_c);
 
     Renderer::renderCamera(scene, camera, viewportX, viewportY, viewportWidth,
             viewportHeight, shader_manager, post_effect_shader_manager,
-            post_effect_render_texture_a, post_effect_render_texture_b);
+            post_effect_render_texture_a, post_effect_render_texture_b,
+            post_effect_render_texture_c);
 
 }
 
@@ -0,0 +1,183 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/***************************************************************************
+ * Broad-phase collision detection over world-space bounding boxes.
+ ***************************************************************************/
+
+#include "collision_world.h"
+
+#include <algorithm>
+#include <limits>
+
+#include "glm/glm.hpp"
+
+#include "objects/mesh.h"
+#include "objects/scene_object.h"
+#include "objects/components/render_data.h"
+#include "objects/components/transform.h"
+
+namespace gvr {
+
+CollisionWorld::CollisionWorld() :
+        HybridObject(), entries_(), free_ids_(), sorted_() {
+}
+
+CollisionWorld::~CollisionWorld() {
+}
+
+int CollisionWorld::addSceneObject(SceneObject* scene_object) {
+    int id;
+    if (free_ids_.empty()) {
+        id = entries_.size();
+        entries_.push_back(Entry());
+    } else {
+        id = free_ids_.back();
+        free_ids_.pop_back();
+    }
+    Entry& entry = entries_[id];
+    entry.scene_object = scene_object;
+    entry.transform = nullptr;
+    entry.mesh = nullptr;
+    entry.version = 0;
+    entry.valid = false;
+    updateBox(entry);
+
+    // Insert in place, so the list stays sorted
+    std::vector<int>::iterator position = sorted_.begin();
+    while (position != sorted_.end()
+            && entries_[*position].box[0] <= entry.box[0]) {
+        ++position;
+    }
+    sorted_.insert(position, id);
+    return id;
+}
+
+void CollisionWorld::removeSceneObject(int id) {
+    if (id < 0 || id >= entries_.size() || !entries_[id].scene_object) {
+        return;
+    }
+    entries_[id].scene_object = nullptr;
+    sorted_.erase(std::find(sorted_.begin(), sorted_.end(), id));
+    free_ids_.push_back(id);
+}
+
+/*
+ * Recompute the box if the transform, mesh, or model matrix it came from has
+ * changed. An object with no transform or mesh gets an empty box - min above
+ * max - which sorts last and overlaps nothing.
+ */
+void CollisionWorld::updateBox(Entry& entry) {
+    Transform* transform = entry.scene_object->transform();
+    RenderData* render_data = entry.scene_object->render_data();
+    Mesh* mesh = render_data ? render_data->mesh() : nullptr;
+    if (entry.valid && transform == entry.transform && mesh == entry.mesh
+            && transform && transform->version() == entry.version
+            && transform->isModelMatrixValid()) {
+        return;
+    }
+
+    entry.transform = transform;
+    entry.mesh = mesh;
+    if (transform == nullptr || mesh == nullptr) {
+        static const float infinity = std::numeric_limits<float>::infinity();
+        for (int i = 0; i < 3; ++i) {
+            entry.box[i] = infinity;
+            entry.box[i + 3] = -infinity;
+        }
+        entry.version = 0;
+        entry.valid = false;
+        return;
+    }
+
+    // Validates the matrix, so the version read after it stays put until the
+    // next change
+    glm::mat4 model_matrix = transform->getModelMatrix();
+    mesh->getTransformedBoundingBoxInfo(&model_matrix, entry.box);
+    entry.version = transform->version();
+    entry.valid = true;
+}
+
+/*
+ * Refresh stale boxes, then re-sort by insertion sort: objects move a little
+ * from one query to the next, so the list is nearly sorted already, and this
+ * is close to linear.
+ */
+void CollisionWorld::update() {
+    for (std::vector<int>::const_iterator it = sorted_.begin();
+            it != sorted_.end(); ++it) {
+        updateBox(entries_[*it]);
+    }
+
+    for (size_t i = 1; i < sorted_.size(); ++i) {
+        int id = sorted_[i];
+        float min_x = entries_[id].box[0];
+        size_t j = i;
+        while (j > 0 && entries_[sorted_[j - 1]].box[0] > min_x) {
+            sorted_[j] = sorted_[j - 1];
+            --j;
+        }
+        sorted_[j] = id;
+    }
+}
+
+/*
+ * Sweep along x: an object can only overlap those that start before it
+ * ends. Overlap is strict, as in SceneObject::isColliding(), so boxes that
+ * just touch don't count.
+ */
+void CollisionWorld::findOverlappingPairs(std::vector<int>& pairs) {
+    update();
+
+    pairs.clear();
+    size_t count = sorted_.size();
+    for (size_t i = 0; i < count; ++i) {
+        int a = sorted_[i];
+        const float* box_a = entries_[a].box;
+        for (size_t j = i + 1; j < count; ++j) {
+            int b = sorted_[j];
+            const float* box_b = entries_[b].box;
+            if (box_b[0] >= box_a[3]) {
+                break;
+            }
+            if (box_b[3] > box_a[0] && overlapYZ(box_a, box_b)) {
+                pairs.push_back(std::min(a, b));
+                pairs.push_back(std::max(a, b));
+            }
+        }
+    }
+}
+
+void CollisionWorld::findOverlaps(int id, std::vector<int>& overlaps) {
+    overlaps.clear();
+    if (id < 0 || id >= entries_.size() || !entries_[id].scene_object) {
+        return;
+    }
+    update();
+
+    const float* box = entries_[id].box;
+    for (std::vector<int>::const_iterator it = sorted_.begin();
+            it != sorted_.end(); ++it) {
+        const float* other = entries_[*it].box;
+        if (other[0] >= box[3]) {
+            break;
+        }
+        if (*it != id && other[3] > box[0] && overlapYZ(box, other)) {
+            overlaps.push_back(*it);
+        }
+    }
+}
+
+}
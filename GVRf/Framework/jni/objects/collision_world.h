@@ -0,0 +1,92 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/***************************************************************************
+ * Broad-phase collision detection over world-space bounding boxes.
+ *
+ * Each object's box is the one SceneObject::isColliding() tests: its mesh's
+ * bounding box, transformed by its model matrix. Boxes are only recomputed
+ * for objects whose transform has been invalidated since the last query,
+ * and are kept sorted along x, so each query is a sweep over a nearly
+ * sorted list rather than a test of every pair.
+ ***************************************************************************/
+
+#ifndef COLLISION_WORLD_H_
+#define COLLISION_WORLD_H_
+
+#include <vector>
+
+#include "objects/hybrid_object.h"
+
+namespace gvr {
+class Mesh;
+class SceneObject;
+class Transform;
+
+class CollisionWorld: public HybridObject {
+public:
+    CollisionWorld();
+    ~CollisionWorld();
+
+    /*
+     * Returns the object's id: the value queries report it by. Ids of
+     * removed objects are reused.
+     */
+    int addSceneObject(SceneObject* scene_object);
+    void removeSceneObject(int id);
+
+    /*
+     * Every overlapping pair, as consecutive ids, smaller id first.
+     */
+    void findOverlappingPairs(std::vector<int>& pairs);
+
+    /*
+     * The ids of every object that overlaps the one with this id.
+     */
+    void findOverlaps(int id, std::vector<int>& overlaps);
+
+private:
+    CollisionWorld(const CollisionWorld& collision_world);
+    CollisionWorld(CollisionWorld&& collision_world);
+    CollisionWorld& operator=(const CollisionWorld& collision_world);
+    CollisionWorld& operator=(CollisionWorld&& collision_world);
+
+    struct Entry {
+        SceneObject* scene_object;
+        // What the box was computed from, to tell when it is stale
+        Transform* transform;
+        Mesh* mesh;
+        unsigned int version;
+        bool valid;
+        // min x, y, z, then max x, y, z
+        float box[6];
+    };
+
+    void update();
+    void updateBox(Entry& entry);
+
+    static bool overlapYZ(const float* a, const float* b) {
+        return a[1] < b[4] && a[4] > b[1] && a[2] < b[5] && a[5] > b[2];
+    }
+
+private:
+    std::vector<Entry> entries_;
+    std::vector<int> free_ids_;
+    // Ids of live objects, by increasing min x
+    std::vector<int> sorted_;
+};
+
+}
+#endif
@@ -0,0 +1,97 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/***************************************************************************
+ * JNI
+ ***************************************************************************/
+
+#include "collision_world.h"
+
+#include "util/gvr_jni.h"
+
+namespace gvr {
+extern "C" {
+JNIEXPORT jlong JNICALL
+Java_org_gearvrf_NativeCollisionWorld_ctor(JNIEnv * env, jobject obj);
+
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_NativeCollisionWorld_addSceneObject(JNIEnv * env,
+        jobject obj, jlong jcollision_world, jlong jscene_object);
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeCollisionWorld_removeSceneObject(JNIEnv * env,
+        jobject obj, jlong jcollision_world, jint id);
+
+JNIEXPORT jintArray JNICALL
+Java_org_gearvrf_NativeCollisionWorld_findOverlappingPairs(JNIEnv * env,
+        jobject obj, jlong jcollision_world);
+
+JNIEXPORT jintArray JNICALL
+Java_org_gearvrf_NativeCollisionWorld_findOverlaps(JNIEnv * env,
+        jobject obj, jlong jcollision_world, jint id);
+}
+;
+
+static jintArray toIntArray(JNIEnv * env, const std::vector<int>& ids) {
+    jintArray jids = env->NewIntArray(ids.size());
+    if (!ids.empty()) {
+        env->SetIntArrayRegion(jids, 0, ids.size(),
+                reinterpret_cast<const jint*>(ids.data()));
+    }
+    return jids;
+}
+
+JNIEXPORT jlong JNICALL
+Java_org_gearvrf_NativeCollisionWorld_ctor(JNIEnv * env, jobject obj) {
+    return reinterpret_cast<jlong>(new CollisionWorld());
+}
+
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_NativeCollisionWorld_addSceneObject(JNIEnv * env,
+        jobject obj, jlong jcollision_world, jlong jscene_object) {
+    CollisionWorld* collision_world =
+            reinterpret_cast<CollisionWorld*>(jcollision_world);
+    SceneObject* scene_object = reinterpret_cast<SceneObject*>(jscene_object);
+    return collision_world->addSceneObject(scene_object);
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeCollisionWorld_removeSceneObject(JNIEnv * env,
+        jobject obj, jlong jcollision_world, jint id) {
+    CollisionWorld* collision_world =
+            reinterpret_cast<CollisionWorld*>(jcollision_world);
+    collision_world->removeSceneObject(id);
+}
+
+JNIEXPORT jintArray JNICALL
+Java_org_gearvrf_NativeCollisionWorld_findOverlappingPairs(JNIEnv * env,
+        jobject obj, jlong jcollision_world) {
+    CollisionWorld* collision_world =
+            reinterpret_cast<CollisionWorld*>(jcollision_world);
+    std::vector<int> pairs;
+    collision_world->findOverlappingPairs(pairs);
+    return toIntArray(env, pairs);
+}
+
+JNIEXPORT jintArray JNICALL
+Java_org_gearvrf_NativeCollisionWorld_findOverlaps(JNIEnv * env,
+        jobject obj, jlong jcollision_world, jint id) {
+    CollisionWorld* collision_world =
+            reinterpret_cast<CollisionWorld*>(jcollision_world);
+    std::vector<int> overlaps;
+    collision_world->findOverlaps(id, overlaps);
+    return toIntArray(env, overlaps);
+}
+}
@@ -33,7 +33,7 @@ float CameraRig::default_camera_separation_distance_ = 0.062f;
 
 CameraRig::CameraRig() :
         Component(), camera_rig_type_(DEFAULT_CAMERA_RIG_TYPE), left_camera_(), right_camera_(), center_camera_(), camera_separation_distance_(
-                default_camera_separation_distance_), floats_(), vec2s_(), vec3s_(), vec4s_(), complementary_rotation_(), rotation_sensor_data_() {
+                default_camera_separation_distance_), floats_(), vec2s_(), vec3s_(), vec4s_(), complementary_rotation_(), rotation_sensor_data_(), predictor_(), recording_pending_(false), recorder_mutex_(), pending_recorder_(), recorder_() {
 }
 
 CameraRig::~CameraRig() {
@@ -94,14 +94,15 @@ void CameraRig::attachCenterCamera(PerspectiveCamera* const center_camera) {
 }
 
 void CameraRig::reset() {
-    complementary_rotation_ = glm::inverse(rotation_sensor_data_.quaternion());
+    setComplementaryRotation(glm::inverse(rotation_sensor_data_.quaternion()));
 }
 
 void CameraRig::resetYaw() {
     glm::vec3 look_at = glm::rotate(rotation_sensor_data_.quaternion(),
             glm::vec3(0.0f, 0.0f, -1.0f));
     float yaw = atan2f(-look_at.x, -look_at.z) * 180.0f / M_PI;
-    complementary_rotation_ = glm::angleAxis(-yaw, glm::vec3(0.0f, 1.0f, 0.0f));
+    setComplementaryRotation(
+            glm::angleAxis(-yaw, glm::vec3(0.0f, 1.0f, 0.0f)));
 }
 
 void CameraRig::resetYawPitch() {
@@ -113,7 +114,16 @@ void CameraRig::resetYawPitch() {
     float yaw = atan2f(-look_at.x, -look_at.z) * 180.0f / M_PI;
     glm::quat quat = glm::angleAxis(pitch, glm::vec3(1.0f, 0.0f, 0.0f));
     quat = glm::angleAxis(yaw, glm::vec3(0.0f, 1.0f, 0.0f)) * quat;
-    complementary_rotation_ = glm::inverse(quat);
+    setComplementaryRotation(glm::inverse(quat));
+}
+
+void CameraRig::setComplementaryRotation(
+        const glm::quat& complementary_rotation) {
+    complementary_rotation_ = complementary_rotation;
+    std::lock_guard<std::mutex> lock(recorder_mutex_);
+    if (recorder_) {
+        recorder_->complementaryRotation(complementary_rotation);
+    }
 }
 
 void CameraRig::setRotationSensorData(long long time_stamp, float w, float x,
@@ -126,20 +136,72 @@ void CameraRig::predict(float time) {
 }
 
 void CameraRig::predict(float time, const RotationSensorData& rotationSensorData) {
-    long long clock_time = getCurrentTime();
+    predict(time, rotationSensorData, getCurrentTime());
+}
+
+/*
+ * time is how far from clock_time the frame is expected to reach the
+ * display, in seconds. The sample was taken some time before clock_time,
+ * so the prediction horizon covers both.
+ */
+void CameraRig::predict(float time, const RotationSensorData& rotationSensorData,
+        long long clock_time) {
+    if (recording_pending_.load()) {
+        beginRecording();
+    }
+    if (recorder_ && recorder_->isOpen()) {
+        if (rotationSensorData.time_stamp() != 0) {
+            recorder_->sample(rotationSensorData.time_stamp(),
+                    rotationSensorData.quaternion(), rotationSensorData.gyro());
+        }
+        recorder_->frame(clock_time, time);
+    }
+
+    if (0 == rotationSensorData.time_stamp()) {
+        setRotation(complementary_rotation_ * rotationSensorData.quaternion());
+        return;
+    }
+
     float time_diff = (clock_time - rotationSensorData.time_stamp())
             / 1000000000.0f;
 
-    glm::vec3 axis = rotationSensorData.gyro();
-    //the magnitude of the gyro vector should be the angular velocity, rad/sec
-    float angle = glm::length(axis);
+    setRotation(complementary_rotation_
+            * predictor_.predict(rotationSensorData, time_diff + time));
+}
+
+bool CameraRig::startRecording(const std::string& path) {
+    std::unique_ptr<SensorTraceWriter> recorder(new SensorTraceWriter());
+    if (!recorder->open(path)) {
+        return false;
+    }
+    std::lock_guard<std::mutex> lock(recorder_mutex_);
+    pending_recorder_ = std::move(recorder);
+    recording_pending_.store(true);
+    return true;
+}
 
-    //normalize the axis
-    if (angle != 0.0f) {
-        axis /= angle;
+void CameraRig::stopRecording() {
+    std::lock_guard<std::mutex> lock(recorder_mutex_);
+    pending_recorder_.reset();
+    recording_pending_.store(false);
+    if (recorder_) {
+        recorder_->close();
     }
+}
 
-    setRotation(complementary_rotation_*rotationSensorData.quaternion());
+/*
+ * On the GL thread, which alone predicts: resetting the predictor from
+ * startRecording() would race with a prediction under way.
+ */
+void CameraRig::beginRecording() {
+    std::lock_guard<std::mutex> lock(recorder_mutex_);
+    if (!pending_recorder_) {
+        return;
+    }
+    recorder_ = std::move(pending_recorder_);
+    recording_pending_.store(false);
+    predictor_.reset();
+    recorder_->complementaryRotation(complementary_rotation_);
 }
 
 void CameraRig::setRotation(const glm::quat& transform_rotation) {
@@ -21,8 +21,10 @@
 #ifndef CAMERA_RIG_H_
 #define CAMERA_RIG_H_
 
+#include <atomic>
 #include <map>
 #include <memory>
+#include <mutex>
 #include <string>
 #include <vector>
 
@@ -31,7 +33,9 @@
 
 #include "objects/components/component.h"
 #include "objects/components/transform.h"
+#include "objects/head_pose_predictor.h"
 #include "objects/rotation_sensor_data.h"
+#include "objects/sensor_trace.h"
 
 namespace gvr {
 class Camera;
@@ -137,16 +141,31 @@ public:
         vec4s_[key] = vector;
     }
 
+    HeadPosePredictor& predictor() {
+        return predictor_;
+    }
+
     void attachLeftCamera(Camera* const left_camera);
     void attachRightCamera(Camera* const right_camera);
     void attachCenterCamera(PerspectiveCamera* const center_camera);
     void reset();
     void resetYaw();
     void resetYawPitch();
+    void setComplementaryRotation(const glm::quat& complementary_rotation);
     void setRotationSensorData(long long time_stamp, float w, float x, float y,
             float z, float gyro_x, float gyro_y, float gyro_z);
     void predict(float time);
     void predict(float time, const RotationSensorData& rotationSensorData);
+    void predict(float time, const RotationSensorData& rotationSensorData,
+            long long clock_time);
+    const RotationSensorData& rotation_sensor_data() const {
+        return rotation_sensor_data_;
+    }
+    // Records every sample, prediction and reset from the next predict() on:
+    // see sensor_trace.h. The file is opened here, but the GL thread starts
+    // the recording, with a new predictor, since a replay starts with one.
+    bool startRecording(const std::string& path);
+    void stopRecording();
     Transform* getHeadTransform() const; // for rotation/k-sensor
     glm::vec3 getLookAt() const;
     void setRotation(const glm::quat& transform_rotation);
@@ -156,6 +175,7 @@ private:
     CameraRig(CameraRig&& camera_rig);
     CameraRig& operator=(const CameraRig& camera_rig);
     CameraRig& operator=(CameraRig&& camera_rig);
+    void beginRecording();
 
 private:
     static const CameraRigType DEFAULT_CAMERA_RIG_TYPE = FREE;
@@ -172,6 +192,13 @@ private:
     std::map<std::string, glm::vec4> vec4s_;
     glm::quat complementary_rotation_;
     RotationSensorData rotation_sensor_data_;
+    HeadPosePredictor predictor_;
+    // Opened by startRecording(), taken over by predict() on the GL thread,
+    // which alone owns recorder_ and the predictor
+    std::atomic<bool> recording_pending_;
+    std::mutex recorder_mutex_;
+    std::unique_ptr<SensorTraceWriter> pending_recorder_;
+    std::unique_ptr<SensorTraceWriter> recorder_;
 };
 
 }
@@ -115,6 +115,28 @@ Java_org_gearvrf_NativeCameraRig_setRotationSensorData(
 JNIEXPORT void JNICALL
 Java_org_gearvrf_NativeCameraRig_predict(JNIEnv * env, jobject obj, jlong jcamera_rig, jfloat time);
 
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_NativeCameraRig_getPredictionType(JNIEnv * env,
+        jobject obj, jlong jcamera_rig);
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeCameraRig_setPredictionType(JNIEnv * env,
+        jobject obj, jlong jcamera_rig, jint prediction_type);
+JNIEXPORT jfloat JNICALL
+Java_org_gearvrf_NativeCameraRig_getMaxPredictionTime(JNIEnv * env,
+        jobject obj, jlong jcamera_rig);
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeCameraRig_setMaxPredictionTime(JNIEnv * env,
+        jobject obj, jlong jcamera_rig, jfloat time);
+
+JNIEXPORT jboolean JNICALL
+Java_org_gearvrf_NativeCameraRig_startSensorRecording(JNIEnv * env,
+        jobject obj, jlong jcamera_rig, jstring path);
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeCameraRig_stopSensorRecording(JNIEnv * env,
+        jobject obj, jlong jcamera_rig);
+
 JNIEXPORT jfloatArray JNICALL
 Java_org_gearvrf_NativeCameraRig_getLookAt(JNIEnv * env,
         jobject obj, jlong jcamera_rig);
@@ -342,6 +364,52 @@ Java_org_gearvrf_NativeCameraRig_predict(JNIEnv * env, jobject obj, jlong jcamer
     camera_rig->predict(time);
 }
 
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_NativeCameraRig_getPredictionType(JNIEnv * env,
+        jobject obj, jlong jcamera_rig) {
+    CameraRig* camera_rig = reinterpret_cast<CameraRig*>(jcamera_rig);
+    return static_cast<jint>(camera_rig->predictor().prediction_type());
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeCameraRig_setPredictionType(JNIEnv * env,
+        jobject obj, jlong jcamera_rig, jint prediction_type) {
+    CameraRig* camera_rig = reinterpret_cast<CameraRig*>(jcamera_rig);
+    camera_rig->predictor().set_prediction_type(
+            static_cast<HeadPosePredictor::PredictionType>(prediction_type));
+}
+
+JNIEXPORT jfloat JNICALL
+Java_org_gearvrf_NativeCameraRig_getMaxPredictionTime(JNIEnv * env,
+        jobject obj, jlong jcamera_rig) {
+    CameraRig* camera_rig = reinterpret_cast<CameraRig*>(jcamera_rig);
+    return camera_rig->predictor().max_prediction_time();
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeCameraRig_setMaxPredictionTime(JNIEnv * env,
+        jobject obj, jlong jcamera_rig, jfloat time) {
+    CameraRig* camera_rig = reinterpret_cast<CameraRig*>(jcamera_rig);
+    camera_rig->predictor().set_max_prediction_time(time);
+}
+
+JNIEXPORT jboolean JNICALL
+Java_org_gearvrf_NativeCameraRig_startSensorRecording(JNIEnv * env,
+        jobject obj, jlong jcamera_rig, jstring path) {
+    CameraRig* camera_rig = reinterpret_cast<CameraRig*>(jcamera_rig);
+    const char* char_path = env->GetStringUTFChars(path, 0);
+    std::string native_path = std::string(char_path);
+    env->ReleaseStringUTFChars(path, char_path);
+    return camera_rig->startRecording(native_path);
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeCameraRig_stopSensorRecording(JNIEnv * env,
+        jobject obj, jlong jcamera_rig) {
+    CameraRig* camera_rig = reinterpret_cast<CameraRig*>(jcamera_rig);
+    camera_rig->stopRecording();
+}
+
 JNIEXPORT jfloatArray JNICALL
 Java_org_gearvrf_NativeCameraRig_getLookAt(JNIEnv * env,
         jobject obj, jlong jcamera_rig) {
@@ -27,6 +27,7 @@
 #include "glm/glm.hpp"
 
 #include "objects/components/component.h"
+#include "objects/instance_buffer.h"
 #include "objects/render_pass.h"
 #include "objects/components/texture_capturer.h"
 
@@ -54,11 +55,12 @@ public:
                     DEFAULT_RENDER_MASK), rendering_order_(
                     DEFAULT_RENDERING_ORDER), offset_(false), offset_factor_(
                     0.0f), offset_units_(0.0f), depth_test_(true), alpha_blend_(
-                    true), draw_mode_(GL_TRIANGLES), texture_capturer(0) {
+                    true), draw_mode_(GL_TRIANGLES), occluder_(false), texture_capturer(0), instance_buffer_(0) {
     }
 
     ~RenderData() {
         render_pass_list_.clear();
+        delete instance_buffer_;
     }
 
     Mesh* mesh() const {
@@ -141,7 +143,7 @@ public:
             return render_pass_list_[pass]->cull_face();
         }
 
-        return nullptr;
+        return false;
     }
 
     void set_cull_face(int cull_face, int pass) {
@@ -194,6 +196,14 @@ public:
         return draw_mode_;
     }
 
+    bool occluder() const {
+        return occluder_;
+    }
+
+    void set_occluder(bool occluder) {
+        occluder_ = occluder;
+    }
+
     void set_camera_distance(float distance) {
         camera_distance_ = distance;
     }
@@ -214,6 +224,29 @@ public:
         return texture_capturer;
     }
 
+    /*
+     * Draw the mesh once per instance, instead of once. data holds count
+     * packed instances: see InstanceBuffer. A count of 0 turns instancing
+     * off.
+     */
+    void set_instances(const float* data, int count) {
+        if (instance_buffer_ == 0) {
+            if (count <= 0) {
+                return;
+            }
+            instance_buffer_ = new InstanceBuffer();
+        }
+        instance_buffer_->set_instances(data, count > 0 ? count : 0);
+    }
+
+    bool instanced() const {
+        return instance_buffer_ != 0 && instance_buffer_->instance_count() > 0;
+    }
+
+    InstanceBuffer* instance_buffer() const {
+        return instance_buffer_;
+    }
+
 private:
     RenderData(const RenderData& render_data);
     RenderData(RenderData&& render_data);
@@ -235,8 +268,10 @@ private:
     bool depth_test_;
     bool alpha_blend_;
     GLenum draw_mode_;
+    bool occluder_;
     float camera_distance_;
     TextureCapturer *texture_capturer;
+    InstanceBuffer* instance_buffer_;
 };
 
 inline bool compareRenderData(RenderData* i, RenderData* j) {
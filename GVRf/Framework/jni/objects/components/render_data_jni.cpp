@@ -114,6 +114,18 @@ Java_org_gearvrf_NativeRenderData_setDrawMode(
 JNIEXPORT void JNICALL
 Java_org_gearvrf_NativeRenderData_setTextureCapturer(JNIEnv * env, jobject obj,
         jlong jrender_data, jlong jtexture_capturer);
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeRenderData_setInstances(JNIEnv * env,
+        jobject obj, jlong jrender_data, jfloatArray instances);
+
+JNIEXPORT jboolean JNICALL
+Java_org_gearvrf_NativeRenderData_getOccluder(JNIEnv * env,
+        jobject obj, jlong jrender_data);
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeRenderData_setOccluder(JNIEnv * env,
+        jobject obj, jlong jrender_data, jboolean occluder);
 }
 ;
 
@@ -281,4 +293,33 @@ Java_org_gearvrf_NativeRenderData_setTextureCapturer(JNIEnv * env, jobject obj,
             reinterpret_cast<TextureCapturer*>(jtexture_capturer));
 }
 
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeRenderData_setInstances(JNIEnv * env,
+        jobject obj, jlong jrender_data, jfloatArray instances) {
+    RenderData* render_data = reinterpret_cast<RenderData*>(jrender_data);
+    if (instances == 0) {
+        render_data->set_instances(nullptr, 0);
+        return;
+    }
+    jfloat* instances_pointer = env->GetFloatArrayElements(instances, 0);
+    int count = static_cast<int>(env->GetArrayLength(instances))
+            / InstanceBuffer::FLOATS_PER_INSTANCE;
+    render_data->set_instances(instances_pointer, count);
+    env->ReleaseFloatArrayElements(instances, instances_pointer, JNI_ABORT);
+}
+
+JNIEXPORT jboolean JNICALL
+Java_org_gearvrf_NativeRenderData_getOccluder(JNIEnv * env,
+        jobject obj, jlong jrender_data) {
+    RenderData* render_data = reinterpret_cast<RenderData*>(jrender_data);
+    return static_cast<jboolean>(render_data->occluder());
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeRenderData_setOccluder(JNIEnv * env,
+        jobject obj, jlong jrender_data, jboolean occluder) {
+    RenderData* render_data = reinterpret_cast<RenderData*>(jrender_data);
+    render_data->set_occluder(static_cast<bool>(occluder));
+}
+
 }
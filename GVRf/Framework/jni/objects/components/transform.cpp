@@ -23,23 +23,39 @@
 
 #include "objects/scene_object.h"
 #include <math.h>
+#include <algorithm>
 namespace gvr {
+std::mutex Transform::dirty_roots_mutex_;
+std::vector<Transform*> Transform::dirty_roots_;
+unsigned int Transform::dirty_roots_taken_ = 0;
+
 Transform::Transform() :
         Component(), position_(glm::vec3(0.0f, 0.0f, 0.0f)), rotation_(
                 glm::quat(1.0f, 0.0f, 0.0f, 0.0f)), scale_(
                 glm::vec3(1.0f, 1.0f, 1.0f)), model_matrix_(
-                Lazy<glm::mat4>(glm::mat4())) {
+                Lazy<glm::mat4>(glm::mat4())), version_(0), dirty_root_(false) {
 }
 
 Transform::~Transform() {
+    std::lock_guard<std::mutex> lock(dirty_roots_mutex_);
+    if (dirty_root_) {
+        dirty_roots_.erase(
+                std::remove(dirty_roots_.begin(), dirty_roots_.end(), this),
+                dirty_roots_.end());
+    }
 }
 
 void Transform::invalidate(bool rotationUpdated) {
     if (model_matrix_.isValid()) {
         model_matrix_.invalidate();
-        std::vector<SceneObject*> children(owner_object()->children());
-        for (auto it = children.begin(); it != children.end(); ++it) {
-            (*it)->transform()->invalidate(false);
+        ++version_;
+        if (owner_object()) {
+            invalidateDescendants(owner_object());
+            std::lock_guard<std::mutex> lock(dirty_roots_mutex_);
+            if (!dirty_root_) {
+                dirty_root_ = true;
+                dirty_roots_.push_back(this);
+            }
         }
     }
     if (rotationUpdated) {
@@ -60,14 +76,65 @@ void Transform::invalidate(bool rotationUpdated) {
     }
 }
 
+/*
+ * Invalidate every model matrix below scene_object, depth first, without
+ * recursing or copying children lists. A child whose matrix is already
+ * invalid is skipped: nothing below an invalid matrix can be valid, because
+ * getModelMatrix() validates the parents first.
+ */
+void Transform::invalidateDescendants(SceneObject* scene_object) {
+    static const int MAX_DEPTH = 32;
+    SceneObject* objects[MAX_DEPTH];
+    size_t next_child[MAX_DEPTH];
+    int depth = 0;
+    objects[0] = scene_object;
+    next_child[0] = 0;
+
+    while (depth >= 0) {
+        const std::vector<SceneObject*>& children = objects[depth]->children();
+        if (next_child[depth] >= children.size()) {
+            --depth;
+            continue;
+        }
+        SceneObject* child = children[next_child[depth]++];
+        child->dirtyBoundingVolume();
+        Transform* transform = child->transform();
+        if (transform == nullptr || !transform->model_matrix_.isValid()) {
+            continue;
+        }
+        transform->model_matrix_.invalidate();
+        ++transform->version_;
+        if (depth + 1 < MAX_DEPTH) {
+            ++depth;
+            objects[depth] = child;
+            next_child[depth] = 0;
+        } else {
+            // Deeper than any real hierarchy: fall back to recursion
+            invalidateDescendants(child);
+        }
+    }
+}
+
+unsigned int Transform::takeDirtyRoots(std::vector<Transform*>& roots) {
+    roots.clear();
+    std::lock_guard<std::mutex> lock(dirty_roots_mutex_);
+    roots.swap(dirty_roots_);
+    for (auto it = roots.begin(); it != roots.end(); ++it) {
+        (*it)->dirty_root_ = false;
+    }
+    return ++dirty_roots_taken_;
+}
+
+glm::mat4 Transform::getLocalMatrix() const {
+    glm::mat4 translation_matrix = glm::translate(glm::mat4(), position_);
+    glm::mat4 rotation_matrix = glm::mat4_cast(rotation_);
+    glm::mat4 scale_matrix = glm::scale(glm::mat4(), scale_);
+    return translation_matrix * rotation_matrix * scale_matrix;
+}
+
 glm::mat4 Transform::getModelMatrix() {
     if (!model_matrix_.isValid()) {
-        glm::mat4 translation_matrix = glm::translate(glm::mat4(), position_);
-        glm::mat4 rotation_matrix = glm::mat4_cast(rotation_);
-        glm::mat4 scale_matrix = glm::scale(glm::mat4(), scale_);
-
-        glm::mat4 trs_matrix = translation_matrix * rotation_matrix
-                * scale_matrix;
+        glm::mat4 trs_matrix = getLocalMatrix();
         if (owner_object()->parent() != 0) {
             glm::mat4 model_matrix =
                     owner_object()->parent()->transform()->getModelMatrix()
@@ -81,6 +148,15 @@ glm::mat4 Transform::getModelMatrix() {
     return model_matrix_.element();
 }
 
+const glm::mat4& Transform::updateModelMatrix(const glm::mat4* parent_matrix) {
+    if (parent_matrix != nullptr) {
+        model_matrix_.validate(*parent_matrix * getLocalMatrix());
+    } else {
+        model_matrix_.validate(getLocalMatrix());
+    }
+    return model_matrix_.element();
+}
+
 void Transform::setModelMatrix(glm::mat4 matrix) {
 
 	glm::vec3 new_position(matrix[3][0], matrix[3][1], matrix[3][2]);
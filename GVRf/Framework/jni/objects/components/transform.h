@@ -22,6 +22,8 @@
 #define TRANSFORM_H_
 
 #include <memory>
+#include <mutex>
+#include <vector>
 
 #include "glm/glm.hpp"
 #include "glm/gtx/quaternion.hpp"
@@ -31,6 +33,8 @@
 #include "objects/components/component.h"
 
 namespace gvr {
+class SceneObject;
+
 class Transform: public Component {
 public:
     Transform();
@@ -169,6 +173,41 @@ public:
 
     void invalidate(bool rotationUpdated);
     glm::mat4 getModelMatrix();
+
+    /*
+     * Translation * rotation * scale, without the parent's model matrix.
+     */
+    glm::mat4 getLocalMatrix() const;
+
+    bool isModelMatrixValid() {
+        return model_matrix_.isValid();
+    }
+
+    /*
+     * Recompute the model matrix from the parent's model matrix, without
+     * walking up the hierarchy. Pass nullptr for an object with no parent.
+     * Gives exactly the matrix getModelMatrix() would.
+     */
+    const glm::mat4& updateModelMatrix(const glm::mat4* parent_matrix);
+
+    /*
+     * Every transform whose valid model matrix was invalidated since the last
+     * call - the roots of the dirty subtrees - is moved into roots, which is
+     * cleared first. The list keeps its capacity, so a per-frame caller does
+     * no heap allocation once it has warmed up. Returns the number of calls
+     * so far, so a caller can tell if another caller took roots in between.
+     */
+    static unsigned int takeDirtyRoots(std::vector<Transform*>& roots);
+
+    /*
+     * Bumped whenever this model matrix is invalidated - directly, or through
+     * an ancestor - so a cache of anything derived from it can tell whether
+     * it is stale without recomputing the matrix.
+     */
+    unsigned int version() const {
+        return version_;
+    }
+
     void translate(float x, float y, float z);
     void setRotationByAxis(float angle, float x, float y, float z);
     void rotate(float w, float x, float y, float z);
@@ -185,12 +224,20 @@ private:
     Transform& operator=(const Transform& transform);
     Transform& operator=(Transform&& transform);
 
+    static void invalidateDescendants(SceneObject* scene_object);
+
 private:
+    static std::mutex dirty_roots_mutex_;
+    static std::vector<Transform*> dirty_roots_;
+    static unsigned int dirty_roots_taken_;
+
     glm::vec3 position_;
     glm::quat rotation_;
     glm::vec3 scale_;
 
     Lazy<glm::mat4> model_matrix_;
+    unsigned int version_;
+    bool dirty_root_;
 };
 
 }
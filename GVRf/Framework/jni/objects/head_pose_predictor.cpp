@@ -0,0 +1,120 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/***************************************************************************
+ * Predicts the head's orientation when a frame reaches the display.
+ ***************************************************************************/
+
+#include "head_pose_predictor.h"
+
+#include <cmath>
+
+#include "objects/rotation_sensor_data.h"
+
+namespace gvr {
+
+const float HeadPosePredictor::DEFAULT_MAX_PREDICTION_TIME = 0.1f;
+const float HeadPosePredictor::ACCELERATION_TIME_CONSTANT = 0.03f;
+const float HeadPosePredictor::ACCELERATION_SMOOTHING = 0.3f;
+
+HeadPosePredictor::HeadPosePredictor() :
+        prediction_type_(CONSTANT_VELOCITY), max_prediction_time_(
+                DEFAULT_MAX_PREDICTION_TIME), previous_time_stamp_(0), previous_rotation_(), angular_velocity_(), angular_acceleration_() {
+}
+
+void HeadPosePredictor::reset() {
+    previous_time_stamp_ = 0;
+    angular_velocity_ = glm::vec3();
+    angular_acceleration_ = glm::vec3();
+}
+
+glm::quat HeadPosePredictor::axisAngle(const glm::vec3& axis, float angle) {
+    float half = angle * 0.5f;
+    float s = sinf(half);
+    return glm::quat(cosf(half), axis.x * s, axis.y * s, axis.z * s);
+}
+
+float HeadPosePredictor::angleBetween(const glm::quat& a, const glm::quat& b) {
+    float dot = fabsf(glm::dot(a, b));
+    return 2.0f * acosf(dot < 1.0f ? dot : 1.0f);
+}
+
+void HeadPosePredictor::update(const RotationSensorData& sample) {
+    long long time_stamp = sample.time_stamp();
+    if (time_stamp == previous_time_stamp_) {
+        return;
+    }
+
+    glm::vec3 velocity = sample.gyro();
+    float dt = (time_stamp - previous_time_stamp_) / 1000000000.0f;
+    bool has_previous = previous_time_stamp_ != 0 && dt > 0.0f;
+
+    if (velocity == glm::vec3() && has_previous) {
+        // No gyro: the body-frame rotation from the last sample to this one
+        glm::quat delta = glm::conjugate(previous_rotation_)
+                * sample.quaternion();
+        if (delta.w < 0.0f) {
+            delta = -delta;
+        }
+        glm::vec3 axis(delta.x, delta.y, delta.z);
+        float sin_half = glm::length(axis);
+        if (sin_half > 0.0f) {
+            float angle = 2.0f * atan2f(sin_half, delta.w);
+            velocity = axis * (angle / (sin_half * dt));
+        }
+    }
+
+    if (has_previous) {
+        glm::vec3 acceleration = (velocity - angular_velocity_) / dt;
+        angular_acceleration_ += (acceleration - angular_acceleration_)
+                * ACCELERATION_SMOOTHING;
+    } else {
+        angular_acceleration_ = glm::vec3();
+    }
+
+    angular_velocity_ = velocity;
+    previous_rotation_ = sample.quaternion();
+    previous_time_stamp_ = time_stamp;
+}
+
+glm::quat HeadPosePredictor::predict(const RotationSensorData& sample,
+        float horizon) {
+    update(sample);
+
+    if (prediction_type_ == NONE || horizon <= 0.0f) {
+        return sample.quaternion();
+    }
+    if (horizon > max_prediction_time_) {
+        horizon = max_prediction_time_;
+    }
+
+    // The rotation vector swept over the horizon
+    glm::vec3 rotation = angular_velocity_ * horizon;
+    if (prediction_type_ == DAMPED_ACCELERATION) {
+        // Angular velocity w + a * tau * (1 - e^(-t / tau)), integrated
+        const float tau = ACCELERATION_TIME_CONSTANT;
+        float decay = expf(-horizon / tau);
+        rotation += angular_acceleration_
+                * (tau * (horizon - tau * (1.0f - decay)));
+    }
+
+    float angle = glm::length(rotation);
+    if (angle == 0.0f) {
+        return sample.quaternion();
+    }
+    return sample.quaternion() * axisAngle(rotation / angle, angle);
+}
+
+}
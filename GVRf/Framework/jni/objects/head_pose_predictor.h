@@ -0,0 +1,109 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/***************************************************************************
+ * Predicts the head's orientation when a frame reaches the display.
+ ***************************************************************************/
+
+#ifndef HEAD_POSE_PREDICTOR_H_
+#define HEAD_POSE_PREDICTOR_H_
+
+#include "glm/glm.hpp"
+#include "glm/gtc/quaternion.hpp"
+
+namespace gvr {
+class RotationSensorData;
+
+/*
+ * The rotation sensor's newest sample is already some milliseconds old when
+ * a frame starts, and the frame reaches the display some milliseconds
+ * later. The predictor turns the sample forward by that much, using the
+ * head's angular velocity: the gyro reading, when the sensor has one, or
+ * the rotation between the last two samples when it doesn't.
+ *
+ * Angular velocity is in the sensor's body frame, in radians per second,
+ * which is the frame KSensor integrates its gyro in.
+ */
+class HeadPosePredictor {
+public:
+    enum PredictionType {
+        // The sample as it is: no latency compensated
+        NONE = 0,
+        // Keeps turning at the current angular velocity
+        CONSTANT_VELOCITY = 1,
+        // Keeps accelerating at the current rate, but less and less so
+        DAMPED_ACCELERATION = 2,
+    };
+
+    HeadPosePredictor();
+
+    PredictionType prediction_type() const {
+        return prediction_type_;
+    }
+
+    void set_prediction_type(PredictionType prediction_type) {
+        prediction_type_ = prediction_type;
+    }
+
+    // Predictions never reach further ahead than this, in seconds: a stale
+    // sample is not extrapolated wildly
+    float max_prediction_time() const {
+        return max_prediction_time_;
+    }
+
+    void set_max_prediction_time(float max_prediction_time) {
+        max_prediction_time_ = max_prediction_time;
+    }
+
+    const glm::vec3& angular_velocity() const {
+        return angular_velocity_;
+    }
+
+    /*
+     * The orientation horizon seconds after the sample was taken. A sample
+     * newer than the last one updates the velocity estimate; predicting
+     * from the same sample again, for the second eye, doesn't.
+     */
+    glm::quat predict(const RotationSensorData& sample, float horizon);
+
+    // Forget the velocity estimate, say when the sensor changes
+    void reset();
+
+    // The rotation by angle radians about a unit axis
+    static glm::quat axisAngle(const glm::vec3& axis, float angle);
+
+    // The angle between two orientations, in radians
+    static float angleBetween(const glm::quat& a, const glm::quat& b);
+
+private:
+    void update(const RotationSensorData& sample);
+
+private:
+    static const float DEFAULT_MAX_PREDICTION_TIME;
+    // How quickly the acceleration term of DAMPED_ACCELERATION fades, and
+    // how heavily its estimate is smoothed
+    static const float ACCELERATION_TIME_CONSTANT;
+    static const float ACCELERATION_SMOOTHING;
+
+    PredictionType prediction_type_;
+    float max_prediction_time_;
+    long long previous_time_stamp_;
+    glm::quat previous_rotation_;
+    glm::vec3 angular_velocity_;
+    glm::vec3 angular_acceleration_;
+};
+
+}
+#endif
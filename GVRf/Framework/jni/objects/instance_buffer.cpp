@@ -0,0 +1,157 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/***************************************************************************
+ * Per-instance data for drawing one mesh many times in one draw call.
+ ***************************************************************************/
+
+#include "instance_buffer.h"
+
+#include <cstring>
+
+#include "glm/gtc/type_ptr.hpp"
+
+#include "gl/gl_program.h"
+#include "objects/mesh.h"
+#include "util/gvr_gl.h"
+
+namespace gvr {
+
+void InstanceBuffer::set_instances(const float* data, int count) {
+    instances_.assign(data, data + count * FLOATS_PER_INSTANCE);
+    visible_.resize(instances_.size());
+    visible_count_ = 0;
+    vbo_dirty_ = true;
+}
+
+int InstanceBuffer::cull(const float (*frustum)[4],
+        const glm::mat4& model_matrix, const BoundingVolume& bounding_volume) {
+    const glm::vec4 center(bounding_volume.center(), 1.0f);
+    const float radius = bounding_volume.radius();
+
+    const int count = instance_count();
+    const float* instance = instances_.data();
+    float* packed = visible_.data();
+    int visible = 0;
+
+    for (int i = 0; i < count; ++i, instance += FLOATS_PER_INSTANCE) {
+        glm::mat4 local = glm::make_mat4(instance);
+
+        if (frustum != nullptr) {
+            // Transform the mesh's bounding sphere by the instance matrix;
+            // the largest axis scale bounds the new radius
+            glm::vec4 c = local * center;
+            float scale = glm::max(glm::length(glm::vec3(local[0])),
+                    glm::max(glm::length(glm::vec3(local[1])),
+                            glm::length(glm::vec3(local[2]))));
+            float r = radius * scale;
+
+            bool inside = true;
+            for (int p = 0; p < 6; ++p) {
+                if (frustum[p][0] * c.x + frustum[p][1] * c.y
+                        + frustum[p][2] * c.z + frustum[p][3] < -r) {
+                    inside = false;
+                    break;
+                }
+            }
+            if (!inside) {
+                continue;
+            }
+        }
+
+        glm::mat4 world = model_matrix * local;
+        memcpy(packed, glm::value_ptr(world), sizeof(float) * MATRIX_FLOATS);
+        memcpy(packed + MATRIX_FLOATS, instance + MATRIX_FLOATS,
+                sizeof(float) * COLOR_FLOATS);
+        packed += FLOATS_PER_INSTANCE;
+        ++visible;
+    }
+
+    visible_count_ = visible;
+    vbo_dirty_ = true;
+    return visible;
+}
+
+GLuint InstanceBuffer::getVAOId(Mesh* mesh, GLuint model_location,
+        GLuint color_location) {
+#if _GVRF_USE_GLES3_
+    mesh->generateVAO();
+
+    if (instance_vboID_ == GVR_INVALID) {
+        glGenBuffers(1, &instance_vboID_);
+    }
+
+    if (vbo_dirty_) {
+        int size = visible_count_ * FLOATS_PER_INSTANCE * sizeof(float);
+        glBindBuffer(GL_ARRAY_BUFFER, instance_vboID_);
+        if (size > vbo_capacity_) {
+            // Grow geometrically, so a slowly growing crowd doesn't realloc
+            // every frame
+            vbo_capacity_ = glm::max(size, vbo_capacity_ * 2);
+        }
+        // Orphan the old storage instead of waiting for the GPU to finish
+        // with it
+        glBufferData(GL_ARRAY_BUFFER, vbo_capacity_, nullptr, GL_STREAM_DRAW);
+        if (size > 0) {
+            glBufferSubData(GL_ARRAY_BUFFER, 0, size, visible_.data());
+        }
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        vbo_dirty_ = false;
+    }
+
+    if (vaoID_ != GVR_INVALID
+            && vao_vertex_vboID_ == mesh->getVertexBufferId()) {
+        return vaoID_;
+    }
+
+    if (vaoID_ != GVR_INVALID) {
+        gl_delete.queueVertexArray(vaoID_);
+    }
+    vao_vertex_vboID_ = mesh->getVertexBufferId();
+
+    glGenVertexArrays(1, &vaoID_);
+    glBindVertexArray(vaoID_);
+
+    glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, mesh->getIndexBufferId());
+
+    // In whatever layout the mesh has its data
+    mesh->bindVertexAttribute(GLProgram::POSITION_ATTRIBUTE_LOCATION);
+    mesh->bindVertexAttribute(GLProgram::TEXCOORD_ATTRIBUT_LOCATION);
+
+    const GLsizei stride = FLOATS_PER_INSTANCE * sizeof(float);
+    glBindBuffer(GL_ARRAY_BUFFER, instance_vboID_);
+    for (int column = 0; column < 4; ++column) {
+        GLuint location = model_location + column;
+        glEnableVertexAttribArray(location);
+        glVertexAttribPointer(location, 4, GL_FLOAT, GL_FALSE, stride,
+                reinterpret_cast<const GLvoid*>(column * 4 * sizeof(float)));
+        glVertexAttribDivisor(location, 1);
+    }
+    glEnableVertexAttribArray(color_location);
+    glVertexAttribPointer(color_location, 4, GL_FLOAT, GL_FALSE, stride,
+            reinterpret_cast<const GLvoid*>(MATRIX_FLOATS * sizeof(float)));
+    glVertexAttribDivisor(color_location, 1);
+
+    glBindVertexArray(0);
+    glBindBuffer(GL_ARRAY_BUFFER, 0);
+    glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 0);
+
+    return vaoID_;
+#else
+    return GVR_INVALID;
+#endif
+}
+
+}
@@ -0,0 +1,124 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/***************************************************************************
+ * Per-instance data for drawing one mesh many times in one draw call.
+ *
+ * Each instance is a model matrix, relative to the owner object, and a
+ * color. Culling tests each instance's bounding sphere, and packs the
+ * survivors - already multiplied by the owner's model matrix - into a
+ * contiguous array, which is what gets uploaded to the GPU.
+ ***************************************************************************/
+
+#ifndef INSTANCE_BUFFER_H_
+#define INSTANCE_BUFFER_H_
+
+#include <vector>
+
+#ifndef GL_ES_VERSION_3_0
+#include "GLES3/gl3.h"
+#endif
+
+#include "glm/glm.hpp"
+
+#include "objects/bounding_volume.h"
+#include "engine/memory/gl_delete.h"
+
+namespace gvr {
+class Mesh;
+
+class InstanceBuffer {
+public:
+    // Packed layout of one instance: a column-major mat4, then r, g, b, a
+    static const int MATRIX_FLOATS = 16;
+    static const int COLOR_FLOATS = 4;
+    static const int FLOATS_PER_INSTANCE = MATRIX_FLOATS + COLOR_FLOATS;
+
+    InstanceBuffer() :
+            instances_(), visible_(), visible_count_(0), vaoID_(GVR_INVALID), instance_vboID_(
+                    GVR_INVALID), vao_vertex_vboID_(GVR_INVALID), vbo_capacity_(
+                    0), vbo_dirty_(true) {
+    }
+
+    ~InstanceBuffer() {
+        deleteVaos();
+    }
+
+    /*
+     * Replace every instance. data holds count * FLOATS_PER_INSTANCE floats.
+     */
+    void set_instances(const float* data, int count);
+
+    int instance_count() const {
+        return instances_.size() / FLOATS_PER_INSTANCE;
+    }
+
+    /*
+     * Pack the instances whose bounding sphere is at least partly inside the
+     * frustum into the visible array, in world space. The frustum planes are
+     * in the owner's model space, normalized; pass nullptr to keep every
+     * instance.
+     *
+     * Returns the number of visible instances.
+     */
+    int cull(const float (*frustum)[4], const glm::mat4& model_matrix,
+            const BoundingVolume& bounding_volume);
+
+    int visible_count() const {
+        return visible_count_;
+    }
+
+    const float* visible_data() const {
+        return visible_.data();
+    }
+
+    /*
+     * Upload the visible instances, and return a VAO that binds the mesh's
+     * positions and texture coordinates, the mesh's indices, and one instance
+     * per draw at model_location (four columns) and color_location.
+     */
+    GLuint getVAOId(Mesh* mesh, GLuint model_location, GLuint color_location);
+
+    void deleteVaos() {
+        if (vaoID_ != GVR_INVALID)
+            gl_delete.queueVertexArray(vaoID_);
+        if (instance_vboID_ != GVR_INVALID)
+            gl_delete.queueBuffer(instance_vboID_);
+        vaoID_ = instance_vboID_ = vao_vertex_vboID_ = GVR_INVALID;
+        vbo_capacity_ = 0;
+        vbo_dirty_ = true;
+    }
+
+private:
+    InstanceBuffer(const InstanceBuffer& instance_buffer);
+    InstanceBuffer(InstanceBuffer&& instance_buffer);
+    InstanceBuffer& operator=(const InstanceBuffer& instance_buffer);
+    InstanceBuffer& operator=(InstanceBuffer&& instance_buffer);
+
+private:
+    std::vector<float> instances_;
+    std::vector<float> visible_;
+    int visible_count_;
+
+    GLuint vaoID_;
+    GLuint instance_vboID_;
+    // The mesh VBO the VAO was built against: Mesh::generateVAO() replaces it
+    GLuint vao_vertex_vboID_;
+    int vbo_capacity_;
+    bool vbo_dirty_;
+};
+}
+
+#endif
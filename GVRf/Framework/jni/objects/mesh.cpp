@@ -176,13 +176,99 @@ void Mesh::getTransformedBoundingBoxInfo(glm::mat4 *Mat,
     }
 }
 
-// generate vertex array object
-void Mesh::generateVAO() {
-#if _GVRF_USE_GLES3_
+void Mesh::declareAttributes(VertexPacker& packer) const {
+    if (vertices_.size()) {
+        packer.add(GLProgram::POSITION_ATTRIBUTE_LOCATION, &vertices_[0].x, 3,
+                vertices_.size(), VertexPacker::FLOAT);
+    }
+
+    if (normals_.size()) {
+        VertexPacker::Storage storage = VertexPacker::FLOAT;
+        if (vertex_layout_.normal_format
+                == VertexLayout::NORMAL_INT_2_10_10_10) {
+            storage = VertexPacker::INT_2_10_10_10;
+        } else if (vertex_layout_.normal_format
+                == VertexLayout::NORMAL_SNORM8) {
+            storage = VertexPacker::SNORM8;
+        }
+        packer.add(GLProgram::NORMAL_ATTRIBUTE_LOCATION, &normals_[0].x, 3,
+                normals_.size(), storage);
+    }
+
+    if (tex_coords_.size()) {
+        packer.add(GLProgram::TEXCOORD_ATTRIBUT_LOCATION, &tex_coords_[0].x, 2,
+                tex_coords_.size(),
+                vertex_layout_.tex_coord_format
+                        == VertexLayout::TEX_COORD_HALF_FLOAT ?
+                        VertexPacker::HALF_FLOAT : VertexPacker::FLOAT);
+    }
+
+    for (auto it = attribute_float_keys_.begin();
+            it != attribute_float_keys_.end(); ++it) {
+        const std::vector<float>& vector = getFloatVector(it->second);
+        packer.add(it->first, vector.data(), 1, vector.size(),
+                VertexPacker::FLOAT);
+    }
+
+    for (auto it = attribute_vec2_keys_.begin();
+            it != attribute_vec2_keys_.end(); ++it) {
+        const std::vector<glm::vec2>& vector = getVec2Vector(it->second);
+        packer.add(it->first, reinterpret_cast<const float*>(vector.data()),
+                2, vector.size(), VertexPacker::FLOAT);
+    }
 
+    for (auto it = attribute_vec3_keys_.begin();
+            it != attribute_vec3_keys_.end(); ++it) {
+        const std::vector<glm::vec3>& vector = getVec3Vector(it->second);
+        packer.add(it->first, reinterpret_cast<const float*>(vector.data()),
+                3, vector.size(), VertexPacker::FLOAT);
+    }
 
-    GLuint tmpID;
+    for (auto it = attribute_vec4_keys_.begin();
+            it != attribute_vec4_keys_.end(); ++it) {
+        const std::vector<glm::vec4>& vector = getVec4Vector(it->second);
+        packer.add(it->first, reinterpret_cast<const float*>(vector.data()),
+                4, vector.size(),
+                it->second == vertex_layout_.color_key ?
+                        VertexPacker::UNORM8 : VertexPacker::FLOAT);
+    }
+}
+
+size_t Mesh::getVertexDataSize() const {
+    VertexPacker packer(vertex_layout_.interleaved);
+    declareAttributes(packer);
+    packer.layout();
+    return packer.size() + sizeof(unsigned short) * indices_.size();
+}
+
+#if _GVRF_USE_GLES3_
+namespace {
+void enableVertexAttribute(const VertexAttribute& attribute) {
+    glBindBuffer(GL_ARRAY_BUFFER, attribute.buffer);
+    glEnableVertexAttribArray(attribute.location);
+    glVertexAttribPointer(attribute.location, attribute.size, attribute.type,
+            attribute.normalized, attribute.stride,
+            reinterpret_cast<const GLvoid*>(attribute.offset));
+}
+}
+#endif
 
+bool Mesh::bindVertexAttribute(GLuint location) const {
+#if _GVRF_USE_GLES3_
+    for (auto it = vertex_attributes_.begin(); it != vertex_attributes_.end();
+            ++it) {
+        if (it->location == location) {
+            enableVertexAttribute(*it);
+            return true;
+        }
+    }
+#endif
+    return false;
+}
+
+// generate vertex array object
+void Mesh::generateVAO() {
+#if _GVRF_USE_GLES3_
     if (!vao_dirty_) {
          return;
     }
@@ -206,78 +292,46 @@ void Mesh::generateVAO() {
             GL_STATIC_DRAW);
     numTriangles_ = indices_.size() / 3;
 
-    if (vertices_.size()) {
-        glGenBuffers(1, &vert_vboID_);
-        glBindBuffer(GL_ARRAY_BUFFER, vert_vboID_);
-        glBufferData(GL_ARRAY_BUFFER, sizeof(glm::vec3) * vertices_.size(),
-                &vertices_[0], GL_STATIC_DRAW);
-        GLuint vertexLoc = GLProgram::POSITION_ATTRIBUTE_LOCATION;
-        glEnableVertexAttribArray(vertexLoc);
-        glVertexAttribPointer(vertexLoc, 3, GL_FLOAT, 0, 0, 0);
-    }
-
-    if (normals_.size()) {
-        glGenBuffers(1, &norm_vboID_);
-        glBindBuffer(GL_ARRAY_BUFFER, norm_vboID_);
-        glBufferData(GL_ARRAY_BUFFER, sizeof(glm::vec3) * normals_.size(),
-                &normals_[0], GL_STATIC_DRAW);
-        GLuint normalLoc = GLProgram::NORMAL_ATTRIBUTE_LOCATION;
-        glEnableVertexAttribArray(normalLoc);
-        glVertexAttribPointer(normalLoc, 3, GL_FLOAT, 0, 0, 0);
-    }
-
-    if (tex_coords_.size()) {
-        glGenBuffers(1, &tex_vboID_);
-        glBindBuffer(GL_ARRAY_BUFFER, tex_vboID_);
-        glBufferData(GL_ARRAY_BUFFER, sizeof(glm::vec2) * tex_coords_.size(),
-                &tex_coords_[0], GL_STATIC_DRAW);
-        GLuint texCoordLoc = GLProgram::TEXCOORD_ATTRIBUT_LOCATION;
-        glEnableVertexAttribArray(texCoordLoc);
-        glVertexAttribPointer(texCoordLoc, 2, GL_FLOAT, 0, 0, 0);
-    }
-
-    for (auto it = attribute_float_keys_.begin();
-            it != attribute_float_keys_.end(); ++it) {
-        glGenBuffers(1, &tmpID);
-        glBindBuffer(GL_ARRAY_BUFFER, tmpID);
-        glBufferData(GL_ARRAY_BUFFER,
-                sizeof(GLfloat) * getFloatVector(it->second).size(),
-                getFloatVector(it->second).data(), GL_STATIC_DRAW);
-        glEnableVertexAttribArray(it->first);
-        glVertexAttribPointer(it->first, 1, GL_FLOAT, 0, 0, 0);
-    }
-
-    for (auto it = attribute_vec2_keys_.begin();
-            it != attribute_vec2_keys_.end(); ++it) {
-        glGenBuffers(1, &tmpID);
-        glBindBuffer(GL_ARRAY_BUFFER, tmpID);
-        glBufferData(GL_ARRAY_BUFFER,
-                sizeof(glm::vec2) * getVec2Vector(it->second).size(),
-                getVec2Vector(it->second).data(), GL_STATIC_DRAW);
-        glEnableVertexAttribArray(it->first);
-        glVertexAttribPointer(it->first, 2, GL_FLOAT, 0, 0, 0);
-    }
-
-    for (auto it = attribute_vec3_keys_.begin();
-            it != attribute_vec3_keys_.end(); ++it) {
-        glGenBuffers(1, &tmpID);
-        glBindBuffer(GL_ARRAY_BUFFER, tmpID);
-        glBufferData(GL_ARRAY_BUFFER,
-                sizeof(glm::vec3) * getVec3Vector(it->second).size(),
-                getVec3Vector(it->second).data(), GL_STATIC_DRAW);
-        glEnableVertexAttribArray(it->first);
-        glVertexAttribPointer(it->first, 3, GL_FLOAT, 0, 0, 0);
+    VertexPacker packer(vertex_layout_.interleaved);
+    declareAttributes(packer);
+
+    if (vertex_layout_.isDefault()) {
+        // A buffer of floats per attribute
+        const std::vector<VertexPacker::Source>& sources = packer.sources();
+        for (auto it = sources.begin(); it != sources.end(); ++it) {
+            VertexAttribute attribute = { it->location, 0, it->components,
+                    GL_FLOAT, GL_FALSE, 0, 0 };
+            glGenBuffers(1, &attribute.buffer);
+            glBindBuffer(GL_ARRAY_BUFFER, attribute.buffer);
+            glBufferData(GL_ARRAY_BUFFER,
+                    sizeof(GLfloat) * it->components * it->count, it->data,
+                    GL_STATIC_DRAW);
+            vertex_attributes_.push_back(attribute);
+        }
+    } else {
+        packer.pack();
+        GLuint buffer;
+        glGenBuffers(1, &buffer);
+        glBindBuffer(GL_ARRAY_BUFFER, buffer);
+        glBufferData(GL_ARRAY_BUFFER, packer.size(), packer.data().data(),
+                GL_STATIC_DRAW);
+        vertex_attributes_ = packer.attributes();
+        for (auto it = vertex_attributes_.begin();
+                it != vertex_attributes_.end(); ++it) {
+            it->buffer = buffer;
+        }
     }
 
-    for (auto it = attribute_vec4_keys_.begin();
-            it != attribute_vec4_keys_.end(); ++it) {
-        glGenBuffers(1, &tmpID);
-        glBindBuffer(GL_ARRAY_BUFFER, tmpID);
-        glBufferData(GL_ARRAY_BUFFER,
-                sizeof(glm::vec4) * getVec4Vector(it->second).size(),
-                getVec4Vector(it->second).data(), GL_STATIC_DRAW);
-        glEnableVertexAttribArray(it->first);
-        glVertexAttribPointer(it->first, 4, GL_FLOAT, 0, 0, 0);
+    for (auto it = vertex_attributes_.begin(); it != vertex_attributes_.end();
+            ++it) {
+        enableVertexAttribute(*it);
+        if (it->location == GLProgram::POSITION_ATTRIBUTE_LOCATION) {
+            vert_vboID_ = it->buffer;
+        } else if (it->location == GLProgram::NORMAL_ATTRIBUTE_LOCATION) {
+            norm_vboID_ = it->buffer;
+        } else if (it->location == GLProgram::TEXCOORD_ATTRIBUT_LOCATION) {
+            tex_vboID_ = it->buffer;
+        }
     }
 
     // done generation
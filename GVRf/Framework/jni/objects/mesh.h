@@ -36,6 +36,7 @@
 #include "objects/hybrid_object.h"
 #include "objects/material.h"
 #include "objects/bounding_volume.h"
+#include "objects/vertex_layout.h"
 
 #include "engine/memory/gl_delete.h"
 
@@ -72,12 +73,16 @@ public:
             gl_delete.queueVertexArray(vaoID_);
         if (triangle_vboID_ != GVR_INVALID)
             gl_delete.queueBuffer(triangle_vboID_);
-        if (vert_vboID_ != GVR_INVALID)
-            gl_delete.queueBuffer(vert_vboID_);
-        if (norm_vboID_ != GVR_INVALID)
-            gl_delete.queueBuffer(norm_vboID_);
-        if (tex_vboID_ != GVR_INVALID)
-            gl_delete.queueBuffer(tex_vboID_);
+        // Attributes in a single buffer share it
+        GLuint previous_buffer = GVR_INVALID;
+        for (auto it = vertex_attributes_.begin();
+                it != vertex_attributes_.end(); ++it) {
+            if (it->buffer != previous_buffer) {
+                gl_delete.queueBuffer(it->buffer);
+                previous_buffer = it->buffer;
+            }
+        }
+        vertex_attributes_.clear();
         have_bounding_volume_ = false;
         vao_dirty_ = true;
         vaoID_ = triangle_vboID_ = vert_vboID_ = norm_vboID_ = tex_vboID_ = GVR_INVALID;
@@ -218,6 +223,12 @@ public:
         vao_dirty_ = true;
     }
 
+    // Whether any named float, vec2, vec3 or vec4 vector is set
+    bool hasAttributeVectors() const {
+        return !float_vectors_.empty() || !vec2_vectors_.empty()
+                || !vec3_vectors_.empty() || !vec4_vectors_.empty();
+    }
+
     const BoundingVolume& getBoundingVolume() const { return bounding_volume; }
     Mesh* getBoundingBox();
     void getTransformedBoundingBoxInfo(glm::mat4 *M,
@@ -246,13 +257,44 @@ public:
         vao_dirty_ = true;
     }
 
+    const VertexLayout& vertex_layout() const {
+        return vertex_layout_;
+    }
+
+    void set_vertex_layout(const VertexLayout& vertex_layout) {
+        vertex_layout_ = vertex_layout;
+        vao_dirty_ = true;
+    }
+
     // generate VAO
     void generateVAO();
 
+    // The bytes of GL buffer data generateVAO() makes, with the current
+    // layout, including the indices
+    size_t getVertexDataSize() const;
+
+    // Points an attribute of the bound VAO at the data generateVAO() made
+    // for that location; false if there is none
+    bool bindVertexAttribute(GLuint location) const;
+
     const GLuint getVAOId(Material::ShaderType key) const {
     	return vaoID_;
     }
 
+    // The buffers behind the VAO, for VAOs that share them; valid after
+    // generateVAO(), GVR_INVALID if the mesh has no such data
+    GLuint getIndexBufferId() const {
+        return triangle_vboID_;
+    }
+
+    GLuint getVertexBufferId() const {
+        return vert_vboID_;
+    }
+
+    GLuint getTexCoordBufferId() const {
+        return tex_vboID_;
+    }
+
     GLuint getNumTriangles() {
         return numTriangles_;
     }
@@ -264,6 +306,9 @@ private:
     Mesh(Mesh&& mesh);
     Mesh& operator=(const Mesh& mesh);
 
+    // Every attribute generateVAO() binds, in binding order
+    void declareAttributes(VertexPacker& packer) const;
+
 private:
     std::vector<glm::vec3> vertices_;
     std::vector<glm::vec3> normals_;
@@ -280,6 +325,8 @@ private:
     std::map<int, std::string> attribute_vec3_keys_;
     std::map<int, std::string> attribute_vec4_keys_;
 
+    VertexLayout vertex_layout_;
+
     // add vertex array object and VBO
 
     GLuint vaoID_;
@@ -287,6 +334,8 @@ private:
     GLuint vert_vboID_;
     GLuint norm_vboID_;
     GLuint tex_vboID_;
+    // With their buffers: several, or one they all share
+    std::vector<VertexAttribute> vertex_attributes_;
 
     // triangle information
     GLuint numTriangles_;
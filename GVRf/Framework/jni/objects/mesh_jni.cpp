@@ -94,6 +94,18 @@ Java_org_gearvrf_NativeMesh_setVec4Vector(JNIEnv * env,
 JNIEXPORT jlong JNICALL
 Java_org_gearvrf_NativeMesh_getBoundingBox(JNIEnv * env,
         jobject obj, jlong jmesh);
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeMesh_setVertexLayout(JNIEnv * env,
+        jobject obj, jlong jmesh, jboolean interleaved, jint normal_format,
+        jint tex_coord_format, jstring color_key);
+JNIEXPORT jlong JNICALL
+Java_org_gearvrf_NativeMesh_getVertexDataSize(JNIEnv * env,
+        jobject obj, jlong jmesh);
+
+JNIEXPORT jboolean JNICALL
+Java_org_gearvrf_NativeMesh_hasAttributeVectors(JNIEnv * env,
+        jobject obj, jlong jmesh);
 }
 ;
 
@@ -380,4 +392,37 @@ Java_org_gearvrf_NativeMesh_getBoundingBox(JNIEnv * env,
     return reinterpret_cast<jlong>(mesh->getBoundingBox());
 }
 
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeMesh_setVertexLayout(JNIEnv * env,
+        jobject obj, jlong jmesh, jboolean interleaved, jint normal_format,
+        jint tex_coord_format, jstring color_key) {
+    Mesh* mesh = reinterpret_cast<Mesh*>(jmesh);
+    VertexLayout vertex_layout;
+    vertex_layout.interleaved = interleaved;
+    vertex_layout.normal_format =
+            static_cast<VertexLayout::NormalFormat>(normal_format);
+    vertex_layout.tex_coord_format =
+            static_cast<VertexLayout::TexCoordFormat>(tex_coord_format);
+    if (color_key != 0) {
+        const char* char_key = env->GetStringUTFChars(color_key, 0);
+        vertex_layout.color_key = std::string(char_key);
+        env->ReleaseStringUTFChars(color_key, char_key);
+    }
+    mesh->set_vertex_layout(vertex_layout);
+}
+
+JNIEXPORT jlong JNICALL
+Java_org_gearvrf_NativeMesh_getVertexDataSize(JNIEnv * env,
+        jobject obj, jlong jmesh) {
+    Mesh* mesh = reinterpret_cast<Mesh*>(jmesh);
+    return static_cast<jlong>(mesh->getVertexDataSize());
+}
+
+JNIEXPORT jboolean JNICALL
+Java_org_gearvrf_NativeMesh_hasAttributeVectors(JNIEnv * env,
+        jobject obj, jlong jmesh) {
+    Mesh* mesh = reinterpret_cast<Mesh*>(jmesh);
+    return static_cast<jboolean>(mesh->hasAttributeVectors());
+}
+
 }
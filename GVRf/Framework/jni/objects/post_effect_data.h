@@ -40,7 +40,7 @@ public:
     };
 
     PostEffectData(ShaderType shader_type) :
-            shader_type_(shader_type), textures_(), floats_(), vec2s_(), vec3s_(), vec4s_(), mat4s_() {
+            shader_type_(shader_type), overlay_(false), textures_(), floats_(), vec2s_(), vec3s_(), vec4s_(), mat4s_() {
         switch (shader_type) {
         case COLOR_BLEND_SHADER:
             floats_["r"] = 0.0f;
@@ -62,6 +62,16 @@ public:
         shader_type_ = shader_type;
     }
 
+    // An overlay draws over the scene, like the debug console, instead of
+    // changing how it looks; it still runs with the scene's post effects off
+    bool overlay() const {
+        return overlay_;
+    }
+
+    void set_overlay(bool overlay) {
+        overlay_ = overlay;
+    }
+
     Texture* getTexture(std::string key) const {
         auto it = textures_.find(key);
         if (it != textures_.end()) {
@@ -160,6 +170,7 @@ private:
 
 private:
     ShaderType shader_type_;
+    bool overlay_;
     std::map<std::string, Texture*> textures_;
     std::map<std::string, float> floats_;
     std::map<std::string, glm::vec2> vec2s_;
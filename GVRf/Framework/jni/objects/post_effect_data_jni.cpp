@@ -35,6 +35,14 @@ JNIEXPORT void JNICALL
 Java_org_gearvrf_NativePostEffectData_setShaderType(
         JNIEnv * env, jobject obj, jlong jpost_effect_data, jint shader_type);
 
+JNIEXPORT jboolean JNICALL
+Java_org_gearvrf_NativePostEffectData_isOverlay(
+        JNIEnv * env, jobject obj, jlong jpost_effect_data);
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativePostEffectData_setOverlay(
+        JNIEnv * env, jobject obj, jlong jpost_effect_data, jboolean overlay);
+
 JNIEXPORT void JNICALL
 Java_org_gearvrf_NativePostEffectData_setTexture(JNIEnv * env,
         jobject obj, jlong jpost_effect_data, jstring key, jlong jtexture);
@@ -103,6 +111,22 @@ Java_org_gearvrf_NativePostEffectData_setShaderType(
             static_cast<PostEffectData::ShaderType>(shader_type));
 }
 
+JNIEXPORT jboolean JNICALL
+Java_org_gearvrf_NativePostEffectData_isOverlay(
+        JNIEnv * env, jobject obj, jlong jpost_effect_data) {
+    PostEffectData* post_effect_data =
+            reinterpret_cast<PostEffectData*>(jpost_effect_data);
+    return static_cast<jboolean>(post_effect_data->overlay());
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativePostEffectData_setOverlay(
+        JNIEnv * env, jobject obj, jlong jpost_effect_data, jboolean overlay) {
+    PostEffectData* post_effect_data =
+            reinterpret_cast<PostEffectData*>(jpost_effect_data);
+    post_effect_data->set_overlay(static_cast<bool>(overlay));
+}
+
 JNIEXPORT void JNICALL
 Java_org_gearvrf_NativePostEffectData_setTexture(JNIEnv * env,
         jobject obj, jlong jpost_effect_data, jstring key, jlong jtexture) {
@@ -21,6 +21,8 @@
 #ifndef ROTATION_SENSOR_DATA_H_
 #define ROTATION_SENSOR_DATA_H_
 
+#include <utility>
+
 #include "glm/glm.hpp"
 
 namespace gvr {
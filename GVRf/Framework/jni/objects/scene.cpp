@@ -20,36 +20,159 @@
 #include "scene.h"
 
 #include "objects/scene_object.h"
+#include "objects/components/transform.h"
+
+#include <algorithm>
 
 namespace gvr {
 Scene::Scene() :
-        HybridObject(), scene_objects_(), main_camera_rig_(), frustum_flag_(
-                false), dirtyFlag_(0), occlusion_flag_(false) {
+        HybridObject(), scene_objects_(), main_camera_rig_(), hierarchy_generation_(
+                0), flattened_(), flattened_generation_(
+                0), transform_snapshot_(), parent_indices_(), subtree_ends_(), world_matrices_(), transform_indices_(), ancestor_stack_(), dirty_roots_(), dirty_indices_(), dirty_roots_taken_(
+                0), frustum_flag_(false), dirtyFlag_(0), occlusion_flag_(false), software_occlusion_flag_(false), lod_bias_(1.0f), post_effects_flag_(true) {
 }
 
 Scene::~Scene() {
+    for (auto it = scene_objects_.begin(); it != scene_objects_.end(); ++it) {
+        (*it)->onRemovedFromScene(this);
+    }
 }
 
 void Scene::addSceneObject(SceneObject* scene_object) {
     scene_objects_.push_back(scene_object);
+    scene_object->onAddedToScene(this);
+    invalidateHierarchy();
 }
 
 void Scene::removeSceneObject(SceneObject* scene_object) {
     scene_objects_.erase(
             std::remove(scene_objects_.begin(), scene_objects_.end(),
                     scene_object), scene_objects_.end());
+    scene_object->onRemovedFromScene(this);
+    invalidateHierarchy();
+}
+
+std::shared_ptr<const std::vector<SceneObject*>> Scene::getWholeSceneObjects() {
+    std::lock_guard<std::mutex> lock(flattened_mutex_);
+
+    unsigned int generation = hierarchy_generation();
+    if (flattened_ && flattened_generation_ == generation) {
+        return flattened_;
+    }
+
+    // Snapshots handed out earlier may still be in use, so build a new list
+    // rather than patching the old one
+    std::shared_ptr<std::vector<SceneObject*>> scene_objects(
+            new std::vector<SceneObject*>());
+    scene_objects->reserve(flattened_ ? flattened_->size() : 0);
+
+    traversal_stack_.assign(scene_objects_.rbegin(), scene_objects_.rend());
+    while (!traversal_stack_.empty()) {
+        SceneObject* scene_object = traversal_stack_.back();
+        traversal_stack_.pop_back();
+        scene_objects->push_back(scene_object);
+
+        const std::vector<SceneObject*>& children = scene_object->children();
+        traversal_stack_.insert(traversal_stack_.end(), children.rbegin(),
+                children.rend());
+    }
+
+    flattened_ = scene_objects;
+    flattened_generation_ = generation;
+    return flattened_;
 }
 
-std::vector<SceneObject*> Scene::getWholeSceneObjects() {
-    std::vector<SceneObject*> scene_objects(scene_objects_);
-    for (int i = 0; i < scene_objects.size(); ++i) {
-        std::vector<SceneObject*> children(scene_objects[i]->children());
-        for (auto it = children.begin(); it != children.end(); ++it) {
-            scene_objects.push_back(*it);
+void Scene::updateTransforms(
+        const std::shared_ptr<const std::vector<SceneObject*>>& scene_objects) {
+    const std::vector<SceneObject*>& objects = *scene_objects;
+    int count = objects.size();
+    unsigned int taken = Transform::takeDirtyRoots(dirty_roots_);
+    // Roots taken by another scene since our last call were never applied
+    // here, so those objects need a full pass too
+    bool sweep_all = scene_objects != transform_snapshot_
+            || taken != dirty_roots_taken_ + 1;
+    dirty_roots_taken_ = taken;
+
+    if (scene_objects != transform_snapshot_) {
+        // The snapshot is depth first, so each object's parent is the
+        // nearest earlier object still on the ancestor stack, and an object
+        // popped off the stack has seen the last of its subtree
+        parent_indices_.resize(count);
+        subtree_ends_.resize(count);
+        world_matrices_.resize(count);
+        transform_indices_.clear();
+        ancestor_stack_.clear();
+        for (int i = 0; i < count; ++i) {
+            SceneObject* parent = objects[i]->parent();
+            while (!ancestor_stack_.empty()
+                    && objects[ancestor_stack_.back()] != parent) {
+                subtree_ends_[ancestor_stack_.back()] = i;
+                ancestor_stack_.pop_back();
+            }
+            parent_indices_[i] =
+                    ancestor_stack_.empty() ? -1 : ancestor_stack_.back();
+            ancestor_stack_.push_back(i);
+            if (objects[i]->transform() != nullptr) {
+                transform_indices_.push_back(
+                        std::make_pair(objects[i]->transform(), i));
+            }
         }
+        for (auto it = ancestor_stack_.begin(); it != ancestor_stack_.end();
+                ++it) {
+            subtree_ends_[*it] = count;
+        }
+        std::sort(transform_indices_.begin(), transform_indices_.end());
+        transform_snapshot_ = scene_objects;
+    }
+
+    if (sweep_all) {
+        updateWorldMatrices(objects, 0, count);
+        return;
     }
 
-    return scene_objects;
+    // Depth first, an ancestor comes before its descendants: so in index
+    // order each root's parent is already up to date, and a root inside a
+    // subtree just visited needs nothing more
+    dirty_indices_.clear();
+    for (auto it = dirty_roots_.begin(); it != dirty_roots_.end(); ++it) {
+        auto found = std::lower_bound(transform_indices_.begin(),
+                transform_indices_.end(), std::make_pair(*it, -1));
+        if (found != transform_indices_.end() && found->first == *it) {
+            dirty_indices_.push_back(found->second);
+        }
+    }
+    std::sort(dirty_indices_.begin(), dirty_indices_.end());
+    int visited_end = 0;
+    for (auto it = dirty_indices_.begin(); it != dirty_indices_.end(); ++it) {
+        if (*it >= visited_end) {
+            visited_end = subtree_ends_[*it];
+            updateWorldMatrices(objects, *it, visited_end);
+        }
+    }
+}
+
+void Scene::updateWorldMatrices(const std::vector<SceneObject*>& objects,
+        int begin, int end) {
+    for (int i = begin; i < end; ++i) {
+        SceneObject* scene_object = objects[i];
+        Transform* transform = scene_object->transform();
+        int parent_index = parent_indices_[i];
+        if (transform == nullptr) {
+            world_matrices_[i] =
+                    parent_index < 0 ?
+                            glm::mat4() : world_matrices_[parent_index];
+        } else if (transform->isModelMatrixValid()) {
+            world_matrices_[i] = transform->getModelMatrix();
+        } else if (parent_index >= 0) {
+            world_matrices_[i] = transform->updateModelMatrix(
+                    &world_matrices_[parent_index]);
+        } else if (scene_object->parent() == nullptr) {
+            world_matrices_[i] = transform->updateModelMatrix(nullptr);
+        } else {
+            // A root of the scene that also has a parent outside it
+            world_matrices_[i] = transform->getModelMatrix();
+        }
+    }
 }
 
 }
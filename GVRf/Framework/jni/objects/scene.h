@@ -21,16 +21,22 @@
 #ifndef SCENE_H_
 #define SCENE_H_
 
+#include <atomic>
 #include <memory>
+#include <mutex>
+#include <utility>
 #include <vector>
 
 
+#include "glm/glm.hpp"
+
 #include "objects/hybrid_object.h"
 #include "components/camera_rig.h"
 #include "engine/renderer/renderer.h"
 
 namespace gvr {
 class SceneObject;
+class Transform;
 
 class Scene: public HybridObject {
 public:
@@ -47,7 +53,40 @@ public:
     void set_main_camera_rig(CameraRig* camera_rig) {
         main_camera_rig_ = camera_rig;
     }
-    std::vector<SceneObject*> getWholeSceneObjects();
+
+    /*
+     * Every object in the scene, depth first. The list is cached, and only
+     * rebuilt after a structural change to this scene's graph. The snapshot
+     * stays valid, and unchanged, for as long as the caller holds it.
+     */
+    std::shared_ptr<const std::vector<SceneObject*>> getWholeSceneObjects();
+
+    // Bumped by every structural change to this scene's graph, so
+    // getWholeSceneObjects() can tell whether its list is still current
+    unsigned int hierarchy_generation() const {
+        return hierarchy_generation_.load(std::memory_order_acquire);
+    }
+    void invalidateHierarchy() {
+        hierarchy_generation_.fetch_add(1, std::memory_order_acq_rel);
+    }
+
+    /*
+     * Bring the model matrix of every object in scene_objects - a snapshot
+     * from getWholeSceneObjects() - up to date, parents before children, and
+     * copy them into world_matrices() in the snapshot's order. Only the
+     * subtrees under transforms invalidated since the last call are visited,
+     * unless the snapshot changed. Call on the GL thread.
+     */
+    void updateTransforms(
+            const std::shared_ptr<const std::vector<SceneObject*>>& scene_objects);
+
+    /*
+     * The model matrix of each object in the snapshot last passed to
+     * updateTransforms(), by index.
+     */
+    const std::vector<glm::mat4>& world_matrices() const {
+        return world_matrices_;
+    }
 
     int getSceneDirtyFlag() { return 1 || dirtyFlag_;  /* force to be true */}
     void setSceneDirtyFlag(int dirtyBits) { dirtyFlag_ |= dirtyBits; }
@@ -58,6 +97,18 @@ public:
     void set_occlusion_culling( bool occlusion_flag){ occlusion_flag_ = occlusion_flag; }
     bool get_occlusion_culling(){ return occlusion_flag_; }
 
+    void set_software_occlusion_culling(bool flag){ software_occlusion_flag_ = flag; }
+    bool get_software_occlusion_culling(){ return software_occlusion_flag_; }
+
+    // LOD ranges are checked against each object's distance times the bias:
+    // above 1, every object switches to its coarser levels sooner
+    void set_lod_bias(float lod_bias){ lod_bias_ = lod_bias; }
+    float get_lod_bias(){ return lod_bias_; }
+
+    // Off, every camera draws as if it had no post effects
+    void set_post_effects_enabled(bool flag){ post_effects_flag_ = flag; }
+    bool get_post_effects_enabled(){ return post_effects_flag_; }
+
     void resetStats() {
         if (!statsInitialized) {
             Renderer::initializeStats();
@@ -78,13 +129,39 @@ private:
     Scene& operator=(const Scene& scene);
     Scene& operator=(Scene&& scene);
 
+    void updateWorldMatrices(const std::vector<SceneObject*>& objects,
+            int begin, int end);
+
 private:
     std::vector<SceneObject*> scene_objects_;
     CameraRig* main_camera_rig_;
 
+    std::atomic<unsigned int> hierarchy_generation_;
+    std::mutex flattened_mutex_;
+    std::shared_ptr<const std::vector<SceneObject*>> flattened_;
+    unsigned int flattened_generation_;
+    std::vector<SceneObject*> traversal_stack_;
+
+    // The snapshot updateTransforms() last ran over; for each object in it,
+    // the index of its parent (-1 for none), one past the end of its subtree,
+    // and its model matrix; and its transforms sorted by address, to find
+    // each dirty root without touching it
+    std::shared_ptr<const std::vector<SceneObject*>> transform_snapshot_;
+    std::vector<int> parent_indices_;
+    std::vector<int> subtree_ends_;
+    std::vector<glm::mat4> world_matrices_;
+    std::vector<std::pair<Transform*, int>> transform_indices_;
+    std::vector<int> ancestor_stack_;
+    std::vector<Transform*> dirty_roots_;
+    std::vector<int> dirty_indices_;
+    unsigned int dirty_roots_taken_;
+
     int dirtyFlag_;
     bool frustum_flag_;
     bool occlusion_flag_;
+    bool software_occlusion_flag_;
+    float lod_bias_;
+    bool post_effects_flag_;
     bool statsInitialized = false;
 
 };
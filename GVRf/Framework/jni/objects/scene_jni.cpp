@@ -43,6 +43,17 @@ Java_org_gearvrf_NativeScene_setFrustumCulling(JNIEnv * env,
 JNIEXPORT void JNICALL
 Java_org_gearvrf_NativeScene_setOcclusionQuery(JNIEnv * env,
         jobject obj, jlong jscene, jboolean flag);
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeScene_setSoftwareOcclusionCulling(JNIEnv * env,
+        jobject obj, jlong jscene, jboolean flag);
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeScene_setLODBias(JNIEnv * env,
+        jobject obj, jlong jscene, jfloat lod_bias);
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeScene_setPostEffectsEnabled(JNIEnv * env,
+        jobject obj, jlong jscene, jboolean flag);
 
 JNIEXPORT void JNICALL
 Java_org_gearvrf_NativeScene_resetStats(JNIEnv * env,
@@ -101,6 +112,27 @@ Java_org_gearvrf_NativeScene_setOcclusionQuery(JNIEnv * env,
     scene->set_occlusion_culling(static_cast<bool>(flag));
 }
 
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeScene_setSoftwareOcclusionCulling(JNIEnv * env,
+        jobject obj, jlong jscene, jboolean flag) {
+    Scene* scene = reinterpret_cast<Scene*>(jscene);
+    scene->set_software_occlusion_culling(static_cast<bool>(flag));
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeScene_setLODBias(JNIEnv * env,
+        jobject obj, jlong jscene, jfloat lod_bias) {
+    Scene* scene = reinterpret_cast<Scene*>(jscene);
+    scene->set_lod_bias(lod_bias);
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeScene_setPostEffectsEnabled(JNIEnv * env,
+        jobject obj, jlong jscene, jboolean flag) {
+    Scene* scene = reinterpret_cast<Scene*>(jscene);
+    scene->set_post_effects_enabled(static_cast<bool>(flag));
+}
+
 JNIEXPORT void JNICALL
 Java_org_gearvrf_NativeScene_resetStats(JNIEnv * env,
         jobject obj, jlong jscene) {
@@ -23,6 +23,7 @@
 #include "objects/components/camera_rig.h"
 #include "objects/components/eye_pointee_holder.h"
 #include "objects/components/render_data.h"
+#include "objects/scene.h"
 #include "util/gvr_log.h"
 #include "mesh.h"
 
@@ -55,12 +56,15 @@ void SceneObject::attachTransform(SceneObject* self, Transform* transform) {
     transform_ = transform;
     transform_->set_owner_object(self);
     dirtyBoundingVolume();
+    // The scene's transform update indexes transforms by object
+    invalidateHierarchy();
 }
 
 void SceneObject::detachTransform() {
     if (transform_) {
         transform_->removeOwnerObject();
         transform_ = NULL;
+        invalidateHierarchy();
     }
     dirtyBoundingVolume();
 }
@@ -156,6 +160,7 @@ void SceneObject::addChildObject(SceneObject* self, SceneObject* child) {
     }
     children_.push_back(child);
     child->parent_ = self;
+    invalidateHierarchy();
     child->transform()->invalidate(false);
     dirtyBoundingVolume();
 }
@@ -165,11 +170,32 @@ void SceneObject::removeChildObject(SceneObject* child) {
         children_.erase(std::remove(children_.begin(), children_.end(), child),
                 children_.end());
         child->parent_ = NULL;
+        invalidateHierarchy();
     }
     child->transform()->invalidate(false);
     dirtyBoundingVolume();
 }
 
+void SceneObject::onAddedToScene(Scene* scene) {
+    scenes_.push_back(scene);
+}
+
+void SceneObject::onRemovedFromScene(Scene* scene) {
+    scenes_.erase(std::remove(scenes_.begin(), scenes_.end(), scene),
+            scenes_.end());
+}
+
+void SceneObject::invalidateHierarchy() {
+    // An object can be a child in one scene and a root in another, so check
+    // every ancestor, not only the topmost
+    for (SceneObject* ancestor = this; ancestor; ancestor = ancestor->parent_) {
+        for (auto it = ancestor->scenes_.begin(); it != ancestor->scenes_.end();
+                ++it) {
+            (*it)->invalidateHierarchy();
+        }
+    }
+}
+
 int SceneObject::getChildrenCount() const {
     return children_.size();
 }
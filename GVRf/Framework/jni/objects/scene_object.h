@@ -34,6 +34,7 @@ class Camera;
 class CameraRig;
 class EyePointeeHolder;
 class RenderData;
+class Scene;
 
 class SceneObject: public HybridObject {
 public:
@@ -114,6 +115,14 @@ public:
     }
 
     void addChildObject(SceneObject* self, SceneObject* child);
+
+    // Called by a Scene that this object is added to, or removed from, as
+    // a root; so a change under this object invalidates the flattened lists
+    // of the scenes it is in, and no others
+    void onAddedToScene(Scene* scene);
+    void onRemovedFromScene(Scene* scene);
+    void invalidateHierarchy();
+
     void removeChildObject(SceneObject* child);
     int getChildrenCount() const;
     SceneObject* getChildByIndex(int index);
@@ -165,6 +174,7 @@ private:
     EyePointeeHolder* eye_pointee_holder_;
     SceneObject* parent_;
     std::vector<SceneObject*> children_;
+    std::vector<Scene*> scenes_;
     float lod_min_range_;
     float lod_max_range_;
     bool using_lod_;
@@ -0,0 +1,263 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/***************************************************************************
+ * Records the rotation sensor samples a camera rig sees, and replays them.
+ ***************************************************************************/
+
+#include "sensor_trace.h"
+
+#include <cstdint>
+#include <cstring>
+
+#include "objects/components/camera_rig.h"
+#include "util/gvr_log.h"
+
+namespace gvr {
+
+namespace {
+const char MAGIC[8] = { 'G', 'V', 'R', 'S', 'T', 'R', 'C', '\0' };
+const uint32_t VERSION = 1;
+const size_t SAMPLE_SIZE = 1 + 8 + 7 * 4;
+const size_t FRAME_SIZE = 1 + 8 + 4;
+const size_t COMPLEMENTARY_ROTATION_SIZE = 1 + 4 * 4;
+
+void put64(std::vector<unsigned char>& buffer, uint64_t value) {
+    for (int shift = 0; shift < 64; shift += 8) {
+        buffer.push_back(static_cast<unsigned char>(value >> shift));
+    }
+}
+
+void put32(std::vector<unsigned char>& buffer, uint32_t value) {
+    for (int shift = 0; shift < 32; shift += 8) {
+        buffer.push_back(static_cast<unsigned char>(value >> shift));
+    }
+}
+
+void putFloat(std::vector<unsigned char>& buffer, float value) {
+    uint32_t bits;
+    memcpy(&bits, &value, sizeof(bits));
+    put32(buffer, bits);
+}
+
+uint64_t get64(const unsigned char* data) {
+    uint64_t value = 0;
+    for (int index = 7; index >= 0; --index) {
+        value = (value << 8) | data[index];
+    }
+    return value;
+}
+
+uint32_t get32(const unsigned char* data) {
+    return data[0] | (data[1] << 8) | (data[2] << 16)
+            | (static_cast<uint32_t>(data[3]) << 24);
+}
+
+float getFloat(const unsigned char* data) {
+    uint32_t bits = get32(data);
+    float value;
+    memcpy(&value, &bits, sizeof(value));
+    return value;
+}
+}
+
+SensorTraceWriter::SensorTraceWriter() :
+        mutex_(), file_(0), buffer_(), last_time_stamp_(0) {
+}
+
+SensorTraceWriter::~SensorTraceWriter() {
+    close();
+}
+
+bool SensorTraceWriter::open(const std::string& path) {
+    close();
+
+    std::lock_guard<std::mutex> lock(mutex_);
+    file_ = fopen(path.c_str(), "wb");
+    if (file_ == 0) {
+        LOGE("SensorTraceWriter: cannot create %s", path.c_str());
+        return false;
+    }
+    buffer_.assign(MAGIC, MAGIC + sizeof(MAGIC));
+    buffer_.reserve(BUFFER_SIZE + SAMPLE_SIZE);
+    put32(buffer_, VERSION);
+    last_time_stamp_ = 0;
+    return true;
+}
+
+void SensorTraceWriter::close() {
+    std::lock_guard<std::mutex> lock(mutex_);
+    if (file_ != 0) {
+        flush();
+        fclose(file_);
+        file_ = 0;
+    }
+}
+
+void SensorTraceWriter::sample(long long time_stamp,
+        const glm::quat& rotation, const glm::vec3& gyro) {
+    std::lock_guard<std::mutex> lock(mutex_);
+    if (file_ == 0 || time_stamp == last_time_stamp_) {
+        return;
+    }
+    last_time_stamp_ = time_stamp;
+    buffer_.push_back(SensorTraceRecord::SAMPLE);
+    put64(buffer_, time_stamp);
+    putFloat(buffer_, rotation.w);
+    putFloat(buffer_, rotation.x);
+    putFloat(buffer_, rotation.y);
+    putFloat(buffer_, rotation.z);
+    putFloat(buffer_, gyro.x);
+    putFloat(buffer_, gyro.y);
+    putFloat(buffer_, gyro.z);
+    if (buffer_.size() >= BUFFER_SIZE) {
+        flush();
+    }
+}
+
+void SensorTraceWriter::frame(long long clock_time, float display_time) {
+    std::lock_guard<std::mutex> lock(mutex_);
+    if (file_ == 0) {
+        return;
+    }
+    buffer_.push_back(SensorTraceRecord::FRAME);
+    put64(buffer_, clock_time);
+    putFloat(buffer_, display_time);
+    if (buffer_.size() >= BUFFER_SIZE) {
+        flush();
+    }
+}
+
+void SensorTraceWriter::complementaryRotation(const glm::quat& rotation) {
+    std::lock_guard<std::mutex> lock(mutex_);
+    if (file_ == 0) {
+        return;
+    }
+    buffer_.push_back(SensorTraceRecord::COMPLEMENTARY_ROTATION);
+    putFloat(buffer_, rotation.w);
+    putFloat(buffer_, rotation.x);
+    putFloat(buffer_, rotation.y);
+    putFloat(buffer_, rotation.z);
+    if (buffer_.size() >= BUFFER_SIZE) {
+        flush();
+    }
+}
+
+// Called with mutex_ held
+void SensorTraceWriter::flush() {
+    if (!buffer_.empty()
+            && fwrite(&buffer_[0], 1, buffer_.size(), file_)
+                    != buffer_.size()) {
+        LOGE("SensorTraceWriter: write failed");
+    }
+    buffer_.clear();
+}
+
+SensorTraceReader::SensorTraceReader() :
+        file_(0) {
+}
+
+SensorTraceReader::~SensorTraceReader() {
+    close();
+}
+
+bool SensorTraceReader::open(const std::string& path) {
+    close();
+    file_ = fopen(path.c_str(), "rb");
+    if (file_ == 0) {
+        return false;
+    }
+    unsigned char header[sizeof(MAGIC) + 4];
+    if (fread(header, 1, sizeof(header), file_) != sizeof(header)
+            || memcmp(header, MAGIC, sizeof(MAGIC)) != 0
+            || get32(header + sizeof(MAGIC)) != VERSION) {
+        close();
+        return false;
+    }
+    return true;
+}
+
+void SensorTraceReader::close() {
+    if (file_ != 0) {
+        fclose(file_);
+        file_ = 0;
+    }
+}
+
+bool SensorTraceReader::next(SensorTraceRecord& record) {
+    if (file_ == 0) {
+        return false;
+    }
+    unsigned char data[SAMPLE_SIZE];
+    if (fread(data, 1, 1, file_) != 1) {
+        return false;
+    }
+    if (data[0] == SensorTraceRecord::SAMPLE) {
+        if (fread(data + 1, 1, SAMPLE_SIZE - 1, file_) != SAMPLE_SIZE - 1) {
+            return false;
+        }
+        record.type = SensorTraceRecord::SAMPLE;
+        record.time = get64(data + 1);
+        record.rotation = glm::quat(getFloat(data + 9), getFloat(data + 13),
+                getFloat(data + 17), getFloat(data + 21));
+        record.gyro = glm::vec3(getFloat(data + 25), getFloat(data + 29),
+                getFloat(data + 33));
+        record.display_time = 0.0f;
+        return true;
+    }
+    if (data[0] == SensorTraceRecord::FRAME) {
+        if (fread(data + 1, 1, FRAME_SIZE - 1, file_) != FRAME_SIZE - 1) {
+            return false;
+        }
+        record.type = SensorTraceRecord::FRAME;
+        record.time = get64(data + 1);
+        record.display_time = getFloat(data + 9);
+        return true;
+    }
+    if (data[0] == SensorTraceRecord::COMPLEMENTARY_ROTATION) {
+        if (fread(data + 1, 1, COMPLEMENTARY_ROTATION_SIZE - 1, file_)
+                != COMPLEMENTARY_ROTATION_SIZE - 1) {
+            return false;
+        }
+        record.type = SensorTraceRecord::COMPLEMENTARY_ROTATION;
+        record.time = 0;
+        record.rotation = glm::quat(getFloat(data + 1), getFloat(data + 5),
+                getFloat(data + 9), getFloat(data + 13));
+        record.display_time = 0.0f;
+        return true;
+    }
+    return false;
+}
+
+bool SensorTraceReplay::step(CameraRig& camera_rig) {
+    SensorTraceRecord record;
+    while (reader_.next(record)) {
+        if (record.type == SensorTraceRecord::SAMPLE) {
+            camera_rig.setRotationSensorData(record.time, record.rotation.w,
+                    record.rotation.x, record.rotation.y, record.rotation.z,
+                    record.gyro.x, record.gyro.y, record.gyro.z);
+        } else if (record.type
+                == SensorTraceRecord::COMPLEMENTARY_ROTATION) {
+            camera_rig.setComplementaryRotation(record.rotation);
+        } else {
+            camera_rig.predict(record.display_time,
+                    camera_rig.rotation_sensor_data(), record.time);
+            return true;
+        }
+    }
+    return false;
+}
+
+}
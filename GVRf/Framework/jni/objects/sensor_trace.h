@@ -0,0 +1,141 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/***************************************************************************
+ * Records the rotation sensor samples a camera rig sees, and replays them.
+ ***************************************************************************/
+
+#ifndef SENSOR_TRACE_H_
+#define SENSOR_TRACE_H_
+
+#include <cstdio>
+#include <mutex>
+#include <string>
+#include <vector>
+
+#include "glm/glm.hpp"
+#include "glm/gtc/quaternion.hpp"
+
+namespace gvr {
+class CameraRig;
+
+/*
+ * A trace is an 8 byte magic, "GVRSTRC\0", a 32 bit version, and then one
+ * record after another, to the end of the file. Each record is a one byte
+ * tag and its fields, little-endian, unpadded:
+ *
+ *   'S' sample: 64 bit sensor time stamp, in nanoseconds; the rotation's
+ *       w, x, y and z; the gyro's x, y and z, as 32 bit floats. 37 bytes.
+ *   'F' frame: 64 bit clock time when the camera rig predicted, in
+ *       nanoseconds; the 32 bit float display time it predicted for, in
+ *       seconds from then. 13 bytes.
+ *   'C' complementary rotation: the w, x, y and z of the rotation a reset
+ *       left the rig applying to every sample. Recorded at the start, and
+ *       after each reset. 17 bytes.
+ *
+ * A sample is only recorded when it is new, so a 60 Hz stereo frame takes
+ * about 63 bytes: under 4 KB a second.
+ */
+struct SensorTraceRecord {
+    enum Type {
+        SAMPLE = 'S', FRAME = 'F', COMPLEMENTARY_ROTATION = 'C',
+    };
+
+    Type type;
+    // The sample's time stamp, or the clock time of the frame
+    long long time;
+    glm::quat rotation;
+    glm::vec3 gyro;
+    float display_time;
+};
+
+class SensorTraceWriter {
+public:
+    SensorTraceWriter();
+    ~SensorTraceWriter();
+
+    // Starts a new trace, replacing any file at path
+    bool open(const std::string& path);
+    void close();
+
+    bool isOpen() {
+        std::lock_guard<std::mutex> lock(mutex_);
+        return file_ != 0;
+    }
+
+    // Records the sample, unless it is the one recorded last
+    void sample(long long time_stamp, const glm::quat& rotation,
+            const glm::vec3& gyro);
+    void frame(long long clock_time, float display_time);
+    void complementaryRotation(const glm::quat& rotation);
+
+private:
+    SensorTraceWriter(const SensorTraceWriter&);
+    SensorTraceWriter& operator=(const SensorTraceWriter&);
+
+    void flush();
+
+private:
+    static const size_t BUFFER_SIZE = 4096;
+
+    std::mutex mutex_;
+    FILE* file_;
+    std::vector<unsigned char> buffer_;
+    long long last_time_stamp_;
+};
+
+class SensorTraceReader {
+public:
+    SensorTraceReader();
+    ~SensorTraceReader();
+
+    // False if there is no file at path, or it isn't a trace
+    bool open(const std::string& path);
+    void close();
+
+    // False at the end of the trace, or at a record that is truncated or
+    // of a kind this version doesn't know
+    bool next(SensorTraceRecord& record);
+
+private:
+    SensorTraceReader(const SensorTraceReader&);
+    SensorTraceReader& operator=(const SensorTraceReader&);
+
+private:
+    FILE* file_;
+};
+
+/*
+ * Feeds a trace to a camera rig as the sensor and the render loop did when
+ * it was recorded: samples become the rig's rotation sensor data, and each
+ * frame predicts at the recorded clock time, after the recorded resets.
+ * With the same rig type and prediction settings,
+ * the rig ends up in the same pose, frame by frame, on any machine.
+ */
+class SensorTraceReplay {
+public:
+    explicit SensorTraceReplay(SensorTraceReader& reader) :
+            reader_(reader) {
+    }
+
+    // Replays up to and including the next frame: false when there is none
+    bool step(CameraRig& camera_rig);
+
+private:
+    SensorTraceReader& reader_;
+};
+
+}
+#endif
@@ -79,6 +79,17 @@ public:
         return (glGetError() == 0) ? 1 : 0;
     }
 
+    // Replaces rows y to y + height - 1 of a luminance texture, leaving the
+    // mipmaps alone. rows is tightly packed.
+    bool updateRows(int width, int y, int height, const void* rows) {
+        glBindTexture(GL_TEXTURE_2D, gl_texture_->id());
+        glPixelStorei(GL_UNPACK_ALIGNMENT, 1);
+        glTexSubImage2D(GL_TEXTURE_2D, 0, 0, y, width, height, GL_LUMINANCE,
+                GL_UNSIGNED_BYTE, rows);
+        glPixelStorei(GL_UNPACK_ALIGNMENT, 4);
+        return (glGetError() == 0) ? 1 : 0;
+    }
+
     GLenum getTarget() const {
         return TARGET;
     }
@@ -35,6 +35,9 @@ Java_org_gearvrf_NativeBaseTexture_bareConstructor(JNIEnv * env, jobject obj, ji
 JNIEXPORT jboolean JNICALL
 Java_org_gearvrf_NativeBaseTexture_update(JNIEnv * env, jobject obj,
         jlong jtexture, jint width, jint height, jbyteArray jdata);
+JNIEXPORT jboolean JNICALL
+Java_org_gearvrf_NativeBaseTexture_updateRows(JNIEnv * env, jobject obj,
+        jlong jtexture, jint width, jint y, jint height, jbyteArray jdata);
 }
 ;
 
@@ -95,4 +98,17 @@ Java_org_gearvrf_NativeBaseTexture_update(JNIEnv * env, jobject obj,
     return result;
 }
 
+JNIEXPORT jboolean JNICALL
+Java_org_gearvrf_NativeBaseTexture_updateRows(JNIEnv * env, jobject obj,
+        jlong jtexture, jint width, jint y, jint height, jbyteArray jdata) {
+    BaseTexture* texture = reinterpret_cast<BaseTexture*>(jtexture);
+    // Not a critical section: glTexSubImage2D can block on the driver, and
+    // the GC mustn't wait for it
+    jbyte* data = env->GetByteArrayElements(jdata, 0);
+    jboolean result = texture->updateRows(width, y, height,
+            data + y * width);
+    env->ReleaseByteArrayElements(jdata, data, JNI_ABORT);
+    return result;
+}
+
 }
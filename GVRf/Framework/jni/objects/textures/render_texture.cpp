@@ -20,6 +20,8 @@
 
 #include "render_texture.h"
 
+#include <cstring>
+
 #include "eglextension/msaa/msaa.h"
 
 namespace gvr {
@@ -0,0 +1,325 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/***************************************************************************
+ * How a mesh's vertex data is laid out in GL buffers.
+ ***************************************************************************/
+
+#include "vertex_layout.h"
+
+#include <algorithm>
+#include <cmath>
+#include <cstring>
+
+namespace gvr {
+
+namespace {
+int quantize(float value, float min, float scale) {
+    value = std::min(std::max(value, min), 1.0f);
+    return static_cast<int>(std::floor(value * scale + 0.5f));
+}
+}
+
+void VertexPacker::add(GLuint location, const float* data, int components,
+        size_t count, Storage storage) {
+    Source source = { location, data, components, count, storage };
+    sources_.push_back(source);
+}
+
+size_t VertexPacker::elementSize(Storage storage, int components) {
+    size_t size;
+    switch (storage) {
+    case HALF_FLOAT:
+        size = 2 * components;
+        break;
+    case INT_2_10_10_10:
+        size = 4;
+        break;
+    case SNORM8:
+    case UNORM8:
+        size = components;
+        break;
+    default:
+        size = 4 * components;
+        break;
+    }
+    return (size + 3) & ~3;
+}
+
+void VertexPacker::layout() {
+    attributes_.clear();
+    size_ = 0;
+
+    bool interleave = interleaved_;
+    for (auto it = sources_.begin(); it != sources_.end(); ++it) {
+        if (it->count != sources_.front().count) {
+            interleave = false;
+        }
+    }
+
+    size_t stride = 0;
+    for (auto it = sources_.begin(); it != sources_.end(); ++it) {
+        VertexAttribute attribute;
+        attribute.location = it->location;
+        attribute.buffer = 0;
+        attribute.size = it->components;
+        attribute.normalized = GL_TRUE;
+        switch (it->storage) {
+        case HALF_FLOAT:
+            attribute.type = GL_HALF_FLOAT;
+            attribute.normalized = GL_FALSE;
+            break;
+        case INT_2_10_10_10:
+            // GL only takes this type as four components; w is always 0
+            attribute.type = GL_INT_2_10_10_10_REV;
+            attribute.size = 4;
+            break;
+        case SNORM8:
+            attribute.type = GL_BYTE;
+            break;
+        case UNORM8:
+            attribute.type = GL_UNSIGNED_BYTE;
+            break;
+        default:
+            attribute.type = GL_FLOAT;
+            attribute.normalized = GL_FALSE;
+            break;
+        }
+
+        size_t element_size = elementSize(it->storage, it->components);
+        if (interleave) {
+            attribute.offset = stride;
+            stride += element_size;
+        } else {
+            attribute.offset = size_;
+            attribute.stride = element_size;
+            size_ += element_size * it->count;
+        }
+        attributes_.push_back(attribute);
+    }
+
+    if (interleave) {
+        for (auto it = attributes_.begin(); it != attributes_.end(); ++it) {
+            it->stride = stride;
+        }
+        size_ = sources_.empty() ? 0 : stride * sources_.front().count;
+    }
+}
+
+void VertexPacker::pack() {
+    layout();
+    data_.assign(size_, 0);
+
+    for (size_t index = 0; index < sources_.size(); ++index) {
+        const Source& source = sources_[index];
+        const VertexAttribute& attribute = attributes_[index];
+        unsigned char* out = data_.data() + attribute.offset;
+        const float* in = source.data;
+        int components = source.components;
+
+        switch (source.storage) {
+        case HALF_FLOAT:
+            for (size_t element = 0; element < source.count; ++element) {
+                for (int component = 0; component < components; ++component) {
+                    uint16_t half = packHalf(in[component]);
+                    memcpy(out + 2 * component, &half, sizeof(half));
+                }
+                out += attribute.stride;
+                in += components;
+            }
+            break;
+        case INT_2_10_10_10:
+            for (size_t element = 0; element < source.count; ++element) {
+                uint32_t packed = packInt2101010(in);
+                memcpy(out, &packed, sizeof(packed));
+                out += attribute.stride;
+                in += components;
+            }
+            break;
+        case SNORM8:
+            for (size_t element = 0; element < source.count; ++element) {
+                for (int component = 0; component < components; ++component) {
+                    out[component] = static_cast<unsigned char>(packSnorm8(
+                            in[component]));
+                }
+                out += attribute.stride;
+                in += components;
+            }
+            break;
+        case UNORM8:
+            for (size_t element = 0; element < source.count; ++element) {
+                for (int component = 0; component < components; ++component) {
+                    out[component] = packUnorm8(in[component]);
+                }
+                out += attribute.stride;
+                in += components;
+            }
+            break;
+        default:
+            for (size_t element = 0; element < source.count; ++element) {
+                memcpy(out, in, sizeof(float) * components);
+                out += attribute.stride;
+                in += components;
+            }
+            break;
+        }
+    }
+}
+
+void VertexPacker::unpack(int attribute, size_t element, float* out) const {
+    const Source& source = sources_[attribute];
+    const unsigned char* in = data_.data() + attributes_[attribute].offset
+            + element * attributes_[attribute].stride;
+
+    switch (source.storage) {
+    case HALF_FLOAT:
+        for (int component = 0; component < source.components; ++component) {
+            uint16_t half;
+            memcpy(&half, in + 2 * component, sizeof(half));
+            out[component] = unpackHalf(half);
+        }
+        break;
+    case INT_2_10_10_10: {
+        uint32_t packed;
+        memcpy(&packed, in, sizeof(packed));
+        float value[4];
+        unpackInt2101010(packed, value);
+        std::copy(value, value + std::min(source.components, 4), out);
+        break;
+    }
+    case SNORM8:
+        for (int component = 0; component < source.components; ++component) {
+            out[component] = unpackSnorm8(static_cast<int8_t>(in[component]));
+        }
+        break;
+    case UNORM8:
+        for (int component = 0; component < source.components; ++component) {
+            out[component] = unpackUnorm8(in[component]);
+        }
+        break;
+    default:
+        memcpy(out, in, sizeof(float) * source.components);
+        break;
+    }
+}
+
+/*
+ * IEEE 754 binary32 to binary16, rounding to nearest even. Out of range
+ * values become infinities, and tiny ones denormals or zeros.
+ */
+uint16_t VertexPacker::packHalf(float value) {
+    uint32_t bits;
+    memcpy(&bits, &value, sizeof(bits));
+    uint32_t sign = (bits >> 16) & 0x8000;
+    int exponent = static_cast<int>((bits >> 23) & 0xff);
+    uint32_t mantissa = bits & 0x7fffff;
+
+    if (exponent == 0xff) {
+        // Infinity stays infinity; NaN stays a (quiet) NaN
+        return sign | 0x7c00 | (mantissa != 0 ? 0x200 : 0);
+    }
+
+    exponent += 15 - 127;
+    if (exponent >= 0x1f) {
+        return sign | 0x7c00;
+    }
+
+    if (exponent <= 0) {
+        if (exponent < -10) {
+            return sign;
+        }
+        // A denormal: shift the implicit bit in with the rest
+        mantissa |= 0x800000;
+        int shift = 14 - exponent;
+        uint32_t half = mantissa >> shift;
+        uint32_t remainder = mantissa & ((1u << shift) - 1);
+        uint32_t halfway = 1u << (shift - 1);
+        if (remainder > halfway || (remainder == halfway && (half & 1))) {
+            ++half;
+        }
+        return sign | half;
+    }
+
+    uint32_t half = (exponent << 10) | (mantissa >> 13);
+    uint32_t remainder = mantissa & 0x1fff;
+    // A carry out of the mantissa correctly bumps the exponent, up to
+    // infinity
+    if (remainder > 0x1000 || (remainder == 0x1000 && (half & 1))) {
+        ++half;
+    }
+    return sign | half;
+}
+
+float VertexPacker::unpackHalf(uint16_t half) {
+    uint32_t sign = static_cast<uint32_t>(half & 0x8000) << 16;
+    uint32_t exponent = (half >> 10) & 0x1f;
+    uint32_t mantissa = half & 0x3ff;
+
+    if (exponent == 0) {
+        float value = std::ldexp(static_cast<float>(mantissa), -24);
+        return sign != 0 ? -value : value;
+    }
+
+    uint32_t bits;
+    if (exponent == 0x1f) {
+        bits = sign | 0x7f800000 | (mantissa << 13);
+    } else {
+        bits = sign | ((exponent + 127 - 15) << 23) | (mantissa << 13);
+    }
+    float value;
+    memcpy(&value, &bits, sizeof(value));
+    return value;
+}
+
+/*
+ * x, y, z as 10-bit signed normalized integers, low bits first, as
+ * GL_INT_2_10_10_10_REV has them.
+ */
+uint32_t VertexPacker::packInt2101010(const float* value) {
+    uint32_t x = quantize(value[0], -1.0f, 511.0f) & 0x3ff;
+    uint32_t y = quantize(value[1], -1.0f, 511.0f) & 0x3ff;
+    uint32_t z = quantize(value[2], -1.0f, 511.0f) & 0x3ff;
+    return x | (y << 10) | (z << 20);
+}
+
+void VertexPacker::unpackInt2101010(uint32_t packed, float* out) {
+    // Shift each field to the top, then back down to sign extend it
+    int32_t x = static_cast<int32_t>(packed << 22) >> 22;
+    int32_t y = static_cast<int32_t>(packed << 12) >> 22;
+    int32_t z = static_cast<int32_t>(packed << 2) >> 22;
+    int32_t w = static_cast<int32_t>(packed) >> 30;
+    out[0] = std::max(x / 511.0f, -1.0f);
+    out[1] = std::max(y / 511.0f, -1.0f);
+    out[2] = std::max(z / 511.0f, -1.0f);
+    out[3] = std::max(static_cast<float>(w), -1.0f);
+}
+
+int8_t VertexPacker::packSnorm8(float value) {
+    return static_cast<int8_t>(quantize(value, -1.0f, 127.0f));
+}
+
+float VertexPacker::unpackSnorm8(int8_t value) {
+    return std::max(value / 127.0f, -1.0f);
+}
+
+uint8_t VertexPacker::packUnorm8(float value) {
+    return static_cast<uint8_t>(quantize(value, 0.0f, 255.0f));
+}
+
+float VertexPacker::unpackUnorm8(uint8_t value) {
+    return value / 255.0f;
+}
+
+}
@@ -0,0 +1,168 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/***************************************************************************
+ * How a mesh's vertex data is laid out in GL buffers.
+ *
+ * The default layout is the one meshes have always had: each attribute in
+ * its own buffer, as 32-bit floats. A mesh can instead interleave its
+ * attributes, vertex by vertex, in one buffer, and store some of them in
+ * fewer bits: texture coordinates as half floats, normals as 10:10:10:2 or
+ * 8-bit signed normalized integers, and one color attribute as 8-bit
+ * unsigned normalized integers. Any layout but the default uses a single
+ * buffer; without interleaving, the attributes follow one another in it.
+ *
+ * VertexPacker does the conversion on the CPU, with no GL calls, so it can
+ * be checked on the host.
+ ***************************************************************************/
+
+#ifndef VERTEX_LAYOUT_H_
+#define VERTEX_LAYOUT_H_
+
+#include <cstdint>
+#include <string>
+#include <vector>
+
+#ifndef GL_ES_VERSION_3_0
+#include "GLES3/gl3.h"
+#endif
+
+namespace gvr {
+
+/*
+ * The enum values match the ordinals of the enums in GVRVertexLayout.
+ */
+struct VertexLayout {
+    enum NormalFormat {
+        NORMAL_FLOAT, NORMAL_INT_2_10_10_10, NORMAL_SNORM8
+    };
+
+    enum TexCoordFormat {
+        TEX_COORD_FLOAT, TEX_COORD_HALF_FLOAT
+    };
+
+    VertexLayout() :
+            interleaved(false), normal_format(
+                    NORMAL_FLOAT), tex_coord_format(TEX_COORD_FLOAT), color_key() {
+    }
+
+    // One buffer per attribute, all floats
+    bool isDefault() const {
+        return !interleaved && normal_format == NORMAL_FLOAT
+                && tex_coord_format == TEX_COORD_FLOAT && color_key.empty();
+    }
+
+    bool interleaved;
+    NormalFormat normal_format;
+    TexCoordFormat tex_coord_format;
+    // The vec4 attribute to store as unsigned bytes; empty for none
+    std::string color_key;
+};
+
+/*
+ * One attribute, as glVertexAttribPointer() takes it.
+ */
+struct VertexAttribute {
+    GLuint location;
+    GLuint buffer;
+    GLint size;
+    GLenum type;
+    GLboolean normalized;
+    GLsizei stride;
+    size_t offset;
+};
+
+class VertexPacker {
+public:
+    enum Storage {
+        FLOAT, HALF_FLOAT, INT_2_10_10_10, SNORM8, UNORM8
+    };
+
+    explicit VertexPacker(bool interleaved) :
+            interleaved_(interleaved), size_(0) {
+    }
+
+    /*
+     * Adds an attribute of count elements of components floats each. The
+     * data is read by layout() and pack(), so must outlive them.
+     */
+    void add(GLuint location, const float* data, int components, size_t count,
+            Storage storage);
+
+    /*
+     * Works out each attribute's offset and stride, and the buffer size,
+     * without packing anything. Attributes with different element counts
+     * cannot be interleaved, so they are laid out one after another.
+     */
+    void layout();
+
+    // layout(), then packs every attribute into data()
+    void pack();
+
+    // What add() was given, in order
+    struct Source {
+        GLuint location;
+        const float* data;
+        int components;
+        size_t count;
+        Storage storage;
+    };
+
+    const std::vector<Source>& sources() const {
+        return sources_;
+    }
+
+    // For each source, after layout(); buffer is left 0
+    const std::vector<VertexAttribute>& attributes() const {
+        return attributes_;
+    }
+
+    // In bytes, after layout()
+    size_t size() const {
+        return size_;
+    }
+
+    const std::vector<unsigned char>& data() const {
+        return data_;
+    }
+
+    /*
+     * Reads one element of an attribute back from data(), as floats: what
+     * the GPU would see.
+     */
+    void unpack(int attribute, size_t element, float* out) const;
+
+    static uint16_t packHalf(float value);
+    static float unpackHalf(uint16_t half);
+    static uint32_t packInt2101010(const float* value);
+    static void unpackInt2101010(uint32_t packed, float* out);
+    static int8_t packSnorm8(float value);
+    static float unpackSnorm8(int8_t value);
+    static uint8_t packUnorm8(float value);
+    static float unpackUnorm8(uint8_t value);
+
+    // Bytes per element, padded to four for alignment
+    static size_t elementSize(Storage storage, int components);
+
+private:
+    bool interleaved_;
+    std::vector<Source> sources_;
+    std::vector<VertexAttribute> attributes_;
+    size_t size_;
+    std::vector<unsigned char> data_;
+};
+
+}
+#endif
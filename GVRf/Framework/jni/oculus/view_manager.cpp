@@ -34,7 +34,8 @@ void Java_org_gearvrf_GVRViewManager_cull(JNIEnv * jni, jclass clazz,
 void Java_org_gearvrf_GVRViewManager_renderCamera(JNIEnv * jni, jclass clazz,
         jlong appPtr, jlong jscene, jlong jcamera, jlong jshader_manager,
         jlong jpost_effect_shader_manager, jlong jpost_effect_render_texture_a,
-        jlong jpost_effect_render_texture_b) {
+        jlong jpost_effect_render_texture_b,
+        jlong jpost_effect_render_texture_c) {
     GVRActivity *activity =
             (GVRActivity*) ((OVR::App *) appPtr)->GetAppInterface();
 
@@ -48,10 +49,13 @@ void Java_org_gearvrf_GVRViewManager_renderCamera(JNIEnv * jni, jclass clazz,
             reinterpret_cast<RenderTexture*>(jpost_effect_render_texture_a);
     RenderTexture* post_effect_render_texture_b =
             reinterpret_cast<RenderTexture*>(jpost_effect_render_texture_b);
+    RenderTexture* post_effect_render_texture_c =
+            reinterpret_cast<RenderTexture*>(jpost_effect_render_texture_c);
 
     activity->viewManager->renderCamera(activity->Scene, scene, camera,
             shader_manager, post_effect_shader_manager,
-            post_effect_render_texture_a, post_effect_render_texture_b);
+            post_effect_render_texture_a, post_effect_render_texture_b,
+            post_effect_render_texture_c);
 }
 
 void Java_org_gearvrf_GVRViewManager_readRenderResultNative(JNIEnv * jni,
@@ -69,7 +73,9 @@ void Java_org_gearvrf_GVRViewManager_readRenderResultNative(JNIEnv * jni,
     glGetIntegerv(GL_READ_FRAMEBUFFER_BINDING, &currentReadFBO);
     glGetIntegerv(GL_DRAW_FRAMEBUFFER_BINDING, &currentDrawFBO);
 
-// blit the multisampled FBO to a normal FBO and read from it
+// blit the multisampled FBO to a normal FBO and read from it; renderCamera()
+// leaves the eye's FBO bound, post effects or not, so this copies the frame
+// as it was drawn, rather than whatever the render texture last held
     GLuint renderTextureFBO = render_texture->getFrameBufferId();
     glBindFramebuffer(GL_DRAW_FRAMEBUFFER, renderTextureFBO);
     glBlitFramebuffer(0, 0, width, height, 0, 0, width, height,
@@ -108,7 +114,8 @@ void GVRViewManager::renderCamera(OVR::OvrSceneView &ovr_scene, Scene* scene,
         Camera* camera, ShaderManager* shader_manager,
         PostEffectShaderManager* post_effect_shader_manager,
         RenderTexture* post_effect_render_texture_a,
-        RenderTexture* post_effect_render_texture_b) {
+        RenderTexture* post_effect_render_texture_b,
+        RenderTexture* post_effect_render_texture_c) {
 #ifdef GVRF_FBO_FPS
     // starting to collect rendering time
     // first flash GPU tasks
@@ -130,7 +137,7 @@ void GVRViewManager::renderCamera(OVR::OvrSceneView &ovr_scene, Scene* scene,
 
     Renderer::renderCamera(scene, camera, shader_manager,
             post_effect_shader_manager, post_effect_render_texture_a,
-            post_effect_render_texture_b);
+            post_effect_render_texture_b, post_effect_render_texture_c);
 
 #ifdef GVRF_FBO_FPS
     // finish rendering
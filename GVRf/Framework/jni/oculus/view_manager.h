@@ -53,7 +53,8 @@ public:
                         ShaderManager* shader_manager,
                         PostEffectShaderManager* post_effect_shader_manager,
                         RenderTexture* post_effect_render_texture_a,
-                        RenderTexture* post_effect_render_texture_b);
+                        RenderTexture* post_effect_render_texture_b,
+                        RenderTexture* post_effect_render_texture_c);
 
     glm::mat4 mvp_matrix;
 
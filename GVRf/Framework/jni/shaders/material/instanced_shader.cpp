@@ -0,0 +1,147 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * Renders every visible instance of an instanced RenderData, unlit and
+ * textured, in one draw call.
+ ***************************************************************************/
+
+#include "instanced_shader.h"
+
+#include "gl/gl_program.h"
+#include "objects/instance_buffer.h"
+#include "objects/material.h"
+#include "objects/mesh.h"
+#include "objects/components/render_data.h"
+#include "util/gvr_gl.h"
+
+namespace gvr {
+static const char VERTEX_SHADER[] = "attribute vec4 a_position;\n"
+        "attribute vec4 a_tex_coord;\n"
+        "attribute mat4 a_model;\n"
+        "attribute vec4 a_instance_color;\n"
+        "uniform mat4 u_vp;\n"
+        "varying vec2 v_tex_coord;\n"
+        "varying vec4 v_instance_color;\n"
+        "void main() {\n"
+        "  v_tex_coord = a_tex_coord.xy;\n"
+        "  v_instance_color = a_instance_color;\n"
+        "  gl_Position = u_vp * (a_model * a_position);\n"
+        "}\n";
+
+static const char FRAGMENT_SHADER[] = "precision highp float;\n"
+        "uniform sampler2D u_texture;\n"
+        "uniform vec3 u_color;\n"
+        "uniform float u_opacity;\n"
+        "varying vec2 v_tex_coord;\n"
+        "varying vec4 v_instance_color;\n"
+        "void main()\n"
+        "{\n"
+        "  vec4 color = texture2D(u_texture, v_tex_coord);\n"
+        "  float opacity = u_opacity * v_instance_color.a;\n"
+        "  gl_FragColor = vec4(color.rgb * u_color * v_instance_color.rgb * opacity, color.a * opacity);\n"
+        "}\n";
+
+InstancedShader::InstancedShader() :
+        program_(0), a_model_(0), a_instance_color_(0), u_vp_(0), u_texture_(
+                0), u_color_(0), u_opacity_(0) {
+    program_ = new GLProgram(VERTEX_SHADER, FRAGMENT_SHADER);
+    a_model_ = glGetAttribLocation(program_->id(), "a_model");
+    a_instance_color_ = glGetAttribLocation(program_->id(),
+            "a_instance_color");
+    u_vp_ = glGetUniformLocation(program_->id(), "u_vp");
+    u_texture_ = glGetUniformLocation(program_->id(), "u_texture");
+    u_color_ = glGetUniformLocation(program_->id(), "u_color");
+    u_opacity_ = glGetUniformLocation(program_->id(), "u_opacity");
+}
+
+InstancedShader::~InstancedShader() {
+    if (program_ != 0) {
+        recycle();
+    }
+}
+
+void InstancedShader::recycle() {
+    delete program_;
+    program_ = 0;
+}
+
+void InstancedShader::render(const glm::mat4& vp_matrix,
+        RenderData* render_data, Material* material) {
+    Mesh* mesh = render_data->mesh();
+    InstanceBuffer* instances = render_data->instance_buffer();
+    Texture* texture = material->getTexture("main_texture");
+    glm::vec3 color = material->getVec3("color");
+    float opacity = material->getFloat("opacity");
+
+    if (texture->getTarget() != GL_TEXTURE_2D) {
+        std::string error =
+                "InstancedShader::render : texture with wrong target.";
+        throw error;
+    }
+
+    int visible = instances->visible_count();
+    if (visible == 0) {
+        return;
+    }
+
+    glUseProgram(program_->id());
+
+    glUniformMatrix4fv(u_vp_, 1, GL_FALSE, glm::value_ptr(vp_matrix));
+    glActiveTexture (GL_TEXTURE0);
+    glBindTexture(texture->getTarget(), texture->getId());
+    glUniform1i(u_texture_, 0);
+    glUniform3f(u_color_, color.r, color.g, color.b);
+    glUniform1f(u_opacity_, opacity);
+
+#if _GVRF_USE_GLES3_
+    glBindVertexArray(
+            instances->getVAOId(mesh, a_model_, a_instance_color_));
+    glDrawElementsInstanced(render_data->draw_mode(), mesh->indices().size(),
+            GL_UNSIGNED_SHORT, 0, visible);
+    glBindVertexArray(0);
+#else
+    // No instanced draws: set the per-instance attributes as constants, and
+    // draw each instance in turn
+    glVertexAttribPointer(GLProgram::POSITION_ATTRIBUTE_LOCATION, 3, GL_FLOAT,
+            GL_FALSE, 0, mesh->vertices().data());
+    glEnableVertexAttribArray(GLProgram::POSITION_ATTRIBUTE_LOCATION);
+
+    glVertexAttribPointer(GLProgram::TEXCOORD_ATTRIBUT_LOCATION, 2, GL_FLOAT,
+            GL_FALSE, 0, mesh->tex_coords().data());
+    glEnableVertexAttribArray(GLProgram::TEXCOORD_ATTRIBUT_LOCATION);
+
+    for (int column = 0; column < 4; ++column) {
+        glDisableVertexAttribArray(a_model_ + column);
+    }
+    glDisableVertexAttribArray(a_instance_color_);
+
+    const float* instance = instances->visible_data();
+    for (int i = 0; i < visible; ++i) {
+        for (int column = 0; column < 4; ++column) {
+            glVertexAttrib4fv(a_model_ + column, instance + column * 4);
+        }
+        glVertexAttrib4fv(a_instance_color_,
+                instance + InstanceBuffer::MATRIX_FLOATS);
+        glDrawElements(render_data->draw_mode(), mesh->indices().size(),
+                GL_UNSIGNED_SHORT, mesh->indices().data());
+        instance += InstanceBuffer::FLOATS_PER_INSTANCE;
+    }
+#endif
+    checkGlError("InstancedShader::render");
+}
+
+}
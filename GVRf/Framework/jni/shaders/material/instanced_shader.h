@@ -0,0 +1,66 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * Renders every visible instance of an instanced RenderData, unlit and
+ * textured, in one draw call.
+ ***************************************************************************/
+
+#ifndef INSTANCED_SHADER_H_
+#define INSTANCED_SHADER_H_
+
+#include <memory>
+
+#define __gl2_h_
+#include "GLES3/gl3.h"
+#include <GLES2/gl2ext.h>
+#include "glm/glm.hpp"
+#include "glm/gtc/type_ptr.hpp"
+
+#include "objects/recyclable_object.h"
+
+namespace gvr {
+class GLProgram;
+class RenderData;
+class Material;
+
+class InstancedShader: public RecyclableObject {
+public:
+    InstancedShader();
+    ~InstancedShader();
+    void recycle();
+    void render(const glm::mat4& vp_matrix, RenderData* render_data,
+            Material* material);
+
+private:
+    InstancedShader(const InstancedShader& instanced_shader);
+    InstancedShader(InstancedShader&& instanced_shader);
+    InstancedShader& operator=(const InstancedShader& instanced_shader);
+    InstancedShader& operator=(InstancedShader&& instanced_shader);
+
+private:
+    GLProgram* program_;
+    GLuint a_model_;
+    GLuint a_instance_color_;
+    GLuint u_vp_;
+    GLuint u_texture_;
+    GLuint u_color_;
+    GLuint u_opacity_;
+};
+
+}
+
+#endif
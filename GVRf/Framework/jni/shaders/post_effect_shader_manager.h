@@ -20,10 +20,15 @@
 #ifndef POST_EFFECT_SHADER_MANAGER_H_
 #define POST_EFFECT_SHADER_MANAGER_H_
 
+#include <map>
+#include <vector>
+
 #include "objects/hybrid_object.h"
+#include "objects/post_effect_data.h"
 #include "shaders/posteffect/color_blend_post_effect_shader.h"
 #include "shaders/posteffect/horizontal_flip_post_effect_shader.h"
 #include "shaders/posteffect/custom_post_effect_shader.h"
+#include "shaders/posteffect/fused_post_effect_shader.h"
 #include "util/gvr_log.h"
 
 namespace gvr {
@@ -31,7 +36,7 @@ class PostEffectShaderManager: public HybridObject {
 public:
     PostEffectShaderManager() :
             HybridObject(), color_blend_post_effect_shader_(), horizontal_flip_post_effect_shader_(), latest_custom_shader_id_(
-                    INITIAL_CUSTOM_SHADER_INDEX), custom_post_effect_shaders_(), quad_vertices_(), quad_uvs_(), quad_triangles_() {
+                    INITIAL_CUSTOM_SHADER_INDEX), custom_post_effect_shaders_(), quad_vertices_(), quad_uvs_(), quad_triangles_(), plans_(), plan_key_() {
         quad_vertices_.push_back(glm::vec3(-1.0f, -1.0f, 0.0f));
         quad_vertices_.push_back(glm::vec3(-1.0f, 1.0f, 0.0f));
         quad_vertices_.push_back(glm::vec3(1.0f, -1.0f, 0.0f));
@@ -54,6 +59,9 @@ public:
     ~PostEffectShaderManager() {
         delete color_blend_post_effect_shader_;
         delete horizontal_flip_post_effect_shader_;
+        for (auto it = plans_.begin(); it != plans_.end(); ++it) {
+            delete it->second;
+        }
         // We don't delete the custom shaders, as their Java owner-objects will do that for us.
     }
 
@@ -91,6 +99,30 @@ public:
         }
     }
 
+    /*
+     * The passes that draw a chain of post effects, merging what can be
+     * merged. Plans are kept per sequence of shaders, and rebuilt if a
+     * custom shader has gained uniforms since.
+     */
+    PostEffectPlan* getPostEffectPlan(
+            const std::vector<PostEffectData*>& post_effects) {
+        plan_key_.clear();
+        for (auto it = post_effects.begin(); it != post_effects.end(); ++it) {
+            plan_key_.push_back((*it)->shader_type());
+        }
+        auto it = plans_.find(plan_key_);
+        if (it != plans_.end()) {
+            if (!it->second->stale()) {
+                return it->second;
+            }
+            delete it->second;
+            plans_.erase(it);
+        }
+        PostEffectPlan* plan = new PostEffectPlan(post_effects, this);
+        plans_[plan_key_] = plan;
+        return plan;
+    }
+
     std::vector<glm::vec3>& quad_vertices() {
         return quad_vertices_;
     }
@@ -122,6 +154,9 @@ private:
     std::vector<glm::vec3> quad_vertices_;
     std::vector<glm::vec2> quad_uvs_;
     std::vector<unsigned short> quad_triangles_;
+    std::map<std::vector<int>, PostEffectPlan*> plans_;
+    // Scratch for the lookup, so a frame allocates nothing
+    std::vector<int> plan_key_;
 };
 
 }
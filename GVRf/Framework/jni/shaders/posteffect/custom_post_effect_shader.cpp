@@ -31,7 +31,9 @@
 namespace gvr {
 CustomPostEffectShader::CustomPostEffectShader(std::string vertex_shader,
         std::string fragment_shader) :
-        program_(0), a_position_(0), a_tex_coord_(0), u_texture_(0), texture_keys_(), float_keys_(), vec2_keys_(), vec3_keys_(), vec4_keys_(), mat4_keys_() {
+        vertex_shader_(vertex_shader), fragment_shader_(fragment_shader), fusion_(
+                PostEffectCompiler::classify(vertex_shader, fragment_shader)), program_(
+                0), a_position_(0), a_tex_coord_(0), u_texture_(0), texture_keys_(), float_keys_(), vec2_keys_(), vec3_keys_(), vec4_keys_(), mat4_keys_(), uniform_keys_() {
     program_ = new GLProgram(vertex_shader.c_str(), fragment_shader.c_str());
     a_position_ = glGetAttribLocation(program_->id(), "a_position");
     checkGlError("glGetAttribLocation");
@@ -68,35 +70,41 @@ void CustomPostEffectShader::addTextureKey(std::string variable_name,
         std::string key) {
     int location = glGetUniformLocation(program_->id(), variable_name.c_str());
     texture_keys_[location] = key;
+    uniform_keys_.push_back(UniformKey(TEXTURE, variable_name, key));
 }
 
 void CustomPostEffectShader::addFloatKey(std::string variable_name,
         std::string key) {
     int location = glGetUniformLocation(program_->id(), variable_name.c_str());
     float_keys_[location] = key;
+    uniform_keys_.push_back(UniformKey(FLOAT, variable_name, key));
 }
 void CustomPostEffectShader::addVec2Key(std::string variable_name,
         std::string key) {
     int location = glGetUniformLocation(program_->id(), variable_name.c_str());
     vec2_keys_[location] = key;
+    uniform_keys_.push_back(UniformKey(VEC2, variable_name, key));
 }
 
 void CustomPostEffectShader::addVec3Key(std::string variable_name,
         std::string key) {
     int location = glGetUniformLocation(program_->id(), variable_name.c_str());
     vec3_keys_[location] = key;
+    uniform_keys_.push_back(UniformKey(VEC3, variable_name, key));
 }
 
 void CustomPostEffectShader::addVec4Key(std::string variable_name,
         std::string key) {
     int location = glGetUniformLocation(program_->id(), variable_name.c_str());
     vec4_keys_[location] = key;
+    uniform_keys_.push_back(UniformKey(VEC4, variable_name, key));
 }
 
 void CustomPostEffectShader::addMat4Key(std::string variable_name,
         std::string key) {
     int location = glGetUniformLocation(program_->id(), variable_name.c_str());
     mat4_keys_[location] = key;
+    uniform_keys_.push_back(UniformKey(MAT4, variable_name, key));
 }
 
 void CustomPostEffectShader::render(Camera* camera,
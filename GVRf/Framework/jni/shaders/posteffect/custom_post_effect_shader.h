@@ -31,6 +31,7 @@
 
 #include "objects/recyclable_object.h"
 #include "objects/components/camera.h"
+#include "shaders/posteffect/post_effect_compiler.h"
 
 namespace gvr {
 class GLProgram;
@@ -39,6 +40,23 @@ class PostEffectData;
 
 class CustomPostEffectShader: public RecyclableObject {
 public:
+    enum UniformType {
+        TEXTURE, FLOAT, VEC2, VEC3, VEC4, MAT4
+    };
+
+    // A uniform the shader reads from the PostEffectData, in the order the
+    // keys were added
+    struct UniformKey {
+        UniformKey(UniformType type, const std::string& variable_name,
+                const std::string& key) :
+                type(type), variable_name(variable_name), key(key) {
+        }
+
+        UniformType type;
+        std::string variable_name;
+        std::string key;
+    };
+
     CustomPostEffectShader(std::string vertex_shader,
             std::string fragment_shader);
     ~CustomPostEffectShader();
@@ -57,6 +75,32 @@ public:
             std::vector<unsigned short>& triangles);
     static int getGLTexture(int n);
 
+    const std::string& vertex_shader() const {
+        return vertex_shader_;
+    }
+
+    const std::string& fragment_shader() const {
+        return fragment_shader_;
+    }
+
+    PostEffectCompiler::Fusion fusion() const {
+        return fusion_;
+    }
+
+    const std::vector<UniformKey>& uniform_keys() const {
+        return uniform_keys_;
+    }
+
+    int texture_count() const {
+        int count = 0;
+        for (auto it = uniform_keys_.begin(); it != uniform_keys_.end(); ++it) {
+            if (it->type == TEXTURE) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
 
 private:
     CustomPostEffectShader(
@@ -68,6 +112,9 @@ private:
             CustomPostEffectShader&& custom_post_effect_shader);
 
 private:
+    std::string vertex_shader_;
+    std::string fragment_shader_;
+    PostEffectCompiler::Fusion fusion_;
     GLProgram* program_;
     GLuint a_position_;
     GLuint a_tex_coord_;
@@ -80,6 +127,7 @@ private:
     std::map<int, std::string> vec3_keys_;
     std::map<int, std::string> vec4_keys_;
     std::map<int, std::string> mat4_keys_;
+    std::vector<UniformKey> uniform_keys_;
 
     // add vertex array object
     GLuint vaoID_;
@@ -0,0 +1,316 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * Draws a run of post effects in one pass, with a generated shader.
+ ***************************************************************************/
+
+#include "fused_post_effect_shader.h"
+
+#include "gl/gl_program.h"
+#include "objects/post_effect_data.h"
+#include "objects/components/render_data.h"
+#include "objects/textures/render_texture.h"
+#include "shaders/post_effect_shader_manager.h"
+#include "util/gvr_gl.h"
+#include "util/gvr_log.h"
+#include "engine/memory/gl_delete.h"
+
+namespace gvr {
+FusedPostEffectShader::FusedPostEffectShader(
+        const std::vector<PostEffectCompiler::Stage>& stages,
+        const std::vector<CustomPostEffectShader*>& custom_shaders) :
+        fragment_shader_(PostEffectCompiler::fragmentShader(stages)), program_(
+                0), a_position_(0), a_tex_coord_(0), u_texture_(0), stages_(), vaoID_(
+                0) {
+    program_ = new GLProgram(PostEffectCompiler::vertexShader(),
+            fragment_shader_.c_str());
+    if (!valid()) {
+        return;
+    }
+    a_position_ = glGetAttribLocation(program_->id(), "a_position");
+    a_tex_coord_ = glGetAttribLocation(program_->id(), "a_tex_coord");
+    u_texture_ = glGetUniformLocation(program_->id(), "u_texture");
+
+    for (size_t stage = 0; stage < stages.size(); ++stage) {
+        std::string prefix = PostEffectCompiler::prefix(stage);
+        StageUniforms uniforms;
+        uniforms.shader_type = stages[stage].shader_type;
+        uniforms.u_color = glGetUniformLocation(program_->id(),
+                (prefix + "u_color").c_str());
+        uniforms.u_factor = glGetUniformLocation(program_->id(),
+                (prefix + "u_factor").c_str());
+        uniforms.u_projection_matrix = glGetUniformLocation(program_->id(),
+                (prefix + "u_projection_matrix").c_str());
+        uniforms.u_right_eye = glGetUniformLocation(program_->id(),
+                (prefix + "u_right_eye").c_str());
+
+        CustomPostEffectShader* custom_shader = custom_shaders[stage];
+        if (custom_shader != 0) {
+            const std::vector<CustomPostEffectShader::UniformKey>& keys =
+                    custom_shader->uniform_keys();
+            for (auto it = keys.begin(); it != keys.end(); ++it) {
+                Uniform uniform;
+                uniform.location = glGetUniformLocation(program_->id(),
+                        (prefix + it->variable_name).c_str());
+                uniform.type = it->type;
+                uniform.key = it->key;
+                uniforms.uniforms.push_back(uniform);
+            }
+        }
+        stages_.push_back(uniforms);
+    }
+    checkGlError("FusedPostEffectShader::FusedPostEffectShader");
+}
+
+FusedPostEffectShader::~FusedPostEffectShader() {
+    if (program_ != 0) {
+        recycle();
+    }
+    if (vaoID_ != 0) {
+        gl_delete.queueVertexArray(vaoID_);
+        vaoID_ = 0;
+    }
+}
+
+void FusedPostEffectShader::recycle() {
+    delete program_;
+    program_ = 0;
+}
+
+bool FusedPostEffectShader::valid() const {
+    return program_ != 0 && program_->id() != 0;
+}
+
+void FusedPostEffectShader::setUniforms(Camera* camera,
+        RenderTexture* render_texture,
+        PostEffectData* const * post_effect_data) {
+    int texture_index = 0;
+    glActiveTexture(CustomPostEffectShader::getGLTexture(texture_index));
+    glBindTexture(GL_TEXTURE_2D, render_texture->getId());
+    glUniform1i(u_texture_, texture_index++);
+
+    for (size_t stage = 0; stage < stages_.size(); ++stage) {
+        const StageUniforms& uniforms = stages_[stage];
+        PostEffectData* data = post_effect_data[stage];
+
+        if (uniforms.shader_type == PostEffectData::ShaderType::COLOR_BLEND_SHADER) {
+            glUniform3f(uniforms.u_color, data->getFloat("r"),
+                    data->getFloat("g"), data->getFloat("b"));
+            glUniform1f(uniforms.u_factor, data->getFloat("factor"));
+            continue;
+        }
+
+        if (uniforms.u_projection_matrix != -1) {
+            glm::mat4 view = camera->getViewMatrix();
+            glUniformMatrix4fv(uniforms.u_projection_matrix, 1, GL_TRUE,
+                    glm::value_ptr(view));
+        }
+
+        if (uniforms.u_right_eye != -1) {
+            bool right = camera->render_mask()
+                    & RenderData::RenderMaskBit::Right;
+            glUniform1i(uniforms.u_right_eye, right ? 1 : 0);
+        }
+
+        for (auto it = uniforms.uniforms.begin(); it != uniforms.uniforms.end();
+                ++it) {
+            switch (it->type) {
+            case CustomPostEffectShader::TEXTURE: {
+                glActiveTexture(
+                        CustomPostEffectShader::getGLTexture(texture_index));
+                Texture* texture = data->getTexture(it->key);
+                glBindTexture(texture->getTarget(), texture->getId());
+                glUniform1i(it->location, texture_index++);
+                break;
+            }
+            case CustomPostEffectShader::FLOAT:
+                glUniform1f(it->location, data->getFloat(it->key));
+                break;
+            case CustomPostEffectShader::VEC2: {
+                glm::vec2 v = data->getVec2(it->key);
+                glUniform2f(it->location, v.x, v.y);
+                break;
+            }
+            case CustomPostEffectShader::VEC3: {
+                glm::vec3 v = data->getVec3(it->key);
+                glUniform3f(it->location, v.x, v.y, v.z);
+                break;
+            }
+            case CustomPostEffectShader::VEC4: {
+                glm::vec4 v = data->getVec4(it->key);
+                glUniform4f(it->location, v.x, v.y, v.z, v.w);
+                break;
+            }
+            case CustomPostEffectShader::MAT4: {
+                glm::mat4 m = data->getMat4(it->key);
+                glUniformMatrix4fv(it->location, 1, GL_FALSE,
+                        glm::value_ptr(m));
+                break;
+            }
+            }
+        }
+    }
+}
+
+void FusedPostEffectShader::render(Camera* camera,
+        RenderTexture* render_texture,
+        PostEffectData* const * post_effect_data,
+        std::vector<glm::vec3>& vertices, std::vector<glm::vec2>& tex_coords,
+        std::vector<unsigned short>& triangles) {
+    glUseProgram(program_->id());
+
+#if _GVRF_USE_GLES3_
+    GLuint tmpID;
+
+    if(vaoID_ == 0)
+    {
+        glGenVertexArrays(1, &vaoID_);
+        glBindVertexArray(vaoID_);
+
+        glGenBuffers(1, &tmpID);
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, tmpID);
+        glBufferData(GL_ELEMENT_ARRAY_BUFFER, sizeof(unsigned short)*triangles.size(), &triangles[0], GL_STATIC_DRAW);
+
+        if (vertices.size())
+        {
+            glGenBuffers(1, &tmpID);
+            glBindBuffer(GL_ARRAY_BUFFER, tmpID);
+            glBufferData(GL_ARRAY_BUFFER, sizeof(glm::vec3)*vertices.size(), &vertices[0], GL_STATIC_DRAW);
+            glEnableVertexAttribArray(a_position_);
+            glVertexAttribPointer(a_position_, 3, GL_FLOAT, 0, 0, 0);
+        }
+
+        if (tex_coords.size())
+        {
+            glGenBuffers(1, &tmpID);
+            glBindBuffer(GL_ARRAY_BUFFER, tmpID);
+            glBufferData(GL_ARRAY_BUFFER, sizeof(glm::vec2)*tex_coords.size(), &tex_coords[0], GL_STATIC_DRAW);
+            glEnableVertexAttribArray(a_tex_coord_);
+            glVertexAttribPointer(a_tex_coord_, 2, GL_FLOAT, 0, 0, 0);
+        }
+    }
+
+    setUniforms(camera, render_texture, post_effect_data);
+
+    glBindVertexArray(vaoID_);
+    glDrawElements(GL_TRIANGLES, triangles.size(), GL_UNSIGNED_SHORT, 0);
+    glBindVertexArray(0);
+
+#else
+    glVertexAttribPointer(a_position_, 3, GL_FLOAT, GL_FALSE, 0,
+            vertices.data());
+    glEnableVertexAttribArray(a_position_);
+
+    glVertexAttribPointer(a_tex_coord_, 2, GL_FLOAT, GL_FALSE, 0,
+            tex_coords.data());
+    glEnableVertexAttribArray(a_tex_coord_);
+
+    setUniforms(camera, render_texture, post_effect_data);
+
+    glDrawElements(GL_TRIANGLES, triangles.size(), GL_UNSIGNED_SHORT,
+            triangles.data());
+#endif
+
+    checkGlError("FusedPostEffectShader::render");
+}
+
+PostEffectPlan::PostEffectPlan(const std::vector<PostEffectData*>& post_effects,
+        PostEffectShaderManager* post_effect_shader_manager) :
+        passes_(), custom_shaders_() {
+    std::vector<PostEffectCompiler::Fusion> fusions;
+    std::vector<int> texture_units;
+    std::vector<CustomPostEffectShader*> shaders;
+    for (auto it = post_effects.begin(); it != post_effects.end(); ++it) {
+        switch ((*it)->shader_type()) {
+        case PostEffectData::ShaderType::COLOR_BLEND_SHADER:
+        case PostEffectData::ShaderType::HORIZONTAL_FLIP_SHADER:
+            fusions.push_back(PostEffectCompiler::FUSION_ANY);
+            texture_units.push_back(0);
+            shaders.push_back(0);
+            break;
+        default: {
+            CustomPostEffectShader* shader =
+                    post_effect_shader_manager->getCustomPostEffectShader(
+                            (*it)->shader_type());
+            fusions.push_back(shader->fusion());
+            texture_units.push_back(shader->texture_count());
+            shaders.push_back(shader);
+            custom_shaders_.push_back(
+                    std::make_pair(shader, shader->uniform_keys().size()));
+            break;
+        }
+        }
+    }
+
+    std::vector<PostEffectCompiler::Pass> plan = PostEffectCompiler::plan(
+            fusions, texture_units);
+    for (auto it = plan.begin(); it != plan.end(); ++it) {
+        FusedPostEffectShader* shader = 0;
+        if (it->count > 1) {
+            std::vector<PostEffectCompiler::Stage> stages;
+            for (int effect = it->first; effect < it->first + it->count;
+                    ++effect) {
+                CustomPostEffectShader* custom_shader = shaders[effect];
+                stages.push_back(
+                        custom_shader == 0 ?
+                                PostEffectCompiler::Stage(
+                                        post_effects[effect]->shader_type()) :
+                                PostEffectCompiler::Stage(
+                                        post_effects[effect]->shader_type(),
+                                        custom_shader->vertex_shader(),
+                                        custom_shader->fragment_shader()));
+            }
+            shader = new FusedPostEffectShader(stages,
+                    std::vector<CustomPostEffectShader*>(
+                            shaders.begin() + it->first,
+                            shaders.begin() + it->first + it->count));
+            if (!shader->valid()) {
+                LOGE("PostEffectPlan::PostEffectPlan(): could not fuse %d effects; drawing them one by one", it->count);
+                delete shader;
+                shader = 0;
+            }
+        }
+
+        if (shader != 0 || it->count == 1) {
+            PostEffectPass pass = { it->first, it->count, shader };
+            passes_.push_back(pass);
+        } else {
+            for (int effect = it->first; effect < it->first + it->count;
+                    ++effect) {
+                PostEffectPass pass = { effect, 1, 0 };
+                passes_.push_back(pass);
+            }
+        }
+    }
+}
+
+PostEffectPlan::~PostEffectPlan() {
+    for (auto it = passes_.begin(); it != passes_.end(); ++it) {
+        delete it->shader;
+    }
+}
+
+bool PostEffectPlan::stale() const {
+    for (auto it = custom_shaders_.begin(); it != custom_shaders_.end(); ++it) {
+        if (it->first->uniform_keys().size() != it->second) {
+            return true;
+        }
+    }
+    return false;
+}
+
+}
@@ -0,0 +1,142 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * Draws a run of post effects in one pass, with a generated shader.
+ ***************************************************************************/
+
+#ifndef FUSED_POST_EFFECT_SHADER_H_
+#define FUSED_POST_EFFECT_SHADER_H_
+
+#include <string>
+#include <utility>
+#include <vector>
+
+#include "GLES3/gl3.h"
+#include "glm/glm.hpp"
+
+#include "objects/recyclable_object.h"
+#include "objects/components/camera.h"
+#include "shaders/posteffect/custom_post_effect_shader.h"
+#include "shaders/posteffect/post_effect_compiler.h"
+
+namespace gvr {
+class GLProgram;
+class RenderTexture;
+class PostEffectData;
+class PostEffectShaderManager;
+
+class FusedPostEffectShader: public RecyclableObject {
+public:
+    // custom_shaders has each stage's shader, or 0 for a stock effect
+    FusedPostEffectShader(const std::vector<PostEffectCompiler::Stage>& stages,
+            const std::vector<CustomPostEffectShader*>& custom_shaders);
+    ~FusedPostEffectShader();
+    void recycle();
+
+    // Whether the generated program compiled and linked
+    bool valid() const;
+
+    const std::string& fragment_shader() const {
+        return fragment_shader_;
+    }
+
+    // post_effect_data has one entry per stage
+    void render(Camera* camera, RenderTexture* render_texture,
+            PostEffectData* const * post_effect_data,
+            std::vector<glm::vec3>& vertices,
+            std::vector<glm::vec2>& tex_coords,
+            std::vector<unsigned short>& triangles);
+
+private:
+    FusedPostEffectShader(
+            const FusedPostEffectShader& fused_post_effect_shader);
+    FusedPostEffectShader(FusedPostEffectShader&& fused_post_effect_shader);
+    FusedPostEffectShader& operator=(
+            const FusedPostEffectShader& fused_post_effect_shader);
+    FusedPostEffectShader& operator=(
+            FusedPostEffectShader&& fused_post_effect_shader);
+
+    void setUniforms(Camera* camera, RenderTexture* render_texture,
+            PostEffectData* const * post_effect_data);
+
+private:
+    struct Uniform {
+        GLint location;
+        CustomPostEffectShader::UniformType type;
+        std::string key;
+    };
+
+    // Where one stage's uniforms ended up in the fused program
+    struct StageUniforms {
+        int shader_type;
+        GLint u_color;
+        GLint u_factor;
+        GLint u_projection_matrix;
+        GLint u_right_eye;
+        std::vector<Uniform> uniforms;
+    };
+
+    std::string fragment_shader_;
+    GLProgram* program_;
+    GLint a_position_;
+    GLint a_tex_coord_;
+    GLint u_texture_;
+    std::vector<StageUniforms> stages_;
+
+    // add vertex array object
+    GLuint vaoID_;
+};
+
+// Effects [first, first + count) of a chain, drawn in one pass
+struct PostEffectPass {
+    int first;
+    int count;
+    // 0 for a single effect, which draws with its own shader
+    FusedPostEffectShader* shader;
+};
+
+/*
+ * How a chain of post effects is drawn: its passes, with a fused shader for
+ * each run of effects PostEffectCompiler could merge.
+ */
+class PostEffectPlan {
+public:
+    PostEffectPlan(const std::vector<PostEffectData*>& post_effects,
+            PostEffectShaderManager* post_effect_shader_manager);
+    ~PostEffectPlan();
+
+    const std::vector<PostEffectPass>& passes() const {
+        return passes_;
+    }
+
+    // Whether a custom shader in the chain has gained uniforms since
+    bool stale() const;
+
+private:
+    PostEffectPlan(const PostEffectPlan& post_effect_plan);
+    PostEffectPlan(PostEffectPlan&& post_effect_plan);
+    PostEffectPlan& operator=(const PostEffectPlan& post_effect_plan);
+    PostEffectPlan& operator=(PostEffectPlan&& post_effect_plan);
+
+private:
+    std::vector<PostEffectPass> passes_;
+    // Each custom shader, with how many uniforms it had
+    std::vector<std::pair<CustomPostEffectShader*, size_t> > custom_shaders_;
+};
+
+}
+#endif
@@ -0,0 +1,734 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * Merges runs of per-pixel post effects into one generated shader.
+ ***************************************************************************/
+
+#include "post_effect_compiler.h"
+
+#include <algorithm>
+#include <cctype>
+#include <cstdio>
+#include <set>
+
+#include "objects/post_effect_data.h"
+
+namespace gvr {
+
+namespace {
+
+enum TokenType {
+    IDENTIFIER, NUMBER, SYMBOL, DIRECTIVE
+};
+
+struct Token {
+    Token(TokenType type, const std::string& text) :
+            type(type), text(text) {
+    }
+
+    TokenType type;
+    std::string text;
+};
+
+typedef std::vector<Token> Tokens;
+
+// [begin, end) of a token list
+struct Range {
+    Range(size_t begin, size_t end) :
+            begin(begin), end(end) {
+    }
+
+    size_t begin;
+    size_t end;
+};
+
+const char VERTEX_SHADER[] = "attribute vec4 a_position;\n"
+        "attribute vec4 a_tex_coord;\n"
+        "varying vec2 v_tex_coord;\n"
+        "void main() {\n"
+        "  v_tex_coord = a_tex_coord.xy;\n"
+        "  gl_Position = a_position;\n"
+        "}\n";
+
+bool isIdentifierStart(char c) {
+    return std::isalpha(static_cast<unsigned char>(c)) || c == '_';
+}
+
+bool isIdentifierPart(char c) {
+    return std::isalnum(static_cast<unsigned char>(c)) || c == '_';
+}
+
+/*
+ * Splits GLSL into tokens, dropping comments and white space. A
+ * preprocessor directive is a single token: its whole line. Returns false
+ * for a block comment that never ends.
+ */
+bool tokenize(const std::string& source, Tokens& tokens) {
+    static const char* const OPERATORS[] = { "++", "--", "+=", "-=", "*=",
+            "/=", "==", "!=", "<=", ">=", "&&", "||", "^^", "<<", ">>" };
+    const size_t n = source.size();
+    bool line_start = true;
+    size_t i = 0;
+    while (i < n) {
+        char c = source[i];
+        if (c == '\n') {
+            line_start = true;
+            ++i;
+        } else if (std::isspace(static_cast<unsigned char>(c))) {
+            ++i;
+        } else if (source.compare(i, 2, "//") == 0) {
+            i = source.find('\n', i);
+            if (i == std::string::npos) {
+                i = n;
+            }
+        } else if (source.compare(i, 2, "/*") == 0) {
+            size_t end = source.find("*/", i + 2);
+            if (end == std::string::npos) {
+                return false;
+            }
+            i = end + 2;
+        } else if (c == '#' && line_start) {
+            size_t end = source.find('\n', i);
+            if (end == std::string::npos) {
+                end = n;
+            }
+            size_t last = source.find_last_not_of(" \t\r", end - 1);
+            tokens.push_back(Token(DIRECTIVE, source.substr(i, last + 1 - i)));
+            i = end;
+        } else if (isIdentifierStart(c)) {
+            size_t start = i;
+            while (i < n && isIdentifierPart(source[i])) {
+                ++i;
+            }
+            tokens.push_back(Token(IDENTIFIER, source.substr(start, i - start)));
+            line_start = false;
+        } else if (std::isdigit(static_cast<unsigned char>(c))
+                || (c == '.' && i + 1 < n
+                        && std::isdigit(static_cast<unsigned char>(source[i + 1])))) {
+            size_t start = i;
+            while (i < n
+                    && (isIdentifierPart(source[i]) || source[i] == '.'
+                            || ((source[i] == '+' || source[i] == '-')
+                                    && (source[i - 1] == 'e'
+                                            || source[i - 1] == 'E')))) {
+                ++i;
+            }
+            tokens.push_back(Token(NUMBER, source.substr(start, i - start)));
+            line_start = false;
+        } else {
+            std::string text(1, c);
+            for (size_t op = 0; op < sizeof(OPERATORS) / sizeof(*OPERATORS);
+                    ++op) {
+                if (source.compare(i, 2, OPERATORS[op]) == 0) {
+                    text = OPERATORS[op];
+                    break;
+                }
+            }
+            tokens.push_back(Token(SYMBOL, text));
+            i += text.size();
+            line_start = false;
+        }
+    }
+    return true;
+}
+
+// Whether a directive is "#extension ..."
+bool isExtension(const Token& token) {
+    size_t name = token.text.find_first_not_of(" \t", 1);
+    return name != std::string::npos
+            && token.text.compare(name, 9, "extension") == 0;
+}
+
+bool is(const Tokens& tokens, size_t index, const char* text) {
+    return index < tokens.size() && tokens[index].text == text;
+}
+
+bool isPrecision(const Token& token) {
+    return token.text == "highp" || token.text == "mediump"
+            || token.text == "lowp";
+}
+
+bool isOpen(const Token& token) {
+    return token.type == SYMBOL
+            && (token.text == "(" || token.text == "[" || token.text == "{");
+}
+
+bool isClose(const Token& token) {
+    return token.type == SYMBOL
+            && (token.text == ")" || token.text == "]" || token.text == "}");
+}
+
+/*
+ * The top-level statements in [begin, end): declarations up to their
+ * semicolon, function definitions up to their closing brace, and
+ * directives. Returns false if the brackets do not balance.
+ */
+bool split(const Tokens& tokens, size_t begin, size_t end,
+        std::vector<Range>& statements) {
+    size_t start = begin;
+    int depth = 0;
+    bool is_struct = false;
+    for (size_t index = begin; index < end; ++index) {
+        const Token& token = tokens[index];
+        if (token.type == DIRECTIVE && depth == 0) {
+            if (index != start) {
+                return false;
+            }
+            statements.push_back(Range(index, index + 1));
+            start = index + 1;
+        } else if (isOpen(token)) {
+            ++depth;
+        } else if (isClose(token)) {
+            if (--depth < 0) {
+                return false;
+            }
+            // A function body ends its statement; a struct's continues to
+            // its declarators
+            if (depth == 0 && token.text == "}" && !is_struct) {
+                statements.push_back(Range(start, index + 1));
+                start = index + 1;
+            }
+        } else if (depth == 0 && token.text == "struct") {
+            is_struct = true;
+        } else if (depth == 0 && token.text == ";") {
+            statements.push_back(Range(start, index + 1));
+            start = index + 1;
+            is_struct = false;
+        }
+    }
+    return depth == 0 && start == end;
+}
+
+/*
+ * Adds the names a top-level statement declares: variables, functions, and
+ * structs. Initializers, parameters, and bodies are skipped.
+ */
+void declaredNames(const Tokens& tokens, const Range& statement,
+        std::set<std::string>& names) {
+    if (tokens[statement.begin].type == DIRECTIVE
+            || tokens[statement.begin].text == "precision") {
+        return;
+    }
+    int depth = 0;
+    bool initializer = false;
+    for (size_t index = statement.begin; index < statement.end; ++index) {
+        const Token& token = tokens[index];
+        if (depth == 0 && !initializer && token.type == IDENTIFIER
+                && index + 1 < statement.end) {
+            const std::string& next = tokens[index + 1].text;
+            if (next == ";" || next == "," || next == "=" || next == "["
+                    || next == "(" || next == "{") {
+                names.insert(token.text);
+            }
+        }
+        if (isOpen(token)) {
+            ++depth;
+        } else if (isClose(token)) {
+            --depth;
+        } else if (depth == 0 && token.text == "=") {
+            initializer = true;
+        } else if (depth == 0 && (token.text == "," || token.text == ";")) {
+            initializer = false;
+        }
+    }
+}
+
+// Whether a statement is "void main()", or "void main(void)", with a body
+bool isMain(const Tokens& tokens, const Range& statement) {
+    size_t index = statement.begin;
+    if (!is(tokens, index, "void") || !is(tokens, index + 1, "main")
+            || !is(tokens, index + 2, "(")) {
+        return false;
+    }
+    index += 3;
+    if (is(tokens, index, "void")) {
+        ++index;
+    }
+    return is(tokens, index, ")") && is(tokens, index + 1, "{")
+            && tokens[statement.end - 1].text == "}";
+}
+
+// Whether tokens[index] starts "texture2D(u_texture,"
+bool isInputSample(const Tokens& tokens, size_t index) {
+    return is(tokens, index, "texture2D") && is(tokens, index + 1, "(")
+            && is(tokens, index + 2, "u_texture") && is(tokens, index + 3, ",");
+}
+
+/*
+ * A custom effect's shaders, parsed as far as fusing them needs.
+ */
+struct CustomEffect {
+    CustomEffect() :
+            fusion(PostEffectCompiler::FUSION_NONE), vertex(), fragment(), statements(), main(
+                    0), varyings(), names() {
+    }
+
+    PostEffectCompiler::Fusion fusion;
+    Tokens vertex;
+    Tokens fragment;
+    // The fragment shader's top-level statements, and which is main()
+    std::vector<Range> statements;
+    size_t main;
+    // Each varying the fragment shader reads, and the vertex shader's
+    // expression for it
+    std::vector<std::pair<std::string, Range> > varyings;
+    // The fragment shader's top-level names, which get the stage's prefix
+    std::set<std::string> names;
+};
+
+/*
+ * Reads "[qualifier] [precision] type name;". Returns the name, or an empty
+ * string if the statement is anything else.
+ */
+std::string declaration(const Tokens& tokens, const Range& statement,
+        const char* qualifier) {
+    size_t index = statement.begin;
+    if (!is(tokens, index++, qualifier)) {
+        return std::string();
+    }
+    if (index < statement.end && isPrecision(tokens[index])) {
+        ++index;
+    }
+    if (index + 3 != statement.end || tokens[index].type != IDENTIFIER
+            || tokens[index + 1].type != IDENTIFIER) {
+        return std::string();
+    }
+    return tokens[index + 1].text;
+}
+
+/*
+ * Whether a varying's expression is affine in a_tex_coord, so computing it
+ * per pixel matches interpolating it across the quad: only the coordinate,
+ * swizzles, literals, vector constructors, sums, and differences.
+ */
+bool isAffine(const Tokens& tokens, const Range& expression) {
+    if (expression.begin == expression.end) {
+        return false;
+    }
+    for (size_t index = expression.begin; index < expression.end; ++index) {
+        const Token& token = tokens[index];
+        if (token.type == NUMBER) {
+            continue;
+        }
+        const std::string& text = token.text;
+        if (token.type == IDENTIFIER) {
+            if (text != "a_tex_coord" && text != "vec2" && text != "vec4"
+                    && text != "x" && text != "y" && text != "xy") {
+                return false;
+            }
+        } else if (text != "(" && text != ")" && text != "," && text != "."
+                && text != "+" && text != "-") {
+            return false;
+        }
+    }
+    return true;
+}
+
+/*
+ * The vertex shader has to pass the quad through: a_position to
+ * gl_Position, and affine functions of a_tex_coord to its varyings.
+ */
+bool parseVertexShader(CustomEffect& effect,
+        std::vector<std::pair<std::string, Range> >& varyings) {
+    const Tokens& tokens = effect.vertex;
+    std::vector<Range> statements;
+    if (!split(tokens, 0, tokens.size(), statements)) {
+        return false;
+    }
+
+    std::set<std::string> declared;
+    bool has_main = false;
+    for (size_t statement = 0; statement < statements.size(); ++statement) {
+        const Range& range = statements[statement];
+        const std::string& first = tokens[range.begin].text;
+        if (first == "precision") {
+            continue;
+        }
+        if (first == "attribute") {
+            std::string name = declaration(tokens, range, "attribute");
+            if (name != "a_position" && name != "a_tex_coord") {
+                return false;
+            }
+        } else if (first == "varying") {
+            std::string name = declaration(tokens, range, "varying");
+            if (name.empty()) {
+                return false;
+            }
+            declared.insert(name);
+        } else if (isMain(tokens, range) && !has_main) {
+            has_main = true;
+            size_t body = range.begin + 1;
+            while (tokens[body].text != "{") {
+                ++body;
+            }
+            std::vector<Range> assignments;
+            if (!split(tokens, body + 1, range.end - 1, assignments)) {
+                return false;
+            }
+            for (size_t assignment = 0; assignment < assignments.size();
+                    ++assignment) {
+                const Range& a = assignments[assignment];
+                if (a.end - a.begin < 4 || tokens[a.begin + 1].text != "="
+                        || tokens[a.end - 1].text != ";") {
+                    return false;
+                }
+                const std::string& target = tokens[a.begin].text;
+                Range value(a.begin + 2, a.end - 1);
+                if (target == "gl_Position") {
+                    if (value.end - value.begin != 1
+                            || tokens[value.begin].text != "a_position") {
+                        return false;
+                    }
+                } else if (declared.count(target) != 0
+                        && isAffine(tokens, value)) {
+                    varyings.push_back(std::make_pair(target, value));
+                } else {
+                    return false;
+                }
+            }
+        } else {
+            return false;
+        }
+    }
+    return has_main;
+}
+
+bool parse(const std::string& vertex_shader,
+        const std::string& fragment_shader, CustomEffect& effect) {
+    std::vector<std::pair<std::string, Range> > vertex_varyings;
+    if (!tokenize(vertex_shader, effect.vertex)
+            || !tokenize(fragment_shader, effect.fragment)
+            || !parseVertexShader(effect, vertex_varyings)) {
+        return false;
+    }
+
+    const Tokens& tokens = effect.fragment;
+    if (!split(tokens, 0, tokens.size(), effect.statements)) {
+        return false;
+    }
+
+    bool has_main = false;
+    for (size_t statement = 0; statement < effect.statements.size();
+            ++statement) {
+        const Range& range = effect.statements[statement];
+        const Token& first = tokens[range.begin];
+        if (first.type == DIRECTIVE) {
+            if (!isExtension(first)) {
+                return false;
+            }
+        } else if (first.text == "varying") {
+            std::string name = declaration(tokens, range, "varying");
+            size_t varying = 0;
+            while (varying < vertex_varyings.size()
+                    && vertex_varyings[varying].first != name) {
+                ++varying;
+            }
+            if (varying == vertex_varyings.size()) {
+                return false;
+            }
+            effect.varyings.push_back(vertex_varyings[varying]);
+        } else if (isMain(tokens, range)) {
+            if (has_main) {
+                return false;
+            }
+            has_main = true;
+            effect.main = statement;
+        }
+        declaredNames(tokens, range, effect.names);
+    }
+    if (!has_main) {
+        return false;
+    }
+    effect.names.erase("main");
+    effect.names.erase("u_texture");
+
+    // How, and where, the input is read
+    const Range& main = effect.statements[effect.main];
+    int samples = 0;
+    bool samples_in_main = true;
+    bool loops = false;
+    bool other_uses = false;
+    for (size_t index = 0; index < tokens.size(); ++index) {
+        const std::string& text = tokens[index].text;
+        bool in_main = index >= main.begin && index < main.end;
+        if (text == "discard" || text == "gl_FragData") {
+            return false;
+        } else if (isInputSample(tokens, index)) {
+            ++samples;
+            samples_in_main = samples_in_main && in_main;
+            index += 2;
+        } else if (text == "u_texture") {
+            // Anything but the declaration
+            other_uses = other_uses || !is(tokens, index - 1, "sampler2D")
+                    || !is(tokens, index - 2, "uniform")
+                    || !is(tokens, index + 1, ";");
+        } else if (in_main && (text == "for" || text == "while" || text == "do")) {
+            loops = true;
+        }
+    }
+    effect.fusion =
+            samples <= 1 && samples_in_main && !(samples == 1 && loops)
+                    && !other_uses ?
+                    PostEffectCompiler::FUSION_ANY :
+                    PostEffectCompiler::FUSION_FIRST;
+    return true;
+}
+
+/*
+ * Writes tokens back out as GLSL, a statement to a line, renaming as a
+ * stage has to.
+ */
+class Writer {
+public:
+    Writer(std::string& out, const std::string& prefix,
+            const std::set<std::string>& names, const std::string& input) :
+            out_(out), prefix_(prefix), names_(names), input_(input), parentheses_(
+                    0), braces_(0), line_start_(true) {
+    }
+
+    // For a body whose braces are written separately
+    void indent(int levels) {
+        braces_ += levels;
+    }
+
+    void write(const Tokens& tokens, size_t begin, size_t end, bool in_main) {
+        for (size_t index = begin; index < end; ++index) {
+            const Token& token = tokens[index];
+            if (!input_.empty() && isInputSample(tokens, index)) {
+                // input_ ends with its parenthesis
+                append(input_.substr(0, input_.size() - 1));
+                append("(");
+                index += 3;
+            } else if (token.text == "a_tex_coord") {
+                // In a varying's expression: the attribute's value here
+                append("vec4(" + prefix_ + "coord, 0.0, 1.0)");
+            } else if (token.text == "gl_FragColor") {
+                append(prefix_ + "color");
+            } else if (in_main && token.text == "return"
+                    && is(tokens, index + 1, ";")) {
+                append("return");
+                append(prefix_ + "color");
+            } else if (token.type == IDENTIFIER && names_.count(token.text) != 0
+                    && !is(tokens, index - 1, ".")) {
+                append(prefix_ + token.text);
+            } else {
+                append(token.text);
+            }
+        }
+    }
+
+    void append(const std::string& text) {
+        if (text == "}") {
+            --braces_;
+        }
+        if (line_start_) {
+            out_.append(2 * braces_, ' ');
+        } else if (text != ")" && text != "]" && text != "," && text != ";"
+                && text != "." && text != "[" && text != "("
+                && previous_ != "(" && previous_ != "[" && previous_ != ".") {
+            out_ += ' ';
+        } else if (text == "(" && previous_ != "(" && previous_ != "."
+                && !isIdentifierPart(previous_[0])) {
+            out_ += ' ';
+        }
+        out_ += text;
+        previous_ = text;
+
+        if (text == "(") {
+            ++parentheses_;
+        } else if (text == ")") {
+            --parentheses_;
+        } else if (text == "{") {
+            ++braces_;
+        }
+        line_start_ = text == "{" || text == "}"
+                || (text == ";" && parentheses_ == 0);
+        if (line_start_) {
+            out_ += '\n';
+        }
+    }
+
+private:
+    std::string& out_;
+    const std::string& prefix_;
+    const std::set<std::string>& names_;
+    const std::string& input_;
+    std::string previous_;
+    int parentheses_;
+    int braces_;
+    bool line_start_;
+};
+
+void writeCustomStage(const CustomEffect& effect, const std::string& prefix,
+        const std::string& input, std::string& out) {
+    const Tokens& tokens = effect.fragment;
+    Writer writer(out, prefix, effect.names, input);
+    for (size_t statement = 0; statement < effect.statements.size();
+            ++statement) {
+        const Range& range = effect.statements[statement];
+        const std::string& first = tokens[range.begin].text;
+        if (tokens[range.begin].type == DIRECTIVE || first == "precision"
+                || (first == "uniform"
+                        && declaration(tokens, range, "uniform") == "u_texture")) {
+            // Hoisted, or declared once for the whole shader
+            continue;
+        }
+        if (first == "varying") {
+            // Computed at the top of the stage's function, from its
+            // coordinate
+            writer.write(tokens, range.begin + 1, range.end, false);
+            continue;
+        }
+        if (statement != effect.main) {
+            writer.write(tokens, range.begin, range.end, false);
+            continue;
+        }
+
+        out += "vec4 " + prefix + "main(vec2 " + prefix + "coord) {\n";
+        writer.indent(1);
+        for (size_t varying = 0; varying < effect.varyings.size(); ++varying) {
+            const Range& value = effect.varyings[varying].second;
+            writer.append(prefix + effect.varyings[varying].first);
+            writer.append("=");
+            writer.write(effect.vertex, value.begin, value.end, false);
+            writer.append(";");
+        }
+        out += "  vec4 " + prefix + "color = vec4(0.0);\n";
+        size_t body = range.begin;
+        while (tokens[body].text != "{") {
+            ++body;
+        }
+        writer.write(tokens, body + 1, range.end - 1, true);
+        writer.indent(-1);
+        out += "  return " + prefix + "color;\n}\n";
+    }
+}
+
+// How stage `stage` reads the one before it: a call
+std::string input(int stage) {
+    return stage == 0 ?
+            std::string("texture2D(u_texture, ") :
+            PostEffectCompiler::prefix(stage - 1) + "main(";
+}
+
+}
+
+PostEffectCompiler::Fusion PostEffectCompiler::classify(
+        const std::string& vertex_shader, const std::string& fragment_shader) {
+    CustomEffect effect;
+    return parse(vertex_shader, fragment_shader, effect) ?
+            effect.fusion : FUSION_NONE;
+}
+
+std::vector<PostEffectCompiler::Pass> PostEffectCompiler::plan(
+        const std::vector<Fusion>& fusions,
+        const std::vector<int>& texture_units) {
+    std::vector<Pass> passes;
+    int count = fusions.size();
+    int index = 0;
+    while (index < count) {
+        Pass pass;
+        pass.first = index;
+        int units = 1 + texture_units[index];
+        if (fusions[index++] != FUSION_NONE) {
+            while (index < count && fusions[index] == FUSION_ANY
+                    && units + texture_units[index] <= MAX_TEXTURE_UNITS) {
+                units += texture_units[index++];
+            }
+        }
+        pass.count = index - pass.first;
+        passes.push_back(pass);
+    }
+    return passes;
+}
+
+std::string PostEffectCompiler::prefix(int stage) {
+    char prefix[16];
+    snprintf(prefix, sizeof(prefix), "s%d_", stage);
+    return prefix;
+}
+
+const char* PostEffectCompiler::vertexShader() {
+    return VERTEX_SHADER;
+}
+
+std::string PostEffectCompiler::fragmentShader(
+        const std::vector<Stage>& stages) {
+    std::vector<CustomEffect> effects(stages.size());
+    std::vector<std::string> extensions;
+    for (size_t stage = 0; stage < stages.size(); ++stage) {
+        if (stages[stage].shader_type
+                == PostEffectData::ShaderType::COLOR_BLEND_SHADER
+                || stages[stage].shader_type
+                        == PostEffectData::ShaderType::HORIZONTAL_FLIP_SHADER) {
+            continue;
+        }
+        parse(stages[stage].vertex_shader, stages[stage].fragment_shader,
+                effects[stage]);
+        const Tokens& tokens = effects[stage].fragment;
+        for (size_t index = 0; index < tokens.size(); ++index) {
+            if (tokens[index].type == DIRECTIVE
+                    && std::find(extensions.begin(), extensions.end(),
+                            tokens[index].text) == extensions.end()) {
+                extensions.push_back(tokens[index].text);
+            }
+        }
+    }
+
+    std::string out;
+    for (size_t extension = 0; extension < extensions.size(); ++extension) {
+        out += extensions[extension] + "\n";
+    }
+    out += "precision highp float;\n"
+            "uniform sampler2D u_texture;\n"
+            "varying vec2 v_tex_coord;\n";
+
+    for (size_t stage = 0; stage < stages.size(); ++stage) {
+        std::string prefix = PostEffectCompiler::prefix(stage);
+        std::string coord = prefix + "coord";
+        out += "\n";
+        switch (stages[stage].shader_type) {
+        case PostEffectData::ShaderType::COLOR_BLEND_SHADER:
+            out += "uniform vec3 " + prefix + "u_color;\n"
+                    "uniform float " + prefix + "u_factor;\n"
+                    "vec4 " + prefix + "main(vec2 " + coord + ") {\n"
+                    "  vec4 tex = " + input(stage) + coord + ");\n"
+                    "  return vec4(tex.rgb * (1.0 - " + prefix + "u_factor) + "
+                    + prefix + "u_color * " + prefix + "u_factor, tex.a);\n"
+                    "}\n";
+            break;
+        case PostEffectData::ShaderType::HORIZONTAL_FLIP_SHADER:
+            out += "vec4 " + prefix + "main(vec2 " + coord + ") {\n"
+                    "  return " + input(stage) + "vec2(" + coord + ".x, 1.0 - "
+                    + coord + ".y));\n"
+                    "}\n";
+            break;
+        default:
+            writeCustomStage(effects[stage], prefix,
+                    stage == 0 ? std::string() : input(stage), out);
+            break;
+        }
+    }
+
+    out += "\nvoid main() {\n"
+            "  gl_FragColor = " + prefix(stages.size() - 1)
+            + "main(v_tex_coord);\n"
+                    "}\n";
+    return out;
+}
+
+}
@@ -0,0 +1,116 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * Merges runs of per-pixel post effects into one generated shader.
+ ***************************************************************************/
+
+#ifndef POST_EFFECT_COMPILER_H_
+#define POST_EFFECT_COMPILER_H_
+
+#include <string>
+#include <vector>
+
+namespace gvr {
+
+/*
+ * Each post effect is normally a full-screen pass of its own. An effect that
+ * reads its input at most once, at a coordinate computed from its own
+ * pixel's, does not need the input in a texture: it can call the previous
+ * effect's code at that coordinate instead. The compiler turns each effect's
+ * main() into a function of the texture coordinate, chains the functions,
+ * and so draws a run of such effects in one pass.
+ *
+ * An effect that samples its input more than once - a blur, say - would run
+ * everything before it once per sample, so it starts a new pass; the
+ * effects after it can still join it. An effect the compiler cannot rewrite
+ * safely always gets a pass to itself, with its own shader.
+ *
+ * The stock color blend and horizontal flip effects always fuse. A custom
+ * effect fuses when its vertex shader only passes the quad through - its
+ * varyings take the texture coordinate, or a flip or offset of it, without
+ * multiplication - and its fragment shader has no preprocessor directive
+ * but #extension, no discard, and no gl_FragData.
+ *
+ * None of this touches GL, so chains can be planned and their sources
+ * checked anywhere.
+ */
+class PostEffectCompiler {
+public:
+    enum Fusion {
+        // Can only be drawn with its own shader
+        FUSION_NONE,
+        // Samples its input more than once: can only start a fused pass
+        FUSION_FIRST,
+        // Can go anywhere in a fused pass
+        FUSION_ANY
+    };
+
+    // One effect: a PostEffectData::ShaderType, or a custom shader's id and
+    // sources
+    struct Stage {
+        Stage(int shader_type) :
+                shader_type(shader_type), vertex_shader(), fragment_shader() {
+        }
+
+        Stage(int shader_type, const std::string& vertex_shader,
+                const std::string& fragment_shader) :
+                shader_type(shader_type), vertex_shader(vertex_shader), fragment_shader(
+                        fragment_shader) {
+        }
+
+        int shader_type;
+        std::string vertex_shader;
+        std::string fragment_shader;
+    };
+
+    // Effects [first, first + count) of a chain, drawn in one pass
+    struct Pass {
+        int first;
+        int count;
+    };
+
+    // Texture units a fused pass may use: OpenGL ES 2.0's minimum
+    static const int MAX_TEXTURE_UNITS = 8;
+
+    static Fusion classify(const std::string& vertex_shader,
+            const std::string& fragment_shader);
+
+    /*
+     * Splits a chain into passes. texture_units holds the textures each
+     * effect binds besides its input.
+     */
+    static std::vector<Pass> plan(const std::vector<Fusion>& fusions,
+            const std::vector<int>& texture_units);
+
+    // Prepended to each name a stage declares in the fused fragment shader
+    static std::string prefix(int stage);
+
+    static const char* vertexShader();
+
+    /*
+     * The fragment shader for a fused pass. Stage 0 samples u_texture; each
+     * later stage calls the one before it. Every stage after the first must
+     * be FUSION_ANY, and every stage FUSION_FIRST or better.
+     */
+    static std::string fragmentShader(const std::vector<Stage>& stages);
+
+private:
+    PostEffectCompiler();
+};
+
+}
+#endif
@@ -0,0 +1,127 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/***************************************************************************
+ * Manages instances of shaders.
+ ***************************************************************************/
+
+#include "shader_manager.h"
+
+#include <set>
+
+#include "objects/material.h"
+#include "objects/scene.h"
+#include "objects/scene_object.h"
+#include "objects/components/render_data.h"
+
+namespace gvr {
+
+int ShaderManager::prewarm(Scene* scene) {
+    std::shared_ptr<const std::vector<SceneObject*>> scene_objects =
+            scene->getWholeSceneObjects();
+
+    int built = 0;
+    std::set<int> shader_types;
+    for (auto it = scene_objects->begin(); it != scene_objects->end(); ++it) {
+        RenderData* render_data = (*it)->render_data();
+        if (render_data == nullptr || render_data->mesh() == nullptr) {
+            continue;
+        }
+        for (int pass = 0; pass < render_data->pass_count(); ++pass) {
+            Material* material = render_data->material(pass);
+            if (material == nullptr) {
+                continue;
+            }
+            if (render_data->instanced()
+                    && drawsInstanced(render_data, material)) {
+                if (!instanced_shader_) {
+                    getInstancedShader();
+                    ++built;
+                }
+            } else {
+                shader_types.insert(material->shader_type());
+            }
+        }
+    }
+    for (auto it = shader_types.begin(); it != shader_types.end(); ++it) {
+        if (prewarm(*it)) {
+            ++built;
+        }
+    }
+
+    if (scene->get_occlusion_culling() && !bounding_box_shader_) {
+        getBoundingBoxShader();
+        ++built;
+    }
+    return built;
+}
+
+bool ShaderManager::drawsInstanced(RenderData* render_data,
+        Material* material) {
+    return material->shader_type() == Material::ShaderType::TEXTURE_SHADER
+            && !render_data->light_enabled();
+}
+
+bool ShaderManager::prewarm(int shader_type) {
+    bool built = false;
+    switch (shader_type) {
+    case Material::ShaderType::UNLIT_HORIZONTAL_STEREO_SHADER:
+        built = !unlit_horizontal_stereo_shader_;
+        getUnlitHorizontalStereoShader();
+        break;
+    case Material::ShaderType::UNLIT_VERTICAL_STEREO_SHADER:
+        built = !unlit_vertical_stereo_shader_;
+        getUnlitVerticalStereoShader();
+        break;
+    case Material::ShaderType::OES_SHADER:
+        built = !oes_shader_;
+        getOESShader();
+        break;
+    case Material::ShaderType::OES_HORIZONTAL_STEREO_SHADER:
+        built = !oes_horizontal_stereo_shader_;
+        getOESHorizontalStereoShader();
+        break;
+    case Material::ShaderType::OES_VERTICAL_STEREO_SHADER:
+        built = !oes_vertical_stereo_shader_;
+        getOESVerticalStereoShader();
+        break;
+    case Material::ShaderType::CUBEMAP_SHADER:
+        built = !cubemap_shader_;
+        getCubemapShader();
+        break;
+    case Material::ShaderType::CUBEMAP_REFLECTION_SHADER:
+        built = !cubemap_reflection_shader_;
+        getCubemapReflectionShader();
+        break;
+    case Material::ShaderType::TEXTURE_SHADER:
+        built = !texture_shader_;
+        getTextureShader();
+        break;
+    case Material::ShaderType::EXTERNAL_RENDERER_SHADER:
+        built = !external_renderer_shader_;
+        getExternalRendererShader();
+        break;
+    case Material::ShaderType::ASSIMP_SHADER:
+        built = !assimp_shader_;
+        getAssimpShader();
+        break;
+    default:
+        // Custom shaders are built when they are added
+        break;
+    }
+    return built;
+}
+
+}
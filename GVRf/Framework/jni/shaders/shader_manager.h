@@ -34,9 +34,14 @@
 #include "shaders/material/texture_shader.h"
 #include "shaders/material/external_renderer_shader.h"
 #include "shaders/material/assimp_shader.h"
+#include "shaders/material/instanced_shader.h"
 #include "util/gvr_log.h"
 
 namespace gvr {
+class Material;
+class RenderData;
+class Scene;
+
 class ShaderManager: public HybridObject {
 public:
     ShaderManager() :
@@ -44,7 +49,7 @@ public:
             unlit_horizontal_stereo_shader_(), unlit_vertical_stereo_shader_(),
             oes_shader_(), oes_horizontal_stereo_shader_(), oes_vertical_stereo_shader_(),
             cubemap_shader_(), cubemap_reflection_shader_(), texture_shader_(), assimp_shader_(),
-            external_renderer_shader_(), error_shader_(), latest_custom_shader_id_(
+            external_renderer_shader_(), instanced_shader_(), error_shader_(), latest_custom_shader_id_(
                     INITIAL_CUSTOM_SHADER_INDEX), custom_shaders_() {
     }
     ~ShaderManager() {
@@ -58,6 +63,7 @@ public:
         delete texture_shader_;
         delete external_renderer_shader_;
         delete assimp_shader_;
+        delete instanced_shader_;
         delete error_shader_;
         // We don't delete the custom shaders, as their Java owner-objects will do that for us.
     }
@@ -127,6 +133,19 @@ public:
         }
         return assimp_shader_;
     }
+    /*
+     * Whether a pass of an instanced RenderData is drawn by the instanced
+     * shader, in one call. It is unlit and textured, like the default
+     * material: passes with any other shader, or lit, draw each instance
+     * with their own shader.
+     */
+    static bool drawsInstanced(RenderData* render_data, Material* material);
+    InstancedShader* getInstancedShader() {
+        if (!instanced_shader_) {
+            instanced_shader_ = new InstancedShader();
+        }
+        return instanced_shader_;
+    }
     ErrorShader* getErrorShader() {
         if (!error_shader_) {
             error_shader_ = new ErrorShader();
@@ -151,6 +170,19 @@ public:
         }
     }
 
+    /*
+     * The stock shaders are built the first time something draws with
+     * them, which stalls that frame. prewarm() builds, up front, every
+     * shader the materials in scene use, and returns how many it built.
+     * Call on the GL thread.
+     */
+    int prewarm(Scene* scene);
+    /*
+     * Builds the shader for a Material::ShaderType, if it is not built
+     * yet; returns whether it built it.
+     */
+    bool prewarm(int shader_type);
+
 private:
     ShaderManager(const ShaderManager& shader_manager);
     ShaderManager(ShaderManager&& shader_manager);
@@ -170,6 +202,7 @@ private:
     TextureShader* texture_shader_;
     ExternalRendererShader* external_renderer_shader_;
     AssimpShader* assimp_shader_;
+    InstancedShader* instanced_shader_;
     ErrorShader* error_shader_;
     int latest_custom_shader_id_;
     std::map<int, CustomShader*> custom_shaders_;
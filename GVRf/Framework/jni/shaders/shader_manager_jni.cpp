@@ -19,6 +19,8 @@
 
 #include "shader_manager.h"
 
+#include "gl/gl_program_binary_cache.h"
+#include "objects/scene.h"
 #include "util/gvr_jni.h"
 
 namespace gvr {
@@ -33,6 +35,12 @@ Java_org_gearvrf_NativeShaderManager_addCustomShader(
 JNIEXPORT jlong JNICALL
 Java_org_gearvrf_NativeShaderManager_getCustomShader(
         JNIEnv * env, jobject obj, jlong jshader_manager, jint id);
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_NativeShaderManager_prewarm(
+        JNIEnv * env, jobject obj, jlong jshader_manager, jlong jscene);
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeShaderManager_setProgramCacheDirectory(
+        JNIEnv * env, jobject obj, jstring directory);
 }
 
 JNIEXPORT jlong JNICALL
@@ -72,4 +80,25 @@ Java_org_gearvrf_NativeShaderManager_getCustomShader(
 }
 }
 
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_NativeShaderManager_prewarm(
+    JNIEnv * env, jobject obj, jlong jshader_manager, jlong jscene) {
+    ShaderManager* shader_manager =
+    reinterpret_cast<ShaderManager*>(jshader_manager);
+    Scene* scene = reinterpret_cast<Scene*>(jscene);
+    return shader_manager->prewarm(scene);
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeShaderManager_setProgramCacheDirectory(
+    JNIEnv * env, jobject obj, jstring directory) {
+    if (directory == nullptr) {
+        GLProgramBinaryCache::instance().setDirectory(std::string());
+        return;
+    }
+    const char *directory_str = env->GetStringUTFChars(directory, 0);
+    GLProgramBinaryCache::instance().setDirectory(std::string(directory_str));
+    env->ReleaseStringUTFChars(directory, directory_str);
+}
+
 }
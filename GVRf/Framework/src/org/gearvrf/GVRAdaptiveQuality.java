@@ -0,0 +1,307 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gearvrf;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.gearvrf.asynchronous.GVRAsynchronousResourceLoader;
+import org.gearvrf.utility.Log;
+
+/**
+ * Trades quality for frame rate when a scene gets too heavy, and back when
+ * it lightens up.
+ * 
+ * Eye buffer resolution, MSAA and LOD ranges are all fixed when the app
+ * starts, so a scene that grows too heavy drops frames. Once
+ * {@linkplain #setEnabled(boolean) enabled,} the adaptive quality controller
+ * watches how long each frame keeps the GL thread busy - and the GPU, if the
+ * app {@linkplain #reportGpuTime(float) reports that} - and when frames run
+ * close to the budget, it steps down through a fixed set of levels, each
+ * cheaper than the last:
+ * <ol>
+ * <li>Fewer {@linkplain GVRAsynchronousResourceLoader#setDecodeThreadLimit(int)
+ * asynchronous loads decoding at once}</li>
+ * <li>A {@linkplain GVRScene#setLODBias(float) LOD bias}, so objects switch to
+ * coarser levels closer to the camera</li>
+ * <li>{@linkplain GVRScene#setPostEffectsEnabled(boolean) No post effects},
+ * apart from {@linkplain GVRPostEffect#setOverlay(boolean) overlays} like
+ * {@link org.gearvrf.debug.GVRConsole}</li>
+ * <li>A bigger LOD bias, and a smaller {@linkplain #getEyeBufferScale() eye
+ * buffer scale}</li>
+ * </ol>
+ * When frames have had plenty of slack for a couple of seconds, it steps back
+ * up, one level at a time. If a step up has to be undone right away, it waits
+ * twice as long before the next try, so a scene on the edge between two
+ * levels settles on one instead of flickering between them.
+ * 
+ * <p>
+ * The knobs are applied to the main scene. The eye buffers can't be resized
+ * once the activity has started, so the eye buffer scale is advice: an
+ * {@linkplain OnQualityChangedListener listener} that draws to its own render
+ * targets, or chooses {@linkplain org.gearvrf.utility.VrAppSettings settings}
+ * for the next start, can act on it. The controller is off by default.
+ * 
+ * @since 2.0.2
+ */
+public class GVRAdaptiveQuality {
+
+    private static final String TAG = Log.tag(GVRAdaptiveQuality.class);
+
+    private static final long NANOSECONDS_PER_SECOND = 1000000000L;
+    private static final long DEFAULT_FRAME_BUDGET = NANOSECONDS_PER_SECOND / 60;
+
+    private static GVRAdaptiveQuality sInstance = null;
+    /** The instance the view manager feeds, while it is enabled */
+    private static volatile GVRAdaptiveQuality sEnabled = null;
+
+    static {
+        GVRContext.addResetOnRestartHandler(new Runnable() {
+
+            @Override
+            public void run() {
+                sInstance = null;
+                sEnabled = null;
+            }
+        });
+    }
+
+    /**
+     * Called on the GL thread, after each change of level.
+     */
+    public interface OnQualityChangedListener {
+        void onQualityChanged(GVRAdaptiveQuality adaptiveQuality);
+    }
+
+    private final GVRContext mContext;
+    private final List<OnQualityChangedListener> mListeners = new CopyOnWriteArrayList<OnQualityChangedListener>();
+
+    // GL thread only
+    private QualityController mController = new QualityController(
+            DEFAULT_FRAME_BUDGET);
+    private GVRScene mScene = null;
+    private int mDefaultDecodeThreadLimit = 0;
+
+    // Written on the GL thread
+    private volatile int mLevel = 0;
+    private volatile float mLoad = 0;
+
+    private volatile long mGpuNanos = -1;
+
+    protected GVRAdaptiveQuality(GVRContext gvrContext) {
+        mContext = gvrContext;
+    }
+
+    /**
+     * Get the (lazy-created) singleton.
+     * 
+     * @param gvrContext
+     *            Current GVRContext
+     * @return The adaptive quality controller.
+     */
+    public static synchronized GVRAdaptiveQuality getInstance(
+            GVRContext gvrContext) {
+        if (sInstance == null) {
+            sInstance = new GVRAdaptiveQuality(gvrContext);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Start or stop adapting quality to the frame rate. Stopping restores the
+     * best quality.
+     * 
+     * @param enabled
+     *            {@code true} to adapt
+     */
+    public void setEnabled(final boolean enabled) {
+        mContext.runOnGlThread(new Runnable() {
+
+            @Override
+            public void run() {
+                if (enabled == (sEnabled == GVRAdaptiveQuality.this)) {
+                    return;
+                }
+                mController.reset();
+                if (enabled) {
+                    mDefaultDecodeThreadLimit = GVRAsynchronousResourceLoader
+                            .getDecodeThreadLimit();
+                    sEnabled = GVRAdaptiveQuality.this;
+                } else {
+                    sEnabled = null;
+                    apply(true);
+                    mScene = null;
+                }
+            }
+        });
+    }
+
+    /**
+     * @return Whether quality is adapting to the frame rate.
+     */
+    public boolean isEnabled() {
+        return sEnabled == this;
+    }
+
+    /**
+     * Set the frame budget: how long a frame can take without missing vsync.
+     * The default is a sixtieth of a second. Restarts the controller at the
+     * best quality.
+     * 
+     * @param seconds
+     *            The vsync interval
+     */
+    public void setFrameBudget(float seconds) {
+        if (seconds <= 0) {
+            throw new IllegalArgumentException(
+                    "The frame budget must be positive");
+        }
+        final long budget = (long) (seconds * NANOSECONDS_PER_SECOND);
+        mContext.runOnGlThread(new Runnable() {
+
+            @Override
+            public void run() {
+                mController = new QualityController(budget);
+                if (sEnabled == GVRAdaptiveQuality.this) {
+                    apply(true);
+                }
+            }
+        });
+    }
+
+    /**
+     * Report how long the GPU took to draw a frame. GVRF only measures CPU
+     * time; an app that measures GPU time (with
+     * {@code GL_EXT_disjoint_timer_query}, for example) can report it once a
+     * frame, and the controller will use the larger of the two. A frame that
+     * misses vsync counts as heavy either way.
+     * 
+     * @param seconds
+     *            GPU time of the latest frame that has finished drawing
+     */
+    public void reportGpuTime(float seconds) {
+        mGpuNanos = (long) (seconds * NANOSECONDS_PER_SECOND);
+    }
+
+    public void addOnQualityChangedListener(OnQualityChangedListener listener) {
+        mListeners.add(listener);
+    }
+
+    public void removeOnQualityChangedListener(
+            OnQualityChangedListener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * @return The current level: 0 is the best quality, and
+     *         {@link #getLevelCount()} - 1 the cheapest.
+     */
+    public int getLevel() {
+        return mLevel;
+    }
+
+    /**
+     * @return How many levels there are.
+     */
+    public int getLevelCount() {
+        return QualityController.LEVELS;
+    }
+
+    /**
+     * @return The smoothed frame load: the fraction of the frame budget that
+     *         frames have been taking lately.
+     */
+    public float getLoad() {
+        return mLoad;
+    }
+
+    /**
+     * @return The {@linkplain GVRScene#setLODBias(float) LOD bias} at the
+     *         current level.
+     */
+    public float getLODBias() {
+        return QualityController.getLODBias(mLevel);
+    }
+
+    /**
+     * @return Whether the current level draws post effects.
+     */
+    public boolean getPostEffectsEnabled() {
+        return QualityController.getPostEffectsEnabled(mLevel);
+    }
+
+    /**
+     * @return The fraction of the configured eye buffer resolution the
+     *         current level would draw at, in each dimension.
+     */
+    public float getEyeBufferScale() {
+        return QualityController.getEyeBufferScale(mLevel);
+    }
+
+    /**
+     * Called by the view manager, on the GL thread, at the end of each frame.
+     */
+    static void onFrame(GVRScene scene, long intervalNanos, long cpuNanos) {
+        GVRAdaptiveQuality adaptiveQuality = sEnabled;
+        if (adaptiveQuality != null) {
+            adaptiveQuality.frame(scene, intervalNanos, cpuNanos);
+        }
+    }
+
+    private void frame(GVRScene scene, long intervalNanos, long cpuNanos) {
+        long gpuNanos = mGpuNanos;
+        mGpuNanos = -1;
+
+        boolean changed = mController.onFrame(intervalNanos, cpuNanos,
+                gpuNanos);
+        mLoad = mController.getLoad();
+        if (scene != mScene) {
+            // A new main scene: the old one goes back to full quality
+            if (mScene != null) {
+                mScene.setLODBias(QualityController.getLODBias(0));
+                mScene.setPostEffectsEnabled(QualityController
+                        .getPostEffectsEnabled(0));
+            }
+            mScene = scene;
+            apply(changed);
+        } else if (changed) {
+            apply(true);
+        }
+    }
+
+    private void apply(boolean notify) {
+        int level = mController.getLevel();
+        mLevel = level;
+        if (mScene != null) {
+            mScene.setLODBias(QualityController.getLODBias(level));
+            mScene.setPostEffectsEnabled(QualityController
+                    .getPostEffectsEnabled(level));
+        }
+        if (mDefaultDecodeThreadLimit > 0) {
+            GVRAsynchronousResourceLoader
+                    .setDecodeThreadLimit(QualityController
+                            .getDecodeThreadLimit(level,
+                                    mDefaultDecodeThreadLimit));
+        }
+        if (notify) {
+            Log.d(TAG, "level %d, load %.2f", level, mController.getLoad());
+            for (OnQualityChangedListener listener : mListeners) {
+                listener.onQualityChanged(this);
+            }
+        }
+    }
+}
@@ -244,6 +244,43 @@ public class GVRBitmapTexture extends GVRTexture {
         return updateTask;
     }
 
+    /**
+     * Copy some rows of new luminance data to a grayscale texture.
+     * 
+     * Where {@link #update(int, int, byte[])} replaces the whole image, this
+     * only uploads rows {@code y} through {@code y + height - 1}, with
+     * {@code glTexSubImage2D()}: a texture that changes a few rows at a time
+     * does not pay for the rest. Mipmaps are not regenerated, so give the
+     * texture a {@linkplain GVRTextureParameters#setMinFilterType min filter}
+     * that does not use them. Call on the GL thread.
+     * 
+     * @param width
+     *            Texture width, in pixels
+     * @param y
+     *            The first row to upload
+     * @param height
+     *            How many rows to upload
+     * @param grayscaleData
+     *            The whole image, {@code width} bytes per row: the rows are
+     *            read from their own place in it
+     * @return {@code true} if the update succeeded, and {@code false} if it
+     *         failed.
+     * @throws IllegalArgumentException
+     *             If {@code width} or {@code height} is {@literal <= 0,} if
+     *             {@code y} is negative, or if {@code grayscaleData} is
+     *             {@code null} or shorter than {@code (y + height) * width}
+     * @since 2.0.2
+     */
+    public boolean updateRows(int width, int y, int height,
+            byte[] grayscaleData) throws IllegalArgumentException {
+        if (width <= 0 || height <= 0 || y < 0 || grayscaleData == null
+                || grayscaleData.length < (y + height) * width) {
+            throw new IllegalArgumentException();
+        }
+        return NativeBaseTexture.updateRows(getNative(), width, y, height,
+                grayscaleData);
+    }
+
     /**
      * Copy a new {@link Bitmap} to the GL texture.
      * 
@@ -321,4 +358,7 @@ class NativeBaseTexture {
 
     static native boolean update(long pointer, int width, int height,
             byte[] grayscaleData);
+
+    static native boolean updateRows(long pointer, int width, int y,
+            int height, byte[] grayscaleData);
 }
@@ -17,6 +17,8 @@ package org.gearvrf;
 
 import static org.gearvrf.utility.Assert.*;
 
+import java.io.File;
+
 /** Holds the GVRCameras. */
 public class GVRCameraRig extends GVRComponent {
     private GVRSceneObject headTransformObject;
@@ -57,6 +59,37 @@ public class GVRCameraRig extends GVRComponent {
         }
     };
 
+    /**
+     * How the rig makes up for sensor-to-display latency: by the time a frame
+     * is shown, the head has kept turning since the sensor reading it was
+     * drawn with.
+     * 
+     * @since 2.0.2
+     */
+    public abstract static class GVRPredictionType {
+        /** Uses the sensor reading as it is. */
+        public abstract static class None {
+            public static final int ID = 0;
+        }
+
+        /**
+         * Turns the reading forward at the head's current angular velocity.
+         * Default.
+         */
+        public abstract static class ConstantVelocity {
+            public static final int ID = 1;
+        }
+
+        /**
+         * Like {@link ConstantVelocity}, but also follows the head's angular
+         * acceleration, for a damped fraction of the prediction time: better
+         * as a turn starts and stops, noisier while the head is still.
+         */
+        public abstract static class DampedAcceleration {
+            public static final int ID = 2;
+        }
+    };
+
     /** Constructs a camera rig without cameras attached. */
     public GVRCameraRig(GVRContext gvrContext) {
         super(gvrContext, NativeCameraRig.ctor());
@@ -114,6 +147,76 @@ public class GVRCameraRig extends GVRComponent {
         NativeCameraRig.setCameraRigType(getNative(), cameraRigType);
     }
 
+    /**
+     * @return The {@link GVRPredictionType type} of head pose prediction.
+     * @since 2.0.2
+     */
+    public int getPredictionType() {
+        return NativeCameraRig.getPredictionType(getNative());
+    }
+
+    /**
+     * Set the {@link GVRPredictionType type} of head pose prediction.
+     * 
+     * @param predictionType
+     *            The prediction {@link GVRPredictionType type}.
+     * @since 2.0.2
+     */
+    public void setPredictionType(int predictionType) {
+        NativeCameraRig.setPredictionType(getNative(), predictionType);
+    }
+
+    /**
+     * @return The furthest ahead the rig will predict the head pose, in
+     *         seconds.
+     * @since 2.0.2
+     */
+    public float getMaxPredictionTime() {
+        return NativeCameraRig.getMaxPredictionTime(getNative());
+    }
+
+    /**
+     * Limit how far ahead the rig predicts the head pose. The prediction
+     * covers the age of the sensor reading plus the expected time until the
+     * frame is displayed; a reading older than this limit allows is not
+     * extrapolated any further. Defaults to 0.1 seconds.
+     * 
+     * @param seconds
+     *            The longest prediction, in seconds.
+     * @since 2.0.2
+     */
+    public void setMaxPredictionTime(float seconds) {
+        NativeCameraRig.setMaxPredictionTime(getNative(), seconds);
+    }
+
+    /**
+     * Start recording the rotation sensor samples this rig draws with, when
+     * it predicts from them, and its resets, to a compact binary trace.
+     * Replaying the trace on a desktop build of the native library puts a
+     * rig through exactly the same poses, so prediction and the
+     * {@link GVRCameraRigType rig types} can be tested without a headset.
+     * The trace takes under 4 KB a second.
+     * 
+     * @param trace
+     *            The file to record to. An existing file is replaced.
+     * @return {@code false} if the file could not be created.
+     * @since 2.0.2
+     */
+    public boolean startSensorRecording(File trace) {
+        return NativeCameraRig.startSensorRecording(getNative(),
+                trace.getAbsolutePath());
+    }
+
+    /**
+     * Stop recording, and close the trace.
+     * 
+     * @see #startSensorRecording(File)
+     * @since 2.0.2
+     */
+    public void stopSensorRecording() {
+        NativeCameraRig.stopSensorRecording(getNative());
+    }
+
     /**
      * @return Get the left {@link GVRCamera camera}, if one has been
      *         {@link #attachLeftCamera(GVRCamera) attached}; {@code null} if
@@ -401,10 +504,12 @@ public class GVRCameraRig extends GVRComponent {
 
     /**
      * Predict what the orientation of the camera rig will be at {@code time}
-     * based on the current rotation and angular velocity.
+     * based on the current rotation and angular velocity, as set by
+     * {@link #setPredictionType(int)}.
      * 
      * @param time
-     *            Time to predict orientation for, in seconds.
+     *            How long from now the frame is expected to be displayed, in
+     *            seconds.
      * @see #setRotationSensorData(long, float, float, float, float, float,
      *      float, float)
      */
@@ -617,5 +722,17 @@ class NativeCameraRig {
 
     static native void predict(long cameraRig, float time);
 
+    static native int getPredictionType(long cameraRig);
+
+    static native void setPredictionType(long cameraRig, int predictionType);
+
+    static native float getMaxPredictionTime(long cameraRig);
+
+    static native void setMaxPredictionTime(long cameraRig, float time);
+
+    static native boolean startSensorRecording(long cameraRig, String path);
+
+    static native void stopSensorRecording(long cameraRig);
+
     static native float[] getLookAt(long cameraRig);
 }
@@ -0,0 +1,156 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds every pair of overlapping objects in one call.
+ *
+ * <p>
+ * Objects are tested the way
+ * {@link GVRSceneObject#isColliding(GVRSceneObject)} tests them - by the
+ * world-space bounding box of their mesh - but instead of calling that for
+ * every pair, a collision world keeps the boxes sorted along one axis, and
+ * only compares objects whose boxes could meet. A box is only recomputed
+ * when its object, or one of its ancestors, has moved since the last query.
+ *
+ * <p>
+ * Each object gets an integer id when it is added; queries return ids in a
+ * plain {@code int[]}, so a frame's worth of collisions costs one JNI call
+ * and one array. Use {@link #getSceneObject(int)} to map an id back to its
+ * object. An object without a mesh never overlaps anything. If a mesh's
+ * vertices change, remove and re-add the object to refresh its box.
+ *
+ * <p>
+ * Like the rest of the scene graph, a collision world is not thread-safe:
+ * query it from the thread that moves the objects, usually the GL thread.
+ *
+ * @since 2.0.2
+ */
+public class GVRCollisionWorld extends GVRHybridObject {
+
+    /** Indexed by id; null for ids that are free */
+    private final List<GVRSceneObject> mSceneObjects = new ArrayList<GVRSceneObject>();
+    private final Map<GVRSceneObject, Integer> mIds = new HashMap<GVRSceneObject, Integer>();
+
+    /**
+     * Constructs an empty collision world.
+     *
+     * @param gvrContext
+     *            {@link GVRContext} the app is using.
+     */
+    public GVRCollisionWorld(GVRContext gvrContext) {
+        super(gvrContext, NativeCollisionWorld.ctor());
+    }
+
+    /**
+     * Add an object. Its children are not added with it.
+     *
+     * @param sceneObject
+     *            The object to add
+     * @return The object's id. Adding an object twice returns the same id.
+     */
+    public int addSceneObject(GVRSceneObject sceneObject) {
+        Integer existing = mIds.get(sceneObject);
+        if (existing != null) {
+            return existing;
+        }
+        int id = NativeCollisionWorld.addSceneObject(getNative(),
+                sceneObject.getNative());
+        while (mSceneObjects.size() <= id) {
+            mSceneObjects.add(null);
+        }
+        mSceneObjects.set(id, sceneObject);
+        mIds.put(sceneObject, id);
+        return id;
+    }
+
+    /**
+     * Remove an object. Its id may be given to an object added later.
+     *
+     * @param sceneObject
+     *            The object to remove; nothing happens if it was never added
+     */
+    public void removeSceneObject(GVRSceneObject sceneObject) {
+        Integer id = mIds.remove(sceneObject);
+        if (id != null) {
+            NativeCollisionWorld.removeSceneObject(getNative(), id);
+            mSceneObjects.set(id, null);
+        }
+    }
+
+    /**
+     * @return The id an object was added with, or -1 if it isn't in this
+     *         collision world
+     */
+    public int getId(GVRSceneObject sceneObject) {
+        Integer id = mIds.get(sceneObject);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * @return The object with this id, or {@code null} if there isn't one
+     */
+    public GVRSceneObject getSceneObject(int id) {
+        return id >= 0 && id < mSceneObjects.size() ? mSceneObjects.get(id)
+                : null;
+    }
+
+    /**
+     * Find every pair of objects whose bounding boxes overlap. Boxes that
+     * just touch don't count.
+     *
+     * @return Pairs of ids, one after the other: objects {@code pairs[2 * i]}
+     *         and {@code pairs[2 * i + 1]} overlap, and the first of each
+     *         pair is the smaller id. Each pair appears once, in no
+     *         particular order.
+     */
+    public int[] getOverlappingPairs() {
+        return NativeCollisionWorld.findOverlappingPairs(getNative());
+    }
+
+    /**
+     * Find every object that overlaps one object.
+     *
+     * @param sceneObject
+     *            An object in this collision world
+     * @return The ids of the objects it overlaps, in no particular order
+     */
+    public int[] getOverlaps(GVRSceneObject sceneObject) {
+        Integer id = mIds.get(sceneObject);
+        if (id == null) {
+            throw new IllegalArgumentException(
+                    "The object is not in this collision world.");
+        }
+        return NativeCollisionWorld.findOverlaps(getNative(), id);
+    }
+}
+
+class NativeCollisionWorld {
+    static native long ctor();
+
+    static native int addSceneObject(long collisionWorld, long sceneObject);
+
+    static native void removeSceneObject(long collisionWorld, int id);
+
+    static native int[] findOverlappingPairs(long collisionWorld);
+
+    static native int[] findOverlaps(long collisionWorld, int id);
+}
@@ -1925,6 +1925,21 @@ public abstract class GVRContext {
         return GVRPeriodicEngine.getInstance(this);
     }
 
+    /**
+     * The {@linkplain GVRAdaptiveQuality adaptive quality controller}
+     * singleton.
+     * 
+     * Enable the controller to have GVRF trade quality for frame rate when
+     * the scene gets too heavy.
+     * 
+     * @return The {@linkplain GVRAdaptiveQuality adaptive quality controller}
+     *         singleton.
+     * @since 2.0.2
+     */
+    public GVRAdaptiveQuality getAdaptiveQuality() {
+        return GVRAdaptiveQuality.getInstance(this);
+    }
+
     /**
      * Register a method that is called every time GVRF creates a new
      * {@link GVRContext}.
@@ -2074,4 +2089,30 @@ public abstract class GVRContext {
      * @since 1.6.8
      */
     public abstract void captureScreen3D(GVRScreenshot3DCallback callback);
+
+    /**
+     * Start capturing the left eye continuously, at (up to) a target frame
+     * rate. Starting a stream stops any stream already running.
+     * 
+     * Frames are read back into a small, fixed set of buffers, and converted
+     * to a reused bitmap on a single background thread, so a stream does not
+     * allocate per frame. If the callback can not keep up, frames are dropped,
+     * rather than slowing down rendering.
+     * 
+     * @param callback
+     *            Callback function to process each frame. It may not be
+     *            {@code null}.
+     * @param framesPerSecond
+     *            Target capture rate. Must be positive; rates higher than the
+     *            display rate capture every frame.
+     */
+    public abstract void startCaptureStream(
+            GVRScreenshotStreamCallback callback, float framesPerSecond);
+
+    /**
+     * Stop the capture stream started by
+     * {@link #startCaptureStream(GVRScreenshotStreamCallback, float)}. Harmless
+     * if no stream is running.
+     */
+    public abstract void stopCaptureStream();
 }
@@ -15,21 +15,42 @@
 
 package org.gearvrf;
 
-import org.apache.commons.math3.complex.Quaternion;
-
 import android.hardware.Sensor;
 import android.hardware.SensorEvent;
 import android.hardware.SensorEventListener;
 import android.os.Build;
 
-/** A listener for a TYPE_ROTATION_VECTOR type sensor. */
+/**
+ * A listener for a TYPE_ROTATION_VECTOR type sensor.
+ * 
+ * Events arrive at up to 1000 Hz, so the coordinate correction is done on
+ * plain floats: an event allocates nothing.
+ */
 class GVRInternalSensorListener implements SensorEventListener {
-    private static final Quaternion COORDINATE_QUATERNION = new Quaternion(
-            Math.sqrt(0.5), 0.0f, 0.0f, -Math.sqrt(0.5));
-    private static final Quaternion OFFSET_QUATERNION = new Quaternion(
-            Math.sqrt(0.5), 0.0f, Math.sqrt(0.5), 0.0f);
-    private static final Quaternion CONSTANT_EXPRESSION = COORDINATE_QUATERNION
-            .getInverse().multiply(OFFSET_QUATERNION);
+    private static final float SQRT_HALF = (float) Math.sqrt(0.5);
+
+    /** Device to GVRF coordinates: a -90 degree turn about Z */
+    private static final float COORDINATE_W = SQRT_HALF;
+    private static final float COORDINATE_X = 0.0f;
+    private static final float COORDINATE_Y = 0.0f;
+    private static final float COORDINATE_Z = -SQRT_HALF;
+
+    /**
+     * The coordinate quaternion's inverse, times a 90 degree turn about Y.
+     * Both are unit quaternions, so the inverse is the conjugate.
+     */
+    private static final float CONSTANT_W, CONSTANT_X, CONSTANT_Y, CONSTANT_Z;
+
+    static {
+        final float offsetW = SQRT_HALF, offsetX = 0.0f;
+        final float offsetY = SQRT_HALF, offsetZ = 0.0f;
+        final float w = COORDINATE_W, x = -COORDINATE_X;
+        final float y = -COORDINATE_Y, z = -COORDINATE_Z;
+        CONSTANT_W = w * offsetW - x * offsetX - y * offsetY - z * offsetZ;
+        CONSTANT_X = w * offsetX + x * offsetW + y * offsetZ - z * offsetY;
+        CONSTANT_Y = w * offsetY - x * offsetZ + y * offsetW + z * offsetX;
+        CONSTANT_Z = w * offsetZ + x * offsetY - y * offsetX + z * offsetW;
+    }
 
     private RotationSensor mSensor = null;
 
@@ -55,15 +76,28 @@ class GVRInternalSensorListener implements SensorEventListener {
             w = event.values[3];
         }
 
-        Quaternion sensorQuaternion = new Quaternion(w, x, y, z);
+        // CONSTANT * sensor
+        float w1 = CONSTANT_W * w - CONSTANT_X * x - CONSTANT_Y * y
+                - CONSTANT_Z * z;
+        float x1 = CONSTANT_W * x + CONSTANT_X * w + CONSTANT_Y * z
+                - CONSTANT_Z * y;
+        float y1 = CONSTANT_W * y - CONSTANT_X * z + CONSTANT_Y * w
+                + CONSTANT_Z * x;
+        float z1 = CONSTANT_W * z + CONSTANT_X * y - CONSTANT_Y * x
+                + CONSTANT_Z * w;
 
-        Quaternion quaternion = CONSTANT_EXPRESSION.multiply(sensorQuaternion)
-                .multiply(COORDINATE_QUATERNION);
+        // ... * COORDINATE
+        float w2 = w1 * COORDINATE_W - x1 * COORDINATE_X - y1 * COORDINATE_Y
+                - z1 * COORDINATE_Z;
+        float x2 = w1 * COORDINATE_X + x1 * COORDINATE_W + y1 * COORDINATE_Z
+                - z1 * COORDINATE_Y;
+        float y2 = w1 * COORDINATE_Y - x1 * COORDINATE_Z + y1 * COORDINATE_W
+                + z1 * COORDINATE_X;
+        float z2 = w1 * COORDINATE_Z + x1 * COORDINATE_Y - y1 * COORDINATE_X
+                + z1 * COORDINATE_W;
 
-        mSensor.onInternalRotationSensor(GVRTime.getCurrentTime(),
-                (float) quaternion.getQ0(), (float) quaternion.getQ1(),
-                (float) quaternion.getQ2(), (float) quaternion.getQ3(), 0.0f,
-                0.0f, 0.0f);
+        mSensor.onInternalRotationSensor(GVRTime.getCurrentTime(), w2, x2, y2,
+                z2, 0.0f, 0.0f, 0.0f);
     }
 
     /**
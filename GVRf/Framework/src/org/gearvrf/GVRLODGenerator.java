@@ -0,0 +1,283 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import static android.opengl.GLES30.GL_TRIANGLES;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.gearvrf.utility.Log;
+import org.gearvrf.utility.Threads;
+
+/**
+ * Builds simplified versions of a mesh, and sets them up as levels of detail.
+ *
+ * <p>
+ * {@link #generate(GVRContext, GVRSceneObject, float[], float[], Callback)}
+ * reads an object's mesh, and simplifies it on a background thread by quadric
+ * error edge collapse, down to each requested fraction of its triangles. Each
+ * level is then added - on the GL thread - as a child of the object, with the
+ * object's material and render state, and a
+ * {@linkplain GVRSceneObject#setLODRange(float, float) LOD range}; the
+ * object's own range is narrowed to the closest band. So the object shows its
+ * full mesh up close, and coarser meshes further away.
+ *
+ * <p>
+ * Texture seams and hard edges stay put, and open borders are held in place,
+ * so simplified levels don't crack; other vertices carry their normal and
+ * texture coordinates along with them. LOD ranges are tested during frustum
+ * culling, so they only take effect with
+ * {@linkplain GVRScene#setFrustumCulling(boolean) frustum culling} enabled.
+ *
+ * @since 2.0.2
+ */
+public final class GVRLODGenerator {
+
+    private static final String TAG = Log.tag(GVRLODGenerator.class);
+
+    private GVRLODGenerator() {
+    }
+
+    /** Told, on the GL thread, when generation finishes */
+    public interface Callback {
+        /**
+         * The levels have been added to the scene graph.
+         *
+         * @param levels
+         *            Every level, finest first; level 0 is the original
+         *            object
+         */
+        void onLODGenerated(List<Level> levels);
+
+        /**
+         * Simplification failed; the object has not been changed.
+         */
+        void onLODFailed(Throwable t);
+    }
+
+    /** One level of detail */
+    public static final class Level {
+        private final GVRSceneObject mSceneObject;
+        private final float mRatio;
+        private final int mTriangleCount;
+        private final float mError;
+        private final float mMinRange;
+        private final float mMaxRange;
+
+        private Level(GVRSceneObject sceneObject, float ratio,
+                int triangleCount, float error, float minRange, float maxRange) {
+            mSceneObject = sceneObject;
+            mRatio = ratio;
+            mTriangleCount = triangleCount;
+            mError = error;
+            mMinRange = minRange;
+            mMaxRange = maxRange;
+        }
+
+        /** The scene object that draws this level */
+        public GVRSceneObject getSceneObject() {
+            return mSceneObject;
+        }
+
+        /** The fraction of the original triangles that was asked for */
+        public float getRatio() {
+            return mRatio;
+        }
+
+        /** The number of triangles this level actually has */
+        public int getTriangleCount() {
+            return mTriangleCount;
+        }
+
+        /**
+         * Geometric error, in the mesh's units: an estimate of how far the
+         * simplified surface strays from the original. It overestimates,
+         * especially at coarse levels, but never decreases from one level to
+         * the next. 0 for the original.
+         */
+        public float getError() {
+            return mError;
+        }
+
+        /** The closest distance this level is drawn at */
+        public float getMinRange() {
+            return mMinRange;
+        }
+
+        /** The farthest distance this level is drawn at */
+        public float getMaxRange() {
+            return mMaxRange;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "ratio %.3f: %d triangles, error %.5f, range [%.2f, %.2f)",
+                    mRatio, mTriangleCount, mError, mMinRange, mMaxRange);
+        }
+    }
+
+    /**
+     * Generate levels of detail for an object, in the background.
+     *
+     * @param gvrContext
+     *            Current {@link GVRContext}
+     * @param sceneObject
+     *            An object with a single-pass, {@code GL_TRIANGLES}
+     *            {@link GVRRenderData} and mesh, and no LOD range of its own
+     * @param ratios
+     *            Fraction of the original triangles to keep, for each new
+     *            level: strictly decreasing, and between 0 and 1
+     * @param distances
+     *            The distance from the camera each new level takes over at:
+     *            strictly increasing, and positive. The original mesh is shown
+     *            closer than {@code distances[0]}; the last level is shown at
+     *            any distance beyond its own.
+     * @param callback
+     *            Told, on the GL thread, once the levels are in the scene
+     *            graph; may be {@code null}
+     */
+    public static void generate(final GVRContext gvrContext,
+            final GVRSceneObject sceneObject, final float[] ratios,
+            final float[] distances, final Callback callback) {
+        if (ratios.length == 0 || ratios.length != distances.length) {
+            throw new IllegalArgumentException(
+                    "ratios and distances must have the same, non-zero, length");
+        }
+        for (int level = 0; level < ratios.length; ++level) {
+            float previousRatio = level == 0 ? 1 : ratios[level - 1];
+            if (ratios[level] <= 0 || ratios[level] >= previousRatio) {
+                throw new IllegalArgumentException(
+                        "ratios must be strictly decreasing, between 0 and 1");
+            }
+            float previousDistance = level == 0 ? 0 : distances[level - 1];
+            if (distances[level] <= previousDistance) {
+                throw new IllegalArgumentException(
+                        "distances must be strictly increasing, and positive");
+            }
+        }
+
+        final GVRRenderData renderData = sceneObject.getRenderData();
+        if (renderData == null || renderData.getMesh() == null
+                || renderData.getPassCount() != 1
+                || renderData.getDrawMode() != GL_TRIANGLES) {
+            throw new IllegalArgumentException(
+                    "The object needs a single-pass, GL_TRIANGLES mesh.");
+        }
+        if (sceneObject.getLODMinRange() != 0
+                || sceneObject.getLODMaxRange() < Float.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    "The object already has an LOD range.");
+        }
+
+        // Read the mesh here, so the background thread never touches native
+        // objects
+        GVRMesh mesh = renderData.getMesh();
+        final float[] vertices = mesh.getVertices();
+        final float[] normals = mesh.getNormals();
+        final float[] texCoords = mesh.getTexCoords();
+        final char[] triangles = mesh.getTriangles();
+        final float[] ratiosCopy = ratios.clone();
+        final float[] distancesCopy = distances.clone();
+
+        Threads.spawn(new Runnable() {
+            @Override
+            public void run() {
+                final List<MeshSimplifier.Level> simplified = new ArrayList<MeshSimplifier.Level>();
+                final int originalTriangles;
+                try {
+                    MeshSimplifier simplifier = new MeshSimplifier(vertices,
+                            normals, texCoords, triangles);
+                    originalTriangles = simplifier.getTriangleCount();
+                    for (float ratio : ratiosCopy) {
+                        simplified.add(simplifier.simplify(Math.round(ratio
+                                * originalTriangles)));
+                    }
+                } catch (final Throwable t) {
+                    Log.e(TAG, "Simplification failed: %s", t);
+                    if (callback != null) {
+                        gvrContext.runOnGlThread(new Runnable() {
+                            @Override
+                            public void run() {
+                                callback.onLODFailed(t);
+                            }
+                        });
+                    }
+                    return;
+                }
+
+                gvrContext.runOnGlThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        List<Level> levels = attach(gvrContext, sceneObject,
+                                renderData, originalTriangles, simplified,
+                                ratiosCopy, distancesCopy);
+                        if (callback != null) {
+                            callback.onLODGenerated(levels);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private static List<Level> attach(GVRContext gvrContext,
+            GVRSceneObject sceneObject, GVRRenderData prototype,
+            int originalTriangles, List<MeshSimplifier.Level> simplified,
+            float[] ratios, float[] distances) {
+        List<Level> levels = new ArrayList<Level>();
+        sceneObject.setLODRange(0, distances[0]);
+        levels.add(new Level(sceneObject, 1, originalTriangles, 0, 0,
+                distances[0]));
+
+        for (int index = 0; index < simplified.size(); ++index) {
+            MeshSimplifier.Level level = simplified.get(index);
+            float minRange = distances[index];
+            float maxRange = index + 1 < distances.length ? distances[index + 1]
+                    : Float.MAX_VALUE;
+
+            GVRMesh mesh = new GVRMesh(gvrContext);
+            mesh.setVertices(level.vertices);
+            if (level.normals != null) {
+                mesh.setNormals(level.normals);
+            }
+            if (level.texCoords != null) {
+                mesh.setTexCoords(level.texCoords);
+            }
+            mesh.setTriangles(level.triangles);
+
+            GVRRenderData renderData = new GVRRenderData(gvrContext);
+            renderData.setMesh(mesh);
+            renderData.copyRenderStateFrom(prototype);
+
+            GVRSceneObject child = new GVRSceneObject(gvrContext);
+            child.setName("LOD " + (index + 1));
+            child.attachRenderData(renderData);
+            child.setLODRange(minRange, maxRange);
+            sceneObject.addChildObject(child);
+
+            levels.add(new Level(child, ratios[index],
+                    level.getTriangleCount(), level.error, minRange, maxRange));
+        }
+
+        for (Level level : levels) {
+            Log.d(TAG, "%s", level);
+        }
+        return Collections.unmodifiableList(levels);
+    }
+}
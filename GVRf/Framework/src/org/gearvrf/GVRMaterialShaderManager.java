@@ -15,6 +15,7 @@
 
 package org.gearvrf;
 
+import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -27,10 +28,14 @@ public class GVRMaterialShaderManager extends
         GVRBaseShaderManager<GVRMaterialMap, GVRCustomMaterialShaderId>
         implements GVRShaderManagers<GVRMaterialMap, GVRCustomMaterialShaderId> {
 
+    private static final String PROGRAM_CACHE_DIRECTORY = "gvrf_programs";
+
     private final Map<GVRCustomMaterialShaderId, GVRMaterialMap> materialMaps = new HashMap<GVRCustomMaterialShaderId, GVRMaterialMap>();
 
     GVRMaterialShaderManager(GVRContext gvrContext) {
         super(gvrContext, NativeShaderManager.ctor());
+        setProgramCacheDirectory(new File(gvrContext.getContext()
+                .getCacheDir(), PROGRAM_CACHE_DIRECTORY));
     }
 
     @Override
@@ -49,6 +54,44 @@ public class GVRMaterialShaderManager extends
         return materialMaps.get(id);
     }
 
+    /**
+     * Builds the shader of every material in a scene, ahead of time.
+     * 
+     * The built-in shaders are otherwise compiled the first time something
+     * draws with them, which stalls that frame; a scene that brings in a new
+     * kind of material mid-session hitches. Call this on the GL thread - from
+     * {@link GVRScript#onInit(GVRContext) onInit()}, say, once the scene is
+     * built - to move the cost to load time. Custom shaders are built when
+     * they are added, and are not affected.
+     * 
+     * @param scene
+     *            The scene whose materials to prepare.
+     * @return The number of shaders built: those already built are skipped.
+     * @since 2.0.2
+     */
+    public int prewarm(GVRScene scene) {
+        return NativeShaderManager.prewarm(getNative(), scene.getNative());
+    }
+
+    /**
+     * Sets where linked shader programs are kept between runs.
+     * 
+     * Every shader program the framework links - built-in, custom, or post
+     * effect - is saved there, if the driver allows, and loaded instead of
+     * compiled the next time the app starts. A saved program is dropped, and
+     * rebuilt, when its sources or the GPU driver change. The default is a
+     * directory under {@link android.content.Context#getCacheDir()}.
+     * 
+     * @param directory
+     *            The directory, created if need be; or {@code null} to always
+     *            compile from source.
+     * @since 2.0.2
+     */
+    public void setProgramCacheDirectory(File directory) {
+        NativeShaderManager.setProgramCacheDirectory(directory == null ? null
+                : directory.getPath());
+    }
+
     @SuppressWarnings("resource")
     private GVRMaterialMap retrieveShaderMap(GVRCustomMaterialShaderId id) {
         long ptr = NativeShaderManager.getCustomShader(getNative(), id.ID);
@@ -63,4 +106,8 @@ class NativeShaderManager {
             String fragmentShader);
 
     static native long getCustomShader(long shaderManager, int id);
+
+    static native int prewarm(long shaderManager, long scene);
+
+    static native void setProgramCacheDirectory(String directory);
 }
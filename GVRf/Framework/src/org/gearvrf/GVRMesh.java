@@ -295,6 +295,44 @@ public class GVRMesh extends GVRHybridObject {
                 NativeMesh.getBoundingBox(getNative()));
     }
 
+    /**
+     * Set how the mesh's vertex data is laid out for the GPU. The mesh keeps
+     * its data as floats; the layout only changes what it uploads, the next
+     * time it is drawn.
+     * 
+     * @param vertexLayout
+     *            The layout to use. The mesh copies it, so later changes to
+     *            {@code vertexLayout} have no effect on this mesh.
+     * @since 2.0.2
+     */
+    public void setVertexLayout(GVRVertexLayout vertexLayout) {
+        NativeMesh.setVertexLayout(getNative(), vertexLayout.isInterleaved(),
+                vertexLayout.getNormalFormat().ordinal(), vertexLayout
+                        .getTexCoordFormat().ordinal(), vertexLayout
+                        .getColorAttribute());
+    }
+
+    /**
+     * The size of the GPU buffers this mesh's vertex and index data take up,
+     * with its current {@linkplain #setVertexLayout(GVRVertexLayout) layout}
+     * and attributes.
+     * 
+     * @return The size, in bytes.
+     * @since 2.0.2
+     */
+    public long getVertexDataSize() {
+        return NativeMesh.getVertexDataSize(getNative());
+    }
+
+    /**
+     * Whether any float, vec2, vec3 or vec4 vector is bound to a shader
+     * attribute, with {@link #setFloatVector(String, float[])} and its
+     * siblings.
+     */
+    boolean hasAttributeVectors() {
+        return NativeMesh.hasAttributeVectors(getNative());
+    }
+
     private void checkValidFloatVector(String keyName, String key,
             String vectorName, float[] vector, int expectedComponents) {
         checkStringNotNullOrEmpty(keyName, key);
@@ -362,4 +400,11 @@ class NativeMesh {
     static native void setVec4Vector(long mesh, String key, float[] vec4Vector);
 
     static native long getBoundingBox(long mesh);
+
+    static native void setVertexLayout(long mesh, boolean interleaved,
+            int normalFormat, int texCoordFormat, String colorKey);
+
+    static native long getVertexDataSize(long mesh);
+
+    static native boolean hasAttributeVectors(long mesh);
 }
@@ -0,0 +1,214 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gearvrf;
+
+/**
+ * Reorders a mesh's triangles and vertices so the GPU does less work drawing
+ * it.
+ *
+ * <p>
+ * Meshes are drawn in whatever order their triangles arrive in - from an
+ * importer, or from a generator - and that order rarely suits the GPU. A
+ * vertex shared by several triangles only has to be transformed once if
+ * it is still in the GPU's small post-transform cache when the next
+ * triangle needs it; {@link #optimize(GVRMesh) optimize()} reorders the
+ * triangles so that it usually is. Optionally, it also draws outward-facing
+ * parts of the mesh first, so fewer hidden fragments get shaded; and
+ * renumbers the vertices in the order they are first used, so vertex fetch
+ * reads memory in order.
+ *
+ * <p>
+ * Optimization is a one-time CPU pass, linear in the mesh size, meant for
+ * load time: it reads the mesh's data and writes it back. It works on any
+ * thread. The returned {@link Report} says how much it helped, as
+ * simulated on a FIFO cache.
+ *
+ * <p>
+ * Only positions, normals, and texture coordinates are moved when vertices
+ * are renumbered, so {@link #optimize(GVRMesh)} leaves the vertices alone.
+ * If the mesh has other attributes - set with
+ * {@link GVRMesh#setVec4Vector(String, float[])} and friends - and you ask
+ * {@link #optimize(GVRMesh, int, boolean, boolean)} to renumber the
+ * vertices, move the other attributes yourself with
+ * {@link Report#getVertexRemap()}.
+ *
+ * @since 2.0.2
+ */
+public final class GVRMeshOptimizer {
+
+    /**
+     * The cache size {@link #optimize(GVRMesh)} assumes. Mobile GPUs have
+     * somewhere between 16 and 32 entries; optimizing for too small a
+     * cache costs little on a larger one, but the reverse is not true.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 16;
+
+    private GVRMeshOptimizer() {
+    }
+
+    /** How a mesh's cache behavior changed */
+    public static final class Report {
+        private final int mCacheSize;
+        private final int mTriangleCount;
+        private final int mUsedVertexCount;
+        private final int mMissesBefore;
+        private final int mMissesAfter;
+        private final int[] mVertexRemap;
+
+        Report(int cacheSize, int triangleCount, int usedVertexCount,
+                int missesBefore, int missesAfter, int[] vertexRemap) {
+            mCacheSize = cacheSize;
+            mTriangleCount = triangleCount;
+            mUsedVertexCount = usedVertexCount;
+            mMissesBefore = missesBefore;
+            mMissesAfter = missesAfter;
+            mVertexRemap = vertexRemap;
+        }
+
+        /** The simulated FIFO cache size, in vertices */
+        public int getCacheSize() {
+            return mCacheSize;
+        }
+
+        public int getTriangleCount() {
+            return mTriangleCount;
+        }
+
+        /**
+         * Average cache miss ratio before optimization: vertices transformed
+         * per triangle. 3 is the worst possible; about 0.5 is the best any
+         * order can do on a large regular mesh.
+         */
+        public float getACMRBefore() {
+            return ratio(mMissesBefore, mTriangleCount);
+        }
+
+        /** Average cache miss ratio after optimization */
+        public float getACMRAfter() {
+            return ratio(mMissesAfter, mTriangleCount);
+        }
+
+        /**
+         * Average transform to vertex ratio before optimization: how many
+         * times each vertex is transformed. 1 is perfect, whatever the mesh.
+         */
+        public float getATVRBefore() {
+            return ratio(mMissesBefore, mUsedVertexCount);
+        }
+
+        /** Average transform to vertex ratio after optimization */
+        public float getATVRAfter() {
+            return ratio(mMissesAfter, mUsedVertexCount);
+        }
+
+        /**
+         * The new index of each old vertex; or {@code null}, if the vertices
+         * were not renumbered, because that was not asked for or because the
+         * normals or texture coordinates don't match the vertices.
+         */
+        public int[] getVertexRemap() {
+            return mVertexRemap;
+        }
+
+        private static float ratio(int numerator, int denominator) {
+            return denominator == 0 ? 0 : (float) numerator / denominator;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "%d triangles, %d-entry cache: ACMR %.3f -> %.3f, ATVR %.3f -> %.3f",
+                    mTriangleCount, mCacheSize, getACMRBefore(),
+                    getACMRAfter(), getATVRBefore(), getATVRAfter());
+        }
+    }
+
+    /**
+     * Reorder a mesh's triangles for the vertex cache; leave the vertices,
+     * and overdraw, alone. Safe for any mesh, whatever attributes it has.
+     *
+     * @param mesh
+     *            A triangle mesh
+     * @return The cache behavior, before and after
+     */
+    public static Report optimize(GVRMesh mesh) {
+        return optimize(mesh, DEFAULT_CACHE_SIZE, false, false);
+    }
+
+    /**
+     * Reorder a mesh's triangles for the vertex cache and, optionally, for
+     * overdraw; and optionally renumber its vertices.
+     *
+     * @param mesh
+     *            A triangle mesh
+     * @param cacheSize
+     *            The post-transform cache size to optimize for, in vertices:
+     *            at least 3
+     * @param reorderVertices
+     *            Whether to renumber the vertices in the order the triangles
+     *            first use them. Only positions, normals, and texture
+     *            coordinates are moved: any other attributes have to be moved
+     *            with {@link Report#getVertexRemap()}.
+     * @param reduceOverdraw
+     *            Whether to draw the outward-facing parts of the mesh first.
+     *            This is worth it for meshes that are drawn with depth
+     *            testing and cover a lot of the screen, and costs a little
+     *            cache efficiency.
+     * @return The cache behavior, before and after
+     */
+    public static Report optimize(GVRMesh mesh, int cacheSize,
+            boolean reorderVertices, boolean reduceOverdraw) {
+        float[] vertices = mesh.getVertices();
+        char[] triangles = mesh.getTriangles();
+        int vertexCount = vertices.length / 3;
+
+        MeshOptimizer optimizer = new MeshOptimizer(triangles, vertexCount,
+                cacheSize);
+        int missesBefore = MeshOptimizer.countCacheMisses(triangles,
+                vertexCount, cacheSize);
+        optimizer.reorderTriangles();
+        if (reduceOverdraw) {
+            optimizer.reduceOverdraw(vertices);
+        }
+
+        int[] remap = null;
+        if (reorderVertices) {
+            float[] normals = mesh.getNormals();
+            float[] texCoords = mesh.getTexCoords();
+            // Attributes that don't match the vertices can't be moved with
+            // them
+            if ((normals.length == 0 || normals.length == vertices.length)
+                    && (texCoords.length == 0 || texCoords.length == 2 * vertexCount)) {
+                remap = optimizer.reorderVertices();
+                mesh.setVertices(MeshOptimizer.remap(vertices, 3, remap));
+                if (normals.length != 0) {
+                    mesh.setNormals(MeshOptimizer.remap(normals, 3, remap));
+                }
+                if (texCoords.length != 0) {
+                    mesh.setTexCoords(MeshOptimizer.remap(texCoords, 2, remap));
+                }
+            }
+        }
+        char[] optimized = optimizer.getTriangles();
+        mesh.setTriangles(optimized);
+
+        return new Report(cacheSize, triangles.length / 3,
+                MeshOptimizer.countUsedVertices(triangles, vertexCount),
+                missesBefore, MeshOptimizer.countCacheMisses(optimized,
+                        vertexCount, cacheSize), remap);
+    }
+}
@@ -48,7 +48,8 @@ abstract class GVRMonoscopicRenderer {
                         .getNative(), renderBundle.getPostEffectShaderManager()
                         .getNative(), renderBundle
                         .getPostEffectRenderTextureA().getNative(),
-                renderBundle.getPostEffectRenderTextureB().getNative());
+                renderBundle.getPostEffectRenderTextureB().getNative(),
+                renderBundle.getPostEffectRenderTextureC().getNative());
     }
 
     static void cull(GVRScene scene, GVRCamera camera, GVRRenderBundle renderBundle) {
@@ -61,5 +62,6 @@ class NativeMonoscopicRenderer {
     static native void renderCamera(long scene, long camera, int viewportX,
             int viewportY, int viewportWidth, int viewportHeight,
             long shaderManager, long postEffectShaderManager,
-            long postEffectRenderTextureA, long postEffectRenderTextureB);
+            long postEffectRenderTextureA, long postEffectRenderTextureB,
+            long postEffectRenderTextureC);
 }
@@ -138,7 +138,7 @@ class GVRMonoscopicViewManager extends GVRViewManager {
         // Log.v(TAG, "onDrawFrame");
         mFrameHandler.beforeDrawEyes();
         drawEyes();
-        mFrameHandler.afterDrawEyes();
+        afterDrawEyes();
     }
 
     private void drawEyes() {
@@ -86,6 +86,33 @@ public class GVRPostEffect extends GVRHybridObject implements
         NativePostEffectData.setShaderType(getNative(), shaderId.ID);
     }
 
+    /**
+     * Is this post effect an overlay?
+     * 
+     * @return Whether the effect still runs with the scene's post effects
+     *         {@linkplain GVRScene#setPostEffectsEnabled(boolean) off}
+     * @since 2.0.2
+     */
+    public boolean isOverlay() {
+        return NativePostEffectData.isOverlay(getNative());
+    }
+
+    /**
+     * Mark this post effect as an overlay. An overlay draws over the scene,
+     * like {@link org.gearvrf.debug.GVRConsole}, instead of changing how it
+     * looks; so it still runs when the scene's post effects are
+     * {@linkplain GVRScene#setPostEffectsEnabled(boolean) turned off}.
+     * Effects are not overlays by default.
+     * 
+     * @param overlay
+     *            {@code true} to keep the effect on with the scene's post
+     *            effects off
+     * @since 2.0.2
+     */
+    public void setOverlay(boolean overlay) {
+        NativePostEffectData.setOverlay(getNative(), overlay);
+    }
+
     public GVRTexture getMainTexture() {
         return getTexture(MAIN_TEXTURE);
     }
@@ -168,6 +195,10 @@ class NativePostEffectData {
 
     static native void setShaderType(long postEffectData, long shaderType);
 
+    static native boolean isOverlay(long postEffectData);
+
+    static native void setOverlay(long postEffectData, boolean overlay);
+
     static native void setTexture(long postEffectData, String key, long texture);
 
     static native float getFloat(long postEffectData, String key);
@@ -23,6 +23,7 @@ class GVRRenderBundle {
     private final GVRPostEffectShaderManager mPostEffectShaderManager;
     private GVRRenderTexture mPostEffectRenderTextureA = null;
     private GVRRenderTexture mPostEffectRenderTextureB = null;
+    private GVRRenderTexture mPostEffectRenderTextureC = null;
 
     GVRRenderBundle(GVRContext gvrContext, GVRLensInfo data) {
         mGVRContext = gvrContext;
@@ -63,6 +64,10 @@ class GVRRenderBundle {
         return mPostEffectRenderTextureB;
     }
 
+    GVRRenderTexture getPostEffectRenderTextureC() {
+        return mPostEffectRenderTextureC;
+    }
+
     private void update() {
 
         int sampleCount = mData.getMSAA();
@@ -77,11 +82,15 @@ class GVRRenderBundle {
                     mData.getFBOWidth(), mData.getFBOHeight());
             mPostEffectRenderTextureB = new GVRRenderTexture(mGVRContext,
                     mData.getFBOWidth(), mData.getFBOHeight());
+            mPostEffectRenderTextureC = new GVRRenderTexture(mGVRContext,
+                    mData.getFBOWidth(), mData.getFBOHeight());
         } else {
             mPostEffectRenderTextureA = new GVRRenderTexture(mGVRContext,
                     mData.getFBOWidth(), mData.getFBOHeight(), sampleCount);
             mPostEffectRenderTextureB = new GVRRenderTexture(mGVRContext,
                     mData.getFBOWidth(), mData.getFBOHeight(), sampleCount);
+            mPostEffectRenderTextureC = new GVRRenderTexture(mGVRContext,
+                    mData.getFBOWidth(), mData.getFBOHeight(), sampleCount);
         }
 
     }
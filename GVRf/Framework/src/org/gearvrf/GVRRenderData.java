@@ -302,6 +302,30 @@ public class GVRRenderData extends GVRComponent {
         }
     }
     
+    /** Number of render passes; always at least 1 */
+    int getPassCount() {
+        return mRenderPassList.size();
+    }
+
+    /**
+     * Copy another render data's first-pass material and render state - but
+     * not its mesh - to this one.
+     */
+    void copyRenderStateFrom(GVRRenderData prototype) {
+        setMaterial(prototype.getMaterial());
+        setRenderingOrder(prototype.getRenderingOrder());
+        setRenderMask(prototype.getRenderMask());
+        setCullFace(prototype.getCullFace());
+        setOffset(prototype.getOffset());
+        setOffsetFactor(prototype.getOffsetFactor());
+        setOffsetUnits(prototype.getOffsetUnits());
+        setDepthTest(prototype.getDepthTest());
+        setAlphaBlend(prototype.getAlphaBlend());
+        if (prototype.isLightEnabled() && prototype.getLight() != null) {
+            setLight(prototype.getLight());
+        }
+    }
+
     /**
      * @return The {@link GVRMaterial material} the {@link GVRMesh mesh} is
      *         being rendered with.
@@ -653,6 +677,34 @@ public class GVRRenderData extends GVRComponent {
         NativeRenderData.setAlphaBlend(getNative(), alphaBlend);
     }
 
+    /**
+     * @return Whether this mesh is drawn into the CPU depth buffer used for
+     *         {@linkplain GVRScene#setSoftwareOcclusionCulling(boolean)
+     *         software occlusion culling}
+     * @since 2.0.2
+     */
+    public boolean isOccluder() {
+        return NativeRenderData.getOccluder(getNative());
+    }
+
+    /**
+     * Mark this mesh as an occluder.
+     * 
+     * With {@linkplain GVRScene#setSoftwareOcclusionCulling(boolean) software
+     * occlusion culling} on, occluders are drawn into a small CPU depth buffer
+     * at the start of each frame, and objects whose bounding boxes are
+     * entirely behind them are not drawn. Good occluders are big and simple -
+     * walls, floors, large buildings - ideally low-polygon stand-ins for the
+     * real geometry. Occluders are never culled themselves.
+     * 
+     * @param occluder
+     *            {@code true} to draw this mesh into the occlusion buffer
+     * @since 2.0.2
+     */
+    public void setOccluder(boolean occluder) {
+        NativeRenderData.setOccluder(getNative(), occluder);
+    }
+
     /**
      * @return The OpenGL draw mode (e.g. GL_TRIANGLES).
      */
@@ -693,7 +745,102 @@ public class GVRRenderData extends GVRComponent {
         }
     }
 
+    /**
+     * Draw this object's mesh many times, in a single draw call.
+     * 
+     * Each instance has its own model matrix, relative to this object's
+     * {@link GVRTransform transform}, and its own color, which multiplies the
+     * material's {@code color}. Instances are culled one by one, against the
+     * mesh's bounding sphere. If a {@linkplain GVRRenderPass pass} uses the
+     * default {@link GVRMaterial.GVRShaderType.Texture} shader, without a
+     * light, its survivors are drawn with a single instanced draw call, by an
+     * unlit shader that uses the material's {@code main_texture},
+     * {@code color}, and {@code opacity}. Passes with any other shader draw
+     * the survivors one by one, ignoring the instance colors.
+     * 
+     * <p>
+     * This is much cheaper than a scene object per copy, when you have
+     * hundreds of copies of the same mesh and texture. The copies do not
+     * have scene objects of their own, though: they can't be picked,
+     * animated, or moved one by one except by calling this method again.
+     * 
+     * @param modelMatrices
+     *            Instance model matrices: 16 {@code float}s per instance, in
+     *            the OpenGL-compatible column-major format
+     *            {@link GVRTransform#getModelMatrix()} uses
+     * @param colors
+     *            Instance colors: 4 {@code float}s (r, g, b, a) per instance;
+     *            or {@code null}, for opaque white
+     * 
+     * @since 2.0.2
+     */
+    public void setInstances(float[] modelMatrices, float[] colors) {
+        float[] instances = packInstances(modelMatrices, colors);
+        NativeRenderData.setInstances(getNative(), instances);
+        mInstanceCount = modelMatrices.length / MATRIX_FLOATS;
+    }
+
+    /**
+     * Stop drawing instances: draw the mesh once, at this object's transform.
+     * 
+     * @since 2.0.2
+     */
+    public void clearInstances() {
+        NativeRenderData.setInstances(getNative(), null);
+        mInstanceCount = 0;
+    }
+
+    /**
+     * @return The number of instances set by
+     *         {@link #setInstances(float[], float[])}; 0 if this object is not
+     *         instanced.
+     * 
+     * @since 2.0.2
+     */
+    public int getInstanceCount() {
+        return mInstanceCount;
+    }
+
+    private static final int MATRIX_FLOATS = 16;
+    private static final int COLOR_FLOATS = 4;
+    /** Must match {@code InstanceBuffer::FLOATS_PER_INSTANCE} */
+    private static final int FLOATS_PER_INSTANCE = MATRIX_FLOATS + COLOR_FLOATS;
+
+    /**
+     * Interleave instance matrices and colors into the layout the native
+     * instance buffer uploads as is.
+     */
+    static float[] packInstances(float[] modelMatrices, float[] colors) {
+        if (modelMatrices == null || modelMatrices.length == 0
+                || modelMatrices.length % MATRIX_FLOATS != 0) {
+            throw new IllegalArgumentException(
+                    "modelMatrices must hold one or more 4x4 matrices.");
+        }
+        int count = modelMatrices.length / MATRIX_FLOATS;
+        if (colors != null && colors.length != count * COLOR_FLOATS) {
+            throw new IllegalArgumentException(
+                    "colors must hold one r, g, b, a color per matrix.");
+        }
+
+        float[] instances = new float[count * FLOATS_PER_INSTANCE];
+        for (int index = 0, packed = 0; index < count; ++index,
+                packed += FLOATS_PER_INSTANCE) {
+            System.arraycopy(modelMatrices, index * MATRIX_FLOATS, instances,
+                    packed, MATRIX_FLOATS);
+            if (colors != null) {
+                System.arraycopy(colors, index * COLOR_FLOATS, instances,
+                        packed + MATRIX_FLOATS, COLOR_FLOATS);
+            } else {
+                for (int channel = 0; channel < COLOR_FLOATS; ++channel) {
+                    instances[packed + MATRIX_FLOATS + channel] = 1.0f;
+                }
+            }
+        }
+        return instances;
+    }
+
     private boolean isLightEnabled;
+    private int mInstanceCount = 0;
 }
 
 class NativeRenderData {
@@ -742,4 +889,10 @@ class NativeRenderData {
     public static native void setDrawMode(long renderData, int draw_mode);
 
     public static native void setTextureCapturer(long renderData, long texture_capturer);
+
+    static native void setInstances(long renderData, float[] instances);
+
+    static native boolean getOccluder(long renderData);
+
+    static native void setOccluder(long renderData, boolean occluder);
 }
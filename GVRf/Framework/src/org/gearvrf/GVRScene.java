@@ -17,7 +17,10 @@ package org.gearvrf;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.gearvrf.GVRRenderData.GVRRenderMaskBit;
 import org.gearvrf.utility.Log;
@@ -32,6 +35,16 @@ public class GVRScene extends GVRHybridObject {
     private GVRCameraRig mMainCameraRig;
     private StringBuilder mStatMessage = new StringBuilder();
 
+    /** Depth-first flattened graph; rebuilt after structural changes */
+    private GVRSceneObject[] mFlattened = null;
+    private int mFlattenedGeneration;
+    /** Bumped by every structural change to this scene's graph */
+    private final AtomicInteger mHierarchyGeneration = new AtomicInteger();
+
+    /** Name and tag indices; null unless indexing is enabled */
+    private Map<String, List<GVRSceneObject>> mNameIndex = null;
+    private Map<String, List<GVRSceneObject>> mTagIndex = null;
+
     /**
      * Constructs a scene with a camera rig holding left & right cameras in it.
      * 
@@ -73,6 +86,11 @@ public class GVRScene extends GVRHybridObject {
     public void addSceneObject(GVRSceneObject sceneObject) {
         mSceneObjects.add(sceneObject);
         NativeScene.addSceneObject(getNative(), sceneObject.getNative());
+        sceneObject.onAddedToScene(this);
+        invalidateHierarchy();
+        if (isIndexingEnabled()) {
+            indexSubtree(sceneObject);
+        }
     }
 
     /**
@@ -84,6 +102,11 @@ public class GVRScene extends GVRHybridObject {
     public void removeSceneObject(GVRSceneObject sceneObject) {
         mSceneObjects.remove(sceneObject);
         NativeScene.removeSceneObject(getNative(), sceneObject.getNative());
+        sceneObject.onRemovedFromScene(this);
+        invalidateHierarchy();
+        if (sceneObject.mIndexingScene == this) {
+            unindexSubtree(sceneObject);
+        }
     }
 
     /**
@@ -125,24 +148,183 @@ public class GVRScene extends GVRHybridObject {
 
     /**
      * @return The flattened hierarchy of {@link GVRSceneObject objects} as an
-     *         array.
+     *         array, depth first. The scene caches the flattened graph, and
+     *         only walks the graph again after objects are added to or
+     *         removed from this scene's graph; until then, every call
+     *         returns the same array. It is shared, so do not make any
+     *         changes to it: copy it first, if you need to.
+     */
+    public synchronized GVRSceneObject[] getWholeSceneObjects() {
+        int generation = mHierarchyGeneration.get();
+        if (mFlattened != null && mFlattenedGeneration == generation) {
+            return mFlattened;
+        }
+
+        List<GVRSceneObject> list = new ArrayList<GVRSceneObject>(
+                mFlattened != null ? mFlattened.length : mSceneObjects.size());
+        List<GVRSceneObject> stack = new ArrayList<GVRSceneObject>(
+                mSceneObjects);
+        Collections.reverse(stack);
+        while (stack.isEmpty() == false) {
+            GVRSceneObject sceneObject = stack.remove(stack.size() - 1);
+            list.add(sceneObject);
+
+            List<GVRSceneObject> children = sceneObject.rawGetChildren();
+            for (int index = children.size() - 1; index >= 0; --index) {
+                stack.add(children.get(index));
+            }
+        }
+
+        mFlattened = list.toArray(new GVRSceneObject[list.size()]);
+        mFlattenedGeneration = generation;
+        return mFlattened;
+    }
+
+    void invalidateHierarchy() {
+        mHierarchyGeneration.incrementAndGet();
+    }
+
+    /**
+     * Turn the name and tag index on or off.
+     * 
+     * With indexing on, the scene keeps a map from each name and
+     * {@linkplain GVRSceneObject#addTag(String) tag} to the objects that have
+     * it, updated as objects are named, tagged, added and removed; so
+     * {@link #getSceneObjectByName(String)},
+     * {@link #getSceneObjectsByName(String)} and
+     * {@link #getSceneObjectsByTag(String)} are hash lookups instead of walks
+     * of the whole graph. That is worth it for lookups every frame, but it
+     * costs memory, and a little time whenever the graph changes. An object
+     * can be in only one indexed scene at a time.
+     * 
+     * <p>
+     * With the index, matches come back in the order they were indexed,
+     * rather than graph order; when several objects share a name,
+     * {@link #getSceneObjectByName(String)} returns the first one indexed.
+     * 
+     * @param enabled
+     *            Whether to index the scene
+     * @since 2.0.2
      */
-    public GVRSceneObject[] getWholeSceneObjects() {
-        List<GVRSceneObject> list = new ArrayList<GVRSceneObject>(mSceneObjects);
-        for (GVRSceneObject child : mSceneObjects) {
-            addChildren(list, child);
+    public synchronized void setIndexingEnabled(boolean enabled) {
+        if (enabled == isIndexingEnabled()) {
+            return;
+        }
+        if (enabled) {
+            mNameIndex = new HashMap<String, List<GVRSceneObject>>();
+            mTagIndex = new HashMap<String, List<GVRSceneObject>>();
+            for (GVRSceneObject sceneObject : mSceneObjects) {
+                indexSubtree(sceneObject);
+            }
+        } else {
+            for (GVRSceneObject sceneObject : mSceneObjects) {
+                unindexSubtree(sceneObject);
+            }
+            mNameIndex = null;
+            mTagIndex = null;
+        }
+    }
+
+    /**
+     * @return Whether {@linkplain #setIndexingEnabled(boolean) indexing} is on
+     * @since 2.0.2
+     */
+    public synchronized boolean isIndexingEnabled() {
+        return mNameIndex != null;
+    }
+
+    /** Add root and everything below it to the index */
+    synchronized void indexSubtree(GVRSceneObject root) {
+        if (isIndexingEnabled() == false) {
+            return;
+        }
+        List<GVRSceneObject> stack = new ArrayList<GVRSceneObject>();
+        stack.add(root);
+        while (stack.isEmpty() == false) {
+            GVRSceneObject sceneObject = stack.remove(stack.size() - 1);
+            if (sceneObject.mIndexingScene == this) {
+                continue;
+            }
+            sceneObject.mIndexingScene = this;
+            addToIndex(mNameIndex, sceneObject.getName(), sceneObject);
+            for (String tag : sceneObject.getTags()) {
+                addToIndex(mTagIndex, tag, sceneObject);
+            }
+            stack.addAll(sceneObject.rawGetChildren());
+        }
+    }
+
+    /** Remove root and everything below it from the index */
+    synchronized void unindexSubtree(GVRSceneObject root) {
+        List<GVRSceneObject> stack = new ArrayList<GVRSceneObject>();
+        stack.add(root);
+        while (stack.isEmpty() == false) {
+            GVRSceneObject sceneObject = stack.remove(stack.size() - 1);
+            if (sceneObject.mIndexingScene != this) {
+                continue;
+            }
+            sceneObject.mIndexingScene = null;
+            if (isIndexingEnabled()) {
+                removeFromIndex(mNameIndex, sceneObject.getName(), sceneObject);
+                for (String tag : sceneObject.getTags()) {
+                    removeFromIndex(mTagIndex, tag, sceneObject);
+                }
+            }
+            stack.addAll(sceneObject.rawGetChildren());
+        }
+    }
+
+    synchronized void onNameChanged(GVRSceneObject sceneObject,
+            String oldName, String newName) {
+        if (isIndexingEnabled()) {
+            removeFromIndex(mNameIndex, oldName, sceneObject);
+            addToIndex(mNameIndex, newName, sceneObject);
+        }
+    }
+
+    synchronized void onTagAdded(GVRSceneObject sceneObject, String tag) {
+        if (isIndexingEnabled()) {
+            addToIndex(mTagIndex, tag, sceneObject);
+        }
+    }
+
+    synchronized void onTagRemoved(GVRSceneObject sceneObject, String tag) {
+        if (isIndexingEnabled()) {
+            removeFromIndex(mTagIndex, tag, sceneObject);
+        }
+    }
+
+    private static void addToIndex(Map<String, List<GVRSceneObject>> index,
+            String key, GVRSceneObject sceneObject) {
+        if (key.isEmpty()) {
+            return; // unnamed objects aren't worth indexing
+        }
+        List<GVRSceneObject> matches = index.get(key);
+        if (matches == null) {
+            matches = new ArrayList<GVRSceneObject>(1);
+            index.put(key, matches);
         }
-        return list.toArray(new GVRSceneObject[list.size()]);
+        matches.add(sceneObject);
     }
 
-    private void addChildren(List<GVRSceneObject> list,
+    private static void removeFromIndex(
+            Map<String, List<GVRSceneObject>> index, String key,
             GVRSceneObject sceneObject) {
-        for (GVRSceneObject child : sceneObject.rawGetChildren()) {
-            list.add(child);
-            addChildren(list, child);
+        List<GVRSceneObject> matches = index.get(key);
+        if (matches != null && matches.remove(sceneObject)
+                && matches.isEmpty()) {
+            index.remove(key);
         }
     }
 
+    /** Index lookup, as an array; null if there are no matches */
+    private synchronized GVRSceneObject[] lookUp(
+            Map<String, List<GVRSceneObject>> index, String key) {
+        List<GVRSceneObject> matches = index.get(key);
+        return matches != null ? matches.toArray(new GVRSceneObject[matches
+                .size()]) : null;
+    }
+
     /**
      * Performs case-sensitive search
      * 
@@ -153,6 +335,11 @@ public class GVRScene extends GVRHybridObject {
         if (null == name || name.isEmpty()) {
             return null;
         }
+        synchronized (this) {
+            if (isIndexingEnabled()) {
+                return lookUp(mNameIndex, name);
+            }
+        }
 
         final List<GVRSceneObject> matches = new ArrayList<GVRSceneObject>();
         GVRScene.getSceneObjectsByName(matches, mSceneObjects, name);
@@ -181,6 +368,12 @@ public class GVRScene extends GVRHybridObject {
         if (null == name || name.isEmpty()) {
             return null;
         }
+        synchronized (this) {
+            if (isIndexingEnabled()) {
+                List<GVRSceneObject> matches = mNameIndex.get(name);
+                return matches != null ? matches.get(0) : null;
+            }
+        }
 
         return GVRScene.getSceneObjectByName(mSceneObjects, name);
     }
@@ -198,6 +391,35 @@ public class GVRScene extends GVRHybridObject {
         return null;
     }
 
+    /**
+     * Find every object with a {@linkplain GVRSceneObject#addTag(String) tag}.
+     * 
+     * Uses the {@linkplain #setIndexingEnabled(boolean) index} if it is on;
+     * otherwise, walks the scene graph.
+     * 
+     * @param tag
+     * @return null if nothing was found or tag was null/empty
+     * @since 2.0.2
+     */
+    public GVRSceneObject[] getSceneObjectsByTag(final String tag) {
+        if (null == tag || tag.isEmpty()) {
+            return null;
+        }
+        synchronized (this) {
+            if (isIndexingEnabled()) {
+                return lookUp(mTagIndex, tag);
+            }
+        }
+
+        final List<GVRSceneObject> matches = new ArrayList<GVRSceneObject>();
+        for (GVRSceneObject sceneObject : getWholeSceneObjects()) {
+            if (sceneObject.hasTag(tag)) {
+                matches.add(sceneObject);
+            }
+        }
+        return 0 != matches.size() ? matches.toArray(new GVRSceneObject[matches.size()]) : null;
+    }
+
     /**
      * Sets the frustum culling for the {@link GVRScene}.
      */
@@ -212,6 +434,63 @@ public class GVRScene extends GVRHybridObject {
         NativeScene.setOcclusionQuery(getNative(), flag);
     }
 
+    /**
+     * Turn software occlusion culling on or off.
+     * 
+     * Unlike {@linkplain #setOcclusionQuery(boolean) occlusion queries}, which
+     * report back from the GPU a frame or more later, software occlusion
+     * culling decides in the same frame: {@linkplain
+     * GVRRenderData#setOccluder(boolean) occluder} meshes are drawn into a
+     * small depth buffer on the CPU, and every other object is tested against
+     * it before it is drawn. It errs towards drawing: an object is only culled
+     * if its whole bounding box is behind the occluders. Like LOD ranges, it
+     * is part of frustum culling, so it only works with
+     * {@linkplain #setFrustumCulling(boolean) frustum culling} on.
+     * 
+     * @param flag
+     *            {@code true} to cull objects hidden by occluders
+     * @since 2.0.2
+     */
+    public void setSoftwareOcclusionCulling(boolean flag) {
+        NativeScene.setSoftwareOcclusionCulling(getNative(), flag);
+    }
+
+    /**
+     * Bias every {@linkplain GVRSceneObject#setLODRange(float, float) LOD
+     * range} in the scene: each object's distance from the camera is
+     * multiplied by the bias before it is checked against the ranges. Above
+     * 1, objects switch to their coarser levels closer to the camera, which
+     * draws fewer triangles. The default is 1.
+     * 
+     * @param bias
+     *            Distance multiplier; must be positive
+     * @see GVRAdaptiveQuality
+     * @since 2.0.2
+     */
+    public void setLODBias(float bias) {
+        if (bias <= 0) {
+            throw new IllegalArgumentException("LOD bias must be positive");
+        }
+        NativeScene.setLODBias(getNative(), bias);
+    }
+
+    /**
+     * Turn the scene's post effects off, or back on. Off, every camera draws
+     * as if its only post effects were its
+     * {@linkplain GVRPostEffect#setOverlay(boolean) overlays}, like
+     * {@link GVRConsole}; a camera without any draws straight to the screen.
+     * The cameras keep their effects, so turning them back on restores them.
+     * Post effects are on by default.
+     * 
+     * @param enabled
+     *            {@code false} to skip post effects
+     * @see GVRAdaptiveQuality
+     * @since 2.0.2
+     */
+    public void setPostEffectsEnabled(boolean enabled) {
+        NativeScene.setPostEffectsEnabled(getNative(), enabled);
+    }
+
     private GVRConsole mStatsConsole = null;
     private boolean mStatsEnabled = false;
     private boolean pendingStats = false;
@@ -310,6 +589,12 @@ class NativeScene {
 
     public static native void setOcclusionQuery(long scene, boolean flag);
 
+    static native void setSoftwareOcclusionCulling(long scene, boolean flag);
+
+    static native void setLODBias(long scene, float bias);
+
+    static native void setPostEffectsEnabled(long scene, boolean flag);
+
     static native void setMainCameraRig(long scene, long cameraRig);
 
     public static native void resetStats(long scene);
@@ -17,8 +17,10 @@ package org.gearvrf;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Future;
 
 import org.gearvrf.GVRMaterial.GVRShaderType;
@@ -48,6 +50,15 @@ public class GVRSceneObject extends GVRHybridObject {
     private GVRSceneObject mParent;
     private final List<GVRSceneObject> mChildren = new ArrayList<GVRSceneObject>();
 
+    /** Mirrors the native name, so reading it doesn't cross JNI */
+    private String mName = "";
+    private Set<String> mTags = null;
+    /** The scene whose index holds this object, if indexing is on */
+    GVRScene mIndexingScene = null;
+
+    /** The scenes this object has been added to as a root; null for none */
+    private List<GVRScene> mScenes = null;
+
     /**
      * Constructs an empty scene object with a default {@link GVRTransform
      * transform}.
@@ -249,7 +260,7 @@ public class GVRSceneObject extends GVRHybridObject {
      *         returned string will be empty.
      */
     public String getName() {
-        return NativeSceneObject.getName(getNative());
+        return mName;
     }
 
     /**
@@ -262,7 +273,71 @@ public class GVRSceneObject extends GVRHybridObject {
      *            Name of the object.
      */
     public void setName(String name) {
-        NativeSceneObject.setName(getNative(), name);
+        String oldName = mName;
+        mName = name != null ? name : "";
+        NativeSceneObject.setName(getNative(), mName);
+        if (mIndexingScene != null) {
+            mIndexingScene.onNameChanged(this, oldName, mName);
+        }
+    }
+
+    /**
+     * Tag the object.
+     * 
+     * Tags are free-form strings, for the application's own use; an object can
+     * have any number of them. With {@linkplain GVRScene#setIndexingEnabled(boolean)
+     * indexing} on, {@link GVRScene#getSceneObjectsByTag(String)} finds tagged
+     * objects without walking the scene graph.
+     * 
+     * @param tag
+     *            Tag to add. Adding a tag the object already has does nothing.
+     * @since 2.0.2
+     */
+    public void addTag(String tag) {
+        if (null == tag || tag.isEmpty()) {
+            throw new IllegalArgumentException("A tag can't be null or empty.");
+        }
+        if (mTags == null) {
+            mTags = new HashSet<String>();
+        }
+        if (mTags.add(tag) && mIndexingScene != null) {
+            mIndexingScene.onTagAdded(this, tag);
+        }
+    }
+
+    /**
+     * Remove a tag from the object.
+     * 
+     * @param tag
+     *            Tag to remove. Removing a tag the object doesn't have does
+     *            nothing.
+     * @since 2.0.2
+     */
+    public void removeTag(String tag) {
+        if (mTags != null && mTags.remove(tag) && mIndexingScene != null) {
+            mIndexingScene.onTagRemoved(this, tag);
+        }
+    }
+
+    /**
+     * @return Whether the object has been {@linkplain #addTag(String) tagged}
+     *         with {@code tag}
+     * @since 2.0.2
+     */
+    public boolean hasTag(String tag) {
+        return mTags != null && mTags.contains(tag);
+    }
+
+    /**
+     * @return A read-only set of the object's {@linkplain #addTag(String)
+     *         tags}
+     * @since 2.0.2
+     */
+    public Set<String> getTags() {
+        if (mTags == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(mTags);
     }
 
     /**
@@ -553,6 +628,10 @@ public class GVRSceneObject extends GVRHybridObject {
         mChildren.add(child);
         child.mParent = this;
         NativeSceneObject.addChildObject(getNative(), child.getNative());
+        invalidateHierarchy();
+        if (mIndexingScene != null) {
+            mIndexingScene.indexSubtree(child);
+        }
     }
 
     /**
@@ -566,6 +645,10 @@ public class GVRSceneObject extends GVRHybridObject {
         mChildren.remove(child);
         child.mParent = null;
         NativeSceneObject.removeChildObject(getNative(), child.getNative());
+        invalidateHierarchy();
+        if (child.mIndexingScene != null) {
+            child.mIndexingScene.unindexSubtree(child);
+        }
     }
 
     /**
@@ -722,6 +805,35 @@ public class GVRSceneObject extends GVRHybridObject {
         return mChildren;
     }
 
+    void onAddedToScene(GVRScene scene) {
+        if (mScenes == null) {
+            mScenes = new ArrayList<GVRScene>(1);
+        }
+        mScenes.add(scene);
+    }
+
+    void onRemovedFromScene(GVRScene scene) {
+        if (mScenes != null) {
+            mScenes.removeAll(Collections.singleton(scene));
+        }
+    }
+
+    /**
+     * Tell the scenes this object is in that their graph changed. An object
+     * can be a child in one scene and a root in another, so this checks every
+     * ancestor, not only the topmost.
+     */
+    private void invalidateHierarchy() {
+        for (GVRSceneObject ancestor = this; ancestor != null;
+                ancestor = ancestor.mParent) {
+            if (ancestor.mScenes != null) {
+                for (GVRScene scene : ancestor.mScenes) {
+                    scene.invalidateHierarchy();
+                }
+            }
+        }
+    }
+
     private static class Children implements Iterable<GVRSceneObject>,
             Iterator<GVRSceneObject> {
 
@@ -0,0 +1,42 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import android.graphics.Bitmap;
+
+/**
+ * Callback interface for continuous screen capture. Frames are passed to the
+ * caller, one by one, as the parameter of
+ * {@link GVRScreenshotStreamCallback#onFrameCaptured(Bitmap, long)}.
+ *
+ * @see GVRContext#startCaptureStream(GVRScreenshotStreamCallback, float)
+ */
+public interface GVRScreenshotStreamCallback {
+    /**
+     * Callback method dealing with a captured frame.
+     *
+     * Frames are delivered in order, on a single background thread. To avoid
+     * allocating a bitmap per frame, the stream reuses its bitmap:
+     * {@code bitmap} is only valid until this method returns. Copy or encode
+     * it before returning; do not recycle it.
+     *
+     * @param bitmap
+     *            Bitmap containing the captured frame
+     * @param timestamp
+     *            {@link System#nanoTime()} when the frame was read back
+     */
+    public void onFrameCaptured(Bitmap bitmap, long timestamp);
+}
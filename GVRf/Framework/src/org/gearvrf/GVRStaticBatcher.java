@@ -0,0 +1,378 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import static android.opengl.GLES30.GL_TRIANGLES;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.gearvrf.GVRRenderPass.GVRCullFaceEnum;
+import org.gearvrf.StaticBatchBuilder.MeshData;
+import org.gearvrf.utility.Log;
+
+import android.opengl.Matrix;
+
+/**
+ * Merges the static parts of a scene graph into a few big meshes, to save
+ * draw calls.
+ *
+ * <p>
+ * An imported environment can easily have thousands of small nodes that share
+ * a handful of {@linkplain GVRMaterial materials}; each one costs a draw call.
+ * {@link #batch(GVRContext, GVRSceneObject)} walks a subtree, groups its
+ * {@link GVRRenderData render data} by material and render state, and bakes
+ * each group's meshes - in their current positions - into one mesh. Groups
+ * with more than 65536 vertices are split into several meshes, to fit 16-bit
+ * indices; meshes are ordered along the group's longest axis first, so each
+ * chunk covers a compact region, and culls well.
+ *
+ * <p>
+ * The batched meshes are added to the subtree root as new children; the
+ * original scene objects stay where they are, with their render data
+ * detached. So names, children, and {@linkplain GVREyePointeeHolder eye
+ * pointees} still work, but moving an original object no longer moves
+ * anything you can see. Moving the root moves everything.
+ *
+ * <p>
+ * Only objects that render simply are batched: one pass, a stock shader,
+ * {@code GL_TRIANGLES}, no {@linkplain GVRRenderData#setInstances(float[],
+ * float[]) instances,} and no {@linkplain GVRSceneObject#setLODRange(float,
+ * float) LOD range.} Their mesh must have no attributes beyond positions,
+ * normals and texture coordinates: meshes with a
+ * {@linkplain GVRMesh#setFloatVector(String, float[]) float,}
+ * {@linkplain GVRMesh#setVec2Vector(String, float[]) vec2,}
+ * {@linkplain GVRMesh#setVec3Vector(String, float[]) vec3,} or
+ * {@linkplain GVRMesh#setVec4Vector(String, float[]) vec4 vector} are not
+ * merged. Everything else is left alone.
+ *
+ * <p>
+ * Batching reads every mesh back from native code, so it is a load-time
+ * operation: call it once, from {@link GVRScript#onInit(GVRContext)} or on the
+ * GL thread, after the subtree is complete.
+ *
+ * @since 2.0.2
+ */
+public final class GVRStaticBatcher {
+
+    private static final String TAG = Log.tag(GVRStaticBatcher.class);
+
+    private GVRStaticBatcher() {
+    }
+
+    /** What {@link GVRStaticBatcher#batch(GVRContext, GVRSceneObject)} did */
+    public static final class Result {
+        private final List<GVRSceneObject> mBatches;
+        private final int mObjectsBatched;
+        private final int mDrawCallsBefore;
+        private final int mDrawCallsAfter;
+
+        private Result(List<GVRSceneObject> batches, int objectsBatched,
+                int drawCallsBefore, int drawCallsAfter) {
+            mBatches = batches;
+            mObjectsBatched = objectsBatched;
+            mDrawCallsBefore = drawCallsBefore;
+            mDrawCallsAfter = drawCallsAfter;
+        }
+
+        /** The new scene objects, one per batched mesh */
+        public List<GVRSceneObject> getBatches() {
+            return mBatches;
+        }
+
+        /** Number of scene objects whose render data was merged */
+        public int getObjectsBatched() {
+            return mObjectsBatched;
+        }
+
+        /** Draw calls per eye the subtree took before batching */
+        public int getDrawCallsBefore() {
+            return mDrawCallsBefore;
+        }
+
+        /** Draw calls per eye the subtree takes after batching */
+        public int getDrawCallsAfter() {
+            return mDrawCallsAfter;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "batched %d objects into %d meshes; draw calls %d -> %d",
+                    mObjectsBatched, mBatches.size(), mDrawCallsBefore,
+                    mDrawCallsAfter);
+        }
+    }
+
+    /**
+     * Batch every eligible object in a subtree, including the root.
+     *
+     * @param gvrContext
+     *            Current {@link GVRContext}
+     * @param root
+     *            The subtree to batch. Batched meshes are baked relative to
+     *            the root, and added as its children.
+     * @return What was batched, and the draw-call reduction
+     */
+    public static Result batch(GVRContext gvrContext, GVRSceneObject root) {
+        float[] rootInverse = new float[16];
+        if (!Matrix.invertM(rootInverse, 0, root.getTransform()
+                .getModelMatrix(), 0)) {
+            throw new IllegalArgumentException(
+                    "Can't batch under a root with a singular transform.");
+        }
+
+        // Walk the subtree; LinkedHashMap keeps the batches in scene order
+        Map<Key, List<Member>> groups = new LinkedHashMap<Key, List<Member>>();
+        Map<Long, MeshData> meshes = new HashMap<Long, MeshData>();
+        int drawCallsBefore = 0;
+
+        List<GVRSceneObject> pending = new ArrayList<GVRSceneObject>();
+        pending.add(root);
+        while (pending.isEmpty() == false) {
+            GVRSceneObject object = pending.remove(pending.size() - 1);
+            pending.addAll(object.rawGetChildren());
+
+            GVRRenderData renderData = object.getRenderData();
+            if (renderData == null) {
+                continue;
+            }
+            drawCallsBefore += renderData.getPassCount();
+
+            if (isBatchable(object, renderData) == false) {
+                continue;
+            }
+            GVRMesh mesh = renderData.getMesh();
+            MeshData meshData = meshes.get(mesh.getNative());
+            if (meshData == null) {
+                meshData = new MeshData(mesh);
+                meshes.put(mesh.getNative(), meshData);
+            }
+            if (meshData.isUsable() == false) {
+                continue;
+            }
+
+            float[] matrix = new float[16];
+            Matrix.multiplyMM(matrix, 0, rootInverse, 0, object.getTransform()
+                    .getModelMatrix(), 0);
+
+            Key key = new Key(renderData, meshData);
+            List<Member> group = groups.get(key);
+            if (group == null) {
+                group = new ArrayList<Member>();
+                groups.put(key, group);
+            }
+            group.add(new Member(object, meshData, matrix));
+        }
+
+        // Merge each group of two or more
+        List<GVRSceneObject> batches = new ArrayList<GVRSceneObject>();
+        int objectsBatched = 0;
+        int drawCallsSaved = 0;
+        for (Map.Entry<Key, List<Member>> entry : groups.entrySet()) {
+            List<Member> group = entry.getValue();
+            if (group.size() < 2) {
+                continue;
+            }
+            Key key = entry.getKey();
+
+            sortAlongLongestAxis(group);
+            StaticBatchBuilder builder = new StaticBatchBuilder(
+                    key.mHasNormals, key.mHasTexCoords);
+            for (Member member : group) {
+                builder.add(member.mMeshData, member.mMatrix);
+            }
+            List<StaticBatchBuilder.Chunk> chunks = builder.build();
+
+            GVRRenderData prototype = group.get(0).mObject.getRenderData();
+            for (StaticBatchBuilder.Chunk chunk : chunks) {
+                GVRSceneObject batch = newBatch(gvrContext, prototype, chunk);
+                root.addChildObject(batch);
+                batches.add(batch);
+            }
+            for (Member member : group) {
+                member.mObject.detachRenderData();
+            }
+
+            objectsBatched += group.size();
+            drawCallsSaved += group.size() - chunks.size();
+        }
+
+        Result result = new Result(batches, objectsBatched, drawCallsBefore,
+                drawCallsBefore - drawCallsSaved);
+        Log.d(TAG, "%s", result);
+        return result;
+    }
+
+    private static boolean isBatchable(GVRSceneObject object,
+            GVRRenderData renderData) {
+        if (renderData.getMesh() == null || renderData.getPassCount() != 1
+                || renderData.getDrawMode() != GL_TRIANGLES
+                || renderData.getInstanceCount() != 0) {
+            return false;
+        }
+        GVRMaterial material = renderData.getMaterial();
+        if (material == null
+                || material.getShaderType() instanceof GVRStockMaterialShaderId == false) {
+            // A custom shader may use mesh attributes we don't merge
+            return false;
+        }
+        // Distances are from the object's own transform
+        return object.getLODMinRange() == 0
+                && object.getLODMaxRange() >= Float.MAX_VALUE;
+    }
+
+    private static GVRSceneObject newBatch(GVRContext gvrContext,
+            GVRRenderData prototype, StaticBatchBuilder.Chunk chunk) {
+        GVRMesh mesh = new GVRMesh(gvrContext);
+        mesh.setVertices(chunk.vertices);
+        if (chunk.normals != null) {
+            mesh.setNormals(chunk.normals);
+        }
+        if (chunk.texCoords != null) {
+            mesh.setTexCoords(chunk.texCoords);
+        }
+        mesh.setTriangles(chunk.triangles);
+
+        GVRRenderData renderData = new GVRRenderData(gvrContext);
+        renderData.setMesh(mesh);
+        renderData.copyRenderStateFrom(prototype);
+
+        GVRSceneObject batch = new GVRSceneObject(gvrContext);
+        batch.setName("static batch");
+        batch.attachRenderData(renderData);
+        return batch;
+    }
+
+    /**
+     * Order a group along the axis its members spread furthest, so that
+     * consecutive chunks cover compact, separately cullable regions.
+     */
+    private static void sortAlongLongestAxis(List<Member> group) {
+        float[] min = { Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE };
+        float[] max = { -Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE };
+        for (Member member : group) {
+            for (int axis = 0; axis < 3; ++axis) {
+                min[axis] = Math.min(min[axis], member.mCenter[axis]);
+                max[axis] = Math.max(max[axis], member.mCenter[axis]);
+            }
+        }
+        int longest = 0;
+        for (int axis = 1; axis < 3; ++axis) {
+            if (max[axis] - min[axis] > max[longest] - min[longest]) {
+                longest = axis;
+            }
+        }
+
+        final int axis = longest;
+        Collections.sort(group, new Comparator<Member>() {
+            @Override
+            public int compare(Member lhs, Member rhs) {
+                return Float.compare(lhs.mCenter[axis], rhs.mCenter[axis]);
+            }
+        });
+    }
+
+    private static final class Member {
+        final GVRSceneObject mObject;
+        final MeshData mMeshData;
+        final float[] mMatrix;
+        /** Mesh centroid, in root space */
+        final float[] mCenter = new float[3];
+
+        Member(GVRSceneObject object, MeshData meshData, float[] matrix) {
+            mObject = object;
+            mMeshData = meshData;
+            mMatrix = matrix;
+            StaticBatchBuilder.transformPoints(matrix, meshData.center,
+                    mCenter, 0);
+        }
+    }
+
+    /** Everything that has to match for two render data to share a draw call */
+    private static final class Key {
+        final long mMaterial;
+        final long mLight;
+        final int mRenderingOrder;
+        final int mRenderMask;
+        final GVRCullFaceEnum mCullFace;
+        final boolean mOffset;
+        final float mOffsetFactor;
+        final float mOffsetUnits;
+        final boolean mDepthTest;
+        final boolean mAlphaBlend;
+        final boolean mHasNormals;
+        final boolean mHasTexCoords;
+
+        Key(GVRRenderData renderData, MeshData meshData) {
+            mMaterial = renderData.getMaterial().getNative();
+            GVRLight light = renderData.getLight();
+            mLight = renderData.isLightEnabled() && light != null ? light
+                    .getNative() : 0;
+            mRenderingOrder = renderData.getRenderingOrder();
+            mRenderMask = renderData.getRenderMask();
+            mCullFace = renderData.getCullFace();
+            mOffset = renderData.getOffset();
+            mOffsetFactor = renderData.getOffsetFactor();
+            mOffsetUnits = renderData.getOffsetUnits();
+            mDepthTest = renderData.getDepthTest();
+            mAlphaBlend = renderData.getAlphaBlend();
+            mHasNormals = meshData.hasNormals();
+            mHasTexCoords = meshData.hasTexCoords();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o instanceof Key == false) {
+                return false;
+            }
+            Key other = (Key) o;
+            return mMaterial == other.mMaterial && mLight == other.mLight
+                    && mRenderingOrder == other.mRenderingOrder
+                    && mRenderMask == other.mRenderMask
+                    && mCullFace == other.mCullFace
+                    && mOffset == other.mOffset
+                    && mOffsetFactor == other.mOffsetFactor
+                    && mOffsetUnits == other.mOffsetUnits
+                    && mDepthTest == other.mDepthTest
+                    && mAlphaBlend == other.mAlphaBlend
+                    && mHasNormals == other.mHasNormals
+                    && mHasTexCoords == other.mHasTexCoords;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = (int) (mMaterial ^ (mMaterial >>> 32));
+            hash = hash * 31 + (int) (mLight ^ (mLight >>> 32));
+            hash = hash * 31 + mRenderingOrder;
+            hash = hash * 31 + mRenderMask;
+            hash = hash * 31 + mCullFace.hashCode();
+            hash = hash * 31 + (mOffset ? 1 : 0);
+            hash = hash * 31 + Float.floatToIntBits(mOffsetFactor);
+            hash = hash * 31 + Float.floatToIntBits(mOffsetUnits);
+            hash = hash * 31 + (mDepthTest ? 1 : 0);
+            hash = hash * 31 + (mAlphaBlend ? 1 : 0);
+            hash = hash * 31 + (mHasNormals ? 1 : 0);
+            hash = hash * 31 + (mHasTexCoords ? 1 : 0);
+            return hash;
+        }
+    }
+}
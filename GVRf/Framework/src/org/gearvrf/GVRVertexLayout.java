@@ -0,0 +1,137 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gearvrf;
+
+/**
+ * How a {@link GVRMesh} lays out its vertex data for the GPU.
+ * 
+ * By default, a mesh gives each attribute its own buffer of 32-bit floats.
+ * A layout can instead interleave the attributes, vertex by vertex, in one
+ * buffer, and store some of them in fewer bits:
+ * <ul>
+ * <li>texture coordinates as half floats, which are within half a texel of
+ * the original for textures up to 2048 texels across, in [0, 1];
+ * <li>normals as 10-bit or 8-bit signed normalized integers, instead of
+ * three floats;
+ * <li>one {@linkplain GVRMesh#setVec4Vector(String, float[]) vec4
+ * attribute}, normally a color, as 8-bit unsigned normalized integers,
+ * clamped to [0, 1].
+ * </ul>
+ * This cuts the memory bandwidth each vertex costs: positions, normals and
+ * texture coordinates take 20 bytes a vertex instead of 32, with
+ * {@code GVRVertexLayout.compact()}. Shaders see the same {@code vec2},
+ * {@code vec3} and {@code vec4} attributes either way.
+ * 
+ * @see GVRMesh#setVertexLayout(GVRVertexLayout)
+ * @since 2.0.2
+ */
+public class GVRVertexLayout {
+
+    /** How normals are stored. The ordinals are shared with native code. */
+    public enum NormalFormat {
+        /** Three 32-bit floats */
+        FLOAT,
+        /** 10 bits per component, in one 32-bit word */
+        INT_2_10_10_10,
+        /** 8 bits per component, padded to 32 bits */
+        SNORM8
+    }
+
+    /** How texture coordinates are stored. */
+    public enum TexCoordFormat {
+        /** Two 32-bit floats */
+        FLOAT,
+        /** Two 16-bit floats */
+        HALF_FLOAT
+    }
+
+    private boolean mInterleaved = false;
+    private NormalFormat mNormalFormat = NormalFormat.FLOAT;
+    private TexCoordFormat mTexCoordFormat = TexCoordFormat.FLOAT;
+    private String mColorKey = null;
+
+    /** The default layout: one buffer of floats per attribute. */
+    public GVRVertexLayout() {
+    }
+
+    /**
+     * Interleaved, with 10:10:10:2 normals and half float texture
+     * coordinates: a good choice for most static meshes.
+     */
+    public static GVRVertexLayout compact() {
+        return new GVRVertexLayout().setInterleaved(true)
+                .setNormalFormat(NormalFormat.INT_2_10_10_10)
+                .setTexCoordFormat(TexCoordFormat.HALF_FLOAT);
+    }
+
+    /**
+     * Put every attribute in one buffer, vertex by vertex. Any layout with a
+     * compact format uses a single buffer anyway: without interleaving, the
+     * attributes follow one another in it.
+     * 
+     * @return {@code this}, for chaining
+     */
+    public GVRVertexLayout setInterleaved(boolean interleaved) {
+        mInterleaved = interleaved;
+        return this;
+    }
+
+    public boolean isInterleaved() {
+        return mInterleaved;
+    }
+
+    /**
+     * @return {@code this}, for chaining
+     */
+    public GVRVertexLayout setNormalFormat(NormalFormat normalFormat) {
+        mNormalFormat = normalFormat;
+        return this;
+    }
+
+    public NormalFormat getNormalFormat() {
+        return mNormalFormat;
+    }
+
+    /**
+     * @return {@code this}, for chaining
+     */
+    public GVRVertexLayout setTexCoordFormat(TexCoordFormat texCoordFormat) {
+        mTexCoordFormat = texCoordFormat;
+        return this;
+    }
+
+    public TexCoordFormat getTexCoordFormat() {
+        return mTexCoordFormat;
+    }
+
+    /**
+     * Store the vec4 attribute {@code key} as four unsigned bytes.
+     * 
+     * @param key
+     *            Name of the shader attribute, or {@code null} to store
+     *            every vec4 attribute as floats.
+     * @return {@code this}, for chaining
+     */
+    public GVRVertexLayout setColorAttribute(String key) {
+        mColorKey = key;
+        return this;
+    }
+
+    public String getColorAttribute() {
+        return mColorKey;
+    }
+}
@@ -16,13 +16,8 @@
 package org.gearvrf;
 
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -33,12 +28,9 @@ import org.gearvrf.animation.GVRAnimation;
 import org.gearvrf.animation.GVROnFinish;
 import org.gearvrf.animation.GVROpacityAnimation;
 import org.gearvrf.asynchronous.GVRAsynchronousResourceLoader;
-import org.gearvrf.utility.ImageUtils;
 import org.gearvrf.utility.Log;
-import org.gearvrf.utility.Threads;
 
 import android.app.Activity;
-import android.graphics.Bitmap;
 import android.opengl.GLES20;
 import android.util.DisplayMetrics;
 import android.view.KeyEvent;
@@ -81,12 +73,16 @@ class GVRViewManager extends GVRContext implements RotationSensorListener {
     private static final String TAG = Log.tag(GVRViewManager.class);
 
     protected final Queue<Runnable> mRunnables = new LinkedBlockingQueue<Runnable>();
-    protected final Map<Runnable, Integer> mRunnablesPostRender = new HashMap<Runnable, Integer>();
+    protected final PostRenderTaskQueue mRunnablesPostRender = new PostRenderTaskQueue();
 
     protected List<GVRDrawFrameListener> mFrameListeners = new CopyOnWriteArrayList<GVRDrawFrameListener>();
 
     protected GVRScript mScript;
     protected RotationSensor mRotationSensor;
+    // Sensor thread to GL thread: a 60 Hz frame sees 16 samples at 1000 Hz
+    private final RotationSensorQueue mRotationSamples = new RotationSensorQueue(
+            64);
+    private final RotationSensorQueue.Sample mRotationSample = new RotationSensorQueue.Sample();
 
     protected SplashScreen mSplashScreen;
 
@@ -99,6 +95,10 @@ class GVRViewManager extends GVRContext implements RotationSensorListener {
 
     protected long mPreviousTimeNanos = 0l;
     protected float mFrameTime = 0.0f;
+    // For the adaptive quality controller: System.nanoTime() when the
+    // current frame started, and the time since the one before
+    private long mFrameStartNanos = 0l;
+    private long mFrameIntervalNanos = 0l;
     protected final List<Integer> mDownKeys = new ArrayList<Integer>();
 
     GVRActivity mActivity;
@@ -108,13 +108,13 @@ class GVRViewManager extends GVRContext implements RotationSensorListener {
     private GVRScreenshotCallback mScreenshotLeftCallback = null;
     private GVRScreenshotCallback mScreenshotRightCallback = null;
     private GVRScreenshot3DCallback mScreenshot3DCallback = null;
-    ByteBuffer mReadbackBuffer = null;
-    int mReadbackBufferWidth = 0, mReadbackBufferHeight = 0;
+    private final ScreenshotPipeline mScreenshotPipeline = new ScreenshotPipeline();
 
     private native void cull(long scene, long camera, long shader_manager);
     private native void renderCamera(long appPtr, long scene, long camera,
             long shaderManager, long postEffectShaderManager,
-            long postEffectRenderTextureA, long postEffectRenderTextureB);
+            long postEffectRenderTextureA, long postEffectRenderTextureB,
+            long postEffectRenderTextureC);
 
     private native void readRenderResultNative(long renderTexture,
             Object readbackBuffer);
@@ -209,6 +209,7 @@ class GVRViewManager extends GVRContext implements RotationSensorListener {
     void onDestroy() {
         Log.v(TAG, "onDestroy");
         mRotationSensor.onDestroy();
+        mScreenshotPipeline.stopStream();
     }
 
     /*
@@ -258,7 +259,8 @@ class GVRViewManager extends GVRContext implements RotationSensorListener {
                 renderBundle.getMaterialShaderManager().getNative(),
                 renderBundle.getPostEffectShaderManager().getNative(),
                 renderBundle.getPostEffectRenderTextureA().getNative(),
-                renderBundle.getPostEffectRenderTextureB().getNative());
+                renderBundle.getPostEffectRenderTextureB().getNative(),
+                renderBundle.getPostEffectRenderTextureC().getNative());
     }
 
     /**
@@ -305,48 +307,60 @@ class GVRViewManager extends GVRContext implements RotationSensorListener {
         mScreenshot3DCallback = callback;
     }
 
-    private void readRenderResult() {
-        if (mReadbackBuffer == null) {
+    @Override
+    public void startCaptureStream(GVRScreenshotStreamCallback callback,
+            float framesPerSecond) {
+        mScreenshotPipeline.startStream(callback, framesPerSecond);
+    }
 
-            mReadbackBufferWidth = mLensInfo.getFBOWidth();
-            mReadbackBufferHeight = mLensInfo.getFBOHeight();
-            mReadbackBuffer = ByteBuffer.allocateDirect(mReadbackBufferWidth
-                    * mReadbackBufferHeight * 4);
-            mReadbackBuffer.order(ByteOrder.nativeOrder());
-        }
+    @Override
+    public void stopCaptureStream() {
+        mScreenshotPipeline.stopStream();
+    }
+
+    /** Read the last rendered eye into a pooled buffer */
+    private ByteBuffer readRenderResult() {
+        ByteBuffer readbackBuffer = mScreenshotPipeline.obtainBuffer(
+                mLensInfo.getFBOWidth(), mLensInfo.getFBOHeight());
         readRenderResultNative(mRenderBundle.getPostEffectRenderTextureA()
-                .getNative(), mReadbackBuffer);
-    }
-
-    private void returnScreenshotToCaller(final GVRScreenshotCallback callback,
-            final int width, final int height) {
-        // run the callback function in a background thread
-        final byte[] byteArray = Arrays.copyOf(mReadbackBuffer.array(),
-                mReadbackBuffer.array().length);
-        Threads.spawn(new Runnable() {
-            public void run() {
-                final Bitmap capturedBitmap = ImageUtils.generateBitmapFlipV(
-                        byteArray, width, height);
-                callback.onScreenCaptured(capturedBitmap);
+                .getNative(), readbackBuffer);
+        return readbackBuffer;
+    }
+
+    private void returnScreenshotToCaller(final GVRScreenshotCallback callback) {
+        // the buffer is converted, and recycled, on a background thread
+        mScreenshotPipeline.deliver(callback, readRenderResult(),
+                mLensInfo.getFBOWidth(), mLensInfo.getFBOHeight());
+    }
+
+    /** Read the last rendered eye into the capture stream, if a frame is due */
+    private void readStreamFrame() {
+        ScreenshotPipeline.Stream stream = mScreenshotPipeline.getStream();
+        if (stream != null && stream.isFrameDue(System.nanoTime())) {
+            ByteBuffer readbackBuffer = stream.obtainFrameBuffer(
+                    mLensInfo.getFBOWidth(), mLensInfo.getFBOHeight());
+            if (readbackBuffer != null) {
+                readRenderResultNative(mRenderBundle
+                        .getPostEffectRenderTextureA().getNative(),
+                        readbackBuffer);
+                stream.submitFrame(readbackBuffer);
             }
-        });
+        }
     }
 
     private void renderOneCameraAndAddToList(
-            final GVRPerspectiveCamera centerCamera, byte[][] byteArrays,
+            final GVRPerspectiveCamera centerCamera, ByteBuffer[] faces,
             int index) {
 
         renderCamera(mActivity.getAppPtr(), mMainScene, centerCamera,
                 mRenderBundle);
-        readRenderResult();
-        byteArrays[index] = Arrays.copyOf(mReadbackBuffer.array(),
-                mReadbackBuffer.array().length);
+        faces[index] = readRenderResult();
     }
 
     private void renderSixCamerasAndReadback(final GVRCameraRig mainCameraRig,
-            byte[][] byteArrays) {
-        if (byteArrays.length != 6) {
-            throw new IllegalArgumentException("byteArrays length is not 6.");
+            ByteBuffer[] faces) {
+        if (faces.length != 6) {
+            throw new IllegalArgumentException("faces length is not 6.");
         } else {
             // temporarily create a center camera
             GVRPerspectiveCamera centerCamera = new GVRPerspectiveCamera(this);
@@ -362,29 +376,29 @@ class GVRViewManager extends GVRContext implements RotationSensorListener {
             int index = 0;
             // render +x face
             centerCameraTransform.rotateByAxis(-90, 0, 1, 0);
-            renderOneCameraAndAddToList(centerCamera, byteArrays, index++);
+            renderOneCameraAndAddToList(centerCamera, faces, index++);
 
             // render -x face
             centerCameraTransform.rotateByAxis(180, 0, 1, 0);
-            renderOneCameraAndAddToList(centerCamera, byteArrays, index++);
+            renderOneCameraAndAddToList(centerCamera, faces, index++);
 
             // render +y face
             centerCameraTransform.rotateByAxis(-90, 0, 1, 0);
             centerCameraTransform.rotateByAxis(90, 1, 0, 0);
-            renderOneCameraAndAddToList(centerCamera, byteArrays, index++);
+            renderOneCameraAndAddToList(centerCamera, faces, index++);
 
             // render -y face
             centerCameraTransform.rotateByAxis(180, 1, 0, 0);
-            renderOneCameraAndAddToList(centerCamera, byteArrays, index++);
+            renderOneCameraAndAddToList(centerCamera, faces, index++);
 
             // render +z face
             centerCameraTransform.rotateByAxis(90, 1, 0, 0);
             centerCameraTransform.rotateByAxis(180, 0, 1, 0);
-            renderOneCameraAndAddToList(centerCamera, byteArrays, index++);
+            renderOneCameraAndAddToList(centerCamera, faces, index++);
 
             // render -z face
             centerCameraTransform.rotateByAxis(180, 0, 1, 0);
-            renderOneCameraAndAddToList(centerCamera, byteArrays, index++);
+            renderOneCameraAndAddToList(centerCamera, faces, index++);
 
             centerCameraObject.detachCamera();
             mainCameraRig.getOwnerObject()
@@ -392,57 +406,6 @@ class GVRViewManager extends GVRContext implements RotationSensorListener {
         }
     }
 
-    private void returnScreenshot3DToCaller(
-            final GVRScreenshot3DCallback callback, final byte[][] byteArrays,
-            final int width, final int height) {
-
-        if (byteArrays.length != 6) {
-            throw new IllegalArgumentException("byteArrays length is not 6.");
-        } else {
-            // run the callback function in a background thread
-            Threads.spawn(new Runnable() {
-                public void run() {
-                    final Bitmap[] bitmapArray = new Bitmap[6];
-                    Runnable[] threads = new Runnable[6];
-
-                    for (int i = 0; i < 6; i++) {
-                        final int index = i;
-                        threads[i] = new Runnable() {
-                            public void run() {
-                                byte[] bytearray = byteArrays[index];
-                                byteArrays[index] = null;
-                                Bitmap bitmap = ImageUtils.generateBitmapFlipV(
-                                        bytearray, width, height);
-                                synchronized (this) {
-                                    bitmapArray[index] = bitmap;
-                                    notify();
-                                }
-                            }
-                        };
-                    }
-
-                    for (Runnable thread : threads) {
-                        Threads.spawnLow(thread);
-                    }
-
-                    for (int i = 0; i < 6; i++) {
-                        synchronized (threads[i]) {
-                            if (bitmapArray[i] == null) {
-                                try {
-                                    threads[i].wait();
-                                } catch (InterruptedException e) {
-                                    e.printStackTrace();
-                                }
-                            }
-                        }
-                    }
-
-                    callback.onScreenCaptured(bitmapArray);
-                }
-            });
-        }
-    }
-
     void onDrawEyeView(int eye, float fovDegrees) {
         mCurrentEye = eye;
         if (!(mSensoredScene == null || !mMainScene.equals(mSensoredScene))) {
@@ -455,9 +418,7 @@ class GVRViewManager extends GVRContext implements RotationSensorListener {
 
                 // if mScreenshotRightCallback is not null, capture right eye
                 if (mScreenshotRightCallback != null) {
-                    readRenderResult();
-                    returnScreenshotToCaller(mScreenshotRightCallback,
-                            mReadbackBufferWidth, mReadbackBufferHeight);
+                    returnScreenshotToCaller(mScreenshotRightCallback);
                     mScreenshotRightCallback = null;
                 }
 
@@ -470,20 +431,18 @@ class GVRViewManager extends GVRContext implements RotationSensorListener {
                     renderCamera(mActivity.getAppPtr(), mMainScene,
                             centerCamera, mRenderBundle);
 
-                    readRenderResult();
-                    returnScreenshotToCaller(mScreenshotCenterCallback,
-                            mReadbackBufferWidth, mReadbackBufferHeight);
+                    returnScreenshotToCaller(mScreenshotCenterCallback);
 
                     mScreenshotCenterCallback = null;
                 }
 
                 // if mScreenshot3DCallback is not null, capture 3D screenshot
                 if (mScreenshot3DCallback != null) {
-                    byte[][] byteArrays = new byte[6][];
-                    renderSixCamerasAndReadback(mainCameraRig, byteArrays);
-                    returnScreenshot3DToCaller(mScreenshot3DCallback,
-                            byteArrays, mReadbackBufferWidth,
-                            mReadbackBufferHeight);
+                    ByteBuffer[] faces = new ByteBuffer[6];
+                    renderSixCamerasAndReadback(mainCameraRig, faces);
+                    mScreenshotPipeline.deliver3D(mScreenshot3DCallback,
+                            faces, mLensInfo.getFBOWidth(),
+                            mLensInfo.getFBOHeight());
 
                     mScreenshot3DCallback = null;
                 }
@@ -494,19 +453,12 @@ class GVRViewManager extends GVRContext implements RotationSensorListener {
 
                 // if mScreenshotLeftCallback is not null, capture left eye
                 if (mScreenshotLeftCallback != null) {
-                    readRenderResult();
-                    returnScreenshotToCaller(mScreenshotLeftCallback,
-                            mReadbackBufferWidth, mReadbackBufferHeight);
+                    returnScreenshotToCaller(mScreenshotLeftCallback);
 
                     mScreenshotLeftCallback = null;
                 }
 
-                if (mScreenshotLeftCallback == null
-                        && mScreenshotRightCallback == null
-                        && mScreenshotCenterCallback == null
-                        && mScreenshot3DCallback == null) {
-                    mReadbackBuffer = null;
-                }
+                readStreamFrame();
 
                 mActivity.setCamera(leftCamera);
             }
@@ -529,18 +481,7 @@ class GVRViewManager extends GVRContext implements RotationSensorListener {
     void afterDrawEyes() {
         // Execute post-rendering tasks (after drawing eyes, but
         // before after draw eye handlers)
-        synchronized (mRunnablesPostRender) {
-            for (Iterator<Map.Entry<Runnable, Integer>> it = mRunnablesPostRender.entrySet().iterator();
-                    it.hasNext(); ) {
-                Map.Entry<Runnable, Integer> entry = it.next();
-                if (entry.getValue() <= 0) {
-                    entry.getKey().run();
-                    it.remove();
-                } else {
-                    entry.setValue(entry.getValue() - 1);
-                }
-            }
-        }
+        mRunnablesPostRender.runDueTasks();
 
         mFrameHandler.afterDrawEyes();
     }
@@ -648,6 +589,11 @@ class GVRViewManager extends GVRContext implements RotationSensorListener {
     private final FrameHandler normalFrames = new FrameHandler() {
 
         public void beforeDrawEyes() {
+            long frameStart = System.nanoTime();
+            mFrameIntervalNanos = mFrameStartNanos == 0 ? 0 : frameStart
+                    - mFrameStartNanos;
+            mFrameStartNanos = frameStart;
+
             mMainScene.resetStats();
 
             GVRNotifications.notifyBeforeStep();
@@ -661,6 +607,9 @@ class GVRViewManager extends GVRContext implements RotationSensorListener {
         public void afterDrawEyes() {
             GVRNotifications.notifyAfterStep();
             mMainScene.updateStats();
+
+            GVRAdaptiveQuality.onFrame(mMainScene, mFrameIntervalNanos,
+                    System.nanoTime() - mFrameStartNanos);
         }
     };
 
@@ -674,6 +623,8 @@ class GVRViewManager extends GVRContext implements RotationSensorListener {
         mFrameTime = (currentTime - mPreviousTimeNanos) / 1e9f;
         mPreviousTimeNanos = currentTime;
 
+        applyRotationSensorData();
+
         /*
          * Without the sensor data, can't draw a scene properly.
          */
@@ -707,7 +658,9 @@ class GVRViewManager extends GVRContext implements RotationSensorListener {
      */
 
     /**
-     * Called to reset current sensor data.
+     * Called to reset current sensor data. Called on the sensor thread: the
+     * sample is queued, and handed to the camera rig on the GL thread, at
+     * the start of the next frame.
      * 
      * @param timeStamp
      *            current time stamp
@@ -730,14 +683,26 @@ class GVRViewManager extends GVRContext implements RotationSensorListener {
     public void onRotationSensor(long timeStamp, float rotationW,
             float rotationX, float rotationY, float rotationZ, float gyroX,
             float gyroY, float gyroZ) {
+        mRotationSamples.offer(timeStamp, rotationW, rotationX, rotationY,
+                rotationZ, gyroX, gyroY, gyroZ);
+    }
+
+    /** Hands the newest queued sensor sample, if any, to the camera rig */
+    private void applyRotationSensorData() {
+        if (!mRotationSamples.pollLatest(mRotationSample)) {
+            return;
+        }
+
         GVRCameraRig cameraRig = null;
         if (mMainScene != null) {
             cameraRig = mMainScene.getMainCameraRig();
         }
 
         if (cameraRig != null) {
-            cameraRig.setRotationSensorData(timeStamp, rotationW, rotationX,
-                    rotationY, rotationZ, gyroX, gyroY, gyroZ);
+            final RotationSensorQueue.Sample sample = mRotationSample;
+            cameraRig.setRotationSensorData(sample.timeStamp, sample.w,
+                    sample.x, sample.y, sample.z, sample.gyroX, sample.gyroY,
+                    sample.gyroZ);
             updateSensoredScene();
         }
     }
@@ -825,9 +790,7 @@ class GVRViewManager extends GVRContext implements RotationSensorListener {
 
     @Override
     public void runOnGlThreadPostRender(int delayFrames, Runnable runnable) {
-        synchronized (mRunnablesPostRender) {
-            mRunnablesPostRender.put(runnable, delayFrames);
-        }
+        mRunnablesPostRender.add(delayFrames, runnable);
     }
 
     @Override
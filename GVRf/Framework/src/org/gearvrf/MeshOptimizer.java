@@ -0,0 +1,429 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gearvrf;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * The geometry half of {@link GVRMeshOptimizer}: triangle and vertex
+ * reordering for the GPU's post-transform vertex cache, in plain arrays,
+ * with no GL or native calls.
+ *
+ * <p>
+ * {@link #reorderTriangles()} is Tipsify (Sander, Nehab and Barczak, "Fast
+ * Triangle Reordering for Vertex Locality and Reduced Overdraw"): it fans
+ * out around one vertex at a time, and moves on to whichever vertex of the
+ * last fans is still in the cache and has few enough triangles left to be
+ * finished while it stays there. It runs in linear time, for any cache size.
+ *
+ * <p>
+ * {@link #reduceOverdraw(float[])} then splits the triangles into clusters
+ * - where Tipsify had to jump to a cold part of the mesh, and where a
+ * cluster's own cache behavior is already as good as the mesh's - and draws
+ * the clusters that face away from the mesh's center first, since they
+ * tend to hide the others. {@link #reorderVertices()} finally numbers the
+ * vertices in the order the triangles first use them, so vertex fetch walks
+ * memory forward.
+ */
+final class MeshOptimizer {
+
+    /** The smallest cluster {@link #reduceOverdraw(float[])} splits off */
+    private static final int MIN_CLUSTER_TRIANGLES = 8;
+
+    private final int mVertexCount;
+    private final int mCacheSize;
+    private char[] mTriangles;
+    /**
+     * First triangle of each run Tipsify started from a dead end, ascending;
+     * the first is always 0
+     */
+    private int[] mBoundaries = new int[] { 0 };
+    private int mBoundaryCount = 1;
+
+    MeshOptimizer(char[] triangles, int vertexCount, int cacheSize) {
+        if (triangles.length % 3 != 0) {
+            throw new IllegalArgumentException(
+                    "The index count should be a multiple of 3.");
+        }
+        if (cacheSize < 3) {
+            throw new IllegalArgumentException(
+                    "The cache should hold at least 3 vertices.");
+        }
+        mTriangles = triangles.clone();
+        mVertexCount = vertexCount;
+        mCacheSize = cacheSize;
+    }
+
+    char[] getTriangles() {
+        return mTriangles;
+    }
+
+    /** Reorders the triangles with Tipsify */
+    void reorderTriangles() {
+        final char[] triangles = mTriangles;
+        final int triangleCount = triangles.length / 3;
+
+        // Each vertex's triangles, in one array
+        int[] offsets = new int[mVertexCount + 1];
+        for (char index : triangles) {
+            ++offsets[index + 1];
+        }
+        int maxValence = 0;
+        for (int vertex = 0; vertex < mVertexCount; ++vertex) {
+            maxValence = Math.max(maxValence, offsets[vertex + 1]);
+            offsets[vertex + 1] += offsets[vertex];
+        }
+        int[] adjacency = new int[triangles.length];
+        int[] live = new int[mVertexCount];
+        for (int corner = 0; corner < triangles.length; ++corner) {
+            int vertex = triangles[corner];
+            adjacency[offsets[vertex] + live[vertex]++] = corner / 3;
+        }
+
+        // A vertex is in the cache while time - cacheTime <= cache size
+        int[] cacheTime = new int[mVertexCount];
+        int time = mCacheSize + 1;
+        boolean[] emitted = new boolean[triangleCount];
+        int[] deadEnds = new int[triangles.length];
+        int deadEndCount = 0;
+        int[] candidates = new int[3 * maxValence];
+        int[] cursor = new int[] { 0 };
+
+        char[] output = new char[triangles.length];
+        int outputCount = 0;
+        mBoundaries = new int[16];
+        mBoundaryCount = 0;
+
+        int fan = nextLiveVertex(live, cursor);
+        if (fan >= 0) {
+            mBoundaries[mBoundaryCount++] = 0;
+        }
+        while (fan >= 0) {
+            int candidateCount = 0;
+            for (int index = offsets[fan]; index < offsets[fan + 1]; ++index) {
+                int triangle = adjacency[index];
+                if (emitted[triangle]) {
+                    continue;
+                }
+                emitted[triangle] = true;
+                for (int corner = 3 * triangle; corner < 3 * triangle + 3; ++corner) {
+                    char vertex = triangles[corner];
+                    output[outputCount++] = vertex;
+                    deadEnds[deadEndCount++] = vertex;
+                    candidates[candidateCount++] = vertex;
+                    --live[vertex];
+                    if (time - cacheTime[vertex] > mCacheSize) {
+                        cacheTime[vertex] = time++;
+                    }
+                }
+            }
+
+            // The candidate that has been in the cache longest, of those
+            // that can still be finished before they drop out of it
+            int next = -1;
+            int bestPriority = -1;
+            for (int index = 0; index < candidateCount; ++index) {
+                int vertex = candidates[index];
+                if (live[vertex] > 0) {
+                    int priority = 0;
+                    if (time - cacheTime[vertex] + 2 * live[vertex] <= mCacheSize) {
+                        priority = time - cacheTime[vertex];
+                    }
+                    if (priority > bestPriority) {
+                        bestPriority = priority;
+                        next = vertex;
+                    }
+                }
+            }
+
+            if (next < 0) {
+                // Unwind the dead-end stack, or scan for any vertex with
+                // triangles left
+                while (deadEndCount > 0) {
+                    int vertex = deadEnds[--deadEndCount];
+                    if (live[vertex] > 0) {
+                        next = vertex;
+                        break;
+                    }
+                }
+                if (next < 0) {
+                    next = nextLiveVertex(live, cursor);
+                }
+                if (next >= 0) {
+                    addBoundary(outputCount / 3);
+                }
+            }
+            fan = next;
+        }
+
+        mTriangles = output;
+    }
+
+    /** The next vertex, in index order, with triangles left; or -1 */
+    private static int nextLiveVertex(int[] live, int[] cursor) {
+        while (cursor[0] < live.length) {
+            int vertex = cursor[0]++;
+            if (live[vertex] > 0) {
+                return vertex;
+            }
+        }
+        return -1;
+    }
+
+    private void addBoundary(int triangle) {
+        if (mBoundaryCount == mBoundaries.length) {
+            mBoundaries = Arrays.copyOf(mBoundaries, 2 * mBoundaryCount);
+        }
+        mBoundaries[mBoundaryCount++] = triangle;
+    }
+
+    /**
+     * Reorders clusters of triangles, outward-facing first, keeping the
+     * order within each cluster.
+     *
+     * @param positions
+     *            x, y, z per vertex
+     */
+    void reduceOverdraw(float[] positions) {
+        final char[] triangles = mTriangles;
+        final int triangleCount = triangles.length / 3;
+        if (triangleCount == 0) {
+            return;
+        }
+
+        int[] clusters = findClusters();
+        final int clusterCount = clusters.length - 1;
+
+        // Area-weighted centroids and normals, of each cluster and of the
+        // whole mesh
+        float[] centroids = new float[3 * clusterCount];
+        float[] normals = new float[3 * clusterCount];
+        float[] center = new float[3];
+        float totalArea = 0;
+        float[] normal = new float[3];
+        for (int cluster = 0; cluster < clusterCount; ++cluster) {
+            float area = 0;
+            for (int triangle = clusters[cluster]; triangle < clusters[cluster + 1]; ++triangle) {
+                int a = 3 * triangles[3 * triangle];
+                int b = 3 * triangles[3 * triangle + 1];
+                int c = 3 * triangles[3 * triangle + 2];
+                cross(positions, a, b, c, normal);
+                float triangleArea = 0.5f * length(normal, 0);
+                for (int axis = 0; axis < 3; ++axis) {
+                    normals[3 * cluster + axis] += normal[axis];
+                    centroids[3 * cluster + axis] += triangleArea
+                            * (positions[a + axis] + positions[b + axis] + positions[c
+                                    + axis]) / 3;
+                }
+                area += triangleArea;
+            }
+            for (int axis = 0; axis < 3; ++axis) {
+                center[axis] += centroids[3 * cluster + axis];
+                if (area > 0) {
+                    centroids[3 * cluster + axis] /= area;
+                }
+            }
+            totalArea += area;
+        }
+        if (totalArea > 0) {
+            for (int axis = 0; axis < 3; ++axis) {
+                center[axis] /= totalArea;
+            }
+        }
+
+        // How far out along its own normal each cluster is
+        final float[] keys = new float[clusterCount];
+        for (int cluster = 0; cluster < clusterCount; ++cluster) {
+            float normalLength = length(normals, 3 * cluster);
+            if (normalLength > 0) {
+                for (int axis = 0; axis < 3; ++axis) {
+                    keys[cluster] += (centroids[3 * cluster + axis] - center[axis])
+                            * normals[3 * cluster + axis] / normalLength;
+                }
+            }
+        }
+
+        Integer[] order = new Integer[clusterCount];
+        for (int cluster = 0; cluster < clusterCount; ++cluster) {
+            order[cluster] = cluster;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer lhs, Integer rhs) {
+                return Float.compare(keys[rhs], keys[lhs]);
+            }
+        });
+
+        char[] output = new char[triangles.length];
+        int outputCount = 0;
+        for (Integer cluster : order) {
+            int start = 3 * clusters[cluster];
+            int end = 3 * clusters[cluster + 1];
+            System.arraycopy(triangles, start, output, outputCount, end - start);
+            outputCount += end - start;
+        }
+        mTriangles = output;
+        mBoundaries = new int[] { 0 };
+        mBoundaryCount = 1;
+    }
+
+    /**
+     * Tipsify's dead-end boundaries, with each run split again wherever the
+     * cluster so far, on a cold cache, is doing at least as well as the whole
+     * mesh. Returns the first triangle of each cluster, then the triangle
+     * count.
+     */
+    private int[] findClusters() {
+        final char[] triangles = mTriangles;
+        final int triangleCount = triangles.length / 3;
+        float threshold = (float) countCacheMisses(triangles, mVertexCount,
+                mCacheSize) / triangleCount;
+
+        int[] clusters = new int[mBoundaryCount + 1];
+        int clusterCount = 0;
+        int[] entry = new int[mVertexCount];
+        Arrays.fill(entry, Integer.MIN_VALUE / 2);
+        int misses = 0;
+
+        for (int run = 0; run < mBoundaryCount; ++run) {
+            int end = run + 1 < mBoundaryCount ? mBoundaries[run + 1]
+                    : triangleCount;
+            int clusterStart = mBoundaries[run];
+            int clusterMisses = 0;
+            int coldSince = misses;
+            for (int triangle = mBoundaries[run]; triangle < end; ++triangle) {
+                if (triangle == clusterStart) {
+                    if (clusterCount + 1 == clusters.length) {
+                        clusters = Arrays.copyOf(clusters, 2 * clusters.length);
+                    }
+                    clusters[clusterCount++] = clusterStart;
+                    coldSince = misses;
+                    clusterMisses = 0;
+                }
+                for (int corner = 3 * triangle; corner < 3 * triangle + 3; ++corner) {
+                    int vertex = triangles[corner];
+                    if (entry[vertex] < coldSince
+                            || misses - entry[vertex] > mCacheSize) {
+                        entry[vertex] = misses++;
+                        ++clusterMisses;
+                    }
+                }
+                int clusterTriangles = triangle + 1 - clusterStart;
+                if (clusterTriangles >= MIN_CLUSTER_TRIANGLES
+                        && clusterMisses < threshold * clusterTriangles) {
+                    clusterStart = triangle + 1;
+                }
+            }
+        }
+
+        clusters[clusterCount] = triangleCount;
+        return Arrays.copyOf(clusters, clusterCount + 1);
+    }
+
+    /**
+     * Renumbers the vertices in the order the triangles first use them;
+     * vertices no triangle uses go last, in their old order.
+     *
+     * @return The new index of each old vertex, for
+     *         {@link #remap(float[], int, int[])}
+     */
+    int[] reorderVertices() {
+        int[] remap = new int[mVertexCount];
+        Arrays.fill(remap, -1);
+        int next = 0;
+        for (char vertex : mTriangles) {
+            if (remap[vertex] < 0) {
+                remap[vertex] = next++;
+            }
+        }
+        for (int vertex = 0; vertex < mVertexCount; ++vertex) {
+            if (remap[vertex] < 0) {
+                remap[vertex] = next++;
+            }
+        }
+        for (int corner = 0; corner < mTriangles.length; ++corner) {
+            mTriangles[corner] = (char) remap[mTriangles[corner]];
+        }
+        return remap;
+    }
+
+    /**
+     * Moves each vertex's {@code components} values to its new index.
+     *
+     * @return A new array; or {@code data} itself, if it is {@code null} or
+     *         empty
+     */
+    static float[] remap(float[] data, int components, int[] remap) {
+        if (data == null || data.length == 0) {
+            return data;
+        }
+        float[] output = new float[data.length];
+        for (int vertex = 0; vertex < remap.length; ++vertex) {
+            System.arraycopy(data, vertex * components, output, remap[vertex]
+                    * components, components);
+        }
+        return output;
+    }
+
+    /** Cache misses drawing the triangles in order, with a FIFO cache */
+    static int countCacheMisses(char[] triangles, int vertexCount,
+            int cacheSize) {
+        // A vertex is in the cache until cacheSize more misses push it out
+        int[] entry = new int[vertexCount];
+        Arrays.fill(entry, Integer.MIN_VALUE / 2);
+        int misses = 0;
+        for (char vertex : triangles) {
+            if (misses - entry[vertex] > cacheSize) {
+                entry[vertex] = misses++;
+            }
+        }
+        return misses;
+    }
+
+    /** The number of different vertices the triangles use */
+    static int countUsedVertices(char[] triangles, int vertexCount) {
+        boolean[] used = new boolean[vertexCount];
+        int count = 0;
+        for (char vertex : triangles) {
+            if (!used[vertex]) {
+                used[vertex] = true;
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    private static void cross(float[] positions, int a, int b, int c,
+            float[] out) {
+        float abx = positions[b] - positions[a];
+        float aby = positions[b + 1] - positions[a + 1];
+        float abz = positions[b + 2] - positions[a + 2];
+        float acx = positions[c] - positions[a];
+        float acy = positions[c + 1] - positions[a + 1];
+        float acz = positions[c + 2] - positions[a + 2];
+        out[0] = aby * acz - abz * acy;
+        out[1] = abz * acx - abx * acz;
+        out[2] = abx * acy - aby * acx;
+    }
+
+    private static float length(float[] vector, int offset) {
+        return (float) Math.sqrt(vector[offset] * vector[offset]
+                + vector[offset + 1] * vector[offset + 1] + vector[offset + 2]
+                * vector[offset + 2]);
+    }
+}
@@ -0,0 +1,791 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * The geometry half of {@link GVRLODGenerator}: quadric error metric edge
+ * collapse (Garland and Heckbert), in plain arrays, with no GL or native
+ * calls.
+ *
+ * <p>
+ * Vertices that share a position are welded, so the mesh is simplified as
+ * one surface. A position with several different normals or texture
+ * coordinates - a UV seam, or a hard edge - never moves, so seams stay
+ * closed; other vertices interpolate their normal and texture coordinates
+ * along the collapsed edge. Open borders are held in place by extra planes,
+ * and a collapse that would flip a triangle is rejected.
+ *
+ * <p>
+ * {@link #simplify(int)} can be called repeatedly with smaller and smaller
+ * targets: each call continues from where the last one stopped.
+ */
+final class MeshSimplifier {
+
+    /** How much more a border plane weighs than a face plane */
+    private static final double BORDER_WEIGHT = 100;
+
+    /** One level of detail */
+    static final class Level {
+        final float[] vertices;
+        final float[] normals; // null if the mesh had none
+        final float[] texCoords; // null if the mesh had none
+        final char[] triangles;
+        /**
+         * Quadric error of the worst collapse so far, as a distance in model
+         * units: the root of the summed squared distances from the collapsed
+         * vertex to the original faces it absorbed. It overestimates the true
+         * deviation, more so at coarse levels, but never decreases, so it
+         * ranks levels.
+         */
+        final float error;
+
+        private Level(float[] vertices, float[] normals, float[] texCoords,
+                char[] triangles, float error) {
+            this.vertices = vertices;
+            this.normals = normals;
+            this.texCoords = texCoords;
+            this.triangles = triangles;
+            this.error = error;
+        }
+
+        int getTriangleCount() {
+            return triangles.length / 3;
+        }
+    }
+
+    /** A possible collapse of node {@code from} into node {@code to} */
+    private static final class Candidate implements Comparable<Candidate> {
+        final double cost;
+        final int from;
+        final int to;
+        final int fromVersion;
+        final int toVersion;
+        final double x, y, z;
+        /** Where the new position lies, from {@code from} (0) to {@code to} (1) */
+        final double t;
+
+        Candidate(double cost, int from, int to, int fromVersion,
+                int toVersion, double x, double y, double z, double t) {
+            this.cost = cost;
+            this.from = from;
+            this.to = to;
+            this.fromVersion = fromVersion;
+            this.toVersion = toVersion;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.t = t;
+        }
+
+        @Override
+        public int compareTo(Candidate another) {
+            return Double.compare(cost, another.cost);
+        }
+    }
+
+    /*
+     * A wedge is a distinct (position, normal, texture coordinate) vertex; a
+     * node is a distinct position. Triangles refer to both.
+     */
+    private final float[] normals;
+    private final float[] texCoords;
+    private final int[] wedgeNode;
+
+    private final double[] positions;
+    private final double[] quadrics;
+    /** Just the face planes, to measure the error in model units */
+    private final double[] faceQuadrics;
+    /** The node's only wedge, or -1 for a seam node */
+    private final int[] nodeWedge;
+    private final boolean[] nodeRemoved;
+    private final int[] nodeVersion;
+    private final int[][] nodeTriangles;
+    private final int[] nodeTriangleCount;
+
+    private final int[] triangleNodes;
+    private final int[] triangleWedges;
+    private final boolean[] triangleRemoved;
+    private int liveTriangles;
+
+    private final PriorityQueue<Candidate> queue = new PriorityQueue<Candidate>();
+    private final int[] marks;
+    private int markStamp = 0;
+    private double maxError = 0;
+
+    /**
+     * @param vertices
+     *            x, y, z per vertex
+     * @param normals
+     *            x, y, z per vertex, or null
+     * @param texCoords
+     *            u, v per vertex, or null
+     * @param triangles
+     *            Three indices per triangle
+     */
+    MeshSimplifier(float[] vertices, float[] normals, float[] texCoords,
+            char[] triangles) {
+        int vertexCount = vertices.length / 3;
+        this.normals = normals != null && normals.length == vertexCount * 3 ? normals
+                .clone() : null;
+        this.texCoords = texCoords != null
+                && texCoords.length == vertexCount * 2 ? texCoords.clone()
+                : null;
+
+        // Merge identical vertices into wedges, and wedges into nodes
+        int[] vertexWedge = new int[vertexCount];
+        wedgeNode = new int[vertexCount];
+        Map<AttributeKey, Integer> wedges = new HashMap<AttributeKey, Integer>();
+        Map<AttributeKey, Integer> nodes = new HashMap<AttributeKey, Integer>();
+        int nodeCount = 0;
+        for (int vertex = 0; vertex < vertexCount; ++vertex) {
+            AttributeKey wedgeKey = new AttributeKey(vertices, normals,
+                    texCoords, vertex, this.normals != null,
+                    this.texCoords != null);
+            Integer wedge = wedges.get(wedgeKey);
+            if (wedge == null) {
+                wedge = vertex;
+                wedges.put(wedgeKey, wedge);
+
+                AttributeKey nodeKey = new AttributeKey(vertices, null, null,
+                        vertex, false, false);
+                Integer node = nodes.get(nodeKey);
+                if (node == null) {
+                    node = nodeCount++;
+                    nodes.put(nodeKey, node);
+                }
+                wedgeNode[vertex] = node;
+            }
+            vertexWedge[vertex] = wedge;
+        }
+
+        positions = new double[nodeCount * 3];
+        quadrics = new double[nodeCount * 10];
+        faceQuadrics = new double[nodeCount * 10];
+        nodeWedge = new int[nodeCount];
+        Arrays.fill(nodeWedge, Integer.MIN_VALUE);
+        for (Integer wedge : wedges.values()) {
+            int node = wedgeNode[wedge];
+            for (int axis = 0; axis < 3; ++axis) {
+                positions[node * 3 + axis] = vertices[wedge * 3 + axis];
+            }
+            nodeWedge[node] = nodeWedge[node] == Integer.MIN_VALUE ? wedge
+                    : -1;
+        }
+        nodeRemoved = new boolean[nodeCount];
+        nodeVersion = new int[nodeCount];
+        marks = new int[nodeCount];
+
+        // Drop triangles that are degenerate to begin with
+        int triangleCount = 0;
+        int[] triangleNodes = new int[triangles.length - triangles.length % 3];
+        int[] triangleWedges = new int[triangleNodes.length];
+        for (int index = 0; index < triangleNodes.length; index += 3) {
+            int w0 = vertexWedge[triangles[index]];
+            int w1 = vertexWedge[triangles[index + 1]];
+            int w2 = vertexWedge[triangles[index + 2]];
+            int n0 = wedgeNode[w0], n1 = wedgeNode[w1], n2 = wedgeNode[w2];
+            if (n0 == n1 || n1 == n2 || n2 == n0) {
+                continue;
+            }
+            int out = triangleCount * 3;
+            triangleWedges[out] = w0;
+            triangleWedges[out + 1] = w1;
+            triangleWedges[out + 2] = w2;
+            triangleNodes[out] = n0;
+            triangleNodes[out + 1] = n1;
+            triangleNodes[out + 2] = n2;
+            ++triangleCount;
+        }
+        this.triangleNodes = Arrays.copyOf(triangleNodes, triangleCount * 3);
+        this.triangleWedges = Arrays.copyOf(triangleWedges, triangleCount * 3);
+        triangleRemoved = new boolean[triangleCount];
+        liveTriangles = triangleCount;
+
+        // Node to triangle adjacency
+        nodeTriangleCount = new int[nodeCount];
+        for (int index = 0; index < this.triangleNodes.length; ++index) {
+            nodeTriangleCount[this.triangleNodes[index]] += 1;
+        }
+        nodeTriangles = new int[nodeCount][];
+        for (int node = 0; node < nodeCount; ++node) {
+            nodeTriangles[node] = new int[nodeTriangleCount[node]];
+            nodeTriangleCount[node] = 0;
+        }
+        for (int index = 0; index < this.triangleNodes.length; ++index) {
+            int node = this.triangleNodes[index];
+            nodeTriangles[node][nodeTriangleCount[node]++] = index / 3;
+        }
+
+        addFaceQuadrics();
+        addBorderQuadrics();
+
+        for (int triangle = 0; triangle < triangleCount; ++triangle) {
+            for (int corner = 0; corner < 3; ++corner) {
+                int a = this.triangleNodes[triangle * 3 + corner];
+                int b = this.triangleNodes[triangle * 3 + (corner + 1) % 3];
+                // Each interior edge is seen twice; only queue it once
+                if (a < b || isBorderEdge(a, b)) {
+                    push(a, b);
+                }
+            }
+        }
+    }
+
+    int getTriangleCount() {
+        return liveTriangles;
+    }
+
+    /**
+     * Collapse edges, cheapest first, until there are no more than
+     * {@code targetTriangles} triangles or nothing more can be collapsed.
+     */
+    Level simplify(int targetTriangles) {
+        while (liveTriangles > targetTriangles && queue.isEmpty() == false) {
+            Candidate candidate = queue.poll();
+            if (nodeRemoved[candidate.from] || nodeRemoved[candidate.to]
+                    || nodeVersion[candidate.from] != candidate.fromVersion
+                    || nodeVersion[candidate.to] != candidate.toVersion) {
+                continue; // stale
+            }
+            collapse(candidate);
+        }
+        return getLevel();
+    }
+
+    /** The mesh as it is now */
+    Level getLevel() {
+        int[] remap = new int[wedgeNode.length];
+        Arrays.fill(remap, -1);
+        int vertexCount = 0;
+        char[] triangles = new char[liveTriangles * 3];
+        int out = 0;
+        for (int triangle = 0; triangle < triangleRemoved.length; ++triangle) {
+            if (triangleRemoved[triangle]) {
+                continue;
+            }
+            for (int corner = 0; corner < 3; ++corner) {
+                int wedge = triangleWedges[triangle * 3 + corner];
+                if (remap[wedge] < 0) {
+                    remap[wedge] = vertexCount++;
+                }
+                triangles[out++] = (char) remap[wedge];
+            }
+        }
+
+        float[] vertices = new float[vertexCount * 3];
+        float[] normals = this.normals != null ? new float[vertexCount * 3]
+                : null;
+        float[] texCoords = this.texCoords != null ? new float[vertexCount * 2]
+                : null;
+        for (int wedge = 0; wedge < remap.length; ++wedge) {
+            int vertex = remap[wedge];
+            if (vertex < 0) {
+                continue;
+            }
+            int node = wedgeNode[wedge];
+            for (int axis = 0; axis < 3; ++axis) {
+                vertices[vertex * 3 + axis] = (float) positions[node * 3 + axis];
+            }
+            if (normals != null) {
+                System.arraycopy(this.normals, wedge * 3, normals, vertex * 3,
+                        3);
+            }
+            if (texCoords != null) {
+                System.arraycopy(this.texCoords, wedge * 2, texCoords,
+                        vertex * 2, 2);
+            }
+        }
+        return new Level(vertices, normals, texCoords, triangles,
+                (float) maxError);
+    }
+
+    private void collapse(Candidate candidate) {
+        final int from = candidate.from;
+        final int to = candidate.to;
+
+        if (isLinkConditionMet(from, to) == false) {
+            return;
+        }
+
+        // A seam node keeps its wedges: triangles that move onto it must all
+        // agree on which one they are next to
+        int toWedge = nodeWedge[to];
+        if (toWedge < 0) {
+            for (int i = 0; i < nodeTriangleCount[from]; ++i) {
+                int triangle = nodeTriangles[from][i];
+                int corner = cornerOf(triangle, to);
+                if (corner < 0) {
+                    continue;
+                }
+                int wedge = triangleWedges[triangle * 3 + corner];
+                if (toWedge >= 0 && toWedge != wedge) {
+                    return;
+                }
+                toWedge = wedge;
+            }
+            if (toWedge < 0) {
+                return;
+            }
+        }
+
+        boolean toMoves = candidate.x != positions[to * 3]
+                || candidate.y != positions[to * 3 + 1]
+                || candidate.z != positions[to * 3 + 2];
+        if (flips(from, to, candidate)
+                || (toMoves && flips(to, from, candidate))) {
+            return;
+        }
+
+        // Move the triangles around from onto to, and drop the ones that
+        // shared the edge
+        int[] merged = new int[nodeTriangleCount[from] + nodeTriangleCount[to]];
+        int mergedCount = 0;
+        for (int i = 0; i < nodeTriangleCount[to]; ++i) {
+            int triangle = nodeTriangles[to][i];
+            if (cornerOf(triangle, from) < 0) {
+                merged[mergedCount++] = triangle;
+            }
+        }
+        for (int i = 0; i < nodeTriangleCount[from]; ++i) {
+            int triangle = nodeTriangles[from][i];
+            if (cornerOf(triangle, to) >= 0) {
+                triangleRemoved[triangle] = true;
+                --liveTriangles;
+                // The third corner still lists it
+                for (int corner = 0; corner < 3; ++corner) {
+                    int node = triangleNodes[triangle * 3 + corner];
+                    if (node != from && node != to) {
+                        removeTriangle(node, triangle);
+                    }
+                }
+                continue;
+            }
+            int corner = cornerOf(triangle, from);
+            triangleNodes[triangle * 3 + corner] = to;
+            triangleWedges[triangle * 3 + corner] = toWedge;
+            merged[mergedCount++] = triangle;
+        }
+        nodeTriangles[to] = merged;
+        nodeTriangleCount[to] = mergedCount;
+        nodeTriangles[from] = null;
+        nodeTriangleCount[from] = 0;
+
+        // Interpolate the surviving wedge's attributes along the edge
+        int fromWedge = nodeWedge[from];
+        if (nodeWedge[to] >= 0) {
+            double t = candidate.t;
+            if (normals != null) {
+                lerp(normals, fromWedge * 3, toWedge * 3, 3, t);
+                normalize(normals, toWedge * 3);
+            }
+            if (texCoords != null) {
+                lerp(texCoords, fromWedge * 2, toWedge * 2, 2, t);
+            }
+            positions[to * 3] = candidate.x;
+            positions[to * 3 + 1] = candidate.y;
+            positions[to * 3 + 2] = candidate.z;
+        }
+        double[] q = new double[10];
+        for (int index = 0; index < 10; ++index) {
+            quadrics[to * 10 + index] += quadrics[from * 10 + index];
+            faceQuadrics[to * 10 + index] += faceQuadrics[from * 10 + index];
+            q[index] = faceQuadrics[to * 10 + index];
+        }
+        double error = evaluate(q, new double[] { candidate.x, candidate.y,
+                candidate.z });
+        maxError = Math.max(maxError, Math.sqrt(Math.max(0, error)));
+        // Wedges of from that are still referenced now belong to to
+        wedgeNode[fromWedge] = to;
+
+        nodeRemoved[from] = true;
+        nodeVersion[from] += 1;
+        nodeVersion[to] += 1;
+
+        // Every edge around to has a new cost
+        int stamp = nextMarkStamp();
+        marks[to] = stamp;
+        for (int i = 0; i < nodeTriangleCount[to]; ++i) {
+            int triangle = nodeTriangles[to][i];
+            for (int corner = 0; corner < 3; ++corner) {
+                int node = triangleNodes[triangle * 3 + corner];
+                if (marks[node] != stamp) {
+                    marks[node] = stamp;
+                    push(to, node);
+                }
+            }
+        }
+    }
+
+    private void removeTriangle(int node, int triangle) {
+        int[] triangles = nodeTriangles[node];
+        int count = nodeTriangleCount[node];
+        for (int i = 0; i < count; ++i) {
+            if (triangles[i] == triangle) {
+                triangles[i] = triangles[count - 1];
+                nodeTriangleCount[node] = count - 1;
+                return;
+            }
+        }
+    }
+
+    /**
+     * A collapse keeps the mesh manifold only if the nodes next to both ends
+     * are exactly the far corners of the triangles on the edge.
+     */
+    private boolean isLinkConditionMet(int from, int to) {
+        int stamp = nextMarkStamp();
+        for (int i = 0; i < nodeTriangleCount[from]; ++i) {
+            int triangle = nodeTriangles[from][i];
+            for (int corner = 0; corner < 3; ++corner) {
+                marks[triangleNodes[triangle * 3 + corner]] = stamp;
+            }
+        }
+        int sharedTriangles = 0;
+        for (int i = 0; i < nodeTriangleCount[to]; ++i) {
+            if (cornerOf(nodeTriangles[to][i], from) >= 0) {
+                ++sharedTriangles;
+            }
+        }
+
+        int sharedNeighbors = 0;
+        int nextStamp = nextMarkStamp();
+        for (int i = 0; i < nodeTriangleCount[to]; ++i) {
+            int triangle = nodeTriangles[to][i];
+            for (int corner = 0; corner < 3; ++corner) {
+                int node = triangleNodes[triangle * 3 + corner];
+                if (node != from && node != to && marks[node] == stamp) {
+                    marks[node] = nextStamp;
+                    ++sharedNeighbors;
+                }
+            }
+        }
+        return sharedTriangles > 0 && sharedTriangles <= 2
+                && sharedNeighbors == sharedTriangles;
+    }
+
+    /**
+     * Would moving {@code node} to the candidate position turn any of its
+     * triangles - other than those on the edge - over?
+     */
+    private boolean flips(int node, int other, Candidate candidate) {
+        double[] before = new double[3];
+        double[] after = new double[3];
+        for (int i = 0; i < nodeTriangleCount[node]; ++i) {
+            int triangle = nodeTriangles[node][i];
+            if (cornerOf(triangle, other) >= 0) {
+                continue;
+            }
+            int corner = cornerOf(triangle, node);
+            int n1 = triangleNodes[triangle * 3 + (corner + 1) % 3];
+            int n2 = triangleNodes[triangle * 3 + (corner + 2) % 3];
+            normal(positions[node * 3], positions[node * 3 + 1],
+                    positions[node * 3 + 2], n1, n2, before);
+            normal(candidate.x, candidate.y, candidate.z, n1, n2, after);
+            if (before[0] * after[0] + before[1] * after[1] + before[2]
+                    * after[2] <= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Unnormalized normal of the triangle (x, y, z), n1, n2 */
+    private void normal(double x, double y, double z, int n1, int n2,
+            double[] out) {
+        double ux = positions[n1 * 3] - x;
+        double uy = positions[n1 * 3 + 1] - y;
+        double uz = positions[n1 * 3 + 2] - z;
+        double vx = positions[n2 * 3] - x;
+        double vy = positions[n2 * 3 + 1] - y;
+        double vz = positions[n2 * 3 + 2] - z;
+        out[0] = uy * vz - uz * vy;
+        out[1] = uz * vx - ux * vz;
+        out[2] = ux * vy - uy * vx;
+    }
+
+    /** Queue the cheapest way to collapse the edge between a and b */
+    private void push(int a, int b) {
+        boolean aSeam = nodeWedge[a] < 0;
+        boolean bSeam = nodeWedge[b] < 0;
+        if (aSeam && bSeam) {
+            return;
+        }
+
+        double[] q = new double[10];
+        for (int index = 0; index < 10; ++index) {
+            q[index] = quadrics[a * 10 + index] + quadrics[b * 10 + index];
+        }
+
+        // Seam nodes stay put; otherwise solve for the best position, and
+        // fall back to the best of the ends and the middle
+        int from = aSeam ? b : a;
+        int to = aSeam ? a : b;
+        double[] best = null;
+        double bestCost = Double.MAX_VALUE;
+        if (aSeam == false && bSeam == false) {
+            double[] optimal = solve(q);
+            if (optimal != null) {
+                best = optimal;
+                bestCost = evaluate(q, optimal);
+            }
+        }
+        if (best == null) {
+            double[][] choices = aSeam || bSeam ? new double[][] { position(to) }
+                    : new double[][] { position(a), position(b), midpoint(a, b) };
+            for (double[] choice : choices) {
+                double cost = evaluate(q, choice);
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    best = choice;
+                }
+            }
+        }
+
+        queue.add(new Candidate(Math.max(0, bestCost), from, to,
+                nodeVersion[from], nodeVersion[to], best[0], best[1], best[2],
+                edgeParameter(from, to, best)));
+    }
+
+    private double[] position(int node) {
+        return new double[] { positions[node * 3], positions[node * 3 + 1],
+                positions[node * 3 + 2] };
+    }
+
+    private double[] midpoint(int a, int b) {
+        return new double[] { (positions[a * 3] + positions[b * 3]) / 2,
+                (positions[a * 3 + 1] + positions[b * 3 + 1]) / 2,
+                (positions[a * 3 + 2] + positions[b * 3 + 2]) / 2 };
+    }
+
+    /** Projection of p on the edge, from 0 at from to 1 at to */
+    private double edgeParameter(int from, int to, double[] p) {
+        double ex = positions[to * 3] - positions[from * 3];
+        double ey = positions[to * 3 + 1] - positions[from * 3 + 1];
+        double ez = positions[to * 3 + 2] - positions[from * 3 + 2];
+        double length2 = ex * ex + ey * ey + ez * ez;
+        if (length2 == 0) {
+            return 1;
+        }
+        double t = ((p[0] - positions[from * 3]) * ex
+                + (p[1] - positions[from * 3 + 1]) * ey + (p[2] - positions[from * 3 + 2])
+                * ez)
+                / length2;
+        return Math.max(0, Math.min(1, t));
+    }
+
+    private void addFaceQuadrics() {
+        double[] plane = new double[4];
+        for (int triangle = 0; triangle < triangleRemoved.length; ++triangle) {
+            int n0 = triangleNodes[triangle * 3];
+            int n1 = triangleNodes[triangle * 3 + 1];
+            int n2 = triangleNodes[triangle * 3 + 2];
+            normal(positions[n0 * 3], positions[n0 * 3 + 1],
+                    positions[n0 * 3 + 2], n1, n2, plane);
+            if (toPlane(plane, n0)) {
+                for (int corner = 0; corner < 3; ++corner) {
+                    int node = triangleNodes[triangle * 3 + corner];
+                    addPlane(quadrics, node, plane, 1);
+                    addPlane(faceQuadrics, node, plane, 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Hold open borders in place with a plane through each border edge,
+     * perpendicular to its triangle
+     */
+    private void addBorderQuadrics() {
+        double[] face = new double[3];
+        double[] plane = new double[4];
+        for (int triangle = 0; triangle < triangleRemoved.length; ++triangle) {
+            for (int corner = 0; corner < 3; ++corner) {
+                int a = triangleNodes[triangle * 3 + corner];
+                int b = triangleNodes[triangle * 3 + (corner + 1) % 3];
+                if (isBorderEdge(a, b) == false) {
+                    continue;
+                }
+                int c = triangleNodes[triangle * 3 + (corner + 2) % 3];
+                normal(positions[a * 3], positions[a * 3 + 1],
+                        positions[a * 3 + 2], b, c, face);
+                double ex = positions[b * 3] - positions[a * 3];
+                double ey = positions[b * 3 + 1] - positions[a * 3 + 1];
+                double ez = positions[b * 3 + 2] - positions[a * 3 + 2];
+                plane[0] = ey * face[2] - ez * face[1];
+                plane[1] = ez * face[0] - ex * face[2];
+                plane[2] = ex * face[1] - ey * face[0];
+                if (toPlane(plane, a)) {
+                    addPlane(quadrics, a, plane, BORDER_WEIGHT);
+                    addPlane(quadrics, b, plane, BORDER_WEIGHT);
+                }
+            }
+        }
+    }
+
+    /** Is a-b an edge of exactly one triangle? */
+    private boolean isBorderEdge(int a, int b) {
+        int count = 0;
+        for (int i = 0; i < nodeTriangleCount[a]; ++i) {
+            if (cornerOf(nodeTriangles[a][i], b) >= 0) {
+                ++count;
+            }
+        }
+        return count == 1;
+    }
+
+    /**
+     * Normalize the normal in plane[0..2], and set plane[3] so the plane goes
+     * through node. Returns false for a degenerate normal.
+     */
+    private boolean toPlane(double[] plane, int node) {
+        double length = Math.sqrt(plane[0] * plane[0] + plane[1] * plane[1]
+                + plane[2] * plane[2]);
+        if (length == 0) {
+            return false;
+        }
+        plane[0] /= length;
+        plane[1] /= length;
+        plane[2] /= length;
+        plane[3] = -(plane[0] * positions[node * 3] + plane[1]
+                * positions[node * 3 + 1] + plane[2] * positions[node * 3 + 2]);
+        return true;
+    }
+
+    /*
+     * A quadric is the symmetric 4x4 matrix p p^T, summed over planes p;
+     * stored as its upper triangle: aa ab ac ad bb bc bd cc cd dd
+     */
+
+    private static void addPlane(double[] quadrics, int node, double[] p,
+            double weight) {
+        int q = node * 10;
+        quadrics[q] += weight * p[0] * p[0];
+        quadrics[q + 1] += weight * p[0] * p[1];
+        quadrics[q + 2] += weight * p[0] * p[2];
+        quadrics[q + 3] += weight * p[0] * p[3];
+        quadrics[q + 4] += weight * p[1] * p[1];
+        quadrics[q + 5] += weight * p[1] * p[2];
+        quadrics[q + 6] += weight * p[1] * p[3];
+        quadrics[q + 7] += weight * p[2] * p[2];
+        quadrics[q + 8] += weight * p[2] * p[3];
+        quadrics[q + 9] += weight * p[3] * p[3];
+    }
+
+    /** Sum of squared distances from v to the quadric's planes */
+    static double evaluate(double[] q, double[] v) {
+        double x = v[0], y = v[1], z = v[2];
+        return q[0] * x * x + 2 * q[1] * x * y + 2 * q[2] * x * z + 2 * q[3]
+                * x + q[4] * y * y + 2 * q[5] * y * z + 2 * q[6] * y + q[7]
+                * z * z + 2 * q[8] * z + q[9];
+    }
+
+    /** The point that minimizes the quadric, or null if it isn't unique */
+    static double[] solve(double[] q) {
+        double a = q[0], b = q[1], c = q[2];
+        double d = q[4], e = q[5];
+        double f = q[7];
+        double det = a * (d * f - e * e) - b * (b * f - e * c) + c
+                * (b * e - d * c);
+        // Relative to the scale of the quadric, so tiny models still solve
+        double scale = a + d + f;
+        if (Math.abs(det) <= 1e-9 * scale * scale * scale) {
+            return null;
+        }
+        // Cramer's rule on A x = -(ad, bd, cd)
+        double r0 = -q[3], r1 = -q[6], r2 = -q[8];
+        double x = (r0 * (d * f - e * e) - b * (r1 * f - e * r2) + c
+                * (r1 * e - d * r2))
+                / det;
+        double y = (a * (r1 * f - e * r2) - r0 * (b * f - e * c) + c
+                * (b * r2 - r1 * c))
+                / det;
+        double z = (a * (d * r2 - r1 * e) - b * (b * r2 - r1 * c) + r0
+                * (b * e - d * c))
+                / det;
+        return new double[] { x, y, z };
+    }
+
+    private int cornerOf(int triangle, int node) {
+        int base = triangle * 3;
+        if (triangleNodes[base] == node) {
+            return 0;
+        }
+        if (triangleNodes[base + 1] == node) {
+            return 1;
+        }
+        return triangleNodes[base + 2] == node ? 2 : -1;
+    }
+
+    private int nextMarkStamp() {
+        return ++markStamp;
+    }
+
+    /** values[to..] = values[from..] * (1 - t) + values[to..] * t */
+    private static void lerp(float[] values, int from, int to, int count,
+            double t) {
+        for (int index = 0; index < count; ++index) {
+            values[to + index] = (float) (values[from + index] * (1 - t) + values[to
+                    + index]
+                    * t);
+        }
+    }
+
+    private static void normalize(float[] values, int offset) {
+        float x = values[offset], y = values[offset + 1], z = values[offset + 2];
+        float length = (float) Math.sqrt(x * x + y * y + z * z);
+        if (length > 0) {
+            values[offset] = x / length;
+            values[offset + 1] = y / length;
+            values[offset + 2] = z / length;
+        }
+    }
+
+    /** Exact match on a vertex's position, and optionally its attributes */
+    private static final class AttributeKey {
+        private final float[] values;
+        private final int hash;
+
+        AttributeKey(float[] vertices, float[] normals, float[] texCoords,
+                int vertex, boolean withNormal, boolean withTexCoord) {
+            int length = 3 + (withNormal ? 3 : 0) + (withTexCoord ? 2 : 0);
+            values = new float[length];
+            System.arraycopy(vertices, vertex * 3, values, 0, 3);
+            if (withNormal) {
+                System.arraycopy(normals, vertex * 3, values, 3, 3);
+            }
+            if (withTexCoord) {
+                System.arraycopy(texCoords, vertex * 2, values, length - 2, 2);
+            }
+            hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof AttributeKey
+                    && Arrays.equals(values, ((AttributeKey) o).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
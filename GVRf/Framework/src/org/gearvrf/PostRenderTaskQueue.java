@@ -0,0 +1,144 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+/**
+ * The {@link GVRContext#runOnGlThreadPostRender(int, Runnable)} queue.
+ *
+ * <p>
+ * Tasks are kept in a ring of per-frame FIFO buckets, indexed by the number
+ * of the frame they should run after. Adding a task is O(1); each frame only
+ * touches the tasks that are due, and runs them in the order they were added.
+ * A task scheduled more than {@link #BUCKETS} frames out shares a bucket with
+ * nearer tasks, and is simply carried over until its frame comes around.
+ *
+ * <p>
+ * Task nodes are recycled, so once the queue has seen its peak load it does
+ * not allocate. Tasks may be added from any thread; they always run on the GL
+ * thread, in {@link #runDueTasks()}, without the queue's lock held.
+ */
+final class PostRenderTaskQueue {
+
+    private static final int BUCKETS = 64;
+    private static final int BUCKET_MASK = BUCKETS - 1;
+
+    private final Object mLock = new Object();
+    private final Task[] mHeads = new Task[BUCKETS];
+    private final Task[] mTails = new Task[BUCKETS];
+    /** Recycled nodes */
+    private Task mFree = null;
+
+    /** The frame the next {@link #runDueTasks()} call will process */
+    private long mFrame = 0;
+
+    /**
+     * Add a task.
+     *
+     * @param delayFrames
+     *            Number of frames to delay the task. 0 means it will run after
+     *            the next frame is rendered.
+     * @param runnable
+     *            The task
+     */
+    void add(int delayFrames, Runnable runnable) {
+        synchronized (mLock) {
+            Task task = mFree;
+            if (task != null) {
+                mFree = task.mNext;
+                task.mNext = null;
+            } else {
+                task = new Task();
+            }
+
+            task.mRunnable = runnable;
+            task.mFrame = mFrame + Math.max(0, delayFrames);
+            append(task);
+        }
+    }
+
+    /**
+     * Run every task that is due this frame, and advance to the next frame.
+     *
+     * Tasks added while this runs - even with a zero delay - will run after
+     * the next frame.
+     */
+    void runDueTasks() {
+        Task due = null;
+        synchronized (mLock) {
+            long frame = mFrame;
+            mFrame = frame + 1;
+
+            int bucket = (int) (frame & BUCKET_MASK);
+            Task task = mHeads[bucket];
+            if (task == null) {
+                return;
+            }
+            mHeads[bucket] = mTails[bucket] = null;
+
+            // Split the bucket: due tasks stay in order on the local list,
+            // tasks for a later lap of the ring go back into the bucket
+            Task dueTail = null;
+            while (task != null) {
+                Task next = task.mNext;
+                task.mNext = null;
+                if (task.mFrame <= frame) {
+                    if (dueTail == null) {
+                        due = task;
+                    } else {
+                        dueTail.mNext = task;
+                    }
+                    dueTail = task;
+                } else {
+                    append(task);
+                }
+                task = next;
+            }
+        }
+
+        while (due != null) {
+            Task next = due.mNext;
+            Runnable runnable = due.mRunnable;
+            recycle(due);
+            runnable.run();
+            due = next;
+        }
+    }
+
+    private void append(Task task) {
+        int bucket = (int) (task.mFrame & BUCKET_MASK);
+        Task tail = mTails[bucket];
+        if (tail == null) {
+            mHeads[bucket] = task;
+        } else {
+            tail.mNext = task;
+        }
+        mTails[bucket] = task;
+    }
+
+    private void recycle(Task task) {
+        synchronized (mLock) {
+            task.mRunnable = null;
+            task.mNext = mFree;
+            mFree = task;
+        }
+    }
+
+    private static final class Task {
+        private Runnable mRunnable;
+        private long mFrame;
+        private Task mNext;
+    }
+}
@@ -0,0 +1,207 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gearvrf;
+
+/**
+ * The control loop behind {@link GVRAdaptiveQuality}, on its own: plain
+ * arithmetic on frame times, with no GL, JNI or Android, so it can be run
+ * against synthetic frame-time traces.
+ * 
+ * Each frame's load is how long the frame kept the GL thread busy, or the
+ * GPU, if that is known and longer, as a fraction of the frame budget. A
+ * frame that missed vsync counts its whole interval, so a GPU-bound scene
+ * shows up even when no GPU time is reported. No frame counts for more than
+ * {@link #MAX_LOAD}, so one long frame - a garbage collection, say - can't
+ * step the level down on its own. The load is smoothed with an exponential
+ * moving average, over about eight frames.
+ * 
+ * The controller steps one level down - to cheaper settings - when the
+ * average has stayed above {@link #DEGRADE_LOAD} for {@link #DEGRADE_FRAMES}
+ * frames; and one level back up when it has stayed below
+ * {@link #UPGRADE_LOAD} for the upgrade hold, two seconds to start with. The
+ * gap between the thresholds is the hysteresis. After every step, it waits
+ * {@link #SETTLE_FRAMES} frames for the average to catch up with the new
+ * settings.
+ * 
+ * An upgrade that has to be undone within {@link #PROBATION_FRAMES} frames
+ * did not fit: the hold doubles, up to {@link #MAX_UPGRADE_HOLD} frames, so a
+ * scene on the edge between two levels settles on the cheaper one instead of
+ * flipping between them. Each upgrade that lasts halves the hold again.
+ */
+final class QualityController {
+    /*
+     * The knobs, at each level, best quality first. Decode threads are
+     * throttled first: that only makes loads slower. Then LOD, then post
+     * effects, then resolution.
+     */
+    private static final float[] LOD_BIAS = { 1.0f, 1.0f, 1.5f, 1.5f, 2.0f,
+            3.0f };
+    private static final boolean[] POST_EFFECTS = { true, true, true, false,
+            false, false };
+    private static final float[] EYE_BUFFER_SCALE = { 1.0f, 1.0f, 1.0f, 1.0f,
+            0.85f, 0.7f };
+    /** 0 is the default limit */
+    private static final int[] DECODE_THREADS = { 0, 1, 1, 1, 1, 1 };
+
+    static final int LEVELS = LOD_BIAS.length;
+
+    static final float DEGRADE_LOAD = 0.9f;
+    static final float UPGRADE_LOAD = 0.65f;
+    static final int DEGRADE_FRAMES = 5;
+    static final int SETTLE_FRAMES = 15;
+    static final int MIN_UPGRADE_HOLD = 120;
+    static final int MAX_UPGRADE_HOLD = 16 * MIN_UPGRADE_HOLD;
+    static final int PROBATION_FRAMES = 300;
+
+    static final float MAX_LOAD = 1.25f;
+
+    private static final float SMOOTHING = 1.0f / 8;
+    /** A frame interval of this many budgets missed vsync */
+    private static final float MISSED_FRAME = 1.5f;
+
+    private final float mBudgetNanos;
+
+    private int mLevel = 0;
+    private float mLoad = 0;
+    private int mSettleFrames = 0;
+    private int mHighFrames = 0;
+    private int mLowFrames = 0;
+    private int mUpgradeHold = MIN_UPGRADE_HOLD;
+    /** Frames since the last upgrade, while it is on probation; else -1 */
+    private int mSinceUpgrade = -1;
+    private int mChanges = 0;
+
+    /**
+     * @param budgetNanos
+     *            How long a frame can take: the vsync interval
+     */
+    QualityController(long budgetNanos) {
+        if (budgetNanos <= 0) {
+            throw new IllegalArgumentException(
+                    "The frame budget must be positive");
+        }
+        mBudgetNanos = budgetNanos;
+    }
+
+    /**
+     * Account for one frame.
+     * 
+     * @param intervalNanos
+     *            Time since the previous frame started; 0 if unknown
+     * @param cpuNanos
+     *            GL thread time spent on the frame
+     * @param gpuNanos
+     *            GPU time spent on the frame; negative if unknown
+     * @return {@code true} if the level changed
+     */
+    boolean onFrame(long intervalNanos, long cpuNanos, long gpuNanos) {
+        float load = Math.max(cpuNanos, gpuNanos) / mBudgetNanos;
+        float interval = intervalNanos / mBudgetNanos;
+        if (interval >= MISSED_FRAME && interval > load) {
+            load = interval;
+        }
+        mLoad += (Math.min(load, MAX_LOAD) - mLoad) * SMOOTHING;
+
+        if (mSinceUpgrade >= 0 && ++mSinceUpgrade > PROBATION_FRAMES) {
+            mSinceUpgrade = -1;
+            mUpgradeHold = Math.max(mUpgradeHold / 2, MIN_UPGRADE_HOLD);
+        }
+        if (mSettleFrames > 0) {
+            --mSettleFrames;
+            return false;
+        }
+
+        mHighFrames = mLoad > DEGRADE_LOAD ? mHighFrames + 1 : 0;
+        mLowFrames = mLoad < UPGRADE_LOAD ? mLowFrames + 1 : 0;
+
+        if (mHighFrames >= DEGRADE_FRAMES && mLevel < LEVELS - 1) {
+            if (mSinceUpgrade >= 0) {
+                mSinceUpgrade = -1;
+                mUpgradeHold = Math.min(mUpgradeHold * 2, MAX_UPGRADE_HOLD);
+            }
+            setLevel(mLevel + 1);
+            return true;
+        }
+        if (mLowFrames >= mUpgradeHold && mLevel > 0) {
+            mSinceUpgrade = 0;
+            setLevel(mLevel - 1);
+            return true;
+        }
+        return false;
+    }
+
+    /** Back to the best quality, with no history */
+    void reset() {
+        mLevel = 0;
+        mLoad = 0;
+        mSettleFrames = mHighFrames = mLowFrames = 0;
+        mUpgradeHold = MIN_UPGRADE_HOLD;
+        mSinceUpgrade = -1;
+    }
+
+    private void setLevel(int level) {
+        mLevel = level;
+        mSettleFrames = SETTLE_FRAMES;
+        mHighFrames = mLowFrames = 0;
+        ++mChanges;
+    }
+
+    /** 0 is the best quality; {@link #LEVELS} - 1 the cheapest */
+    int getLevel() {
+        return mLevel;
+    }
+
+    /** The smoothed load: 1 is a full frame */
+    float getLoad() {
+        return mLoad;
+    }
+
+    /** Level changes since this controller was created */
+    int getChanges() {
+        return mChanges;
+    }
+
+    /** Frames the load must stay low before the next upgrade */
+    int getUpgradeHold() {
+        return mUpgradeHold;
+    }
+
+    /*
+     * The knobs' settings at a level
+     */
+
+    static float getLODBias(int level) {
+        return LOD_BIAS[level];
+    }
+
+    static boolean getPostEffectsEnabled(int level) {
+        return POST_EFFECTS[level];
+    }
+
+    static float getEyeBufferScale(int level) {
+        return EYE_BUFFER_SCALE[level];
+    }
+
+    /**
+     * @param defaultLimit
+     *            The decode thread limit at full quality
+     */
+    static int getDecodeThreadLimit(int level, int defaultLimit) {
+        int limit = DECODE_THREADS[level];
+        return limit == 0 ? defaultLimit : Math.min(limit, defaultLimit);
+    }
+}
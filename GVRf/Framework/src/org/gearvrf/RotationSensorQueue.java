@@ -0,0 +1,174 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gearvrf;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands rotation sensor samples from the sensor thread to the GL thread.
+ * 
+ * A lock-free, single-producer single-consumer ring: the sensor thread
+ * {@linkplain #offer(long, float, float, float, float, float, float, float)
+ * offers} samples at up to 1000 Hz, and the GL thread
+ * {@linkplain #pollLatest(Sample) takes} them once a frame. Samples are kept
+ * in preallocated primitive arrays, so neither side allocates, and neither
+ * side ever blocks the other.
+ * 
+ * If the GL thread falls so far behind that the ring fills, each new sample
+ * takes the place of the oldest waiting one, which is dropped and counted:
+ * the GL thread always gets the newest readings. To make that safe without a
+ * lock, both sides move the tail with a compare-and-set, and the GL thread
+ * only keeps a sample it read if the tail did not move under it.
+ */
+final class RotationSensorQueue {
+
+    /** A sample, filled in by the consumer */
+    static final class Sample {
+        long timeStamp;
+        float w, x, y, z;
+        float gyroX, gyroY, gyroZ;
+    }
+
+    private static final int FLOATS = 7;
+
+    private final int mMask;
+    private final long[] mTimeStamps;
+    private final float[] mValues;
+
+    // Only the producer writes mHead, published with lazySet: an ordered
+    // store, with no full fence. The consumer moves mTail as it takes
+    // samples, and the producer moves it past a sample it drops; both with a
+    // compare-and-set.
+    private final AtomicLong mHead = new AtomicLong();
+    private final AtomicLong mTail = new AtomicLong();
+    private long mDropped;
+
+    /**
+     * @param capacity
+     *            How many samples the ring holds: rounded up to a power of
+     *            two
+     */
+    RotationSensorQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        mMask = size - 1;
+        mTimeStamps = new long[size];
+        mValues = new float[size * FLOATS];
+    }
+
+    /**
+     * Add a sample. Sensor thread only.
+     * 
+     * @return {@code false} if the ring was full, and the oldest waiting
+     *         sample was dropped to make room
+     */
+    boolean offer(long timeStamp, float w, float x, float y, float z,
+            float gyroX, float gyroY, float gyroZ) {
+        long head = mHead.get();
+        boolean dropped = false;
+        long tail = mTail.get();
+        // If the consumer takes samples first, there is room after all
+        while (head - tail > mMask && !mTail.compareAndSet(tail, tail + 1)) {
+            tail = mTail.get();
+        }
+        if (head - tail > mMask) {
+            ++mDropped;
+            dropped = true;
+        }
+        int index = (int) head & mMask;
+        mTimeStamps[index] = timeStamp;
+        int offset = index * FLOATS;
+        float[] values = mValues;
+        values[offset] = w;
+        values[offset + 1] = x;
+        values[offset + 2] = y;
+        values[offset + 3] = z;
+        values[offset + 4] = gyroX;
+        values[offset + 5] = gyroY;
+        values[offset + 6] = gyroZ;
+        mHead.lazySet(head + 1);
+        return !dropped;
+    }
+
+    /**
+     * Take the oldest sample. GL thread only.
+     * 
+     * @return {@code false} if the ring was empty: {@code sample} is
+     *         unchanged
+     */
+    boolean poll(Sample sample) {
+        while (true) {
+            long tail = mTail.get();
+            if (tail == mHead.get()) {
+                return false;
+            }
+            read((int) tail & mMask, sample);
+            // If the producer dropped the sample meanwhile, it may have
+            // overwritten it as we read
+            if (mTail.compareAndSet(tail, tail + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Take every waiting sample, keeping only the newest: the head pose only
+     * needs the latest reading. GL thread only.
+     * 
+     * @return {@code false} if the ring was empty: {@code sample} is
+     *         unchanged
+     */
+    boolean pollLatest(Sample sample) {
+        while (true) {
+            long tail = mTail.get();
+            long head = mHead.get();
+            if (tail == head) {
+                return false;
+            }
+            read((int) (head - 1) & mMask, sample);
+            // The producer only overwrites that slot after moving the tail
+            if (mTail.compareAndSet(tail, head)) {
+                return true;
+            }
+        }
+    }
+
+    /** How many samples are waiting */
+    int size() {
+        return (int) (mHead.get() - mTail.get());
+    }
+
+    /**
+     * How many waiting samples have been dropped because the ring was full.
+     * Only exact on the sensor thread.
+     */
+    long dropped() {
+        return mDropped;
+    }
+
+    private void read(int index, Sample sample) {
+        sample.timeStamp = mTimeStamps[index];
+        int offset = index * FLOATS;
+        float[] values = mValues;
+        sample.w = values[offset];
+        sample.x = values[offset + 1];
+        sample.y = values[offset + 2];
+        sample.z = values[offset + 3];
+        sample.gyroX = values[offset + 4];
+        sample.gyroY = values[offset + 5];
+        sample.gyroZ = values[offset + 6];
+    }
+}
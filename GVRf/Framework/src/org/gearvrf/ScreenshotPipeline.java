@@ -0,0 +1,335 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+
+import org.gearvrf.utility.ImageUtils;
+import org.gearvrf.utility.Log;
+import org.gearvrf.utility.RecycleBin;
+import org.gearvrf.utility.Threads;
+
+import android.graphics.Bitmap;
+
+/**
+ * Everything that happens to a screen capture after {@code glReadPixels()}.
+ *
+ * <p>
+ * The GL thread reads back into a pooled buffer, and hands the buffer to this
+ * class; it never copies the pixels. Conversion to a {@link Bitmap} - a
+ * vertical flip, and RGBA to ARGB - happens on background threads, in
+ * parallel row bands, and the buffer goes back into the pool when the
+ * conversion is done.
+ *
+ * <p>
+ * A {@linkplain Stream capture stream} reads back frames at a target rate,
+ * through a fixed set of buffers. If the consumer falls behind, frames are
+ * dropped, rather than stalling the GL thread or allocating more buffers.
+ */
+final class ScreenshotPipeline {
+
+    private static final String TAG = Log.tag(ScreenshotPipeline.class);
+
+    /** Buffers in flight between the GL thread and the stream consumer */
+    private static final int STREAM_BUFFERS = 3;
+
+    /**
+     * Idle readback buffers. Soft, so an app that captures once does not keep
+     * megabytes of buffers around forever. (Buffers are taken on the GL thread
+     * and returned on pool threads, so a per-thread bin would not work here.)
+     */
+    private final RecycleBin<ByteBuffer> mBuffers = RecycleBin
+            .<ByteBuffer> soft().synchronize();
+
+    private volatile Stream mStream = null;
+
+    /**
+     * Get a readback buffer for a {@code width} x {@code height} RGBA image,
+     * from the pool if possible.
+     */
+    ByteBuffer obtainBuffer(int width, int height) {
+        int size = width * height * 4;
+        for (ByteBuffer buffer = mBuffers.get(); buffer != null; buffer = mBuffers
+                .get()) {
+            if (buffer.capacity() == size) {
+                buffer.clear();
+                return buffer;
+            }
+            // else, the FBO size has changed: let the gc have the buffer
+        }
+        return ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+    }
+
+    /** Return a readback buffer to the pool */
+    void recycle(ByteBuffer buffer) {
+        mBuffers.put(buffer);
+    }
+
+    /**
+     * Convert a readback buffer on a background thread, recycle it, and pass
+     * the bitmap to the callback.
+     */
+    void deliver(final GVRScreenshotCallback callback,
+            final ByteBuffer buffer, final int width, final int height) {
+        Threads.spawn(new Runnable() {
+            public void run() {
+                Bitmap bitmap;
+                try {
+                    bitmap = ImageUtils.generateBitmapFlipV(buffer, width,
+                            height);
+                } finally {
+                    recycle(buffer);
+                }
+                callback.onScreenCaptured(bitmap);
+            }
+        });
+    }
+
+    /**
+     * Convert six readback buffers in parallel, recycle them, and pass the
+     * bitmaps to the callback.
+     */
+    void deliver3D(final GVRScreenshot3DCallback callback,
+            final ByteBuffer[] faces, final int width, final int height) {
+        if (faces.length != 6) {
+            throw new IllegalArgumentException("faces length is not 6.");
+        }
+
+        Threads.spawn(new Runnable() {
+            public void run() {
+                final Bitmap[] bitmapArray = new Bitmap[6];
+                final CountDownLatch converted = new CountDownLatch(6);
+
+                for (int i = 0; i < 6; i++) {
+                    final int index = i;
+                    Threads.spawnLow(new Runnable() {
+                        public void run() {
+                            ByteBuffer face = faces[index];
+                            faces[index] = null;
+                            try {
+                                int[] pixels = new int[width * height];
+                                // Six faces are parallel enough
+                                ImageUtils.flipVRGBAToARGB(face, width,
+                                        height, pixels, false);
+                                bitmapArray[index] = Bitmap.createBitmap(
+                                        pixels, width, height,
+                                        Bitmap.Config.ARGB_8888);
+                            } finally {
+                                recycle(face);
+                                converted.countDown();
+                            }
+                        }
+                    });
+                }
+
+                try {
+                    converted.await();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                callback.onScreenCaptured(bitmapArray);
+            }
+        });
+    }
+
+    /*
+     * Capture streams
+     */
+
+    /** The current stream, or {@code null} */
+    Stream getStream() {
+        return mStream;
+    }
+
+    /** Start a capture stream, stopping any current stream */
+    void startStream(GVRScreenshotStreamCallback callback,
+            float framesPerSecond) {
+        if (callback == null) {
+            throw new IllegalArgumentException("callback should not be null.");
+        }
+        if (framesPerSecond <= 0) {
+            throw new IllegalArgumentException(
+                    "framesPerSecond must be positive.");
+        }
+
+        stopStream();
+        Stream stream = new Stream(callback, framesPerSecond);
+        stream.start();
+        mStream = stream;
+    }
+
+    /** Stop the current stream, if any */
+    void stopStream() {
+        Stream stream = mStream;
+        mStream = null;
+        if (stream != null) {
+            stream.stop();
+        }
+    }
+
+    /**
+     * A continuous capture. The GL thread checks {@link #isFrameDue(long)}
+     * once per frame; if a frame is due, it calls
+     * {@link #obtainFrameBuffer(int, int)}, reads back into the buffer, and
+     * calls {@link #submitFrame(ByteBuffer)}. A single consumer thread
+     * converts frames, in order, into a reused bitmap.
+     */
+    static final class Stream implements Runnable {
+        private final GVRScreenshotStreamCallback mCallback;
+        private final long mFrameInterval;
+        private long mNextFrameTime;
+
+        private final BlockingQueue<Frame> mFree = new ArrayBlockingQueue<Frame>(
+                STREAM_BUFFERS);
+        private final BlockingQueue<Frame> mFull = new ArrayBlockingQueue<Frame>(
+                STREAM_BUFFERS);
+        /** The frame the GL thread is reading back into */
+        private Frame mPending = null;
+
+        private Future<?> mConsumer;
+        private volatile boolean mStopped = false;
+        private int mDroppedFrames = 0;
+
+        // Consumer-side buffers, reallocated only when the frame size changes
+        private int[] mPixels = null;
+        private Bitmap mBitmap = null;
+
+        private Stream(GVRScreenshotStreamCallback callback,
+                float framesPerSecond) {
+            mCallback = callback;
+            mFrameInterval = (long) (1e9 / framesPerSecond);
+            mNextFrameTime = System.nanoTime();
+            for (int index = 0; index < STREAM_BUFFERS; ++index) {
+                mFree.add(new Frame());
+            }
+        }
+
+        private void start() {
+            mConsumer = Threads.spawn(this);
+        }
+
+        private void stop() {
+            mStopped = true;
+            if (mConsumer != null) {
+                mConsumer.cancel(true);
+            }
+            if (mDroppedFrames > 0) {
+                Log.d(TAG, "capture stream dropped %d frames", mDroppedFrames);
+            }
+        }
+
+        /**
+         * GL thread: Is it time for another frame? Keeps the target rate on
+         * average, but never tries to catch up on frames it missed.
+         */
+        boolean isFrameDue(long now) {
+            if (now < mNextFrameTime) {
+                return false;
+            }
+            mNextFrameTime += mFrameInterval;
+            if (mNextFrameTime <= now) {
+                mNextFrameTime = now + mFrameInterval;
+            }
+            return true;
+        }
+
+        /**
+         * GL thread: Get a buffer to read a frame into.
+         *
+         * @return A buffer, or {@code null} if the consumer is behind and every
+         *         buffer is in use; the frame is dropped.
+         */
+        ByteBuffer obtainFrameBuffer(int width, int height) {
+            Frame frame = mFree.poll();
+            if (frame == null) {
+                mDroppedFrames += 1;
+                return null;
+            }
+
+            int size = width * height * 4;
+            if (frame.mBuffer == null || frame.mBuffer.capacity() != size) {
+                frame.mBuffer = ByteBuffer.allocateDirect(size).order(
+                        ByteOrder.nativeOrder());
+            }
+            frame.mBuffer.clear();
+            frame.mWidth = width;
+            frame.mHeight = height;
+            mPending = frame;
+            return frame.mBuffer;
+        }
+
+        /** GL thread: Hand a frame read back into {@code buffer} to the consumer */
+        void submitFrame(ByteBuffer buffer) {
+            Frame frame = mPending;
+            mPending = null;
+            if (frame == null || frame.mBuffer != buffer) {
+                throw new IllegalStateException(
+                        "submitFrame() without obtainFrameBuffer()");
+            }
+            frame.mTimestamp = System.nanoTime();
+            mFull.offer(frame); // can't fail: there are only STREAM_BUFFERS
+        }
+
+        /** The consumer thread */
+        @Override
+        public void run() {
+            try {
+                while (mStopped == false) {
+                    Frame frame = mFull.take();
+                    try {
+                        if (mStopped == false) {
+                            mCallback.onFrameCaptured(convert(frame),
+                                    frame.mTimestamp);
+                        }
+                    } finally {
+                        mFree.offer(frame);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // stop()
+            }
+        }
+
+        private Bitmap convert(Frame frame) {
+            int width = frame.mWidth, height = frame.mHeight;
+            if (mBitmap == null || mBitmap.getWidth() != width
+                    || mBitmap.getHeight() != height) {
+                mPixels = new int[width * height];
+                mBitmap = Bitmap.createBitmap(width, height,
+                        Bitmap.Config.ARGB_8888);
+            }
+
+            ImageUtils.flipVRGBAToARGB(frame.mBuffer, width, height, mPixels,
+                    true);
+            mBitmap.setPixels(mPixels, 0, width, 0, 0, width, height);
+            return mBitmap;
+        }
+
+        private static final class Frame {
+            ByteBuffer mBuffer;
+            int mWidth, mHeight;
+            long mTimestamp;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The geometry half of {@link GVRStaticBatcher}: bakes meshes into one
+ * combined mesh, in plain arrays, with no GL calls.
+ *
+ * <p>
+ * Read each mesh back once into a {@link MeshData}, and add it with
+ * {@link #add(MeshData, float[])}; {@link #build()} returns one or more
+ * {@link Chunk chunks}, each small enough to index with 16-bit indices. Every
+ * mesh added must agree on whether it has normals and texture coordinates.
+ */
+final class StaticBatchBuilder {
+
+    /** 16-bit indices can address this many vertices */
+    static final int MAX_VERTICES = 1 << 16;
+
+    /** A mesh's arrays, read back once no matter how many objects share it */
+    static final class MeshData {
+        final float[] vertices;
+        final float[] normals;
+        final float[] texCoords;
+        final char[] triangles;
+        /** The mesh has other vertex attributes, which a batch can't keep */
+        final boolean hasAttributeVectors;
+        /** Mean of the vertices, in mesh space */
+        final float[] center = new float[3];
+
+        MeshData(GVRMesh mesh) {
+            vertices = mesh.getVertices();
+            normals = mesh.getNormals();
+            texCoords = mesh.getTexCoords();
+            triangles = mesh.getTriangles();
+            hasAttributeVectors = mesh.hasAttributeVectors();
+
+            int vertexCount = vertices.length / 3;
+            if (vertexCount > 0) {
+                for (int index = 0; index < vertexCount * 3; ++index) {
+                    center[index % 3] += vertices[index];
+                }
+                for (int axis = 0; axis < 3; ++axis) {
+                    center[axis] /= vertexCount;
+                }
+            }
+        }
+
+        /**
+         * Whether the mesh can be merged: it has triangles, no attributes
+         * beyond positions, normals and texture coordinates, and as many of
+         * each as it has positions.
+         */
+        boolean isUsable() {
+            int vertexCount = vertices.length / 3;
+            return vertexCount > 0 && vertexCount <= MAX_VERTICES
+                    && triangles.length >= 3 && hasAttributeVectors == false
+                    && (hasNormals() == false || normals.length == vertexCount * 3)
+                    && (hasTexCoords() == false || texCoords.length == vertexCount * 2);
+        }
+
+        boolean hasNormals() {
+            return normals.length > 0;
+        }
+
+        boolean hasTexCoords() {
+            return texCoords.length > 0;
+        }
+    }
+
+    /** A finished batch */
+    static final class Chunk {
+        final float[] vertices;
+        final float[] normals; // null if the meshes had none
+        final float[] texCoords; // null if the meshes had none
+        final char[] triangles;
+        /** Number of meshes merged into this chunk */
+        final int meshCount;
+
+        private Chunk(float[] vertices, float[] normals, float[] texCoords,
+                char[] triangles, int meshCount) {
+            this.vertices = vertices;
+            this.normals = normals;
+            this.texCoords = texCoords;
+            this.triangles = triangles;
+            this.meshCount = meshCount;
+        }
+    }
+
+    private final boolean hasNormals;
+    private final boolean hasTexCoords;
+
+    private final List<Chunk> chunks = new ArrayList<Chunk>();
+
+    // The chunk being filled
+    private float[] vertices = new float[0];
+    private float[] normals = new float[0];
+    private float[] texCoords = new float[0];
+    private char[] triangles = new char[0];
+    private int vertexCount = 0;
+    private int triangleIndexCount = 0;
+    private int meshCount = 0;
+
+    StaticBatchBuilder(boolean hasNormals, boolean hasTexCoords) {
+        this.hasNormals = hasNormals;
+        this.hasTexCoords = hasTexCoords;
+    }
+
+    /**
+     * Bake one mesh into the batch, starting a new chunk first if it would
+     * not fit in the current one.
+     *
+     * @param mesh
+     *            A {@linkplain MeshData#isUsable() usable} mesh. Its normals
+     *            are ignored unless the builder has normals, and likewise its
+     *            texture coordinates.
+     * @param matrix
+     *            Column-major 4x4 matrix to bake into the vertices
+     */
+    void add(MeshData mesh, float[] matrix) {
+        if (mesh.isUsable() == false) {
+            throw new IllegalArgumentException("This mesh can't be batched.");
+        }
+        float[] meshVertices = mesh.vertices;
+        float[] meshNormals = mesh.normals;
+        float[] meshTexCoords = mesh.texCoords;
+        char[] meshTriangles = mesh.triangles;
+        int meshVertexCount = meshVertices.length / 3;
+        if (vertexCount + meshVertexCount > MAX_VERTICES) {
+            flush();
+        }
+
+        ensureCapacity(vertexCount + meshVertexCount, triangleIndexCount
+                + meshTriangles.length);
+
+        transformPoints(matrix, meshVertices, vertices, vertexCount * 3);
+        boolean mirrored = determinant3(matrix) < 0;
+        if (hasNormals) {
+            transformNormals(matrix, mirrored, meshNormals, normals,
+                    vertexCount * 3);
+        }
+        if (hasTexCoords) {
+            System.arraycopy(meshTexCoords, 0, texCoords, vertexCount * 2,
+                    meshVertexCount * 2);
+        }
+
+        // A mirroring matrix turns front faces into back faces: swap two
+        // corners of each triangle to restore the winding
+        for (int index = 0; index + 2 < meshTriangles.length; index += 3) {
+            int out = triangleIndexCount + index;
+            triangles[out] = (char) (meshTriangles[index] + vertexCount);
+            if (mirrored) {
+                triangles[out + 1] = (char) (meshTriangles[index + 2] + vertexCount);
+                triangles[out + 2] = (char) (meshTriangles[index + 1] + vertexCount);
+            } else {
+                triangles[out + 1] = (char) (meshTriangles[index + 1] + vertexCount);
+                triangles[out + 2] = (char) (meshTriangles[index + 2] + vertexCount);
+            }
+        }
+
+        vertexCount += meshVertexCount;
+        triangleIndexCount += meshTriangles.length - meshTriangles.length % 3;
+        meshCount += 1;
+    }
+
+    /** Finish the current chunk, and return every chunk */
+    List<Chunk> build() {
+        flush();
+        return chunks;
+    }
+
+    private void flush() {
+        if (meshCount == 0) {
+            return;
+        }
+        chunks.add(new Chunk(Arrays.copyOf(vertices, vertexCount * 3),
+                hasNormals ? Arrays.copyOf(normals, vertexCount * 3) : null,
+                hasTexCoords ? Arrays.copyOf(texCoords, vertexCount * 2) : null,
+                Arrays.copyOf(triangles, triangleIndexCount), meshCount));
+        vertexCount = triangleIndexCount = meshCount = 0;
+    }
+
+    private void ensureCapacity(int vertexCapacity, int indexCapacity) {
+        if (vertices.length < vertexCapacity * 3) {
+            int grown = Math.min(MAX_VERTICES,
+                    Math.max(vertexCapacity, vertices.length / 3 * 2));
+            vertices = Arrays.copyOf(vertices, grown * 3);
+            if (hasNormals) {
+                normals = Arrays.copyOf(normals, grown * 3);
+            }
+            if (hasTexCoords) {
+                texCoords = Arrays.copyOf(texCoords, grown * 2);
+            }
+        }
+        if (triangles.length < indexCapacity) {
+            triangles = Arrays.copyOf(triangles,
+                    Math.max(indexCapacity, triangles.length * 2));
+        }
+    }
+
+    /*
+     * Matrix helpers. Matrices are column-major, like GVRTransform's: element
+     * (row r, column c) is m[c * 4 + r].
+     */
+
+    static void transformPoints(float[] m, float[] in, float[] out,
+            int outOffset) {
+        for (int index = 0; index + 2 < in.length; index += 3) {
+            float x = in[index], y = in[index + 1], z = in[index + 2];
+            out[outOffset + index] = m[0] * x + m[4] * y + m[8] * z + m[12];
+            out[outOffset + index + 1] = m[1] * x + m[5] * y + m[9] * z
+                    + m[13];
+            out[outOffset + index + 2] = m[2] * x + m[6] * y + m[10] * z
+                    + m[14];
+        }
+    }
+
+    /**
+     * Transform normals by the cofactor matrix of the upper 3x3 - the inverse
+     * transpose, times the determinant - and renormalize. Unlike the inverse
+     * transpose, this needs no division, so it copes with singular matrices.
+     */
+    static void transformNormals(float[] m, boolean mirrored, float[] in,
+            float[] out, int outOffset) {
+        float a00 = m[0], a01 = m[4], a02 = m[8];
+        float a10 = m[1], a11 = m[5], a12 = m[9];
+        float a20 = m[2], a21 = m[6], a22 = m[10];
+        // cRC is the cofactor of element (row R, column C)
+        float c00 = a11 * a22 - a12 * a21;
+        float c01 = a12 * a20 - a10 * a22;
+        float c02 = a10 * a21 - a11 * a20;
+        float c10 = a02 * a21 - a01 * a22;
+        float c11 = a00 * a22 - a02 * a20;
+        float c12 = a01 * a20 - a00 * a21;
+        float c20 = a01 * a12 - a02 * a11;
+        float c21 = a02 * a10 - a00 * a12;
+        float c22 = a00 * a11 - a01 * a10;
+        // The cofactor matrix carries the sign of the determinant
+        float sign = mirrored ? -1 : 1;
+
+        for (int index = 0; index + 2 < in.length; index += 3) {
+            float x = in[index], y = in[index + 1], z = in[index + 2];
+            float nx = c00 * x + c01 * y + c02 * z;
+            float ny = c10 * x + c11 * y + c12 * z;
+            float nz = c20 * x + c21 * y + c22 * z;
+            float length = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+            float scale = length > 0 ? sign / length : 0;
+            out[outOffset + index] = nx * scale;
+            out[outOffset + index + 1] = ny * scale;
+            out[outOffset + index + 2] = nz * scale;
+        }
+    }
+
+    /** Determinant of the upper 3x3 */
+    static float determinant3(float[] m) {
+        return m[0] * (m[5] * m[10] - m[9] * m[6]) //
+                - m[4] * (m[1] * m[10] - m[9] * m[2]) //
+                + m[8] * (m[1] * m[6] - m[5] * m[2]);
+    }
+}
@@ -33,6 +33,7 @@ import org.gearvrf.GVRTexture;
 import org.gearvrf.asynchronous.Throttler.AsyncLoader;
 import org.gearvrf.asynchronous.Throttler.AsyncLoaderFactory;
 import org.gearvrf.asynchronous.Throttler.GlConverter;
+import org.gearvrf.utility.ConcurrentRecycleBin;
 import org.gearvrf.utility.Exceptions;
 import org.gearvrf.utility.Log;
 import org.gearvrf.utility.RecycleBin;
@@ -799,8 +800,8 @@ abstract class AsyncBitmapTexture {
     /**
      * A soft referenced set of <code>byte[DECODE_BUFFER_SIZE]</code> arrays.)
      */
-    private static RecycleBin<byte[]> bufferBin = RecycleBin.<byte[]> soft()
-            .synchronize();
+    private static RecycleBin<byte[]> bufferBin = ConcurrentRecycleBin
+            .<byte[]> soft();
 
     /*
      * Image size policy
@@ -62,6 +62,41 @@ public class GVRAsynchronousResourceLoader {
         AsyncBitmapTexture.setup(gvrContext);
     }
 
+    /**
+     * Change how many asynchronous loads can decode at once, each on its own
+     * background thread. A lower limit leaves more CPU time for the GL
+     * thread, and loads take longer to finish; loads that are already
+     * decoding are not interrupted.
+     * 
+     * @param limit
+     *            At least 1. The default is
+     *            {@linkplain #getDefaultDecodeThreadLimit() one less than the
+     *            number of cores.}
+     * @see org.gearvrf.GVRAdaptiveQuality
+     * @since 2.0.2
+     */
+    public static void setDecodeThreadLimit(int limit) {
+        Throttler.setDecodeThreadLimit(limit);
+    }
+
+    /**
+     * @return How many asynchronous loads can decode at once.
+     * @since 2.0.2
+     */
+    public static int getDecodeThreadLimit() {
+        return Throttler.getDecodeThreadLimit();
+    }
+
+    /**
+     * @return The {@linkplain #setDecodeThreadLimit(int) decode thread limit}
+     *         GVRF starts with: one less than the number of cores, but at
+     *         least one.
+     * @since 2.0.2
+     */
+    public static int getDefaultDecodeThreadLimit() {
+        return Throttler.getDefaultDecodeThreadLimit();
+    }
+
     /**
      * Load a compressed texture asynchronously.
      * 
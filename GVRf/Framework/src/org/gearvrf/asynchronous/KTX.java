@@ -50,9 +50,16 @@ class KTX extends GVRCompressedTextureLoader {
             // '«', 'K', 'T', 'X', ' ', '1', '1', '»', '\r', '\n', '\x1A', '\n'
             0xAB4B5458, 0x203131BB, 0x0D0A1A0A };
 
+    /*
+     * Byte[12] and 13 UInt32. A compile-time constant, not SIGNATURE.length:
+     * if creating a KTX is what initializes the base class, its static block
+     * registers a KTX - and calls headerLength() - before SIGNATURE is set.
+     */
+    private static final int HEADER_LENGTH = (3 + 13) * Reader.INTEGER_BYTES;
+
     @Override
     public int headerLength() {
-        return (SIGNATURE.length + 13) * Reader.INTEGER_BYTES;
+        return HEADER_LENGTH;
     }
 
     @Override
@@ -125,8 +132,7 @@ class KTX extends GVRCompressedTextureLoader {
                 pixelHeight, numberOfMipmapLevels, bytesOfKeyValueData);
 
         // 13 UInt32 plus a Byte[12], plus any key-value pairs
-        int headerSize = (SIGNATURE.length + 13) * Reader.INTEGER_BYTES
-                + bytesOfKeyValueData;
+        int headerSize = HEADER_LENGTH + bytesOfKeyValueData;
 
         ByteBuffer buffer = ByteBuffer.wrap(data, headerSize, data.length
                 - headerSize);
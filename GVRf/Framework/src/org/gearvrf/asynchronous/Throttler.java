@@ -66,6 +66,18 @@ abstract class Throttler {
                 priority);
     }
 
+    static void setDecodeThreadLimit(int limit) {
+        requests.deviceThreadLimiter.setMaxThreads(limit);
+    }
+
+    static int getDecodeThreadLimit() {
+        return requests.deviceThreadLimiter.getMaxThreads();
+    }
+
+    static int getDefaultDecodeThreadLimit() {
+        return DECODE_THREAD_LIMIT;
+    }
+
     /*
      * Static constants
      */
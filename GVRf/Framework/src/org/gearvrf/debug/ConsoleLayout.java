@@ -0,0 +1,179 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gearvrf.debug;
+
+import java.util.Arrays;
+
+/**
+ * Which line of a {@link GVRConsole} goes where, and which rows need
+ * uploading.
+ * 
+ * The console texture is a ring of text rows. The newest line always goes
+ * into the next row of the ring, and once the ring is full the shader scrolls
+ * it, so writing a line changes one row of the texture, not all of them. A
+ * row is dirty when the line it should hold is not the one last drawn into
+ * it; {@link #collectDirtyBands(int[])} coalesces the dirty rows into runs,
+ * one texture upload each.
+ * 
+ * Not thread safe: {@link GVRConsole} locks around it. No Android or GL
+ * dependencies.
+ */
+final class ConsoleLayout {
+
+    private String[] mLines;
+    /** What the texture holds in each row, unless {@link #mUnknown} */
+    private String[] mDrawn;
+    private boolean[] mUnknown;
+    private boolean[] mDirty;
+    /** Lines written since the last {@link #clear()} */
+    private long mWritten;
+
+    ConsoleLayout(int rows) {
+        if (rows <= 0) {
+            throw new IllegalArgumentException("rows = " + rows);
+        }
+        allocate(rows);
+    }
+
+    int rows() {
+        return mLines.length;
+    }
+
+    /** How many lines are on screen: at most {@link #rows()} */
+    int lineCount() {
+        return (int) Math.min(mWritten, mLines.length);
+    }
+
+    /**
+     * Write a line below the others, scrolling the oldest off the top if
+     * every row is in use.
+     * 
+     * @return The row the line went into.
+     */
+    int write(String line) {
+        int row = (int) (mWritten % mLines.length);
+        set(row, line);
+        ++mWritten;
+        return row;
+    }
+
+    /** Remove every line. */
+    void clear() {
+        for (int row = 0; row < mLines.length; ++row) {
+            set(row, null);
+        }
+        mWritten = 0;
+    }
+
+    /**
+     * The line in a row, or {@code null} if the row is empty.
+     */
+    String line(int row) {
+        return mLines[row];
+    }
+
+    /**
+     * The row shown at the top of the console: the oldest line on screen.
+     * The shader scrolls the ring by this many rows.
+     */
+    int topRow() {
+        return mWritten <= mLines.length ? 0
+                : (int) (mWritten % mLines.length);
+    }
+
+    boolean isDirty(int row) {
+        return mDirty[row];
+    }
+
+    /**
+     * Mark every row dirty, as when the texture behind them is new.
+     */
+    void invalidate() {
+        Arrays.fill(mUnknown, true);
+        Arrays.fill(mDirty, true);
+    }
+
+    /**
+     * Change the number of rows, as after a change of text size, keeping the
+     * newest lines that still fit. Every row is left dirty.
+     */
+    void resize(int rows) {
+        if (rows <= 0) {
+            throw new IllegalArgumentException("rows = " + rows);
+        }
+        int keep = Math.min(lineCount(), rows);
+        String[] lines = new String[keep];
+        for (int index = 0; index < keep; ++index) {
+            lines[index] = mLines[(int) ((mWritten - keep + index) % mLines.length)];
+        }
+
+        allocate(rows);
+        invalidate();
+        mWritten = 0;
+        for (String line : lines) {
+            write(line);
+        }
+    }
+
+    /**
+     * Collect the dirty rows, in runs of adjacent rows, and mark them clean:
+     * the caller is about to draw each row's {@link #line(int)} and upload
+     * it.
+     * 
+     * @param bands
+     *            Filled with a {@code first row, row count} pair per run. At
+     *            most {@code (rows() + 1) / 2} runs are possible.
+     * @return The number of runs.
+     */
+    int collectDirtyBands(int[] bands) {
+        int count = 0;
+        int row = 0;
+        while (row < mDirty.length) {
+            if (!mDirty[row]) {
+                ++row;
+                continue;
+            }
+            int first = row;
+            while (row < mDirty.length && mDirty[row]) {
+                mDirty[row] = false;
+                mUnknown[row] = false;
+                mDrawn[row] = mLines[row];
+                ++row;
+            }
+            bands[count * 2] = first;
+            bands[count * 2 + 1] = row - first;
+            ++count;
+        }
+        return count;
+    }
+
+    private void allocate(int rows) {
+        mLines = new String[rows];
+        mDrawn = new String[rows];
+        mUnknown = new boolean[rows];
+        mDirty = new boolean[rows];
+    }
+
+    private void set(int row, String line) {
+        mLines[row] = line;
+        mDirty[row] = mUnknown[row] || !equal(line, mDrawn[row]);
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
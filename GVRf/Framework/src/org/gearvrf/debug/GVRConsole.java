@@ -15,10 +15,8 @@
 
 package org.gearvrf.debug;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.gearvrf.GVRBitmapTexture;
 import org.gearvrf.GVRCamera;
@@ -31,11 +29,10 @@ import org.gearvrf.GVRPostEffectShaderId;
 import org.gearvrf.GVRPostEffectShaderManager;
 import org.gearvrf.GVRScene;
 import org.gearvrf.GVRScript;
+import org.gearvrf.GVRTextureParameters;
+import org.gearvrf.GVRTextureParameters.TextureFilterType;
 import org.gearvrf.R;
 
-import android.graphics.Bitmap;
-import android.graphics.Bitmap.Config;
-import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 
@@ -52,6 +49,13 @@ import android.graphics.Paint;
  * consoles on the same eye <em>will</em> make both hard/impossible to read.
  * 
  * <p>
+ * Writing never waits on the GL thread, and is cheap enough to do every frame.
+ * The text is drawn from a glyph atlas shared by every console, into a ring of
+ * rows that the shader scrolls: a new line redraws, and re-uploads, one row of
+ * the console texture, and an unchanged line none. Changes are applied once a
+ * frame, on the GL thread.
+ * 
+ * <p>
  * <b>Known Limitations:</b>
  * <ul>
  * <li>Is implemented as a "post effect" so the messages are written before lens
@@ -92,18 +96,36 @@ public class GVRConsole extends GVRPostEffect {
     private int textColor;
     private float textSize;
 
-    private final List<String> lines = new ArrayList<String>();
-    private Bitmap HUD = Bitmap.createBitmap(HUD_WIDTH, HUD_HEIGHT,
-            Config.ARGB_8888);
-    private Canvas canvas = new Canvas(HUD);
-    private final Paint paint = new Paint();
-    private final float defaultTextSize = paint.getTextSize();
-    private GVRBitmapTexture texture = null;
+    private final float defaultTextSize = new Paint().getTextSize();
     private float textXOffset = 0.0f;
     private float textYOffset = TOP_FUDGE;
     private int hudWidth = HUD_WIDTH;
     private int hudHeight = HUD_HEIGHT;
 
+    /*
+     * Guarded by this: any thread may write. The GL thread draws and uploads
+     * the changes, in refresh().
+     */
+    private GlyphAtlas atlas;
+    private ConsoleLayout layout;
+    private boolean canvasChanged = false;
+
+    // GL thread only
+    private byte[] pixels;
+    private GVRBitmapTexture texture = null;
+    private int[] bands;
+    private String[] rowText;
+
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+    private final Runnable refresh = new Runnable() {
+        @Override
+        public void run() {
+            // Cleared first, so a write during the refresh gets one of its own
+            refreshPending.set(false);
+            refresh();
+        }
+    };
+
     /**
      * Create a console, specifying the initial eye mode.
      * 
@@ -138,8 +160,14 @@ public class GVRConsole extends GVRPostEffect {
     public GVRConsole(GVRContext gvrContext, EyeMode startMode,
             GVRScene gvrScene) {
         super(gvrContext, getShaderId(gvrContext));
+        // Stays up when adaptive quality turns the scene's post effects off
+        setOverlay(true);
         setEyeMode(startMode, gvrScene.getMainCameraRig());
-        setMainTexture();
+
+        pixels = new byte[hudWidth * hudHeight];
+        texture = newTexture(hudWidth, hudHeight);
+        setMainTexture(texture);
+        setUniforms(hudWidth, hudHeight, 0, 0);
 
         setTextColor(DEFAULT_COLOR);
         setTextSize(1);
@@ -156,9 +184,10 @@ public class GVRConsole extends GVRPostEffect {
     public void writeLine(String pattern, Object... parameters) {
         String line = (parameters == null || parameters.length == 0) ? pattern
                 : String.format(pattern, parameters);
-        lines.add(0, line); // we'll write bottom to top, then purge unwritten
-                            // lines from end
-        updateHUD();
+        synchronized (this) {
+            layout.write(line);
+        }
+        scheduleRefresh();
     }
 
     /**
@@ -179,7 +208,8 @@ public class GVRConsole extends GVRPostEffect {
      */
     public void setTextColor(int color) {
         textColor = color;
-        paint.setColor(textColor);
+        setVec3(COLOR_KEY, Color.red(color) / 255.0f,
+                Color.green(color) / 255.0f, Color.blue(color) / 255.0f);
     }
 
     /**
@@ -203,8 +233,13 @@ public class GVRConsole extends GVRPostEffect {
      *            The new text size, as a multiple of the default text size.
      */
     public void setTextSize(float newSize) {
-        textSize = newSize;
-        paint.setTextSize(defaultTextSize * textSize);
+        GlyphAtlas newAtlas = GlyphAtlas.get(defaultTextSize * newSize);
+        synchronized (this) {
+            textSize = newSize;
+            atlas = newAtlas;
+            relayout();
+        }
+        scheduleRefresh();
     }
 
     /**
@@ -258,7 +293,10 @@ public class GVRConsole extends GVRPostEffect {
      * Clear the console of any written text.
      */
     public void clear() {
-        lines.clear();
+        synchronized (this) {
+            layout.clear();
+        }
+        scheduleRefresh();
     }
 
     /**
@@ -270,6 +308,7 @@ public class GVRConsole extends GVRPostEffect {
      */
     public void setXOffset(float xoffset) {
         textXOffset = xoffset;
+        scheduleRefresh();
     }
 
     /**
@@ -281,6 +320,7 @@ public class GVRConsole extends GVRPostEffect {
      */
     public void setYOffset(float yoffset) {
         textYOffset = yoffset;
+        scheduleRefresh();
     }
 
     /**
@@ -312,11 +352,13 @@ public class GVRConsole extends GVRPostEffect {
      *
      */
     public void setCanvasWidthHeight(int width, int height) {
-        hudWidth = width;
-        hudHeight = height;
-        HUD = Bitmap.createBitmap(width, height, Config.ARGB_8888);
-        canvas = new Canvas(HUD);
-        texture = null;
+        synchronized (this) {
+            hudWidth = width;
+            hudHeight = height;
+            canvasChanged = true;
+            relayout();
+        }
+        scheduleRefresh();
     }
 
     /**
@@ -324,7 +366,7 @@ public class GVRConsole extends GVRPostEffect {
      * 
      * @return the width of the text canvas.
      */
-    public int getCanvasWidth() {
+    public synchronized int getCanvasWidth() {
         return hudWidth;
     }
 
@@ -333,58 +375,110 @@ public class GVRConsole extends GVRPostEffect {
      * 
      * @return the height of the text canvas.
      */
-    public int getCanvasHeight() {
+    public synchronized int getCanvasHeight() {
         return hudHeight;
     }
 
 
-    private static void log(String TAG, String pattern, Object... parameters) {
-        // Log.d(TAG, pattern, parameters);
+    /**
+     * Size the ring of rows to the canvas and text size, and redraw every
+     * row: the glyphs or the row height may have changed, even if the number
+     * of rows hasn't. Hold the lock.
+     */
+    private void relayout() {
+        int rows = Math.max(1, hudHeight / atlas.rowHeight());
+        if (layout == null) {
+            layout = new ConsoleLayout(rows);
+        } else if (layout.rows() != rows) {
+            layout.resize(rows);
+        }
+        layout.invalidate();
     }
 
-    private void updateHUD() {
-        // TODO Line wrap!
-
-        HUD.eraseColor(Color.TRANSPARENT);
-        float textHeight = paint.getFontSpacing();
-        int rowsOnScreen = (int) (hudHeight / textHeight);
-        float baseLine = hudHeight - Math.max(0, rowsOnScreen - lines.size()) * textHeight;
-        log("updateHUD",
-                "textHeight = %.2f, rowsOnScreen = %d, lines.size() = %d, baseLine = %.2f",
-                textHeight, rowsOnScreen, lines.size(), baseLine);
-        int written = 0;
-        for (String line : lines) {
-            canvas.drawText(line, textXOffset, baseLine - textHeight + textYOffset, paint);
-            written += 1;
-            baseLine -= textHeight;
-            if (baseLine < textHeight) {
-                break;
-            }
+    private void scheduleRefresh() {
+        if (refreshPending.compareAndSet(false, true)) {
+            getGVRContext().runOnGlThread(refresh);
         }
-        for (int index = lines.size() - 1; index > written; --index) {
-            lines.remove(index);
-        }
-
-        setMainTexture();
     }
 
-    private void setMainTexture() {
+    /**
+     * On the GL thread: draw the rows whose text has changed, and upload
+     * them.
+     */
+    private void refresh() {
+        GlyphAtlas atlas;
+        int width, height, rows, topRow, bandCount;
+        boolean newCanvas;
+        synchronized (this) {
+            atlas = this.atlas;
+            width = hudWidth;
+            height = hudHeight;
+            newCanvas = canvasChanged;
+            canvasChanged = false;
+
+            rows = layout.rows();
+            if (rowText == null || rowText.length != rows) {
+                rowText = new String[rows];
+                bands = new int[rows + 1];
+            }
+            if (newCanvas) {
+                layout.invalidate();
+            }
+            bandCount = layout.collectDirtyBands(bands);
+            for (int band = 0; band < bandCount; ++band) {
+                int end = bands[band * 2] + bands[band * 2 + 1];
+                for (int row = bands[band * 2]; row < end; ++row) {
+                    rowText[row] = layout.line(row);
+                }
+            }
+            topRow = layout.topRow();
+        }
 
-        Future<Boolean> textureUpdated = null;
-        if (texture != null) {
-            textureUpdated = texture.update(HUD);
+        int rowHeight = atlas.rowHeight();
+        if (newCanvas) {
+            pixels = new byte[width * height];
+        }
+        for (int band = 0; band < bandCount; ++band) {
+            int end = bands[band * 2] + bands[band * 2 + 1];
+            for (int row = bands[band * 2]; row < end; ++row) {
+                int top = row * rowHeight;
+                Arrays.fill(pixels, top * width, (top + rowHeight) * width,
+                        (byte) 0);
+                if (rowText[row] != null) {
+                    atlas.drawLine(rowText[row], pixels, width, top);
+                }
+                rowText[row] = null;
+            }
         }
 
-        try {
-            if (texture == null || (textureUpdated.get() != null && !textureUpdated.get())) {
-                texture = new GVRBitmapTexture(getGVRContext(), HUD);
-                setMainTexture(texture);
+        if (newCanvas) {
+            texture = newTexture(width, height);
+            setMainTexture(texture);
+        } else {
+            for (int band = 0; band < bandCount; ++band) {
+                texture.updateRows(width, bands[band * 2] * rowHeight,
+                        bands[band * 2 + 1] * rowHeight, pixels);
             }
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        } catch (ExecutionException e) {
-            e.printStackTrace();
         }
+        setUniforms(width, height, topRow * rowHeight, rows * rowHeight);
+    }
+
+    private GVRBitmapTexture newTexture(int width, int height) {
+        // Only ever sampled at about one texel per pixel, and updated a few
+        // rows at a time: no mipmaps, and no filtering across the ring's
+        // wrap
+        GVRTextureParameters parameters = new GVRTextureParameters(
+                getGVRContext());
+        parameters.setMinFilterType(TextureFilterType.GL_NEAREST);
+        parameters.setMagFilterType(TextureFilterType.GL_NEAREST);
+        return new GVRBitmapTexture(getGVRContext(), width, height, pixels,
+                parameters);
+    }
+
+    private void setUniforms(int width, int height, int scroll, int ring) {
+        setVec2(OFFSET_KEY, textXOffset / width, textYOffset / height);
+        setFloat(SCROLL_KEY, (float) scroll / height);
+        setFloat(RING_KEY, (float) ring / height);
     }
 
     private static synchronized GVRPostEffectShaderId getShaderId(
@@ -397,6 +491,10 @@ public class GVRConsole extends GVRPostEffect {
 
             shaderMap = shaderManager.getShaderMap(shaderId);
             shaderMap.addTextureKey("u_overlay", MAIN_TEXTURE);
+            shaderMap.addUniformVec3Key("u_color", COLOR_KEY);
+            shaderMap.addUniformVec2Key("u_offset", OFFSET_KEY);
+            shaderMap.addUniformFloatKey("u_scroll", SCROLL_KEY);
+            shaderMap.addUniformFloatKey("u_ring", RING_KEY);
         }
         return shaderId;
     }
@@ -418,9 +516,13 @@ public class GVRConsole extends GVRPostEffect {
     private static final int HUD_HEIGHT = 1024;
     private static final int HUD_WIDTH = 1024;
     private static final int DEFAULT_COLOR = Color.GREEN;
+    private static final String COLOR_KEY = "color";
+    private static final String OFFSET_KEY = "offset";
+    private static final String SCROLL_KEY = "scroll";
+    private static final String RING_KEY = "ring";
     /**
-     * The baseline calculation seems right ... looks like some of the scene is
-     * getting stenciled out
+     * The top of the console can be outside the lens' view: start the text a
+     * little way down
      */
     private static final float TOP_FUDGE = 20;
 }
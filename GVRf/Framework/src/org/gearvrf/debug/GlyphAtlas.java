@@ -0,0 +1,189 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gearvrf.debug;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import android.graphics.Bitmap;
+import android.graphics.Bitmap.Config;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+
+/**
+ * Glyph coverage for the {@link GVRConsole}, rasterized once per character
+ * and text size, and shared by every console using that size.
+ * 
+ * Each glyph is drawn with {@link Canvas#drawText(String, float, float, Paint)
+ * drawText()} the first time it is needed, and its 8-bit coverage packed into
+ * one atlas; a line of text is then a series of copies out of the atlas, with
+ * no more canvas work. Glyphs are placed at their advance width, without
+ * kerning, which is fine for the console's purposes.
+ */
+final class GlyphAtlas {
+
+    private static final int ATLAS_WIDTH = 512;
+
+    private static final Map<Float, GlyphAtlas> sAtlases = new HashMap<Float, GlyphAtlas>();
+
+    private static final class Glyph {
+        final int x, y, width;
+        final float advance;
+
+        Glyph(int x, int y, int width, float advance) {
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.advance = advance;
+        }
+    }
+
+    private final Paint mPaint = new Paint();
+    private final int mRowHeight;
+    private final int mBaseline;
+
+    private final Glyph[] mAscii = new Glyph[128];
+    private final Map<Character, Glyph> mOthers = new HashMap<Character, Glyph>();
+
+    private byte[] mAtlas;
+    private int mAtlasHeight;
+    private int mNextX = 0, mNextY = 0;
+
+    // Scratch for rasterizing one glyph
+    private final Bitmap mCell;
+    private final Canvas mCanvas;
+    private final int[] mCellPixels;
+    private final char[] mChar = new char[1];
+
+    /**
+     * The atlas for a text size, in pixels.
+     */
+    static synchronized GlyphAtlas get(float textSize) {
+        GlyphAtlas atlas = sAtlases.get(textSize);
+        if (atlas == null) {
+            atlas = new GlyphAtlas(textSize);
+            sAtlases.put(textSize, atlas);
+        }
+        return atlas;
+    }
+
+    private GlyphAtlas(float textSize) {
+        mPaint.setTextSize(textSize);
+        mPaint.setAntiAlias(true);
+        mPaint.setColor(Color.WHITE);
+
+        mRowHeight = Math.max(1, (int) Math.ceil(mPaint.getFontSpacing()));
+        mBaseline = (int) Math.ceil(-mPaint.ascent());
+
+        int cellWidth = Math.max(1, (int) Math.ceil(textSize * 2));
+        mCell = Bitmap.createBitmap(cellWidth, mRowHeight, Config.ALPHA_8);
+        mCanvas = new Canvas(mCell);
+        mCellPixels = new int[cellWidth * mRowHeight];
+
+        mAtlasHeight = mRowHeight * 4;
+        mAtlas = new byte[ATLAS_WIDTH * mAtlasHeight];
+    }
+
+    /** The height of a line of text, in pixels */
+    int rowHeight() {
+        return mRowHeight;
+    }
+
+    /**
+     * Draw a line of text into a row of a grayscale image, adding to what is
+     * there. The line is cut off at the image's right edge.
+     * 
+     * @param text
+     *            The line
+     * @param pixels
+     *            The image, {@code width} bytes per row
+     * @param width
+     *            The image width
+     * @param top
+     *            The image row where the line's row starts: the line takes
+     *            {@link #rowHeight()} rows from there
+     */
+    synchronized void drawLine(String text, byte[] pixels, int width, int top) {
+        float pen = 0;
+        for (int index = 0, length = text.length(); index < length; ++index) {
+            Glyph glyph = glyph(text.charAt(index));
+            int x = Math.round(pen);
+            if (x >= width) {
+                break;
+            }
+            int columns = Math.min(glyph.width, width - x);
+            for (int row = 0; row < mRowHeight; ++row) {
+                int source = (glyph.y + row) * ATLAS_WIDTH + glyph.x;
+                int target = (top + row) * width + x;
+                for (int column = 0; column < columns; ++column) {
+                    int coverage = mAtlas[source + column] & 0xFF;
+                    if (coverage > (pixels[target + column] & 0xFF)) {
+                        pixels[target + column] = (byte) coverage;
+                    }
+                }
+            }
+            pen += glyph.advance;
+        }
+    }
+
+    private Glyph glyph(char c) {
+        Glyph glyph = c < mAscii.length ? mAscii[c] : mOthers.get(c);
+        if (glyph == null) {
+            glyph = rasterize(c);
+            if (c < mAscii.length) {
+                mAscii[c] = glyph;
+            } else {
+                mOthers.put(c, glyph);
+            }
+        }
+        return glyph;
+    }
+
+    private Glyph rasterize(char c) {
+        mChar[0] = c;
+        float advance = mPaint.measureText(mChar, 0, 1);
+        // A pixel of slack for antialiasing past the advance
+        int width = Math.min(mCell.getWidth(), (int) Math.ceil(advance) + 1);
+
+        if (mNextX + width > ATLAS_WIDTH) {
+            mNextX = 0;
+            mNextY += mRowHeight;
+        }
+        if (mNextY + mRowHeight > mAtlasHeight) {
+            mAtlasHeight *= 2;
+            mAtlas = Arrays.copyOf(mAtlas, ATLAS_WIDTH * mAtlasHeight);
+        }
+
+        mCell.eraseColor(Color.TRANSPARENT);
+        mCanvas.drawText(mChar, 0, 1, 0, mBaseline, mPaint);
+        int cellWidth = mCell.getWidth();
+        mCell.getPixels(mCellPixels, 0, cellWidth, 0, 0, cellWidth, mRowHeight);
+        for (int row = 0; row < mRowHeight; ++row) {
+            int target = (mNextY + row) * ATLAS_WIDTH + mNextX;
+            for (int column = 0; column < width; ++column) {
+                mAtlas[target + column] = (byte) (mCellPixels[row * cellWidth
+                        + column] >>> 24);
+            }
+        }
+
+        Glyph glyph = new Glyph(mNextX, mNextY, width, advance);
+        mNextX += width;
+        return glyph;
+    }
+}
@@ -15,8 +15,6 @@
 
 package org.gearvrf.periodic;
 
-import java.util.PriorityQueue;
-
 import org.gearvrf.GVRContext;
 import org.gearvrf.GVRDrawFrameListener;
 import org.gearvrf.GVRScript;
@@ -55,21 +53,27 @@ import org.gearvrf.GVRScript;
  * something like a notification.
  * 
  * <p>
- * The engine maintains a priority queue of events, which it checks in a
- * {@linkplain GVRDrawFrameListener frame listener}; events run as
- * {@linkplain GVRContext#runOnGlThread(Runnable) run-once events.} Every frame,
- * GVRF runs any run-once events; then any frame listeners (including
- * animations); then your {@linkplain GVRScript#onStep() onStep() method;} and
- * then it renders the scene. This means that any periodic events that run on a
- * given frame will run before any animations. It also means that there is
- * always a one frame delay between the time an event is dequeued and the time
- * it actually runs. Scheduling an event from a point in the render pipeline
- * after the periodic engine will add an additional one frame delay. (The
- * periodic engine may run before the animation engine or after it - try not to
- * write code that depends on one running before the other.) Running at 60 fps,
- * each frame is normally 17 milliseconds apart, unless you add too many
- * callbacks or put too much code into your {@code onStep()}; Android garbage
- * collection can introduce additional delays.
+ * Events can also be scheduled in frames, instead of seconds: see
+ * {@link #runAfterFrames(Runnable, int)} and
+ * {@link #runEveryFrames(Runnable, int, int, KeepRunning)}. For these
+ * <em>frame events,</em> every delay and period - including those passed to
+ * the {@link PeriodicEvent} rescheduling methods, and the value returned by
+ * {@link PeriodicEvent#getCurrentWait()} - is a frame count, not seconds.
+ * 
+ * <p>
+ * The engine keeps its events in a pair of hierarchical timing wheels (one
+ * ticking in milliseconds, one in frames) so scheduling and canceling an event
+ * take constant time, no matter how many events are pending. The wheels are
+ * turned by a {@linkplain GVRDrawFrameListener frame listener}, which runs
+ * every due event directly, in deadline order. Every frame, GVRF runs any
+ * {@linkplain GVRContext#runOnGlThread(Runnable) run-once events;} then any
+ * frame listeners (including animations); then your
+ * {@linkplain GVRScript#onStep() onStep() method;} and then it renders the
+ * scene. (The periodic engine may run before the animation engine or after it
+ * - try not to write code that depends on one running before the other.)
+ * Running at 60 fps, each frame is normally 17 milliseconds apart, unless you
+ * add too many callbacks or put too much code into your {@code onStep()};
+ * Android garbage collection can introduce additional delays.
  */
 public class GVRPeriodicEngine {
     private static GVRPeriodicEngine sInstance = null;
@@ -84,12 +88,23 @@ public class GVRPeriodicEngine {
         });
     }
 
-    private final GVRContext mContext;
+    /**
+     * Time wheel ticks are 2^20 nanoseconds - a little over a millisecond.
+     * Events never run early: a deadline is rounded up to the next tick.
+     */
+    private static final int NANOSECONDS_TO_TICKS = 20;
+    private static final long NANOSECONDS_PER_SECOND = 1000000000L;
+
     private final DrawFrameListener mDrawFrameListener = new DrawFrameListener();
-    private final PriorityQueue<EventImplementation> mQueue = new PriorityQueue<EventImplementation>();
+
+    /** Guards both wheels, and all event scheduling fields */
+    private final Object mLock = new Object();
+    private final TimingWheel mTimeWheel = new TimingWheel(
+            System.nanoTime() >> NANOSECONDS_TO_TICKS);
+    private final TimingWheel mFrameWheel = new TimingWheel(0);
+    private volatile long mFrameCount = 0;
 
     protected GVRPeriodicEngine(GVRContext context) {
-        mContext = context;
         context.registerDrawFrameListener(mDrawFrameListener);
     }
 
@@ -120,7 +135,7 @@ public class GVRPeriodicEngine {
      */
     public PeriodicEvent runAfter(Runnable task, float delay) {
         validateDelay(delay);
-        return new Event(task, delay);
+        return new Event(task, false, delay);
     }
 
     /**
@@ -188,7 +203,90 @@ public class GVRPeriodicEngine {
             KeepRunning callback) {
         validateDelay(delay);
         validatePeriod(period);
-        return new Event(task, delay, period, callback);
+        return new Event(task, false, delay, period, callback);
+    }
+
+    /**
+     * Run a task once, after a number of frames.
+     * 
+     * @param task
+     *            Task to run.
+     * @param delay
+     *            Number of frames to wait. 0 means 'on the next frame that
+     *            checks the wheel' - which may be the current frame.
+     * @return An interface that lets you query the status; cancel; or
+     *         reschedule the event. Its delays and waits are in frames.
+     */
+    public PeriodicEvent runAfterFrames(Runnable task, int delay) {
+        validateDelay(delay);
+        return new Event(task, true, delay);
+    }
+
+    /**
+     * Run a task every {@code period} frames, indefinitely.
+     * 
+     * @param task
+     *            Task to run.
+     * @param delay
+     *            The first execution will happen in {@code delay} frames.
+     * @param period
+     *            Subsequent executions will happen every {@code period} frames
+     *            after the first.
+     * @return An interface that lets you query the status; cancel; or
+     *         reschedule the event. Its delays and waits are in frames.
+     */
+    public PeriodicEvent runEveryFrames(Runnable task, int delay, int period) {
+        return runEveryFrames(task, delay, period, null);
+    }
+
+    /**
+     * Run a task every {@code period} frames, for a set number of times.
+     * 
+     * @param task
+     *            Task to run.
+     * @param delay
+     *            The first execution will happen in {@code delay} frames.
+     * @param period
+     *            Subsequent executions will happen every {@code period} frames
+     *            after the first.
+     * @param repetitions
+     *            Repeat count
+     * @return {@code null} if {@code repetitions < 1}; otherwise, an interface
+     *         that lets you query the status; cancel; or reschedule the event.
+     *         Its delays and waits are in frames.
+     */
+    public PeriodicEvent runEveryFrames(Runnable task, int delay, int period,
+            int repetitions) {
+        if (repetitions < 1) {
+            return null;
+        } else if (repetitions == 1) {
+            return runAfterFrames(task, delay);
+        } else {
+            return runEveryFrames(task, delay, period, new RunFor(repetitions));
+        }
+    }
+
+    /**
+     * Run a task every {@code period} frames, with a callback.
+     * 
+     * @param task
+     *            Task to run.
+     * @param delay
+     *            The first execution will happen in {@code delay} frames.
+     * @param period
+     *            Subsequent executions will happen every {@code period} frames
+     *            after the first.
+     * @param callback
+     *            Callback that lets you cancel the task. {@code null} means run
+     *            indefinitely.
+     * @return An interface that lets you query the status; cancel; or
+     *         reschedule the event. Its delays and waits are in frames.
+     */
+    public PeriodicEvent runEveryFrames(Runnable task, int delay, int period,
+            KeepRunning callback) {
+        validateDelay(delay);
+        validatePeriod(period);
+        return new Event(task, true, delay, period, callback);
     }
 
     /**
@@ -329,40 +427,48 @@ public class GVRPeriodicEngine {
         void runEvery(float delay, float period, KeepRunning callback);
     }
 
-    private interface EventImplementation extends PeriodicEvent,
-            Comparable<EventImplementation>, Runnable {
-        float getScheduledTime();
-    }
-
-    /**
-     * The periodic engine's time base.
-     * 
-     * Unit is seconds.
-     */
-    private static float now() {
-        return System.nanoTime() / 1e9f;
+    /** Round nanoseconds up to the next time wheel tick */
+    private static long toTick(long nanoseconds) {
+        return (nanoseconds + (1L << NANOSECONDS_TO_TICKS) - 1) >> NANOSECONDS_TO_TICKS;
     }
 
     private class DrawFrameListener implements GVRDrawFrameListener {
 
         @Override
         public void onDrawFrame(float frameTime) {
-            float now = GVRPeriodicEngine.now();
-            synchronized (mQueue) {
-                for (EventImplementation //
-                first = mQueue.peek(); //
-                first != null && first.getScheduledTime() <= now; //
-                first = mQueue.peek() //
-                ) {
+            long frame;
+            synchronized (mLock) {
+                frame = mFrameCount + 1;
+                mFrameCount = frame;
+                mTimeWheel.advance(System.nanoTime() >> NANOSECONDS_TO_TICKS);
+                mFrameWheel.advance(frame);
+            }
 
-                    mContext.runOnGlThread(mQueue.poll());
+            runDue(mTimeWheel);
+            runDue(mFrameWheel);
+        }
 
+        /**
+         * Run each due event. An event canceled (from another thread) while we
+         * are working through the due list will be unlinked from it, and so
+         * not run. We don't hold the lock while an event runs.
+         */
+        private void runDue(TimingWheel wheel) {
+            while (true) {
+                Event due;
+                synchronized (mLock) {
+                    due = (Event) wheel.pollDue();
+                }
+                if (due == null) {
+                    return;
                 }
+                due.run();
             }
         }
     }
 
-    private class Event implements EventImplementation {
+    private class Event extends TimingWheel.Node implements PeriodicEvent,
+            Runnable {
 
         /*
          * Task, and run-count
@@ -379,9 +485,13 @@ public class GVRPeriodicEngine {
         private boolean mRunning = false;
 
         /*
-         * Queue management
+         * Wheel management
          */
 
+        /** Is this a frame event? All times are frames, not nanoseconds */
+        private final boolean mFrames;
+        private final TimingWheel mWheel;
+
         /**
          * Set by {@link #cancel()} to assure that events canceled from non-GL
          * thread during execution are not rescheduled.
@@ -390,63 +500,71 @@ public class GVRPeriodicEngine {
 
         private void lockedEnqueue() {
             if (mCanceled != true) {
-                mQueue.add(this);
+                mWheel.schedule(this, mFrames ? mScheduledTime
+                        : toTick(mScheduledTime));
             }
         }
 
         private void lockedDequeue() {
-            mQueue.remove(this);
+            mWheel.cancel(this);
         }
 
         private void enqueue() {
-            synchronized (mQueue) {
+            synchronized (mLock) {
                 lockedEnqueue();
             }
         }
 
-        @SuppressWarnings("unused")
-        private void dequeue() {
-            synchronized (mQueue) {
-                lockedDequeue();
-            }
-        }
-
         /*
-         * Scheduling fields.
+         * Scheduling fields, in nanoseconds or frames.
          * 
-         * A run-once event has an mPeriod == UNSCHEDULED.
+         * A run-once event has an mPeriod == NOT_PERIODIC.
          * 
          * We allow the user to change the scheduling at any time. To assure
          * consistency, neither constructors nor the rescheduling methods set
          * these fields directly: both go through setDelay() or setRepeat().
          */
 
-        private float mTimeBase;
-        private float mScheduledTime;
-        private float mPeriod;
+        private static final long NOT_PERIODIC = -1;
+        private static final long NOT_SCHEDULED = Long.MIN_VALUE;
+
+        /** The first scheduled execution: periodic executions keep its phase */
+        private long mTimeBase;
+        private long mScheduledTime = NOT_SCHEDULED;
+        private long mPeriod = NOT_PERIODIC;
         private KeepRunning mCallback;
 
+        private long now() {
+            return mFrames ? mFrameCount : System.nanoTime();
+        }
+
+        /** Convert a user-supplied delay or period to frames or nanoseconds */
+        private long toUnits(float interval) {
+            return mFrames ? (long) Math.ceil(interval)
+                    : (long) ((double) interval * NANOSECONDS_PER_SECOND);
+        }
+
         private void setDelay(float delay) {
-            mTimeBase = now();
-            schedule(mTimeBase + delay);
-            mPeriod = UNSCHEDULED;
+            mTimeBase = now() + toUnits(delay);
+            schedule(mTimeBase);
+            mPeriod = NOT_PERIODIC;
             mCallback = null;
         }
 
         private void setRepeat(float delay, float period, KeepRunning callback) {
-            mTimeBase = now();
-            schedule(mTimeBase + delay);
-            mPeriod = period;
+            mTimeBase = now() + toUnits(delay);
+            schedule(mTimeBase);
+            mPeriod = Math.max(1, toUnits(period));
             mCallback = callback;
         }
 
-        private void schedule(float time) {
+        private void schedule(long time) {
             mScheduledTime = time;
             mCanceled = false;
         }
 
         private void deschedule() {
-            mScheduledTime = UNSCHEDULED;
+            mScheduledTime = NOT_SCHEDULED;
         }
 
         private void reschedule() {
@@ -455,47 +573,47 @@ public class GVRPeriodicEngine {
                     return; // Do NOT reschedule
                 }
 
-                float next = mTimeBase + (((now() - mTimeBase) / mPeriod) + 1)
-                        * mPeriod;
-                schedule(next);
-                enqueue();
+                long elapsed = now() - mTimeBase;
+                long periods = elapsed < 0 ? 0 : elapsed / mPeriod + 1;
+                synchronized (mLock) {
+                    schedule(mTimeBase + periods * mPeriod);
+                    lockedEnqueue();
+                }
             }
         }
 
         private boolean enqueued() {
-            synchronized (mQueue) {
-                for (EventImplementation event : mQueue) {
-                    if (this == event) {
-                        return true;
-                    }
-                }
+            synchronized (mLock) {
+                return mWheel.isScheduled(this);
             }
-            // else
-            return false;
         }
 
         private boolean scheduled() {
-            return mScheduledTime != UNSCHEDULED;
+            return mScheduledTime != NOT_SCHEDULED;
         }
 
         private boolean repeats() {
-            return mPeriod != UNSCHEDULED;
+            return mPeriod != NOT_PERIODIC;
         }
 
         /*
          * Constructors
          */
 
-        private Event(Runnable task, float delay) {
+        private Event(Runnable task, boolean frames, float delay) {
             mTask = task;
+            mFrames = frames;
+            mWheel = frames ? mFrameWheel : mTimeWheel;
             setDelay(delay);
 
             enqueue();
         }
 
-        private Event(Runnable task, float delay, float period,
-                KeepRunning callback) {
+        private Event(Runnable task, boolean frames, float delay,
+                float period, KeepRunning callback) {
             mTask = task;
+            mFrames = frames;
+            mWheel = frames ? mFrameWheel : mTimeWheel;
             setRepeat(delay, period, callback);
 
             enqueue();
@@ -512,12 +630,17 @@ public class GVRPeriodicEngine {
 
         @Override
         public float getCurrentWait() {
-            return scheduled() ? mScheduledTime - now() : UNSCHEDULED;
+            long scheduledTime = mScheduledTime;
+            if (scheduledTime == NOT_SCHEDULED) {
+                return UNSCHEDULED;
+            }
+            long wait = scheduledTime - now();
+            return mFrames ? wait : wait / (float) NANOSECONDS_PER_SECOND;
         }
 
         @Override
         public void cancel() {
-            synchronized (mQueue) {
+            synchronized (mLock) {
                 deschedule();
                 lockedDequeue();
                 mCanceled = true;
@@ -528,7 +651,7 @@ public class GVRPeriodicEngine {
         public void runAfter(float delay) {
             validateDelay(delay);
 
-            synchronized (mQueue) {
+            synchronized (mLock) {
                 lockedDequeue();
                 setDelay(delay);
                 lockedEnqueue();
@@ -551,32 +674,13 @@ public class GVRPeriodicEngine {
             validateDelay(delay);
             validatePeriod(period);
 
-            synchronized (mQueue) {
+            synchronized (mLock) {
                 lockedDequeue();
                 setRepeat(delay, period, callback);
                 lockedEnqueue();
             }
         }
 
-        /*
-         * EventImplementation
-         */
-
-        @Override
-        public float getScheduledTime() {
-            return mScheduledTime;
-        }
-
-        /*
-         * Comparable<EventImplementation>
-         */
-
-        @Override
-        public int compareTo(EventImplementation other) {
-            final float delta = getScheduledTime() - other.getScheduledTime();
-            return delta < 0 ? -1 : (delta == 0 ? 0 : 1);
-        }
-
         /*
          * Runnable
          */
@@ -0,0 +1,219 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.periodic;
+
+/**
+ * A hierarchical timing wheel: four levels of 64 slots, each level covering 64
+ * times the span of the level below it.
+ *
+ * <p>
+ * Scheduled items are {@linkplain Node intrusive list nodes,} so
+ * {@link #schedule(Node, long)} and {@link #cancel(Node)} are O(1) and never
+ * allocate. {@link #advance(long)} moves due nodes onto a due list, in tick
+ * order; {@link #pollDue()} takes them off, one by one. Deadlines beyond the
+ * range of the top level are parked in the top level, and re-filed as the
+ * wheel turns.
+ *
+ * <p>
+ * Ticks are whatever unit the caller likes. This class is not thread-safe:
+ * {@link GVRPeriodicEngine} guards each wheel with its own lock.
+ */
+final class TimingWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    /** Longest delta we can file exactly */
+    private static final long MAX_DELTA = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    /** {@link Node#mLocation} value: not in any list */
+    private static final int NOWHERE = -1;
+    /** {@link Node#mLocation} value: on the due list */
+    private static final int DUE = -2;
+
+    /** An item that can be scheduled on a timing wheel. */
+    static class Node {
+        private Node mPrevious;
+        private Node mNext;
+        private long mDeadline;
+        /** Slot index (level * SLOTS + slot), {@link #DUE}, or {@link #NOWHERE} */
+        private int mLocation = NOWHERE;
+
+        /** The tick this node was scheduled for */
+        final long getDeadline() {
+            return mDeadline;
+        }
+    }
+
+    /** Circular list sentinels, indexed by level * SLOTS + slot */
+    private final Node[] mSlots = new Node[LEVELS * SLOTS];
+    private final Node mDue = newSentinel();
+
+    /** The next tick {@link #advance(long)} will process */
+    private long mCurrentTick;
+    /** Number of nodes in the wheel - not counting the due list */
+    private int mCount;
+
+    TimingWheel(long startTick) {
+        mCurrentTick = startTick;
+        for (int index = 0; index < mSlots.length; ++index) {
+            mSlots[index] = newSentinel();
+        }
+    }
+
+    /** Number of scheduled nodes, including any on the due list */
+    int size() {
+        int due = 0;
+        for (Node node = mDue.mNext; node != mDue; node = node.mNext) {
+            ++due;
+        }
+        return mCount + due;
+    }
+
+    /**
+     * Schedule (or reschedule) a node.
+     *
+     * @param deadline
+     *            The node will be due when the wheel {@linkplain #advance(long)
+     *            advances} to this tick. A deadline in the past will be due on
+     *            the next {@code advance()}.
+     */
+    void schedule(Node node, long deadline) {
+        cancel(node);
+        node.mDeadline = deadline;
+        file(node);
+        mCount += 1;
+    }
+
+    /** Remove a node from the wheel, or from the due list. Harmless if neither */
+    void cancel(Node node) {
+        if (node.mLocation == NOWHERE) {
+            return;
+        }
+        if (node.mLocation != DUE) {
+            mCount -= 1;
+        }
+        unlink(node);
+    }
+
+    /** Is the node in the wheel, or on the due list? */
+    boolean isScheduled(Node node) {
+        return node.mLocation != NOWHERE;
+    }
+
+    /**
+     * Process every tick up to and including {@code tick}, moving due nodes to
+     * the end of the due list.
+     */
+    void advance(long tick) {
+        while (mCurrentTick <= tick) {
+            if (mCount == 0) {
+                mCurrentTick = tick + 1;
+                return;
+            }
+
+            int slot = (int) (mCurrentTick & SLOT_MASK);
+            if (slot == 0) {
+                cascade();
+            }
+
+            Node sentinel = mSlots[slot];
+            for (Node node = sentinel.mNext; node != sentinel; node = sentinel.mNext) {
+                unlink(node);
+                mCount -= 1;
+                append(mDue, node, DUE);
+            }
+
+            mCurrentTick += 1;
+        }
+    }
+
+    /** Take the first node off the due list; returns {@code null} if none */
+    Node pollDue() {
+        Node node = mDue.mNext;
+        if (node == mDue) {
+            return null;
+        }
+        unlink(node);
+        return node;
+    }
+
+    /**
+     * Level 0 has wrapped: re-file the current slot of level 1, and so on up
+     * the levels that have also wrapped.
+     */
+    private void cascade() {
+        for (int level = 1; level < LEVELS; ++level) {
+            int slot = (int) ((mCurrentTick >>> (level * SLOT_BITS)) & SLOT_MASK);
+            Node sentinel = mSlots[level * SLOTS + slot];
+            for (Node node = sentinel.mNext; node != sentinel; node = sentinel.mNext) {
+                unlink(node);
+                file(node);
+            }
+            if (slot != 0) {
+                return;
+            }
+        }
+    }
+
+    private void file(Node node) {
+        long deadline = node.mDeadline;
+        long delta = deadline - mCurrentTick;
+
+        int location;
+        if (delta < 0) {
+            location = (int) (mCurrentTick & SLOT_MASK);
+        } else {
+            if (delta > MAX_DELTA) {
+                // Park in the top level; cascade() will re-file it
+                deadline = mCurrentTick + MAX_DELTA;
+                delta = MAX_DELTA;
+            }
+            int level = 0;
+            while (delta >= SLOTS) {
+                delta >>>= SLOT_BITS;
+                level += 1;
+            }
+            int slot = (int) ((deadline >>> (level * SLOT_BITS)) & SLOT_MASK);
+            location = level * SLOTS + slot;
+        }
+
+        append(mSlots[location], node, location);
+    }
+
+    private static void append(Node sentinel, Node node, int location) {
+        Node last = sentinel.mPrevious;
+        node.mPrevious = last;
+        node.mNext = sentinel;
+        last.mNext = node;
+        sentinel.mPrevious = node;
+        node.mLocation = location;
+    }
+
+    private static void unlink(Node node) {
+        node.mPrevious.mNext = node.mNext;
+        node.mNext.mPrevious = node.mPrevious;
+        node.mPrevious = node.mNext = null;
+        node.mLocation = NOWHERE;
+    }
+
+    private static Node newSentinel() {
+        Node sentinel = new Node();
+        sentinel.mPrevious = sentinel.mNext = sentinel;
+        return sentinel;
+    }
+}
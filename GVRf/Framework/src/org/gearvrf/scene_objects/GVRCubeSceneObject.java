@@ -25,6 +25,9 @@ import org.gearvrf.GVRRenderData;
 import org.gearvrf.GVRContext;
 import org.gearvrf.GVRMesh;
 import org.gearvrf.GVRTexture;
+import org.gearvrf.scene_objects.GVRPrimitiveMeshCache.Key;
+import org.gearvrf.scene_objects.GVRPrimitiveMeshCache.MeshList;
+import org.gearvrf.scene_objects.GVRPrimitiveMeshCache.Shape;
 
 public class GVRCubeSceneObject extends GVRSceneObject {
 
@@ -348,24 +351,28 @@ public class GVRCubeSceneObject extends GVRSceneObject {
     private void createSimpleCube(GVRContext gvrContext, boolean facingOut,
             GVRMaterial material) {
 
-        GVRMesh mesh = new GVRMesh(gvrContext);
-
-        if (facingOut) {
-            mesh.setVertices(SIMPLE_VERTICES);
-            mesh.setNormals(SIMPLE_OUTWARD_NORMALS);
-            mesh.setTexCoords(SIMPLE_OUTWARD_TEXCOORDS);
-            mesh.setTriangles(SIMPLE_OUTWARD_INDICES);
-        } else {
-            mesh.setVertices(SIMPLE_VERTICES);
-            mesh.setNormals(SIMPLE_INWARD_NORMALS);
-            mesh.setTexCoords(SIMPLE_INWARD_TEXCOORDS);
-            mesh.setTriangles(SIMPLE_INWARD_INDICES);
+        GVRPrimitiveMeshCache cache = GVRPrimitiveMeshCache
+                .getInstance(gvrContext);
+        Key key = new Key(Shape.CUBE, facingOut);
+        GVRMesh[] meshes = cache.get(key);
+        if (meshes == null) {
+            MeshList meshList = new MeshList();
+            if (facingOut) {
+                meshList.add(gvrContext, SIMPLE_VERTICES,
+                        SIMPLE_OUTWARD_NORMALS, SIMPLE_OUTWARD_TEXCOORDS,
+                        SIMPLE_OUTWARD_INDICES);
+            } else {
+                meshList.add(gvrContext, SIMPLE_VERTICES,
+                        SIMPLE_INWARD_NORMALS, SIMPLE_INWARD_TEXCOORDS,
+                        SIMPLE_INWARD_INDICES);
+            }
+            meshes = cache.put(key, meshList);
         }
 
         GVRRenderData renderData = new GVRRenderData(gvrContext);
         renderData.setMaterial(material);
         attachRenderData(renderData);
-        renderData.setMesh(mesh);
+        renderData.setMesh(meshes[0]);
     }
 
     private static final char[] SIMPLE_OUTWARD_FRONT_INDICES = { 0, 1, 2, // front
@@ -394,47 +401,45 @@ public class GVRCubeSceneObject extends GVRSceneObject {
     private static final char[] SIMPLE_INWARD_BOTTOM_INDICES = { 20, 22, 21, // bottom
             21, 22, 23 };
 
+    private static final char[][] SIMPLE_OUTWARD_FACE_INDICES = {
+            SIMPLE_OUTWARD_FRONT_INDICES, SIMPLE_OUTWARD_RIGHT_INDICES,
+            SIMPLE_OUTWARD_BACK_INDICES, SIMPLE_OUTWARD_LEFT_INDICES,
+            SIMPLE_OUTWARD_TOP_INDICES, SIMPLE_OUTWARD_BOTTOM_INDICES };
+
+    private static final char[][] SIMPLE_INWARD_FACE_INDICES = {
+            SIMPLE_INWARD_FRONT_INDICES, SIMPLE_INWARD_RIGHT_INDICES,
+            SIMPLE_INWARD_BACK_INDICES, SIMPLE_INWARD_LEFT_INDICES,
+            SIMPLE_INWARD_TOP_INDICES, SIMPLE_INWARD_BOTTOM_INDICES };
+
     private void createSimpleCubeSixMeshes(GVRContext gvrContext,
             boolean facingOut, ArrayList<Future<GVRTexture>> futureTextureList) {
 
-        GVRSceneObject[] children = new GVRSceneObject[6];
-        GVRMesh[] meshes = new GVRMesh[6];
-        for (int i = 0; i < 6; i++) {
-            meshes[i] = new GVRMesh(gvrContext);
+        GVRPrimitiveMeshCache cache = GVRPrimitiveMeshCache
+                .getInstance(gvrContext);
+        Key key = new Key(Shape.SPLIT_CUBE, facingOut);
+        GVRMesh[] meshes = cache.get(key);
+        if (meshes == null) {
+            MeshList meshList = new MeshList();
+            if (facingOut) {
+                for (char[] faceIndices : SIMPLE_OUTWARD_FACE_INDICES) {
+                    meshList.add(gvrContext, SIMPLE_VERTICES,
+                            SIMPLE_OUTWARD_NORMALS, SIMPLE_OUTWARD_TEXCOORDS,
+                            faceIndices);
+                }
+            } else {
+                for (char[] faceIndices : SIMPLE_INWARD_FACE_INDICES) {
+                    meshList.add(gvrContext, SIMPLE_VERTICES,
+                            SIMPLE_INWARD_NORMALS, SIMPLE_INWARD_TEXCOORDS,
+                            faceIndices);
+                }
+            }
+            meshes = cache.put(key, meshList);
         }
 
-        if (facingOut) {
-            meshes[0].setTriangles(SIMPLE_OUTWARD_FRONT_INDICES);
-            meshes[1].setTriangles(SIMPLE_OUTWARD_RIGHT_INDICES);
-            meshes[2].setTriangles(SIMPLE_OUTWARD_BACK_INDICES);
-            meshes[3].setTriangles(SIMPLE_OUTWARD_LEFT_INDICES);
-            meshes[4].setTriangles(SIMPLE_OUTWARD_TOP_INDICES);
-            meshes[5].setTriangles(SIMPLE_OUTWARD_BOTTOM_INDICES);
-            for (int i = 0; i < 6; i++) {
-                meshes[i].setVertices(SIMPLE_VERTICES);
-                meshes[i].setNormals(SIMPLE_OUTWARD_NORMALS);
-                meshes[i].setTexCoords(SIMPLE_OUTWARD_TEXCOORDS);
-                children[i] = new GVRSceneObject(gvrContext,
-                        new FutureWrapper<GVRMesh>(meshes[i]),
-                        futureTextureList.get(i));
-                addChildObject(children[i]);
-            }
-        } else {
-            meshes[0].setTriangles(SIMPLE_INWARD_FRONT_INDICES);
-            meshes[1].setTriangles(SIMPLE_INWARD_RIGHT_INDICES);
-            meshes[2].setTriangles(SIMPLE_INWARD_BACK_INDICES);
-            meshes[3].setTriangles(SIMPLE_INWARD_LEFT_INDICES);
-            meshes[4].setTriangles(SIMPLE_INWARD_TOP_INDICES);
-            meshes[5].setTriangles(SIMPLE_INWARD_BOTTOM_INDICES);
-            for (int i = 0; i < 6; i++) {
-                meshes[i].setVertices(SIMPLE_VERTICES);
-                meshes[i].setNormals(SIMPLE_INWARD_NORMALS);
-                meshes[i].setTexCoords(SIMPLE_INWARD_TEXCOORDS);
-                children[i] = new GVRSceneObject(gvrContext,
-                        new FutureWrapper<GVRMesh>(meshes[i]),
-                        futureTextureList.get(i));
-                addChildObject(children[i]);
-            }
+        for (int i = 0; i < 6; i++) {
+            addChildObject(new GVRSceneObject(gvrContext,
+                    new FutureWrapper<GVRMesh>(meshes[i]),
+                    futureTextureList.get(i)));
         }
         
         // attached an empty renderData for parent object, so that we can set some common properties
@@ -450,16 +455,40 @@ public class GVRCubeSceneObject extends GVRSceneObject {
     private void createComplexCube(GVRContext gvrContext,
             boolean facingOut, ArrayList<Future<GVRTexture>> futureTextureList, int segmentNumber) {
 
-        GVRSceneObject[] children = new GVRSceneObject[6];
-        for (int i = 0; i < 6; i++) {
-            children[i] = new GVRSceneObject(gvrContext);
-            addChildObject(children[i]);
+        GVRPrimitiveMeshCache cache = GVRPrimitiveMeshCache
+                .getInstance(gvrContext);
+        Key key = new Key(Shape.SEGMENTED_CUBE, facingOut, segmentNumber);
+        GVRMesh[] meshes = cache.get(key);
+        if (meshes == null) {
+            MeshList meshList = new MeshList();
+            createComplexCubeMeshes(gvrContext, facingOut, segmentNumber,
+                    meshList);
+            meshes = cache.put(key, meshList);
         }
-        
+
         int numPerFace = segmentNumber*segmentNumber;
-        GVRSceneObject[] grandchildren = new GVRSceneObject[numPerFace];
-        GVRMesh[] subMeshes = new GVRMesh[numPerFace];
-        
+        for (int i = 0; i < 6; i++) {
+            GVRSceneObject child = new GVRSceneObject(gvrContext);
+            addChildObject(child);
+            for (int index = 0; index < numPerFace; index++) {
+                child.addChildObject(new GVRSceneObject(gvrContext,
+                        new FutureWrapper<GVRMesh>(meshes[i * numPerFace
+                                + index]), futureTextureList.get(i)));
+            }
+        }
+
+        // attached an empty renderData for parent object, so that we can set some common properties
+        GVRRenderData renderData = new GVRRenderData(gvrContext);
+        attachRenderData(renderData);
+    }
+
+    /**
+     * The sub-meshes of each face in turn, front, right, back, left, top, and
+     * bottom.
+     */
+    private void createComplexCubeMeshes(GVRContext gvrContext,
+            boolean facingOut, int segmentNumber, MeshList meshList) {
+
         // 4 vertices (2 triangles) per mesh
         vertices = new float[12];
         normals = new float[12];
@@ -498,7 +527,6 @@ public class GVRCubeSceneObject extends GVRSceneObject {
         for (int col = 0; col<segmentNumber; col++) {
             for (int row = 0; row<segmentNumber; row++) {
                 // sub-mesh (col, row)
-                int index = row*segmentNumber+col;
                 
                 float x0 = -SIZE + segmentLength * col;
                 float y0 = -SIZE + segmentLength * row;
@@ -537,15 +565,7 @@ public class GVRCubeSceneObject extends GVRSceneObject {
                 texCoords[6] = s1; 
                 texCoords[7] = t0;
                 
-                subMeshes[index] = new GVRMesh(gvrContext);
-                subMeshes[index].setVertices(vertices);
-                subMeshes[index].setNormals(normals);
-                subMeshes[index].setTexCoords(texCoords);
-                subMeshes[index].setTriangles(indices);
-                grandchildren[index] = new GVRSceneObject(gvrContext,
-                        new FutureWrapper<GVRMesh>(subMeshes[index]),
-                        futureTextureList.get(0));
-                children[0].addChildObject(grandchildren[index]);
+                meshList.add(gvrContext, vertices, normals, texCoords, indices);
             }
         }
 
@@ -560,7 +580,6 @@ public class GVRCubeSceneObject extends GVRSceneObject {
         for (int col = 0; col<segmentNumber; col++) {
             for (int row = 0; row<segmentNumber; row++) {
                 // sub-mesh (col, row)
-                int index = row*segmentNumber+col;
                 
                 float x = SIZE;
                 float y0 = -SIZE + segmentLength * row;
@@ -599,15 +618,7 @@ public class GVRCubeSceneObject extends GVRSceneObject {
                 texCoords[6] = s1; 
                 texCoords[7] = t0;
                 
-                subMeshes[index] = new GVRMesh(gvrContext);
-                subMeshes[index].setVertices(vertices);
-                subMeshes[index].setNormals(normals);
-                subMeshes[index].setTexCoords(texCoords);
-                subMeshes[index].setTriangles(indices);
-                grandchildren[index] = new GVRSceneObject(gvrContext,
-                        new FutureWrapper<GVRMesh>(subMeshes[index]),
-                        futureTextureList.get(1));
-                children[1].addChildObject(grandchildren[index]);
+                meshList.add(gvrContext, vertices, normals, texCoords, indices);
             }
         }
 
@@ -622,7 +633,6 @@ public class GVRCubeSceneObject extends GVRSceneObject {
         for (int col = 0; col<segmentNumber; col++) {
             for (int row = 0; row<segmentNumber; row++) {
                 // sub-mesh (col, row)
-                int index = row*segmentNumber+col;
                 
                 float x0 = SIZE - segmentLength * col;
                 float y0 = -SIZE + segmentLength * row;
@@ -661,15 +671,7 @@ public class GVRCubeSceneObject extends GVRSceneObject {
                 texCoords[6] = s1; 
                 texCoords[7] = t0;
                 
-                subMeshes[index] = new GVRMesh(gvrContext);
-                subMeshes[index].setVertices(vertices);
-                subMeshes[index].setNormals(normals);
-                subMeshes[index].setTexCoords(texCoords);
-                subMeshes[index].setTriangles(indices);
-                grandchildren[index] = new GVRSceneObject(gvrContext,
-                        new FutureWrapper<GVRMesh>(subMeshes[index]),
-                        futureTextureList.get(2));
-                children[2].addChildObject(grandchildren[index]);
+                meshList.add(gvrContext, vertices, normals, texCoords, indices);
             }
         }
 
@@ -684,7 +686,6 @@ public class GVRCubeSceneObject extends GVRSceneObject {
         for (int col = 0; col<segmentNumber; col++) {
             for (int row = 0; row<segmentNumber; row++) {
                 // sub-mesh (col, row)
-                int index = row*segmentNumber+col;
                 
                 float x = -SIZE;
                 float y0 = -SIZE + segmentLength * row;
@@ -723,15 +724,7 @@ public class GVRCubeSceneObject extends GVRSceneObject {
                 texCoords[6] = s1; 
                 texCoords[7] = t0;
                 
-                subMeshes[index] = new GVRMesh(gvrContext);
-                subMeshes[index].setVertices(vertices);
-                subMeshes[index].setNormals(normals);
-                subMeshes[index].setTexCoords(texCoords);
-                subMeshes[index].setTriangles(indices);
-                grandchildren[index] = new GVRSceneObject(gvrContext,
-                        new FutureWrapper<GVRMesh>(subMeshes[index]),
-                        futureTextureList.get(3));
-                children[3].addChildObject(grandchildren[index]);
+                meshList.add(gvrContext, vertices, normals, texCoords, indices);
             }
         }
 
@@ -746,7 +739,6 @@ public class GVRCubeSceneObject extends GVRSceneObject {
         for (int col = 0; col<segmentNumber; col++) {
             for (int row = 0; row<segmentNumber; row++) {
                 // sub-mesh (col, row)
-                int index = row*segmentNumber+col;
                 
                 float y = SIZE;
                 float x0 = -SIZE + segmentLength * col;
@@ -780,15 +772,7 @@ public class GVRCubeSceneObject extends GVRSceneObject {
                 texCoords[6] = s1; 
                 texCoords[7] = t0;
                 
-                subMeshes[index] = new GVRMesh(gvrContext);
-                subMeshes[index].setVertices(vertices);
-                subMeshes[index].setNormals(normals);
-                subMeshes[index].setTexCoords(texCoords);
-                subMeshes[index].setTriangles(indices);
-                grandchildren[index] = new GVRSceneObject(gvrContext,
-                        new FutureWrapper<GVRMesh>(subMeshes[index]),
-                        futureTextureList.get(4));
-                children[4].addChildObject(grandchildren[index]);
+                meshList.add(gvrContext, vertices, normals, texCoords, indices);
             }
         }
 
@@ -803,7 +787,6 @@ public class GVRCubeSceneObject extends GVRSceneObject {
         for (int col = 0; col<segmentNumber; col++) {
             for (int row = 0; row<segmentNumber; row++) {
                 // sub-mesh (col, row)
-                int index = row*segmentNumber+col;
                 
                 float y = -SIZE;
                 float x0 = -SIZE + segmentLength * col;
@@ -837,20 +820,8 @@ public class GVRCubeSceneObject extends GVRSceneObject {
                 texCoords[6] = s1; 
                 texCoords[7] = t0;
                 
-                subMeshes[index] = new GVRMesh(gvrContext);
-                subMeshes[index].setVertices(vertices);
-                subMeshes[index].setNormals(normals);
-                subMeshes[index].setTexCoords(texCoords);
-                subMeshes[index].setTriangles(indices);
-                grandchildren[index] = new GVRSceneObject(gvrContext,
-                        new FutureWrapper<GVRMesh>(subMeshes[index]),
-                        futureTextureList.get(5));
-                children[5].addChildObject(grandchildren[index]);
+                meshList.add(gvrContext, vertices, normals, texCoords, indices);
             }
         }
-
-        // attached an empty renderData for parent object, so that we can set some common properties
-        GVRRenderData renderData = new GVRRenderData(gvrContext);
-        attachRenderData(renderData);
     }
 }
@@ -25,6 +25,9 @@ import org.gearvrf.GVRRenderData;
 import org.gearvrf.GVRContext;
 import org.gearvrf.GVRMesh;
 import org.gearvrf.GVRTexture;
+import org.gearvrf.scene_objects.GVRPrimitiveMeshCache.Key;
+import org.gearvrf.scene_objects.GVRPrimitiveMeshCache.MeshList;
+import org.gearvrf.scene_objects.GVRPrimitiveMeshCache.Shape;
 import org.gearvrf.utility.Log;
 
 public class GVRCylinderSceneObject extends GVRSceneObject {
@@ -484,40 +487,70 @@ public class GVRCylinderSceneObject extends GVRSceneObject {
     private void generateCylinderObject(GVRContext gvrContext,
             float bottomRadius, float topRadius, float height, int stackNumber,
             int sliceNumber, boolean facingOut, GVRMaterial material) {
-        generateCylinder(bottomRadius, topRadius, height, stackNumber,
-                sliceNumber, facingOut);
-
-        GVRMesh mesh = new GVRMesh(gvrContext);
-        mesh.setVertices(vertices);
-        mesh.setNormals(normals);
-        mesh.setTexCoords(texCoords);
-        mesh.setTriangles(indices);
+        GVRPrimitiveMeshCache cache = GVRPrimitiveMeshCache
+                .getInstance(gvrContext);
+        Key key = new Key(Shape.CYLINDER, facingOut, bottomRadius, topRadius,
+                height, stackNumber, sliceNumber);
+        GVRMesh[] meshes = cache.get(key);
+        if (meshes == null) {
+            generateCylinder(bottomRadius, topRadius, height, stackNumber,
+                    sliceNumber, facingOut);
+
+            MeshList meshList = new MeshList();
+            meshList.add(gvrContext, vertices, normals, texCoords, indices);
+            meshes = cache.put(key, meshList);
+        }
 
         GVRRenderData renderData = new GVRRenderData(gvrContext);
         attachRenderData(renderData);
-        renderData.setMesh(mesh);
+        renderData.setMesh(meshes[0]);
         renderData.setMaterial(material);
     }
 
     private void generateCylinderObjectThreeMeshes(GVRContext gvrContext,
             float bottomRadius, float topRadius, float height, int stackNumber,
             int sliceNumber, boolean facingOut, ArrayList<Future<GVRTexture>> futureTextureList) {
-        float halfHeight = height / 2.0f;
+        GVRPrimitiveMeshCache cache = GVRPrimitiveMeshCache
+                .getInstance(gvrContext);
+        Key key = new Key(Shape.SPLIT_CYLINDER, facingOut, bottomRadius,
+                topRadius, height, stackNumber, sliceNumber);
+        GVRMesh[] meshes = cache.get(key);
+        if (meshes == null) {
+            MeshList meshList = new MeshList();
+            float halfHeight = height / 2.0f;
+
+            // top cap
+            if (topRadius > 0) {
+                createCapMesh(gvrContext, topRadius, halfHeight, sliceNumber,
+                        1.0f, facingOut, meshList);
+            }
 
-        // top cap
+            // cylinder body
+            createBodyMesh(gvrContext, bottomRadius, topRadius, height,
+                    stackNumber, sliceNumber, facingOut, meshList);
+
+            // bottom cap
+            if (bottomRadius > 0) {
+                createCapMesh(gvrContext, bottomRadius, -halfHeight,
+                        sliceNumber, -1.0f, facingOut, meshList);
+            }
+
+            meshes = cache.put(key, meshList);
+        }
+
+        int next = 0;
         if (topRadius > 0) {
-            createCapMesh(gvrContext, topRadius, halfHeight, sliceNumber,
-                    1.0f, facingOut, futureTextureList.get(0));       
+            addChildObject(new GVRSceneObject(gvrContext,
+                    new FutureWrapper<GVRMesh>(meshes[next++]),
+                    futureTextureList.get(0)));
         }
-        
-        // cylinder body
-        createBodyMesh(gvrContext, bottomRadius, topRadius, height, stackNumber, sliceNumber,
-                facingOut, futureTextureList.get(1));
-        
-        // bottom cap
+        addChildObject(new GVRSceneObject(gvrContext,
+                new FutureWrapper<GVRMesh>(meshes[next++]),
+                futureTextureList.get(1)));
         if (bottomRadius > 0) {
-            createCapMesh(gvrContext, bottomRadius, -halfHeight, sliceNumber,
-                    -1.0f, facingOut, futureTextureList.get(2));       
+            addChildObject(new GVRSceneObject(gvrContext,
+                    new FutureWrapper<GVRMesh>(meshes[next++]),
+                    futureTextureList.get(2)));
         }
 
         // attached an empty renderData for parent object, so that we can set some common properties
@@ -780,7 +813,7 @@ public class GVRCylinderSceneObject extends GVRSceneObject {
     }
 
     private void createCapMesh(GVRContext gvrContext, float radius, float height, int sliceNumber,
-            float normalDirection, boolean facingOut, Future<GVRTexture> futureTexture) {      
+            float normalDirection, boolean facingOut, MeshList meshList) {
         int capVertexNumber = 3 * sliceNumber;
         vertices = new float[3 * capVertexNumber];
         normals = new float[3 * capVertexNumber];
@@ -794,20 +827,11 @@ public class GVRCylinderSceneObject extends GVRSceneObject {
 
         createCap(radius, height, sliceNumber, normalDirection, facingOut);
 
-        GVRMesh mesh = new GVRMesh(gvrContext);
-        mesh.setVertices(vertices);
-        mesh.setNormals(normals);
-        mesh.setTexCoords(texCoords);
-        mesh.setTriangles(indices);
-
-        GVRSceneObject child = new GVRSceneObject(gvrContext,
-                new FutureWrapper<GVRMesh>(mesh),
-                futureTexture);
-        addChildObject(child);        
-   }
+        meshList.add(gvrContext, vertices, normals, texCoords, indices);
+    }
 
     private void createBodyMesh(GVRContext gvrContext, float bottomRadius, float topRadius, float height,
-            int stackNumber, int sliceNumber, boolean facingOut, Future<GVRTexture> futureTexture) {
+            int stackNumber, int sliceNumber, boolean facingOut, MeshList meshList) {
         int bodyVertexNumber = 4 * sliceNumber * stackNumber;
         int triangleNumber = 6 * sliceNumber * stackNumber;
         
@@ -824,44 +848,38 @@ public class GVRCylinderSceneObject extends GVRSceneObject {
         createBody(bottomRadius, topRadius, height, stackNumber, sliceNumber,
                 facingOut);
 
-        GVRMesh mesh = new GVRMesh(gvrContext);
-        mesh.setVertices(vertices);
-        mesh.setNormals(normals);
-        mesh.setTexCoords(texCoords);
-        mesh.setTriangles(indices);
-
-        GVRSceneObject child = new GVRSceneObject(gvrContext,
-                new FutureWrapper<GVRMesh>(mesh),
-                futureTexture);
-        addChildObject(child);        
+        meshList.add(gvrContext, vertices, normals, texCoords, indices);
     }
 
     private void generateComplexCylinderObject(GVRContext gvrContext,
             float bottomRadius, float topRadius, float height, int stackNumber,
             int sliceNumber, boolean facingOut, ArrayList<Future<GVRTexture>> futureTextureList, int stackSegmentNumber, int sliceSegmentNumber) {
-        float halfHeight = height / 2.0f;
+        GVRMesh[] meshes = getComplexCylinderMeshes(gvrContext, bottomRadius,
+                topRadius, height, stackNumber, sliceNumber, facingOut,
+                stackSegmentNumber, sliceSegmentNumber);
+        int next = 0;
 
         GVRMaterial material;
         // top cap
         if (topRadius > 0) {
             material = new GVRMaterial(gvrContext);
             material.setMainTexture(futureTextureList.get(0));
-            createComplexCap(gvrContext, topRadius, halfHeight, sliceNumber,
-                    1.0f, facingOut, material, sliceNumber);       
+            next = addComplexChildren(gvrContext, meshes, next, sliceNumber,
+                    material);
         }
         
         // cylinder body
         material = new GVRMaterial(gvrContext);
         material.setMainTexture(futureTextureList.get(1));
-        createComplexBody(gvrContext, bottomRadius, topRadius, height, stackNumber, sliceNumber,
-                facingOut, material, stackSegmentNumber, sliceSegmentNumber);
+        next = addComplexChildren(gvrContext, meshes, next, stackSegmentNumber
+                * sliceSegmentNumber, material);
         
         // bottom cap
         if (bottomRadius > 0) {
             material = new GVRMaterial(gvrContext);
             material.setMainTexture(futureTextureList.get(2));
-            createComplexCap(gvrContext, bottomRadius, -halfHeight, sliceNumber,
-                    -1.0f, facingOut, material, sliceNumber);       
+            next = addComplexChildren(gvrContext, meshes, next, sliceNumber,
+                    material);
         }
 
         // attached an empty renderData for parent object, so that we can set some common properties
@@ -872,31 +890,70 @@ public class GVRCylinderSceneObject extends GVRSceneObject {
     private void generateComplexCylinderObject(GVRContext gvrContext,
             float bottomRadius, float topRadius, float height, int stackNumber,
             int sliceNumber, boolean facingOut, GVRMaterial material, int stackSegmentNumber, int sliceSegmentNumber) {
+        GVRMesh[] meshes = getComplexCylinderMeshes(gvrContext, bottomRadius,
+                topRadius, height, stackNumber, sliceNumber, facingOut,
+                stackSegmentNumber, sliceSegmentNumber);
+        addComplexChildren(gvrContext, meshes, 0, meshes.length, material);
+
+        // attached an empty renderData for parent object, so that we can set some common properties
+        GVRRenderData renderData = new GVRRenderData(gvrContext);
+        attachRenderData(renderData);
+    }
+
+    /**
+     * The top cap meshes (one per slice, if there is a top cap), then the
+     * body meshes, then the bottom cap meshes.
+     */
+    private GVRMesh[] getComplexCylinderMeshes(GVRContext gvrContext,
+            float bottomRadius, float topRadius, float height, int stackNumber,
+            int sliceNumber, boolean facingOut, int stackSegmentNumber,
+            int sliceSegmentNumber) {
+        GVRPrimitiveMeshCache cache = GVRPrimitiveMeshCache
+                .getInstance(gvrContext);
+        Key key = new Key(Shape.SEGMENTED_CYLINDER, facingOut, bottomRadius,
+                topRadius, height, stackNumber, sliceNumber,
+                stackSegmentNumber, sliceSegmentNumber);
+        GVRMesh[] meshes = cache.get(key);
+        if (meshes != null) {
+            return meshes;
+        }
+
+        MeshList meshList = new MeshList();
         float halfHeight = height / 2.0f;
 
         // top cap
         if (topRadius > 0) {
             createComplexCap(gvrContext, topRadius, halfHeight, sliceNumber,
-                    1.0f, facingOut, material, sliceNumber);       
+                    1.0f, facingOut, meshList, sliceNumber);
         }
-        
+
         // cylinder body
-        createComplexBody(gvrContext, bottomRadius, topRadius, height, stackNumber, sliceNumber,
-                facingOut, material, stackSegmentNumber, sliceSegmentNumber);
-        
+        createComplexBody(gvrContext, bottomRadius, topRadius, height,
+                stackNumber, sliceNumber, facingOut, meshList,
+                stackSegmentNumber, sliceSegmentNumber);
+
         // bottom cap
         if (bottomRadius > 0) {
-            createComplexCap(gvrContext, bottomRadius, -halfHeight, sliceNumber,
-                    -1.0f, facingOut, material, sliceNumber);       
+            createComplexCap(gvrContext, bottomRadius, -halfHeight,
+                    sliceNumber, -1.0f, facingOut, meshList, sliceNumber);
         }
 
-        // attached an empty renderData for parent object, so that we can set some common properties
-        GVRRenderData renderData = new GVRRenderData(gvrContext);
-        attachRenderData(renderData);
+        return cache.put(key, meshList);
+    }
+
+    private int addComplexChildren(GVRContext gvrContext, GVRMesh[] meshes,
+            int first, int count, GVRMaterial material) {
+        for (int index = first; index < first + count; ++index) {
+            GVRSceneObject childObject = new GVRSceneObject(gvrContext,
+                    meshes[index]);
+            childObject.getRenderData().setMaterial(material);
+            addChildObject(childObject);
+        }
+        return first + count;
     }
 
     private void createComplexCap(GVRContext gvrContext, float radius, float height, int sliceNumber,
-            float normalDirection, boolean facingOut, GVRMaterial material, int sliceSegmentNumber) {
+            float normalDirection, boolean facingOut, MeshList meshList, int sliceSegmentNumber) {
         if (!facingOut) {
             normalDirection = -normalDirection;
         }
@@ -977,15 +1034,7 @@ public class GVRCylinderSceneObject extends GVRSceneObject {
 
             sliceCounter++;
             if (sliceCounter == slicePerSegment) {
-                GVRMesh mesh = new GVRMesh(gvrContext);
-                mesh.setVertices(vertices);
-                mesh.setNormals(normals);
-                mesh.setTexCoords(texCoords);
-                mesh.setTriangles(indices);
-                GVRSceneObject childObject = new GVRSceneObject(gvrContext,
-                        mesh);
-                childObject.getRenderData().setMaterial(material);
-                addChildObject(childObject);
+                meshList.add(gvrContext, vertices, normals, texCoords, indices);
 
                 sliceCounter = 0;
 
@@ -1003,7 +1052,7 @@ public class GVRCylinderSceneObject extends GVRSceneObject {
     }
 
     private void createComplexBody(GVRContext gvrContext, float bottomRadius, float topRadius, float height,
-            int stackNumber, int sliceNumber, boolean facingOut, GVRMaterial material, int stackSegmentNumber, int sliceSegmentNumber) {
+            int stackNumber, int sliceNumber, boolean facingOut, MeshList meshList, int stackSegmentNumber, int sliceSegmentNumber) {
         float difference = bottomRadius - topRadius;
         float length = (float) Math.sqrt(difference*difference + height*height);
         float ratio = height / length;
@@ -1157,15 +1206,7 @@ public class GVRCylinderSceneObject extends GVRSceneObject {
                     }
                 }
 
-                GVRMesh mesh = new GVRMesh(gvrContext);
-                mesh.setVertices(vertices);
-                mesh.setNormals(normals);
-                mesh.setTexCoords(texCoords);
-                mesh.setTriangles(indices);
-                GVRSceneObject childObject = new GVRSceneObject(gvrContext,
-                        mesh);
-                childObject.getRenderData().setMaterial(material);
-                addChildObject(childObject);
+                meshList.add(gvrContext, vertices, normals, texCoords, indices);
 
                 vertexCount = 0;
                 texCoordCount = 0;
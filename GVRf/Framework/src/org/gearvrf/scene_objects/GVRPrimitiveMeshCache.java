@@ -0,0 +1,266 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gearvrf.scene_objects;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRMesh;
+
+/**
+ * Shares the meshes of the built-in primitive scene objects.
+ * 
+ * Once {@linkplain #setEnabled(boolean) enabled}, a
+ * {@link GVRSphereSceneObject}, {@link GVRCylinderSceneObject},
+ * {@link GVRConeSceneObject} or {@link GVRCubeSceneObject} asks the cache for
+ * the meshes that match its shape, tessellation, and facing, and only
+ * generates them if no earlier object with the same parameters is still
+ * alive: 500 identical spheres share one mesh. Like
+ * {@link org.gearvrf.utility.ResourceCache ResourceCache}, the cache only
+ * holds weak references, so it never keeps a mesh in memory on its own.
+ * 
+ * <p>
+ * The cache is disabled by default. While it is enabled, changing the
+ * vertices of one primitive's mesh changes every primitive built with the
+ * same parameters, so only enable it in an app that leaves primitives'
+ * meshes as they are generated.
+ * 
+ * @since 2.0.2
+ */
+public class GVRPrimitiveMeshCache {
+
+    private static GVRPrimitiveMeshCache sInstance = null;
+
+    static {
+        GVRContext.addResetOnRestartHandler(new Runnable() {
+
+            @Override
+            public void run() {
+                sInstance = null;
+            }
+        });
+    }
+
+    private final Map<Key, Entry> mEntries = new HashMap<Key, Entry>();
+    private boolean mEnabled = false;
+
+    protected GVRPrimitiveMeshCache(GVRContext gvrContext) {
+    }
+
+    /**
+     * The cache for the current {@link GVRContext}: its meshes belong to that
+     * context, so the cache is dropped on restart.
+     * 
+     * @param gvrContext
+     *            current GVR context
+     */
+    public static synchronized GVRPrimitiveMeshCache getInstance(
+            GVRContext gvrContext) {
+        if (sInstance == null) {
+            sInstance = new GVRPrimitiveMeshCache(gvrContext);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Turn sharing on or off. While the cache is disabled, every new
+     * primitive generates its own meshes; meshes that are already shared stay
+     * shared.
+     * 
+     * @param enabled
+     *            {@code true} to share the meshes of primitives created from
+     *            now on
+     */
+    public synchronized void setEnabled(boolean enabled) {
+        mEnabled = enabled;
+        if (!enabled) {
+            mEntries.clear();
+        }
+    }
+
+    /** Whether new primitives share their meshes. Defaults to {@code false}. */
+    public synchronized boolean isEnabled() {
+        return mEnabled;
+    }
+
+    /** Forget every cached mesh. Meshes already in use stay in use. */
+    public synchronized void clear() {
+        mEntries.clear();
+    }
+
+    /** The number of distinct meshes the cache is sharing. */
+    public synchronized int getMeshCount() {
+        prune();
+        int count = 0;
+        for (Entry entry : mEntries.values()) {
+            count += entry.meshes.length;
+        }
+        return count;
+    }
+
+    /**
+     * The vertex data of every mesh the cache is sharing, in bytes: what one
+     * copy of each costs, however many primitives use it.
+     */
+    public synchronized long getMemoryUsage() {
+        prune();
+        long bytes = 0;
+        for (Entry entry : mEntries.values()) {
+            bytes += entry.bytes;
+        }
+        return bytes;
+    }
+
+    /**
+     * The cached meshes for {@code key}, in the order they were
+     * {@linkplain #put(Key, MeshList) put}; or {@code null}, if they have
+     * never been generated, or any of them has been garbage collected.
+     */
+    synchronized GVRMesh[] get(Key key) {
+        if (!mEnabled) {
+            return null;
+        }
+        Entry entry = mEntries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        GVRMesh[] meshes = entry.get();
+        if (meshes == null) {
+            mEntries.remove(key);
+        }
+        return meshes;
+    }
+
+    /** Save weak references to newly generated meshes, and return them */
+    synchronized GVRMesh[] put(Key key, MeshList meshList) {
+        GVRMesh[] meshes = meshList.meshes.toArray(new GVRMesh[meshList.meshes
+                .size()]);
+        if (mEnabled) {
+            mEntries.put(key, new Entry(meshes, meshList.bytes));
+        }
+        return meshes;
+    }
+
+    private void prune() {
+        for (Iterator<Entry> iterator = mEntries.values().iterator(); iterator
+                .hasNext();) {
+            if (iterator.next().get() == null) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /** The primitives, and the ways they are split into meshes */
+    enum Shape {
+        SPHERE, SEGMENTED_SPHERE, //
+        CYLINDER, SPLIT_CYLINDER, SEGMENTED_CYLINDER, //
+        CUBE, SPLIT_CUBE, SEGMENTED_CUBE
+    }
+
+    /**
+     * What a primitive's meshes depend on: the shape, the facing, and the
+     * tessellation and dimensions, in a fixed order for each shape.
+     */
+    static final class Key {
+        private final Shape mShape;
+        private final boolean mFacingOut;
+        private final float[] mParameters;
+        private final int mHashCode;
+
+        Key(Shape shape, boolean facingOut, float... parameters) {
+            mShape = shape;
+            mFacingOut = facingOut;
+            mParameters = parameters;
+            mHashCode = 31 * (31 * shape.hashCode() + (facingOut ? 1 : 0))
+                    + Arrays.hashCode(parameters);
+        }
+
+        @Override
+        public int hashCode() {
+            return mHashCode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return mShape == other.mShape && mFacingOut == other.mFacingOut
+                    && Arrays.equals(mParameters, other.mParameters);
+        }
+    }
+
+    /**
+     * Collects the meshes a primitive generates, and the size of their vertex
+     * data. The arrays are copied to the native mesh, so a generator can
+     * refill the same arrays for its next mesh.
+     */
+    static final class MeshList {
+        private final List<GVRMesh> meshes = new ArrayList<GVRMesh>();
+        private long bytes;
+
+        GVRMesh add(GVRContext gvrContext, float[] vertices, float[] normals,
+                float[] texCoords, char[] indices) {
+            GVRMesh mesh = new GVRMesh(gvrContext);
+            mesh.setVertices(vertices);
+            mesh.setNormals(normals);
+            mesh.setTexCoords(texCoords);
+            mesh.setTriangles(indices);
+            meshes.add(mesh);
+
+            bytes += 4L * (vertices.length + normals.length + texCoords.length)
+                    + 2L * indices.length;
+            return mesh;
+        }
+    }
+
+    private static final class Entry {
+        final WeakReference<GVRMesh>[] meshes;
+        final long bytes;
+
+        @SuppressWarnings("unchecked")
+        Entry(GVRMesh[] meshes, long bytes) {
+            this.meshes = new WeakReference[meshes.length];
+            for (int index = 0; index < meshes.length; ++index) {
+                this.meshes[index] = new WeakReference<GVRMesh>(meshes[index]);
+            }
+            this.bytes = bytes;
+        }
+
+        /** The meshes, or {@code null} if any is gone */
+        GVRMesh[] get() {
+            GVRMesh[] result = new GVRMesh[meshes.length];
+            for (int index = 0; index < meshes.length; ++index) {
+                result[index] = meshes[index].get();
+                if (result[index] == null) {
+                    return null;
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -23,6 +23,9 @@ import org.gearvrf.GVRRenderData;
 import org.gearvrf.GVRContext;
 import org.gearvrf.GVRMesh;
 import org.gearvrf.GVRTexture;
+import org.gearvrf.scene_objects.GVRPrimitiveMeshCache.Key;
+import org.gearvrf.scene_objects.GVRPrimitiveMeshCache.MeshList;
+import org.gearvrf.scene_objects.GVRPrimitiveMeshCache.Shape;
 import org.gearvrf.utility.Log;
 
 public class GVRSphereSceneObject extends GVRSceneObject {
@@ -250,17 +253,21 @@ public class GVRSphereSceneObject extends GVRSceneObject {
 
     private void generateSphereObject(GVRContext gvrContext, int stackNumber,
             int sliceNumber, boolean facingOut, GVRMaterial material) {
-        generateSphere(stackNumber, sliceNumber, facingOut);
-
-        GVRMesh mesh = new GVRMesh(gvrContext);
-        mesh.setVertices(vertices);
-        mesh.setNormals(normals);
-        mesh.setTexCoords(texCoords);
-        mesh.setTriangles(indices);
+        GVRPrimitiveMeshCache cache = GVRPrimitiveMeshCache
+                .getInstance(gvrContext);
+        Key key = new Key(Shape.SPHERE, facingOut, stackNumber, sliceNumber);
+        GVRMesh[] meshes = cache.get(key);
+        if (meshes == null) {
+            generateSphere(stackNumber, sliceNumber, facingOut);
+
+            MeshList meshList = new MeshList();
+            meshList.add(gvrContext, vertices, normals, texCoords, indices);
+            meshes = cache.put(key, meshList);
+        }
 
         GVRRenderData renderData = new GVRRenderData(gvrContext);
         attachRenderData(renderData);
-        renderData.setMesh(mesh);
+        renderData.setMesh(meshes[0]);
         renderData.setMaterial(material);
     }
 
@@ -558,17 +565,34 @@ public class GVRSphereSceneObject extends GVRSceneObject {
     private void generateComplexSphereObject(GVRContext gvrContext,
             int stackNumber, int sliceNumber, boolean facingOut,
             GVRMaterial material, int stackSegmentNumber, int sliceSegmentNumber) {
-        // bottom cap
-        createComplexCap(gvrContext, stackNumber, sliceNumber, false,
-                facingOut, material, sliceSegmentNumber);
-
-        // body
-        createComplexBody(gvrContext, stackNumber, sliceNumber, facingOut,
-                material, stackSegmentNumber, sliceSegmentNumber);
+        GVRPrimitiveMeshCache cache = GVRPrimitiveMeshCache
+                .getInstance(gvrContext);
+        Key key = new Key(Shape.SEGMENTED_SPHERE, facingOut, stackNumber,
+                sliceNumber, stackSegmentNumber, sliceSegmentNumber);
+        GVRMesh[] meshes = cache.get(key);
+        if (meshes == null) {
+            MeshList meshList = new MeshList();
+
+            // bottom cap
+            createComplexCap(gvrContext, stackNumber, sliceNumber, false,
+                    facingOut, meshList, sliceSegmentNumber);
+
+            // body
+            createComplexBody(gvrContext, stackNumber, sliceNumber, facingOut,
+                    meshList, stackSegmentNumber, sliceSegmentNumber);
+
+            // top cap
+            createComplexCap(gvrContext, stackNumber, sliceNumber, true,
+                    facingOut, meshList, sliceSegmentNumber);
+
+            meshes = cache.put(key, meshList);
+        }
 
-        // top cap
-        createComplexCap(gvrContext, stackNumber, sliceNumber, true, facingOut,
-                material, sliceSegmentNumber);
+        for (GVRMesh mesh : meshes) {
+            GVRSceneObject childObject = new GVRSceneObject(gvrContext, mesh);
+            childObject.getRenderData().setMaterial(material);
+            addChildObject(childObject);
+        }
 
         // attached an empty renderData for parent object, so that we can set
         // some common properties
@@ -579,7 +603,7 @@ public class GVRSphereSceneObject extends GVRSceneObject {
 
     private void createComplexCap(GVRContext gvrContext, int stackNumber,
             int sliceNumber, boolean top, boolean facingOut,
-            GVRMaterial material, int sliceSegmentNumber) {
+            MeshList meshList, int sliceSegmentNumber) {
         int slicePerSegment = sliceNumber / sliceSegmentNumber;
         int vertexNumber = 3 * slicePerSegment;
         vertices = new float[3 * vertexNumber];
@@ -703,15 +727,7 @@ public class GVRSphereSceneObject extends GVRSceneObject {
 
             sliceCounter++;
             if (sliceCounter == slicePerSegment) {
-                GVRMesh mesh = new GVRMesh(gvrContext);
-                mesh.setVertices(vertices);
-                mesh.setNormals(normals);
-                mesh.setTexCoords(texCoords);
-                mesh.setTriangles(indices);
-                GVRSceneObject childObject = new GVRSceneObject(gvrContext,
-                        mesh);
-                childObject.getRenderData().setMaterial(material);
-                addChildObject(childObject);
+                meshList.add(gvrContext, vertices, normals, texCoords, indices);
 
                 sliceCounter = 0;
 
@@ -729,7 +745,7 @@ public class GVRSphereSceneObject extends GVRSceneObject {
     }
 
     private void createComplexBody(GVRContext gvrContext, int stackNumber,
-            int sliceNumber, boolean facingOut, GVRMaterial material,
+            int sliceNumber, boolean facingOut, MeshList meshList,
             int stackSegmentNumber, int sliceSegmentNumber) {
         int stackPerSegment = (stackNumber - 2) / stackSegmentNumber;
         int slicePerSegment = sliceNumber / sliceSegmentNumber;
@@ -896,15 +912,7 @@ public class GVRSphereSceneObject extends GVRSceneObject {
                     }
                 }
 
-                GVRMesh mesh = new GVRMesh(gvrContext);
-                mesh.setVertices(vertices);
-                mesh.setNormals(normals);
-                mesh.setTexCoords(texCoords);
-                mesh.setTriangles(indices);
-                GVRSceneObject childObject = new GVRSceneObject(gvrContext,
-                        mesh);
-                childObject.getRenderData().setMaterial(material);
-                addChildObject(childObject);
+                meshList.add(gvrContext, vertices, normals, texCoords, indices);
 
                 vertexCount = 0;
                 texCoordCount = 0;
@@ -0,0 +1,366 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gearvrf.scene_objects;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRDrawFrameListener;
+import org.gearvrf.GVRExternalTexture;
+import org.gearvrf.GVRMesh;
+import org.gearvrf.GVRTexture;
+import org.gearvrf.utility.Log;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.PorterDuff.Mode;
+import android.graphics.Rect;
+import android.graphics.SurfaceTexture;
+import android.view.Surface;
+
+/**
+ * Draws every {@link GVRTextViewSceneObject} onto a few shared surfaces.
+ * 
+ * Each text view used to own a {@link SurfaceTexture}, an external texture,
+ * and a frame listener, and every refresh locked and uploaded the whole
+ * surface. The pool packs the views into atlas pages of up to 2048 x 2048
+ * instead: one surface and one texture per page, however many views are on
+ * it. A page's surface only covers the views it holds, and grows as views are
+ * added; each view's mesh is remapped onto its part of the page, and mapped
+ * again when the page grows.
+ * 
+ * Once a frame, the pool asks each view whether it has changed. Then it
+ * locks each page with changes once, over the bounding box of its changed
+ * views, redraws every view the lock touches, and posts and latches the
+ * page: one upload a page a frame. A page with no changes costs nothing. The last frame's costs are
+ * available from {@link #getViewsRedrawn()}, {@link #getPixelsLocked()},
+ * {@link #getPagesUploaded()}, and {@link #getRedrawTime()}.
+ * 
+ * The pool only holds its views weakly: a view that is garbage collected
+ * gives its slot back on the next frame, and
+ * {@link GVRTextViewSceneObject#release()} gives it back at once. A page
+ * whose last view goes is released.
+ * 
+ * @since 2.0.2
+ */
+public class GVRTextSurfacePool {
+
+    private static final String TAG = Log.tag(GVRTextSurfacePool.class);
+
+    private static final int PAGE_SIZE = 2048;
+    // Keeps linear filtering from sampling the next view
+    private static final int PADDING = 2;
+
+    private static GVRTextSurfacePool sInstance = null;
+
+    static {
+        GVRContext.addResetOnRestartHandler(new Runnable() {
+
+            @Override
+            public void run() {
+                sInstance = null;
+            }
+        });
+    }
+
+    /** What the pool draws: implemented by each text view */
+    interface Client {
+        /**
+         * Called once a frame, before anything is drawn.
+         * 
+         * @return {@code true} if the view has changed and should be redrawn
+         *         this frame
+         */
+        boolean onFrame();
+
+        /** Draw the view, with its top left corner at the canvas origin */
+        void draw(Canvas canvas);
+    }
+
+    private static final class Page {
+        final GVRExternalTexture texture;
+        final SurfaceTexture surfaceTexture;
+        final Surface surface;
+        int width, height;
+
+        Page(GVRContext gvrContext, int width, int height) {
+            texture = new GVRExternalTexture(gvrContext);
+            surfaceTexture = new SurfaceTexture(texture.getId());
+            surface = new Surface(surfaceTexture);
+            resize(width, height);
+        }
+
+        void resize(int width, int height) {
+            this.width = width;
+            this.height = height;
+            surfaceTexture.setDefaultBufferSize(width, height);
+        }
+
+        void release() {
+            surface.release();
+            surfaceTexture.release();
+        }
+    }
+
+    /**
+     * A slot's owner: the view, held weakly, and the mesh mapped onto the
+     * slot, with the coordinates it was mapped from.
+     */
+    private static final class ClientReference extends WeakReference<Client> {
+        final TextAtlas.Slot slot;
+        GVRMesh mesh;
+        float[] texCoords;
+
+        ClientReference(Client client, TextAtlas.Slot slot,
+                ReferenceQueue<Client> queue) {
+            super(client, queue);
+            this.slot = slot;
+        }
+    }
+
+    private final GVRContext mContext;
+    private final TextAtlas mAtlas = new TextAtlas(PAGE_SIZE, PAGE_SIZE,
+            PADDING);
+    // null where the atlas page is empty
+    private final List<Page> mPages = new ArrayList<Page>();
+    private final List<ClientReference> mClients = new ArrayList<ClientReference>();
+    private final ReferenceQueue<Client> mCollected = new ReferenceQueue<Client>();
+
+    // Scratch, so a frame allocates nothing
+    private final int[] mBounds = new int[4];
+    private final Rect mDirty = new Rect();
+    private final List<TextAtlas.Slot> mRedraw = new ArrayList<TextAtlas.Slot>();
+
+    private int mViewsRedrawn;
+    private int mPagesUploaded;
+    private long mPixelsLocked;
+    private long mRedrawTime;
+
+    protected GVRTextSurfacePool(GVRContext gvrContext) {
+        mContext = gvrContext;
+        gvrContext.registerDrawFrameListener(mFrameListener);
+    }
+
+    /**
+     * The pool for the current {@link GVRContext}: its surfaces belong to
+     * that context, so the pool is dropped on restart.
+     * 
+     * @param gvrContext
+     *            current GVR context
+     */
+    public static synchronized GVRTextSurfacePool getInstance(
+            GVRContext gvrContext) {
+        if (sInstance == null) {
+            sInstance = new GVRTextSurfacePool(gvrContext);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Find room for a view, creating or growing a page if need be. The pool
+     * only keeps a weak reference to {@code client}.
+     * 
+     * @return The view's slot: it will be drawn on the next frame
+     */
+    synchronized TextAtlas.Slot register(Client client, int width, int height) {
+        TextAtlas.Slot slot = mAtlas.allocate(width, height);
+        ClientReference reference = new ClientReference(client, slot,
+                mCollected);
+        slot.owner = reference;
+        mClients.add(reference);
+
+        int index = slot.page;
+        while (mPages.size() <= index) {
+            mPages.add(null);
+        }
+        int pageWidth = mAtlas.pageWidth(index);
+        int pageHeight = mAtlas.pageHeight(index);
+        Page page = mPages.get(index);
+        if (page == null) {
+            mPages.set(index, new Page(mContext, pageWidth, pageHeight));
+        } else if (page.width != pageWidth || page.height != pageHeight) {
+            // The new buffers start out blank, and the views' coordinates
+            // are fractions of the page size
+            page.resize(pageWidth, pageHeight);
+            for (TextAtlas.Slot onPage : mAtlas.slots(index)) {
+                onPage.dirty = true;
+                ClientReference owner = (ClientReference) onPage.owner;
+                if (owner.mesh != null) {
+                    owner.mesh.setTexCoords(map(owner.texCoords, onPage));
+                }
+            }
+        }
+        return slot;
+    }
+
+    /**
+     * Give a view's slot back, releasing its page if it was the last one on
+     * it. Unregistering a slot twice does nothing.
+     */
+    synchronized void unregister(TextAtlas.Slot slot) {
+        ClientReference reference = (ClientReference) slot.owner;
+        if (reference == null) {
+            return;
+        }
+        slot.owner = null;
+        reference.clear();
+        mClients.remove(reference);
+        if (mAtlas.free(slot)) {
+            mPages.get(slot.page).release();
+            mPages.set(slot.page, null);
+        }
+    }
+
+    /** The texture of the page a slot is on */
+    synchronized GVRTexture getTexture(TextAtlas.Slot slot) {
+        return mPages.get(slot.page).texture;
+    }
+
+    /**
+     * A copy of {@code mesh} whose texture coordinates address the slot's
+     * part of its page, not the whole texture. Coordinates outside [0, 1]
+     * would show neighbouring views, not repeat this one.
+     */
+    synchronized GVRMesh mapToSlot(GVRMesh mesh, TextAtlas.Slot slot) {
+        float[] texCoords = mesh.getTexCoords();
+
+        GVRMesh mapped = new GVRMesh(mContext);
+        mapped.setVertices(mesh.getVertices());
+        mapped.setNormals(mesh.getNormals());
+        mapped.setTexCoords(map(texCoords, slot));
+        mapped.setTriangles(mesh.getTriangles());
+
+        ClientReference owner = (ClientReference) slot.owner;
+        owner.mesh = mapped;
+        owner.texCoords = texCoords;
+        return mapped;
+    }
+
+    private float[] map(float[] texCoords, TextAtlas.Slot slot) {
+        float pageWidth = mAtlas.pageWidth(slot.page);
+        float pageHeight = mAtlas.pageHeight(slot.page);
+        float left = slot.x / pageWidth, width = slot.width / pageWidth;
+        float top = slot.y / pageHeight, height = slot.height / pageHeight;
+
+        float[] mapped = new float[texCoords.length];
+        for (int index = 0; index + 1 < texCoords.length; index += 2) {
+            mapped[index] = left + texCoords[index] * width;
+            mapped[index + 1] = top + texCoords[index + 1] * height;
+        }
+        return mapped;
+    }
+
+    /** How many views were redrawn on the last frame */
+    public synchronized int getViewsRedrawn() {
+        return mViewsRedrawn;
+    }
+
+    /**
+     * How many pages were locked, posted and latched on the last frame: at
+     * most once each.
+     */
+    public synchronized int getPagesUploaded() {
+        return mPagesUploaded;
+    }
+
+    /** How many pixels the last frame's canvas locks covered */
+    public synchronized long getPixelsLocked() {
+        return mPixelsLocked;
+    }
+
+    /**
+     * How long the last frame spent asking views for changes, drawing them,
+     * and latching the pages, in nanoseconds.
+     */
+    public synchronized long getRedrawTime() {
+        return mRedrawTime;
+    }
+
+    private final GVRDrawFrameListener mFrameListener = new GVRDrawFrameListener() {
+        @Override
+        public void onDrawFrame(float frameTime) {
+            redraw();
+        }
+    };
+
+    private synchronized void redraw() {
+        long start = System.nanoTime();
+        mViewsRedrawn = 0;
+        mPagesUploaded = 0;
+        mPixelsLocked = 0;
+
+        ClientReference collected;
+        while ((collected = (ClientReference) mCollected.poll()) != null) {
+            unregister(collected.slot);
+        }
+
+        for (ClientReference reference : mClients) {
+            Client client = reference.get();
+            if (client != null && client.onFrame()) {
+                reference.slot.dirty = true;
+            }
+        }
+
+        for (int page = 0; page < mPages.size(); ++page) {
+            if (mPages.get(page) == null) {
+                continue;
+            }
+            if (mAtlas.collectDirtyBounds(page, mBounds)) {
+                redraw(page);
+            }
+        }
+
+        mRedrawTime = System.nanoTime() - start;
+    }
+
+    private void redraw(int index) {
+        Page page = mPages.get(index);
+        mDirty.set(mBounds[0], mBounds[1], mBounds[2], mBounds[3]);
+        try {
+            Canvas canvas = page.surface.lockCanvas(mDirty);
+            // The lock can grow the rectangle to whatever the new buffer
+            // doesn't already hold: redraw every view it touches
+            mAtlas.collectSlots(index, mDirty.left, mDirty.top, mDirty.right,
+                    mDirty.bottom, mRedraw);
+            canvas.drawColor(Color.TRANSPARENT, Mode.CLEAR);
+            for (TextAtlas.Slot slot : mRedraw) {
+                Client client = ((ClientReference) slot.owner).get();
+                if (client == null) {
+                    continue;
+                }
+                canvas.save();
+                canvas.clipRect(slot.x, slot.y, slot.x + slot.width, slot.y
+                        + slot.height);
+                canvas.translate(slot.x, slot.y);
+                client.draw(canvas);
+                canvas.restore();
+            }
+            page.surface.unlockCanvasAndPost(canvas);
+
+            mViewsRedrawn += mRedraw.size();
+            mPixelsLocked += (long) mDirty.width() * mDirty.height();
+        } catch (Surface.OutOfResourcesException t) {
+            Log.e(TAG, "lockCanvas failed");
+        }
+        // Latch the post, so the next frame's lock copies back from it
+        page.surfaceTexture.updateTexImage();
+        ++mPagesUploaded;
+    }
+}
@@ -17,24 +17,16 @@ package org.gearvrf.scene_objects;
 
 import org.gearvrf.GVRActivity;
 import org.gearvrf.GVRContext;
-import org.gearvrf.GVRDrawFrameListener;
-import org.gearvrf.GVRExternalTexture;
 import org.gearvrf.GVRMaterial;
 import org.gearvrf.GVRMaterial.GVRShaderType;
 import org.gearvrf.GVRMesh;
 import org.gearvrf.GVRSceneObject;
-import org.gearvrf.GVRTexture;
 
 import android.graphics.Canvas;
 import android.graphics.Color;
-import android.graphics.PorterDuff.Mode;
-import android.graphics.SurfaceTexture;
 import android.graphics.drawable.Drawable;
-import android.util.Log;
-import android.view.Surface;
 import android.view.View;
 import android.view.ViewGroup.LayoutParams;
-import android.webkit.WebView;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 
@@ -73,8 +65,7 @@ public class GVRTextViewSceneObject extends GVRSceneObject {
     private static final float DEFAULT_QUAD_HEIGHT = 2.0f;
     private static final String DEFAULT_TEXT = "";
 
-    private final Surface mSurface;
-    private final SurfaceTexture mSurfaceTexture;
+    private final TextAtlas.Slot mSlot;
     private final LinearLayout mTextViewContainer;
     private final TextView mTextView;
 
@@ -120,16 +111,17 @@ public class GVRTextViewSceneObject extends GVRSceneObject {
         mTextViewContainer.measure(viewWidth, viewHeight);
         mTextViewContainer.layout(0, 0, viewWidth, viewHeight);
         mTextViewContainer.setVisibility(View.VISIBLE);
-        gvrContext.registerDrawFrameListener(mFrameListener);
-        GVRTexture texture = new GVRExternalTexture(gvrContext);
+
+        // The view is drawn onto a shared page, so the mesh has to address
+        // the view's part of the page
+        GVRTextSurfacePool pool = GVRTextSurfacePool.getInstance(gvrContext);
+        mSlot = pool.register(mClient, mTextViewContainer.getWidth(),
+                mTextViewContainer.getHeight());
+        getRenderData().setMesh(pool.mapToSlot(mesh, mSlot));
         GVRMaterial material = new GVRMaterial(gvrContext, GVRShaderType.OES.ID);
-        material.setMainTexture(texture);
+        material.setMainTexture(pool.getTexture(mSlot));
         getRenderData().setMaterial(material);
 
-        mSurfaceTexture = new SurfaceTexture(texture.getId());
-        mSurface = new Surface(mSurfaceTexture);
-        mSurfaceTexture.setDefaultBufferSize(mTextViewContainer.getWidth(),
-                mTextViewContainer.getHeight());
         sReferenceCounter++;
         mCount = sReferenceCounter;
         mFirstFrame = true;
@@ -557,32 +549,36 @@ public class GVRTextViewSceneObject extends GVRSceneObject {
         }
     }
 
-    private final GVRDrawFrameListener mFrameListener = new GVRDrawFrameListener() {
+    /**
+     * Give the view's part of the shared text surface back, now rather than
+     * when the view is garbage collected. Remove the view from the scene
+     * first: it shows nothing useful afterwards.
+     * 
+     * @since 2.0.2
+     */
+    public void release() {
+        GVRTextSurfacePool.getInstance(getGVRContext()).unregister(mSlot);
+    }
+
+    private final GVRTextSurfacePool.Client mClient = new GVRTextSurfacePool.Client() {
         @Override
-        public void onDrawFrame(float frameTime) {
+        public boolean onFrame() {
             if (mFirstFrame || (++mCount % mRefreshInterval == 0 && mIsChanged)) {
-                refresh();
                 if (!mFirstFrame) {
                     mCount = 0;
                 } else {
                     mFirstFrame = false;
                 }
                 mIsChanged = false;
+                return true;
             }
+            return false;
         }
-    };
 
-    /** Draws the {@link WebView} onto {@link #mSurfaceTexture} */
-    private void refresh() {
-        try {
-            Canvas canvas = mSurface.lockCanvas(null);
-            canvas.drawColor(Color.TRANSPARENT, Mode.CLEAR);
+        /** Draws the {@link TextView} onto its part of the shared page */
+        @Override
+        public void draw(Canvas canvas) {
             mTextViewContainer.draw(canvas);
-            mSurface.unlockCanvasAndPost(canvas);
-        } catch (Surface.OutOfResourcesException t) {
-            Log.e("GVRTextViewObject", "lockCanvas failed");
         }
-        mSurfaceTexture.updateTexImage();
-    }
-
+    };
 }
@@ -0,0 +1,356 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gearvrf.scene_objects;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Packs text views into shared atlas pages, and works out what to redraw.
+ * 
+ * Views are placed on shelves: rows of a page as tall as the first view put
+ * there, filled left to right. A view bigger than a page gets a page of its
+ * own. Each slot keeps a few pixels of padding on every side, so filtering
+ * never picks up a neighbour. A freed slot leaves a hole in its shelf that
+ * the next view narrow enough can take; a page whose last slot is freed
+ * starts over, empty.
+ * 
+ * A page's texture only has to cover the shelves in use, so it starts small
+ * and doubles in each direction as views are added, up to the page size.
+ * {@link #pageWidth(int)} and {@link #pageHeight(int)} are the texture's
+ * size: 0 for an empty page.
+ * 
+ * A page's dirty slots are redrawn together, under one lock that covers
+ * them all; see {@link #collectDirtyBounds(int, int[])}.
+ * 
+ * No Android or GL dependencies: {@link GVRTextSurfacePool} does the drawing.
+ */
+final class TextAtlas {
+
+    /** The smallest texture a page starts with */
+    static final int MIN_PAGE_SIZE = 64;
+
+    static final class Slot {
+        final int page;
+        /** The view's own area, inside the padding */
+        final int x, y, width, height;
+        /** Set by the owner: what to draw in the slot */
+        Object owner;
+        boolean dirty = true;
+        /** {@code null} on a page of its own */
+        private final Shelf shelf;
+
+        Slot(int page, Shelf shelf, int x, int y, int width, int height) {
+            this.page = page;
+            this.shelf = shelf;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+
+        boolean intersects(int left, int top, int right, int bottom) {
+            return x < right && left < x + width && y < bottom
+                    && top < y + height;
+        }
+    }
+
+    /** A gap in a shelf, left by a freed slot */
+    private static final class Hole {
+        int x, width;
+
+        Hole(int x, int width) {
+            this.x = x;
+            this.width = width;
+        }
+    }
+
+    private static final class Shelf {
+        final int y, height;
+        int used;
+        /** Sorted by x, never touching each other or {@link #used} */
+        final List<Hole> holes = new ArrayList<Hole>();
+
+        Shelf(int y, int height) {
+            this.y = y;
+            this.height = height;
+        }
+
+        /** The first hole at least {@code width} wide, or {@code null} */
+        Hole findHole(int width) {
+            for (Hole hole : holes) {
+                if (hole.width >= width) {
+                    return hole;
+                }
+            }
+            return null;
+        }
+
+        /** Give back {@code [x, x + width)}, merging it with its neighbours */
+        void release(int x, int width) {
+            int index = 0;
+            while (index < holes.size() && holes.get(index).x < x) {
+                ++index;
+            }
+            Hole before = index > 0 ? holes.get(index - 1) : null;
+            Hole after = index < holes.size() ? holes.get(index) : null;
+            if (before != null && before.x + before.width == x) {
+                x = before.x;
+                width += before.width;
+                holes.remove(--index);
+            }
+            if (after != null && x + width == after.x) {
+                width += after.width;
+                holes.remove(index);
+            }
+            if (x + width == used) {
+                used = x;
+            } else {
+                holes.add(index, new Hole(x, width));
+            }
+        }
+    }
+
+    private static final class Page {
+        final int width, height;
+        final List<Shelf> shelves = new ArrayList<Shelf>();
+        final List<Slot> slots = new ArrayList<Slot>();
+        final boolean dedicated;
+        int used;
+        int textureWidth, textureHeight;
+
+        Page(int width, int height, boolean dedicated) {
+            this.width = width;
+            this.height = height;
+            this.dedicated = dedicated;
+            if (dedicated) {
+                textureWidth = width;
+                textureHeight = height;
+            }
+        }
+    }
+
+    private final int mPageWidth, mPageHeight, mPadding;
+    private final List<Page> mPages = new ArrayList<Page>();
+
+    TextAtlas(int pageWidth, int pageHeight, int padding) {
+        mPageWidth = pageWidth;
+        mPageHeight = pageHeight;
+        mPadding = padding;
+    }
+
+    int pageCount() {
+        return mPages.size();
+    }
+
+    /** The width of the page's texture: 0 if the page is empty */
+    int pageWidth(int page) {
+        return mPages.get(page).textureWidth;
+    }
+
+    /** The height of the page's texture: 0 if the page is empty */
+    int pageHeight(int page) {
+        return mPages.get(page).textureHeight;
+    }
+
+    /** The slots on a page, in the order they were allocated */
+    List<Slot> slots(int page) {
+        return mPages.get(page).slots;
+    }
+
+    /**
+     * Find room for a view. The new slot is dirty. Pages with views on them
+     * are tried first, then empty ones, before a page is added.
+     */
+    Slot allocate(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException(width + " x " + height);
+        }
+        int paddedWidth = width + 2 * mPadding;
+        int paddedHeight = height + 2 * mPadding;
+
+        if (paddedWidth > mPageWidth || paddedHeight > mPageHeight) {
+            int index = addPage(new Page(paddedWidth, paddedHeight, true));
+            return place(index, mPages.get(index), null, 0, 0, width, height);
+        }
+
+        for (int index = 0; index < mPages.size(); ++index) {
+            Page page = mPages.get(index);
+            if (page.dedicated || page.slots.isEmpty()) {
+                continue;
+            }
+            Slot slot = allocate(index, page, paddedWidth, paddedHeight,
+                    width, height);
+            if (slot != null) {
+                return slot;
+            }
+        }
+        int index = addPage(new Page(mPageWidth, mPageHeight, false));
+        return allocate(index, mPages.get(index), paddedWidth, paddedHeight,
+                width, height);
+    }
+
+    /** Take the first empty page's place, or add one */
+    private int addPage(Page page) {
+        for (int index = 0; index < mPages.size(); ++index) {
+            if (mPages.get(index).slots.isEmpty()) {
+                mPages.set(index, page);
+                return index;
+            }
+        }
+        mPages.add(page);
+        return mPages.size() - 1;
+    }
+
+    private Slot allocate(int index, Page page, int paddedWidth,
+            int paddedHeight, int width, int height) {
+        // The shortest shelf the view fits on wastes the least height
+        Shelf best = null;
+        for (Shelf shelf : page.shelves) {
+            if (shelf.height >= paddedHeight
+                    && (best == null || shelf.height < best.height)
+                    && (page.width - shelf.used >= paddedWidth || shelf
+                            .findHole(paddedWidth) != null)) {
+                best = shelf;
+            }
+        }
+        if (best == null) {
+            if (page.height - page.used < paddedHeight) {
+                return null;
+            }
+            best = new Shelf(page.used, paddedHeight);
+            page.shelves.add(best);
+            page.used += paddedHeight;
+        }
+
+        int x;
+        Hole hole = best.findHole(paddedWidth);
+        if (hole != null) {
+            x = hole.x;
+            hole.x += paddedWidth;
+            hole.width -= paddedWidth;
+            if (hole.width == 0) {
+                best.holes.remove(hole);
+            }
+        } else {
+            x = best.used;
+            best.used += paddedWidth;
+        }
+
+        page.textureWidth = Math.max(page.textureWidth,
+                textureSize(x + paddedWidth, page.width));
+        page.textureHeight = Math.max(page.textureHeight,
+                textureSize(best.y + best.height, page.height));
+        return place(index, page, best, x, best.y, width, height);
+    }
+
+    /** The smallest power of two, from {@link #MIN_PAGE_SIZE}, that holds extent */
+    private static int textureSize(int extent, int limit) {
+        int size = MIN_PAGE_SIZE;
+        while (size < extent) {
+            size *= 2;
+        }
+        return Math.min(size, limit);
+    }
+
+    private Slot place(int index, Page page, Shelf shelf, int x, int y,
+            int width, int height) {
+        Slot slot = new Slot(index, shelf, x + mPadding, y + mPadding, width,
+                height);
+        page.slots.add(slot);
+        return slot;
+    }
+
+    /**
+     * Give a slot's room back. Freeing a slot twice does nothing.
+     * 
+     * @return {@code true} if that was the last slot on its page: the page is
+     *         now empty, and its texture can be released
+     */
+    boolean free(Slot slot) {
+        Page page = mPages.get(slot.page);
+        if (!page.slots.remove(slot)) {
+            return false;
+        }
+        if (page.slots.isEmpty()) {
+            mPages.set(slot.page, new Page(mPageWidth, mPageHeight, false));
+            return true;
+        }
+
+        slot.shelf.release(slot.x - mPadding, slot.width + 2 * mPadding);
+        // An empty top shelf gives its height back, for views of any height
+        while (!page.shelves.isEmpty()) {
+            Shelf top = page.shelves.get(page.shelves.size() - 1);
+            if (top.used != 0) {
+                break;
+            }
+            page.shelves.remove(page.shelves.size() - 1);
+            page.used = top.y;
+        }
+        return false;
+    }
+
+    /**
+     * The part of a page to lock and redraw this frame: the bounding box of
+     * its dirty slots, padding included. Each lock of a page's surface copies
+     * and uploads a whole buffer, so a page is locked once a frame, however
+     * many of its views changed. Clears the dirty flags.
+     * 
+     * @param bounds
+     *            Filled with {@code left, top, right, bottom}
+     * @return Whether anything on the page is dirty
+     */
+    boolean collectDirtyBounds(int page, int[] bounds) {
+        boolean dirty = false;
+        for (Slot slot : mPages.get(page).slots) {
+            if (!slot.dirty) {
+                continue;
+            }
+            slot.dirty = false;
+            int l = slot.x - mPadding, t = slot.y - mPadding;
+            int r = slot.x + slot.width + mPadding;
+            int b = slot.y + slot.height + mPadding;
+            if (!dirty) {
+                bounds[0] = l;
+                bounds[1] = t;
+                bounds[2] = r;
+                bounds[3] = b;
+                dirty = true;
+            } else {
+                bounds[0] = Math.min(bounds[0], l);
+                bounds[1] = Math.min(bounds[1], t);
+                bounds[2] = Math.max(bounds[2], r);
+                bounds[3] = Math.max(bounds[3], b);
+            }
+        }
+        return dirty;
+    }
+
+    /**
+     * Every slot on a page that a rectangle touches: what has to be redrawn
+     * once that rectangle is locked.
+     */
+    void collectSlots(int page, int left, int top, int right, int bottom,
+            List<Slot> slots) {
+        slots.clear();
+        for (Slot slot : mPages.get(page).slots) {
+            if (slot.intersects(left, top, right, bottom)) {
+                slots.add(slot);
+            }
+        }
+    }
+}
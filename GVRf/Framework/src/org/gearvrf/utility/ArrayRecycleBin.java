@@ -0,0 +1,141 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.utility;
+
+import java.lang.reflect.Array;
+
+import org.gearvrf.utility.ConcurrentRecycleBin.Strength;
+
+/**
+ * A size-classed recycle bin for arrays of varying length.
+ *
+ * <p>
+ * Size class {@code n} holds arrays whose length is at least
+ * {@code minLength << n} but less than {@code minLength << (n + 1)}. Each class
+ * is a {@link ConcurrentRecycleBin}, so this bin is thread-safe, and does not
+ * lock.
+ *
+ * <p>
+ * {@link #get(int)} looks in the smallest class whose arrays are all long
+ * enough, so it returns an array that is <em>at least</em> as long as you
+ * asked for; it may be up to four times as long. It returns null for more
+ * than {@code minLength << (sizeClasses - 1)} elements. Arrays shorter than
+ * {@code minLength}, or too long for the largest class, are not binned.
+ *
+ * @param <A>
+ *            Array type, like {@code byte[]} or {@code float[]}
+ *
+ * @since 2.0.2
+ */
+public class ArrayRecycleBin<A> {
+
+    private final int minLength;
+    /** Arrays this long or longer are not binned */
+    private final long maxLength;
+    private final ConcurrentRecycleBin<A>[] classes;
+
+    /**
+     * Create a size-classed bin.
+     *
+     * @param strength
+     *            How strongly the bin holds on to its arrays
+     * @param minLength
+     *            Length of the smallest size class; must be positive
+     * @param sizeClasses
+     *            Number of size classes. The largest class holds arrays at
+     *            least {@code minLength << (sizeClasses - 1)} but less than
+     *            {@code minLength << sizeClasses} long
+     * @param magazineSize
+     *            Arrays per magazine, in each size class
+     * @param maxMagazines
+     *            Maximum number of magazines, in each size class
+     */
+    public ArrayRecycleBin(Strength strength, int minLength, int sizeClasses,
+            int magazineSize, int maxMagazines) {
+        if (minLength <= 0) {
+            throw Exceptions.IllegalArgument(
+                    "minLength must be positive, not %d", minLength);
+        }
+        if (sizeClasses <= 0 || sizeClasses > 31
+                || (long) minLength << (sizeClasses - 1) > Integer.MAX_VALUE) {
+            throw Exceptions.IllegalArgument(
+                    "%d size classes starting at %d overflows an int",
+                    sizeClasses, minLength);
+        }
+
+        this.minLength = minLength;
+        this.maxLength = (long) minLength << sizeClasses;
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        ConcurrentRecycleBin<A>[] classes = new ConcurrentRecycleBin[sizeClasses];
+        this.classes = classes;
+        for (int index = 0; index < sizeClasses; ++index) {
+            classes[index] = new ConcurrentRecycleBin<A>(strength,
+                    magazineSize, maxMagazines);
+        }
+    }
+
+    /**
+     * Get and remove an array with at least {@code length} elements from the
+     * bin, or return null. Does not clear the array.
+     */
+    public A get(int length) {
+        int sizeClass = sizeClassFor(length);
+        if (sizeClass < 0) {
+            return null;
+        }
+
+        return classes[sizeClass].get();
+    }
+
+    /**
+     * Add an array to the bin. Bin makes no attempt to clear it. Arrays
+     * shorter than the smallest size class, or longer than the largest, are
+     * ignored.
+     */
+    public void put(A array) {
+        if (array == null) {
+            return;
+        }
+        int length = Array.getLength(array);
+        if (length < minLength || length >= maxLength) {
+            return;
+        }
+        classes[floorLog2(length / minLength)].put(array);
+    }
+
+    /**
+     * The class {@link #get(int)} looks in: the smallest class whose arrays
+     * are all at least {@code length} long.
+     *
+     * @return A size class index, or -1 for a negative length, or one longer
+     *         than the largest class guarantees
+     */
+    private int sizeClassFor(int length) {
+        if (length < 0) {
+            return -1;
+        }
+        if (length <= minLength) {
+            return 0;
+        }
+        int multiple = (length + minLength - 1) / minLength; // round up
+        int sizeClass = 32 - Integer.numberOfLeadingZeros(multiple - 1);
+        return sizeClass < classes.length ? sizeClass : -1;
+    }
+
+    private static int floorLog2(int value) {
+        return 31 - Integer.numberOfLeadingZeros(value);
+    }
+}
@@ -0,0 +1,397 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.utility;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread-safe {@link RecycleBin} that does not lock.
+ *
+ * <p>
+ * Items are kept in small fixed-size <em>magazines</em>. Each thread that uses
+ * the bin owns one magazine, so most {@link #get()} and {@link #put(Object)}
+ * calls only touch thread-local state. When a thread's magazine is full (on
+ * {@code put()}) or empty (on {@code get()}) it is swapped with a magazine from
+ * a shared depot: two lock-free stacks, one of full and one of empty
+ * magazines.
+ *
+ * <p>
+ * Magazines are never freed, and the depot stacks link them by index, with a
+ * version stamp in the same {@code long} as the stack head. This keeps the
+ * stacks free of the ABA problem without allocating a node per push, so once
+ * the bin has warmed up, {@code get()} and {@code put()} on a hard bin do not
+ * allocate. (A soft or weak bin has to allocate the {@link Reference} it
+ * stores, of course.)
+ *
+ * <p>
+ * The bin is bounded: it never has more than {@code maxMagazines} magazines.
+ * Once they are all in use, items put into a full magazine are simply dropped,
+ * for the garbage collector to take care of, and a thread that has no magazine
+ * of its own only takes one from the depot - the full stack on {@code get()},
+ * the empty stack on {@code put()} - if there is one there. A magazine held by
+ * a thread that has since died goes back to the depot the next time the bin
+ * runs out of magazines.
+ *
+ * <p>
+ * Soft and weak bins register each reference with a {@link ReferenceQueue}.
+ * Cleared references are discarded as {@code get()} pops them; the queue tells
+ * {@code put()} when a full magazine may contain cleared references, and is
+ * worth compacting before it is handed to the depot.
+ *
+ * @param <T>
+ *            Item to bin.
+ *
+ * @since 2.0.2
+ */
+public class ConcurrentRecycleBin<T> extends RecycleBin<T> {
+
+    /** How strongly the bin holds on to its items */
+    public enum Strength {
+        /** Being in the bin keeps an item in memory */
+        HARD,
+        /** The garbage collector may free items, if it has to */
+        SOFT,
+        /** The garbage collector will free items at the next collection */
+        WEAK
+    }
+
+    /** Default number of items in each magazine */
+    public static final int DEFAULT_MAGAZINE_SIZE = 16;
+    /** Default maximum number of magazines, including per-thread magazines */
+    public static final int DEFAULT_MAX_MAGAZINES = 32;
+
+    private static final long STAMP_INCREMENT = 1L << 32;
+    private static final long INDEX_MASK = 0xFFFFFFFFL;
+    /** Index value for 'empty stack' and 'end of list' */
+    private static final int NIL = -1;
+
+    private final Strength strength;
+    private final int magazineSize;
+    private final int maxMagazines;
+
+    /** Every magazine ever created, indexed by {@link Magazine#index} */
+    private volatile Magazine[] magazines = new Magazine[0];
+    private final Object registrationLock = new Object();
+    /** Set while one thread looks for magazines held by dead threads */
+    private final AtomicBoolean reclaiming = new AtomicBoolean();
+
+    private final AtomicLong fullMagazines = new AtomicLong(NIL & INDEX_MASK);
+    private final AtomicLong emptyMagazines = new AtomicLong(NIL & INDEX_MASK);
+
+    private final ReferenceQueue<T> referenceQueue;
+    /** Bumped each time the reference queue reports cleared references */
+    private final AtomicInteger clearedGeneration = new AtomicInteger();
+
+    /** The calling thread's magazine; null until it gets one */
+    private final ThreadLocal<Magazine> threadMagazine = new ThreadLocal<Magazine>();
+
+    /**
+     * Create a bin.
+     *
+     * @param strength
+     *            How strongly the bin holds on to its items
+     * @param magazineSize
+     *            Number of items each magazine can hold
+     * @param maxMagazines
+     *            Maximum number of magazines, including the ones threads hold
+     */
+    public ConcurrentRecycleBin(Strength strength, int magazineSize,
+            int maxMagazines) {
+        Assert.checkNotNull("strength", strength);
+        if (magazineSize <= 0) {
+            throw Exceptions.IllegalArgument(
+                    "magazineSize must be positive, not %d", magazineSize);
+        }
+        if (maxMagazines <= 0) {
+            throw Exceptions.IllegalArgument(
+                    "maxMagazines must be positive, not %d", maxMagazines);
+        }
+
+        this.strength = strength;
+        this.magazineSize = magazineSize;
+        this.maxMagazines = maxMagazines;
+        this.referenceQueue = strength == Strength.HARD ? null
+                : new ReferenceQueue<T>();
+    }
+
+    /** A hard bin, with the default magazine size and count */
+    public static <X> ConcurrentRecycleBin<X> hard() {
+        return new ConcurrentRecycleBin<X>(Strength.HARD,
+                DEFAULT_MAGAZINE_SIZE, DEFAULT_MAX_MAGAZINES);
+    }
+
+    /** A soft bin, with the default magazine size and count */
+    public static <X> ConcurrentRecycleBin<X> soft() {
+        return new ConcurrentRecycleBin<X>(Strength.SOFT,
+                DEFAULT_MAGAZINE_SIZE, DEFAULT_MAX_MAGAZINES);
+    }
+
+    /** A weak bin, with the default magazine size and count */
+    public static <X> ConcurrentRecycleBin<X> weak() {
+        return new ConcurrentRecycleBin<X>(Strength.WEAK,
+                DEFAULT_MAGAZINE_SIZE, DEFAULT_MAX_MAGAZINES);
+    }
+
+    /** How strongly this bin holds on to its items */
+    public Strength getStrength() {
+        return strength;
+    }
+
+    @Override
+    public T get() {
+        Magazine magazine = threadMagazine.get();
+        while (true) {
+            while (magazine != null && magazine.count > 0) {
+                T item = unwrap(magazine.take());
+                if (item != null) {
+                    return item;
+                }
+            }
+
+            Magazine full = popMagazine(fullMagazines);
+            if (full == null) {
+                return null;
+            }
+            if (magazine != null) {
+                pushMagazine(emptyMagazines, magazine);
+            }
+            adopt(full);
+            magazine = full;
+        }
+    }
+
+    @Override
+    public void put(T item) {
+        if (item == null) {
+            return;
+        }
+
+        Magazine magazine = threadMagazine.get();
+        if (magazine == null || magazine.count == magazineSize) {
+            if (magazine != null && referenceQueue != null
+                    && compact(magazine)) {
+                magazine.add(wrap(item));
+                return;
+            }
+
+            Magazine empty = popMagazine(emptyMagazines);
+            if (empty == null) {
+                empty = newMagazine();
+            }
+            if (empty == null && reclaimMagazines()) {
+                empty = popMagazine(emptyMagazines);
+            }
+            if (empty == null) {
+                return; // Bin is full: let the gc have item
+            }
+            if (magazine != null) {
+                pushMagazine(fullMagazines, magazine);
+            }
+            adopt(empty);
+            magazine = empty;
+        }
+        magazine.add(wrap(item));
+    }
+
+    /** This bin is already thread-safe */
+    @Override
+    public RecycleBin<T> synchronize() {
+        return this;
+    }
+
+    private Object wrap(T item) {
+        switch (strength) {
+        case SOFT:
+            return new SoftReference<T>(item, referenceQueue);
+        case WEAK:
+            return new WeakReference<T>(item, referenceQueue);
+        default:
+            return item;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T unwrap(Object stored) {
+        return strength == Strength.HARD ? (T) stored
+                : ((Reference<T>) stored).get();
+    }
+
+    /**
+     * Drop cleared references from a full magazine - but only if the reference
+     * queue says something has been cleared since we last looked.
+     *
+     * @return Whether compaction freed any slots
+     */
+    private boolean compact(Magazine magazine) {
+        boolean cleared = false;
+        while (referenceQueue.poll() != null) {
+            cleared = true;
+        }
+        if (cleared) {
+            clearedGeneration.incrementAndGet();
+        }
+
+        int generation = clearedGeneration.get();
+        if (magazine.compactedGeneration == generation) {
+            return false;
+        }
+        magazine.compactedGeneration = generation;
+
+        Object[] items = magazine.items;
+        int live = 0;
+        for (int index = 0, count = magazine.count; index < count; ++index) {
+            Object stored = items[index];
+            if (((Reference<?>) stored).get() != null) {
+                items[live++] = stored;
+            }
+        }
+        for (int index = live, count = magazine.count; index < count; ++index) {
+            items[index] = null;
+        }
+        magazine.count = live;
+        return live < magazineSize;
+    }
+
+    /*
+     * Depot
+     */
+
+    /**
+     * Create and register a new, empty magazine.
+     *
+     * @return A new magazine, or {@code null} if we are at
+     *         {@link #maxMagazines}
+     */
+    private Magazine newMagazine() {
+        synchronized (registrationLock) {
+            Magazine[] registered = magazines;
+            if (registered.length >= maxMagazines) {
+                return null;
+            }
+
+            Magazine magazine = new Magazine(registered.length, magazineSize);
+            Magazine[] grown = new Magazine[registered.length + 1];
+            System.arraycopy(registered, 0, grown, 0, registered.length);
+            grown[magazine.index] = magazine;
+            magazines = grown;
+            return magazine;
+        }
+    }
+
+    /** Make magazine, just taken from the depot, the calling thread's */
+    private void adopt(Magazine magazine) {
+        magazine.owner = Thread.currentThread();
+        threadMagazine.set(magazine);
+    }
+
+    /**
+     * Return the magazines held by threads that have died to the depot: to
+     * the full stack if they hold anything, else to the empty stack. Only
+     * one thread looks at a time; the others carry on without waiting.
+     *
+     * @return Whether any magazine was returned to the empty stack
+     */
+    private boolean reclaimMagazines() {
+        if (!reclaiming.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            boolean reclaimedEmpty = false;
+            for (Magazine magazine : magazines) {
+                Thread owner = magazine.owner;
+                // Nothing else touches a dead thread's magazine, and the
+                // reclaiming flag keeps another thread from taking it too
+                if (owner != null && !owner.isAlive()) {
+                    if (magazine.count > 0) {
+                        pushMagazine(fullMagazines, magazine);
+                    } else {
+                        pushMagazine(emptyMagazines, magazine);
+                        reclaimedEmpty = true;
+                    }
+                }
+            }
+            return reclaimedEmpty;
+        } finally {
+            reclaiming.set(false);
+        }
+    }
+
+    private void pushMagazine(AtomicLong stack, Magazine magazine) {
+        magazine.owner = null;
+        long head;
+        do {
+            head = stack.get();
+            magazine.next = (int) (head & INDEX_MASK);
+        } while (!stack.compareAndSet(head, nextHead(head, magazine.index)));
+    }
+
+    private Magazine popMagazine(AtomicLong stack) {
+        long head;
+        Magazine magazine;
+        do {
+            head = stack.get();
+            int index = (int) (head & INDEX_MASK);
+            if (index == NIL) {
+                return null;
+            }
+            // Magazines are registered before they are first pushed
+            magazine = magazines[index];
+            // If another thread pops and re-pushes magazine, next may be stale
+            // - but then the stamp has changed, and the CAS will fail
+        } while (!stack.compareAndSet(head, nextHead(head, magazine.next)));
+        return magazine;
+    }
+
+    private static long nextHead(long head, int index) {
+        return ((head & ~INDEX_MASK) + STAMP_INCREMENT)
+                | (index & INDEX_MASK);
+    }
+
+    /**
+     * Only one thread at a time owns a magazine; ownership is handed over by
+     * the depot stacks' CAS operations.
+     */
+    private static final class Magazine {
+        final int index;
+        final Object[] items;
+        int count;
+        int compactedGeneration;
+        volatile int next = NIL;
+        /** The thread holding this magazine; null while it is in the depot */
+        volatile Thread owner;
+
+        Magazine(int index, int size) {
+            this.index = index;
+            this.items = new Object[size];
+        }
+
+        void add(Object item) {
+            items[count++] = item;
+        }
+
+        Object take() {
+            Object item = items[--count];
+            items[count] = null;
+            return item;
+        }
+    }
+}
@@ -2,9 +2,14 @@ package org.gearvrf.utility;
 
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import android.graphics.Bitmap;
-import android.graphics.Color;
 
 /**
  * Utilities for basic image I/O and manipulation.
@@ -24,23 +29,149 @@ public class ImageUtils
      */
     public static Bitmap generateBitmapFlipV(final byte[] byteArray, final int width,
             final int height) {
+        return generateBitmapFlipV(ByteBuffer.wrap(byteArray), width, height);
+    }
+
+    /**
+     * Generates a {@code Bitmap} from a buffer containing {@code width} *
+     * {@code height} RGBA pixels, as returned by {@code glReadPixels()}. The
+     * alpha value is not used in the result bitmap. The bitmap is also
+     * vertically flipped. Large images are converted in parallel row bands.
+     *
+     * @param rgba The input buffer. Its position and limit are ignored.
+     * @param width The width of the image.
+     * @param height The height of the image.
+     * @return The generated {@code Bitmap} object.
+     */
+    public static Bitmap generateBitmapFlipV(final ByteBuffer rgba,
+            final int width, final int height) {
         int[] pixels = new int[width * height];
-        for (int row = 0; row < height; row++) {
-            int start_position = row * width;
-            int reverse_start_position = (height - 1 - row) * width;
-            for (int col = 0; col < width; col++) {
-                int position = (start_position + col) * 4;
-                int r = byteArray[position++] & 0xff;
-                int g = byteArray[position++] & 0xff;
-                int b = byteArray[position] & 0xff;
-                // flip the image vertically
-                pixels[reverse_start_position + col] = Color.rgb(r, g, b);
-            }
-        }
+        flipVRGBAToARGB(rgba, width, height, pixels, true);
         return Bitmap.createBitmap(pixels, width, height,
                 Bitmap.Config.ARGB_8888);
     }
 
+    /**
+     * Converts {@code width} * {@code height} RGBA pixels to opaque ARGB, and
+     * flips them vertically.
+     *
+     * @param rgba The input buffer, as returned by {@code glReadPixels()}. Its
+     *            position and limit are ignored.
+     * @param width The width of the image.
+     * @param height The height of the image.
+     * @param argb Receives the converted pixels; must hold at least
+     *            {@code width * height} ints.
+     * @param parallel If {@code true}, and the image is large enough to be
+     *            worth it, split the work into row bands and convert them on
+     *            the {@linkplain Threads#getThreadPool() thread pool}. The
+     *            calling thread converts bands too, so this never waits on a
+     *            band no thread has started.
+     */
+    public static void flipVRGBAToARGB(final ByteBuffer rgba, final int width,
+            final int height, final int[] argb, boolean parallel) {
+        int bands = parallel ? Math.min(PARALLEL_BANDS, height
+                / MIN_ROWS_PER_BAND) : 1;
+        if (bands <= 1) {
+            flipVRGBAToARGB(rgba, width, height, argb, 0, height);
+            return;
+        }
+
+        BandedConversion conversion = new BandedConversion(rgba, width,
+                height, argb, bands);
+        try {
+            for (int helper = 1; helper < bands; ++helper) {
+                Threads.getThreadPool().execute(conversion);
+            }
+        } catch (RejectedExecutionException e) {
+            // Fine: this thread will convert any bands no helper picks up
+        }
+        conversion.run();
+        conversion.await();
+    }
+
+    /**
+     * Converts and flips one band of rows: see
+     * {@link #flipVRGBAToARGB(ByteBuffer, int, int, int[], boolean)}.
+     *
+     * @param firstRow The first source row to convert.
+     * @param endRow The source row after the last row to convert.
+     */
+    public static void flipVRGBAToARGB(final ByteBuffer rgba, final int width,
+            final int height, final int[] argb, int firstRow, int endRow) {
+        // Reading little-endian ints puts R in the low byte: 0xAABBGGRR
+        IntBuffer source = rgba.duplicate().order(ByteOrder.LITTLE_ENDIAN)
+                .asIntBuffer();
+        for (int row = firstRow; row < endRow; ++row) {
+            int start = (height - 1 - row) * width;
+            int end = start + width;
+
+            source.position(row * width);
+            source.get(argb, start, width);
+
+            for (int index = start; index < end; ++index) {
+                int pixel = argb[index];
+                argb[index] = 0xFF000000 //
+                        | ((pixel & 0xFF) << 16) //
+                        | (pixel & 0xFF00) //
+                        | ((pixel >> 16) & 0xFF);
+            }
+        }
+    }
+
+    private static final int PARALLEL_BANDS = Math.max(1, Runtime.getRuntime()
+            .availableProcessors());
+    private static final int MIN_ROWS_PER_BAND = 64;
+
+    /**
+     * Hands out bands to whichever thread asks next, and counts them in.
+     */
+    private static class BandedConversion implements Runnable {
+        private final ByteBuffer mRgba;
+        private final int mWidth, mHeight;
+        private final int[] mArgb;
+        private final int mBands;
+        private final AtomicInteger mNextBand = new AtomicInteger();
+        private final CountDownLatch mDone;
+
+        BandedConversion(ByteBuffer rgba, int width, int height, int[] argb,
+                int bands) {
+            mRgba = rgba;
+            mWidth = width;
+            mHeight = height;
+            mArgb = argb;
+            mBands = bands;
+            mDone = new CountDownLatch(bands);
+        }
+
+        @Override
+        public void run() {
+            for (int band = mNextBand.getAndIncrement(); band < mBands; band = mNextBand
+                    .getAndIncrement()) {
+                try {
+                    flipVRGBAToARGB(mRgba, mWidth, mHeight, mArgb, band
+                            * mHeight / mBands, (band + 1) * mHeight / mBands);
+                } finally {
+                    mDone.countDown();
+                }
+            }
+        }
+
+        void await() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    mDone.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
     /**
      * Generates a {@code Bitmap} from a int array containing {@code width} *
      * {@code height} pixels. The pixel format is in ARGB_8888 format for
@@ -20,6 +20,7 @@ import java.lang.ref.SoftReference;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
@@ -49,6 +50,11 @@ import java.util.Set;
  * reference at all, but it will update the soft reference, so you can always
  * tell whether your weak cached item is still in memory.
  * 
+ * <p>
+ * The bins this class generates are not thread-safe; {@link #synchronize()}
+ * wraps them in a lock. {@link ConcurrentRecycleBin} is a thread-safe bin that
+ * does not lock, and {@link ArrayRecycleBin} adds size classes for arrays.
+ * 
  * @param <T>
  *            Item to bin.
  */
@@ -137,25 +143,15 @@ public abstract class RecycleBin<T> {
 
         @Override
         public T get() {
-            T result = null;
-            Reference<T> resultReference = null;
-            List<Reference<T>> dereferenced = new ArrayList<Reference<T>>(
-                    bin.size());
-
-            for (Reference<T> reference : bin) {
-                T referent = reference.get();
+            for (Iterator<Reference<T>> iterator = bin.iterator(); iterator
+                    .hasNext();) {
+                T referent = iterator.next().get();
+                iterator.remove();
                 if (referent != null) {
-                    result = referent;
-                    resultReference = reference;
-                    break;
-                } else {
-                    dereferenced.add(reference);
+                    return referent;
                 }
             }
-
-            bin.removeAll(dereferenced);
-            bin.remove(resultReference);
-            return result;
+            return null;
         }
 
         private static class Soft<T> extends SpecialReferenceBin<T> {
@@ -332,7 +332,14 @@ public abstract class Threads {
 
         private static final String TAG = Log.tag(ThreadLimiter.class);
 
-        private final int maxThreads;
+        /** Guarded by {@link #threadManagers} */
+        private int maxThreads;
+        /**
+         * Running threads that should stop, instead of taking more work,
+         * after a {@link #setMaxThreads(int)} lowered the limit. Guarded by
+         * {@link #threadManagers}
+         */
+        private int threadsToRetire = 0;
         private final List<ThreadManager> threadManagers;
         private final ThreadPolicyProvider<CANCELABLE> policy;
         private final int slowThreadTimeout;
@@ -393,6 +400,70 @@ public abstract class Threads {
             timeoutMap = new HashMap<ThreadManager, ThreadTimeouts>(maxThreads);
         }
 
+        /**
+         * Change the number of threads that can run at once.
+         *
+         * Raising the limit starts pending thread procs right away, if there
+         * are any. Lowering it never interrupts a thread proc: threads over
+         * the new limit stop when their current thread proc finishes.
+         *
+         * @param maxThreads
+         *            New maximum number of threads that can run at once; at
+         *            least 1.
+         */
+        public void setMaxThreads(int maxThreads) {
+            if (maxThreads < 1) {
+                throw new IllegalArgumentException(
+                        "A thread limiter needs at least one thread");
+            }
+            List<ThreadManager> started = null;
+
+            synchronized (threadManagers) {
+                int change = maxThreads - this.maxThreads;
+                this.maxThreads = maxThreads;
+
+                if (change < 0) {
+                    // Idle threads go first; running ones as they finish
+                    for (; change < 0 && threadManagers.size() > 0; ++change) {
+                        threadManagers.remove(threadManagers.size() - 1);
+                    }
+                    threadsToRetire -= change;
+                } else {
+                    // Cancel retirements before adding threads
+                    int kept = Math.min(change, threadsToRetire);
+                    threadsToRetire -= kept;
+                    change -= kept;
+                    for (; change > 0; --change) {
+                        threadManagers.add(new ThreadManager());
+                    }
+                    while (threadManagers.size() > 0 && !policy.isEmpty()) {
+                        ThreadManager threadManager = threadManagers
+                                .remove(threadManagers.size() - 1);
+                        threadManager.setRunnable(policy.get());
+                        if (started == null) {
+                            started = new ArrayList<ThreadManager>();
+                        }
+                        started.add(threadManager);
+                    }
+                }
+            }
+
+            if (started != null) {
+                for (ThreadManager threadManager : started) {
+                    Threads.spawn(threadManager);
+                }
+            }
+        }
+
+        /**
+         * @return The maximum number of threads that can run at once.
+         */
+        public int getMaxThreads() {
+            synchronized (threadManagers) {
+                return maxThreads;
+            }
+        }
+
         /**
          * Run a thread proc, on a thread from the system thread pool.
          *
@@ -529,7 +600,13 @@ public abstract class Threads {
                     // Run the NEXT Runnable from the pool, if any
                     synchronized (threadManagers) {
                         boolean slowThread = removeFromTimeouts() == false;
-                        if (slowThread || policy.isEmpty()) {
+                        if (!slowThread && threadsToRetire > 0) {
+                            // Over the limit: stop, without going back to
+                            // the pool
+                            threadsToRetire -= 1;
+                            workToDo = false;
+                            runnable = null;
+                        } else if (slowThread || policy.isEmpty()) {
                             // Thread should retire, or no more work for now
                             workToDo = false;
                             runnable = null;